@@ -25,6 +25,8 @@ class ActiveConfig
 	final static int DEFAULT_DICTIONARY_REQUEST_TIMEOUT			= 45000;
 	final static int DEFAULT_DIRECTORY_REQUEST_TIMEOUT			= 45000;
 	final static int DEFAULT_DISPATCH_TIMEOUT_API_THREAD		= 0;
+	final static int DEFAULT_DISPATCH_STRATEGY					= OmmBaseImpl.DispatchStrategy.SELECT;
+	final static int DEFAULT_DISPATCH_SPIN_TIME					= 50;
 	final static int DEFAULT_GUARANTEED_OUTPUT_BUFFERS			= 100;
 	final static int DEFAULT_NUM_INPUT_BUFFERS					= 10;
 	final static int DEFAULT_SYS_SEND_BUFFER_SIZE				= 0;
@@ -76,6 +78,8 @@ class ActiveConfig
 	int						dispatchTimeoutApiThread;
 	int						maxDispatchCountApiThread;
 	int						maxDispatchCountUserThread;
+	int						dispatchStrategy;
+	int						dispatchSpinTime;
 	int						obeyOpenWindow;
 	int						requestTimeout;
 	int						postAckTimeout;
@@ -103,6 +107,8 @@ class ActiveConfig
 		 dispatchTimeoutApiThread = DEFAULT_DISPATCH_TIMEOUT_API_THREAD;
 		 maxDispatchCountApiThread = DEFAULT_MAX_DISPATCH_COUNT_API_THREAD;
 		 maxDispatchCountUserThread = DEFAULT_MAX_DISPATCH_COUNT_USER_THREAD;
+		 dispatchStrategy = DEFAULT_DISPATCH_STRATEGY;
+		 dispatchSpinTime = DEFAULT_DISPATCH_SPIN_TIME;
 		 obeyOpenWindow = DEFAULT_OBEY_OPEN_WINDOW;
 		 requestTimeout = DEFAULT_REQUEST_TIMEOUT;
 		 postAckTimeout = DEFAULT_POST_ACK_TIMEOUT;
@@ -123,6 +129,8 @@ class ActiveConfig
 		dispatchTimeoutApiThread = DEFAULT_DISPATCH_TIMEOUT_API_THREAD;
 		maxDispatchCountApiThread = DEFAULT_MAX_DISPATCH_COUNT_API_THREAD;
 		maxDispatchCountUserThread = DEFAULT_MAX_DISPATCH_COUNT_USER_THREAD;
+		dispatchStrategy = DEFAULT_DISPATCH_STRATEGY;
+		dispatchSpinTime = DEFAULT_DISPATCH_SPIN_TIME;
 		obeyOpenWindow = DEFAULT_OBEY_OPEN_WINDOW;
 		requestTimeout = DEFAULT_REQUEST_TIMEOUT;
 		postAckTimeout = DEFAULT_POST_ACK_TIMEOUT;
@@ -331,6 +339,7 @@ class DictionaryConfig
 	String		dictionaryName;
 	String		rdmfieldDictionaryFileName;
 	String		enumtypeDefFileName;
+	String		cacheFileName;
 	boolean     isLocalDictionary;
 
 	DictionaryConfig(boolean localDictionary)
@@ -343,5 +352,6 @@ class DictionaryConfig
 		dictionaryName = null;
 		rdmfieldDictionaryFileName = null;
 		enumtypeDefFileName = null;
+		cacheFileName = null;
 	}
 }
@@ -0,0 +1,95 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+class ClientChannelStatsImpl implements ClientChannelStats
+{
+	private long	_clientHandle;
+	private boolean	_loggedIn;
+	private int		_itemCount;
+	private long	_messagesReceived;
+	private long	_requestsReceived;
+	private long	_messagesSent;
+	private long	_bytesSent;
+	private long	_messagesDropped;
+
+	ClientChannelStatsImpl(ClientSession session)
+	{
+		_clientHandle = session.handle();
+		_loggedIn = session._loggedIn;
+		_itemCount = session.streams().size();
+		_messagesReceived = session._messagesReceived;
+		_requestsReceived = session._requestsReceived;
+		_messagesSent = session._messagesSent;
+		_bytesSent = session._bytesSent;
+		_messagesDropped = session._messagesDropped;
+	}
+
+	@Override
+	public long clientHandle()
+	{
+		return _clientHandle;
+	}
+
+	@Override
+	public boolean loggedIn()
+	{
+		return _loggedIn;
+	}
+
+	@Override
+	public int itemCount()
+	{
+		return _itemCount;
+	}
+
+	@Override
+	public long messagesReceived()
+	{
+		return _messagesReceived;
+	}
+
+	@Override
+	public long requestsReceived()
+	{
+		return _requestsReceived;
+	}
+
+	@Override
+	public long messagesSent()
+	{
+		return _messagesSent;
+	}
+
+	@Override
+	public long bytesSent()
+	{
+		return _bytesSent;
+	}
+
+	@Override
+	public long messagesDropped()
+	{
+		return _messagesDropped;
+	}
+
+	@Override
+	public String toString()
+	{
+		return new StringBuilder().append("ClientChannelStats\n")
+				.append("    clientHandle: ").append(_clientHandle).append("\n")
+				.append("    loggedIn: ").append(_loggedIn).append("\n")
+				.append("    itemCount: ").append(_itemCount).append("\n")
+				.append("    messagesReceived: ").append(_messagesReceived).append("\n")
+				.append("    requestsReceived: ").append(_requestsReceived).append("\n")
+				.append("    messagesSent: ").append(_messagesSent).append("\n")
+				.append("    bytesSent: ").append(_bytesSent).append("\n")
+				.append("    messagesDropped: ").append(_messagesDropped).append("\n")
+				.toString();
+	}
+}
@@ -0,0 +1,56 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+import java.util.HashMap;
+
+import com.thomsonreuters.upa.transport.TransportBuffer;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorChannel;
+
+/* A consumer connection accepted by the interactive provider, with its open streams
+ * by stream id and its throughput counters. */
+class ClientSession
+{
+	private long						_handle;
+	private ReactorChannel				_reactorChannel;
+	private HashMap<Integer, ItemStream> _streams = new HashMap<>();
+	boolean								_loggedIn;
+	int									_loginStreamId;
+	TransportBuffer						_pendingBuffer;		// partly written fan-out message, see OmmIProviderImpl.flushPendingBuffer()
+
+	long								_messagesReceived;
+	long								_requestsReceived;
+	long								_messagesSent;
+	long								_bytesSent;
+	long								_messagesDropped;
+
+	ClientSession(long handle)
+	{
+		_handle = handle;
+	}
+
+	long handle()
+	{
+		return _handle;
+	}
+
+	ReactorChannel reactorChannel()
+	{
+		return _reactorChannel;
+	}
+
+	void reactorChannel(ReactorChannel reactorChannel)
+	{
+		_reactorChannel = reactorChannel;
+	}
+
+	HashMap<Integer, ItemStream> streams()
+	{
+		return _streams;
+	}
+}
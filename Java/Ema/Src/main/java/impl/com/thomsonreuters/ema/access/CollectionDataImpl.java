@@ -29,6 +29,7 @@ abstract class CollectionDataImpl extends DataImpl implements ComplexType
 	boolean _encodeComplete;
 	protected int _errorCode = ErrorCode.NO_ERROR;
 	protected StringBuilder _errorString;
+	private Buffer _encodeRsslBuffer;	// holds the buffer taken from the EncodeBufferPool, see acquireEncodeBuffer()
 	
 	CollectionDataImpl(EmaObjectManager objManager)
 	{
@@ -37,7 +38,7 @@ abstract class CollectionDataImpl extends DataImpl implements ComplexType
 			_encodeComplete = false;
 			_rsslEncodeIter = com.thomsonreuters.upa.codec.CodecFactory.createEncodeIterator() ;
 			_rsslBuffer = CodecFactory.createBuffer();
-			_rsslBuffer.data(ByteBuffer.allocate(ENCODE_RSSL_BUFFER_INIT_SIZE));
+			_encodeRsslBuffer = _rsslBuffer;
 		}
 		else
 			_objManager = objManager;
@@ -48,6 +49,14 @@ abstract class CollectionDataImpl extends DataImpl implements ComplexType
 		_encodeComplete = false;
 		
 		_rsslEncodeIter.clear();
+		if (_rsslBuffer == _encodeRsslBuffer)
+		{
+			// the encode buffer goes back to the pool until this container is encoded again
+			EncodeBufferPool.release(_rsslBuffer.data());
+			_rsslBuffer.clear();
+			return;
+		}
+		
 		ByteBuffer data = _rsslBuffer.data();
 		if (data != null)
 		{
@@ -58,6 +67,13 @@ abstract class CollectionDataImpl extends DataImpl implements ComplexType
 			_rsslBuffer.clear();
 	}
 
+	/* Takes a buffer from the EncodeBufferPool to encode into, unless one is held already. */
+	void acquireEncodeBuffer()
+	{
+		if (_rsslBuffer.data() == null)
+			_rsslBuffer.data(EncodeBufferPool.acquire(ENCODE_RSSL_BUFFER_INIT_SIZE));
+	}
+
 	OmmInvalidUsageExceptionImpl ommIUExcept()
 	{
 		if (_ommIUExcept == null)
@@ -66,6 +66,8 @@ public class ConfigManager
 	public static int PostAckTimeout = 21;
 	public static int RequestTimeout = 22;
 	public static int ServiceCountHint = 23;
+	public static int DispatchStrategy = 24;
+	public static int DispatchSpinTime = 25;
 	
 
 	// Channel: Global
@@ -141,6 +143,7 @@ public class ConfigManager
 	public static int DictionaryDictionaryID = 408;
 	public static int DictionaryRdmFieldDictionaryItemName = 409;
 	public static int DictionaryEnumTypeDefItemName = 410;
+	public static int DictionaryCacheFileName = 411;
 	
 	// NIProvider
 	public static int NiProviderGroup = 500;
@@ -221,6 +224,8 @@ public class ConfigManager
 		ConsumerTagDict.add( "ChannelSet",ChannelSet );
 		ConsumerTagDict.add( "DictionaryRequestTimeOut",DictionaryRequestTimeOut );
 		ConsumerTagDict.add( "DirectoryRequestTimeOut",DirectoryRequestTimeOut );
+		ConsumerTagDict.add( "DispatchSpinTime",DispatchSpinTime );
+		ConsumerTagDict.add( "DispatchStrategy",DispatchStrategy );
 		ConsumerTagDict.add( "DispatchTimeoutApiThread",DispatchTimeoutApiThread );
 		ConsumerTagDict.add( "ItemCountHint",ItemCountHint );
 		ConsumerTagDict.add( "LoginRequestTimeOut",LoginRequestTimeOut );
@@ -303,6 +308,7 @@ public class ConfigManager
 		DictionaryTagDict.add( "DictionaryID", DictionaryDictionaryID);
 		DictionaryTagDict.add( "RdmFieldDictionaryItemName", DictionaryRdmFieldDictionaryItemName);
 		DictionaryTagDict.add( "EnumTypeDefItemName", DictionaryEnumTypeDefItemName);
+		DictionaryTagDict.add( "DictionaryCacheFileName", DictionaryCacheFileName);
 		
 		NiProviderTagDict.add( "NiProviderGroup", NiProviderGroup);
 		NiProviderTagDict.add( "DefaultNiProvider", DefaultNiProvider);
@@ -312,6 +318,8 @@ public class ConfigManager
 		NiProviderTagDict.add( "Channel", NiProviderChannelName);
 		NiProviderTagDict.add( "Directory", NiProviderDirectoryName);
         NiProviderTagDict.add( "DictionaryRequestTimeOut",DictionaryRequestTimeOut );
+		NiProviderTagDict.add( "DispatchSpinTime",DispatchSpinTime );
+		NiProviderTagDict.add( "DispatchStrategy",DispatchStrategy );
 		NiProviderTagDict.add( "DispatchTimeoutApiThread",DispatchTimeoutApiThread );
 		NiProviderTagDict.add( "ItemCountHint",ItemCountHint );
 		NiProviderTagDict.add( "LoginRequestTimeOut",LoginRequestTimeOut );
@@ -419,6 +427,7 @@ public class ConfigManager
 			"DictionariesProvidedEntry",
 			"DictionariesUsedEntry",
 			"Dictionary",
+			"DictionaryCacheFileName",
 			"Directory",
 			"EnumTypeDefFileName",
 			"EnumTypeDefItemName",
@@ -453,6 +462,7 @@ public class ConfigManager
 		"CompressionType",
 		"DataState",
 		"DictionaryType",
+		"DispatchStrategy",
 		"StatusCode",
 		"StreamState"
 	};
@@ -474,6 +484,7 @@ public class ConfigManager
 		"DictionaryRequestTimeOut",
 		"DirectoryRequestTimeOut",
 		"DisconnectOnGap",
+		"DispatchSpinTime",
 		"GuaranteedOutputBuffers",
 		"HsmInterval",
 		"IncludeDateInLoggerOutput",
@@ -414,6 +414,29 @@ class ConfigReader
 				if( compressionType != -1 )
 					return ConfigManager.acquire().new IntConfigElement( parent, ConfigElement.Type.Enum,compressionType);
 			}
+			else if (enumType.equals("DispatchStrategy") )
+			{
+				int dispatchStrategy = -1;
+
+				if(enumValue.equals("Select"))
+					dispatchStrategy = OmmBaseImpl.DispatchStrategy.SELECT;
+				else if(enumValue.equals("BusySpin"))
+					dispatchStrategy = OmmBaseImpl.DispatchStrategy.BUSY_SPIN;
+				else if(enumValue.equals("SpinYield"))
+					dispatchStrategy = OmmBaseImpl.DispatchStrategy.SPIN_YIELD;
+				else if(enumValue.equals("SpinPark"))
+					dispatchStrategy = OmmBaseImpl.DispatchStrategy.SPIN_PARK;
+				else
+				{
+					errorTracker().append( "no implementation in convertEnum for enumType [" )
+					.append( enumValue )
+					.append( "]")
+					.create(Severity.ERROR);
+				}
+
+				if( dispatchStrategy != -1 )
+					return ConfigManager.acquire().new IntConfigElement( parent, ConfigElement.Type.Enum,dispatchStrategy);
+			}
 			else if (enumType.equals("StreamState") )
 			{
 				int streamState = -1;
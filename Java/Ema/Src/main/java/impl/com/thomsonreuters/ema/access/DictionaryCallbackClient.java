@@ -7,6 +7,8 @@
 
 package com.thomsonreuters.ema.access;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +34,7 @@ import com.thomsonreuters.upa.codec.StateCodes;
 import com.thomsonreuters.upa.codec.StatusMsg;
 import com.thomsonreuters.upa.codec.StreamStates;
 import com.thomsonreuters.upa.rdm.DomainTypes;
+import com.thomsonreuters.upa.valueadd.common.DictionaryRegistry;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.dictionary.DictionaryRefresh;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.dictionary.DictionaryRequest;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.dictionary.DictionaryStatus;
@@ -231,12 +234,40 @@ class DictionaryCallbackClient<T> extends CallbackClient<T> implements RDMDictio
 	
 	void loadDictionaryFromFile()
 	{
-		if (_rsslLocalDictionary == null)
-			_rsslLocalDictionary = CodecFactory.createDataDictionary();
-		else
-			_rsslLocalDictionary.clear();
+		releaseLocalDictionary();
+
+		String name = localDictionaryName();
+		String version = localDictionaryVersion();
+		if ((_rsslLocalDictionary = DictionaryRegistry.acquire(name, version)) != null)
+		{
+			if (_baseImpl.loggerClient().isTraceEnabled())
+			{
+				StringBuilder temp = _baseImpl.strBuilder();
+				temp.append("Using shared local dictionaries: ")
+					.append(OmmLoggerClient.CR)
+					.append("RDMFieldDictionary file named ")
+					.append(_baseImpl.activeConfig().dictionaryConfig.rdmfieldDictionaryFileName)
+					.append(OmmLoggerClient.CR)
+					.append("EnumTypeDef file named ")
+					.append(_baseImpl.activeConfig().dictionaryConfig.enumtypeDefFileName)
+					.append(OmmLoggerClient.CR)
+					.append("Version ")
+					.append(version);
+				_baseImpl.loggerClient().trace(_baseImpl.formatLogMessage(CLIENT_NAME, temp.toString(),
+																			Severity.TRACE).toString());
+			}
+			return;
+		}
+
+		_rsslLocalDictionary = CodecFactory.createDataDictionary();
 
 		rsslError();
+		if (loadDictionaryFromCacheFile())
+		{
+			_rsslLocalDictionary = DictionaryRegistry.register(name, version, _rsslLocalDictionary);
+			return;
+		}
+
 		if (_rsslLocalDictionary.loadFieldDictionary(_baseImpl.activeConfig().dictionaryConfig.rdmfieldDictionaryFileName, _rsslError) < 0)
 		{
 			StringBuilder temp = _baseImpl.strBuilder();
@@ -296,6 +327,131 @@ class DictionaryCallbackClient<T> extends CallbackClient<T> implements RDMDictio
 																		Severity.TRACE).toString());
 		}
 
+		writeDictionaryCacheFile();
+
+		_rsslLocalDictionary = DictionaryRegistry.register(name, version, _rsslLocalDictionary);
+	}
+
+	/* Returns the name the local dictionary is shared under: the paths of its files. */
+	String localDictionaryName()
+	{
+		DictionaryConfig dictionaryConfig = _baseImpl.activeConfig().dictionaryConfig;
+		return canonicalPath(dictionaryConfig.rdmfieldDictionaryFileName) + "|" + canonicalPath(dictionaryConfig.enumtypeDefFileName);
+	}
+
+	/* Returns the version the local dictionary is shared under: the Version and RT_Version
+	 * tags and the sizes of its files. */
+	String localDictionaryVersion()
+	{
+		DictionaryConfig dictionaryConfig = _baseImpl.activeConfig().dictionaryConfig;
+		return DictionaryFileCache.readTag(dictionaryConfig.rdmfieldDictionaryFileName, DictionaryFileCache.FIELD_VERSION_TAG)
+				+ "|" + DictionaryFileCache.readTag(dictionaryConfig.enumtypeDefFileName, DictionaryFileCache.ENUM_RT_VERSION_TAG)
+				+ "|" + new File(dictionaryConfig.rdmfieldDictionaryFileName).length()
+				+ "|" + new File(dictionaryConfig.enumtypeDefFileName).length();
+	}
+
+	private static String canonicalPath(String fileName)
+	{
+		try
+		{
+			return new File(fileName).getCanonicalPath();
+		}
+		catch (IOException e)
+		{
+			return new File(fileName).getAbsolutePath();
+		}
+	}
+
+	/* Releases the shared local dictionary, or drops a local dictionary that failed to load. */
+	void releaseLocalDictionary()
+	{
+		if (_rsslLocalDictionary == null)
+			return;
+
+		DictionaryRegistry.release(_rsslLocalDictionary);
+		_rsslLocalDictionary = null;
+	}
+
+	/* Releases the shared dictionaries of this instance when it is uninitialized. */
+	void uninitialize()
+	{
+		releaseLocalDictionary();
+
+		if (_channelDictList != null)
+		{
+			for (ChannelDictionary<T> entry : _channelDictList)
+				entry.releaseSharedDictionary();
+		}
+	}
+
+	/* Loads the local dictionary from the configured cache file instead of parsing the
+	 * dictionary files. Returns false, with the dictionary cleared, if there is no cache
+	 * file configured or its image is missing or stale. */
+	boolean loadDictionaryFromCacheFile()
+	{
+		DictionaryConfig dictionaryConfig = _baseImpl.activeConfig().dictionaryConfig;
+		if (dictionaryConfig.cacheFileName == null || dictionaryConfig.cacheFileName.isEmpty())
+			return false;
+
+		if (DictionaryFileCache.load(dictionaryConfig.cacheFileName, dictionaryConfig.rdmfieldDictionaryFileName,
+				dictionaryConfig.enumtypeDefFileName, _rsslLocalDictionary, _rsslError))
+		{
+			if (_baseImpl.loggerClient().isTraceEnabled())
+			{
+				StringBuilder temp = _baseImpl.strBuilder();
+				temp.append("Successfully loaded local dictionaries from cache file named ")
+					.append(dictionaryConfig.cacheFileName)
+					.append(OmmLoggerClient.CR)
+					.append("RDMFieldDictionary version ")
+					.append(_rsslLocalDictionary.infoFieldVersion().toString())
+					.append(OmmLoggerClient.CR)
+					.append("EnumTypeDef RT version ")
+					.append(_rsslLocalDictionary.infoEnumRTVersion().toString());
+				_baseImpl.loggerClient().trace(_baseImpl.formatLogMessage(CLIENT_NAME, temp.toString(),
+																			Severity.TRACE).toString());
+			}
+			return true;
+		}
+
+		if (_baseImpl.loggerClient().isTraceEnabled())
+		{
+			StringBuilder temp = _baseImpl.strBuilder();
+			temp.append("Loading local dictionaries from dictionary files")
+				.append(OmmLoggerClient.CR)
+				.append("Reason ")
+				.append(_rsslError.text());
+			_baseImpl.loggerClient().trace(_baseImpl.formatLogMessage(CLIENT_NAME, temp.toString(),
+																		Severity.TRACE).toString());
+		}
+
+		_rsslLocalDictionary.clear();
+		_rsslError.clear();
+		return false;
+	}
+
+	/* Writes the image of the local dictionary just loaded from the dictionary files to the
+	 * configured cache file, so the next instance loads from the image. */
+	void writeDictionaryCacheFile()
+	{
+		DictionaryConfig dictionaryConfig = _baseImpl.activeConfig().dictionaryConfig;
+		if (dictionaryConfig.cacheFileName == null || dictionaryConfig.cacheFileName.isEmpty())
+			return;
+
+		if (!DictionaryFileCache.write(dictionaryConfig.cacheFileName, dictionaryConfig.rdmfieldDictionaryFileName,
+				dictionaryConfig.enumtypeDefFileName, _rsslLocalDictionary, _rsslError))
+		{
+			if (_baseImpl.loggerClient().isWarnEnabled())
+			{
+				StringBuilder temp = _baseImpl.strBuilder();
+				temp.append("Unable to write dictionary cache file named ")
+					.append(dictionaryConfig.cacheFileName)
+					.append(OmmLoggerClient.CR)
+					.append("Error text ")
+					.append(_rsslError.text());
+				_baseImpl.loggerClient().warn(_baseImpl.formatLogMessage(CLIENT_NAME, temp.toString(),
+																			Severity.WARNING).toString());
+			}
+		}
 	}
 	
 	void processRefreshMsg(Buffer rsslBuffer, int majVer, int minVer, DictionaryItem<T> dictItem)
@@ -737,6 +893,10 @@ class ChannelDictionary<T>
 	private ReentrantLock 				_channelDictLock;
 	private List<DictionaryItem<T>>		_listenerList;
 	private DataDictionary				_rsslDictionary = CodecFactory.createDataDictionary();
+	private DataDictionary				_sharedDictionary;
+	private String						_fldName;
+	private String						_enumName;
+	private int							_verbosity;
 	
 	
 	ChannelDictionary(OmmBaseImpl<T> baseImpl)
@@ -752,7 +912,7 @@ class ChannelDictionary<T>
 	ChannelDictionary<T> channelInfo(ChannelInfo channelInfo)
 	{
 		_channelInfo = channelInfo;
-		_channelInfo.rsslDictionary(_rsslDictionary);
+		_channelInfo.rsslDictionary(rsslDictionary());
 		return this;
 	}
 	
@@ -763,6 +923,10 @@ class ChannelDictionary<T>
 		_isEnumLoaded = false;
 		_fldStreamId = 0;
 		_enumStreamId = 0;
+		_fldName = null;
+		_enumName = null;
+		_verbosity = 0;
+		releaseSharedDictionary();
 		_rsslDictionary.clear();
 		
 		if (_listenerList != null && _listenerList.size() > 0)
@@ -780,7 +944,55 @@ class ChannelDictionary<T>
 	
 	DataDictionary rsslDictionary()
 	{
-		return _rsslDictionary;
+		return _sharedDictionary != null ? _sharedDictionary : _rsslDictionary;
+	}
+
+	/* Once both dictionaries are downloaded, replaces the downloaded copy with the one shared
+	 * by all instances that downloaded the same dictionaries, registering this copy if it is
+	 * the first. */
+	void shareDictionary()
+	{
+		if (_sharedDictionary != null || !isLoaded())
+			return;
+
+		String name = _fldName + "|" + _enumName;
+		String version = _rsslDictionary.infoFieldVersion().toString()
+				+ "|" + _rsslDictionary.infoEnumRTVersion().toString()
+				+ "|" + _rsslDictionary.infoDictionaryId()
+				+ "|" + _verbosity;
+
+		// the downloaded copy is either registered or discarded; a fresh one is kept for a later download
+		_sharedDictionary = DictionaryRegistry.register(name, version, _rsslDictionary);
+		_rsslDictionary = CodecFactory.createDataDictionary();
+
+		if (_channelInfo != null)
+			_channelInfo.rsslDictionary(_sharedDictionary);
+
+		if (_baseImpl.loggerClient().isTraceEnabled())
+		{
+			StringBuilder temp = _baseImpl.strBuilder();
+			temp.append("Sharing downloaded dictionaries").append(OmmLoggerClient.CR)
+				.append("Dictionary names ").append(name).append(OmmLoggerClient.CR)
+				.append("Version ").append(version).append(OmmLoggerClient.CR)
+				.append("Instances sharing ").append(DictionaryRegistry.referenceCount(name, version));
+
+			_baseImpl.loggerClient().trace(_baseImpl.formatLogMessage(ChannelDictionary.CLIENT_NAME,
+											temp.toString(), Severity.TRACE));
+		}
+	}
+
+	/* Releases the shared dictionary, going back to the (empty) downloaded copy, so the
+	 * dictionaries can be downloaded again. */
+	void releaseSharedDictionary()
+	{
+		if (_sharedDictionary == null)
+			return;
+
+		DictionaryRegistry.release(_sharedDictionary);
+		_sharedDictionary = null;
+
+		if (_channelInfo != null)
+			_channelInfo.rsslDictionary(_rsslDictionary);
 	}
 
 	boolean isLoaded()
@@ -986,6 +1198,9 @@ class ChannelDictionary<T>
 				{
 					case com.thomsonreuters.upa.rdm.Dictionary.Types.FIELD_DEFINITIONS :
 					{
+						_fldName = rsslRefresh.dictionaryName().toString();
+						_verbosity = rsslRefresh.verbosity();
+
 						if (_fldStreamId == 0)
 							_fldStreamId = rsslMsg.streamId();
 						else if (_fldStreamId != rsslMsg.streamId())
@@ -1008,6 +1223,8 @@ class ChannelDictionary<T>
 					}
 					case com.thomsonreuters.upa.rdm.Dictionary.Types.ENUM_TABLES :
 					{
+						_enumName = rsslRefresh.dictionaryName().toString();
+
 						if (_enumStreamId == 0)
 							_enumStreamId = rsslMsg.streamId();
 						else if (_enumStreamId != rsslMsg.streamId())
@@ -1065,7 +1282,11 @@ class ChannelDictionary<T>
 			if (_fldStreamId == rsslMsg.streamId())
 			{
 				if (_isFldLoaded == true && _isEnumLoaded == true)
+				{
+					releaseSharedDictionary();
 					_rsslDictionary.clear();
+					_isEnumLoaded = false;
+				}
 				
 	    		if (CodecReturnCodes.SUCCESS == _rsslDictionary.decodeFieldDictionary(dIter, 
 	    																				com.thomsonreuters.upa.rdm.Dictionary.VerbosityValues.VERBOSE,
@@ -1108,6 +1329,10 @@ class ChannelDictionary<T>
 			}
 			else if (_enumStreamId == rsslMsg.streamId())
 			{
+				// the shared dictionary already has the enumerated types of this version
+				if (_sharedDictionary != null)
+					break;
+
 				rsslError.clear();
 	    		if (CodecReturnCodes.SUCCESS == _rsslDictionary.decodeEnumTypeDictionary(dIter,
 	    										com.thomsonreuters.upa.rdm.Dictionary.VerbosityValues.VERBOSE, rsslError))
@@ -1162,6 +1387,7 @@ class ChannelDictionary<T>
 				return ReactorCallbackReturnCodes.SUCCESS;
 			}
 
+			shareDictionary();
 			break;
 		}
 		case MsgClasses.STATUS:
@@ -1429,7 +1655,6 @@ class DictionaryItem<T> extends SingleItem<T> implements TimeoutClient
 			if(!_removed) 
 			{
 				_baseImpl.itemCallbackClient().removeFromMap(this);
-				this.itemIdObj().returnToPool();
 				this.returnToPool();
 				_removed = true;
 			}
@@ -0,0 +1,338 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.Codec;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.codec.DataDictionary;
+import com.thomsonreuters.upa.codec.DecodeIterator;
+import com.thomsonreuters.upa.codec.EncodeIterator;
+import com.thomsonreuters.upa.codec.Int;
+import com.thomsonreuters.upa.rdm.Dictionary;
+import com.thomsonreuters.upa.transport.Error;
+
+/* A binary image of a local dictionary, so that the RDMFieldDictionary and enumtype.def
+ * files are parsed once and later loads only decode the image.
+ *
+ * The image holds the RWF encoding of the field dictionary (in one or more parts) and of
+ * the enumerated types dictionary, the same encoding a provider sends in dictionary refresh
+ * messages, behind a header with the Version and RT_Version tags and the sizes of the files
+ * the image was written from. An image is only used when the tags and sizes still match the
+ * files, and when the decoded dictionary reports the same infoFieldVersion and infoEnumRTVersion.
+ *
+ * Images are mapped read-only and each file is mapped once per JVM, so all OmmConsumer and
+ * OmmNiProvider instances using the same cache file decode from the same pages. */
+class DictionaryFileCache
+{
+	static final int	IMAGE_MAGIC = 0x454D4144;
+	static final int	IMAGE_FORMAT_VERSION = 1;
+	static final int	VERBOSITY = Dictionary.VerbosityValues.VERBOSE;
+	static final int	INITIAL_ENCODE_BUFFER_SIZE = 1024 * 1024;
+
+	static final String	FIELD_VERSION_TAG = "Version";
+	static final String	ENUM_RT_VERSION_TAG = "RT_Version";
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	/* A mapped image and the file time it was mapped at, so a rewritten file is re-mapped. */
+	private static class Image
+	{
+		final ByteBuffer	_buffer;
+		final long			_lastModified;
+
+		Image(ByteBuffer buffer, long lastModified)
+		{
+			_buffer = buffer;
+			_lastModified = lastModified;
+		}
+	}
+
+	private static final ConcurrentHashMap<String, Image> _images = new ConcurrentHashMap<>();
+
+	private DictionaryFileCache()
+	{
+		throw new AssertionError();
+	}
+
+	/* Loads the dictionary from the image in cacheFileName. Returns false, with the reason
+	 * in the error text, if there is no image or it was not written from the current
+	 * content of the dictionary files. The dictionary must be cleared before it is loaded
+	 * from the files after a failure. */
+	static boolean load(String cacheFileName, String fieldFileName, String enumFileName, DataDictionary dictionary, Error error)
+	{
+		error.clear();
+
+		ByteBuffer image;
+		try
+		{
+			image = mappedImage(cacheFileName);
+		}
+		catch (IOException e)
+		{
+			error.text("unable to map dictionary cache file " + cacheFileName + ": " + e.getMessage());
+			return false;
+		}
+
+		if (image == null)
+		{
+			error.text("dictionary cache file " + cacheFileName + " does not exist");
+			return false;
+		}
+
+		try
+		{
+			if (image.getInt() != IMAGE_MAGIC || image.getInt() != IMAGE_FORMAT_VERSION)
+			{
+				error.text("dictionary cache file " + cacheFileName + " has an unknown format");
+				return false;
+			}
+
+			long fieldFileSize = image.getLong();
+			long enumFileSize = image.getLong();
+			String fieldVersion = getString(image);
+			String enumRTVersion = getString(image);
+
+			if (fieldFileSize != new File(fieldFileName).length() || enumFileSize != new File(enumFileName).length()
+					|| !fieldVersion.equals(readTag(fieldFileName, FIELD_VERSION_TAG))
+					|| !enumRTVersion.equals(readTag(enumFileName, ENUM_RT_VERSION_TAG)))
+			{
+				error.text("dictionary cache file " + cacheFileName + " was written from other versions of "
+						+ fieldFileName + " and " + enumFileName);
+				return false;
+			}
+
+			Buffer buffer = CodecFactory.createBuffer();
+			DecodeIterator dIter = CodecFactory.createDecodeIterator();
+
+			int fieldPartCount = image.getInt();
+			for (int i = 0; i < fieldPartCount; i++)
+			{
+				int length = image.getInt();
+				buffer.data(image, image.position(), length);
+				dIter.clear();
+				dIter.setBufferAndRWFVersion(buffer, Codec.majorVersion(), Codec.minorVersion());
+				if (dictionary.decodeFieldDictionary(dIter, VERBOSITY, error) < CodecReturnCodes.SUCCESS)
+					return false;
+				image.position(image.position() + length);
+			}
+
+			int length = image.getInt();
+			buffer.data(image, image.position(), length);
+			dIter.clear();
+			dIter.setBufferAndRWFVersion(buffer, Codec.majorVersion(), Codec.minorVersion());
+			if (dictionary.decodeEnumTypeDictionary(dIter, VERBOSITY, error) < CodecReturnCodes.SUCCESS)
+				return false;
+
+			if (!fieldVersion.equals(dictionary.infoFieldVersion().toString())
+					|| !enumRTVersion.equals(dictionary.infoEnumRTVersion().toString()))
+			{
+				error.text("dictionary cache file " + cacheFileName + " does not match the versions in its header");
+				return false;
+			}
+		}
+		catch (RuntimeException e)
+		{
+			error.text("dictionary cache file " + cacheFileName + " is truncated or corrupt: " + e.toString());
+			return false;
+		}
+
+		return true;
+	}
+
+	/* Writes the image of a dictionary just loaded from fieldFileName and enumFileName to
+	 * cacheFileName. The image is written to a temporary file and moved into place, so
+	 * images mapped by other instances stay valid. Returns false, with the reason in the
+	 * error text, if the image could not be written. */
+	static boolean write(String cacheFileName, String fieldFileName, String enumFileName, DataDictionary dictionary, Error error)
+	{
+		error.clear();
+
+		ArrayList<ByteBuffer> fieldParts = new ArrayList<>();
+		Int currentFid = CodecFactory.createInt();
+		currentFid.value(dictionary.minFid());
+
+		int ret;
+		do
+		{
+			ByteBuffer part = ByteBuffer.allocate(INITIAL_ENCODE_BUFFER_SIZE);
+			while ((ret = encodeFieldDictionaryPart(dictionary, part, currentFid, error)) == CodecReturnCodes.BUFFER_TOO_SMALL)
+				part = ByteBuffer.allocate(part.capacity() * 2);
+
+			if (ret < CodecReturnCodes.SUCCESS)
+				return false;
+
+			fieldParts.add(part);
+		}
+		while (ret == CodecReturnCodes.DICT_PART_ENCODED);
+
+		ByteBuffer enumPart = ByteBuffer.allocate(INITIAL_ENCODE_BUFFER_SIZE);
+		while ((ret = encodeEnumTypeDictionary(dictionary, enumPart, error)) == CodecReturnCodes.BUFFER_TOO_SMALL)
+			enumPart = ByteBuffer.allocate(enumPart.capacity() * 2);
+
+		if (ret < CodecReturnCodes.SUCCESS)
+			return false;
+
+		byte[] fieldVersion = dictionary.infoFieldVersion().toString().getBytes(ASCII);
+		byte[] enumRTVersion = dictionary.infoEnumRTVersion().toString().getBytes(ASCII);
+
+		int imageSize = 4 + 4 + 8 + 8 + 4 + fieldVersion.length + 4 + enumRTVersion.length + 4 + 4 + enumPart.remaining();
+		for (ByteBuffer part : fieldParts)
+			imageSize += 4 + part.remaining();
+
+		ByteBuffer image = ByteBuffer.allocate(imageSize);
+		image.putInt(IMAGE_MAGIC);
+		image.putInt(IMAGE_FORMAT_VERSION);
+		image.putLong(new File(fieldFileName).length());
+		image.putLong(new File(enumFileName).length());
+		image.putInt(fieldVersion.length).put(fieldVersion);
+		image.putInt(enumRTVersion.length).put(enumRTVersion);
+		image.putInt(fieldParts.size());
+		for (ByteBuffer part : fieldParts)
+			image.putInt(part.remaining()).put(part);
+		image.putInt(enumPart.remaining()).put(enumPart);
+		image.flip();
+
+		File cacheFile = new File(cacheFileName).getAbsoluteFile();
+		File tempFile = null;
+		try
+		{
+			tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+			try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw"))
+			{
+				FileChannel fileChannel = file.getChannel();
+				while (image.hasRemaining())
+					fileChannel.write(image);
+				fileChannel.force(true);
+			}
+			Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			if (tempFile != null)
+				tempFile.delete();
+			error.text("unable to write dictionary cache file " + cacheFileName + ": " + e.getMessage());
+			return false;
+		}
+
+		return true;
+	}
+
+	/* Returns a read-only view of the image in a cache file, positioned at its start, or
+	 * null if the file does not exist. The file is mapped on first use and again whenever
+	 * it has been rewritten since. */
+	static ByteBuffer mappedImage(String cacheFileName) throws IOException
+	{
+		File cacheFile = new File(cacheFileName);
+		if (!cacheFile.isFile())
+			return null;
+
+		String key = cacheFile.getCanonicalPath();
+		long lastModified = cacheFile.lastModified();
+
+		Image image = _images.get(key);
+		if (image == null || image._lastModified != lastModified)
+		{
+			try (RandomAccessFile file = new RandomAccessFile(cacheFile, "r"))
+			{
+				FileChannel fileChannel = file.getChannel();
+				MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+				image = new Image(buffer, lastModified);
+			}
+			_images.put(key, image);
+		}
+
+		return image._buffer.asReadOnlyBuffer();
+	}
+
+	/* Returns the value of a "!tag" line in the header of a dictionary file, or an empty
+	 * string if the file does not have the tag. Only the comment lines at the start of the
+	 * file are read. */
+	static String readTag(String fileName, String tagName)
+	{
+		try (BufferedReader reader = new BufferedReader(new FileReader(fileName)))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				if (!line.startsWith("!"))
+				{
+					if (line.trim().isEmpty())
+						continue;
+					break;
+				}
+
+				String[] tokens = line.trim().split("\\s+");
+				if (tokens.length >= 3 && tokens[0].equals("!tag") && tokens[1].equals(tagName))
+					return tokens[2];
+			}
+		}
+		catch (IOException e)
+		{
+		}
+
+		return "";
+	}
+
+	private static int encodeFieldDictionaryPart(DataDictionary dictionary, ByteBuffer part, Int currentFid, Error error)
+	{
+		long startFid = currentFid.toLong();
+		Buffer buffer = CodecFactory.createBuffer();
+		buffer.data(part);
+
+		EncodeIterator eIter = CodecFactory.createEncodeIterator();
+		eIter.setBufferAndRWFVersion(buffer, Codec.majorVersion(), Codec.minorVersion());
+
+		int ret = dictionary.encodeFieldDictionary(eIter, currentFid, VERBOSITY, error);
+		if (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
+		{
+			currentFid.value(startFid);
+			return ret;
+		}
+
+		if (ret >= CodecReturnCodes.SUCCESS)
+			part.flip();
+		return ret;
+	}
+
+	private static int encodeEnumTypeDictionary(DataDictionary dictionary, ByteBuffer part, Error error)
+	{
+		Buffer buffer = CodecFactory.createBuffer();
+		buffer.data(part);
+
+		EncodeIterator eIter = CodecFactory.createEncodeIterator();
+		eIter.setBufferAndRWFVersion(buffer, Codec.majorVersion(), Codec.minorVersion());
+
+		int ret = dictionary.encodeEnumTypeDictionary(eIter, VERBOSITY, error);
+		if (ret >= CodecReturnCodes.SUCCESS)
+			part.flip();
+		return ret;
+	}
+
+	private static String getString(ByteBuffer image)
+	{
+		byte[] bytes = new byte[image.getInt()];
+		image.get(bytes);
+		return new String(bytes, ASCII);
+	}
+}
@@ -7,7 +7,6 @@
 
 package com.thomsonreuters.ema.access;
 
-import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -351,6 +350,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 		else
 		{
 			_rsslEncodeIter.clear();
+			acquireEncodeBuffer();
 			_rsslBuffer.data().clear();
 		}
 
@@ -368,8 +368,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 		ret = _rsslElementList.encodeInit(_rsslEncodeIter, null, 0);
 		while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		{
-			_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-			_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			ret = _rsslElementList.encodeInit(_rsslEncodeIter, null, 0);
 		}
 
@@ -413,8 +412,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter);
 			}
 			return ret;
@@ -426,8 +424,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int) cacheEntryData);
 			}
 			return ret;
@@ -435,8 +432,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt) cacheEntryData);
 			}
 			return ret;
@@ -444,8 +440,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real) cacheEntryData);
 			}
 			return ret;
@@ -453,8 +448,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double) cacheEntryData);
 			}
 			return ret;
@@ -462,8 +456,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float) cacheEntryData);
 			}
 			return ret;
@@ -471,8 +464,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime) cacheEntryData);
 			}
 			return ret;
@@ -480,8 +472,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date) cacheEntryData);
 			}
 			return ret;
@@ -489,8 +480,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time) cacheEntryData);
 			}
 			return ret;
@@ -498,8 +488,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos) cacheEntryData);
 			}
 			return ret;
@@ -507,8 +496,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State) cacheEntryData);
 			}
 			return ret;
@@ -516,8 +504,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum) cacheEntryData);
 			}
 			return ret;
@@ -528,8 +515,7 @@ class ElementListImpl extends CollectionDataImpl implements ElementList
 			ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer) cacheEntryData);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-				_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity() * 2));
-				_rsslEncodeIter.realignBuffer(_rsslBuffer);
+				EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 				ret = rsslElementEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer) cacheEntryData);
 			}
 			return ret;
@@ -188,6 +188,11 @@ abstract class EmaConfigImpl
 		}
 	}
 	
+	protected void portInt(String port)
+	{
+		_portSetViaFunctionCall = port;
+	}
+	
 	protected void addAdminMsgInt(ReqMsg reqMsg)
 	{
 		RequestMsg rsslRequestMsg = ((ReqMsgImpl)reqMsg).rsslMsg();
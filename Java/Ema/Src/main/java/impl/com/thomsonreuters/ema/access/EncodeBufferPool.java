@@ -0,0 +1,112 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+import java.nio.ByteBuffer;
+
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.EncodeIterator;
+
+/* Size-classed pools of the buffers containers and messages encode into, one set of pools
+ * per thread so that acquiring and releasing needs no locking. Buffer capacities are powers
+ * of two from MIN_CAPACITY to MAX_CAPACITY; larger buffers are allocated on demand and not
+ * pooled. A thread keeps at most MAX_POOLED_BYTES in its pools, and buffers released beyond
+ * that are left to the garbage collector.
+ *
+ * Containers and messages take a buffer when they are first encoded and release it when they
+ * are cleared. A container or message that is dropped without being cleared does not return
+ * its buffer.
+ *
+ * Buffers are heap buffers: an encoded payload is copied into its message and the message
+ * into the transport buffer, and copies from heap buffers are array copies. */
+class EncodeBufferPool
+{
+	static final int MIN_CAPACITY_SHIFT = 12;
+	static final int MAX_CAPACITY_SHIFT = 24;
+	static final int MIN_CAPACITY = 1 << MIN_CAPACITY_SHIFT;
+	static final int MAX_CAPACITY = 1 << MAX_CAPACITY_SHIFT;
+	static final int MAX_POOLED_PER_SIZE_CLASS = 16;
+	static final long MAX_POOLED_BYTES = 1 << 24;
+
+	private static final ThreadLocal<EncodeBufferPool> _threadPool = new ThreadLocal<EncodeBufferPool>()
+	{
+		@Override
+		protected EncodeBufferPool initialValue()
+		{
+			return new EncodeBufferPool();
+		}
+	};
+
+	private ByteBuffer[][]	_buffers = new ByteBuffer[MAX_CAPACITY_SHIFT - MIN_CAPACITY_SHIFT + 1][MAX_POOLED_PER_SIZE_CLASS];
+	private int[]			_counts = new int[MAX_CAPACITY_SHIFT - MIN_CAPACITY_SHIFT + 1];
+	private long			_pooledBytes;
+
+	/* Returns a cleared buffer of at least this capacity from the pools of the calling thread. */
+	static ByteBuffer acquire(int capacity)
+	{
+		return _threadPool.get().acquireBuffer(capacity);
+	}
+
+	/* Returns a buffer to the pools of the calling thread. The buffer must no longer be referenced. */
+	static void release(ByteBuffer buffer)
+	{
+		if (buffer != null)
+			_threadPool.get().releaseBuffer(buffer);
+	}
+
+	/* Replaces the buffer an iterator encodes into with one of twice the capacity, keeping what
+	 * was encoded so far, and releases the previous buffer. Used on BUFFER_TOO_SMALL. */
+	static void growEncodeBuffer(Buffer rsslBuffer, EncodeIterator rsslEncodeIter)
+	{
+		ByteBuffer previous = rsslBuffer.data();
+		rsslBuffer.data(acquire(previous.capacity() * 2));
+		rsslEncodeIter.realignBuffer(rsslBuffer);
+		release(previous);
+	}
+
+	/* Returns the size class of a capacity: the index of the smallest pooled capacity holding it. */
+	static int sizeClass(int capacity)
+	{
+		if (capacity <= MIN_CAPACITY)
+			return 0;
+
+		return (32 - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_CAPACITY_SHIFT;
+	}
+
+	ByteBuffer acquireBuffer(int capacity)
+	{
+		if (capacity > MAX_CAPACITY)
+			return ByteBuffer.allocate(capacity);
+
+		int sizeClass = sizeClass(capacity);
+		if (_counts[sizeClass] > 0)
+		{
+			ByteBuffer buffer = _buffers[sizeClass][--_counts[sizeClass]];
+			_buffers[sizeClass][_counts[sizeClass]] = null;
+			_pooledBytes -= buffer.capacity();
+			buffer.clear();
+			return buffer;
+		}
+
+		return ByteBuffer.allocate(MIN_CAPACITY << sizeClass);
+	}
+
+	void releaseBuffer(ByteBuffer buffer)
+	{
+		int capacity = buffer.capacity();
+		if (capacity < MIN_CAPACITY || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1 || buffer.isReadOnly())
+			return;
+
+		int sizeClass = sizeClass(capacity);
+		if (_counts[sizeClass] < MAX_POOLED_PER_SIZE_CLASS && _pooledBytes + capacity <= MAX_POOLED_BYTES)
+		{
+			_buffers[sizeClass][_counts[sizeClass]++] = buffer;
+			_pooledBytes += capacity;
+		}
+	}
+}
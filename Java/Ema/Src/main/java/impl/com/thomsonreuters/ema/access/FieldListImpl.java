@@ -8,6 +8,7 @@
 package com.thomsonreuters.ema.access;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -22,6 +23,20 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 	private com.thomsonreuters.upa.codec.FieldList	_rsslFieldList = com.thomsonreuters.upa.codec.CodecFactory.createFieldList();
 	private LinkedList<FieldEntry> _fieldListCollection = new LinkedList<FieldEntry>(); 
 	
+	// field id index of the encoded content, built on the first lookup by field id
+	private boolean _fidIndexBuilt;
+	private int _fidCount;
+	private int[] _fids;
+	private int[] _fidDataTypes;
+	private int[] _fidRetCodes;
+	private int[] _fidPositions;
+	private int[] _fidLengths;
+	private FieldEntryImpl[] _fidEntries;
+	private int[] _fidSlots;
+	private com.thomsonreuters.upa.codec.DecodeIterator _fidDecodeIter;
+	private com.thomsonreuters.upa.codec.FieldList _fidRsslFieldList;
+	private com.thomsonreuters.upa.codec.FieldEntry _fidRsslFieldEntry;
+	
 	FieldListImpl() 
 	{
 		super(null);
@@ -78,6 +93,42 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 		return this;
 	}
 
+	@Override
+	public boolean hasFieldId(int fieldId)
+	{
+		if (useFidIndex())
+			return fidIndexOf(fieldId) >= 0;
+		
+		if (_fillCollection)
+			fillCollection();
+		
+		return collectionEntry(fieldId) != null;
+	}
+
+	@Override
+	public FieldEntry fieldEntry(int fieldId)
+	{
+		FieldEntry fieldEntry;
+		
+		if (useFidIndex())
+		{
+			int index = fidIndexOf(fieldId);
+			fieldEntry = (index >= 0) ? fidIndexEntry(index) : null;
+		}
+		else
+		{
+			if (_fillCollection)
+				fillCollection();
+			
+			fieldEntry = collectionEntry(fieldId);
+		}
+		
+		if (fieldEntry == null)
+			throw ommIUExcept().message("Attempt to fieldEntry(" + fieldId + ") while FieldList has no entry with this field id.");
+		
+		return fieldEntry;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -118,6 +169,8 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 	@Override
 	public void clear()
 	{
+		clearFidIndex();
+		
 		if (_rsslEncodeIter != null)
 		{
 			super.clear();
@@ -263,6 +316,8 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 	void decode(com.thomsonreuters.upa.codec.Buffer rsslBuffer, int majVer, int minVer,
 				com.thomsonreuters.upa.codec.DataDictionary rsslDictionary, Object localFlSetDefDb)
 	{
+		clearFidIndex();
+		
 		_fillCollection = true;
 
 		_rsslMajVer = majVer;
@@ -319,7 +374,6 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 	private void fillCollection()
 	{
 		DataImpl load;
-		com.thomsonreuters.upa.codec.DictionaryEntry rsslDictionaryEntry = null;
 		
 		clearCollection();
 		
@@ -337,46 +391,216 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 		int retCode;
 		while ((retCode  = fieldEntry._rsslFieldEntry.decode(_rsslDecodeIter)) != com.thomsonreuters.upa.codec.CodecReturnCodes.END_OF_CONTAINER)
 		{
-			switch(retCode)
+			_fieldListCollection.add(decodeEntryLoad(fieldEntry, retCode, _rsslDecodeIter));
+			fieldEntry =  fieldEntryInstance();
+		}
+		
+		fieldEntry.returnToPool();
+		
+		_fillCollection = false;
+	}
+	
+	/* Decodes the payload of a field entry. Primitive payloads are decoded with dIter,
+	 * which must be positioned on the entry's encoded data. */
+	private FieldEntryImpl decodeEntryLoad(FieldEntryImpl fieldEntry, int retCode, com.thomsonreuters.upa.codec.DecodeIterator dIter)
+	{
+		DataImpl load;
+		com.thomsonreuters.upa.codec.DictionaryEntry rsslDictionaryEntry = null;
+		
+		switch(retCode)
+		{
+		case com.thomsonreuters.upa.codec.CodecReturnCodes.SUCCESS :
+			rsslDictionaryEntry = _rsslDictionary.entry(fieldEntry._rsslFieldEntry.fieldId());
+			if (rsslDictionaryEntry == null)
 			{
-			case com.thomsonreuters.upa.codec.CodecReturnCodes.SUCCESS :
-				rsslDictionaryEntry = _rsslDictionary.entry(fieldEntry._rsslFieldEntry.fieldId());
-				if (rsslDictionaryEntry == null)
-				{
-					load = dataInstance(fieldEntry._load, DataTypes.ERROR);
-					load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.FIELD_ID_NOT_FOUND);
-				}
-				else			
-				{			
-					int dType = dataType(rsslDictionaryEntry.rwfType(), _rsslMajVer, _rsslMinVer, fieldEntry._rsslFieldEntry.encodedData());
-					load = dataInstance(fieldEntry._load, dType);
-					if (DataTypes.ERROR > dType && DataTypes.OPAQUE <= dType)
-						load.decode(fieldEntry._rsslFieldEntry.encodedData(),_rsslDecodeIter);
-					else
-						load.decode(fieldEntry._rsslFieldEntry.encodedData(), _rsslMajVer, _rsslMinVer, _rsslDictionary, _rsslLocalFLSetDefDb);
-				}
-				break;
-			case com.thomsonreuters.upa.codec.CodecReturnCodes.INCOMPLETE_DATA :
-				load = dataInstance(fieldEntry._load, DataTypes.ERROR);
-				load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.INCOMPLETE_DATA);
-				break;
-			case com.thomsonreuters.upa.codec.CodecReturnCodes.UNSUPPORTED_DATA_TYPE :
 				load = dataInstance(fieldEntry._load, DataTypes.ERROR);
-				load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.UNSUPPORTED_DATA_TYPE);
-				break;
-			default :
-				load = dataInstance(fieldEntry._load, DataTypes.ERROR);
-				load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.UNKNOWN_ERROR);
-				break;
+				load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.FIELD_ID_NOT_FOUND);
 			}
+			else			
+			{			
+				int dType = dataType(rsslDictionaryEntry.rwfType(), _rsslMajVer, _rsslMinVer, fieldEntry._rsslFieldEntry.encodedData());
+				load = dataInstance(fieldEntry._load, dType);
+				if (DataTypes.ERROR > dType && DataTypes.OPAQUE <= dType)
+					load.decode(fieldEntry._rsslFieldEntry.encodedData(),dIter);
+				else
+					load.decode(fieldEntry._rsslFieldEntry.encodedData(), _rsslMajVer, _rsslMinVer, _rsslDictionary, _rsslLocalFLSetDefDb);
+			}
+			break;
+		case com.thomsonreuters.upa.codec.CodecReturnCodes.INCOMPLETE_DATA :
+			load = dataInstance(fieldEntry._load, DataTypes.ERROR);
+			load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.INCOMPLETE_DATA);
+			break;
+		case com.thomsonreuters.upa.codec.CodecReturnCodes.UNSUPPORTED_DATA_TYPE :
+			load = dataInstance(fieldEntry._load, DataTypes.ERROR);
+			load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.UNSUPPORTED_DATA_TYPE);
+			break;
+		default :
+			load = dataInstance(fieldEntry._load, DataTypes.ERROR);
+			load.decode(fieldEntry._rsslFieldEntry.encodedData(),ErrorCode.UNKNOWN_ERROR);
+			break;
+		}
+		
+		return fieldEntry.entryValue(this, rsslDictionaryEntry, load);
+	}
+	
+	/* The field id index is used for received content that has not been materialized yet.
+	 * Set-defined data can only be decoded in sequence, so it always uses the collection. */
+	private boolean useFidIndex()
+	{
+		return _fillCollection && _errorCode == ErrorCode.NO_ERROR && !_rsslFieldList.checkHasSetData();
+	}
+	
+	private FieldEntry collectionEntry(int fieldId)
+	{
+		for (FieldEntry fieldEntry : _fieldListCollection)
+		{
+			if (fieldEntry.fieldId() == fieldId)
+				return fieldEntry;
+		}
+		return null;
+	}
+	
+	/* Returns the index of the first entry with this field id, or -1 if there is none. */
+	private int fidIndexOf(int fieldId)
+	{
+		if (!_fidIndexBuilt)
+			buildFidIndex();
+		
+		if (_fidCount == 0)
+			return -1;
+		
+		int mask = _fidSlots.length - 1;
+		int slot = fidHash(fieldId) & mask;
+		int index;
+		while ((index = _fidSlots[slot]) != 0)
+		{
+			if (_fids[index - 1] == fieldId)
+				return index - 1;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+	
+	/* Scans the encoded content once, recording the field id, type, location and decode result
+	 * of each entry. Entries that fail to decode are indexed too, as iteration returns them as
+	 * error entries. */
+	private void buildFidIndex()
+	{
+		if (_fidDecodeIter == null)
+		{
+			_fidDecodeIter = com.thomsonreuters.upa.codec.CodecFactory.createDecodeIterator();
+			_fidRsslFieldList = com.thomsonreuters.upa.codec.CodecFactory.createFieldList();
+			_fidRsslFieldEntry = com.thomsonreuters.upa.codec.CodecFactory.createFieldEntry();
+			_fids = new int[64];
+			_fidDataTypes = new int[64];
+			_fidRetCodes = new int[64];
+			_fidPositions = new int[64];
+			_fidLengths = new int[64];
+			_fidEntries = new FieldEntryImpl[64];
+			_fidSlots = new int[128];
+		}
+		
+		_fidIndexBuilt = true;
+		_fidCount = 0;
+		
+		_fidDecodeIter.clear();
+		if (_fidDecodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer) != CodecReturnCodes.SUCCESS ||
+			_fidRsslFieldList.decode(_fidDecodeIter, _rsslLocalFLSetDefDb) != CodecReturnCodes.SUCCESS)
+			return;
+		
+		int retCode;
+		_fidRsslFieldEntry.clear();
+		while ((retCode = _fidRsslFieldEntry.decode(_fidDecodeIter)) != CodecReturnCodes.END_OF_CONTAINER)
+		{
+			if (_fidCount == _fids.length)
+				growFidIndex();
 			
-			_fieldListCollection.add(fieldEntry.entryValue(this, rsslDictionaryEntry, load));
-			fieldEntry =  fieldEntryInstance();
+			Buffer encodedData = _fidRsslFieldEntry.encodedData();
+			_fids[_fidCount] = _fidRsslFieldEntry.fieldId();
+			_fidDataTypes[_fidCount] = _fidRsslFieldEntry.dataType();
+			_fidRetCodes[_fidCount] = retCode;
+			_fidPositions[_fidCount] = encodedData.position();
+			_fidLengths[_fidCount] = encodedData.length();
+			++_fidCount;
+			
+			_fidRsslFieldEntry.clear();
 		}
 		
-		fieldEntry.returnToPool();
+		int slotCount = _fidSlots.length;
+		while (slotCount < _fidCount * 2)
+			slotCount <<= 1;
+		if (slotCount != _fidSlots.length)
+			_fidSlots = new int[slotCount];
+		else
+			Arrays.fill(_fidSlots, 0);
 		
-		_fillCollection = false;
+		// insert in reverse, so the first entry of a repeated field id ends up first in its chain
+		int mask = slotCount - 1;
+		for (int index = _fidCount - 1; index >= 0; --index)
+		{
+			int slot = fidHash(_fids[index]) & mask;
+			while (_fidSlots[slot] != 0 && _fids[_fidSlots[slot] - 1] != _fids[index])
+				slot = (slot + 1) & mask;
+			_fidSlots[slot] = index + 1;
+		}
+	}
+	
+	private void growFidIndex()
+	{
+		int capacity = _fids.length * 2;
+		_fids = Arrays.copyOf(_fids, capacity);
+		_fidDataTypes = Arrays.copyOf(_fidDataTypes, capacity);
+		_fidRetCodes = Arrays.copyOf(_fidRetCodes, capacity);
+		_fidPositions = Arrays.copyOf(_fidPositions, capacity);
+		_fidLengths = Arrays.copyOf(_fidLengths, capacity);
+		_fidEntries = Arrays.copyOf(_fidEntries, capacity);
+	}
+	
+	private static int fidHash(int fieldId)
+	{
+		int h = fieldId * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	/* Returns the entry at this index of the field id index, decoding its payload on first use. */
+	private FieldEntryImpl fidIndexEntry(int index)
+	{
+		FieldEntryImpl fieldEntry = _fidEntries[index];
+		if (fieldEntry != null)
+			return fieldEntry;
+		
+		fieldEntry = fieldEntryInstance();
+		fieldEntry._rsslFieldEntry.fieldId(_fids[index]);
+		fieldEntry._rsslFieldEntry.dataType(_fidDataTypes[index]);
+		fieldEntry._rsslFieldEntry.encodedData().data(_rsslBuffer.data(), _fidPositions[index], _fidLengths[index]);
+		
+		// a primitive payload is decoded on its own, with an iterator set to the entry's encoded data;
+		// an entry that failed to decode becomes the same error entry as in the collection
+		int retCode = _fidRetCodes[index];
+		if (retCode == CodecReturnCodes.SUCCESS)
+		{
+			_fidDecodeIter.clear();
+			retCode = _fidDecodeIter.setBufferAndRWFVersion(fieldEntry._rsslFieldEntry.encodedData(), _rsslMajVer, _rsslMinVer);
+		}
+		decodeEntryLoad(fieldEntry, retCode, _fidDecodeIter);
+		
+		_fidEntries[index] = fieldEntry;
+		return fieldEntry;
+	}
+	
+	private void clearFidIndex()
+	{
+		for (int index = 0; index < _fidCount; ++index)
+		{
+			if (_fidEntries[index] != null)
+			{
+				_fidEntries[index].returnToPool();
+				_fidEntries[index] = null;
+			}
+		}
+		
+		_fidCount = 0;
+		_fidIndexBuilt = false;
 	}
 	
 	Buffer encodedData() 
@@ -387,6 +611,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 		if (!_fieldListCollection.isEmpty())
 			_rsslFieldList.applyHasStandardData();
 
+		acquireEncodeBuffer();
 		int ret = _rsslEncodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer);
 	    if (ret != CodecReturnCodes.SUCCESS)
 	    {
@@ -399,8 +624,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 	    ret = _rsslFieldList.encodeInit(_rsslEncodeIter, null, 0);
 	    while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 	    {
-	    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-	    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+	    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 	    	ret = _rsslFieldList.encodeInit(_rsslEncodeIter, null, 0);
 	    }
 	    
@@ -447,8 +671,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret = rsslFieldEntry.encode(_rsslEncodeIter);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslFieldEntry.encode(_rsslEncodeIter);
 		    }
 			return ret;
@@ -460,8 +683,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int)cacheEntryData);
 			    }
 			 return ret;
@@ -469,8 +691,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt)cacheEntryData);
 			    }
 			 return ret;
@@ -478,8 +699,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real)cacheEntryData);
 			    }
 			 return ret;
@@ -487,8 +707,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double)cacheEntryData);
 			    }
 			 return ret;
@@ -496,8 +715,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float)cacheEntryData);
 			    }
 			 return ret;
@@ -505,8 +723,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime)cacheEntryData);
 			    }
 			 return ret;
@@ -514,8 +731,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date)cacheEntryData);
 			    }
 			 return ret;
@@ -523,8 +739,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time)cacheEntryData);
 			    }
 			 return ret;
@@ -532,8 +747,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos)cacheEntryData);
 			    }
 			 return ret;
@@ -541,8 +755,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State)cacheEntryData);
 			    }
 			 return ret;
@@ -550,8 +763,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum)cacheEntryData);
 			    }
 			 return ret;
@@ -562,8 +774,7 @@ class FieldListImpl extends CollectionDataImpl implements FieldList
 			ret =  rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer)cacheEntryData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslFieldEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer)cacheEntryData);
 			    }
 			 return ret;
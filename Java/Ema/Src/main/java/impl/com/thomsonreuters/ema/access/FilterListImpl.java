@@ -7,7 +7,6 @@
 
 package com.thomsonreuters.ema.access;
 
-import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -343,6 +342,7 @@ class FilterListImpl extends CollectionDataImpl implements FilterList
 		if (_filterListCollection.isEmpty())
 			throw ommIUExcept().message("Series to be encoded is empty.");
 		
+		acquireEncodeBuffer();
 		int ret = _rsslEncodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer);
 	    if (ret != CodecReturnCodes.SUCCESS)
 	    {
@@ -358,8 +358,7 @@ class FilterListImpl extends CollectionDataImpl implements FilterList
 		ret = _rsslFilterList.encodeInit(_rsslEncodeIter);
 	    while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 	    {
-	    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-	    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+	    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 	    	ret = _rsslFilterList.encodeInit(_rsslEncodeIter);
 	    }
 	    
@@ -376,8 +375,7 @@ class FilterListImpl extends CollectionDataImpl implements FilterList
 			ret = ((FilterEntryImpl)entry)._rsslFilterEntry.encode(_rsslEncodeIter);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-			   	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			   	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			   	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			   	ret = ((FilterEntryImpl)entry)._rsslFilterEntry.encode(_rsslEncodeIter);
 			}
 
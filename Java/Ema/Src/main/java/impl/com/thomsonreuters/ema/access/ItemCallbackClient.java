@@ -8,7 +8,6 @@
 package com.thomsonreuters.ema.access;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import com.thomsonreuters.ema.access.OmmLoggerClient.Severity;
@@ -128,18 +127,15 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 {
 	private static final String CLIENT_NAME = "ItemCallbackClient";
 	
-	private HashMap<LongObject, Item<T>>	_itemMap;
-	private LongObject _longObjHolder;
+	private ItemHandleTable<T>	_itemTable;
 
 	ItemCallbackClient(OmmBaseImpl<T> baseImpl)
 	{
 		super(baseImpl, CLIENT_NAME);
 		
-		_itemMap = new HashMap<>(_baseImpl.activeConfig().itemCountHint == 0 ? 1024 : _baseImpl.activeConfig().itemCountHint);
+		_itemTable = new ItemHandleTable<T>(_baseImpl.activeConfig().itemCountHint == 0 ? 1024 : _baseImpl.activeConfig().itemCountHint);
 		
 		_updateMsg = new UpdateMsgImpl(_baseImpl._objManager);
-		
-		_longObjHolder = new LongObject();
 	}
 
 	void initialize() {}
@@ -355,7 +351,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 				{
 					SingleItem<T> item = _baseImpl.loginCallbackClient().loginItem(reqMsg, client, closure);
 
-					return addToMap(LongIdGenerator.nextLongId(), item);
+					return addToMap(item);
 				}
 				case DomainTypes.DICTIONARY :
 				{
@@ -434,7 +430,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 					}
 					else
 					{
-						return addToMap(LongIdGenerator.nextLongId(), item);
+						return addToMap(item);
 					}
 				}
 				case DomainTypes.SOURCE :
@@ -460,7 +456,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 						}
 						else
 						{
-							return addToMap(LongIdGenerator.nextLongId(), item);
+							return addToMap(item);
 						}
 					}
 	
@@ -499,10 +495,10 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 							}
 							else
 							{
-								addToMap(LongIdGenerator.nextLongId(), batchItem);
+								addToMap(batchItem);
 
 								for ( int i = 0; i < numOfItem ; i++ )
-									addToMap(LongIdGenerator.nextLongId(), items.get(i));
+									addToMap(items.get(i));
 								
 								return batchItem.itemId();
 							}
@@ -526,7 +522,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 						}
 						else
 						{
-							return addToMap(LongIdGenerator.nextLongId(), item);
+							return addToMap(item);
 						}
 					}
 				}
@@ -547,7 +543,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 	
 	void reissue(com.thomsonreuters.ema.access.ReqMsg reqMsg, long handle)
 	{
-		Item<T> item = _itemMap.get(_longObjHolder.value(handle));
+		Item<T> item = _itemTable.get(handle);
 		if (item == null)
 		{
 			StringBuilder temp = _baseImpl.strBuilder();
@@ -568,14 +564,14 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 
 	void unregister(long handle)
 	{
-		Item<T> item = _itemMap.get(_longObjHolder.value(handle));
+		Item<T> item = _itemTable.get(handle);
 		if (item != null)
 			item.close();
 	}
 	
 	void submit(com.thomsonreuters.ema.access.RefreshMsg refreshMsg, long handle)
 	{
-		Item<T> found = _itemMap.get(_longObjHolder.value(handle));
+		Item<T> found = _itemTable.get(handle);
 		if ( found == null )
 		{
 			StringBuilder temp = _baseImpl.strBuilder();
@@ -596,7 +592,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 	
 	void submit(com.thomsonreuters.ema.access.UpdateMsg updateMsg, long handle)
 	{
-		Item<T> found = _itemMap.get(_longObjHolder.value(handle));
+		Item<T> found = _itemTable.get(handle);
 		if ( found == null )
 		{
 			StringBuilder temp = _baseImpl.strBuilder();
@@ -617,7 +613,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 	
 	void submit(com.thomsonreuters.ema.access.StatusMsg statusMsg, long handle)
 	{
-		Item<T> found = _itemMap.get(_longObjHolder.value(handle));
+		Item<T> found = _itemTable.get(handle);
 		if ( found == null )
 		{
 			StringBuilder temp = _baseImpl.strBuilder();
@@ -638,7 +634,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 
 	void submit(com.thomsonreuters.ema.access.PostMsg postMsg, long handle)
 	{
-		Item<T> found = _itemMap.get(_longObjHolder.value(handle));
+		Item<T> found = _itemTable.get(handle);
 		if ( found == null )
 		{
 			StringBuilder temp = _baseImpl.strBuilder();
@@ -659,7 +655,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 
 	void submit(com.thomsonreuters.ema.access.GenericMsg genericMsg, long handle)
 	{
-		Item<T> found = _itemMap.get(_longObjHolder.value(handle));
+		Item<T> found = _itemTable.get(handle);
 		if ( found == null )
 		{
 			StringBuilder temp = _baseImpl.strBuilder();
@@ -684,11 +680,10 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 	//	int processCallback(TunnelStream , TunnelStreamMsgEvent)
 	//	int processCallback(TunnelStream , TunnelStreamQueueMsgEvent)
 
-	long addToMap(long itemId, Item<T> item)
+	long addToMap(Item<T> item)
 	{
-		LongObject itemIdObj = _baseImpl._objManager.createLongObject().value(itemId);
-		item.itemId(itemId, itemIdObj);
-		_itemMap.put(itemIdObj, item);
+		long itemId = _itemTable.add(item);
+		item.itemId(itemId);
 		
 		if (_baseImpl.loggerClient().isTraceEnabled())
 		{
@@ -704,7 +699,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 	
 	Item<T> getItem(long handle)
 	{
-		return _itemMap.get(_longObjHolder.value(handle));
+		return _itemTable.get(handle);
 	}
 	
 	void removeFromMap(Item<T> item)
@@ -718,7 +713,7 @@ class ItemCallbackClient<T> extends CallbackClient<T> implements DefaultMsgCallb
 			_baseImpl.loggerClient().trace(_baseImpl.formatLogMessage(ItemCallbackClient.CLIENT_NAME, temp.toString(), Severity.TRACE));
 		}
 		
-		_itemMap.remove(item.itemIdObj());
+		_itemTable.remove(item.itemId());
 	}
 }
 
@@ -811,7 +806,6 @@ abstract class Item<T> extends VaNode
 	T						_client;
 	OmmBaseImpl<T>			_baseImpl;
 	long 					_itemId;
-	LongObject _itemIdObj;
 
 	Item() {}
 
@@ -845,15 +839,9 @@ abstract class Item<T> extends VaNode
 		return _baseImpl;
 	}
 	
-	void itemId(long itemId, LongObject itemIdObj)
+	void itemId(long itemId)
 	{
 		_itemId = itemId;
-		_itemIdObj = itemIdObj;
-	}
-	
-	void itemIdObj(LongObject itemIdObj)
-	{
-		_itemIdObj = itemIdObj;
 	}
 	
 	long itemId()
@@ -861,11 +849,6 @@ abstract class Item<T> extends VaNode
 		return _itemId;
 	}
 	
-	LongObject itemIdObj()
-	{
-		return _itemIdObj;
-	}
-	
 	void reset(OmmBaseImpl<T> baseImpl, T client, Object closure, Item<T> parent)
 	{
 		_domainType = 0;
@@ -1048,7 +1031,6 @@ class SingleItem<T> extends Item<T>
 			}
 			
 			_baseImpl.itemCallbackClient().removeFromMap(this);
-			this.itemIdObj().returnToPool();
 			this.returnStreamId();
 			this.returnToPool();
 		}
@@ -0,0 +1,119 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2015. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Maps item handles to items through an array indexed by slot, so a handle is resolved
+ * without hashing or boxing. A handle holds the slot index plus one in its low 32 bits and
+ * the slot's generation in the next 31 bits. A slot's generation changes every time it is
+ * freed, so a stale handle of a removed item no longer resolves once its slot is reused.
+ * Each table starts its generations from a different seed, so handles of different
+ * OmmConsumer/OmmProvider instances are unlikely to be mistaken for each other.
+ * Handles are always positive and never 0. This table is not thread safe; ItemCallbackClient
+ * only accesses it while holding the user lock of its OmmBaseImpl. */
+class ItemHandleTable<T>
+{
+	private static final int GENERATION_MASK = 0x7fffffff;
+	private static final int NO_FREE_SLOT = -1;
+	
+	private static final AtomicInteger _seedGenerator = new AtomicInteger();
+	
+	private Object[]	_items;
+	private int[]		_generations;
+	private int[]		_nextFreeSlots;
+	private int			_freeSlotHead = NO_FREE_SLOT;
+	private int			_usedSlots;
+	private int			_size;
+	private int			_initialGeneration;
+
+	ItemHandleTable(int initialCapacity)
+	{
+		if (initialCapacity < 16)
+			initialCapacity = 16;
+
+		_items = new Object[initialCapacity];
+		_generations = new int[initialCapacity];
+		_nextFreeSlots = new int[initialCapacity];
+		_initialGeneration = (_seedGenerator.getAndIncrement() * 0x9E3779B9) & GENERATION_MASK;
+	}
+
+	/* Stores the item in a free slot and returns its handle. */
+	long add(Item<T> item)
+	{
+		int slot;
+		if (_freeSlotHead != NO_FREE_SLOT)
+		{
+			slot = _freeSlotHead;
+			_freeSlotHead = _nextFreeSlots[slot];
+		}
+		else
+		{
+			if (_usedSlots == _items.length)
+				grow();
+			slot = _usedSlots++;
+			_generations[slot] = _initialGeneration;
+		}
+
+		_items[slot] = item;
+		++_size;
+
+		return ((long)_generations[slot] << 32) | (slot + 1);
+	}
+
+	/* Returns the item of the handle, or null if the handle is not in the table. */
+	@SuppressWarnings("unchecked")
+	Item<T> get(long handle)
+	{
+		int slot = (int)handle - 1;
+		if (slot < 0 || slot >= _usedSlots || _generations[slot] != (int)(handle >>> 32))
+			return null;
+
+		return (Item<T>)_items[slot];
+	}
+
+	/* Frees the slot of the handle. Returns the removed item, or null if the handle is
+	 * not in the table. */
+	Item<T> remove(long handle)
+	{
+		Item<T> item = get(handle);
+		if (item == null)
+			return null;
+
+		int slot = (int)handle - 1;
+		_items[slot] = null;
+		_generations[slot] = (_generations[slot] + 1) & GENERATION_MASK;
+		_nextFreeSlots[slot] = _freeSlotHead;
+		_freeSlotHead = slot;
+		--_size;
+
+		return item;
+	}
+
+	int size()
+	{
+		return _size;
+	}
+
+	private void grow()
+	{
+		int capacity = _items.length << 1;
+
+		Object[] items = new Object[capacity];
+		System.arraycopy(_items, 0, items, 0, _usedSlots);
+		_items = items;
+
+		int[] generations = new int[capacity];
+		System.arraycopy(_generations, 0, generations, 0, _usedSlots);
+		_generations = generations;
+
+		int[] nextFreeSlots = new int[capacity];
+		System.arraycopy(_nextFreeSlots, 0, nextFreeSlots, 0, _usedSlots);
+		_nextFreeSlots = nextFreeSlots;
+	}
+}
@@ -0,0 +1,43 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+/* One consumer's request stream for a ProviderItem. */
+class ItemStream
+{
+	private ClientSession		_session;
+	private int					_streamId;
+	private ProviderItem		_item;
+	boolean						_refreshPending;
+	boolean						_streaming;
+	boolean						_delivered;		// whether the last message fanned out to the stream was written, see OmmIProviderImpl.fanOut()
+
+	ItemStream(ClientSession session, int streamId, ProviderItem item, boolean streaming)
+	{
+		_session = session;
+		_streamId = streamId;
+		_item = item;
+		_refreshPending = true;
+		_streaming = streaming;
+	}
+
+	ClientSession session()
+	{
+		return _session;
+	}
+
+	int streamId()
+	{
+		return _streamId;
+	}
+
+	ProviderItem item()
+	{
+		return _item;
+	}
+}
@@ -7,7 +7,6 @@
 
 package com.thomsonreuters.ema.access;
 
-import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -487,6 +486,7 @@ class MapImpl extends CollectionDataImpl implements Map
 		if (_mapCollection.isEmpty())
 			throw ommIUExcept().message("Map to be encoded is empty.");
 		
+		acquireEncodeBuffer();
 		int ret = _rsslEncodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer);
 	    if (ret != CodecReturnCodes.SUCCESS)
 	    {
@@ -505,8 +505,7 @@ class MapImpl extends CollectionDataImpl implements Map
 	    ret = _rsslMap.encodeInit(_rsslEncodeIter, 0, 0);
 	    while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 	    {
-	    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-	    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+	    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 	    	ret = _rsslMap.encodeInit(_rsslEncodeIter, 0, 0);
 	    }
 	    
@@ -576,8 +575,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int)cacheKeyData);
 			    }
 			 return ret;
@@ -585,8 +583,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt)cacheKeyData);
 			    }
 			 return ret;
@@ -594,8 +591,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real)cacheKeyData);
 			    }
 			 return ret;
@@ -603,8 +599,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double)cacheKeyData);
 			    }
 			 return ret;
@@ -612,8 +607,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float)cacheKeyData);
 			    }
 			 return ret;
@@ -621,8 +615,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime)cacheKeyData);
 			    }
 			 return ret;
@@ -630,8 +623,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date)cacheKeyData);
 			    }
 			 return ret;
@@ -639,8 +631,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time)cacheKeyData);
 			    }
 			 return ret;
@@ -648,8 +639,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos)cacheKeyData);
 			    }
 			 return ret;
@@ -657,8 +647,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State)cacheKeyData);
 			    }
 			 return ret;
@@ -666,8 +655,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum)cacheKeyData);
 			    }
 			 return ret;
@@ -678,8 +666,7 @@ class MapImpl extends CollectionDataImpl implements Map
 			ret =  rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer)cacheKeyData);
 			 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslMapEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer)cacheKeyData);
 			    }
 			 return ret;
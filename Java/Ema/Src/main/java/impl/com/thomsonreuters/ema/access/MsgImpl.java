@@ -34,6 +34,7 @@ class MsgImpl extends DataImpl implements Msg
 	protected int _dataType;
 	protected ByteBuffer	_permissionData;
 	protected ByteBuffer	_itemGroup;
+	protected ByteBuffer	_payloadByteBuffer;
 	protected PayloadAttribSummaryImpl	_payloadAttrib = new PayloadAttribSummaryImpl();
 	protected DataImpl 	_attribDecoded;
 	protected DataImpl 	_payloadDecoded;
@@ -46,6 +47,7 @@ class MsgImpl extends DataImpl implements Msg
 	protected boolean _encodeComplete;
 	protected int  _errorCode = ErrorCode.NO_ERROR;
 	protected StringBuilder _errorString;
+	private Buffer _encodeRsslBuffer;	// holds the buffer taken from the EncodeBufferPool, see encodedData()
 	
 	MsgImpl(int dataType, EmaObjectManager objManager)
 	{
@@ -60,7 +62,7 @@ class MsgImpl extends DataImpl implements Msg
 			_encodeComplete = false;
 			_rsslEncodeIter = com.thomsonreuters.upa.codec.CodecFactory.createEncodeIterator() ;
 			_rsslBuffer = CodecFactory.createBuffer();
-			_rsslBuffer.data(ByteBuffer.allocate(CollectionDataImpl.ENCODE_RSSL_BUFFER_INIT_SIZE));
+			_encodeRsslBuffer = _rsslBuffer;
 		}
 		else
 		{
@@ -762,7 +764,17 @@ class MsgImpl extends DataImpl implements Msg
 			throw ommIUExcept().message("Passed in payload is null");
 		
 		_rsslMsg.containerType(Utilities.toRsslDataType(payload.dataType()));
-		Utilities.copy(((DataImpl)payload).encodedData(),  _rsslMsg.encodedDataBody());
+		
+		// the payload is copied into a buffer this message keeps, so setting payloads again does not allocate
+		Buffer encodedData = ((DataImpl)payload).encodedData();
+		if (_payloadByteBuffer == null || _payloadByteBuffer.capacity() < encodedData.length())
+		{
+			EncodeBufferPool.release(_payloadByteBuffer);
+			_payloadByteBuffer = EncodeBufferPool.acquire(encodedData.length());
+		}
+		_payloadByteBuffer.clear();
+		_rsslMsg.encodedDataBody().data(_payloadByteBuffer);
+		Utilities.copy(encodedData,  _rsslMsg.encodedDataBody());
 	}
 
 	void msgExtendedHeader(ByteBuffer buffer)
@@ -823,6 +835,17 @@ class MsgImpl extends DataImpl implements Msg
 			_encodeComplete = false;
 			
 			_rsslEncodeIter.clear();
+			
+			// the encode and payload buffers go back to the pool until this message is used again
+			EncodeBufferPool.release(_payloadByteBuffer);
+			_payloadByteBuffer = null;
+			if (_rsslBuffer == _encodeRsslBuffer)
+			{
+				EncodeBufferPool.release(_rsslBuffer.data());
+				_rsslBuffer.clear();
+				return;
+			}
+			
 			ByteBuffer data = _rsslBuffer.data();
 			if (data != null)
 			{
@@ -839,6 +862,9 @@ class MsgImpl extends DataImpl implements Msg
 		if (_encodeComplete)
 			return _rsslBuffer; 
 		
+		if (_rsslBuffer.data() == null)
+			_rsslBuffer.data(EncodeBufferPool.acquire(CollectionDataImpl.ENCODE_RSSL_BUFFER_INIT_SIZE));
+		
 		int ret = _rsslEncodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer);
 	    if (ret != CodecReturnCodes.SUCCESS)
 	    {
@@ -851,8 +877,7 @@ class MsgImpl extends DataImpl implements Msg
 		ret = _rsslMsg.encode(_rsslEncodeIter);
 		 while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		  {
-		    _rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    _rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    ret = _rsslMsg.encode(_rsslEncodeIter);
 		  }
 		    
@@ -7,7 +7,6 @@
 
 package com.thomsonreuters.ema.access;
 
-import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -410,6 +409,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 		if (_ommArrayCollection.isEmpty())
 			throw ommIUExcept().message("OmmArray to be encoded is empty.");
 		
+		acquireEncodeBuffer();
 		int ret = _rsslEncodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer);
 	    if (ret != CodecReturnCodes.SUCCESS)
 	    {
@@ -426,8 +426,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 	    ret = _rsslArray.encodeInit(_rsslEncodeIter);
 	    while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 	    {
-	    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-	    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+	    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 	    	ret = _rsslArray.encodeInit(_rsslEncodeIter);
 	    }
 	    
@@ -486,8 +485,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter); //could be blank
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter);
 		    }
 			return ret;
@@ -536,8 +534,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.UInt)value);
 		    }
 			return ret;
@@ -582,8 +579,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Int)value);
 		    }
 			return ret;
@@ -619,8 +615,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Enum)value);
 		    }
 			return ret;
@@ -634,8 +629,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Real)value);
 		    }
 			return ret;
@@ -649,8 +643,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Float)value);
 		    }
 			return ret;
@@ -664,8 +657,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Double)value);
 		    }
 			return ret;
@@ -679,8 +671,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Date)value);
 		    }
 			return ret;
@@ -690,8 +681,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 				ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time)value);
 				while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Time)value);
 			    }
 				return ret;
@@ -708,8 +698,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 				ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime)value);
 				while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			    {
-			    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.DateTime)value);
 			    }
 				return ret;
@@ -730,8 +719,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Qos)value);
 		    }
 			return ret;
@@ -745,8 +733,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.State)value);
 		    }
 			return ret;
@@ -763,8 +750,7 @@ class OmmArrayImpl extends CollectionDataImpl implements OmmArray
 			ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer)value);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 		    {
-		    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-		    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+		    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 		    	ret = rsslArrayEntry.encode(_rsslEncodeIter, (com.thomsonreuters.upa.codec.Buffer)value);
 		    }
 			return ret;
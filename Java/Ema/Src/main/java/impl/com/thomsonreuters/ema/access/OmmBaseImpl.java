@@ -31,6 +31,7 @@ import com.thomsonreuters.upa.codec.CodecFactory;
 import com.thomsonreuters.upa.codec.DecodeIterator;
 import com.thomsonreuters.upa.codec.EncodeIterator;
 import com.thomsonreuters.upa.transport.ConnectionTypes;
+import com.thomsonreuters.upa.transport.Server;
 import com.thomsonreuters.upa.valueadd.common.VaIteratableQueue;
 import com.thomsonreuters.upa.valueadd.reactor.Reactor;
 import com.thomsonreuters.upa.valueadd.reactor.ReactorChannel;
@@ -61,6 +62,15 @@ abstract class OmmBaseImpl<T> implements Runnable, TimeoutClient
 		final static int DIRECTORY_STREAM_OPEN_OK = 10;
 	}
 	
+	/* How the dispatch loop waits for the selector once there is nothing to dispatch. */
+	static class DispatchStrategy
+	{
+		final static int SELECT = 0;		// block in Selector.select()
+		final static int BUSY_SPIN = 1;		// poll with Selector.selectNow() until the timeout
+		final static int SPIN_YIELD = 2;	// poll, yielding the thread once the spin time is used up
+		final static int SPIN_PARK = 3;		// poll, then block in Selector.select() once the spin time is used up
+	}
+	
 	private static int INSTANCE_ID = 0;
 	
 	protected int _state = OmmImplState.NOT_INITIALIZED;
@@ -286,6 +296,9 @@ abstract class OmmBaseImpl<T> implements Runnable, TimeoutClient
 				}
 			}
 
+			if (_dictionaryCallbackClient != null)
+				_dictionaryCallbackClient.uninitialize();
+
 			_rsslReactor = null;
 			_state = OmmImplState.NOT_INITIALIZED;
 		} catch (InterruptedException | IOException e)
@@ -588,6 +601,12 @@ abstract class OmmBaseImpl<T> implements Runnable, TimeoutClient
 
 			if ((ce = attributes.getPrimitiveValue(ConfigManager.MaxDispatchCountUserThread)) != null)
 				_activeConfig.maxDispatchCountUserThread = ce.intLongValue() > maxInt ? maxInt : ce.intLongValue();
+
+			if ((ce = attributes.getPrimitiveValue(ConfigManager.DispatchStrategy)) != null)
+				_activeConfig.dispatchStrategy = ce.intValue() < 0 ? ActiveConfig.DEFAULT_DISPATCH_STRATEGY : ce.intValue();
+
+			if ((ce = attributes.getPrimitiveValue(ConfigManager.DispatchSpinTime)) != null)
+				_activeConfig.dispatchSpinTime = ce.intLongValue() > maxInt ? maxInt : ce.intLongValue();
 		}
 
 		// .........................................................................
@@ -971,7 +990,8 @@ abstract class OmmBaseImpl<T> implements Runnable, TimeoutClient
 				}
 			}
 
-			int selectCount = _selector.select(timeOut/1000000);
+			int selectCount = _activeConfig.dispatchStrategy == DispatchStrategy.SELECT ?
+					_selector.select(timeOut/1000000) : spinSelect(timeOut);
 			if (selectCount > 0 || !_selector.selectedKeys().isEmpty())
 			{
 				Iterator<SelectionKey> iter = _selector.selectedKeys().iterator();
@@ -983,7 +1003,9 @@ abstract class OmmBaseImpl<T> implements Runnable, TimeoutClient
 					{
 						if (!key.isValid())
 							continue;
-						if (key.isReadable())
+						if (key.attachment() instanceof Server)
+							acceptChannel((Server) key.attachment());
+						else if (key.isReadable())
 								ret = ((ReactorChannel) key.attachment()).dispatch(_rsslDispatchOptions, _rsslErrorInfo);
 					}
 					 catch (CancelledKeyException e)
@@ -1074,6 +1096,50 @@ abstract class OmmBaseImpl<T> implements Runnable, TimeoutClient
 		return true;
 	}
 	
+	/* Polls the selector according to the configured dispatch strategy instead of
+	 * blocking in select(), whose timeout only has millisecond granularity. timeOut
+	 * is in nanoseconds, 0 meaning no timeout. Returns the number of selected keys,
+	 * or 0 if the timeout expired. */
+	int spinSelect(long timeOut) throws IOException
+	{
+		int selectCount;
+		long spinTime = _activeConfig.dispatchSpinTime * 1000L;
+		long startTime = System.nanoTime();
+
+		while ((selectCount = _selector.selectNow()) == 0)
+		{
+			long elapsed = System.nanoTime() - startTime;
+			if (timeOut > 0 && elapsed >= timeOut)
+				return 0;
+
+			// without a timeout, the API thread still has to notice uninitialize()
+			if (timeOut == 0 && !_threadRunning && _activeConfig.userDispatch == OperationModel.API_DISPATCH)
+				return 0;
+
+			if (Thread.currentThread().isInterrupted())
+				return 0;
+
+			if (elapsed < spinTime)
+				continue;
+
+			if (_activeConfig.dispatchStrategy == DispatchStrategy.SPIN_YIELD)
+				Thread.yield();
+			else if (_activeConfig.dispatchStrategy == DispatchStrategy.SPIN_PARK)
+			{
+				// park in the selector, which wakes up on incoming data, unless less than
+				// the select() granularity is left
+				if (timeOut == 0)
+					return _selector.select();
+				else if (timeOut - elapsed >= 1000000)
+					return _selector.select((timeOut - elapsed)/1000000);
+				else
+					Thread.yield();
+			}
+		}
+
+		return selectCount;
+	}
+	
 	OmmInvalidUsageExceptionImpl ommIUExcept()
 	{
 		if (_ommIUExcept == null)
@@ -1209,6 +1275,8 @@ abstract class OmmBaseImpl<T> implements Runnable, TimeoutClient
 	
 	void processChannelEvent( ReactorChannelEvent reactorChannelEvent){}
 	
+	void acceptChannel(Server server) {}
+	
 	void reLoadDirectory() {}
 	
 	void eventReceived()
@@ -233,6 +233,9 @@ class OmmConsumerImpl extends OmmBaseImpl<OmmConsumerClient> implements OmmConsu
 						_activeConfig.dictionaryConfig.enumtypeDefFileName = "./enumtype.def";
 					else
 						_activeConfig.dictionaryConfig.enumtypeDefFileName = ce.asciiValue();
+
+					if ((ce = attributes.getPrimitiveValue(ConfigManager.DictionaryCacheFileName)) != null)
+						_activeConfig.dictionaryConfig.cacheFileName = ce.asciiValue();
 				}
 			}
 		}
@@ -0,0 +1,29 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+class OmmIProviderActiveConfig extends ActiveConfig
+{
+	static final int DEFAULT_USER_DISPATCH 								=   OmmIProviderConfig.OperationModel.API_DISPATCH;
+	static final String DEFAULT_IPROVIDER_SERVICE_NAME 					= 	"14002";
+	static final String DEFAULT_SERVICE_NAME							=   "DIRECT_FEED";
+	static final int DEFAULT_SERVICE_ID									=	1;
+	static final int DEFAULT_ACCEPT_INIT_TIMEOUT						=	60;
+	static final int DEFAULT_FANOUT_BUFFER_SIZE							=	1024;
+	
+	String						serviceName;
+	int							serviceId;
+
+	OmmIProviderActiveConfig()
+	{
+		super(DEFAULT_IPROVIDER_SERVICE_NAME);
+		operationModel = DEFAULT_USER_DISPATCH;
+		serviceName = DEFAULT_SERVICE_NAME;
+		serviceId = DEFAULT_SERVICE_ID;
+	}
+}
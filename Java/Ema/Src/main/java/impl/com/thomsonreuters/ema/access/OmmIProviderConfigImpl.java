@@ -0,0 +1,85 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+public class OmmIProviderConfigImpl extends EmaConfigImpl implements OmmIProviderConfig
+{
+	private int 					_operationModel;
+	private String					_serviceName;
+	private int						_serviceId;
+	
+	OmmIProviderConfigImpl()
+	{
+		super();
+		clear();
+	}
+
+	@Override
+	public OmmIProviderConfig clear() {
+		clearInt();
+		portInt(OmmIProviderActiveConfig.DEFAULT_IPROVIDER_SERVICE_NAME);
+		_operationModel = OperationModel.API_DISPATCH;
+		_serviceName = OmmIProviderActiveConfig.DEFAULT_SERVICE_NAME;
+		_serviceId = OmmIProviderActiveConfig.DEFAULT_SERVICE_ID;
+		return this;
+	}
+
+	@Override
+	public OmmIProviderConfig port(String port) {
+		portInt(port);
+		return this;
+	}
+
+	@Override
+	public OmmIProviderConfig operationModel(int operationModel) {
+		_operationModel = operationModel;
+		return this;
+	}
+
+	@Override
+	public OmmIProviderConfig serviceName(String serviceName) {
+		_serviceName = serviceName;
+		return this;
+	}
+
+	@Override
+	public OmmIProviderConfig serviceId(int serviceId) {
+		_serviceId = serviceId;
+		return this;
+	}
+	
+	@Override
+	int operationModel()
+	{
+		return _operationModel;
+	}
+	
+	String serviceName()
+	{
+		return _serviceName;
+	}
+	
+	int serviceId()
+	{
+		return _serviceId;
+	}
+	
+	@Override
+	String configuredName()
+	{
+		return "EmaIProvider";	
+	}
+	
+	@Override
+	String channelName(String instanceName)
+	{
+		// TODO: Retrieve from programmatic configuration
+		
+		return null;
+	}
+}
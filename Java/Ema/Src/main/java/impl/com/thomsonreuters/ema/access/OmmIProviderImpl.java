@@ -0,0 +1,1112 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thomsonreuters.ema.access.ConfigManager.ConfigAttributes;
+import com.thomsonreuters.ema.access.OmmException.ExceptionType;
+import com.thomsonreuters.ema.access.OmmLoggerClient.Severity;
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.Codec;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.codec.DataStates;
+import com.thomsonreuters.upa.codec.DataTypes;
+import com.thomsonreuters.upa.codec.EncodeIterator;
+import com.thomsonreuters.upa.codec.FilterEntryActions;
+import com.thomsonreuters.upa.codec.MapEntryActions;
+import com.thomsonreuters.upa.codec.Msg;
+import com.thomsonreuters.upa.codec.MsgClasses;
+import com.thomsonreuters.upa.codec.MsgKey;
+import com.thomsonreuters.upa.codec.Qos;
+import com.thomsonreuters.upa.codec.QosRates;
+import com.thomsonreuters.upa.codec.QosTimeliness;
+import com.thomsonreuters.upa.codec.RefreshMsgFlags;
+import com.thomsonreuters.upa.codec.RequestMsgFlags;
+import com.thomsonreuters.upa.codec.StateCodes;
+import com.thomsonreuters.upa.codec.StatusMsgFlags;
+import com.thomsonreuters.upa.codec.StreamStates;
+import com.thomsonreuters.upa.rdm.Directory;
+import com.thomsonreuters.upa.rdm.Login;
+import com.thomsonreuters.upa.transport.BindOptions;
+import com.thomsonreuters.upa.transport.ConnectionTypes;
+import com.thomsonreuters.upa.transport.Server;
+import com.thomsonreuters.upa.transport.Transport;
+import com.thomsonreuters.upa.transport.TransportFactory;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.DirectoryMsg;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.DirectoryMsgFactory;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.DirectoryMsgType;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.DirectoryRefresh;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.DirectoryRequest;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.Service;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.login.LoginMsg;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.login.LoginMsgFactory;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.login.LoginMsgType;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.login.LoginRefresh;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.login.LoginRequest;
+import com.thomsonreuters.upa.valueadd.reactor.DefaultMsgCallback;
+import com.thomsonreuters.upa.valueadd.reactor.ProviderRole;
+import com.thomsonreuters.upa.valueadd.reactor.RDMDirectoryMsgCallback;
+import com.thomsonreuters.upa.valueadd.reactor.RDMDirectoryMsgEvent;
+import com.thomsonreuters.upa.valueadd.reactor.RDMLoginMsgCallback;
+import com.thomsonreuters.upa.valueadd.reactor.RDMLoginMsgEvent;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorAcceptOptions;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorCallbackReturnCodes;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorChannel;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorChannelEvent;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorChannelEventCallback;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorChannelEventTypes;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorFactory;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorFanOutTargets;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorMsgEvent;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorReturnCodes;
+
+/* Interactive provider. Consumer connections are accepted into the Reactor; login and
+ * source directory requests are answered here, and item requests are passed to the
+ * OmmIProviderClient.
+ *
+ * Requests from any connection for the same item are attached to one ProviderItem, so
+ * the application submits each message once on the item's handle. The message is then
+ * encoded once and written to every target channel by Reactor.submit(Buffer,
+ * ReactorFanOutTargets, ...), which only replaces the stream id. A stream that misses a
+ * message is closed rather than left with an incomplete image, see closeUndeliveredStreams(). */
+class OmmIProviderImpl extends OmmBaseImpl<OmmProviderClient> implements OmmProvider,
+		ReactorChannelEventCallback, DefaultMsgCallback, RDMLoginMsgCallback, RDMDirectoryMsgCallback
+{
+	private OmmProviderErrorClient _providerErrorClient = null;
+	private OmmIProviderClient _providerClient = null;
+	private OmmIProviderActiveConfig _activeConfig = null;
+
+	private Server _server;
+	private ProviderRole _providerRole = ReactorFactory.createProviderRole();
+	private ReactorAcceptOptions _acceptOptions = ReactorFactory.createReactorAcceptOptions();
+	private ArrayList<ClientSession> _clientSessions = new ArrayList<>();
+	private long _nextClientHandle = 0;
+	private long _nextItemHandle = 0;
+
+	private HashMap<Long, ProviderItem> _handleToItem = new HashMap<>();
+	private HashMap<String, ProviderItem> _itemKeyToItem = new HashMap<>();
+	private StringBuilder _itemKeyBuilder = new StringBuilder();
+
+	private Buffer _fanOutBuffer = CodecFactory.createBuffer();
+	private Buffer _fanOutMsgBuffer = CodecFactory.createBuffer();
+	private ReactorFanOutTargets _fanOutChannels = ReactorFactory.createReactorFanOutTargets();
+	private EncodeIterator _fanOutEncIter = CodecFactory.createEncodeIterator();
+	private ArrayList<ItemStream> _fanOutTargets = new ArrayList<>();
+	private ArrayList<ItemStream> _fanOutSent = new ArrayList<>();
+
+	private ReqMsgImpl _reqMsg;
+	private GenericMsgImpl _genericMsg;
+	private ProviderItemEvent _providerEvent = new ProviderItemEvent();
+	private LoginRefresh _loginRefresh = (LoginRefresh)LoginMsgFactory.createMsg();
+	private DirectoryRefresh _directoryRefresh = (DirectoryRefresh)DirectoryMsgFactory.createMsg();
+	private Service _service = DirectoryMsgFactory.createService();
+	private Msg _statusMsg = CodecFactory.createMsg();
+
+	OmmIProviderImpl(OmmProviderConfig config, OmmIProviderClient client, OmmProviderErrorClient errorClient)
+	{
+		super();
+		_providerClient = client;
+		_providerErrorClient = errorClient;
+		_activeConfig = new OmmIProviderActiveConfig();
+		_reqMsg = new ReqMsgImpl(_objManager);
+		_genericMsg = new GenericMsgImpl(_objManager);
+		_fanOutBuffer.data(ByteBuffer.allocate(OmmIProviderActiveConfig.DEFAULT_FANOUT_BUFFER_SIZE));
+		_loginRefresh.rdmMsgType(LoginMsgType.REFRESH);
+		_directoryRefresh.rdmMsgType(DirectoryMsgType.REFRESH);
+
+		super.initialize(_activeConfig, (OmmIProviderConfigImpl)config);
+	}
+
+	@Override
+	public void uninitialize()
+	{
+		userLock().lock();
+
+		for (int i = 0; i < _clientSessions.size(); i++)
+		{
+			ReactorChannel reactorChannel = _clientSessions.get(i).reactorChannel();
+			if (reactorChannel != null)
+				reactorChannel.close(_rsslErrorInfo);
+		}
+		_clientSessions.clear();
+		_handleToItem.clear();
+		_itemKeyToItem.clear();
+
+		if (_server != null)
+		{
+			_server.close(_rsslErrorInfo.error());
+			_server = null;
+		}
+
+		userLock().unlock();
+
+		super.uninitialize();
+	}
+
+	@Override
+	public String providerName()
+	{
+		return _activeConfig.instanceName;
+	}
+
+	@Override
+	public long registerClient(ReqMsg reqMsg, OmmProviderClient client)
+	{
+		return registerClient(reqMsg, client, null);
+	}
+
+	@Override
+	public long registerClient(ReqMsg reqMsg, OmmProviderClient client, Object closure)
+	{
+		handleInvalidUsage("Attempt to register a client with an interactive provider. Item requests are passed to the OmmIProviderClient.");
+		return 0;
+	}
+
+	@Override
+	public void unregister(long handle)
+	{
+		userLock().lock();
+
+		ProviderItem item = _handleToItem.get(handle);
+
+		if (item == null)
+		{
+			userLock().unlock();
+			handleInvalidHandle(handle, "Attempt to unregister a handle that was not requested.");
+			return;
+		}
+
+		for (int i = 0; i < item.streams().size(); i++)
+		{
+			ItemStream stream = item.streams().get(i);
+			sendStatus(stream.session(), stream.streamId(), item.reqMsg().domainType(), StreamStates.CLOSED,
+					StateCodes.NONE, "Stream closed by the provider.", item.privateStream());
+		}
+
+		removeItem(item);
+
+		userLock().unlock();
+	}
+
+	@Override
+	public void submit(RefreshMsg refreshMsg, long handle)
+	{
+		userLock().lock();
+
+		ProviderItem item = _handleToItem.get(handle);
+
+		if (item == null)
+		{
+			userLock().unlock();
+			handleInvalidHandle(handle, "Attempt to submit RefreshMsg on a handle that was not requested.");
+			return;
+		}
+
+		Msg rsslMsg = ((RefreshMsgImpl)refreshMsg).rsslMsg();
+
+		if ((rsslMsg.flags() & RefreshMsgFlags.HAS_MSG_KEY) != 0)
+		{
+			rsslMsg.msgKey().applyHasServiceId();
+			rsslMsg.msgKey().serviceId(_activeConfig.serviceId);
+		}
+
+		// a solicited refresh answers the requests waiting for one; others go to the open image
+		boolean solicited = (rsslMsg.flags() & RefreshMsgFlags.SOLICITED) != 0;
+
+		_fanOutTargets.clear();
+		for (int i = 0; i < item.streams().size(); i++)
+		{
+			ItemStream stream = item.streams().get(i);
+			if (stream._refreshPending == solicited)
+				_fanOutTargets.add(stream);
+		}
+
+		fanOut(rsslMsg, _fanOutTargets);
+		ArrayList<ItemStream> undelivered = undeliveredStreams(_fanOutTargets);
+
+		int streamState = ((com.thomsonreuters.upa.codec.RefreshMsg)rsslMsg).state().streamState();
+		if (isClosed(streamState))
+			removeItem(item);
+		else if ((rsslMsg.flags() & RefreshMsgFlags.REFRESH_COMPLETE) != 0 && solicited)
+		{
+			for (int i = 0; i < _fanOutTargets.size(); i++)
+			{
+				ItemStream stream = _fanOutTargets.get(i);
+				if (!stream._delivered)
+					continue;
+
+				stream._refreshPending = false;
+
+				// snapshot requests are done once their refresh is complete
+				if (!stream._streaming || streamState == StreamStates.NON_STREAMING)
+					removeStream(stream, true);
+			}
+		}
+
+		closeUndeliveredStreams(undelivered);
+
+		userLock().unlock();
+	}
+
+	@Override
+	public void submit(UpdateMsg updateMsg, long handle)
+	{
+		userLock().lock();
+
+		ProviderItem item = _handleToItem.get(handle);
+
+		if (item == null)
+		{
+			userLock().unlock();
+			handleInvalidHandle(handle, "Attempt to submit UpdateMsg on a handle that was not requested.");
+			return;
+		}
+
+		ArrayList<ItemStream> targets = openStreams(item);
+		fanOut(((UpdateMsgImpl)updateMsg).rsslMsg(), targets);
+		closeUndeliveredStreams(undeliveredStreams(targets));
+
+		userLock().unlock();
+	}
+
+	@Override
+	public void submit(StatusMsg statusMsg, long handle)
+	{
+		userLock().lock();
+
+		ProviderItem item = _handleToItem.get(handle);
+
+		if (item == null)
+		{
+			userLock().unlock();
+			handleInvalidHandle(handle, "Attempt to submit StatusMsg on a handle that was not requested.");
+			return;
+		}
+
+		Msg rsslMsg = ((StatusMsgImpl)statusMsg).rsslMsg();
+
+		// a closing status also ends the requests still waiting for a refresh
+		ArrayList<ItemStream> undelivered;
+		if ((rsslMsg.flags() & StatusMsgFlags.HAS_STATE) != 0 &&
+				isClosed(((com.thomsonreuters.upa.codec.StatusMsg)rsslMsg).state().streamState()))
+		{
+			fanOut(rsslMsg, item.streams());
+			undelivered = undeliveredStreams(item.streams());
+			removeItem(item);
+		}
+		else
+		{
+			ArrayList<ItemStream> targets = openStreams(item);
+			fanOut(rsslMsg, targets);
+			undelivered = undeliveredStreams(targets);
+		}
+
+		closeUndeliveredStreams(undelivered);
+
+		userLock().unlock();
+	}
+
+	@Override
+	public void submit(GenericMsg genericMsg, long handle)
+	{
+		userLock().lock();
+
+		ProviderItem item = _handleToItem.get(handle);
+
+		if (item == null)
+		{
+			userLock().unlock();
+			handleInvalidHandle(handle, "Attempt to submit GenericMsg on a handle that was not requested.");
+			return;
+		}
+
+		ArrayList<ItemStream> targets = openStreams(item);
+		fanOut(((GenericMsgImpl)genericMsg).rsslMsg(), targets);
+		closeUndeliveredStreams(undeliveredStreams(targets));
+
+		userLock().unlock();
+	}
+
+	@Override
+	public void clientChannelStats(List<ClientChannelStats> statsList)
+	{
+		userLock().lock();
+
+		statsList.clear();
+		for (int i = 0; i < _clientSessions.size(); i++)
+			statsList.add(new ClientChannelStatsImpl(_clientSessions.get(i)));
+
+		userLock().unlock();
+	}
+
+	/* Returns the streams of an item that received a refresh. */
+	ArrayList<ItemStream> openStreams(ProviderItem item)
+	{
+		_fanOutTargets.clear();
+		for (int i = 0; i < item.streams().size(); i++)
+		{
+			ItemStream stream = item.streams().get(i);
+			if (!stream._refreshPending)
+				_fanOutTargets.add(stream);
+		}
+		return _fanOutTargets;
+	}
+
+	/* Encodes the message once and has the Reactor write it to the channel of each target,
+	 * with the target's stream id. Each target's _delivered flag tells whether the message
+	 * was written to its channel. */
+	void fanOut(Msg rsslMsg, ArrayList<ItemStream> targets)
+	{
+		if (targets.isEmpty())
+			return;
+
+		for (int i = 0; i < targets.size(); i++)
+			targets.get(i)._delivered = false;
+
+		int ret;
+		do
+		{
+			_fanOutBuffer.data().clear();
+			_fanOutEncIter.clear();
+			_fanOutEncIter.setBufferAndRWFVersion(_fanOutBuffer, Codec.majorVersion(), Codec.minorVersion());
+			if ((ret = rsslMsg.encode(_fanOutEncIter)) == CodecReturnCodes.BUFFER_TOO_SMALL)
+				_fanOutBuffer.data(ByteBuffer.allocate(_fanOutBuffer.data().capacity() * 2));
+		} while (ret == CodecReturnCodes.BUFFER_TOO_SMALL);
+
+		if (ret < CodecReturnCodes.SUCCESS)
+		{
+			if (loggerClient().isErrorEnabled())
+			{
+				loggerClient().error(formatLogMessage(instanceName(), strBuilder().append("Failed to encode message for submit. Reason: ")
+						.append(CodecReturnCodes.toString(ret)).toString(), Severity.ERROR));
+			}
+			return;
+		}
+
+		int length = _fanOutBuffer.data().position();
+		_fanOutMsgBuffer.data(_fanOutBuffer.data(), 0, length);
+
+		_fanOutChannels.clear();
+		_fanOutSent.clear();
+		for (int i = 0; i < targets.size(); i++)
+		{
+			ItemStream stream = targets.get(i);
+			ClientSession session = stream.session();
+			if (flushPendingBuffer(session))
+			{
+				_fanOutChannels.add(session.reactorChannel(), stream.streamId());
+				_fanOutSent.add(stream);
+			}
+			else
+				session._messagesDropped++;
+		}
+
+		if (_fanOutChannels.count() == 0)
+			return;
+
+		_rsslErrorInfo.clear();
+		_rsslReactor.submit(_fanOutMsgBuffer, _fanOutChannels, _rsslSubmitOptions, _rsslErrorInfo);
+
+		for (int i = 0; i < _fanOutChannels.count(); i++)
+		{
+			ItemStream stream = _fanOutSent.get(i);
+			ClientSession session = stream.session();
+			ret = _fanOutChannels.result(i);
+			if (ret == ReactorReturnCodes.WRITE_CALL_AGAIN && session._pendingBuffer == null)
+			{
+				// the rest is written by flushPendingBuffer() before anything else goes to the channel
+				session._pendingBuffer = _fanOutChannels.pendingBuffer(i);
+			}
+			else if (ret == ReactorReturnCodes.WRITE_CALL_AGAIN)
+			{
+				session.reactorChannel().channel().releaseBuffer(_fanOutChannels.pendingBuffer(i), _rsslErrorInfo.error());
+				session._messagesDropped++;
+				continue;
+			}
+			else if (ret < ReactorReturnCodes.SUCCESS)
+			{
+				session._messagesDropped++;
+				continue;
+			}
+
+			stream._delivered = true;
+			session._messagesSent++;
+			session._bytesSent += length;
+		}
+	}
+
+	/* Returns the targets that the last fanned-out message did not reach, or null if it
+	 * reached all of them. */
+	ArrayList<ItemStream> undeliveredStreams(ArrayList<ItemStream> targets)
+	{
+		ArrayList<ItemStream> undelivered = null;
+		for (int i = 0; i < targets.size(); i++)
+		{
+			if (targets.get(i)._delivered)
+				continue;
+
+			if (undelivered == null)
+				undelivered = new ArrayList<>();
+			undelivered.add(targets.get(i));
+		}
+		return undelivered;
+	}
+
+	/* Closes the streams that missed a message, as their consumers would otherwise go on with
+	 * an incomplete image. Each consumer gets a closed-recover status so that it can request the
+	 * item again. A consumer whose channel cannot take the status either, because it is still
+	 * blocked on an earlier message or the write fails, is disconnected. */
+	void closeUndeliveredStreams(ArrayList<ItemStream> streams)
+	{
+		if (streams == null)
+			return;
+
+		for (int i = 0; i < streams.size(); i++)
+		{
+			ItemStream stream = streams.get(i);
+			ClientSession session = stream.session();
+			if (!_clientSessions.contains(session))
+				continue;	// already disconnected for an earlier stream
+
+			ProviderItem item = stream.item();
+			if (session._pendingBuffer == null && sendStatus(session, stream.streamId(), item.reqMsg().domainType(),
+					StreamStates.CLOSED_RECOVER, StateCodes.NONE, "Stream closed, a message could not be delivered.", item.privateStream()))
+			{
+				if (session.streams().get(stream.streamId()) == stream)
+					removeStream(stream, true);
+				continue;
+			}
+
+			if (loggerClient().isWarnEnabled())
+				loggerClient().warn(formatLogMessage(instanceName(), strBuilder().append("Closing client channel that cannot take messages, client handle ")
+						.append(session.handle()).append(".").toString(), Severity.WARNING));
+
+			closeClientSession(session, session.reactorChannel());
+		}
+	}
+
+	/* Submits again the part of a fanned-out message that a client channel could not take
+	 * earlier. Returns whether nothing is left pending on the channel. */
+	private boolean flushPendingBuffer(ClientSession session)
+	{
+		if (session._pendingBuffer == null)
+			return true;
+
+		_rsslErrorInfo.clear();
+		int ret = session.reactorChannel().submit(session._pendingBuffer, _rsslSubmitOptions, _rsslErrorInfo);
+		if (ret == ReactorReturnCodes.WRITE_CALL_AGAIN)
+			return false;
+
+		// on failure the buffer is still ours to release
+		if (ret < ReactorReturnCodes.SUCCESS && session.reactorChannel().channel() != null)
+			session.reactorChannel().channel().releaseBuffer(session._pendingBuffer, _rsslErrorInfo.error());
+		session._pendingBuffer = null;
+		return true;
+	}
+
+	/* Removes an item and all its streams. The application is not notified. */
+	void removeItem(ProviderItem item)
+	{
+		for (int i = 0; i < item.streams().size(); i++)
+		{
+			ItemStream stream = item.streams().get(i);
+			stream.session().streams().remove(stream.streamId());
+		}
+		item.streams().clear();
+
+		_handleToItem.remove(item.handle());
+		if (!item.privateStream())
+			_itemKeyToItem.remove(item.itemKey());
+	}
+
+	/* Removes one stream of an item. Once the last stream is removed the item is removed,
+	 * and the application is notified if notifyClient is set. */
+	void removeStream(ItemStream stream, boolean notifyClient)
+	{
+		ProviderItem item = stream.item();
+
+		stream.session().streams().remove(stream.streamId());
+		item.removeStream(stream);
+
+		if (!item.streams().isEmpty())
+			return;
+
+		_handleToItem.remove(item.handle());
+		if (!item.privateStream())
+			_itemKeyToItem.remove(item.itemKey());
+
+		if (notifyClient && _providerClient != null)
+		{
+			_reqMsg.decode(item.reqMsg(), Codec.majorVersion(), Codec.minorVersion(), null);
+			_reqMsg.service(_activeConfig.serviceName);
+			_providerEvent._handle = item.handle();
+			_providerClient.onClose(_reqMsg, _providerEvent);
+		}
+	}
+
+	/* Closes a consumer connection and all its streams. */
+	void closeClientSession(ClientSession session, ReactorChannel reactorChannel)
+	{
+		if (reactorChannel.selectableChannel() != null)
+		{
+			SelectionKey key = reactorChannel.selectableChannel().keyFor(selector());
+			if (key != null)
+				key.cancel();
+		}
+
+		removeSessionStreams(session);
+		_clientSessions.remove(session);
+		session._pendingBuffer = null;	// released when the channel is closed
+		reactorChannel.close(_rsslErrorInfo);
+	}
+
+	/* Closes all streams of a consumer connection. */
+	void removeSessionStreams(ClientSession session)
+	{
+		ArrayList<ItemStream> streams = new ArrayList<>(session.streams().values());
+		for (int i = 0; i < streams.size(); i++)
+			removeStream(streams.get(i), true);
+	}
+
+	boolean isClosed(int streamState)
+	{
+		return streamState == StreamStates.CLOSED || streamState == StreamStates.CLOSED_RECOVER
+				|| streamState == StreamStates.REDIRECTED;
+	}
+
+	/* Sends a status message on a stream of a consumer connection, used to reject and close requests.
+	 * Returns whether the message was written. */
+	boolean sendStatus(ClientSession session, int streamId, int domainType, int streamState, int stateCode, String text, boolean privateStream)
+	{
+		_statusMsg.clear();
+		_statusMsg.msgClass(MsgClasses.STATUS);
+		_statusMsg.streamId(streamId);
+		_statusMsg.domainType(domainType);
+		_statusMsg.containerType(DataTypes.NO_DATA);
+		_statusMsg.flags(StatusMsgFlags.HAS_STATE | (privateStream ? StatusMsgFlags.PRIVATE_STREAM : 0));
+		com.thomsonreuters.upa.codec.State state = ((com.thomsonreuters.upa.codec.StatusMsg)_statusMsg).state();
+		state.streamState(streamState);
+		state.dataState(DataStates.SUSPECT);
+		state.code(stateCode);
+		state.text().data(text);
+
+		_rsslErrorInfo.clear();
+		if (session.reactorChannel().submit(_statusMsg, _rsslSubmitOptions, _rsslErrorInfo) < ReactorReturnCodes.SUCCESS)
+		{
+			session._messagesDropped++;
+			return false;
+		}
+
+		session._messagesSent++;
+		return true;
+	}
+
+	@Override
+	void acceptChannel(Server server)
+	{
+		ClientSession session = new ClientSession(++_nextClientHandle);
+
+		_acceptOptions.clear();
+		_acceptOptions.acceptOptions().userSpecObject(session);
+		_acceptOptions.initTimeout(OmmIProviderActiveConfig.DEFAULT_ACCEPT_INIT_TIMEOUT);
+
+		_rsslErrorInfo.clear();
+		if (_rsslReactor.accept(server, _acceptOptions, _providerRole, _rsslErrorInfo) != ReactorReturnCodes.SUCCESS)
+		{
+			if (loggerClient().isErrorEnabled())
+			{
+				strBuilder().append("Failed to accept consumer connection (Reactor.accept).")
+						.append(" Error Id ").append(_rsslErrorInfo.error().errorId())
+						.append(" Error Location ").append(_rsslErrorInfo.location())
+						.append(" Error Text ").append(_rsslErrorInfo.error().text());
+
+				loggerClient().error(formatLogMessage(instanceName(), _strBuilder.toString(), Severity.ERROR));
+			}
+		}
+	}
+
+	@Override
+	public int reactorChannelEventCallback(ReactorChannelEvent event)
+	{
+		ReactorChannel reactorChannel = event.reactorChannel();
+		ClientSession session = (ClientSession)reactorChannel.userSpecObj();
+
+		userLock().lock();
+		eventReceived();
+
+		switch (event.eventType())
+		{
+		case ReactorChannelEventTypes.CHANNEL_UP:
+			session.reactorChannel(reactorChannel);
+			_clientSessions.add(session);
+			registerClientChannel(reactorChannel);
+
+			if (loggerClient().isTraceEnabled())
+				loggerClient().trace(formatLogMessage(instanceName(), strBuilder().append("Accepted client channel, client handle ")
+						.append(session.handle()).append(".").toString(), Severity.TRACE));
+			break;
+		case ReactorChannelEventTypes.FD_CHANGE:
+			if (reactorChannel.oldSelectableChannel() != null)
+			{
+				SelectionKey key = reactorChannel.oldSelectableChannel().keyFor(selector());
+				if (key != null)
+					key.cancel();
+			}
+			registerClientChannel(reactorChannel);
+			break;
+		case ReactorChannelEventTypes.CHANNEL_DOWN:
+		case ReactorChannelEventTypes.CHANNEL_DOWN_RECONNECTING:
+			closeClientSession(session, reactorChannel);
+
+			if (loggerClient().isTraceEnabled())
+				loggerClient().trace(formatLogMessage(instanceName(), strBuilder().append("Client channel down, client handle ")
+						.append(session.handle()).append(".").toString(), Severity.TRACE));
+			break;
+		default:
+			break;
+		}
+
+		userLock().unlock();
+		return ReactorCallbackReturnCodes.SUCCESS;
+	}
+
+	/* Registers the current channel of a client with the selector for reading. */
+	private void registerClientChannel(ReactorChannel reactorChannel)
+	{
+		try
+		{
+			reactorChannel.selectableChannel().register(selector(), SelectionKey.OP_READ, reactorChannel);
+		}
+		catch (IOException e)
+		{
+			if (loggerClient().isErrorEnabled())
+				loggerClient().error(formatLogMessage(instanceName(), strBuilder().append("Failed to register client channel with selector: ")
+						.append(e.getLocalizedMessage()).toString(), Severity.ERROR));
+		}
+	}
+
+	@Override
+	public int rdmLoginMsgCallback(RDMLoginMsgEvent event)
+	{
+		ReactorChannel reactorChannel = event.reactorChannel();
+		ClientSession session = (ClientSession)reactorChannel.userSpecObj();
+		LoginMsg loginMsg = event.rdmLoginMsg();
+
+		userLock().lock();
+		eventReceived();
+		session._messagesReceived++;
+
+		if (loginMsg == null)
+		{
+			userLock().unlock();
+			return ReactorCallbackReturnCodes.SUCCESS;
+		}
+
+		switch (loginMsg.rdmMsgType())
+		{
+		case REQUEST:
+			LoginRequest loginRequest = (LoginRequest)loginMsg;
+
+			_loginRefresh.clear();
+			_loginRefresh.streamId(loginRequest.streamId());
+			_loginRefresh.applyHasUserName();
+			_loginRefresh.userName().data(loginRequest.userName().data(), loginRequest.userName().position(), loginRequest.userName().length());
+			_loginRefresh.applyHasUserNameType();
+			_loginRefresh.userNameType(Login.UserIdTypes.NAME);
+			_loginRefresh.state().code(StateCodes.NONE);
+			_loginRefresh.state().dataState(DataStates.OK);
+			_loginRefresh.state().streamState(StreamStates.OPEN);
+			_loginRefresh.state().text().data("Login accepted");
+			_loginRefresh.applySolicited();
+			_loginRefresh.applyHasAttrib();
+			_loginRefresh.attrib().applyHasSingleOpen();
+			_loginRefresh.attrib().singleOpen(0);
+
+			_rsslErrorInfo.clear();
+			if (reactorChannel.submit(_loginRefresh, _rsslSubmitOptions, _rsslErrorInfo) < ReactorReturnCodes.SUCCESS)
+			{
+				session._messagesDropped++;
+				break;
+			}
+
+			session._messagesSent++;
+			session._loggedIn = true;
+			session._loginStreamId = loginRequest.streamId();
+			break;
+		case CLOSE:
+			session._loggedIn = false;
+			removeSessionStreams(session);
+			break;
+		default:
+			break;
+		}
+
+		userLock().unlock();
+		return ReactorCallbackReturnCodes.SUCCESS;
+	}
+
+	@Override
+	public int rdmDirectoryMsgCallback(RDMDirectoryMsgEvent event)
+	{
+		ReactorChannel reactorChannel = event.reactorChannel();
+		ClientSession session = (ClientSession)reactorChannel.userSpecObj();
+		DirectoryMsg directoryMsg = event.rdmDirectoryMsg();
+
+		userLock().lock();
+		eventReceived();
+		session._messagesReceived++;
+
+		if (directoryMsg == null || directoryMsg.rdmMsgType() != DirectoryMsgType.REQUEST)
+		{
+			userLock().unlock();
+			return ReactorCallbackReturnCodes.SUCCESS;
+		}
+
+		DirectoryRequest directoryRequest = (DirectoryRequest)directoryMsg;
+
+		_directoryRefresh.clear();
+		_directoryRefresh.streamId(directoryRequest.streamId());
+		_directoryRefresh.applyClearCache();
+		_directoryRefresh.applySolicited();
+		_directoryRefresh.state().streamState(StreamStates.OPEN);
+		_directoryRefresh.state().dataState(DataStates.OK);
+		_directoryRefresh.state().code(StateCodes.NONE);
+		_directoryRefresh.state().text().data("Source Directory Refresh Completed");
+		_directoryRefresh.filter(directoryRequest.filter());
+
+		populateService(_service, directoryRequest.filter());
+		_directoryRefresh.serviceList().add(_service);
+
+		_rsslErrorInfo.clear();
+		if (reactorChannel.submit(_directoryRefresh, _rsslSubmitOptions, _rsslErrorInfo) < ReactorReturnCodes.SUCCESS)
+			session._messagesDropped++;
+		else
+			session._messagesSent++;
+
+		userLock().unlock();
+		return ReactorCallbackReturnCodes.SUCCESS;
+	}
+
+	/* Populates the service published in the source directory with the filters requested. */
+	void populateService(Service service, long filter)
+	{
+		service.clear();
+		service.action(MapEntryActions.ADD);
+		service.serviceId(_activeConfig.serviceId);
+
+		if ((filter & Directory.ServiceFilterFlags.INFO) != 0)
+		{
+			service.applyHasInfo();
+			service.info().action(FilterEntryActions.SET);
+			service.info().serviceName().data(_activeConfig.serviceName);
+
+			service.info().capabilitiesList().add((long)com.thomsonreuters.ema.rdm.EmaRdm.MMT_MARKET_PRICE);
+			service.info().capabilitiesList().add((long)com.thomsonreuters.ema.rdm.EmaRdm.MMT_MARKET_BY_ORDER);
+			service.info().capabilitiesList().add((long)com.thomsonreuters.ema.rdm.EmaRdm.MMT_MARKET_BY_PRICE);
+			service.info().capabilitiesList().add((long)com.thomsonreuters.ema.rdm.EmaRdm.MMT_MARKET_MAKER);
+
+			service.info().applyHasQos();
+			Qos qos = CodecFactory.createQos();
+			qos.rate(QosRates.TICK_BY_TICK);
+			qos.timeliness(QosTimeliness.REALTIME);
+			service.info().qosList().add(qos);
+
+			service.info().applyHasDictionariesUsed();
+			service.info().dictionariesUsedList().add(DictionaryCallbackClient.DICTIONARY_RWFFID);
+			service.info().dictionariesUsedList().add(DictionaryCallbackClient.DICTIONARY_RWFENUM);
+		}
+
+		if ((filter & Directory.ServiceFilterFlags.STATE) != 0)
+		{
+			service.applyHasState();
+			service.state().action(FilterEntryActions.SET);
+			service.state().serviceState(1);
+			service.state().applyHasAcceptingRequests();
+			service.state().acceptingRequests(1);
+		}
+	}
+
+	@Override
+	public int defaultMsgCallback(ReactorMsgEvent event)
+	{
+		ReactorChannel reactorChannel = event.reactorChannel();
+		ClientSession session = (ClientSession)reactorChannel.userSpecObj();
+		Msg msg = event.msg();
+
+		userLock().lock();
+		eventReceived();
+		session._messagesReceived++;
+
+		if (msg == null)
+		{
+			userLock().unlock();
+			return ReactorCallbackReturnCodes.SUCCESS;
+		}
+
+		ItemStream stream = session.streams().get(msg.streamId());
+
+		switch (msg.msgClass())
+		{
+		case MsgClasses.REQUEST:
+			session._requestsReceived++;
+			processRequest(session, stream, msg);
+			break;
+		case MsgClasses.CLOSE:
+			if (stream != null)
+				removeStream(stream, true);
+			break;
+		case MsgClasses.GENERIC:
+			if (stream != null && _providerClient != null)
+			{
+				_genericMsg.decode(msg, reactorChannel.majorVersion(), reactorChannel.minorVersion(), null);
+				_providerEvent._handle = stream.item().handle();
+				_providerClient.onGenericMsg(_genericMsg, _providerEvent);
+				_providerClient.onAllMsg(_genericMsg, _providerEvent);
+			}
+			break;
+		default:
+			break;
+		}
+
+		userLock().unlock();
+		return ReactorCallbackReturnCodes.SUCCESS;
+	}
+
+	/* Attaches an item request to the item's shared stream, creating the item on its first
+	 * request, and passes it to the application. */
+	void processRequest(ClientSession session, ItemStream stream, Msg msg)
+	{
+		boolean privateStream = (msg.flags() & RequestMsgFlags.PRIVATE_STREAM) != 0;
+
+		if (stream != null)
+		{
+			// reissue: only a request for a new refresh goes to the application
+			stream._streaming = (msg.flags() & RequestMsgFlags.STREAMING) != 0;
+			if ((msg.flags() & RequestMsgFlags.NO_REFRESH) != 0)
+				return;
+
+			stream._refreshPending = true;
+			notifyRequest(stream.item(), session, msg);
+			return;
+		}
+
+		MsgKey msgKey = msg.msgKey();
+
+		if (!session._loggedIn)
+		{
+			sendStatus(session, msg.streamId(), msg.domainType(), StreamStates.CLOSED_RECOVER, StateCodes.NOT_ENTITLED,
+					"Item request rejected, the consumer is not logged in.", privateStream);
+			return;
+		}
+
+		if (msgKey == null || !msgKey.checkHasServiceId() || msgKey.serviceId() != _activeConfig.serviceId)
+		{
+			sendStatus(session, msg.streamId(), msg.domainType(), StreamStates.CLOSED, StateCodes.USAGE_ERROR,
+					"Item request rejected, unknown service.", privateStream);
+			return;
+		}
+
+		if (_providerClient == null)
+		{
+			sendStatus(session, msg.streamId(), msg.domainType(), StreamStates.CLOSED, StateCodes.NOT_FOUND,
+					"Item request rejected, the provider does not publish items.", privateStream);
+			return;
+		}
+
+		ProviderItem item = null;
+		String itemKey = null;
+
+		if (!privateStream)
+		{
+			_itemKeyBuilder.setLength(0);
+			_itemKeyBuilder.append(msg.domainType()).append(':').append(msgKey.serviceId()).append(':')
+				.append(msgKey.checkHasNameType() ? msgKey.nameType() : 0).append(':')
+				.append(msgKey.checkHasName() ? msgKey.name().toString() : "");
+			itemKey = _itemKeyBuilder.toString();
+			item = _itemKeyToItem.get(itemKey);
+		}
+
+		if (item == null)
+		{
+			item = new ProviderItem(++_nextItemHandle, itemKey, privateStream);
+			item.reqMsg(msg);
+			_handleToItem.put(item.handle(), item);
+			if (!privateStream)
+				_itemKeyToItem.put(itemKey, item);
+		}
+
+		stream = new ItemStream(session, msg.streamId(), item, (msg.flags() & RequestMsgFlags.STREAMING) != 0);
+		item.addStream(stream);
+		session.streams().put(msg.streamId(), stream);
+
+		notifyRequest(item, session, msg);
+	}
+
+	void notifyRequest(ProviderItem item, ClientSession session, Msg msg)
+	{
+		_reqMsg.decode(msg, session.reactorChannel().majorVersion(), session.reactorChannel().minorVersion(), null);
+		_reqMsg.service(_activeConfig.serviceName);
+		_providerEvent._handle = item.handle();
+		_providerClient.onReqMsg(_reqMsg, _providerEvent);
+	}
+
+	@Override
+	void notifyErrorClient(OmmException ommException)
+	{
+		switch (ommException.exceptionType())
+		{
+		case ExceptionType.OmmInvalidHandleException:
+			_providerErrorClient.onInvalidHandle(((OmmInvalidHandleException) ommException).handle(), ommException.getMessage());
+			break;
+		case ExceptionType.OmmInvalidUsageException:
+			_providerErrorClient.onInvalidUsage(ommException.getMessage());
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	String formatLogMessage(String clientName, String temp, int level)
+	{
+		strBuilder().append("loggerMsg\n").append("    ClientName: ").append(clientName).append("\n")
+        .append("    Severity: ").append(OmmLoggerClient.loggerSeverityAsString(level)).append("\n")
+        .append("    Text:    ").append(temp).append("\n").append("loggerMsgEnd\n\n");
+
+		return _strBuilder.toString();
+	}
+
+	@Override
+	String instanceName()
+	{
+		return _activeConfig.instanceName;
+	}
+
+	@Override
+	boolean hasErrorClient()
+	{
+		return _providerErrorClient != null ? true : false;
+	}
+
+	@Override
+	void readCustomConfig(EmaConfigImpl config)
+	{
+		_activeConfig.serviceName = ((OmmIProviderConfigImpl)config).serviceName();
+		_activeConfig.serviceId = ((OmmIProviderConfigImpl)config).serviceId();
+	}
+
+	@Override
+	Logger createLoggerClient()
+	{
+		return LoggerFactory.getLogger(OmmIProviderImpl.class);
+	}
+
+	@Override
+	ConfigAttributes getAttributes(EmaConfigImpl config)
+	{
+		return null;
+	}
+
+	@Override
+	Object getAttributeValue(EmaConfigImpl config, int attributeKey)
+	{
+		return null;
+	}
+
+	@Override
+	void handleAdminDomains()
+	{
+		_providerRole.channelEventCallback(this);
+		_providerRole.defaultMsgCallback(this);
+		_providerRole.loginMsgCallback(this);
+		_providerRole.directoryMsgCallback(this);
+
+		if (_activeConfig.channelConfig.rsslConnectionType != ConnectionTypes.SOCKET)
+			throw ommIUExcept().message("Interactive provider supports only socket connections.");
+
+		SocketChannelConfig channelConfig = (SocketChannelConfig)_activeConfig.channelConfig;
+
+		BindOptions bindOptions = TransportFactory.createBindOptions();
+		bindOptions.serviceName(channelConfig.serviceName);
+		if (channelConfig.interfaceName != null && !channelConfig.interfaceName.isEmpty())
+			bindOptions.interfaceName(channelConfig.interfaceName);
+		bindOptions.majorVersion(Codec.majorVersion());
+		bindOptions.minorVersion(Codec.minorVersion());
+		bindOptions.protocolType(Codec.protocolType());
+		bindOptions.compressionType(channelConfig.compressionType);
+		bindOptions.guaranteedOutputBuffers(channelConfig.guaranteedOutputBuffers);
+		bindOptions.numInputBuffers(channelConfig.numInputBuffers);
+		bindOptions.pingTimeout(channelConfig.connectionPingTimeout/1000);
+		bindOptions.sysRecvBufSize(channelConfig.sysRecvBufSize);
+		bindOptions.tcpOpts().tcpNoDelay(channelConfig.tcpNodelay);
+
+		_server = Transport.bind(bindOptions, _rsslErrorInfo.error());
+		if (_server == null)
+		{
+			strBuilder().append("Failed to bind server on port ").append(channelConfig.serviceName)
+				.append(" (Transport.bind). Error Id ").append(_rsslErrorInfo.error().errorId())
+				.append(" Error Text ").append(_rsslErrorInfo.error().text());
+			String temp = _strBuilder.toString();
+
+			if (loggerClient().isErrorEnabled())
+				loggerClient().error(formatLogMessage(instanceName(), temp, Severity.ERROR));
+
+			throw ommIUExcept().message(temp);
+		}
+
+		try
+		{
+			_server.selectableChannel().register(selector(), _server.selectableChannel().validOps(), _server);
+		}
+		catch (IOException e)
+		{
+			strBuilder().append("Failed to register server with selector: ").append(e.getLocalizedMessage());
+			String temp = _strBuilder.toString();
+
+			if (loggerClient().isErrorEnabled())
+				loggerClient().error(formatLogMessage(instanceName(), temp, Severity.ERROR));
+
+			throw ommIUExcept().message(temp);
+		}
+
+		if (loggerClient().isTraceEnabled())
+			loggerClient().trace(formatLogMessage(instanceName(), strBuilder().append("Bound server on port ")
+					.append(channelConfig.serviceName).append(".").toString(), Severity.TRACE));
+
+		// the server is up; dispatch the Reactor from now on
+		_state = OmmImplState.RSSLCHANNEL_UP;
+	}
+
+	@Override
+	void handleInvalidUsage(String text)
+	{
+		if ( hasErrorClient() )
+			_providerErrorClient.onInvalidUsage(text);
+		else
+			throw (ommIUExcept().message(text.toString()));
+	}
+
+	@Override
+	void handleInvalidHandle(long handle, String text)
+	{
+		if ( hasErrorClient() )
+			_providerErrorClient.onInvalidHandle(handle, text);
+		else
+			throw (ommIHExcept().message(text, handle));
+	}
+}
@@ -97,6 +97,12 @@ public class OmmNiProviderImpl extends OmmBaseImpl<OmmProviderClient> implements
 		return _activeConfig.instanceName;
 	}
 	
+	@Override
+	public void clientChannelStats(List<ClientChannelStats> statsList)
+	{
+		handleInvalidUsage("Attempt to retrieve client channel statistics from a non-interactive provider.");
+	}
+	
 	@Override
 	public long registerClient(ReqMsg reqMsg, OmmProviderClient client)
 	{
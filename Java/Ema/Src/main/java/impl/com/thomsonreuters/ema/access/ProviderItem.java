@@ -0,0 +1,76 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+import java.util.ArrayList;
+
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CopyMsgFlags;
+import com.thomsonreuters.upa.codec.Msg;
+
+/* An item published by the interactive provider. All request streams for the same
+ * domain, service and name share one item (and one handle), so that a message
+ * submitted on the handle is encoded once and written to every stream. Requests on
+ * private streams get an item of their own. */
+class ProviderItem
+{
+	private long 					_handle;
+	private String					_itemKey;
+	private boolean					_privateStream;
+	private Msg						_reqMsg = CodecFactory.createMsg();
+	private ArrayList<ItemStream>	_streams = new ArrayList<>();
+
+	ProviderItem(long handle, String itemKey, boolean privateStream)
+	{
+		_handle = handle;
+		_itemKey = itemKey;
+		_privateStream = privateStream;
+	}
+
+	long handle()
+	{
+		return _handle;
+	}
+
+	String itemKey()
+	{
+		return _itemKey;
+	}
+
+	boolean privateStream()
+	{
+		return _privateStream;
+	}
+
+	/* Keeps a copy of the request which opened the item, passed back to the application when the item is closed. */
+	void reqMsg(Msg reqMsg)
+	{
+		_reqMsg.clear();
+		reqMsg.copy(_reqMsg, CopyMsgFlags.ALL_FLAGS);
+	}
+
+	Msg reqMsg()
+	{
+		return _reqMsg;
+	}
+
+	ArrayList<ItemStream> streams()
+	{
+		return _streams;
+	}
+
+	void addStream(ItemStream stream)
+	{
+		_streams.add(stream);
+	}
+
+	void removeStream(ItemStream stream)
+	{
+		_streams.remove(stream);
+	}
+}
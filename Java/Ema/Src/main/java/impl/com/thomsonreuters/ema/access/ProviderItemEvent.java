@@ -0,0 +1,26 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+/* The OmmProviderEvent passed with requests and messages received by the interactive provider. */
+class ProviderItemEvent implements OmmProviderEvent
+{
+	long _handle;
+
+	@Override
+	public long handle()
+	{
+		return _handle;
+	}
+
+	@Override
+	public Object closure()
+	{
+		return null;
+	}
+}
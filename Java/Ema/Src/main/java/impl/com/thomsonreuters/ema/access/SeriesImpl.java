@@ -7,7 +7,6 @@
 
 package com.thomsonreuters.ema.access;
 
-import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -410,6 +409,7 @@ class SeriesImpl extends CollectionDataImpl implements Series
 		if (_seriesCollection.isEmpty())
 			throw ommIUExcept().message("Series to be encoded is empty.");
 		
+		acquireEncodeBuffer();
 		int ret = _rsslEncodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer);
 	    if (ret != CodecReturnCodes.SUCCESS)
 	    {
@@ -426,8 +426,7 @@ class SeriesImpl extends CollectionDataImpl implements Series
 	    ret = _rsslSeries.encodeInit(_rsslEncodeIter, 0, 0);
 	    while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 	    {
-	    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-	    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+	    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 	    	ret = _rsslSeries.encodeInit(_rsslEncodeIter, 0, 0);
 	    }
 	    
@@ -455,8 +454,7 @@ class SeriesImpl extends CollectionDataImpl implements Series
 			ret = seriesEntry._rsslSeriesEntry.encode(_rsslEncodeIter) ;
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-			   	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			   	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			   	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			   	ret = seriesEntry._rsslSeriesEntry.encode(_rsslEncodeIter);
 			}
 			 
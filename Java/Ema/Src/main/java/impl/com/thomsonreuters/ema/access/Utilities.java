@@ -302,9 +302,18 @@ class Utilities
 			destByteBuffer.clear();
 
 		ByteBuffer srcByteBuffer = srcBuffer.data();
-		int limit = srcBuffer.position() + srcBuffer.length();	
-		for (int index =  srcBuffer.position(); index < limit; ++index)
-			destByteBuffer.put(srcByteBuffer.get(index));
+		if (srcByteBuffer.hasArray() && destByteBuffer.hasArray())
+		{
+			System.arraycopy(srcByteBuffer.array(), srcByteBuffer.arrayOffset() + srcBuffer.position(),
+					destByteBuffer.array(), destByteBuffer.arrayOffset(), srcBufferlength);
+			destByteBuffer.position(srcBufferlength);
+		}
+		else
+		{
+			int limit = srcBuffer.position() + srcBuffer.length();	
+			for (int index =  srcBuffer.position(); index < limit; ++index)
+				destByteBuffer.put(srcByteBuffer.get(index));
+		}
 		
 		destByteBuffer.flip();
 		
@@ -7,7 +7,6 @@
 
 package com.thomsonreuters.ema.access;
 
-import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -439,6 +438,7 @@ class VectorImpl extends CollectionDataImpl implements Vector
 		if (_vectorCollection.isEmpty())
 			throw ommIUExcept().message("Series to be encoded is empty.");
 		
+		acquireEncodeBuffer();
 		int ret = _rsslEncodeIter.setBufferAndRWFVersion(_rsslBuffer, _rsslMajVer, _rsslMinVer);
 	    if (ret != CodecReturnCodes.SUCCESS)
 	    {
@@ -455,8 +455,7 @@ class VectorImpl extends CollectionDataImpl implements Vector
 		ret = _rsslVector.encodeInit(_rsslEncodeIter, 0, 0);
 	    while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 	    {
-	    	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-	    	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+	    	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 	    	ret = _rsslVector.encodeInit(_rsslEncodeIter, 0, 0);
 	    }
 	    
@@ -484,8 +483,7 @@ class VectorImpl extends CollectionDataImpl implements Vector
 			ret = vectorEntry._rsslVectorEntry.encode(_rsslEncodeIter);
 			while (ret == CodecReturnCodes.BUFFER_TOO_SMALL)
 			{
-			   	_rsslBuffer.data(ByteBuffer.allocate(_rsslBuffer.data().capacity()*2)); 
-			   	_rsslEncodeIter.realignBuffer(_rsslBuffer);
+			   	EncodeBufferPool.growEncodeBuffer(_rsslBuffer, _rsslEncodeIter);
 			   	ret = vectorEntry._rsslVectorEntry.encode(_rsslEncodeIter);
 			}
 
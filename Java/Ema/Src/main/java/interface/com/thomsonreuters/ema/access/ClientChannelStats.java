@@ -0,0 +1,78 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+/**
+ * ClientChannelStats holds the throughput counters of one consumer connection of an<br>
+ * interactive OmmProvider.
+ * 
+ * <p>ClientChannelStats is a snapshot taken by {@link OmmProvider#clientChannelStats(java.util.List)};<br>
+ * its values do not change afterwards. Counters start from zero when the connection is accepted.</p>
+ * 
+ * @see OmmProvider
+ */
+
+public interface ClientChannelStats
+{
+	/**
+	 * Returns a unique identifier of the consumer connection.
+	 * 
+	 * @return client handle
+	 */
+	public long clientHandle();
+
+	/**
+	 * Returns whether the connection is up and logged in.
+	 * 
+	 * @return true if the consumer logged in on the connection
+	 */
+	public boolean loggedIn();
+
+	/**
+	 * Returns the number of item streams the consumer has open.
+	 * 
+	 * @return number of open item streams
+	 */
+	public int itemCount();
+
+	/**
+	 * Returns the number of messages received from the consumer.
+	 * 
+	 * @return number of messages received
+	 */
+	public long messagesReceived();
+
+	/**
+	 * Returns the number of item requests, including reissues, received from the consumer.
+	 * 
+	 * @return number of requests received
+	 */
+	public long requestsReceived();
+
+	/**
+	 * Returns the number of messages written to the consumer.
+	 * 
+	 * @return number of messages sent
+	 */
+	public long messagesSent();
+
+	/**
+	 * Returns the number of bytes written to the consumer.
+	 * 
+	 * @return number of bytes sent
+	 */
+	public long bytesSent();
+
+	/**
+	 * Returns the number of messages that could not be written to the consumer,<br>
+	 * e.g. because the connection ran out of output buffers.
+	 * 
+	 * @return number of messages dropped
+	 */
+	public long messagesDropped();
+}
@@ -189,6 +189,9 @@ public class EmaFactory
 	 */
 	public static OmmProvider createOmmProvider(OmmProviderConfig config)
 	{
+		if (config instanceof OmmIProviderConfig)
+			return new OmmIProviderImpl(config, null, null);
+
 		return new OmmNiProviderImpl(config);
 	}
 	
@@ -202,9 +205,40 @@ public class EmaFactory
 	 */
 	public static OmmProvider createOmmProvider(OmmProviderConfig config, OmmProviderErrorClient client)
 	{
+		if (config instanceof OmmIProviderConfig)
+			return new OmmIProviderImpl(config, null, client);
+
 		return new OmmNiProviderImpl(config, client);
 	}
 	
+	/**
+	 * Creates an interactive {@link com.thomsonreuters.ema.access.OmmProvider}.<br>
+	 * Enables exception throwing as means of error reporting.
+	 * 
+	 * @param config OmmIProviderConfig providing configuration
+	 * @param client OmmIProviderClient receiving the item requests of consumers
+	 * 
+	 * @return {@link com.thomsonreuters.ema.access.OmmProvider}
+	 */
+	public static OmmProvider createOmmProvider(OmmIProviderConfig config, OmmIProviderClient client)
+	{
+		return new OmmIProviderImpl(config, client, null);
+	}
+	
+	/**
+	 * Creates an interactive {@link com.thomsonreuters.ema.access.OmmProvider}.
+	 * 
+	 * @param config OmmIProviderConfig providing configuration
+	 * @param client OmmIProviderClient receiving the item requests of consumers
+	 * @param errorClient OmmProviderErrorClient that provides callback interfaces to be used for error reporting
+	 * 
+	 * @return {@link com.thomsonreuters.ema.access.OmmProvider}
+	 */
+	public static OmmProvider createOmmProvider(OmmIProviderConfig config, OmmIProviderClient client, OmmProviderErrorClient errorClient)
+	{
+		return new OmmIProviderImpl(config, client, errorClient);
+	}
+	
 	/**
 	 * Creates a {@link com.thomsonreuters.ema.access.OmmNiProviderConfig}.
 	 * @return {@link com.thomsonreuters.ema.access.OmmNiProviderConfig}
@@ -214,6 +248,15 @@ public class EmaFactory
 		return new OmmNiProviderConfigImpl();
 	}
 	
+	/**
+	 * Creates a {@link com.thomsonreuters.ema.access.OmmIProviderConfig}.
+	 * @return {@link com.thomsonreuters.ema.access.OmmIProviderConfig}
+	 */
+	public static OmmIProviderConfig createOmmIProviderConfig()
+	{
+		return new OmmIProviderConfigImpl();
+	}
+	
 	/**
 	 * Creates a {@link com.thomsonreuters.ema.access.RmtesBuffer}.
 	 * @return {@link com.thomsonreuters.ema.access.RmtesBuffer}
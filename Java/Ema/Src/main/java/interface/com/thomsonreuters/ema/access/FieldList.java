@@ -45,6 +45,16 @@ import java.util.Collection;
  * }
  * </pre>
  * 
+ * The following code snippet shows extracting a few fields by field id, without
+ * decoding the other entries of a received FieldList.
+ * <pre>
+ * if (fieldList.hasFieldId(22))
+ * {
+ *    double bid = fieldList.fieldEntry(22).real().asDouble();
+ *    ...
+ * }
+ * </pre>
+ * 
  * Objects of this class are intended to be short lived or rather transitional.<br>
  * This class is designed to efficiently perform setting and extracting of FieldList and its content.<br>
  * Objects of this class are not cache-able.
@@ -115,4 +125,28 @@ public interface FieldList extends ComplexType, Collection<FieldEntry>
 	 * @return reference to this object
 	 */
 	public FieldList info(int dictionaryId, int fieldListNum);
+
+	/**
+	 * Indicates presence of an entry with the specified field id.<br>
+	 * On a received FieldList, the first call builds a small index of the field ids
+	 * in the encoded content without decoding any entry payload.
+	 * 
+	 * @param fieldId field id to look for
+	 * @return true if the FieldList contains an entry with this field id; false otherwise
+	 */
+	public boolean hasFieldId(int fieldId);
+
+	/**
+	 * Returns the entry with the specified field id.<br>
+	 * On a received FieldList, only this entry's payload is decoded; the other entries
+	 * are not materialized. If several entries have the same field id, the first one is returned.<br>
+	 * The returned entry is valid until the FieldList is cleared or decodes new content.
+	 * 
+	 * @throws OmmInvalidUsageException
+	 *             if hasFieldId(fieldId) returns false
+	 * 
+	 * @param fieldId field id of the entry
+	 * @return FieldEntry with this field id
+	 */
+	public FieldEntry fieldEntry(int fieldId);
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+/**
+ * OmmIProviderClient interface provides callback methods to pass item requests<br>
+ * received by an interactive OmmProvider.
+ * 
+ * <p>Login and source directory requests are handled by OmmProvider. All other requests<br>
+ * are passed to {@link #onReqMsg(ReqMsg, OmmProviderEvent)}.</p>
+ * 
+ * <p>Requests of any consumers for the same item share one item stream, identified by<br>
+ * the handle of the OmmProviderEvent. Messages submitted on the handle are encoded once<br>
+ * and written to every consumer that requested the item:</p>
+ * <ul>
+ * <li>a solicited RefreshMsg is sent only to the requests still waiting for a refresh</li>
+ * <li>UpdateMsg, StatusMsg, GenericMsg and unsolicited RefreshMsg are sent to all requests
+ * that received a refresh</li>
+ * <li>a StatusMsg closing the stream is sent to all requests</li>
+ * </ul>
+ * 
+ * <p>Private stream requests are not shared with other requests.</p>
+ * 
+ * <p>Thread safety of all OmmIProviderClient methods depends on the user's implementation.</p>
+ * 
+ * The following code snippet shows basic usage of OmmIProviderClient class to answer<br>
+ * item requests.
+ * 
+ * <pre>
+ * class AppClient implements OmmIProviderClient
+ * {
+ *    public void onReqMsg(ReqMsg reqMsg, OmmProviderEvent event)
+ *    {
+ *       _provider.submit(EmaFactory.createRefreshMsg().name(reqMsg.name()).serviceId(reqMsg.serviceId())
+ *          .state(OmmState.StreamState.OPEN, OmmState.DataState.OK, OmmState.StatusCode.NONE, "Refresh Completed")
+ *          .solicited(true).payload(fieldList).complete(true), event.handle());
+ *    }
+ * 
+ *    public void onClose(ReqMsg reqMsg, OmmProviderEvent event) {}
+ *    public void onRefreshMsg(RefreshMsg refreshMsg, OmmProviderEvent event) {}
+ *    public void onStatusMsg(StatusMsg statusMsg, OmmProviderEvent event) {}
+ *    public void onGenericMsg(GenericMsg genericMsg, OmmProviderEvent event) {}
+ *    public void onAllMsg(Msg msg, OmmProviderEvent event) {}
+ * }
+ * </pre>
+ * 
+ * @see OmmProvider
+ * @see OmmProviderClient
+ * @see OmmIProviderConfig
+ */
+
+public interface OmmIProviderClient extends OmmProviderClient
+{
+	/**
+	 * This callback is invoked upon receiving an item request, or a reissue<br>
+	 * of an item request asking for a new refresh.
+	 * 
+	 * @param reqMsg received ReqMsg
+	 * @param providerEvent identifies the item stream of the request
+	 */
+	public void onReqMsg(ReqMsg reqMsg, OmmProviderEvent providerEvent);
+
+	/**
+	 * This callback is invoked once the last request of an item stream is closed,<br>
+	 * either by the consumers or because the refresh of a snapshot request completed.<br>
+	 * No further messages need to be submitted on the handle.
+	 * 
+	 * @param reqMsg the ReqMsg that opened the item stream
+	 * @param providerEvent identifies the closed item stream
+	 */
+	public void onClose(ReqMsg reqMsg, OmmProviderEvent providerEvent);
+}
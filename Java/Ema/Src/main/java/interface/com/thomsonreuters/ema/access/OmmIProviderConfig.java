@@ -0,0 +1,84 @@
+///*|-----------------------------------------------------------------------------
+// *|            This source code is provided under the Apache 2.0 license      --
+// *|  and is provided AS IS with no warranty or guarantee of fit for purpose.  --
+// *|                See the project's LICENSE.md for details.                  --
+// *|           Copyright Thomson Reuters 2016. All rights reserved.            --
+///*|-----------------------------------------------------------------------------
+
+package com.thomsonreuters.ema.access;
+
+/**
+ * OmmIProviderConfig is used to modify configuration and behavior of OmmProvider<br>
+ * for interactive application.
+ * 
+ * <p>OmmIProviderConfig provides a default basic OmmProvider configuration.<br>
+ * By default the interactive OmmProvider listens on port 14002 and publishes a single<br>
+ * service named DIRECT_FEED with service id 1.</p>
+ * 
+ * <p>Calling any interface methods of OmmIProviderConfig class overrides the existing<br>
+ * configuration.</p>
+ * 
+ * @see OmmProvider
+ * @see OmmProviderConfig
+ * @see OmmIProviderClient
+ */
+
+public interface OmmIProviderConfig extends OmmProviderConfig
+{
+	
+	public static class OperationModel
+	{
+		/**
+		 * specifies callbacks happen on user thread of control
+		 */
+		public static final int USER_DISPATCH = 0;
+		
+		/**
+		 * specifies callbacks happen on API thread of control
+		 */
+		public static final int API_DISPATCH = 1;
+	}
+	
+	/**
+	 * Clears the OmmIProviderConfig and sets all the defaults.
+	 * Invoking clear() method clears all the values and resets all the defaults.
+	 * 
+	 * @return reference to this object
+	 */
+	public OmmIProviderConfig clear();
+
+	/**
+	 * Specifies the port on which OmmProvider listens for consumer connections.
+	 * Overrides prior value. Implies usage of TCP IP channel or RSSL connection type socket.
+	 * 
+	 * @param port specifies the port number or service name to listen on
+	 * @return reference to this object
+	 */
+	public OmmIProviderConfig port(String port);
+
+	/**
+	 * Specifies the operation model, overriding the default<br>
+	 * The operation model specifies whether to dispatch messages
+	 * in the user or application thread of control.
+	 * 
+	 * @param operationModel specifies threading and dispatching model used by application
+	 * @return reference to this object
+	 */
+	public OmmIProviderConfig operationModel(int operationModel);
+
+	/**
+	 * Specifies the name of the service published in the source directory.
+	 * 
+	 * @param serviceName specifies the service name
+	 * @return reference to this object
+	 */
+	public OmmIProviderConfig serviceName(String serviceName);
+
+	/**
+	 * Specifies the id of the service published in the source directory.
+	 * 
+	 * @param serviceId specifies the service id
+	 * @return reference to this object
+	 */
+	public OmmIProviderConfig serviceId(int serviceId);
+}
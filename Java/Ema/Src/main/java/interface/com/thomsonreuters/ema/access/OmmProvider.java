@@ -7,6 +7,8 @@
 
 package com.thomsonreuters.ema.access;
 
+import java.util.List;
+
 /**
  * OmmProvider class encapsulates functionality of an OmmProvider application.
  * 
@@ -14,7 +16,11 @@ package com.thomsonreuters.ema.access;
  * It establishes and maintains connection to ADH.
  * 
  * <p>OmmProvider provides a default behavior / functionality.<br>
- * This may be tuned / modified by application when using OmmNiProviderConfig for non-interactive provider.</p>
+ * This may be tuned / modified by application when using OmmNiProviderConfig for non-interactive provider,
+ * or OmmIProviderConfig for interactive provider.</p>
+ * 
+ * <p>An interactive OmmProvider accepts consumer connections and passes their item requests<br>
+ * to an OmmIProviderClient (see {@link com.thomsonreuters.ema.access.EmaFactory#createOmmProvider(OmmIProviderConfig, OmmIProviderClient)}).</p>
  * 
  * <p>Application interacts with ADH through the OmmProvider interface methods.<br>
  * The results of these interactions are communicated back to application through
@@ -76,6 +82,8 @@ package com.thomsonreuters.ema.access;
  * </pre>
  * 
  * @see OmmNiProviderConfig
+ * @see OmmIProviderConfig
+ * @see OmmIProviderClient
  * @see OmmProviderClient
  * @see OmmProviderErrorClient
  * @see	EmaFactory
@@ -220,6 +228,16 @@ public interface OmmProvider
 	*/
 	public void unregister(long handle);
 	
+	/**
+	 * Retrieves the throughput counters of the consumer connections of an interactive OmmProvider.
+	 * <p> This method is ObjectLevelSafe.</p>
+	 * 
+	 * @throws OmmInvalidUsageException if this is a non-interactive OmmProvider
+	 * 
+	 * @param statsList cleared and then populated with one entry for each connected consumer
+	 */
+	public void clientChannelStats(List<ClientChannelStats> statsList);
+	
 	/**
 	 * Uninitializes the OmmProvider object.
 	 * <p> This method is ObjectLevelSafe.</p>
@@ -9,7 +9,6 @@ import com.thomsonreuters.upa.codec.Buffer;
 import com.thomsonreuters.upa.codec.Codec;
 import com.thomsonreuters.upa.codec.CodecFactory;
 import com.thomsonreuters.upa.codec.CodecReturnCodes;
-import com.thomsonreuters.upa.codec.CopyMsgFlags;
 import com.thomsonreuters.upa.codec.DataDictionary;
 import com.thomsonreuters.upa.codec.DecodeIterator;
 import com.thomsonreuters.upa.codec.GlobalFieldSetDefDb;
@@ -23,14 +22,35 @@ import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.RealTimeSession;
 import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.SnapshotSession;
 import com.thomsonreuters.upa.rdm.DomainTypes;
 import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.valueadd.common.SeqMcastRecovery;
+import com.thomsonreuters.upa.valueadd.common.SeqMcastRecoveryListener;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.Service;
 
-/** Watchlist used by the EDFConsumer application. */
-public class EDFWatchList
+/**
+ * Watchlist used by the EDFConsumer application. Realtime and gap fill
+ * messages are sequenced by a {@link SeqMcastRecovery}, which delivers them
+ * in order and reports gaps as soon as they are detected.
+ */
+public class EDFWatchList implements SeqMcastRecoveryListener
 {
     private List<Item> watchlist = new ArrayList<Item>();
     private Service serviceInfo;
     
+    private SeqMcastRecovery recovery = new SeqMcastRecovery(this);
+    private List<Item> items = new ArrayList<Item>();   /* Indexed by recovery handle */
+    private List<GapRequest> pendingGapRequests = new ArrayList<GapRequest>();
+    private List<GapRequest> sentGapRequests = new ArrayList<GapRequest>();
+    private int lastGapChannel = -1;
+    
+    /* Decodes buffered messages as they are replayed */
+    private Msg replayMsg = CodecFactory.createMsg();
+    private DecodeIterator replayIter = CodecFactory.createDecodeIterator();
+    
+    /* The realtime message being processed, so that it is not labeled a replay */
+    private StringBuilder currentOutputString;
+    private int currentChannel;
+    private long currentSeqNum;
+    
     private MarketPriceHandler marketPriceHandler = new MarketPriceHandler();
     private MarketByOrderHandler marketByOrderHandler = new MarketByOrderHandler();
     private MarketByPriceHandler marketByPriceHandler = new MarketByPriceHandler();
@@ -149,62 +169,19 @@ public class EDFWatchList
     public int processMsg(Msg msg, DecodeIterator dIter, SnapshotSession snapSession)
     {
         Item foundItem = null;
-        Msg queueMsg;
         long msgSeqNum;
         
         StringBuilder outputString = new StringBuilder();
 
         if((foundItem = getItemSnapshotId(msg.streamId())) != null)
         {
-            
             msgSeqNum = foundItem.msgGetSeqNum(msg);
             
-           outputString.append("SEQ. NO: " + msgSeqNum + "\n");
+            outputString.append("SEQ. NO: " + msgSeqNum + "\n");
 
             if(foundItem.getSequenceState() == ItemSequenceState.REQUEST_SENT)
             {
-                /* Pop off messages up until the current sequence number */
-                while(foundItem.msgQueuePop(MsgQueuePopCommand.UP_TO, msgSeqNum) != null)
-                {
-                    continue;
-                }
-                
-                foundItem.sequenceState = ItemSequenceState.HAVE_SNAPSHOT;
-                foundItem.setSeqNum(msgSeqNum);
-            }
-            else
-            {
-                if(foundItem.hasBufferedSnapshotMsgs() == true)
-                {
-                    foundItem.msgQueueAdd(msg);
-                    return CodecReturnCodes.SUCCESS;
-                }
-                
-                /* We're not buffering refreshes, so replay all messages up to this point */
-                while((queueMsg = foundItem.msgQueuePop(MsgQueuePopCommand.UP_TO, msgSeqNum)) != null)
-                {
-                    
-                    foundItem.setSeqNum(foundItem.msgGetSeqNum(queueMsg));
-                    if(decodeItemMsgData(foundItem, dIter, queueMsg, outputString) != CodecReturnCodes.SUCCESS)
-                    {
-                        return CodecReturnCodes.FAILURE;
-                    }
-                }
-                
-                if(foundItem.getSequenceState() == ItemSequenceState.HAVE_SNAPSHOT && 
-                    foundItem.seqNumCompare(msgSeqNum, foundItem.getSeqNum()) > 0)
-                {
-                    foundItem.setSeqNum(foundItem.getNextSeqNum(foundItem.getSeqNum()));
-                    foundItem.setSequenceState(ItemSequenceState.REALTIME_STARTED);
-                }
-                
-                if(foundItem.getSequenceState() == ItemSequenceState.REALTIME_STARTED &&
-                    foundItem.seqNumCompare(foundItem.getSeqNum(), foundItem.getNextSeqNum(msgSeqNum)) < 0)
-                {
-                    foundItem.setHasBufferedSnapshotMsgs(true);
-                    foundItem.msgQueueAdd(msg);
-                    return CodecReturnCodes.SUCCESS;
-                }
+                foundItem.setSequenceState(ItemSequenceState.HAVE_SNAPSHOT);
             }
             
             if(decodeItemMsgData(foundItem, dIter, msg, outputString) != CodecReturnCodes.SUCCESS)
@@ -212,25 +189,13 @@ public class EDFWatchList
                 return CodecReturnCodes.FAILURE;
             }
             
-            if(((RefreshMsg)msg).checkRefreshComplete() == true)
-            {                
-                while((queueMsg = foundItem.msgQueuePop(MsgQueuePopCommand.ALL, foundItem.msgGetSeqNum(msg))) != null)
-                {
-                    foundItem.setSeqNum(foundItem.msgGetSeqNum(queueMsg));
-                    
-                    outputString.append("  (Replaying buffered message)" + "\n");
-                   
-                    if(decodeItemMsgData(foundItem, dIter, queueMsg, outputString) != CodecReturnCodes.SUCCESS)
-                    {
-                        return CodecReturnCodes.FAILURE;
-                    }
-                    
-                    if(foundItem.seqNumCompare(foundItem.getSeqNum(), foundItem.msgGetSeqNum(msg)) >= 0)
-                    {
-                        foundItem.setSequenceState(ItemSequenceState.DONE_REORDERING);
-                    }
-                }
+            if(msg.msgClass() == MsgClasses.REFRESH && ((RefreshMsg)msg).checkRefreshComplete() == true)
+            {
                 foundItem.setHasRefreshComplete(true);
+                foundItem.setSequenceState(ItemSequenceState.DONE_REORDERING);
+                
+                /* Replay the realtime messages buffered while the image was received */
+                recovery.snapshotComplete(foundItem.getRecoveryHandle(), msgSeqNum);
             }
             
             return CodecReturnCodes.SUCCESS;
@@ -243,145 +208,146 @@ public class EDFWatchList
 
     }
     
-    public int processMsg(ChannelSession chnl, Msg msg, DecodeIterator dIter, RealTimeSession realTimeSession, StringBuilder outputString)
+    /**
+     * Passes a message from a realtime channel to the recovery engine, which
+     * delivers it in sequence once its item is synchronized with its snapshot.
+     * Every message of the channel is passed, so that gaps can be detected.
+     */
+    public int processMsg(ChannelSession chnl, int channel, long seqNum, Msg msg, DecodeIterator dIter, RealTimeSession realTimeSession, StringBuilder outputString)
     {
-        Item foundItem = null;
-        Msg queueMsg;
-        long msgSeqNum;
+        Item foundItem = getItem(msg.streamId());
         
-        if((foundItem = getItem(msg.streamId())) != null)
-        {
-            ((EDFChannelSession)chnl).channelInfo().gapInfo().address = serviceInfo.seqMcastInfo().streamingMCastChanServerList().get(foundItem.getGapChannelId());
-            ((EDFChannelSession)chnl).channelInfo().gapInfo().port = serviceInfo.seqMcastInfo().streamingMCastChanPortList().get(foundItem.getGapChannelId());
-            msgSeqNum = foundItem.msgGetSeqNum(msg);
-            outputString.append("Item: " + foundItem.getName().toString() + "  StreamId: " + foundItem.getRealTimeStreamId() + " Seq: " + msgSeqNum + " ");
-            switch(foundItem.getSequenceState())
-            {
-                case ItemSequenceState.REQUEST_SENT:
-                {
-                    foundItem.msgQueueAdd(msg);
-                    return CodecReturnCodes.SUCCESS;
-                }
-                case ItemSequenceState.HAVE_SNAPSHOT:
-                {
-                    if(foundItem.seqNumCompare(foundItem.msgGetSeqNum(msg), foundItem.getSeqNum()) <= 0)
-                    {
-                        /* Discard this message, because we've already gotten a refresh containing this message's data */
-                        return CodecReturnCodes.SUCCESS;
-                    }
-                    
-                    if(foundItem.isHasRefreshComplete())
-                    {
-                        /* Realtime data has caught up to the snapshot server.  Process this update, and we're now done reordering the streams */
-                        foundItem.setSequenceState(ItemSequenceState.DONE_REORDERING);
-                        return decodeItemMsgData(foundItem, dIter, msg, outputString);
-                    }
-                    else
-                    {
-                        /* We have not received the final part of a multi-part refresh, so queue this message */
-                        foundItem.msgQueueAdd(msg);
-                        return CodecReturnCodes.SUCCESS;
-                    }
-                }
-                case ItemSequenceState.REALTIME_STARTED:
-                {
-                    if(foundItem.seqNumCompare(foundItem.msgGetSeqNum(msg), foundItem.getSeqNum()) <= 0)
-                    {
-                        /* Discard this message, because we've already gotten a refresh containing this message's data */
-                        return CodecReturnCodes.SUCCESS;
-                    }
-                    
-                    if(foundItem.hasBufferedSnapshotMsgs() == true)
-                    {
-                        while((queueMsg = foundItem.msgQueuePop(MsgQueuePopCommand.BEFORE, msgSeqNum)) != null)
-                        {
-                            if(queueMsg.msgClass() == MsgClasses.REFRESH && ((RefreshMsg)queueMsg).checkRefreshComplete() == true)
-                            {
-                                foundItem.setHasRefreshComplete(true);
-                            }
-                            
-                            outputString.append("  (Replaying buffered message)" + "\n");
-                            
-                            if(decodeItemMsgData(foundItem, dIter, queueMsg, outputString) != CodecReturnCodes.SUCCESS)
-                            {
-                                return CodecReturnCodes.FAILURE;
-                            }
-                        }
-                        
-                        if(foundItem.hasQueuedMsgs() == true)
-                        {
-                            if(decodeItemMsgData(foundItem, dIter, msg, outputString) != CodecReturnCodes.SUCCESS)
-                            {
-                                return CodecReturnCodes.FAILURE;
-                            }
-                            
-                            while((queueMsg = foundItem.msgQueuePop(MsgQueuePopCommand.BEFORE, msgSeqNum)) != null)
-                            {
-                                if(queueMsg.msgClass() == MsgClasses.REFRESH && ((RefreshMsg)queueMsg).checkRefreshComplete() == true)
-                                {
-                                    foundItem.setHasRefreshComplete(true);
-                                }
-                                
-                                outputString.append("  (Replaying buffered message)" + "\n");
-                                
-                                if(decodeItemMsgData(foundItem, dIter, queueMsg, outputString) != CodecReturnCodes.SUCCESS)
-                                {
-                                    return CodecReturnCodes.FAILURE;
-                                }
-                            }
-                            
-                            if(foundItem.hasQueuedMsgs() == false)
-                            {
-                                foundItem.setHasBufferedSnapshotMsgs(false);
-                            }
-                            
-                            if(foundItem.isHasRefreshComplete() == true)
-                            {
-                                foundItem.setSequenceState(ItemSequenceState.DONE_REORDERING);
-                                
-                                while((queueMsg = foundItem.msgQueuePop(MsgQueuePopCommand.ALL, msgSeqNum)) != null)
-                                {
-                                    outputString.append("  (Replaying buffered message)" + "\n");
-                                    
-                                    if(decodeItemMsgData(foundItem, dIter, queueMsg, outputString) != CodecReturnCodes.SUCCESS)
-                                    {
-                                        return CodecReturnCodes.FAILURE;
-                                    }
-                                }
-                            }
-                            
-                        }
-                        
-                    }
-                }
-                case ItemSequenceState.DONE_REORDERING:
-                  decodeItemMsgData(foundItem, dIter, msg, outputString);
-                case ItemSequenceState.UNINITIALIZED:
-                   return CodecReturnCodes.SUCCESS;
-            }
-            
+        currentOutputString = outputString;
+        currentChannel = channel;
+        currentSeqNum = seqNum;
+        recovery.realtime(channel, seqNum, foundItem != null ? foundItem.getRecoveryHandle() : -1, msg.encodedMsgBuffer());
+        currentOutputString = null;
+        
+        return CodecReturnCodes.SUCCESS;
+    }
+    
+    /**
+     * Passes a message from a gap fill channel to the recovery engine. The
+     * message is missing from the realtime channel of its item, or else from
+     * the channel of the most recent gap request.
+     */
+    public int processMsg(Msg msg, DecodeIterator dIter, GapFillSession gapSession, StringBuilder outputString)
+    {
+        Item foundItem = getItem(msg.streamId());
+        int item = foundItem != null ? foundItem.getRecoveryHandle() : -1;
+        int channel = item >= 0 ? recovery.itemChannel(item) : -1;
+        
+        if (channel < 0)
+            channel = lastGapChannel;
+        if (channel < 0)
             return CodecReturnCodes.SUCCESS;
+        
+        recovery.gapFill(channel, msgSeqNum(msg), item, msg.encodedMsgBuffer());
+        
+        return CodecReturnCodes.SUCCESS;
+    }
+    
+    @Override
+    public void onMessage(int item, long seqNum, Buffer msgBuffer)
+    {
+        Item foundItem = items.get(item);
+        
+        replayIter.clear();
+        replayIter.setBufferAndRWFVersion(msgBuffer, Codec.majorVersion(), Codec.minorVersion());
+        if (replayMsg.decode(replayIter) != CodecReturnCodes.SUCCESS)
+        {
+            System.out.println("DecodeMsg() failed for buffered message of item " + foundItem.getName().toString());
+            return;
+        }
+        
+        StringBuilder outputString;
+        if (currentOutputString != null && seqNum == currentSeqNum && recovery.itemChannel(item) == currentChannel)
+        {
+            outputString = currentOutputString;
         }
         else
         {
-            /* Item is not in our watchlist, so just return success */
-            return CodecReturnCodes.SUCCESS;
+            outputString = new StringBuilder("\n<Realtime Channel " + recovery.itemChannel(item) + "> SEQ NO: " + seqNum + " (replayed) ");
         }
+        
+        decodeItemMsgData(foundItem, replayIter, replayMsg, outputString);
     }
     
-    public int processMsg(Msg msg, DecodeIterator dIter, GapFillSession gapSession, StringBuilder outputString)
+    @Override
+    public void onGapDetected(int channel, long startSeqNum, long endSeqNum)
     {
-        Item foundItem;
+        System.out.println("<Realtime Channel " + channel + "> Gap detected, SEQ.NO. Start-End: " + startSeqNum + "-" + endSeqNum);
+        
+        GapRequest request = new GapRequest();
+        request.channel = channel;
+        request.start = startSeqNum;
+        request.end = endSeqNum;
+        pendingGapRequests.add(request);
+        lastGapChannel = channel;
+    }
+    
+    @Override
+    public void onChannelReset(int channel, long seqNum)
+    {
+        System.out.println("<Realtime Channel " + channel + "> Sequence reset to SEQ.NO. " + seqNum + ", buffered messages lost");
         
-        if((foundItem = getItem(msg.streamId())) != null)
-        {   
-            if(decodeItemMsgData(foundItem, dIter, msg, outputString) != CodecReturnCodes.SUCCESS)
+        // the gaps of the channel can no longer be filled
+        removeGapRequests(pendingGapRequests, channel);
+        removeGapRequests(sentGapRequests, channel);
+    }
+    
+    private static void removeGapRequests(List<GapRequest> requests, int channel)
+    {
+        ListIterator<GapRequest> iter = requests.listIterator();
+        while (iter.hasNext())
+        {
+            if (iter.next().channel == channel)
+                iter.remove();
+        }
+    }
+    
+    /**
+     * Returns the next gap to request from the gap request server, or null.
+     * The request is then considered sent at the given time.
+     */
+    public GapRequest nextGapRequest(long currentTime)
+    {
+        if (pendingGapRequests.isEmpty())
+            return null;
+        
+        GapRequest request = pendingGapRequests.remove(0);
+        request.sentTime = currentTime;
+        sentGapRequests.add(request);
+        return request;
+    }
+    
+    /**
+     * Gives up on the gaps that have not been filled within the timeout, so
+     * that their channels continue with the messages buffered after them.
+     */
+    public void expireGapRequests(long currentTime, long timeout)
+    {
+        ListIterator<GapRequest> iter = sentGapRequests.listIterator();
+        while (iter.hasNext())
+        {
+            GapRequest request = iter.next();
+            if (recovery.channelState(request.channel) != SeqMcastRecovery.CHANNEL_RECOVERING)
             {
-                return CodecReturnCodes.FAILURE;
+                iter.remove();
+            }
+            else if (currentTime - request.sentTime >= timeout)
+            {
+                int skipped = recovery.skipGap(request.channel);
+                System.out.println("<Realtime Channel " + request.channel + "> Gap fill timed out, " + skipped + " messages lost");
+                iter.remove();
             }
         }
-        
-        return CodecReturnCodes.SUCCESS;
+    }
+    
+    /** Adds a realtime channel, returning its index in the recovery engine. */
+    public int addRealTimeChannel()
+    {
+        return recovery.addChannel();
     }
     
     public int addItem(int realTimeStreamId, Buffer symbolName, int domainType, int serviceId, int gapFillFeedId, int realTimeFeedId)
@@ -398,6 +364,8 @@ public class EDFWatchList
         
         Item newItem = new Item(symbolName, realTimeStreamId, domainType, serviceId);
         newItem.setSnapshotServerStreamId(realTimeFeedId);
+        newItem.recoveryHandle = recovery.addItem();
+        items.add(newItem);
         iter.add(newItem);
             
         return CodecReturnCodes.SUCCESS;
@@ -416,6 +384,8 @@ public class EDFWatchList
         }
         
         Item newItem = new Item(item);
+        newItem.recoveryHandle = recovery.addItem();
+        items.add(newItem);
         
         iter.add(newItem);
             
@@ -469,6 +439,21 @@ public class EDFWatchList
         return CodecReturnCodes.SUCCESS;
     }
     
+    private long msgSeqNum(Msg msg)
+    {
+        if(msg.msgClass() == MsgClasses.REFRESH && ((RefreshMsg)msg).checkHasSeqNum() == true)
+        {
+            return ((RefreshMsg)msg).seqNum();
+        }
+        
+        if(msg.msgClass() == MsgClasses.UPDATE && ((UpdateMsg)msg).checkHasSeqNum() == true)
+        {
+            return ((UpdateMsg)msg).seqNum();
+        }
+        
+        return 0;
+    }
+    
     private int decodeItemMsgData(Item item, DecodeIterator dIter,  Msg msg, StringBuilder outputString)
     {
         dIter.clear();
@@ -503,11 +488,13 @@ public class EDFWatchList
                                                 * more reordering is needed. */
     }
     
-    private class MsgQueuePopCommand
+    /** A gap of a realtime channel to request from the gap request server. */
+    public class GapRequest
     {
-        static final int BEFORE = 0;
-        static final int UP_TO = 1;
-        static final int ALL = 2;
+        public int channel;
+        public long start;
+        public long end;
+        public long sentTime;
     }
     
     public class Item
@@ -523,10 +510,7 @@ public class EDFWatchList
         private int realTimeChannelId;
         private int gapChannelId;
         private int serviceId;
-        
-        
-        
-        private List<Msg> msgQueue = new ArrayList<Msg>();
+        private int recoveryHandle;
         
         public Item()
         {
@@ -540,8 +524,7 @@ public class EDFWatchList
             name = null;
             realTimeChannelId = 0;
             gapChannelId = 0;
-            
-            msgQueue.clear();
+            recoveryHandle = -1;
         }
         
         Item(Buffer symbolName, int feedStreamId, int domainType, int serviceId)
@@ -559,7 +542,7 @@ public class EDFWatchList
             symbolName.copy(name);
             realTimeChannelId = 0;
             gapChannelId = 0;
-            msgQueue.clear();
+            recoveryHandle = -1;
         }
         
         Item(Item item)
@@ -577,40 +560,9 @@ public class EDFWatchList
             item.getName().copy(this.name);
             this.realTimeChannelId = item.getRealTimeChannelId();
             this.gapChannelId = item.getGapChannelId();
-            this.msgQueue.clear();
+            this.recoveryHandle = -1;
         }
         
-        public void msgQueueAdd(Msg msg)
-        {
-            Msg newMsg = CodecFactory.createMsg();
-            msg.copy(newMsg, CopyMsgFlags.ALL_FLAGS);
-                        
-            msgQueue.add(newMsg);
-        }
-        
-        public Msg msgQueuePop(int command, long seqNum)
-        {
-            if(msgQueue.size() > 0)
-            {
-                Msg tmp = msgQueue.get(0);
-                switch(command)
-                {
-                    case(MsgQueuePopCommand.BEFORE):
-                        if(msgGetSeqNum(tmp) - seqNum >= 0)
-                            return msgQueue.remove(0);
-                        break;
-                    case(MsgQueuePopCommand.UP_TO):
-                        if(msgGetSeqNum(tmp) - seqNum > 0)
-                            return msgQueue.remove(0);
-                        break;
-                    case(MsgQueuePopCommand.ALL):
-                        return msgQueue.remove(0);
-                }
-            }
-
-            return null;
-        }
-
         public int getDomainType()
         {
             return domainType;
@@ -711,9 +663,9 @@ public class EDFWatchList
             this.serviceId = serviceId;
         }
         
-        public boolean hasQueuedMsgs()
+        public int getRecoveryHandle()
         {
-            return msgQueue.size() > 0;
+            return recoveryHandle;
         }
         
 
@@ -4,13 +4,15 @@ import com.thomsonreuters.upa.codec.CodecReturnCodes;
 import com.thomsonreuters.upa.examples.common.CommandLine;
 import com.thomsonreuters.upa.examples.common.PingHandler;
 import com.thomsonreuters.upa.examples.edfexamples.common.EDFChannelSession;
-import com.thomsonreuters.upa.examples.edfexamples.common.EDFChannelSession.ChannelInfo;
+import com.thomsonreuters.upa.examples.edfexamples.common.EDFChannelSession.GapInfo;
 import com.thomsonreuters.upa.examples.edfexamples.common.EDFWatchList;
+import com.thomsonreuters.upa.examples.edfexamples.common.EDFWatchList.GapRequest;
 import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.GapFillSession.GapFillSessionState;
 import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.GapRequestSession.GapRequestSessionState;
 import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.RealTimeSession.RealTimeSessionState;
 import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.RefDataSession.RefDataSessionState;
 import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.SnapshotSession.SnapshotSessionState;
+import com.thomsonreuters.upa.transport.ConnectOptions;
 import com.thomsonreuters.upa.transport.Error;
 import com.thomsonreuters.upa.transport.TransportFactory;
 
@@ -119,11 +121,8 @@ public class EDFConsumer
     // RefDataSession run-time in seconds
     static final int defaultRuntime = 600;
     
-    /* Time in seconds it takes before gap request session sends a forced gap request */
-    private long gapRequestTimer = 5;
-    
-    /* When gap request session timer starts counting from */
-    private long gapRequestTimerStart;
+    /* Time in seconds to wait for a gap to be filled before skipping it */
+    private long gapFillTimeout = 5;
     
     private static Error error;
 
@@ -272,35 +271,28 @@ public class EDFConsumer
             {
                 gapRequestSession.init(args, refDataSession);
                 channelSession.addAndRegisterChannelInfo(gapRequestSession.channelSession().channelInfo());
-                gapRequestTimerStart = System.currentTimeMillis() + gapRequestTimer * 1000;
             }
             
-            if (   ( (  snapshotSession.state == SnapshotSessionState.SNAPSHOT_STATE_FINISHED &&
-                    gapRequestSession.state == GapRequestSessionState.GAPREQUEST_STATE_FINISHED) &&
-                    (System.currentTimeMillis() >= gapRequestTimerStart ||
-                    realTimeSession.gapDetected() ) ) )
+            if (snapshotSession.state == SnapshotSessionState.SNAPSHOT_STATE_FINISHED &&
+                    gapRequestSession.state == GapRequestSessionState.GAPREQUEST_STATE_FINISHED)
             {
-                // Make sure our request came from the RealTimeServer
-                
-                for (ChannelInfo chanInfo : channelSession.channels())
+                // Request each gap as soon as the watchlist detects it
+                long currentTime = System.currentTimeMillis();
+                GapRequest gapRequest;
+                while ((gapRequest = watchlist.nextGapRequest(currentTime)) != null)
                 {
-                    if (chanInfo.connectOptions().unifiedNetworkInfo().address() == channelSession.channelInfo().connectOptions().unifiedNetworkInfo().address() &&
-                             chanInfo.connectOptions().unifiedNetworkInfo().serviceName() == channelSession.channelInfo().connectOptions().unifiedNetworkInfo().serviceName())
-                    {
-                        if (chanInfo.callback().getClass() == realTimeSession.getClass() || !realTimeSession.gapDetected())
-                        {
-                            
-                            gapRequestSession.sendRequests(gapRequestSession.channelSession(), channelSession, realTimeSession.gapDetected());
-                            
-                            realTimeSession.gapDetected(false);
-                        
-                            gapRequestTimerStart = System.currentTimeMillis() + gapRequestTimer * 1000;
-                        }
-                        
-                        break;
-                    }
+                    ConnectOptions copts = realTimeSession.channelSessions().get(gapRequest.channel).getConnectOptions();
+                    GapInfo gapInfo = gapRequestSession.channelSession().channelInfo().gapInfo();
+                    
+                    gapInfo.address.data(copts.unifiedNetworkInfo().address());
+                    gapInfo.port = Integer.valueOf(copts.unifiedNetworkInfo().serviceName());
+                    gapInfo.start = gapRequest.start;
+                    gapInfo.end = gapRequest.end;
+                    
+                    gapRequestSession.sendRequest(gapRequestSession.channelSession(), gapInfo);
                 }
-
+                
+                watchlist.expireGapRequests(currentTime, gapFillTimeout * 1000);
             }
         } while (System.currentTimeMillis() <= runtime);
         
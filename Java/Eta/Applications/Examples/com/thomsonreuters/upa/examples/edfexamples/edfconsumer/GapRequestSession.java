@@ -394,44 +394,14 @@ public class GapRequestSession implements ResponseCallback
 
     }
     
-    public  int sendRequests(ChannelSession tcpChnl, EDFChannelSession EDFChannel, boolean isRealGapDetected)
+    /**
+     * Requests the messages of a gap in a realtime channel from the gap
+     * request server; the gap fill server then sends them on the gap fill
+     * channel.
+     */
+    public  int sendRequest(ChannelSession tcpChnl, GapInfo currGapInfo)
     {
         int ret = 0;
-        GapInfo currGapInfo = EDFChannel.channelInfo().gapInfo();
-        
-        
-        if (!isRealGapDetected) // Not a real gap, for demonstration purposes use the first real time session only
-        {
-            for (EDFChannelSession.ChannelInfo chanInfo : EDFChannel.channels())
-            {
-                if (chanInfo.callback().getClass() == RealTimeSession.class)
-                {
-                        chanInfo.gapInfo().address.copy(currGapInfo.address);
-                        currGapInfo.port = chanInfo.gapInfo().port;
-                        currGapInfo.start = chanInfo.gapInfo().start;
-                        currGapInfo.end = chanInfo.gapInfo().start;
-    
-                        break;
-                }
-            }
-        }
-        else // Real gap detected
-        {
-            for (EDFChannelSession.ChannelInfo chanInfo : EDFChannel.channels())
-            {
-                if (chanInfo.connectOptions().unifiedNetworkInfo().address() == EDFChannel.channelInfo().connectOptions().unifiedNetworkInfo().address() &&
-                    chanInfo.connectOptions().unifiedNetworkInfo().serviceName() == EDFChannel.channelInfo().connectOptions().unifiedNetworkInfo().serviceName())
-                    {
-                        chanInfo.gapInfo().address.copy(currGapInfo.address);
-                        currGapInfo.port = chanInfo.gapInfo().port;
-                        currGapInfo.start = chanInfo.gapInfo().start;
-                        currGapInfo.end = chanInfo.gapInfo().end;
-                        chanInfo.gapInfo().start = chanInfo.gapInfo().end + 1;
-    
-                        break;
-                    }
-            }
-        }
         
         if (currGapInfo == null)
             return CodecReturnCodes.FAILURE;
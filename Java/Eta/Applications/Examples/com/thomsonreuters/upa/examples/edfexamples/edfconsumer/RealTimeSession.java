@@ -12,7 +12,6 @@ import com.thomsonreuters.upa.examples.common.CommandLine;
 import com.thomsonreuters.upa.examples.common.PingHandler;
 import com.thomsonreuters.upa.examples.common.ResponseCallback;
 import com.thomsonreuters.upa.examples.edfexamples.common.EDFChannelSession;
-import com.thomsonreuters.upa.examples.edfexamples.common.EDFChannelSession.ChannelInfo;
 import com.thomsonreuters.upa.examples.edfexamples.common.EDFWatchList;
 import com.thomsonreuters.upa.examples.edfexamples.edfconsumer.SymbolListHandler.SymbolListEntry;
 import com.thomsonreuters.upa.rdm.DomainTypes;
@@ -68,7 +67,6 @@ public class RealTimeSession implements ResponseCallback
 
     private StringBuilder outputString = new StringBuilder("");
 
-    private boolean gapDetected = false;
 
 
     public RealTimeSession(EDFWatchList watchlist)
@@ -229,6 +227,7 @@ public class RealTimeSession implements ResponseCallback
         System.out.println("Starting connection to Real Time Session...");
         
         channelSessions.add(new EDFChannelSession(this));
+        watchlist.addRealTimeChannel();
         if (channelSessions.get(channelSessions.size() - 1).initTransport(false, error) < CodecReturnCodes.SUCCESS)
             System.exit(error.errorId());
 
@@ -262,6 +261,7 @@ public class RealTimeSession implements ResponseCallback
         System.out.println("Starting connection to Real Time Session...");
         
         channelSessions.add(new EDFChannelSession());
+        watchlist.addRealTimeChannel();
         if (channelSessions.get(channelSessions.size() - 1).initTransport(false, error) < CodecReturnCodes.SUCCESS)
             System.exit(error.errorId());
 
@@ -301,11 +301,13 @@ public class RealTimeSession implements ResponseCallback
         outputString.delete(0, outputString.length());
         
         // If message, display which channel Session this is on
+        int channelIndex = -1;
         for (int i = 0; i < channelSessions.size(); ++i)
         {
             if (channelSessions.get(i).channelInfo().channel() == ((EDFChannelSession)chnl).channelInfo().channel())
             {
                 outputString.append("\n<Realtime Channel " + i + "> ");
+                channelIndex = i;
                 break;
             }
         }
@@ -329,50 +331,18 @@ public class RealTimeSession implements ResponseCallback
             System.exit(TransportReturnCodes.FAILURE);
         }
 
-        ChannelInfo channelInfo = ((EDFChannelSession) chnl).channelInfo();
-
-        for (ChannelInfo chanInfo : ((EDFChannelSession)chnl).channels())
-        {
-            if (chanInfo.connectOptions().unifiedNetworkInfo().address() == channelInfo.connectOptions().unifiedNetworkInfo().address() &&
-                    chanInfo.connectOptions().unifiedNetworkInfo().serviceName() == channelInfo.connectOptions().unifiedNetworkInfo().serviceName())
-            {
-                
-                if ( channelInfo.readArgs().seqNum() > chanInfo.gapInfo().start + 1 && chanInfo.gapInfo().start != 0)
-                {
-                    gapDetected = true;
-                    chanInfo.gapInfo().start = chanInfo.gapInfo().start + 1;
-                    chanInfo.gapInfo().end =  channelInfo.readArgs().seqNum() - 1;
-                }
-                else
-                {
-                    chanInfo.gapInfo().start =  channelInfo.readArgs().seqNum();
-                    chanInfo.gapInfo().end =  channelInfo.readArgs().seqNum();
-                }
-                
-                // Check if address and port are on this gapInfo, if not, put it on based on channel's info
-                if (chanInfo.gapInfo().address.data() == null)
-                {
-                    chanInfo.gapInfo().address.data(channelInfo.connectOptions().unifiedNetworkInfo().address());
-                    chanInfo.gapInfo().port = Integer.valueOf(channelInfo.connectOptions().unifiedNetworkInfo().serviceName());
-                }
-
-                break;
-            }
-        }
-        
-
-
-        processResponse(chnl, responseMsg, dIter, outputString);
+        // sequence numbers and gaps are tracked per channel by the watchlist
+        processResponse(chnl, channelIndex, ((EDFChannelSession)chnl).channelInfo().readArgs().seqNum(), responseMsg, dIter, outputString);
     }
 
-    private void processResponse(ChannelSession chnl, Msg responseMsg, DecodeIterator dIter, StringBuilder outputString)
+    private void processResponse(ChannelSession chnl, int channelIndex, long seqNum, Msg responseMsg, DecodeIterator dIter, StringBuilder outputString)
     {
         switch (responseMsg.domainType())
         {
             case DomainTypes.MARKET_PRICE:
             case DomainTypes.MARKET_BY_ORDER:
             case DomainTypes.MARKET_BY_PRICE:
-                watchlist.processMsg(chnl, responseMsg, dIter, this, outputString);
+                watchlist.processMsg(chnl, channelIndex, seqNum, responseMsg, dIter, this, outputString);
                 break;
             default:
                 System.out.println("Unhandled Domain Type: " + responseMsg.domainType());
@@ -441,14 +411,4 @@ public class RealTimeSession implements ResponseCallback
     {
         return channelSessions;
     }
-    
-    public boolean gapDetected()
-    {
-        return gapDetected;
-    }
-    
-    public void gapDetected(boolean gapDetectedBoolean)
-    {
-        gapDetected = gapDetectedBoolean;
-    }
 }
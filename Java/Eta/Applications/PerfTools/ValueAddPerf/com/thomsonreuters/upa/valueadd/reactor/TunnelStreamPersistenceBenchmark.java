@@ -0,0 +1,258 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.transport.TransportReturnCodes;
+import com.thomsonreuters.upa.valueadd.domainrep.rdm.queue.QueueDataTimeoutCode;
+
+/**
+ * Opens the persistence file of a queue substream without a connection to a
+ * provider, so that its recovery and throughput can be measured by
+ * performance tools. For recovery, a file is filled with messages that are
+ * saved and marked as transmitted, as if they were sent but not yet
+ * acknowledged, then reopened and its messages queued for retransmission as a
+ * tunnel stream does when it recovers. For throughput, messages are passed
+ * through an open file as if they were submitted, transmitted and
+ * acknowledged.
+ *
+ * <p>
+ * This class is not part of the tunnel stream API used by applications, and
+ * is not in upaValueAdd.jar. It is built only with the performance tools,
+ * together with a copy of the ValueAdd classes that is used in place of the
+ * sealed jar by the tools that need it. Only one file is open at a time.
+ */
+public class TunnelStreamPersistenceBenchmark
+{
+    /* Sequence number from which messages are numbered, so that none is acknowledged on recovery. */
+    static final int INITIAL_SEQ_NUM = 100;
+
+    private final Buffer _queueName = CodecFactory.createBuffer();
+    private final TunnelStreamBuffer _buffer = new TunnelStreamBuffer();
+    private final TunnelStream _tunnelStream;
+    private final ByteBuffer _payload;
+    private final int _msgLength;
+    private TunnelSubstream _substream;
+
+    /**
+     * Creates a benchmark whose files are in the given directory.
+     *
+     * @param directory the directory in which persistence files are created
+     * @param msgLength the length of each message saved to a file
+     * @param logStructured whether files use the log-structured format
+     */
+    public TunnelStreamPersistenceBenchmark(String directory, int msgLength, boolean logStructured)
+    {
+        _msgLength = msgLength;
+
+        _tunnelStream = new TunnelStream(ReactorFactory.createReactorChannel());
+        _tunnelStream._classOfService.guarantee().persistenceFilePath(directory);
+        _tunnelStream._classOfService.guarantee().persistenceGroupCommit(true);
+        _tunnelStream._classOfService.guarantee().persistenceLogStructured(logStructured);
+        if (msgLength > _tunnelStream._classOfService.common().maxMsgSize())
+            _tunnelStream._classOfService.common().maxMsgSize(msgLength);
+
+        _payload = ByteBuffer.allocateDirect(msgLength);
+        for (int i = 0; i < msgLength; ++i)
+            _payload.put(i, (byte)i);
+    }
+
+    /**
+     * Sets whether files opened after this call commit their updates in
+     * groups, once per dispatch pass. Enabled by default.
+     *
+     * @param groupCommit whether group commit is enabled
+     */
+    public void groupCommit(boolean groupCommit)
+    {
+        _tunnelStream._classOfService.guarantee().persistenceGroupCommit(groupCommit);
+    }
+
+    /**
+     * Creates a new persistence file for a queue, replacing any existing
+     * one, and fills it with messages marked as transmitted. The file is left
+     * closed.
+     *
+     * @param queueName the name of the queue, which names the file
+     * @param msgCount the number of messages to save
+     * @param cleanClose whether the file is closed cleanly, or released as if
+     *            the application had stopped
+     * @param error error structure to be populated in the event of failure
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS}, or
+     *         {@link ReactorReturnCodes#FAILURE} (refer to error for
+     *         additional information)
+     */
+    public int fill(String queueName, int msgCount, boolean cleanClose, Error error)
+    {
+        _tunnelStream.forceFileReset(true);
+        int ret = open(queueName, error);
+        _tunnelStream.forceFileReset(false);
+        if (ret != ReactorReturnCodes.SUCCESS)
+            return ret;
+
+        _substream.lastOutSeqNum(INITIAL_SEQ_NUM);
+        for (int i = 0; i < msgCount; ++i)
+        {
+            _buffer.clear(_msgLength);
+            _buffer.data(_payload, 0, _msgLength);
+            _buffer.timeoutIsCode(true);
+            _buffer.timeoutNsec(QueueDataTimeoutCode.INFINITE);
+
+            if ((ret = _substream.saveMsg(_buffer, error)) != ReactorReturnCodes.SUCCESS)
+            {
+                close(true, error);
+                return ret;
+            }
+
+            _substream._persistFile.setBufferAsTransmitted(_buffer.persistenceBuffer());
+            _substream.lastOutSeqNum(_buffer.persistenceBuffer().seqNum());
+        }
+
+        return close(cleanClose, error);
+    }
+
+    /**
+     * Opens the persistence file of a queue, recovering its messages.
+     *
+     * @param queueName the name of the queue, which names the file
+     * @param error error structure to be populated in the event of failure
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS}, or
+     *         {@link ReactorReturnCodes#FAILURE} (refer to error for
+     *         additional information)
+     */
+    public int open(String queueName, Error error)
+    {
+        _queueName.data(queueName);
+        error.errorId(TransportReturnCodes.SUCCESS);
+        _substream = new TunnelSubstream(_queueName, 5, 0, 1,
+                _tunnelStream._classOfService.guarantee().persistenceFilePath(), _tunnelStream, error);
+
+        if (error.errorId() != ReactorReturnCodes.SUCCESS)
+        {
+            _substream = null;
+            return ReactorReturnCodes.FAILURE;
+        }
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /**
+     * Queues the messages of the open file for retransmission, as a tunnel
+     * stream does when the provider has not acknowledged them.
+     *
+     * @param error error structure to be populated in the event of failure
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS}, or
+     *         {@link ReactorReturnCodes#FAILURE} (refer to error for
+     *         additional information)
+     */
+    public int retransmit(Error error)
+    {
+        return _substream._persistFile.retransmitBuffers(INITIAL_SEQ_NUM, _substream._msg,
+                _substream._encIter, _substream._dIter, error);
+    }
+
+    /**
+     * Passes messages through the open file as a tunnel stream does when the
+     * application submits them and they are transmitted and acknowledged. The
+     * file is committed at the end of each dispatch pass.
+     *
+     * @param msgCount the number of messages
+     * @param msgsPerDispatch the number of messages submitted, transmitted and
+     *            acknowledged in each dispatch pass
+     * @param error error structure to be populated in the event of failure
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS}, or
+     *         {@link ReactorReturnCodes#FAILURE} (refer to error for
+     *         additional information)
+     */
+    public int exchange(int msgCount, int msgsPerDispatch, Error error)
+    {
+        int ret;
+
+        for (int i = 0; i < msgCount; )
+        {
+            for (int passEnd = Math.min(i + msgsPerDispatch, msgCount); i < passEnd; ++i)
+            {
+                _buffer.clear(_msgLength);
+                _buffer.data(_payload, 0, _msgLength);
+                _buffer.timeoutIsCode(true);
+                _buffer.timeoutNsec(QueueDataTimeoutCode.INFINITE);
+
+                if ((ret = _substream.saveMsg(_buffer, error)) != ReactorReturnCodes.SUCCESS)
+                    return ret;
+
+                if ((ret = _substream.setBufferAsTransmitted(_buffer, error)) != ReactorReturnCodes.SUCCESS)
+                    return ret;
+            }
+
+            _substream._persistFile.releasePersistenceBuffers(_substream.lastOutSeqNum());
+            _tunnelStream.commitPersistence();
+        }
+
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /**
+     * Releases the messages queued for retransmission.
+     *
+     * @param error error structure to be populated in the event of failure
+     *
+     * @return the number of messages that were queued
+     */
+    public int releaseRetransmitted(Error error)
+    {
+        int count = 0;
+        TunnelStreamBuffer tunnelBuffer;
+        while ((tunnelBuffer = _tunnelStream._outboundTransmitList.pop(TunnelStreamBuffer.RETRANS_LINK)) != null)
+        {
+            ++count;
+            _tunnelStream.releaseBuffer(tunnelBuffer, error);
+        }
+        return count;
+    }
+
+    /**
+     * Closes the open file.
+     *
+     * @param cleanClose whether the file is closed cleanly, or released
+     *            without closing the persistence file, as if the application
+     *            had stopped
+     * @param error error structure to be populated in the event of failure
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS}, or
+     *         {@link ReactorReturnCodes#FAILURE} (refer to error for
+     *         additional information)
+     */
+    public int close(boolean cleanClose, Error error)
+    {
+        TunnelSubstream substream = _substream;
+        _substream = null;
+        if (substream == null)
+            return ReactorReturnCodes.SUCCESS;
+
+        if (cleanClose)
+            return (substream.close(error) == ReactorReturnCodes.SUCCESS ? ReactorReturnCodes.SUCCESS : ReactorReturnCodes.FAILURE);
+
+        TunnelStreamPersistenceFile persistFile = substream._persistFile;
+        substream._persistFile = null;
+        persistFile.commit();
+        try
+        {
+            persistFile._fileLock.release();
+            persistFile._fileChannel.close();
+            persistFile._file.close();
+        }
+        catch (IOException e)
+        {
+            error.errorId(TransportReturnCodes.FAILURE);
+            error.text("Failed to release persistence file: " + e.getMessage());
+            return ReactorReturnCodes.FAILURE;
+        }
+        return ReactorReturnCodes.SUCCESS;
+    }
+}
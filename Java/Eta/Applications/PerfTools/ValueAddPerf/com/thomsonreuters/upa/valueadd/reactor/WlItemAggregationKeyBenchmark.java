@@ -0,0 +1,61 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.MsgKey;
+import com.thomsonreuters.upa.codec.Qos;
+import com.thomsonreuters.upa.codec.QosRates;
+import com.thomsonreuters.upa.codec.QosTimeliness;
+
+/**
+ * Computes the hash codes of watchlist item aggregation keys, so that their
+ * distribution can be measured by performance tools.
+ *
+ * <p>
+ * This class is not part of the watchlist API used by applications, and is
+ * not in upaValueAdd.jar. It is built only with the performance tools,
+ * together with a copy of the ValueAdd classes that is used in place of the
+ * sealed jar by the tools that need it.
+ */
+public class WlItemAggregationKeyBenchmark
+{
+    private final WlItemAggregationKey _key = new WlItemAggregationKey();
+    private final MsgKey _msgKey = CodecFactory.createMsgKey();
+    private final Qos _qos = CodecFactory.createQos();
+    private final Buffer _name = CodecFactory.createBuffer();
+
+    /**
+     * Creates a benchmark whose keys have a real-time, tick-by-tick Qos.
+     */
+    public WlItemAggregationKeyBenchmark()
+    {
+        _qos.timeliness(QosTimeliness.REALTIME);
+        _qos.rate(QosRates.TICK_BY_TICK);
+    }
+
+    /**
+     * Returns the hash code of the aggregation key of an item requested by
+     * name and service id.
+     *
+     * @param name the name of the item
+     * @param serviceId the service id of the item
+     * @param domainType the domain type of the item
+     *
+     * @return the hash code of the item's aggregation key
+     */
+    public int hashCode(String name, int serviceId, int domainType)
+    {
+        _name.data(name);
+        _msgKey.clear();
+        _msgKey.applyHasName();
+        _msgKey.name(_name);
+        _msgKey.applyHasServiceId();
+        _msgKey.serviceId(serviceId);
+
+        _key.clear();
+        _key.msgKey(_msgKey);
+        _key.domainType(domainType);
+        _key.qos(_qos);
+        return _key.hashCode();
+    }
+}
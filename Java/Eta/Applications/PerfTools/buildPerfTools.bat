@@ -1,6 +1,6 @@
 mkdir bin
 set JAVAC="%JAVA_HOME%\bin\javac"
-set CLASSPATH=.\;.\xpp3-1.1.3_8.jar;.\xpp3_min-1.1.3_8.jar;..\..\Libs\upa.jar;..\..\Libs\upaValueAdd.jar
+set CLASSPATH=.\;.\xpp3-1.1.3_8.jar;.\xpp3_min-1.1.3_8.jar;..\..\Libs\upa.jar;..\..\Libs\upaValueAdd.jar;..\..\Libs\upaValueAddCache.jar;..\..\..\Ema\Libs\ema.jar;..\..\..\Ema\Libs\apache\org.apache.commons.collections.jar;..\..\..\Ema\Libs\apache\commons-configuration-1.10.jar;..\..\..\Ema\Libs\apache\commons-lang-2.6.jar;..\..\..\Ema\Libs\apache\commons-logging-1.2.jar;..\..\..\Ema\Libs\SLF4J\slf4j-1.7.12\slf4j-api-1.7.12.jar;..\..\..\Ema\Libs\SLF4J\slf4j-1.7.12\slf4j-jdk14-1.7.12.jar
 
 del /S *.class
 
@@ -9,3 +9,15 @@ del /S *.class
 %JAVAC% -d bin com\thomsonreuters\upa\perftools\upajniprovperf\*.java
 %JAVAC% -d bin com\thomsonreuters\upa\perftools\upajprovperf\*.java
 %JAVAC% -d bin com\thomsonreuters\upa\perftools\upajtransportperf\*.java
+%JAVAC% -d bin com\thomsonreuters\upa\perftools\emajconsperf\*.java
+%JAVAC% -d bin com\thomsonreuters\upa\perftools\emajniprovperf\*.java
+mkdir bin\valueadd
+dir /s /b ..\..\Source\com\thomsonreuters\upa\valueadd\common\*.java ..\..\Source\com\thomsonreuters\upa\valueadd\domainrep\*.java ..\..\Source\com\thomsonreuters\upa\valueadd\reactor\*.java ValueAddPerf\*.java > bin\valueadd\sources.txt
+%JAVAC% -cp ..\..\Libs\upa.jar -d bin\valueadd @bin\valueadd\sources.txt
+%JAVAC% -cp %CLASSPATH%;bin\valueadd -d bin com\thomsonreuters\upa\perftools\upajtunnelrecoveryperf\*.java
+%JAVAC% -cp %CLASSPATH%;bin\valueadd -d bin com\thomsonreuters\upa\perftools\upajtunnelpersistenceperf\*.java
+%JAVAC% -cp %CLASSPATH%;bin\valueadd -d bin com\thomsonreuters\upa\perftools\upajitemhashperf\*.java
+%JAVAC% -d bin com\thomsonreuters\upa\perftools\upajqueueperf\*.java
+%JAVAC% -d bin com\thomsonreuters\upa\perftools\upajorderbookperf\*.java
+%JAVAC% -d bin com\thomsonreuters\upa\perftools\emajfieldlookupperf\*.java
+%JAVAC% -d bin com\thomsonreuters\upa\perftools\emajencodeallocperf\*.java
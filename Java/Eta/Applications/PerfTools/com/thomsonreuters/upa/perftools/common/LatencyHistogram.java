@@ -0,0 +1,195 @@
+package com.thomsonreuters.upa.perftools.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latency samples, used to report latency
+ * percentiles such as p50, p99, p99.9 and p99.99.
+ *
+ * Samples are given in microseconds and stored with nanosecond resolution.
+ * Values below 128 nsec are counted exactly; above that, each power of two
+ * is divided into 128 linear sub-buckets, so a reported value is within
+ * 1/128 (less than 0.8%) of the recorded one. Values above roughly 68
+ * seconds are counted in the highest bucket. The histogram uses a fixed
+ * amount of memory (about 30KB) regardless of the number of samples.
+ *
+ * Samples can be recorded from several threads at once without locking.
+ * {@link #clear()} and {@link #add(LatencyHistogram)} are not atomic with
+ * respect to concurrent updates, so they should be called by the thread
+ * that records the samples, as the stats threads of the PerfTools do.
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_VALUE_BITS = 36; /* Highest tracked value is 2^36 nsec. */
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private AtomicLongArray _counts;       // Number of samples in each bucket.
+	private AtomicLong      _count;        // Total number of samples.
+	private AtomicLong      _maxValue;     // Highest sample value, in nsec.
+	private AtomicLong      _minValue;     // Lowest sample value, in nsec.
+
+	public LatencyHistogram()
+	{
+		_counts = new AtomicLongArray(BUCKET_COUNT);
+		_count = new AtomicLong();
+		_maxValue = new AtomicLong(0);
+		_minValue = new AtomicLong(Long.MAX_VALUE);
+	}
+
+	/** Clears LatencyHistogram. */
+	public void clear()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			_counts.set(i, 0);
+		_count.set(0);
+		_maxValue.set(0);
+		_minValue.set(Long.MAX_VALUE);
+	}
+
+	/** Records a new sample, in microseconds. */
+	public void update(double newValueUsec)
+	{
+		long value = newValueUsec > 0 ? (long)(newValueUsec * 1000.0 + 0.5) : 0;
+
+		_counts.incrementAndGet(bucketIndex(value));
+		_count.incrementAndGet();
+
+		long current;
+		while (value > (current = _maxValue.get()))
+		{
+			if (_maxValue.compareAndSet(current, value))
+				break;
+		}
+		while (value < (current = _minValue.get()))
+		{
+			if (_minValue.compareAndSet(current, value))
+				break;
+		}
+	}
+
+	/** Adds all samples of another histogram to this one. */
+	public void add(LatencyHistogram histogram)
+	{
+		if (histogram._count.get() == 0)
+			return;
+
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			long count = histogram._counts.get(i);
+			if (count != 0)
+				_counts.addAndGet(i, count);
+		}
+		_count.addAndGet(histogram._count.get());
+
+		long value = histogram._maxValue.get(), current;
+		while (value > (current = _maxValue.get()))
+		{
+			if (_maxValue.compareAndSet(current, value))
+				break;
+		}
+		value = histogram._minValue.get();
+		while (value < (current = _minValue.get()))
+		{
+			if (_minValue.compareAndSet(current, value))
+				break;
+		}
+	}
+
+	/**
+	 * Returns the value, in microseconds, below or at which the given
+	 * percentage of the samples fall.
+	 *
+	 * @param percentile percentile, from 0 to 100
+	 * @return the value at the percentile, or 0 if there are no samples
+	 */
+	public double valueAtPercentile(double percentile)
+	{
+		long totalCount = _count.get();
+		if (totalCount == 0)
+			return 0;
+
+		long targetCount = (long)Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount);
+		if (targetCount < 1)
+			targetCount = 1;
+
+		long countSoFar = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			countSoFar += _counts.get(i);
+			if (countSoFar >= targetCount)
+			{
+				// Report the highest value of the bucket, but never more than
+				// the highest or less than the lowest value actually seen. The
+				// last bucket also counts all values too large to track.
+				long value = i == BUCKET_COUNT - 1 ? _maxValue.get() : Math.min(highestValueInBucket(i), _maxValue.get());
+				return Math.max(value, _minValue.get()) / 1000.0;
+			}
+		}
+
+		return _maxValue.get() / 1000.0;
+	}
+
+	/** Print a line containing the latency percentiles. */
+	public void print(String valueStatsName, String countUnitName, boolean displayThousandths)
+	{
+		String outputStr = displayThousandths ?
+				   "%s: p50:%8.3f p99:%8.3f p99.9:%8.3f p99.99:%8.3f, %s: %d\n"
+				:  "%s: p50:%6.1f p99:%6.1f p99.9:%6.1f p99.99:%6.1f, %s: %d\n";
+
+		System.out.printf(outputStr,
+				valueStatsName,
+				valueAtPercentile(50.0),
+				valueAtPercentile(99.0),
+				valueAtPercentile(99.9),
+				valueAtPercentile(99.99),
+				countUnitName,
+				count());
+	}
+
+	/** Total number of samples. */
+	public long count()
+	{
+		return _count.get();
+	}
+
+	/** Highest sample value, in microseconds. */
+	public double maxValue()
+	{
+		return _maxValue.get() / 1000.0;
+	}
+
+	/** Lowest sample value, in microseconds. */
+	public double minValue()
+	{
+		return _count.get() > 0 ? _minValue.get() / 1000.0 : 0;
+	}
+
+	/* Returns the bucket of a value in nsec. */
+	static int bucketIndex(long value)
+	{
+		if (value < SUB_BUCKET_COUNT)
+			return (int)value;
+
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		if (highestBit >= MAX_VALUE_BITS)
+			return BUCKET_COUNT - 1;
+
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int subBucket = (int)(value >>> shift) & (SUB_BUCKET_COUNT - 1);
+		return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/* Returns the highest value in nsec counted in a bucket. */
+	static long highestValueInBucket(int index)
+	{
+		if (index < SUB_BUCKET_COUNT)
+			return index;
+
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+		int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+		return ((long)(SUB_BUCKET_COUNT + subBucket) << shift) + (1L << shift) - 1;
+	}
+}
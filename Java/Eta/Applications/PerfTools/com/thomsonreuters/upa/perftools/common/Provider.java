@@ -148,6 +148,15 @@ public class Provider
         waitForThreads();
     }
 
+    /* Print latency percentiles to the summary file. */
+    private void printLatencyPercentiles(PrintWriter fileWriter, String latencyName, LatencyHistogram latencyHistogram)
+    {
+        fileWriter.printf("  %s p50 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(50.0));
+        fileWriter.printf("  %s p99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.0));
+        fileWriter.printf("  %s p99.9 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.9));
+        fileWriter.printf("  %s p99.99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.99));
+    }
+
     /* Collect generic message statistics. */
     private void collectGenMsgStats(ProviderThreadInfo provThreadInfo)
     {
@@ -159,9 +168,14 @@ public class Provider
             
             provThreadInfo.stats().intervalGenMsgLatencyStats().update(latency);
             provThreadInfo.stats().genMsgLatencyStats().update(latency);
+            provThreadInfo.stats().intervalGenMsgLatencyHistogram().update(latency);
+            provThreadInfo.stats().genMsgLatencyHistogram().update(latency);
             
             if (ProviderPerfConfig.threadCount() > 1)
+            {
                 _totalStats.genMsgLatencyStats().update(latency);
+                _totalStats.genMsgLatencyHistogram().update(latency);
+            }
 
             if (provThreadInfo.latencyLogFile() != null)
                 provThreadInfo.latencyLogFileWriter().printf("Gen, %d, %d, %d\n", record.startTime(), record.endTime(), (record.endTime() - record.startTime()));
@@ -229,7 +243,7 @@ public class Provider
                 {
                     case PROVIDER_INTERACTIVE:
                         providerThread.getProvThreadInfo().statsFileWriter().printf(
-                        		", %d, %d, %d, %d, %d, %d, %d, %d, %.1f, %.1f, %.1f, %.1f, %.2f, %.2f\n", 
+                        		", %d, %d, %d, %d, %d, %d, %d, %d, %.1f, %.1f, %.1f, %.1f, %.2f, %.2f, %.1f, %.1f, %.1f, %.1f\n", 
                         		requestCount,
                                 refreshCount,
                                 updateCount,
@@ -243,7 +257,11 @@ public class Provider
                                 ((stats.intervalGenMsgLatencyStats().count() > 0) ? stats.intervalGenMsgLatencyStats().maxValue() : 0.0),
                                 ((stats.intervalGenMsgLatencyStats().count() > 0) ? stats.intervalGenMsgLatencyStats().minValue() : 0.0),
                                 processCpuLoad,
-                                memoryUsage);
+                                memoryUsage,
+                                stats.intervalGenMsgLatencyHistogram().valueAtPercentile(50.0),
+                                stats.intervalGenMsgLatencyHistogram().valueAtPercentile(99.0),
+                                stats.intervalGenMsgLatencyHistogram().valueAtPercentile(99.9),
+                                stats.intervalGenMsgLatencyHistogram().valueAtPercentile(99.99));
                         break;
                     case PROVIDER_NONINTERACTIVE:
                         providerThread.getProvThreadInfo().statsFileWriter().printf(
@@ -307,6 +325,7 @@ public class Provider
                         if (stats.intervalGenMsgLatencyStats().count() > 0)
                         {
                             stats.intervalGenMsgLatencyStats().print("  GenMsgLat(usec)", "Msgs", false);
+                            stats.intervalGenMsgLatencyHistogram().print("  GenMsgLat(usec)", "Msgs", false);
                             stats.intervalGenMsgLatencyStats().clear();
                         }
                         break;
@@ -333,6 +352,9 @@ public class Provider
                     System.out.printf("  - Approx. avg msgs per pack: %.0f\n", (double)msgSentCount/(double)bufferSentCount);
                 }
             }
+
+            // Percentiles in the stats file and on screen cover only this interval.
+            stats.intervalGenMsgLatencyHistogram().clear();
         }
     }
     
@@ -379,6 +401,7 @@ public class Provider
                                               Math.sqrt(stats.genMsgLatencyStats().variance()),
                                               stats.genMsgLatencyStats().count() > 0 ? stats.genMsgLatencyStats().maxValue() : 0,
                                               stats.genMsgLatencyStats().count() > 0 ? stats.genMsgLatencyStats().minValue() : 0);
+                            printLatencyPercentiles(fileWriter, "GenMsg latency", stats.genMsgLatencyHistogram());
                         }
                         else
                             fileWriter.printf("  No GenMsg latency information was received.\n");
@@ -451,6 +474,7 @@ public class Provider
                                       Math.sqrt(_totalStats.genMsgLatencyStats().variance()),
                                       _totalStats.genMsgLatencyStats().maxValue(),
                                       _totalStats.genMsgLatencyStats().minValue());
+                    printLatencyPercentiles(fileWriter, "GenMsg latency", _totalStats.genMsgLatencyHistogram());
                 }
                 else
                     fileWriter.printf("  No GenMsg latency information was received.\n");
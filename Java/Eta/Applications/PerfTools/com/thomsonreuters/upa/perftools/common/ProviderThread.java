@@ -141,7 +141,7 @@ public class ProviderThread extends Thread
         }
         
         if (providerType == ProviderType.PROVIDER_INTERACTIVE)
-            _provThreadInfo.statsFileWriter().println("UTC, Requests received, Images sent, Updates sent, Posts reflected, GenMsgs sent, GenMsg Latencies sent, GenMsgs received, GenMsg Latencies received, GenMsg Latency avg (usec), GenMsg Latency std dev (usec), GenMsg Latency max (usec), GenMsg Latency min (usec), CPU usage (%%), Memory (MB)");
+            _provThreadInfo.statsFileWriter().println("UTC, Requests received, Images sent, Updates sent, Posts reflected, GenMsgs sent, GenMsg Latencies sent, GenMsgs received, GenMsg Latencies received, GenMsg Latency avg (usec), GenMsg Latency std dev (usec), GenMsg Latency max (usec), GenMsg Latency min (usec), CPU usage (%%), Memory (MB), GenMsg Latency p50 (usec), GenMsg Latency p99 (usec), GenMsg Latency p99.9 (usec), GenMsg Latency p99.99 (usec)");
         else
             _provThreadInfo.statsFileWriter().println("UTC, Images sent, Updates sent, CPU usage (%), Memory (MB)");
         _provThreadInfo.statsFileWriter().flush();
@@ -11,6 +11,8 @@ public class ProviderThreadStats
     private CountStat       _latencyGenMsgSentCount;    /* Number of latency generic msgs sent. */
     private ValueStatistics _intervalGenMsgLatencyStats;    /* Generic msg latency statistics (recorded by stats thread). */
     private ValueStatistics _genMsgLatencyStats;        /* Generic msg latency statistics. */
+    private LatencyHistogram _intervalGenMsgLatencyHistogram;   /* Generic msg latency percentiles (recorded by stats thread). */
+    private LatencyHistogram _genMsgLatencyHistogram;   /* Generic msg latency percentiles. */
    
     private ValueStatistics _refreshBufLenStats;
     private ValueStatistics _updateBufLenStats;
@@ -26,6 +28,8 @@ public class ProviderThreadStats
         _genMsgLatencyStats = new ValueStatistics();
         _intervalGenMsgLatencyStats.clear();
         _genMsgLatencyStats.clear();
+        _intervalGenMsgLatencyHistogram = new LatencyHistogram();
+        _genMsgLatencyHistogram = new LatencyHistogram();
            
         _refreshBufLenStats = new ValueStatistics();
         _updateBufLenStats = new ValueStatistics();
@@ -125,6 +129,18 @@ public class ProviderThreadStats
         _genMsgLatencyStats = genMsgLatencyStats;
     }
 
+    /** Generic msg latency percentiles (recorded by stats thread). */
+    public LatencyHistogram intervalGenMsgLatencyHistogram()
+    {
+        return _intervalGenMsgLatencyHistogram;
+    }
+
+    /** Generic msg latency percentiles. */
+    public LatencyHistogram genMsgLatencyHistogram()
+    {
+        return _genMsgLatencyHistogram;
+    }
+
     public ValueStatistics refreshBufLenStats()
     {
         return _refreshBufLenStats;
@@ -1,14 +1,19 @@
 package com.thomsonreuters.upa.perftools.common;
 
 import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import com.sun.management.OperatingSystemMXBean;
 
-/** Resource Statistics (CPU & Memory Usage) */
+/** Resource Statistics (CPU, Memory Usage & Thread Allocation) */
 public class ResourceUsageStats
 {
     // note: Java 7 (Oracle JDK) introduced the following method for obtaining the current proceses's CPU usage.
     // See http://sellmic.com/blog/2011/07/21/hidden-java-7-features-cpu-load-monitoring/ for details
     private static OperatingSystemMXBean osBean = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+
+    // note: the Oracle JDK's ThreadMXBean extension reports the bytes allocated by each thread.
+    private static ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static boolean threadAllocationSupported = initThreadAllocation();
     
     /** CPU load of the process */
     public static double currentProcessCpuLoad()
@@ -26,4 +31,32 @@ public class ResourceUsageStats
     	
     	return (memorySize >= 0 ? memorySize : 0);
     }
+    
+    /**
+     * Total bytes allocated on the heap by a thread since it started, or -1 if
+     * the JVM does not measure thread allocation.
+     */
+    public static long threadAllocatedBytes(long threadId)
+    {
+    	if (!threadAllocationSupported)
+    		return -1;
+    	
+    	return ((com.sun.management.ThreadMXBean)threadBean).getThreadAllocatedBytes(threadId);
+    }
+    
+    /* Enables thread allocation measurement, if the JVM supports it. */
+    private static boolean initThreadAllocation()
+    {
+    	if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+    		return false;
+    	
+    	com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean)threadBean;
+    	if (!sunThreadBean.isThreadAllocatedMemorySupported())
+    		return false;
+    	
+    	if (!sunThreadBean.isThreadAllocatedMemoryEnabled())
+    		sunThreadBean.setThreadAllocatedMemoryEnabled(true);
+    	
+    	return true;
+    }
 }
@@ -0,0 +1,238 @@
+package com.thomsonreuters.upa.perftools.emajconsperf;
+
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+
+/** Provides configuration for the EMA consumer performance application. */
+public class EmaConsPerfConfig
+{
+	private String _configString;
+
+	/* APPLICATION configuration */
+	private int	_steadyStateTime;			/* Time application runs before exiting. */
+	private int	_ticksPerSec;				/* Main loop ticks per second */
+
+	private String _itemFilename;			/* File of names to use when requesting items. */
+
+	private String _summaryFilename;		/* Name of the summary log file. */
+	private String _statsFilename;			/* Name of the statistics log file. */
+	private int	_writeStatsInterval;		/* Controls how often statistics are written. */
+	private boolean _displayStats;			/* Controls whether stats appear on the screen. */
+
+	private int _itemRequestsPerSec;		/* Rate at which the consumer will send out item requests. */
+
+	/* CONNECTION configuration */
+	private String _hostName;				/* Name of host to connect to. */
+	private String _portNo;					/* Port number. */
+
+	private boolean _requestSnapshots;		/* Whether to request all items as snapshots. */
+
+	private String _username;				/* Username used when logging in. */
+	private String _serviceName;			/* Name of service to request items from. */
+	private int _itemRequestCount;			/* Number of items to request. See -itemCount. */
+
+	private int _requestsPerTick;			/* Number of requests to send per tick */
+	private int _requestsPerTickRemainder;	/* The remainder of number of requests to send per tick */
+
+    {
+        CommandLine.programName("emajConsPerf");
+        CommandLine.addOption("steadyStateTime", 300, "Time consumer will run the steady-state portion of the test. Also used as a timeout during the startup-state portion");
+        CommandLine.addOption("tickRate", 1000, "Ticks per second");
+        CommandLine.addOption("itemFile", "350k.xml", "Name of the file to get item names from");
+        CommandLine.addOption("summaryFile", "EmaConsSummary.out", "Name of file for logging summary info");
+        CommandLine.addOption("statsFile", "EmaConsStats", "Base name of file for logging periodic statistics");
+        CommandLine.addOption("writeStatsInterval", 5, "Controls how often stats are written to the file");
+        CommandLine.addOption("noDisplayStats", false, "Stop printout of stats to screen");
+        CommandLine.addOption("requestRate", 500000, "Rate at which to request items");
+        CommandLine.addOption("h", "localhost", "Name of host to connect to");
+        CommandLine.addOption("p", "14002", "Port number to connect to");
+        CommandLine.addOption("snapshot", false, "Snapshot test, request all items as non-streaming");
+        CommandLine.addOption("uname", "", "Username to use in login request");
+        CommandLine.addOption("serviceName", "DIRECT_FEED", "Name of service to request items from");
+        CommandLine.addOption("itemCount", 100000, "Number of items to request");
+    }
+
+    /** Parses command-line arguments to fill in the application's configuration structures. */
+	public void init(String[] args)
+	{
+        try
+        {
+        	CommandLine.parseArgs(args);
+        }
+        catch (IllegalArgumentException ile)
+        {
+        	System.err.println("Error loading command line arguments:\t");
+        	System.err.println(ile.getMessage());
+        	System.err.println();
+        	System.err.println(CommandLine.optionHelpString());
+        	System.exit(CodecReturnCodes.FAILURE);
+        }
+
+    	_itemFilename = CommandLine.value("itemFile");
+    	_summaryFilename = CommandLine.value("summaryFile");
+    	_statsFilename = CommandLine.value("statsFile");
+    	_hostName = CommandLine.value("h");
+    	_portNo = CommandLine.value("p");
+    	_username = CommandLine.value("uname");
+    	_serviceName = CommandLine.value("serviceName");
+    	_displayStats = !CommandLine.booleanValue("noDisplayStats");
+    	_requestSnapshots = CommandLine.booleanValue("snapshot");
+        try
+        {
+        	_steadyStateTime = CommandLine.intValue("steadyStateTime");
+        	_ticksPerSec = CommandLine.intValue("tickRate");
+        	_writeStatsInterval = CommandLine.intValue("writeStatsInterval");
+        	_itemRequestsPerSec = CommandLine.intValue("requestRate");
+        	_itemRequestCount = CommandLine.intValue("itemCount");
+        }
+        catch (NumberFormatException ile)
+        {
+        	System.err.println("Invalid argument, number expected.\t");
+        	System.err.println(ile.getMessage());
+        	System.err.println();
+        	System.err.println(CommandLine.optionHelpString());
+        	System.exit(-1);
+        }
+
+        if (_ticksPerSec < 1)
+        {
+            System.err.println("Config Error: Tick rate cannot be less than 1.");
+            System.out.println(CommandLine.optionHelpString());
+            System.exit(-1);
+        }
+
+		if (_itemRequestsPerSec < _ticksPerSec)
+		{
+			System.err.println("Config Error: Item Request Rate cannot be less than tick rate.\n");
+			System.out.println(CommandLine.optionHelpString());
+			System.exit(-1);
+		}
+
+		if (_writeStatsInterval < 1)
+		{
+			System.err.println("Config error: Write Stats Interval cannot be less than 1.\n");
+			System.out.println(CommandLine.optionHelpString());
+			System.exit(-1);
+		}
+
+		_requestsPerTick = _itemRequestsPerSec / _ticksPerSec;
+
+		_requestsPerTickRemainder = _itemRequestsPerSec % _ticksPerSec;
+
+		createConfigString();
+	}
+
+	/* Create config string. */
+	private void createConfigString()
+	{
+		_configString = "--- TEST INPUTS ---\n\n" +
+				"       Steady State Time: " + _steadyStateTime + " sec\n" +
+				"                Hostname: " + _hostName + "\n" +
+				"                    Port: " + _portNo + "\n" +
+				"                 Service: " + _serviceName + "\n" +
+				"                Username: " + (_username.length() > 0 ? _username : "(use system login name)") + "\n" +
+				"              Item Count: " + _itemRequestCount + "\n" +
+				"            Request Rate: " + _itemRequestsPerSec + "\n" +
+				"       Request Snapshots: " + (_requestSnapshots ? "Yes" : "No") + "\n" +
+				"               Item File: " + _itemFilename + "\n" +
+				"            Summary File: " + _summaryFilename + "\n" +
+				"              Stats File: " + _statsFilename + "\n" +
+				"               Tick Rate: " + _ticksPerSec + "\n";
+	}
+
+	/** Time application runs before exiting. */
+	public int steadyStateTime()
+	{
+		return _steadyStateTime;
+	}
+
+	/** Main loop ticks per second. */
+	public int ticksPerSec()
+	{
+		return _ticksPerSec;
+	}
+
+	/** File of names to use when requesting items. */
+	public String itemFilename()
+	{
+		return _itemFilename;
+	}
+
+	/** Name of the summary log file. */
+	public String summaryFilename()
+	{
+		return _summaryFilename;
+	}
+
+	/** Name of the statistics log file. */
+	public String statsFilename()
+	{
+		return _statsFilename;
+	}
+
+	/** Controls how often statistics are written. */
+	public int writeStatsInterval()
+	{
+		return _writeStatsInterval;
+	}
+
+	/** Controls whether stats appear on the screen. */
+	public boolean displayStats()
+	{
+		return _displayStats;
+	}
+
+	/** Name of host to connect to. */
+	public String hostName()
+	{
+		return _hostName;
+	}
+
+	/** Port number. */
+	public String portNo()
+	{
+		return _portNo;
+	}
+
+	/** Whether to request all items as snapshots. */
+	public boolean requestSnapshots()
+	{
+		return _requestSnapshots;
+	}
+
+	/** Username used when logging in. */
+	public String username()
+	{
+		return _username;
+	}
+
+	/** Name of service to request items from. */
+	public String serviceName()
+	{
+		return _serviceName;
+	}
+
+	/** Number of items to request. */
+	public int itemRequestCount()
+	{
+		return _itemRequestCount;
+	}
+
+	/** Number of requests to send per tick. */
+	public int requestsPerTick()
+	{
+		return _requestsPerTick;
+	}
+
+	/** The remainder of number of requests to send per tick. */
+	public int requestsPerTickRemainder()
+	{
+		return _requestsPerTickRemainder;
+	}
+
+	/** Converts configuration parameters to a string */
+	public String toString()
+	{
+		return _configString;
+	}
+}
@@ -0,0 +1,179 @@
+package com.thomsonreuters.upa.perftools.emajconsperf;
+
+import com.thomsonreuters.upa.perftools.common.CountStat;
+import com.thomsonreuters.upa.perftools.common.LatencyHistogram;
+import com.thomsonreuters.upa.perftools.common.ValueStatistics;
+
+/** Maintains counts and other values for measuring statistics on the EMA consumer thread. */
+public class EmaConsumerStats
+{
+	private volatile long	_imageRetrievalStartTime;	/* Time at which first item request was made. */
+	private volatile long	_imageRetrievalEndTime;		/* Time at which last item refresh was received. */
+	private volatile long	_firstUpdateTime;			/* Time at which first item update was received. */
+
+	private CountStat		_refreshCount;				/* Number of item refreshes received. */
+	private CountStat		_refreshCompleteCount;		/* Number of Refresh Complete and Data State OK */
+	private CountStat		_startupUpdateCount;		/* Number of item updates received during startup. */
+	private CountStat		_steadyStateUpdateCount;	/* Number of item updates received during steady state. */
+	private CountStat		_requestCount;				/* Number of requests sent. */
+	private CountStat		_statusCount;				/* Number of item status messages received. */
+	private ValueStatistics	_intervalLatencyStats;		/* Latency statistics (recorded by stats thread). */
+	private ValueStatistics	_startupLatencyStats;		/* Startup latency statistics. */
+	private ValueStatistics	_steadyStateLatencyStats;	/* Steady-state latency statistics. */
+	private ValueStatistics	_overallLatencyStats;		/* Overall latency statistics. */
+	private LatencyHistogram _intervalLatencyHistogram;		/* Latency percentiles (recorded by stats thread). */
+	private LatencyHistogram _steadyStateLatencyHistogram;	/* Steady-state latency percentiles. */
+	private LatencyHistogram _overallLatencyHistogram;		/* Overall latency percentiles. */
+	private ValueStatistics	_allocationStats;			/* Bytes allocated per message, sampled each interval (recorded by stats thread). */
+	private boolean			_imageTimeRecorded;			/* Stats thread sets this once it has recorded/printed
+	 													 * the image retrieval time. */
+
+	{
+		_refreshCount = new CountStat();
+		_refreshCompleteCount = new CountStat();
+		_startupUpdateCount = new CountStat();
+		_steadyStateUpdateCount = new CountStat();
+		_requestCount = new CountStat();
+		_statusCount = new CountStat();
+		_intervalLatencyStats = new ValueStatistics();
+		_startupLatencyStats = new ValueStatistics();
+		_steadyStateLatencyStats = new ValueStatistics();
+		_overallLatencyStats = new ValueStatistics();
+		_intervalLatencyHistogram = new LatencyHistogram();
+		_steadyStateLatencyHistogram = new LatencyHistogram();
+		_overallLatencyHistogram = new LatencyHistogram();
+		_allocationStats = new ValueStatistics();
+	}
+
+	/** Time at which first item request was made. */
+	public long imageRetrievalStartTime()
+	{
+		return _imageRetrievalStartTime;
+	}
+
+	/** Time at which first item request was made. */
+	public void imageRetrievalStartTime(long imageRetrievalStartTime)
+	{
+		_imageRetrievalStartTime = imageRetrievalStartTime;
+	}
+
+	/** Time at which last item refresh was received. */
+	public long imageRetrievalEndTime()
+	{
+		return _imageRetrievalEndTime;
+	}
+
+	/** Time at which last item refresh was received. */
+	public void imageRetrievalEndTime(long imageRetrievalEndTime)
+	{
+		_imageRetrievalEndTime = imageRetrievalEndTime;
+	}
+
+	/** Time at which first item update was received. */
+	public long firstUpdateTime()
+	{
+		return _firstUpdateTime;
+	}
+
+	/** Time at which first item update was received. */
+	public void firstUpdateTime(long firstUpdateTime)
+	{
+		_firstUpdateTime = firstUpdateTime;
+	}
+
+	/** Number of item refreshes received. */
+	public CountStat refreshCount()
+	{
+		return _refreshCount;
+	}
+
+	/** Number of refresh complete (with data state OK) received. */
+	public CountStat refreshCompleteCount()
+	{
+		return _refreshCompleteCount;
+	}
+
+	/** Number of item updates received during startup. */
+	public CountStat startupUpdateCount()
+	{
+		return _startupUpdateCount;
+	}
+
+	/** Number of item updates received during steady state. */
+	public CountStat steadyStateUpdateCount()
+	{
+		return _steadyStateUpdateCount;
+	}
+
+	/** Number of requests sent. */
+	public CountStat requestCount()
+	{
+		return _requestCount;
+	}
+
+	/** Number of item status messages received. */
+	public CountStat statusCount()
+	{
+		return _statusCount;
+	}
+
+	/** Latency statistics (recorded by stats thread). */
+	public ValueStatistics intervalLatencyStats()
+	{
+		return _intervalLatencyStats;
+	}
+
+	/** Startup latency statistics. */
+	public ValueStatistics startupLatencyStats()
+	{
+		return _startupLatencyStats;
+	}
+
+	/** Steady-state latency statistics. */
+	public ValueStatistics steadyStateLatencyStats()
+	{
+		return _steadyStateLatencyStats;
+	}
+
+	/** Overall latency statistics. */
+	public ValueStatistics overallLatencyStats()
+	{
+		return _overallLatencyStats;
+	}
+
+	/** Latency percentiles (recorded by stats thread). */
+	public LatencyHistogram intervalLatencyHistogram()
+	{
+		return _intervalLatencyHistogram;
+	}
+
+	/** Steady-state latency percentiles. */
+	public LatencyHistogram steadyStateLatencyHistogram()
+	{
+		return _steadyStateLatencyHistogram;
+	}
+
+	/** Overall latency percentiles. */
+	public LatencyHistogram overallLatencyHistogram()
+	{
+		return _overallLatencyHistogram;
+	}
+
+	/** Bytes allocated per message, sampled each interval (recorded by stats thread). */
+	public ValueStatistics allocationStats()
+	{
+		return _allocationStats;
+	}
+
+	/** Stats thread sets this once it has recorded/printed the image retrieval time. */
+	public boolean imageTimeRecorded()
+	{
+		return _imageTimeRecorded;
+	}
+
+	/** Stats thread sets this once it has recorded/printed the image retrieval time. */
+	public void imageTimeRecorded(boolean imageTimeRecorded)
+	{
+		_imageTimeRecorded = imageTimeRecorded;
+	}
+}
@@ -0,0 +1,375 @@
+package com.thomsonreuters.upa.perftools.emajconsperf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+
+import com.thomsonreuters.ema.access.AckMsg;
+import com.thomsonreuters.ema.access.Data;
+import com.thomsonreuters.ema.access.DataType.DataTypes;
+import com.thomsonreuters.ema.access.EmaFactory;
+import com.thomsonreuters.ema.access.FieldEntry;
+import com.thomsonreuters.ema.access.FieldList;
+import com.thomsonreuters.ema.access.GenericMsg;
+import com.thomsonreuters.ema.access.Msg;
+import com.thomsonreuters.ema.access.OmmConsumer;
+import com.thomsonreuters.ema.access.OmmConsumerClient;
+import com.thomsonreuters.ema.access.OmmConsumerConfig;
+import com.thomsonreuters.ema.access.OmmConsumerEvent;
+import com.thomsonreuters.ema.access.OmmException;
+import com.thomsonreuters.ema.access.OmmState;
+import com.thomsonreuters.ema.access.RefreshMsg;
+import com.thomsonreuters.ema.access.ReqMsg;
+import com.thomsonreuters.ema.access.StatusMsg;
+import com.thomsonreuters.ema.access.UpdateMsg;
+import com.thomsonreuters.upa.perftools.common.ShutdownCallback;
+import com.thomsonreuters.upa.perftools.common.TimeRecord;
+import com.thomsonreuters.upa.perftools.common.TimeRecordQueue;
+import com.thomsonreuters.upa.perftools.common.XmlItemInfo;
+import com.thomsonreuters.upa.perftools.common.XmlItemInfoList;
+
+/**
+ * Provides the logic that the EMA consumer performance application uses for
+ * requesting items through an {@link OmmConsumer} and processing the refreshes
+ * and updates EMA delivers to its {@link OmmConsumerClient} callbacks.
+ * <p>
+ * The consumer is created with the user dispatch operation model, so that EMA
+ * does all of its work, including decoding of messages into
+ * {@link FieldList}s, on this thread. The bytes this thread allocates per
+ * message therefore show the allocation EMA adds to each message.
+ */
+public class EmaConsumerThread implements Runnable, OmmConsumerClient
+{
+	private static final int TIM_TRK_1_FID = 3902; /* Field TIM_TRK_1 is used to send update latency. */
+
+	private EmaConsPerfConfig _consPerfConfig; /* configuration */
+	private XmlItemInfoList _xmlItemInfoList; /* item information list from XML file */
+	private ShutdownCallback _shutdownCallback; /* shutdown callback to main application */
+
+	private OmmConsumer _consumer; /* EMA consumer */
+	private ReqMsg _reqMsg; /* request message, reused for each item */
+	private boolean[] _hasRefresh; /* whether each requested item has received its complete refresh */
+	private int _requestListIndex; /* index of the next item to request */
+	private int _currentTicks; /* current tick out of ticks per second */
+
+	private EmaConsumerStats _stats; /* statistics, collected periodically by the main thread */
+	private TimeRecordQueue _latencyRecords; /* queue of timestamp information, collected periodically by the main thread */
+	private File _statsFile; /* file for logging stats for this connection */
+	private PrintWriter _statsFileWriter; /* file writer for logging stats for this connection */
+	private volatile long _threadId; /* ID of the thread, for measuring its allocation */
+	private volatile boolean _shutdown; /* signals thread to shutdown */
+	private volatile boolean _shutdownAck; /* acknowledges thread is shutdown */
+
+	{
+		_reqMsg = EmaFactory.createReqMsg();
+		_stats = new EmaConsumerStats();
+		_latencyRecords = new TimeRecordQueue();
+	}
+
+	/** Creates the consumer thread, opening its stats file. */
+	public EmaConsumerThread(EmaConsPerfConfig consPerfConfig, XmlItemInfoList xmlItemInfoList, ShutdownCallback shutdownCallback)
+	{
+		_consPerfConfig = consPerfConfig;
+		_xmlItemInfoList = xmlItemInfoList;
+		_shutdownCallback = shutdownCallback;
+		_hasRefresh = new boolean[_consPerfConfig.itemRequestCount()];
+
+		_statsFile = new File(_consPerfConfig.statsFilename() + "1.csv");
+		try
+		{
+			_statsFileWriter = new PrintWriter(_statsFile);
+		}
+		catch (FileNotFoundException e)
+		{
+			System.out.printf("Error: Failed to open stats file '%s'.\n", _statsFile.getName());
+			System.exit(-1);
+		}
+		_statsFileWriter.println("UTC, Latency updates, Latency avg (usec), Latency std dev (usec), Latency max (usec), Latency min (usec), Images, Update rate, CPU usage (%), Memory(MB), Latency p50 (usec), Latency p99 (usec), Latency p99.9 (usec), Latency p99.99 (usec), Allocation per msg (bytes)");
+		_statsFileWriter.flush();
+	}
+
+	/** Run the consumer thread. */
+	public void run()
+	{
+		_threadId = Thread.currentThread().getId();
+
+		try
+		{
+			OmmConsumerConfig config = EmaFactory.createOmmConsumerConfig()
+					.host(_consPerfConfig.hostName() + ":" + _consPerfConfig.portNo())
+					.operationModel(OmmConsumerConfig.OperationModel.USER_DISPATCH);
+			if (_consPerfConfig.username().length() > 0)
+				config.username(_consPerfConfig.username());
+
+			_consumer = EmaFactory.createOmmConsumer(config);
+		}
+		catch (OmmException e)
+		{
+			System.out.printf("Failed to create OmmConsumer: %s\n", e.getMessage());
+			_shutdownCallback.shutdown();
+			_shutdownAck = true;
+			return;
+		}
+
+		System.out.println("Consumer initialized, requesting item(s)...\n");
+
+		long nsecPerTick = 1000000000L / _consPerfConfig.ticksPerSec();
+		long nextTickTime = System.nanoTime() + nsecPerTick;
+
+		try
+		{
+			while (!_shutdown)
+			{
+				long currentTime = System.nanoTime();
+				if (currentTime >= nextTickTime)
+				{
+					nextTickTime += nsecPerTick;
+
+					sendItemRequestBurst();
+
+					if (++_currentTicks == _consPerfConfig.ticksPerSec())
+						_currentTicks = 0;
+				}
+				else
+				{
+					/* A zero timeout waits indefinitely, so wait at least a microsecond. */
+					_consumer.dispatch(Math.max((nextTickTime - currentTime) / 1000, 1));
+				}
+			}
+		}
+		catch (OmmException e)
+		{
+			System.out.printf("Consumer failed: %s\n", e.getMessage());
+			_shutdownCallback.shutdown();
+		}
+
+		_consumer.uninitialize();
+		_shutdownAck = true;
+	}
+
+	/* Sends a burst of item requests. */
+	private void sendItemRequestBurst()
+	{
+		if (_requestListIndex == _consPerfConfig.itemRequestCount())
+			return;
+
+		int requestBurstCount = _consPerfConfig.requestsPerTick();
+		if (_currentTicks < _consPerfConfig.requestsPerTickRemainder())
+			++requestBurstCount;
+
+		if (_stats.imageRetrievalStartTime() == 0)
+			_stats.imageRetrievalStartTime(System.nanoTime());
+
+		XmlItemInfo[] itemInfoList = _xmlItemInfoList.itemInfoList();
+		for (int i = 0; i < requestBurstCount && _requestListIndex < _consPerfConfig.itemRequestCount(); ++i)
+		{
+			XmlItemInfo itemInfo = itemInfoList[_requestListIndex];
+
+			_reqMsg.clear()
+					.domainType(itemInfo.domainType())
+					.serviceName(_consPerfConfig.serviceName())
+					.name(itemInfo.name())
+					.interestAfterRefresh(!_consPerfConfig.requestSnapshots() && !itemInfo.isSnapshot());
+
+			/* The closure identifies the item when its refresh is received. */
+			_consumer.registerClient(_reqMsg, this, Integer.valueOf(_requestListIndex));
+
+			++_requestListIndex;
+			_stats.requestCount().increment();
+		}
+	}
+
+	@Override
+	public void onRefreshMsg(RefreshMsg refreshMsg, OmmConsumerEvent consumerEvent)
+	{
+		_stats.refreshCount().increment();
+
+		if (refreshMsg.payload().dataType() == DataTypes.FIELD_LIST)
+			decodeFieldList(refreshMsg.payload().fieldList(), false);
+
+		if (_stats.imageRetrievalEndTime() != 0)
+			return;
+
+		OmmState state = refreshMsg.state();
+		if (state.streamState() != OmmState.StreamState.OPEN && state.streamState() != OmmState.StreamState.NON_STREAMING)
+		{
+			System.out.printf("Received unexpected final state in refresh for item %s: %s\n", refreshMsg.name(), state.toString());
+			_shutdownCallback.shutdown();
+			return;
+		}
+
+		if (refreshMsg.complete() && state.dataState() == OmmState.DataState.OK)
+		{
+			int itemIndex = ((Integer)consumerEvent.closure()).intValue();
+			if (!_hasRefresh[itemIndex])
+			{
+				_hasRefresh[itemIndex] = true;
+				_stats.refreshCompleteCount().increment();
+				if (_stats.refreshCompleteCount().getTotal() == _consPerfConfig.itemRequestCount())
+					_stats.imageRetrievalEndTime(System.nanoTime());
+			}
+		}
+	}
+
+	@Override
+	public void onUpdateMsg(UpdateMsg updateMsg, OmmConsumerEvent consumerEvent)
+	{
+		if (_stats.imageRetrievalEndTime() > 0)
+			_stats.steadyStateUpdateCount().increment();
+		else
+			_stats.startupUpdateCount().increment();
+
+		if (_stats.firstUpdateTime() == 0)
+			_stats.firstUpdateTime(System.nanoTime());
+
+		if (updateMsg.payload().dataType() == DataTypes.FIELD_LIST)
+			decodeFieldList(updateMsg.payload().fieldList(), true);
+	}
+
+	@Override
+	public void onStatusMsg(StatusMsg statusMsg, OmmConsumerEvent consumerEvent)
+	{
+		_stats.statusCount().increment();
+	}
+
+	@Override
+	public void onGenericMsg(GenericMsg genericMsg, OmmConsumerEvent consumerEvent)
+	{
+	}
+
+	@Override
+	public void onAckMsg(AckMsg ackMsg, OmmConsumerEvent consumerEvent)
+	{
+	}
+
+	@Override
+	public void onAllMsg(Msg msg, OmmConsumerEvent consumerEvent)
+	{
+	}
+
+	/* Reads the value of each field, as an application would, and submits the
+	 * latency of an update that carries a timestamp. */
+	private void decodeFieldList(FieldList fieldList, boolean isUpdate)
+	{
+		long timeTracker = 0;
+
+		for (FieldEntry fieldEntry : fieldList)
+		{
+			if (fieldEntry.code() == Data.DataCode.BLANK)
+				continue;
+
+			switch (fieldEntry.loadType())
+			{
+				case DataTypes.UINT:
+					long uintValue = fieldEntry.uintValue();
+					if (isUpdate && fieldEntry.fieldId() == TIM_TRK_1_FID)
+						timeTracker = uintValue;
+					break;
+				case DataTypes.INT:
+					fieldEntry.intValue();
+					break;
+				case DataTypes.REAL:
+					fieldEntry.real().mantissa();
+					break;
+				case DataTypes.FLOAT:
+					fieldEntry.floatValue();
+					break;
+				case DataTypes.DOUBLE:
+					fieldEntry.doubleValue();
+					break;
+				case DataTypes.DATE:
+					fieldEntry.date().day();
+					break;
+				case DataTypes.TIME:
+					fieldEntry.time().second();
+					break;
+				case DataTypes.DATETIME:
+					fieldEntry.dateTime().second();
+					break;
+				case DataTypes.QOS:
+					fieldEntry.qos().timeliness();
+					break;
+				case DataTypes.STATE:
+					fieldEntry.state().dataState();
+					break;
+				case DataTypes.ENUM:
+					fieldEntry.enumValue();
+					break;
+				case DataTypes.BUFFER:
+					fieldEntry.buffer().buffer();
+					break;
+				case DataTypes.ASCII:
+					fieldEntry.ascii().ascii();
+					break;
+				case DataTypes.UTF8:
+					fieldEntry.utf8().buffer();
+					break;
+				case DataTypes.RMTES:
+					fieldEntry.rmtes().rmtes();
+					break;
+				default:
+					break;
+			}
+		}
+
+		if (timeTracker > 0)
+			timeRecordSubmit(timeTracker, System.nanoTime() / 1000);
+	}
+
+	/* Submit a time record. */
+	private void timeRecordSubmit(long startTime, long endTime)
+	{
+		TimeRecord record = _latencyRecords.pool().poll();
+		if (record == null)
+			record = new TimeRecord();
+
+		record.ticks(1);
+		record.startTime(startTime);
+		record.endTime(endTime);
+
+		_latencyRecords.records().add(record);
+	}
+
+	/** Statistics, collected periodically by the main thread. */
+	public EmaConsumerStats stats()
+	{
+		return _stats;
+	}
+
+	/** Queue of timestamp information, collected periodically by the main thread. */
+	public TimeRecordQueue latencyRecords()
+	{
+		return _latencyRecords;
+	}
+
+	/** File writer for logging stats for this connection. */
+	public PrintWriter statsFileWriter()
+	{
+		return _statsFileWriter;
+	}
+
+	/** ID of the thread, for measuring its allocation, or 0 if it has not started. */
+	public long threadId()
+	{
+		return _threadId;
+	}
+
+	/** Signals thread to shutdown. */
+	public void shutdown(boolean value)
+	{
+		_shutdown = value;
+	}
+
+	/** Acknowledges thread is shutdown. */
+	public boolean shutdownAck()
+	{
+		return _shutdownAck;
+	}
+
+	/** Clean up pools and files */
+	public void cleanup()
+	{
+		_latencyRecords.cleanup();
+		_statsFileWriter.close();
+	}
+}
@@ -0,0 +1,558 @@
+package com.thomsonreuters.upa.perftools.emajconsperf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import com.thomsonreuters.upa.perftools.common.LatencyHistogram;
+import com.thomsonreuters.upa.perftools.common.PerfToolsReturnCodes;
+import com.thomsonreuters.upa.perftools.common.ResourceUsageStats;
+import com.thomsonreuters.upa.perftools.common.ShutdownCallback;
+import com.thomsonreuters.upa.perftools.common.TimeRecord;
+import com.thomsonreuters.upa.perftools.common.TimeRecordQueue;
+import com.thomsonreuters.upa.perftools.common.ValueStatistics;
+import com.thomsonreuters.upa.perftools.common.XmlItemInfoList;
+
+/**
+ * <p>
+ * The emajConsPerf application. Implements a consumer with the EMA
+ * OmmConsumer, which requests items from a provider and processes the images
+ * and updates it receives.
+ * <p>
+ * The purpose of this application is to measure the performance of EMA in
+ * consuming Level I Market Price content, so that it can be compared with
+ * upajConsPerf to show the overhead EMA adds to the UPA transport, encoders
+ * and decoders. It works with the same providers, item files and message
+ * data as upajConsPerf.
+ * </p>
+ * <H2>Summary</H2>
+ * <p>
+ * The consumer creates two threads:
+ * <ul>
+ * <li>A main thread, which collects and records statistical information.
+ * <li>A consumer thread, which creates an OmmConsumer, requests market data,
+ *     and dispatches the messages EMA receives.
+ * </ul>
+ * <p>
+ * To measure latency, a timestamp is randomly placed in each burst of updates by
+ * the provider. The consumer then decodes the timestamp from the update to
+ * determine the end-to-end latency.
+ * <p>
+ * This application also measures memory and CPU usage, and the number of bytes
+ * the consumer thread allocates per message received. Allocation is measured
+ * with the ThreadMXBean extension of the Oracle JDK, and is not reported if the
+ * JVM does not support it.
+ * <p>
+ * This application uses XML Pull Parser (XPP), an open source XML parser library.
+ * <p>
+ * <H2>Setup Environment</H2>
+ * <p>
+ * The following configuration files are required:
+ * <ul>
+ * <li>350k.xml, located in PerfTools
+ * </ul>
+ * <p>
+ * EMA downloads the dictionary from the provider. An EmaConfig.xml file in the
+ * working directory may be used to configure the consumer further.
+ * <p>
+ * <H2>Running the application:</H2>
+ * <p>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../../Libs/upa.jar;../../Libs/upaValueAdd.jar;../../../Ema/Libs/ema.jar;../../../Ema/Libs/apache/*;../../../Ema/Libs/SLF4J/slf4j-1.7.12/*;./xpp3-1.1.3_8.jar;./xpp3_min-1.1.3_8.jar;bin
+ *  com.thomsonreuters.upa.perftools.emajconsperf.emajConsPerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class emajConsPerf implements ShutdownCallback
+{
+	// consumer thread
+	private EmaConsumerThread _consumerThread;
+
+	// application configuration information
+	private final EmaConsPerfConfig _consPerfConfig = new EmaConsPerfConfig();
+
+	// item information list from XML file
+	private XmlItemInfoList _xmlItemInfoList;
+
+	// statistics collected from the consumer thread
+	private EmaConsumerStats _stats;
+
+	// CPU & Memory Usage samples
+	private ValueStatistics _cpuUsageStats, _memUsageStats;
+
+	// bytes allocated by the consumer thread and messages received by it, at the last stats collection
+	private long _allocatedBytes = -1, _msgCount;
+
+	// bytes allocated by the consumer thread and messages received by it, once all images were received
+	private long _steadyStateAllocatedBytes = -1, _steadyStateMsgCount;
+
+	// run-time tracking
+	private long _currentTime, _endTime;
+	private int _currentRuntimeSec = 0, _intervalSeconds = 0;
+
+	// Logs summary information, such as application inputs and final statistics.
+	private File _summaryFile = null;
+	private PrintWriter _summaryFileWriter;
+
+	// stdio writer
+	private PrintWriter _stdOutWriter = new PrintWriter(System.out);
+
+	// timestamp at last stats report
+	private long _previousStatsTime;
+
+	// indicates whether or not application should be shutdown
+	private volatile boolean _shutdownApp = false;
+
+	/** Shutdown emajConsPerf */
+	public void shutdown()
+	{
+		_shutdownApp = true;
+	}
+
+	/** Run emajConsPerf */
+	public void run()
+	{
+		long nextTime;
+
+		_previousStatsTime = System.nanoTime();
+
+		// main statistics polling thread here
+		while(!_shutdownApp)
+		{
+			_currentTime = System.nanoTime();
+			nextTime = _currentTime + 1000000000L;
+
+			if (_intervalSeconds == _consPerfConfig.writeStatsInterval())
+			{
+				collectStats(true, _consPerfConfig.displayStats(), _currentRuntimeSec);
+				_intervalSeconds = 0;
+			}
+
+			if (_stats.imageRetrievalEndTime() > 0 && _consPerfConfig.requestSnapshots())
+			{
+				System.out.println("Received all images for snapshot test.\n");
+				break;
+			}
+
+			if(_currentTime >= _endTime)
+			{
+				if (_stats.imageRetrievalEndTime() == 0)
+					System.out.printf("Error: Failed to receive all images within %d seconds.\n", _consPerfConfig.steadyStateTime());
+				else
+					System.out.printf("\nSteady-state time of %d seconds has expired.\n", _consPerfConfig.steadyStateTime());
+
+				break;
+			}
+
+			try
+			{
+				long sleepTime = (nextTime-System.nanoTime())/1000000;
+				if (sleepTime > 0)
+				{
+					Thread.sleep(sleepTime);
+				}
+				++_currentRuntimeSec;
+				++_intervalSeconds;
+			}
+			catch (InterruptedException e)
+			{
+				System.out.printf("Thread.sleep() failed\n");
+				break;
+			}
+		}
+
+		stopConsumerThread();
+
+		printSummaryStatistics(_stdOutWriter);
+		_stdOutWriter.flush();
+		printSummaryStatistics(_summaryFileWriter);
+		_summaryFileWriter.close();
+
+		_consumerThread.cleanup();
+	}
+
+	/* Initializes emajConsPerf application. */
+	private void initialize(String[] args)
+	{
+		// initialize and print configuration parameters
+		_consPerfConfig.init(args);
+		System.out.println(_consPerfConfig.toString());
+
+		// parse item list XML file
+		// the application exits if any error occured
+		_xmlItemInfoList = new XmlItemInfoList(_consPerfConfig.itemRequestCount());
+		if (_xmlItemInfoList.parseFile(_consPerfConfig.itemFilename()) == PerfToolsReturnCodes.FAILURE)
+		{
+			System.out.printf("Failed to load item list from file '%s'.\n", _consPerfConfig.itemFilename());
+			System.exit(-1);
+		}
+
+		// create summary file writer
+		_summaryFile = new File(_consPerfConfig.summaryFilename());
+		try
+		{
+			_summaryFileWriter = new PrintWriter(_summaryFile);
+		}
+		catch (FileNotFoundException e)
+		{
+			System.out.printf("Error: Failed to open summary file '%s'.\n", _summaryFile.getName());
+			System.exit(-1);
+		}
+
+		//write configuration parameters to summary file
+		_summaryFileWriter.println(_consPerfConfig.toString());
+		_summaryFileWriter.flush();
+
+		System.out.println("Starting consumer...\n");
+
+		_consumerThread = new EmaConsumerThread(_consPerfConfig, _xmlItemInfoList, this);
+		_stats = _consumerThread.stats();
+		new Thread(_consumerThread).start();
+
+		// set application end time
+		_endTime = System.nanoTime() + _consPerfConfig.steadyStateTime() * 1000000000L;
+
+		//create CPU and memory usage statistics
+		_cpuUsageStats = new ValueStatistics();
+		_memUsageStats = new ValueStatistics();
+
+		// Sleep for one more second so some stats can be gathered before first printout.
+		try
+		{
+			Thread.sleep(1000);
+		}
+		catch (InterruptedException e)
+		{
+			System.out.printf("Thread.sleep(1000) failed\n");
+			System.exit(-1);
+		}
+	}
+
+	/* Print summary statistics */
+	private void printSummaryStatistics(PrintWriter fileWriter)
+	{
+		long totalUpdateCount = _stats.startupUpdateCount().getTotal()
+			+ _stats.steadyStateUpdateCount().getTotal();
+
+		fileWriter.printf("\n--- OVERALL SUMMARY ---\n\n");
+
+		fileWriter.printf("Startup State Statistics:\n");
+
+		fileWriter.printf(
+				"  Sampling duration (sec): %.3f\n",
+				((_stats.imageRetrievalStartTime() > 0) ?
+				 ((double)((_stats.imageRetrievalEndTime() > 0) ? _stats.imageRetrievalEndTime() : _currentTime)
+				- (double)(_stats.imageRetrievalStartTime()))/1000000000.0 : 0.0));
+
+		if (_stats.startupLatencyStats().count() > 0)
+		{
+			fileWriter.printf("  Latency avg (usec): %.1f\n", _stats.startupLatencyStats().average());
+			fileWriter.printf("  Latency std dev (usec): %.1f\n", Math.sqrt(_stats.startupLatencyStats().variance()));
+			fileWriter.printf("  Latency max (usec): %.1f\n", _stats.startupLatencyStats().maxValue());
+			fileWriter.printf("  Latency min (usec): %.1f\n", _stats.startupLatencyStats().minValue());
+		}
+		else
+			fileWriter.printf("  No latency information received during startup time.\n\n");
+
+		fileWriter.printf("  Avg update rate: %.0f\n\n",
+				(double)_stats.startupUpdateCount().getTotal()
+				/(double)( (((_stats.imageRetrievalEndTime() > 0) ? _stats.imageRetrievalEndTime() : _currentTime)
+						- _stats.firstUpdateTime())/1000000000.0));
+
+		fileWriter.printf("Steady State Statistics:\n");
+
+		if (_stats.imageRetrievalEndTime() > 0)
+		{
+			fileWriter.printf(
+					"  Sampling duration (sec): %.3f\n",
+					((double)_currentTime - (double)_stats.imageRetrievalEndTime())/1000000000.0);
+
+			if (_stats.steadyStateLatencyStats().count() > 0)
+			{
+				fileWriter.printf("  Latency avg (usec): %.1f\n", _stats.steadyStateLatencyStats().average());
+				fileWriter.printf("  Latency std dev (usec): %.1f\n", Math.sqrt(_stats.steadyStateLatencyStats().variance()));
+				fileWriter.printf("  Latency max (usec): %.1f\n", _stats.steadyStateLatencyStats().maxValue());
+				fileWriter.printf("  Latency min (usec): %.1f\n", _stats.steadyStateLatencyStats().minValue());
+				printLatencyPercentiles(fileWriter, "Latency", _stats.steadyStateLatencyHistogram());
+			}
+			else
+				fileWriter.printf("  No latency information was received during steady-state time.\n");
+
+			fileWriter.printf("  Avg update rate: %.0f\n",
+					(double)_stats.steadyStateUpdateCount().getTotal()
+					/(double)((_currentTime - _stats.imageRetrievalEndTime())/1000000000.0));
+
+			if (_steadyStateAllocatedBytes >= 0 && _msgCount > _steadyStateMsgCount)
+				fileWriter.printf("  Allocation per msg (bytes): %.1f\n",
+						(double)(_allocatedBytes - _steadyStateAllocatedBytes)/(double)(_msgCount - _steadyStateMsgCount));
+
+			fileWriter.printf("\n");
+		}
+		else
+			fileWriter.printf("  Steady state was not reached during this test.\n\n");
+
+		fileWriter.printf("Overall Statistics: \n");
+
+		fileWriter.printf(
+				"  Sampling duration (sec): %.3f\n",
+				((_stats.imageRetrievalStartTime() > 0) ?
+				((double)_currentTime
+				 - (double)_stats.imageRetrievalStartTime())/1000000000.0 : 0.0));
+
+		if (_stats.overallLatencyStats().count() > 0)
+		{
+			fileWriter.printf("  Latency avg (usec): %.1f\n", _stats.overallLatencyStats().average());
+			fileWriter.printf("  Latency std dev (usec): %.1f\n", Math.sqrt(_stats.overallLatencyStats().variance()));
+			fileWriter.printf("  Latency max (usec): %.1f\n", _stats.overallLatencyStats().maxValue());
+			fileWriter.printf("  Latency min (usec): %.1f\n", _stats.overallLatencyStats().minValue());
+			printLatencyPercentiles(fileWriter, "Latency", _stats.overallLatencyHistogram());
+		}
+		else
+			fileWriter.printf("  No latency information was received.\n");
+
+		if (_stats.allocationStats().count() > 0)
+		{
+			fileWriter.printf("  Allocation per msg max (bytes): %.1f\n", _stats.allocationStats().maxValue());
+			fileWriter.printf("  Allocation per msg min (bytes): %.1f\n", _stats.allocationStats().minValue());
+			fileWriter.printf("  Allocation per msg avg (bytes): %.1f\n", _stats.allocationStats().average());
+		}
+		else if (_allocatedBytes < 0)
+			fileWriter.printf("  Allocation per msg is not measured by this JVM.\n");
+
+		if (_cpuUsageStats.count() > 0)
+		{
+			fileWriter.printf("  CPU/Memory Samples: %d\n", _cpuUsageStats.count());
+			fileWriter.printf("  CPU Usage max (%%): %.2f\n", _cpuUsageStats.maxValue());
+			fileWriter.printf("  CPU Usage min (%%): %.2f\n", _cpuUsageStats.minValue());
+			fileWriter.printf("  CPU Usage avg (%%): %.2f\n", _cpuUsageStats.average());
+			fileWriter.printf("  Memory Usage max (MB): %.2f\n", _memUsageStats.maxValue());
+			fileWriter.printf("  Memory Usage min (MB): %.2f\n", _memUsageStats.minValue());
+			fileWriter.printf("  Memory Usage avg (MB): %.2f\n", _memUsageStats.average());
+		}
+
+		fileWriter.printf("\nTest Statistics:\n");
+
+		fileWriter.printf("  Requests sent: %d\n", _stats.requestCount().getTotal());
+		fileWriter.printf("  Refreshes received: %d\n", _stats.refreshCount().getTotal());
+		fileWriter.printf("  Updates received: %d\n", totalUpdateCount);
+
+		if (_stats.imageRetrievalEndTime() > 0)
+		{
+			long totalRefreshRetrievalTime = (_stats.imageRetrievalEndTime() -
+					_stats.imageRetrievalStartTime());
+
+			fileWriter.printf("  Image retrieval time (sec): %.3f\n", (double)totalRefreshRetrievalTime/1000000000.0);
+			fileWriter.printf("  Avg image Rate: %.0f\n", (double)_consPerfConfig.itemRequestCount()/((double)totalRefreshRetrievalTime/1000000000.0));
+		}
+
+		fileWriter.printf("  Avg update rate: %.0f\n",
+				(double)totalUpdateCount/(double)((_currentTime - _stats.firstUpdateTime())/1000000000.0));
+
+		fileWriter.printf("\n");
+	}
+
+	/* Print latency percentiles to the summary file. */
+	private void printLatencyPercentiles(PrintWriter fileWriter, String latencyName, LatencyHistogram latencyHistogram)
+	{
+		fileWriter.printf("  %s p50 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(50.0));
+		fileWriter.printf("  %s p99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.0));
+		fileWriter.printf("  %s p99.9 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.9));
+		fileWriter.printf("  %s p99.99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.99));
+	}
+
+	/* Collect statistics. */
+	private void collectStats(boolean writeStats, boolean displayStats, int currentRuntimeSec)
+	{
+		long timeNow = System.nanoTime();
+		long statsInterval = timeNow - _previousStatsTime;
+		_previousStatsTime = timeNow;
+
+		double processCpuLoad = ResourceUsageStats.currentProcessCpuLoad();
+		double memoryUsage = ResourceUsageStats.currentMemoryUsage();
+
+		_cpuUsageStats.update(processCpuLoad);
+		_memUsageStats.update(memoryUsage);
+
+		/* Gather latency records from the consumer thread and update statistics. */
+		collectUpdateStats();
+
+		/* Collect counts. */
+		long startupUpdateCount = _stats.startupUpdateCount().getChange();
+		long steadyStateUpdateCount = _stats.steadyStateUpdateCount().getChange();
+		long statusCount = _stats.statusCount().getChange();
+		long refreshCount = _stats.refreshCount().getChange();
+
+		double allocationPerMsg = collectAllocationStats(refreshCount + startupUpdateCount + steadyStateUpdateCount);
+
+		if (writeStats)
+		{
+			/* Log statistics to file. */
+			printCurrentTimeUTC(_consumerThread.statsFileWriter());
+			_consumerThread.statsFileWriter().printf(
+					", %d, %.1f, %.1f, %.1f, %.1f, %d, %d, %.2f, %.2f, %.1f, %.1f, %.1f, %.1f, %.1f\n",
+					_stats.intervalLatencyStats().count(),
+					_stats.intervalLatencyStats().average(),
+					Math.sqrt(_stats.intervalLatencyStats().variance()),
+					((_stats.intervalLatencyStats().count() > 0) ? _stats.intervalLatencyStats().maxValue() : 0.0),
+					((_stats.intervalLatencyStats().count() > 0) ? _stats.intervalLatencyStats().minValue() : 0.0),
+					refreshCount,
+					(startupUpdateCount + steadyStateUpdateCount)*1000000000L/statsInterval,
+					processCpuLoad,
+					memoryUsage,
+					_stats.intervalLatencyHistogram().valueAtPercentile(50.0),
+					_stats.intervalLatencyHistogram().valueAtPercentile(99.0),
+					_stats.intervalLatencyHistogram().valueAtPercentile(99.9),
+					_stats.intervalLatencyHistogram().valueAtPercentile(99.99),
+					allocationPerMsg);
+			_consumerThread.statsFileWriter().flush();
+		}
+
+		if (displayStats)
+		{
+			System.out.printf("%03d: ", currentRuntimeSec);
+
+			System.out.printf("Images: %6d, UpdRate: %8d, CPU: %6.2f%%, Mem: %6.2fMB, Alloc/Msg: %6.0fB\n",
+					refreshCount,
+					(startupUpdateCount + steadyStateUpdateCount)*1000000000L/statsInterval,
+					processCpuLoad,
+					memoryUsage,
+					allocationPerMsg);
+
+			if (_stats.intervalLatencyStats().count() > 0)
+			{
+				_stats.intervalLatencyStats().print("  Latency(usec)", "Msgs", false);
+				_stats.intervalLatencyHistogram().print("  Latency(usec)", "Msgs", false);
+			}
+
+			if (statusCount > 0)
+				System.out.printf("  - Received %d status messages.\n", statusCount);
+		}
+
+		/* Latency and percentiles in the stats file and on screen cover only this interval. */
+		_stats.intervalLatencyStats().clear();
+		_stats.intervalLatencyHistogram().clear();
+
+		/* Get image retrieval time. */
+		if (!_stats.imageTimeRecorded() && _stats.imageRetrievalEndTime() > 0)
+		{
+			_stats.imageTimeRecorded(true);
+			_endTime = _stats.imageRetrievalEndTime() + _consPerfConfig.steadyStateTime() * 1000000000L;
+
+			/* Allocation from here on is counted towards steady state. */
+			_steadyStateAllocatedBytes = _allocatedBytes;
+			_steadyStateMsgCount = _msgCount;
+
+			if (displayStats)
+			{
+				long imageRetrievalTime = _stats.imageRetrievalEndTime() - _stats.imageRetrievalStartTime();
+
+				System.out.printf("  - Image retrieval time for %d images: %.3fs (%.0f images/s)\n",
+						_consPerfConfig.itemRequestCount(),
+						(double)imageRetrievalTime/1000000000.0,
+						(double)(_consPerfConfig.itemRequestCount())/
+						((double)imageRetrievalTime /1000000000.0));
+			}
+		}
+	}
+
+	/* Samples the bytes the consumer thread has allocated, returning the bytes
+	 * allocated per message since the last sample, or 0 if not known. */
+	private double collectAllocationStats(long msgCount)
+	{
+		long threadId = _consumerThread.threadId();
+		long allocatedBytes = (threadId != 0) ? ResourceUsageStats.threadAllocatedBytes(threadId) : -1;
+		double allocationPerMsg = 0;
+
+		if (allocatedBytes < 0)
+			return allocationPerMsg;
+
+		if (_allocatedBytes >= 0 && msgCount > 0)
+		{
+			allocationPerMsg = (double)(allocatedBytes - _allocatedBytes)/(double)msgCount;
+			_stats.allocationStats().update(allocationPerMsg);
+		}
+
+		_allocatedBytes = allocatedBytes;
+		_msgCount += msgCount;
+
+		return allocationPerMsg;
+	}
+
+	/* Collect update statistics. */
+	private void collectUpdateStats()
+	{
+		TimeRecordQueue latencyRecords = _consumerThread.latencyRecords();
+
+		while (!latencyRecords.records().isEmpty())
+		{
+			TimeRecord record = latencyRecords.records().poll();
+			double latency = (double)(record.endTime() - record.startTime())/(double)record.ticks();
+			double recordEndTimeNsec = (double)record.endTime()/(double)record.ticks() * 1000.0;
+
+			/* Make sure this latency is counted towards startup or steady-state as appropriate. */
+			boolean latencyIsSteadyState =
+				_stats.imageRetrievalEndTime() != 0
+				&& recordEndTimeNsec > (double)_stats.imageRetrievalEndTime();
+
+			_stats.intervalLatencyStats().update(latency);
+			_stats.overallLatencyStats().update(latency);
+			_stats.intervalLatencyHistogram().update(latency);
+			_stats.overallLatencyHistogram().update(latency);
+			if (latencyIsSteadyState)
+			{
+				_stats.steadyStateLatencyStats().update(latency);
+				_stats.steadyStateLatencyHistogram().update(latency);
+			}
+			else
+			{
+				_stats.startupLatencyStats().update(latency);
+			}
+
+			latencyRecords.pool().add(record);
+		}
+	}
+
+	/* Stop the consumer thread. */
+	private void stopConsumerThread()
+	{
+		_consumerThread.shutdown(true);
+
+		// wait for consumer thread cleanup
+		while (!_consumerThread.shutdownAck())
+		{
+			try
+			{
+				Thread.sleep(1000);
+			}
+			catch (InterruptedException e)
+			{
+				System.out.printf("Thread.sleep(1000) failed\n");
+				System.exit(-1);
+			}
+		}
+	}
+
+	/* Prints the current time, in Coordinated Universal Time. */
+	private void printCurrentTimeUTC(PrintWriter fileWriter)
+	{
+		Calendar rightNow = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+		fileWriter.printf("%d-%02d-%02d %02d:%02d:%02d",
+				rightNow.get(Calendar.YEAR), rightNow.get(Calendar.MONTH), rightNow.get(Calendar.DAY_OF_MONTH),
+				rightNow.get(Calendar.HOUR_OF_DAY), rightNow.get(Calendar.MINUTE), rightNow.get(Calendar.SECOND));
+	}
+
+	public static void main(String[] args)
+	{
+		emajConsPerf consumerperf = new emajConsPerf();
+		consumerperf.initialize(args);
+		consumerperf.run();
+		System.exit(0);
+	}
+}
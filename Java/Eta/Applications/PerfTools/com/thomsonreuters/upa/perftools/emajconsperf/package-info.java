@@ -0,0 +1,4 @@
+/**
+ * The emajConsPerf application package.
+ */
+package com.thomsonreuters.upa.perftools.emajconsperf;
\ No newline at end of file
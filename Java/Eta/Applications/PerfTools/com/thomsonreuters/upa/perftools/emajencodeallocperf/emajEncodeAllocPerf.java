@@ -0,0 +1,175 @@
+package com.thomsonreuters.upa.perftools.emajencodeallocperf;
+
+import java.nio.ByteBuffer;
+
+import com.thomsonreuters.ema.access.EmaFactory;
+import com.thomsonreuters.ema.access.FieldList;
+import com.thomsonreuters.ema.access.JUnitTestConnect;
+import com.thomsonreuters.ema.access.OmmReal;
+import com.thomsonreuters.ema.access.UpdateMsg;
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+import com.thomsonreuters.upa.perftools.common.ResourceUsageStats;
+
+/**
+ * The emajEncodeAllocPerf application. Measures the heap allocated, and the
+ * time taken, for each update message an EMA publisher encodes.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * The application encodes <i>-messages</i> UpdateMsgs, each with a FieldList
+ * payload of <i>-fieldCount</i> REAL fields, and copies each encoded message
+ * into one output buffer, as it would be copied into a transport buffer. This
+ * is done three ways:
+ * <ul>
+ * <li><i>reuse</i>: one FieldList and one UpdateMsg, cleared before each message
+ * <li><i>newCleared</i>: a new FieldList and UpdateMsg for each message, cleared
+ * once the message is encoded, which returns their encode buffers to the pool
+ * <li><i>new</i>: a new FieldList and UpdateMsg for each message, dropped
+ * without being cleared
+ * </ul>
+ * The bytes allocated by the encoding thread and the time taken are reported
+ * per message for each way. Allocation is measured with the JVM's thread
+ * allocation counter, and reported as n/a where the JVM has none.
+ * <p>
+ * The field entries are created for each message in all three ways, so the
+ * difference between them is the encode buffers and the objects themselves.
+ * <p>
+ * <H2>Running the application:</H2>
+ * <p>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../../Libs/upa.jar;../../Libs/upaValueAdd.jar;../../../Ema/Libs/ema.jar;../../../Ema/Libs/apache/*;../../../Ema/Libs/SLF4J/slf4j-1.7.12/*;bin
+ *  com.thomsonreuters.upa.perftools.emajencodeallocperf.emajEncodeAllocPerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class emajEncodeAllocPerf
+{
+	private static final int REUSE = 0;
+	private static final int NEW_CLEARED = 1;
+	private static final int NEW = 2;
+
+	// first field id of the payload; the fields need no dictionary to be encoded
+	private static final int FIRST_FID = 22;
+
+	private final FieldList _fieldList = EmaFactory.createFieldList();
+	private final UpdateMsg _updateMsg = EmaFactory.createUpdateMsg();
+	private final Buffer _outBuffer = CodecFactory.createBuffer();
+
+	private int _fieldCount;
+	private int _messages;
+	private int _warmup;
+	private long _sequence;
+
+	static
+	{
+		CommandLine.programName("emajEncodeAllocPerf");
+		CommandLine.addOption("fieldCount", 20, "Number of fields in the payload of each message");
+		CommandLine.addOption("messages", 1000000, "Number of messages encoded for each measurement");
+		CommandLine.addOption("warmup", 200000, "Number of messages encoded before each measurement");
+	}
+
+	private void init(String[] args)
+	{
+		try
+		{
+			CommandLine.parseArgs(args);
+		}
+		catch (IllegalArgumentException ile)
+		{
+			System.err.println("Error loading command line arguments:\t");
+			System.err.println(ile.getMessage());
+			System.err.println();
+			System.err.println(CommandLine.optionHelpString());
+			System.exit(CodecReturnCodes.FAILURE);
+		}
+
+		_fieldCount = CommandLine.intValue("fieldCount");
+		_messages = CommandLine.intValue("messages");
+		_warmup = CommandLine.intValue("warmup");
+
+		if (_fieldCount < 1 || _messages < 1)
+		{
+			System.err.println("Config Error: fieldCount and messages must be at least 1.");
+			System.exit(CodecReturnCodes.FAILURE);
+		}
+
+		_outBuffer.data(ByteBuffer.allocate(65536));
+	}
+
+	private void run()
+	{
+		System.out.printf("%-12s %8s %16s %16s\n", "Method", "Fields", "bytes/msg", "nsec/msg");
+
+		measure("reuse", REUSE);
+		measure("newCleared", NEW_CLEARED);
+		measure("new", NEW);
+	}
+
+	private void measure(String name, int method)
+	{
+		for (int i = 0; i < _warmup; ++i)
+			publish(method);
+
+		long threadId = Thread.currentThread().getId();
+		long startBytes = ResourceUsageStats.threadAllocatedBytes(threadId);
+		long startTime = System.nanoTime();
+		for (int i = 0; i < _messages; ++i)
+			publish(method);
+		long nsec = System.nanoTime() - startTime;
+		long endBytes = ResourceUsageStats.threadAllocatedBytes(threadId);
+
+		String bytes = (startBytes < 0 ? "n/a" : String.format("%.1f", (double)(endBytes - startBytes) / _messages));
+		System.out.printf("%-12s %8d %16s %16.1f\n", name, _fieldCount, bytes, (double)nsec / _messages);
+	}
+
+	/* Builds one update message and copies it, encoded, into the output buffer. */
+	private void publish(int method)
+	{
+		FieldList fieldList;
+		UpdateMsg updateMsg;
+
+		if (method == REUSE)
+		{
+			fieldList = _fieldList;
+			updateMsg = _updateMsg;
+			fieldList.clear();
+			updateMsg.clear();
+		}
+		else
+		{
+			fieldList = EmaFactory.createFieldList();
+			updateMsg = EmaFactory.createUpdateMsg();
+		}
+
+		++_sequence;
+		for (int i = 0; i < _fieldCount; ++i)
+			fieldList.add(EmaFactory.createFieldEntry().real(FIRST_FID + i, _sequence + i, OmmReal.MagnitudeType.EXPONENT_NEG_2));
+
+		updateMsg.payload(fieldList);
+
+		_outBuffer.data().clear();
+		JUnitTestConnect.setRsslData(_outBuffer, updateMsg);
+
+		if (method == NEW_CLEARED)
+		{
+			fieldList.clear();
+			updateMsg.clear();
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		emajEncodeAllocPerf allocPerf = new emajEncodeAllocPerf();
+		allocPerf.init(args);
+		allocPerf.run();
+		System.exit(0);
+	}
+}
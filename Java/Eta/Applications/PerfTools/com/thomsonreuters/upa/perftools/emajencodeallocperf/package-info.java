@@ -0,0 +1,4 @@
+/**
+ * The emajEncodeAllocPerf application package.
+ */
+package com.thomsonreuters.upa.perftools.emajencodeallocperf;
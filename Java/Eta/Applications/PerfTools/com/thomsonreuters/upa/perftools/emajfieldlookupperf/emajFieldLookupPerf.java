@@ -0,0 +1,200 @@
+package com.thomsonreuters.upa.perftools.emajfieldlookupperf;
+
+import java.util.Iterator;
+
+import com.thomsonreuters.ema.access.EmaFactory;
+import com.thomsonreuters.ema.access.FieldEntry;
+import com.thomsonreuters.ema.access.FieldList;
+import com.thomsonreuters.ema.access.JUnitTestConnect;
+import com.thomsonreuters.ema.access.OmmReal;
+import com.thomsonreuters.upa.codec.Codec;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.codec.DataDictionary;
+import com.thomsonreuters.upa.codec.DataTypes;
+import com.thomsonreuters.upa.codec.DictionaryEntry;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.transport.TransportFactory;
+
+/**
+ * The emajFieldLookupPerf application. Measures the time taken to read a few
+ * fields of a received EMA FieldList by field id, compared with iterating
+ * over its entries to find them.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * The application encodes a FieldList of <i>-fieldCount</i> REAL fields,
+ * taken from the field dictionary. For each count given with <i>-lookups</i>,
+ * it then decodes the encoded list <i>-iterations</i> times, as EMA does when
+ * the list is received, and reads that many of its fields each time, with
+ * FieldList.fieldEntry(fid) and with an iteration over the list. The fields
+ * read are the last ones in the list. The average time per decoded list is
+ * reported for each method.
+ * <p>
+ * <H2>Setup Environment</H2>
+ * <p>
+ * The following configuration files are required:
+ * <ul>
+ * <li>RDMFieldDictionary and enumtype.def, located in the <i>etc</i> directory
+ * </ul>
+ * <p>
+ * <H2>Running the application:</H2>
+ * <p>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../../Libs/upa.jar;../../Libs/upaValueAdd.jar;../../../Ema/Libs/ema.jar;../../../Ema/Libs/apache/*;../../../Ema/Libs/SLF4J/slf4j-1.7.12/*;bin
+ *  com.thomsonreuters.upa.perftools.emajfieldlookupperf.emajFieldLookupPerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class emajFieldLookupPerf
+{
+	private final Error _error = TransportFactory.createError();
+	private final DataDictionary _dictionary = CodecFactory.createDataDictionary();
+	private final FieldList _encodedFieldList = EmaFactory.createFieldList();
+	private final FieldList _decodedFieldList = EmaFactory.createFieldList();
+
+	private int _fieldCount;
+	private int[] _lookups;
+	private int _iterations;
+	private int _warmup;
+
+	// field ids of the encoded list, in order
+	private int[] _fids;
+
+	// prevents the values read from being optimized away
+	private double _sum;
+
+	static
+	{
+		CommandLine.programName("emajFieldLookupPerf");
+		CommandLine.addOption("fieldDictionary", "../../etc/RDMFieldDictionary", "Name of the field dictionary file");
+		CommandLine.addOption("enumTypeDictionary", "../../etc/enumtype.def", "Name of the enumerated types dictionary file");
+		CommandLine.addOption("fieldCount", 50, "Number of fields in the field list");
+		CommandLine.addOption("lookups", "1,5,20", "Comma-separated numbers of fields read from each decoded list");
+		CommandLine.addOption("iterations", 100000, "Number of times the list is decoded for each measurement");
+		CommandLine.addOption("warmup", 100000, "Number of times the list is decoded before each measurement");
+	}
+
+	private void init(String[] args)
+	{
+		try
+		{
+			CommandLine.parseArgs(args);
+
+			String[] lookups = CommandLine.value("lookups").split(",");
+			_lookups = new int[lookups.length];
+			for (int i = 0; i < lookups.length; ++i)
+				_lookups[i] = Integer.parseInt(lookups[i].trim());
+		}
+		catch (IllegalArgumentException ile)
+		{
+			System.err.println("Error loading command line arguments:\t");
+			System.err.println(ile.getMessage());
+			System.err.println();
+			System.err.println(CommandLine.optionHelpString());
+			System.exit(CodecReturnCodes.FAILURE);
+		}
+
+		_fieldCount = CommandLine.intValue("fieldCount");
+		_iterations = CommandLine.intValue("iterations");
+		_warmup = CommandLine.intValue("warmup");
+
+		if (_dictionary.loadFieldDictionary(CommandLine.value("fieldDictionary"), _error) < 0
+				|| _dictionary.loadEnumTypeDictionary(CommandLine.value("enumTypeDictionary"), _error) < 0)
+		{
+			System.err.println("Unable to load dictionary: " + _error.text());
+			System.exit(CodecReturnCodes.FAILURE);
+		}
+
+		/* Encode a list of REAL fields, in the order of their field ids. */
+		_fids = new int[_fieldCount];
+		int count = 0;
+		for (int fid = 1; fid <= _dictionary.maxFid() && count < _fieldCount; ++fid)
+		{
+			DictionaryEntry entry = _dictionary.entry(fid);
+			if (entry == null || entry.rwfType() != DataTypes.REAL)
+				continue;
+
+			_encodedFieldList.add(EmaFactory.createFieldEntry().real(fid, 1000 + fid, OmmReal.MagnitudeType.EXPONENT_NEG_2));
+			_fids[count++] = fid;
+		}
+
+		if (count < _fieldCount)
+		{
+			System.err.println("Config Error: the field dictionary has only " + count + " REAL fields.");
+			System.exit(CodecReturnCodes.FAILURE);
+		}
+
+		for (int i = 0; i < _lookups.length; ++i)
+		{
+			if (_lookups[i] < 1 || _lookups[i] > _fieldCount)
+			{
+				System.err.println("Config Error: lookups must be between 1 and fieldCount.");
+				System.exit(CodecReturnCodes.FAILURE);
+			}
+		}
+	}
+
+	private void run()
+	{
+		System.out.printf("%-10s %8s %8s %16s\n", "Method", "Fields", "Lookups", "nsec/list");
+
+		for (int i = 0; i < _lookups.length; ++i)
+		{
+			measure("fieldEntry", true, _lookups[i]);
+			measure("iterator", false, _lookups[i]);
+		}
+	}
+
+	private void measure(String name, boolean byFid, int lookups)
+	{
+		for (int i = 0; i < _warmup; ++i)
+			decodeAndRead(byFid, lookups);
+
+		long startTime = System.nanoTime();
+		for (int i = 0; i < _iterations; ++i)
+			decodeAndRead(byFid, lookups);
+		long nsec = System.nanoTime() - startTime;
+
+		System.out.printf("%-10s %8d %8d %16.1f\n", name, _fieldCount, lookups, (double)nsec / _iterations);
+	}
+
+	/* Decodes the encoded list and reads the values of its last fields. */
+	private void decodeAndRead(boolean byFid, int lookups)
+	{
+		JUnitTestConnect.setRsslData(_decodedFieldList, _encodedFieldList, Codec.majorVersion(), Codec.minorVersion(), _dictionary, null);
+
+		int firstFid = _fids[_fieldCount - lookups];
+		if (byFid)
+		{
+			for (int i = _fieldCount - lookups; i < _fieldCount; ++i)
+				_sum += _decodedFieldList.fieldEntry(_fids[i]).real().asDouble();
+		}
+		else
+		{
+			Iterator<FieldEntry> iter = _decodedFieldList.iterator();
+			while (iter.hasNext())
+			{
+				FieldEntry fieldEntry = iter.next();
+				if (fieldEntry.fieldId() >= firstFid)
+					_sum += fieldEntry.real().asDouble();
+			}
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		emajFieldLookupPerf lookupPerf = new emajFieldLookupPerf();
+		lookupPerf.init(args);
+		lookupPerf.run();
+		if (lookupPerf._sum == 0)
+			System.out.println();
+		System.exit(0);
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * The emajFieldLookupPerf application package.
+ */
+package com.thomsonreuters.upa.perftools.emajfieldlookupperf;
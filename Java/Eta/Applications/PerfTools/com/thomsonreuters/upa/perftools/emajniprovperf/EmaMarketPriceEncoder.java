@@ -0,0 +1,218 @@
+package com.thomsonreuters.upa.perftools.emajniprovperf;
+
+import java.nio.ByteBuffer;
+
+import com.thomsonreuters.ema.access.EmaFactory;
+import com.thomsonreuters.ema.access.FieldList;
+import com.thomsonreuters.ema.access.OmmQos;
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.DataTypes;
+import com.thomsonreuters.upa.codec.Date;
+import com.thomsonreuters.upa.codec.DateTime;
+import com.thomsonreuters.upa.codec.Enum;
+import com.thomsonreuters.upa.codec.Int;
+import com.thomsonreuters.upa.codec.Qos;
+import com.thomsonreuters.upa.codec.QosRates;
+import com.thomsonreuters.upa.codec.QosTimeliness;
+import com.thomsonreuters.upa.codec.Real;
+import com.thomsonreuters.upa.codec.State;
+import com.thomsonreuters.upa.codec.Time;
+import com.thomsonreuters.upa.codec.UInt;
+import com.thomsonreuters.upa.perftools.common.MarketField;
+import com.thomsonreuters.upa.perftools.common.MarketPriceMsg;
+import com.thomsonreuters.upa.perftools.common.XmlMsgData;
+
+/**
+ * Fills EMA field lists with the Market Price content of the message data
+ * file, for the EMA non-interactive provider performance application.
+ * <p>
+ * String and buffer values are converted once, when the encoder is created,
+ * so that filling a field list only costs what EMA itself does.
+ */
+public class EmaMarketPriceEncoder
+{
+	private static final int TIM_TRK_1_FID = 3902; /* Field TIM_TRK_1 is used to send update latency. */
+	private static final int TIM_TRK_2_FID = 3903; /* Field TIM_TRK_2 is used to send post latency. */
+	private static final int TIM_TRK_3_FID = 3904; /* Field TIM_TRK_3 is used to send generic msg latency. */
+
+	private MarketPriceMsg _refreshMsg; /* refresh message data */
+	private Object[] _refreshValues; /* converted string and buffer values of the refresh */
+	private MarketPriceMsg[] _updateMsgs; /* update message data */
+	private Object[][] _updateValues; /* converted string and buffer values of each update */
+	private int _updateMsgCount; /* number of update messages */
+	private int _updateMsgIndex; /* index of the next update message to send */
+
+	/** Creates the encoder for the messages in the message data file. */
+	public EmaMarketPriceEncoder(XmlMsgData msgData)
+	{
+		_refreshMsg = msgData.marketPriceRefreshMsg();
+		_refreshValues = convertValues(_refreshMsg);
+
+		_updateMsgs = msgData.marketPriceUpdateMsgs();
+		_updateMsgCount = msgData.marketPriceUpdateMsgCount();
+		_updateValues = new Object[_updateMsgCount][];
+		for (int i = 0; i < _updateMsgCount; ++i)
+			_updateValues[i] = convertValues(_updateMsgs[i]);
+	}
+
+	/** Fills the field list with the refresh content, including blank latency fields. */
+	public void encodeRefresh(FieldList fieldList)
+	{
+		fieldList.clear();
+		encodeFields(fieldList, _refreshMsg, _refreshValues);
+
+		/* Include the latency time fields in refreshes. */
+		fieldList.add(EmaFactory.createFieldEntry().codeUInt(TIM_TRK_1_FID));
+		fieldList.add(EmaFactory.createFieldEntry().codeUInt(TIM_TRK_2_FID));
+		fieldList.add(EmaFactory.createFieldEntry().codeUInt(TIM_TRK_3_FID));
+	}
+
+	/**
+	 * Fills the field list with the content of the next update, adding the
+	 * latency timestamp (in microseconds) if it is non-zero.
+	 */
+	public void encodeUpdate(FieldList fieldList, long latencyStartTime)
+	{
+		fieldList.clear();
+		encodeFields(fieldList, _updateMsgs[_updateMsgIndex], _updateValues[_updateMsgIndex]);
+
+		if (++_updateMsgIndex == _updateMsgCount)
+			_updateMsgIndex = 0;
+
+		if (latencyStartTime > 0)
+			fieldList.add(EmaFactory.createFieldEntry().uintValue(TIM_TRK_1_FID, latencyStartTime));
+	}
+
+	/* Adds an entry to the field list for each field of the message. FieldList.clear()
+	 * returns the entries to EMA's pool, so a new entry is created for each add. */
+	private void encodeFields(FieldList fieldList, MarketPriceMsg mpMsg, Object[] values)
+	{
+		for (int i = 0; i < mpMsg.fieldEntryCount(); ++i)
+		{
+			MarketField field = mpMsg.fieldEntries()[i];
+			int fieldId = field.fieldEntry().fieldId();
+			Object value = field.value();
+
+			switch (field.fieldEntry().dataType())
+			{
+				case DataTypes.INT:
+					fieldList.add(EmaFactory.createFieldEntry().intValue(fieldId, ((Int)value).toLong()));
+					break;
+				case DataTypes.UINT:
+					fieldList.add(EmaFactory.createFieldEntry().uintValue(fieldId, ((UInt)value).toLong()));
+					break;
+				case DataTypes.FLOAT:
+					fieldList.add(EmaFactory.createFieldEntry().floatValue(fieldId, ((com.thomsonreuters.upa.codec.Float)value).toFloat()));
+					break;
+				case DataTypes.DOUBLE:
+					fieldList.add(EmaFactory.createFieldEntry().doubleValue(fieldId, ((com.thomsonreuters.upa.codec.Double)value).toDouble()));
+					break;
+				case DataTypes.REAL:
+					/* EMA magnitude types have the same values as the UPA real hints. */
+					fieldList.add(EmaFactory.createFieldEntry().real(fieldId, ((Real)value).toLong(), ((Real)value).hint()));
+					break;
+				case DataTypes.DATE:
+					Date date = (Date)value;
+					fieldList.add(EmaFactory.createFieldEntry().date(fieldId, date.year(), date.month(), date.day()));
+					break;
+				case DataTypes.TIME:
+					Time time = (Time)value;
+					fieldList.add(EmaFactory.createFieldEntry().time(fieldId, time.hour(), time.minute(), time.second(),
+							time.millisecond(), time.microsecond(), time.nanosecond()));
+					break;
+				case DataTypes.DATETIME:
+					DateTime dateTime = (DateTime)value;
+					fieldList.add(EmaFactory.createFieldEntry().dateTime(fieldId, dateTime.year(), dateTime.month(), dateTime.day(),
+							dateTime.hour(), dateTime.minute(), dateTime.second(),
+							dateTime.millisecond(), dateTime.microsecond(), dateTime.nanosecond()));
+					break;
+				case DataTypes.QOS:
+					fieldList.add(EmaFactory.createFieldEntry().qos(fieldId, emaTimeliness((Qos)value), emaRate((Qos)value)));
+					break;
+				case DataTypes.STATE:
+					State state = (State)value;
+					fieldList.add(EmaFactory.createFieldEntry().state(fieldId, state.streamState(), state.dataState(), state.code(), (String)values[i]));
+					break;
+				case DataTypes.ENUM:
+					fieldList.add(EmaFactory.createFieldEntry().enumValue(fieldId, ((Enum)value).toInt()));
+					break;
+				case DataTypes.BUFFER:
+					fieldList.add(EmaFactory.createFieldEntry().buffer(fieldId, (ByteBuffer)values[i]));
+					break;
+				case DataTypes.ASCII_STRING:
+					fieldList.add(EmaFactory.createFieldEntry().ascii(fieldId, (String)values[i]));
+					break;
+				case DataTypes.UTF8_STRING:
+					fieldList.add(EmaFactory.createFieldEntry().utf8(fieldId, (ByteBuffer)values[i]));
+					break;
+				case DataTypes.RMTES_STRING:
+					fieldList.add(EmaFactory.createFieldEntry().rmtes(fieldId, (ByteBuffer)values[i]));
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	/* Converts the string and buffer values of the message into the forms EMA takes. */
+	private Object[] convertValues(MarketPriceMsg mpMsg)
+	{
+		Object[] values = new Object[mpMsg.fieldEntryCount()];
+
+		for (int i = 0; i < mpMsg.fieldEntryCount(); ++i)
+		{
+			MarketField field = mpMsg.fieldEntries()[i];
+
+			switch (field.fieldEntry().dataType())
+			{
+				case DataTypes.STATE:
+					values[i] = ((State)field.value()).text().toString();
+					break;
+				case DataTypes.ASCII_STRING:
+					values[i] = ((Buffer)field.value()).toString();
+					break;
+				case DataTypes.BUFFER:
+				case DataTypes.UTF8_STRING:
+				case DataTypes.RMTES_STRING:
+					Buffer buffer = (Buffer)field.value();
+					byte[] bytes = new byte[buffer.length()];
+					for (int j = 0; j < bytes.length; ++j)
+						bytes[j] = buffer.data().get(buffer.position() + j);
+					values[i] = ByteBuffer.wrap(bytes);
+					break;
+				default:
+					break;
+			}
+		}
+
+		return values;
+	}
+
+	/* Converts the timeliness of a UPA Qos to the EMA OmmQos timeliness. */
+	private static int emaTimeliness(Qos qos)
+	{
+		switch (qos.timeliness())
+		{
+			case QosTimeliness.REALTIME:
+				return OmmQos.Timeliness.REALTIME;
+			case QosTimeliness.DELAYED:
+				return qos.timeInfo();
+			default:
+				return OmmQos.Timeliness.INEXACT_DELAYED;
+		}
+	}
+
+	/* Converts the rate of a UPA Qos to the EMA OmmQos rate. */
+	private static int emaRate(Qos qos)
+	{
+		switch (qos.rate())
+		{
+			case QosRates.TICK_BY_TICK:
+				return OmmQos.Rate.TICK_BY_TICK;
+			case QosRates.TIME_CONFLATED:
+				return qos.rateInfo();
+			default:
+				return OmmQos.Rate.JUST_IN_TIME_CONFLATED;
+		}
+	}
+}
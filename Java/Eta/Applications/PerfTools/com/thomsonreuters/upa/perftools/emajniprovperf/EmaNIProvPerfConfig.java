@@ -0,0 +1,282 @@
+package com.thomsonreuters.upa.perftools.emajniprovperf;
+
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+
+/** Provides configuration for the EMA non-interactive provider performance application. */
+public class EmaNIProvPerfConfig
+{
+	/** Latency update rate that places a latency timestamp in every update. */
+	public static final int ALWAYS_SEND_LATENCY_UPDATE = -1;
+
+	private String _configString;
+
+	/* APPLICATION configuration */
+	private int	_runTime;					/* Time application runs before exiting. */
+	private int	_ticksPerSec;				/* Main loop ticks per second */
+
+	private String _summaryFilename;		/* Name of the summary log file. */
+	private String _statsFilename;			/* Name of the statistics log file. */
+	private int	_writeStatsInterval;		/* Controls how often statistics are written. */
+	private boolean _displayStats;			/* Controls whether stats appear on the screen. */
+
+	private String _itemFilename;			/* File of names to use when publishing items. */
+	private String _msgFilename;			/* File of data to use for message payloads. */
+
+	/* CONNECTION configuration */
+	private String _hostName;				/* Name of host to connect to. */
+	private String _portNo;					/* Port number. */
+	private String _username;				/* Username used when logging in. */
+
+	private String _serviceName;			/* Name of the provided service. */
+	private int _itemPublishCount;			/* Number of items to publish. See -itemCount. */
+	private int _refreshBurstSize;			/* Number of refreshes to send in a burst. */
+	private int _updatesPerSec;				/* Total update rate per second (includes latency updates). */
+	private int _latencyUpdateRate;			/* Total latency update rate per second. */
+
+	private int _updatesPerTick;			/* Number of updates to send per tick */
+	private int _updatesPerTickRemainder;	/* The remainder of number of updates to send per tick */
+
+    {
+        CommandLine.programName("emajNIProvPerf");
+        CommandLine.addOption("runTime", 360, "Time application runs before exiting");
+        CommandLine.addOption("tickRate", 1000, "Ticks per second");
+        CommandLine.addOption("summaryFile", "EmaNIProvSummary.out", "Name of file for logging summary info");
+        CommandLine.addOption("statsFile", "EmaNIProvStats", "Base name of file for logging periodic statistics");
+        CommandLine.addOption("writeStatsInterval", 5, "Controls how often stats are written to the file");
+        CommandLine.addOption("noDisplayStats", false, "Stop printout of stats to screen");
+        CommandLine.addOption("h", "localhost", "Name of host to connect to");
+        CommandLine.addOption("p", "14003", "Port number to connect to");
+        CommandLine.addOption("uname", "", "Username to use in login request");
+        CommandLine.addOption("itemFile", "350k.xml", "Name of the file to get item names from");
+        CommandLine.addOption("msgFile", "MsgData.xml", "Name of the file that specifies the data content in messages");
+        CommandLine.addOption("itemCount", 100000, "Number of items to publish non-interactively");
+        CommandLine.addOption("updateRate", 100000, "Total update rate per second(includes latency updates)");
+        CommandLine.addOption("latencyUpdateRate", 10, "Latency update rate per second (can specify \"all\" to send latency in every update");
+        CommandLine.addOption("refreshBurstSize", 10, "Number of refreshes to send in a burst(controls granularity of time-checking)");
+        CommandLine.addOption("serviceName", "NI_PUB", "Name of the provided service");
+    }
+
+    /** Parses command-line arguments to fill in the application's configuration structures. */
+	public void init(String[] args)
+	{
+        try
+        {
+        	CommandLine.parseArgs(args);
+        }
+        catch (IllegalArgumentException ile)
+        {
+        	System.err.println("Error loading command line arguments:\t");
+        	System.err.println(ile.getMessage());
+        	System.err.println();
+        	System.err.println(CommandLine.optionHelpString());
+        	System.exit(CodecReturnCodes.FAILURE);
+        }
+
+    	_summaryFilename = CommandLine.value("summaryFile");
+    	_statsFilename = CommandLine.value("statsFile");
+    	_itemFilename = CommandLine.value("itemFile");
+    	_msgFilename = CommandLine.value("msgFile");
+    	_hostName = CommandLine.value("h");
+    	_portNo = CommandLine.value("p");
+    	_username = CommandLine.value("uname");
+    	_serviceName = CommandLine.value("serviceName");
+    	_displayStats = !CommandLine.booleanValue("noDisplayStats");
+    	String latencyUpdateRate = CommandLine.value("latencyUpdateRate");
+        try
+        {
+        	_runTime = CommandLine.intValue("runTime");
+        	_ticksPerSec = CommandLine.intValue("tickRate");
+        	_writeStatsInterval = CommandLine.intValue("writeStatsInterval");
+        	_itemPublishCount = CommandLine.intValue("itemCount");
+        	_refreshBurstSize = CommandLine.intValue("refreshBurstSize");
+        	_updatesPerSec = CommandLine.intValue("updateRate");
+            if("all".equals(latencyUpdateRate))
+                _latencyUpdateRate = ALWAYS_SEND_LATENCY_UPDATE;
+            else
+                _latencyUpdateRate = Integer.parseInt(latencyUpdateRate);
+        }
+        catch (NumberFormatException ile)
+        {
+        	System.err.println("Invalid argument, number expected.\t");
+        	System.err.println(ile.getMessage());
+        	System.err.println();
+        	System.err.println(CommandLine.optionHelpString());
+        	System.exit(-1);
+        }
+
+        if (_ticksPerSec < 1)
+        {
+            System.err.println("Config Error: Tick rate cannot be less than 1.");
+            System.out.println(CommandLine.optionHelpString());
+            System.exit(-1);
+        }
+
+		if (_latencyUpdateRate > _ticksPerSec)
+		{
+			System.err.println("Config Error: Latency Update Rate cannot be greater than tick rate.\n");
+			System.out.println(CommandLine.optionHelpString());
+			System.exit(-1);
+		}
+
+        if (_updatesPerSec != 0 && _updatesPerSec < _ticksPerSec)
+        {
+            System.err.println("Config Error: Update rate cannot be less than total ticks per second (unless it is zero).\n\n");
+            System.out.println(CommandLine.optionHelpString());
+            System.exit(-1);
+        }
+
+		if (_refreshBurstSize < 1)
+		{
+			System.err.println("Config error: Refresh Burst Size cannot be less than 1.\n");
+			System.out.println(CommandLine.optionHelpString());
+			System.exit(-1);
+		}
+
+		if (_writeStatsInterval < 1)
+		{
+			System.err.println("Config error: Write Stats Interval cannot be less than 1.\n");
+			System.out.println(CommandLine.optionHelpString());
+			System.exit(-1);
+		}
+
+		_updatesPerTick = _updatesPerSec / _ticksPerSec;
+		_updatesPerTickRemainder = _updatesPerSec % _ticksPerSec;
+
+		createConfigString();
+	}
+
+	/* Create config string. */
+	private void createConfigString()
+	{
+		_configString = "--- TEST INPUTS ---\n\n" +
+				"                Run Time: " + _runTime + " sec\n" +
+				"                Hostname: " + _hostName + "\n" +
+				"                    Port: " + _portNo + "\n" +
+				"                 Service: " + _serviceName + "\n" +
+				"                Username: " + (_username.length() > 0 ? _username : "(use system login name)") + "\n" +
+				"      Item Publish Count: " + _itemPublishCount + "\n" +
+				"             Update Rate: " + _updatesPerSec + "\n" +
+				"     Latency Update Rate: " + (_latencyUpdateRate == ALWAYS_SEND_LATENCY_UPDATE ? "all" : Integer.toString(_latencyUpdateRate)) + "\n" +
+				"      Refresh Burst Size: " + _refreshBurstSize + "\n" +
+				"               Item File: " + _itemFilename + "\n" +
+				"               Data File: " + _msgFilename + "\n" +
+				"            Summary File: " + _summaryFilename + "\n" +
+				"              Stats File: " + _statsFilename + "\n" +
+				"               Tick Rate: " + _ticksPerSec + "\n";
+	}
+
+	/** Time application runs before exiting. */
+	public int runTime()
+	{
+		return _runTime;
+	}
+
+	/** Main loop ticks per second. */
+	public int ticksPerSec()
+	{
+		return _ticksPerSec;
+	}
+
+	/** Name of the summary log file. */
+	public String summaryFilename()
+	{
+		return _summaryFilename;
+	}
+
+	/** Name of the statistics log file. */
+	public String statsFilename()
+	{
+		return _statsFilename;
+	}
+
+	/** Controls how often statistics are written. */
+	public int writeStatsInterval()
+	{
+		return _writeStatsInterval;
+	}
+
+	/** Controls whether stats appear on the screen. */
+	public boolean displayStats()
+	{
+		return _displayStats;
+	}
+
+	/** File of names to use when publishing items. */
+	public String itemFilename()
+	{
+		return _itemFilename;
+	}
+
+	/** File of data to use for message payloads. */
+	public String msgFilename()
+	{
+		return _msgFilename;
+	}
+
+	/** Name of host to connect to. */
+	public String hostName()
+	{
+		return _hostName;
+	}
+
+	/** Port number. */
+	public String portNo()
+	{
+		return _portNo;
+	}
+
+	/** Username used when logging in. */
+	public String username()
+	{
+		return _username;
+	}
+
+	/** Name of the provided service. */
+	public String serviceName()
+	{
+		return _serviceName;
+	}
+
+	/** Number of items to publish. */
+	public int itemPublishCount()
+	{
+		return _itemPublishCount;
+	}
+
+	/** Number of refreshes to send in a burst. */
+	public int refreshBurstSize()
+	{
+		return _refreshBurstSize;
+	}
+
+	/** Total update rate per second (includes latency updates). */
+	public int updatesPerSec()
+	{
+		return _updatesPerSec;
+	}
+
+	/** Total latency update rate per second, or {@link #ALWAYS_SEND_LATENCY_UPDATE}. */
+	public int latencyUpdateRate()
+	{
+		return _latencyUpdateRate;
+	}
+
+	/** Number of updates to send per tick. */
+	public int updatesPerTick()
+	{
+		return _updatesPerTick;
+	}
+
+	/** The remainder of number of updates to send per tick. */
+	public int updatesPerTickRemainder()
+	{
+		return _updatesPerTickRemainder;
+	}
+
+	/** Converts configuration parameters to a string */
+	public String toString()
+	{
+		return _configString;
+	}
+}
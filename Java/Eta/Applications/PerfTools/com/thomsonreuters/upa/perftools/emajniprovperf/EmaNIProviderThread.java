@@ -0,0 +1,373 @@
+package com.thomsonreuters.upa.perftools.emajniprovperf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+
+import com.thomsonreuters.ema.access.EmaFactory;
+import com.thomsonreuters.ema.access.FieldList;
+import com.thomsonreuters.ema.access.OmmException;
+import com.thomsonreuters.ema.access.OmmNiProviderConfig;
+import com.thomsonreuters.ema.access.OmmProvider;
+import com.thomsonreuters.ema.access.OmmProviderErrorClient;
+import com.thomsonreuters.ema.access.OmmState;
+import com.thomsonreuters.ema.access.RefreshMsg;
+import com.thomsonreuters.ema.access.UpdateMsg;
+import com.thomsonreuters.upa.perftools.common.CountStat;
+import com.thomsonreuters.upa.perftools.common.LatencyRandomArray;
+import com.thomsonreuters.upa.perftools.common.LatencyRandomArrayOptions;
+import com.thomsonreuters.upa.perftools.common.PerfToolsReturnCodes;
+import com.thomsonreuters.upa.perftools.common.ShutdownCallback;
+import com.thomsonreuters.upa.perftools.common.TimeRecord;
+import com.thomsonreuters.upa.perftools.common.TimeRecordQueue;
+import com.thomsonreuters.upa.perftools.common.XmlItemInfo;
+import com.thomsonreuters.upa.perftools.common.XmlItemInfoList;
+import com.thomsonreuters.upa.perftools.common.XmlMsgData;
+
+/**
+ * Provides the logic that the EMA non-interactive provider performance
+ * application uses for publishing refreshes and bursts of updates through an
+ * {@link OmmProvider}.
+ * <p>
+ * The provider is created with the user dispatch operation model, so that EMA
+ * does all of its work, including encoding of the {@link FieldList}s, on this
+ * thread. The bytes this thread allocates per message therefore show the
+ * allocation EMA adds to each message.
+ */
+public class EmaNIProviderThread implements Runnable, OmmProviderErrorClient
+{
+	private static final int LATENCY_RANDOM_ARRAY_SET_COUNT = 20;
+
+	private EmaNIProvPerfConfig _niProvPerfConfig; /* configuration */
+	private XmlItemInfoList _xmlItemInfoList; /* item information list from XML file */
+	private ShutdownCallback _shutdownCallback; /* shutdown callback to main application */
+
+	private OmmProvider _provider; /* EMA provider */
+	private EmaMarketPriceEncoder _encoder; /* fills field lists with message data */
+	private FieldList _fieldList; /* field list, reused for each message */
+	private RefreshMsg _refreshMsg; /* refresh message, reused for each item */
+	private UpdateMsg _updateMsg; /* update message, reused for each item */
+	private int[] _updateItemList; /* indices of the items that receive updates */
+	private int _updateItemCount; /* number of items in the update list */
+	private int _nextUpdateItem; /* position in the update list of the next item to update */
+	private int _refreshListIndex; /* index of the next item to publish a refresh for */
+	private int _currentTicks; /* current tick out of ticks per second */
+	private LatencyRandomArray _updateLatencyRandomArray; /* updates random latency array */
+
+	private volatile long _imagePublishStartTime; /* time at which the first refresh was published */
+	private volatile long _imagePublishEndTime; /* time at which the last refresh was published */
+	private volatile long _firstUpdateTime; /* time at which the first update was published */
+	private CountStat _refreshMsgCount; /* number of refreshes published */
+	private CountStat _updateMsgCount; /* number of updates published */
+	private CountStat _latencyUpdateCount; /* number of updates published with a latency timestamp */
+	private CountStat _submitErrorCount; /* number of errors EMA reported for submitted messages */
+	private TimeRecordQueue _submitTimeRecords; /* time taken to submit latency updates, collected periodically by the main thread */
+	private File _statsFile; /* file for logging stats for this connection */
+	private PrintWriter _statsFileWriter; /* file writer for logging stats for this connection */
+	private volatile long _threadId; /* ID of the thread, for measuring its allocation */
+	private volatile boolean _shutdown; /* signals thread to shutdown */
+	private volatile boolean _shutdownAck; /* acknowledges thread is shutdown */
+
+	{
+		_fieldList = EmaFactory.createFieldList();
+		_refreshMsg = EmaFactory.createRefreshMsg();
+		_updateMsg = EmaFactory.createUpdateMsg();
+		_updateLatencyRandomArray = new LatencyRandomArray();
+		_refreshMsgCount = new CountStat();
+		_updateMsgCount = new CountStat();
+		_latencyUpdateCount = new CountStat();
+		_submitErrorCount = new CountStat();
+		_submitTimeRecords = new TimeRecordQueue();
+	}
+
+	/** Creates the provider thread, opening its stats file. */
+	public EmaNIProviderThread(EmaNIProvPerfConfig niProvPerfConfig, XmlItemInfoList xmlItemInfoList, XmlMsgData xmlMsgData, ShutdownCallback shutdownCallback)
+	{
+		_niProvPerfConfig = niProvPerfConfig;
+		_xmlItemInfoList = xmlItemInfoList;
+		_shutdownCallback = shutdownCallback;
+		_encoder = new EmaMarketPriceEncoder(xmlMsgData);
+		_updateItemList = new int[_niProvPerfConfig.itemPublishCount()];
+
+		if (_niProvPerfConfig.updatesPerSec() != 0 && _niProvPerfConfig.latencyUpdateRate() > 0)
+		{
+			LatencyRandomArrayOptions randomArrayOpts = new LatencyRandomArrayOptions();
+			randomArrayOpts.totalMsgsPerSec(_niProvPerfConfig.updatesPerSec());
+			randomArrayOpts.latencyMsgsPerSec(_niProvPerfConfig.latencyUpdateRate());
+			randomArrayOpts.ticksPerSec(_niProvPerfConfig.ticksPerSec());
+			randomArrayOpts.arrayCount(LATENCY_RANDOM_ARRAY_SET_COUNT);
+
+			if (_updateLatencyRandomArray.create(randomArrayOpts) != PerfToolsReturnCodes.SUCCESS)
+			{
+				System.err.println("Error initializing application: Failed to create updates latency random array");
+				System.exit(-1);
+			}
+		}
+
+		_statsFile = new File(_niProvPerfConfig.statsFilename() + "1.csv");
+		try
+		{
+			_statsFileWriter = new PrintWriter(_statsFile);
+		}
+		catch (FileNotFoundException e)
+		{
+			System.out.printf("Error: Failed to open stats file '%s'.\n", _statsFile.getName());
+			System.exit(-1);
+		}
+		_statsFileWriter.println("UTC, Images sent, Updates sent, Latency updates sent, Submit time avg (usec), Submit time max (usec), Submit time min (usec), CPU usage (%), Memory(MB), Submit time p50 (usec), Submit time p99 (usec), Submit time p99.9 (usec), Submit time p99.99 (usec), Allocation per msg (bytes)");
+		_statsFileWriter.flush();
+	}
+
+	/** Run the provider thread. */
+	public void run()
+	{
+		_threadId = Thread.currentThread().getId();
+
+		try
+		{
+			OmmNiProviderConfig config = EmaFactory.createOmmNiProviderConfig()
+					.host(_niProvPerfConfig.hostName() + ":" + _niProvPerfConfig.portNo())
+					.operationModel(OmmNiProviderConfig.OperationModel.USER_DISPATCH);
+			if (_niProvPerfConfig.username().length() > 0)
+				config.username(_niProvPerfConfig.username());
+
+			_provider = EmaFactory.createOmmProvider(config, this);
+		}
+		catch (OmmException e)
+		{
+			System.out.printf("Failed to create OmmProvider: %s\n", e.getMessage());
+			_shutdownCallback.shutdown();
+			_shutdownAck = true;
+			return;
+		}
+
+		System.out.println("Provider initialized, publishing item(s)...\n");
+
+		long nsecPerTick = 1000000000L / _niProvPerfConfig.ticksPerSec();
+		long nextTickTime = System.nanoTime() + nsecPerTick;
+
+		try
+		{
+			while (!_shutdown)
+			{
+				long currentTime = System.nanoTime();
+				if (currentTime >= nextTickTime)
+				{
+					nextTickTime += nsecPerTick;
+
+					sendRefreshBurst();
+					sendUpdateBurst();
+
+					if (++_currentTicks == _niProvPerfConfig.ticksPerSec())
+						_currentTicks = 0;
+				}
+				else
+				{
+					/* A zero timeout waits indefinitely, so wait at least a microsecond. */
+					_provider.dispatch(Math.max((nextTickTime - currentTime) / 1000, 1));
+				}
+			}
+		}
+		catch (OmmException e)
+		{
+			System.out.printf("Provider failed: %s\n", e.getMessage());
+			_shutdownCallback.shutdown();
+		}
+
+		_provider.uninitialize();
+		_shutdownAck = true;
+	}
+
+	/* Sends a burst of refreshes for items that have not yet been published. */
+	private void sendRefreshBurst()
+	{
+		if (_refreshListIndex == _niProvPerfConfig.itemPublishCount())
+			return;
+
+		if (_imagePublishStartTime == 0)
+			_imagePublishStartTime = System.nanoTime();
+
+		XmlItemInfo[] itemInfoList = _xmlItemInfoList.itemInfoList();
+		for (int i = 0; i < _niProvPerfConfig.refreshBurstSize() && _refreshListIndex < _niProvPerfConfig.itemPublishCount(); ++i)
+		{
+			XmlItemInfo itemInfo = itemInfoList[_refreshListIndex];
+
+			_encoder.encodeRefresh(_fieldList);
+			_refreshMsg.clear()
+					.serviceName(_niProvPerfConfig.serviceName())
+					.name(itemInfo.name())
+					.domainType(itemInfo.domainType())
+					.state(OmmState.StreamState.OPEN, OmmState.DataState.OK, OmmState.StatusCode.NONE, "")
+					.payload(_fieldList)
+					.complete(true);
+
+			/* Each item is published on its own handle, which must not be zero. */
+			_provider.submit(_refreshMsg, _refreshListIndex + 1);
+			_refreshMsgCount.increment();
+
+			if (!itemInfo.isSnapshot())
+				_updateItemList[_updateItemCount++] = _refreshListIndex;
+
+			++_refreshListIndex;
+		}
+
+		if (_refreshListIndex == _niProvPerfConfig.itemPublishCount())
+			_imagePublishEndTime = System.nanoTime();
+	}
+
+	/* Sends a burst of item updates. */
+	private void sendUpdateBurst()
+	{
+		/* Determine updates to send out. Spread the remainder out over the first ticks. */
+		int updatesLeft = _niProvPerfConfig.updatesPerTick();
+		if (_niProvPerfConfig.updatesPerTickRemainder() > _currentTicks)
+			++updatesLeft;
+
+		int latencyUpdateNumber = (_niProvPerfConfig.latencyUpdateRate() > 0) ? _updateLatencyRandomArray.next() : -1;
+
+		if (_updateItemCount == 0)
+			return;
+
+		if (_firstUpdateTime == 0)
+			_firstUpdateTime = System.nanoTime();
+
+		XmlItemInfo[] itemInfoList = _xmlItemInfoList.itemInfoList();
+		for (; updatesLeft > 0; --updatesLeft)
+		{
+			long latencyStartTime;
+			int itemIndex = _updateItemList[_nextUpdateItem];
+			if (++_nextUpdateItem == _updateItemCount)
+				_nextUpdateItem = 0;
+
+			/* When appropriate, provide a latency timestamp for the updates. */
+			if (_niProvPerfConfig.latencyUpdateRate() == EmaNIProvPerfConfig.ALWAYS_SEND_LATENCY_UPDATE || latencyUpdateNumber == (updatesLeft - 1))
+				latencyStartTime = System.nanoTime();
+			else
+				latencyStartTime = 0;
+
+			_encoder.encodeUpdate(_fieldList, latencyStartTime / 1000);
+			_updateMsg.clear()
+					.serviceName(_niProvPerfConfig.serviceName())
+					.name(itemInfoList[itemIndex].name())
+					.domainType(itemInfoList[itemIndex].domainType())
+					.payload(_fieldList);
+
+			_provider.submit(_updateMsg, itemIndex + 1);
+			_updateMsgCount.increment();
+
+			if (latencyStartTime > 0)
+			{
+				/* Time taken to fill and submit the update, in microseconds. */
+				timeRecordSubmit(latencyStartTime, System.nanoTime());
+				_latencyUpdateCount.increment();
+			}
+		}
+	}
+
+	/* Submit a time record. */
+	private void timeRecordSubmit(long startTime, long endTime)
+	{
+		TimeRecord record = _submitTimeRecords.pool().poll();
+		if (record == null)
+			record = new TimeRecord();
+
+		record.ticks(1000);
+		record.startTime(startTime);
+		record.endTime(endTime);
+
+		_submitTimeRecords.records().add(record);
+	}
+
+	@Override
+	public void onInvalidHandle(long handle, String text)
+	{
+		_submitErrorCount.increment();
+		System.out.printf("Invalid handle %d: %s\n", handle, text);
+	}
+
+	@Override
+	public void onInvalidUsage(String text)
+	{
+		_submitErrorCount.increment();
+		System.out.printf("Invalid usage: %s\n", text);
+	}
+
+	/** Time at which the first refresh was published. */
+	public long imagePublishStartTime()
+	{
+		return _imagePublishStartTime;
+	}
+
+	/** Time at which the last refresh was published. */
+	public long imagePublishEndTime()
+	{
+		return _imagePublishEndTime;
+	}
+
+	/** Time at which the first update was published. */
+	public long firstUpdateTime()
+	{
+		return _firstUpdateTime;
+	}
+
+	/** Number of refreshes published. */
+	public CountStat refreshMsgCount()
+	{
+		return _refreshMsgCount;
+	}
+
+	/** Number of updates published. */
+	public CountStat updateMsgCount()
+	{
+		return _updateMsgCount;
+	}
+
+	/** Number of updates published with a latency timestamp. */
+	public CountStat latencyUpdateCount()
+	{
+		return _latencyUpdateCount;
+	}
+
+	/** Number of errors EMA reported for submitted messages. */
+	public CountStat submitErrorCount()
+	{
+		return _submitErrorCount;
+	}
+
+	/** Time taken to submit latency updates, collected periodically by the main thread. */
+	public TimeRecordQueue submitTimeRecords()
+	{
+		return _submitTimeRecords;
+	}
+
+	/** File writer for logging stats for this connection. */
+	public PrintWriter statsFileWriter()
+	{
+		return _statsFileWriter;
+	}
+
+	/** ID of the thread, for measuring its allocation, or 0 if it has not started. */
+	public long threadId()
+	{
+		return _threadId;
+	}
+
+	/** Signals thread to shutdown. */
+	public void shutdown(boolean value)
+	{
+		_shutdown = value;
+	}
+
+	/** Acknowledges thread is shutdown. */
+	public boolean shutdownAck()
+	{
+		return _shutdownAck;
+	}
+
+	/** Clean up pools and files */
+	public void cleanup()
+	{
+		_submitTimeRecords.cleanup();
+		_statsFileWriter.close();
+	}
+}
@@ -0,0 +1,490 @@
+package com.thomsonreuters.upa.perftools.emajniprovperf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import com.thomsonreuters.ema.rdm.EmaRdm;
+import com.thomsonreuters.upa.perftools.common.LatencyHistogram;
+import com.thomsonreuters.upa.perftools.common.PerfToolsReturnCodes;
+import com.thomsonreuters.upa.perftools.common.ResourceUsageStats;
+import com.thomsonreuters.upa.perftools.common.ShutdownCallback;
+import com.thomsonreuters.upa.perftools.common.TimeRecord;
+import com.thomsonreuters.upa.perftools.common.TimeRecordQueue;
+import com.thomsonreuters.upa.perftools.common.ValueStatistics;
+import com.thomsonreuters.upa.perftools.common.XmlItemInfoList;
+import com.thomsonreuters.upa.perftools.common.XmlMsgData;
+
+/**
+ * <p>
+ * The emajNIProvPerf application. Implements a Non-Interactive Provider with
+ * the EMA OmmProvider. It connects to an ADH, and provides images and update
+ * bursts for a given number of items.
+ * <p>
+ * The purpose of this application is to measure the performance of EMA in
+ * providing Level I Market Price content to the Thomson Reuters Enterprise
+ * Platform Advanced Data Hub (ADH), so that it can be compared with
+ * upajNIProvPerf to show the overhead EMA adds to the UPA transport, encoders
+ * and decoders. It uses the same item files and message data as upajNIProvPerf.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * The provider creates two threads:
+ * <ul>
+ * <li>A main thread, which collects and records statistical information.
+ * <li>A provider thread, which creates an OmmProvider, connects to an ADH and
+ *     provides market data.
+ * </ul>
+ * <p>
+ * The provider may be configured to provide updates at various rates. To measure
+ * latency, a timestamp is randomly placed in each burst of updates. The consumer
+ * then decodes the timestamp from the update to determine the end-to-end latency.
+ * The provider also measures the time it takes to fill and submit each of these
+ * updates.
+ * <p>
+ * This application also measures memory and CPU usage, and the number of bytes
+ * the provider thread allocates per message sent. Allocation is measured with
+ * the ThreadMXBean extension of the Oracle JDK, and is not reported if the JVM
+ * does not support it.
+ * <p>
+ * This application uses XML Pull Parser (XPP), an open source XML parser library.
+ * <p>
+ * <H2>Setup Environment</H2>
+ * <p>
+ * The following configuration files are required:
+ * <ul>
+ * <li>350k.xml, located in PerfTools
+ * <li>MsgData.xml, located in PerfTools
+ * </ul>
+ * <p>
+ * An EmaConfig.xml file in the working directory may be used to configure the
+ * provider further.
+ * <p>
+ * <H2>Running the application:</H2>
+ * <p>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../../Libs/upa.jar;../../Libs/upaValueAdd.jar;../../../Ema/Libs/ema.jar;../../../Ema/Libs/apache/*;../../../Ema/Libs/SLF4J/slf4j-1.7.12/*;./xpp3-1.1.3_8.jar;./xpp3_min-1.1.3_8.jar;bin
+ *  com.thomsonreuters.upa.perftools.emajniprovperf.emajNIProvPerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class emajNIProvPerf implements ShutdownCallback
+{
+	// provider thread
+	private EmaNIProviderThread _providerThread;
+
+	// application configuration information
+	private final EmaNIProvPerfConfig _niProvPerfConfig = new EmaNIProvPerfConfig();
+
+	// item information list from XML file
+	private XmlItemInfoList _xmlItemInfoList;
+
+	// message data information from XML file
+	private XmlMsgData _xmlMsgData;
+
+	// submit time statistics
+	private ValueStatistics _intervalSubmitTimeStats, _submitTimeStats;
+	private LatencyHistogram _intervalSubmitTimeHistogram, _submitTimeHistogram;
+
+	// bytes allocated per message, sampled each interval
+	private ValueStatistics _allocationStats;
+
+	// CPU & Memory Usage samples
+	private ValueStatistics _cpuUsageStats, _memUsageStats;
+
+	// bytes allocated by the provider thread at the last stats collection
+	private long _allocatedBytes = -1;
+
+	// run-time tracking
+	private long _currentTime;
+	private boolean _imageTimeRecorded;
+
+	// Logs summary information, such as application inputs and final statistics.
+	private File _summaryFile = null;
+	private PrintWriter _summaryFileWriter;
+
+	// stdio writer
+	private PrintWriter _stdOutWriter = new PrintWriter(System.out);
+
+	// timestamp at last stats report
+	private long _previousStatsTime;
+
+	// indicates whether or not application should be shutdown
+	private volatile boolean _shutdownApp = false;
+
+	{
+		_xmlMsgData = new XmlMsgData();
+		_intervalSubmitTimeStats = new ValueStatistics();
+		_submitTimeStats = new ValueStatistics();
+		_intervalSubmitTimeHistogram = new LatencyHistogram();
+		_submitTimeHistogram = new LatencyHistogram();
+		_allocationStats = new ValueStatistics();
+		_cpuUsageStats = new ValueStatistics();
+		_memUsageStats = new ValueStatistics();
+	}
+
+	/** Shutdown emajNIProvPerf */
+	public void shutdown()
+	{
+		_shutdownApp = true;
+	}
+
+	/** Run emajNIProvPerf */
+	public void run()
+	{
+		long intervalSeconds = 0, currentRuntimeSec = 0;
+		//Initialize runtime timer
+		long niProvRuntime = System.nanoTime() + (_niProvPerfConfig.runTime() * 1000000000L);
+
+		_previousStatsTime = System.nanoTime();
+
+		/* this is the main loop */
+		while(!_shutdownApp)
+		{
+			try
+			{
+				Thread.sleep(1000);
+			}
+			catch (InterruptedException e)
+			{
+				System.out.printf("Thread.sleep(1000) failed\n");
+				System.exit(-1);
+			}
+
+			++currentRuntimeSec;
+			++intervalSeconds;
+
+			/* collect statistics at write statistics interval */
+			if (intervalSeconds == _niProvPerfConfig.writeStatsInterval())
+			{
+				collectStats(true, _niProvPerfConfig.displayStats(), currentRuntimeSec);
+				intervalSeconds = 0;
+			}
+
+			/* Handle runtime. */
+			if (System.nanoTime() >= niProvRuntime)
+			{
+				System.out.printf("\nRun time of %d seconds has expired.\n\n", _niProvPerfConfig.runTime());
+				break;
+			}
+		}
+
+		_currentTime = System.nanoTime();
+
+		stopProviderThread();
+
+		printSummaryStatistics(_stdOutWriter);
+		_stdOutWriter.flush();
+		printSummaryStatistics(_summaryFileWriter);
+		_summaryFileWriter.close();
+
+		_providerThread.cleanup();
+		System.out.printf("Exiting.\n");
+	}
+
+	/* Initializes emajNIProvPerf application. */
+	private void initialize(String[] args)
+	{
+		/* Read in configuration and echo it. */
+		_niProvPerfConfig.init(args);
+		System.out.println(_niProvPerfConfig.toString());
+
+		// parse item list XML file
+		// the application exits if any error occured
+		_xmlItemInfoList = new XmlItemInfoList(_niProvPerfConfig.itemPublishCount());
+		if (_xmlItemInfoList.parseFile(_niProvPerfConfig.itemFilename()) == PerfToolsReturnCodes.FAILURE)
+		{
+			System.out.printf("Failed to load item list from file '%s'.\n", _niProvPerfConfig.itemFilename());
+			System.exit(-1);
+		}
+
+		for (int i = 0; i < _niProvPerfConfig.itemPublishCount(); ++i)
+		{
+			if (_xmlItemInfoList.itemInfoList()[i].domainType() != EmaRdm.MMT_MARKET_PRICE)
+			{
+				System.out.printf("Error: Item '%s' is not in the MarketPrice domain, which is the only domain this application publishes.\n",
+						_xmlItemInfoList.itemInfoList()[i].name());
+				System.exit(-1);
+			}
+		}
+
+		//parse message data XML file
+		if (_xmlMsgData.parseFile(_niProvPerfConfig.msgFilename()) == PerfToolsReturnCodes.FAILURE)
+		{
+			System.out.printf("Failed to load message data from file '%s'.\n", _niProvPerfConfig.msgFilename());
+			System.exit(-1);
+		}
+
+		// create summary file writer
+		_summaryFile = new File(_niProvPerfConfig.summaryFilename());
+		try
+		{
+			_summaryFileWriter = new PrintWriter(_summaryFile);
+		}
+		catch (FileNotFoundException e)
+		{
+			System.out.printf("Error: Failed to open summary file '%s'.\n", _summaryFile.getName());
+			System.exit(-1);
+		}
+
+		//write configuration parameters to summary file
+		_summaryFileWriter.println(_niProvPerfConfig.toString());
+		_summaryFileWriter.flush();
+
+		System.out.println("Starting provider...\n");
+
+		_providerThread = new EmaNIProviderThread(_niProvPerfConfig, _xmlItemInfoList, _xmlMsgData, this);
+		new Thread(_providerThread).start();
+	}
+
+	/* Print summary statistics */
+	private void printSummaryStatistics(PrintWriter fileWriter)
+	{
+		fileWriter.printf("\n--- OVERALL SUMMARY ---\n\n");
+
+		fileWriter.printf("Overall Statistics: \n");
+
+		if (_submitTimeStats.count() > 0)
+		{
+			fileWriter.printf("  Update submit time avg (usec): %.1f\n", _submitTimeStats.average());
+			fileWriter.printf("  Update submit time std dev (usec): %.1f\n", Math.sqrt(_submitTimeStats.variance()));
+			fileWriter.printf("  Update submit time max (usec): %.1f\n", _submitTimeStats.maxValue());
+			fileWriter.printf("  Update submit time min (usec): %.1f\n", _submitTimeStats.minValue());
+			printLatencyPercentiles(fileWriter, "Update submit time", _submitTimeHistogram);
+		}
+		else
+			fileWriter.printf("  No latency updates were sent.\n");
+
+		if (_allocationStats.count() > 0)
+		{
+			fileWriter.printf("  Allocation per msg max (bytes): %.1f\n", _allocationStats.maxValue());
+			fileWriter.printf("  Allocation per msg min (bytes): %.1f\n", _allocationStats.minValue());
+			fileWriter.printf("  Allocation per msg avg (bytes): %.1f\n", _allocationStats.average());
+		}
+		else if (_allocatedBytes < 0)
+			fileWriter.printf("  Allocation per msg is not measured by this JVM.\n");
+
+		if (_cpuUsageStats.count() > 0)
+		{
+			fileWriter.printf("  CPU/Memory Samples: %d\n", _cpuUsageStats.count());
+			fileWriter.printf("  CPU Usage max (%%): %.2f\n", _cpuUsageStats.maxValue());
+			fileWriter.printf("  CPU Usage min (%%): %.2f\n", _cpuUsageStats.minValue());
+			fileWriter.printf("  CPU Usage avg (%%): %.2f\n", _cpuUsageStats.average());
+			fileWriter.printf("  Memory Usage max (MB): %.2f\n", _memUsageStats.maxValue());
+			fileWriter.printf("  Memory Usage min (MB): %.2f\n", _memUsageStats.minValue());
+			fileWriter.printf("  Memory Usage avg (MB): %.2f\n", _memUsageStats.average());
+		}
+
+		fileWriter.printf("\nTest Statistics:\n");
+
+		fileWriter.printf("  Images sent: %d\n", _providerThread.refreshMsgCount().getTotal());
+		fileWriter.printf("  Updates sent: %d\n", _providerThread.updateMsgCount().getTotal());
+		fileWriter.printf("  Latency updates sent: %d\n", _providerThread.latencyUpdateCount().getTotal());
+
+		if (_providerThread.submitErrorCount().getTotal() > 0)
+			fileWriter.printf("  Submit errors: %d\n", _providerThread.submitErrorCount().getTotal());
+
+		if (_providerThread.imagePublishEndTime() > 0)
+		{
+			long totalImagePublishTime = _providerThread.imagePublishEndTime() - _providerThread.imagePublishStartTime();
+
+			fileWriter.printf("  Image publish time (sec): %.3f\n", (double)totalImagePublishTime/1000000000.0);
+			fileWriter.printf("  Avg image Rate: %.0f\n", (double)_niProvPerfConfig.itemPublishCount()/((double)totalImagePublishTime/1000000000.0));
+		}
+
+		if (_providerThread.firstUpdateTime() > 0)
+		{
+			fileWriter.printf("  Avg update rate: %.0f\n",
+					(double)_providerThread.updateMsgCount().getTotal()/(double)((_currentTime - _providerThread.firstUpdateTime())/1000000000.0));
+		}
+
+		fileWriter.printf("\n");
+	}
+
+	/* Print latency percentiles to the summary file. */
+	private void printLatencyPercentiles(PrintWriter fileWriter, String latencyName, LatencyHistogram latencyHistogram)
+	{
+		fileWriter.printf("  %s p50 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(50.0));
+		fileWriter.printf("  %s p99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.0));
+		fileWriter.printf("  %s p99.9 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.9));
+		fileWriter.printf("  %s p99.99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.99));
+	}
+
+	/* Collect statistics. */
+	private void collectStats(boolean writeStats, boolean displayStats, long currentRuntimeSec)
+	{
+		long timeNow = System.nanoTime();
+		long statsInterval = timeNow - _previousStatsTime;
+		_previousStatsTime = timeNow;
+
+		double processCpuLoad = ResourceUsageStats.currentProcessCpuLoad();
+		double memoryUsage = ResourceUsageStats.currentMemoryUsage();
+
+		_cpuUsageStats.update(processCpuLoad);
+		_memUsageStats.update(memoryUsage);
+
+		/* Gather submit time records from the provider thread and update statistics. */
+		collectSubmitTimeStats();
+
+		/* Collect counts. */
+		long refreshCount = _providerThread.refreshMsgCount().getChange();
+		long updateCount = _providerThread.updateMsgCount().getChange();
+		long latencyUpdateCount = _providerThread.latencyUpdateCount().getChange();
+		long submitErrorCount = _providerThread.submitErrorCount().getChange();
+
+		double allocationPerMsg = collectAllocationStats(refreshCount + updateCount);
+
+		if (writeStats)
+		{
+			/* Log statistics to file. */
+			printCurrentTimeUTC(_providerThread.statsFileWriter());
+			_providerThread.statsFileWriter().printf(
+					", %d, %d, %d, %.1f, %.1f, %.1f, %.2f, %.2f, %.1f, %.1f, %.1f, %.1f, %.1f\n",
+					refreshCount,
+					updateCount,
+					latencyUpdateCount,
+					_intervalSubmitTimeStats.average(),
+					((_intervalSubmitTimeStats.count() > 0) ? _intervalSubmitTimeStats.maxValue() : 0.0),
+					((_intervalSubmitTimeStats.count() > 0) ? _intervalSubmitTimeStats.minValue() : 0.0),
+					processCpuLoad,
+					memoryUsage,
+					_intervalSubmitTimeHistogram.valueAtPercentile(50.0),
+					_intervalSubmitTimeHistogram.valueAtPercentile(99.0),
+					_intervalSubmitTimeHistogram.valueAtPercentile(99.9),
+					_intervalSubmitTimeHistogram.valueAtPercentile(99.99),
+					allocationPerMsg);
+			_providerThread.statsFileWriter().flush();
+		}
+
+		if (displayStats)
+		{
+			System.out.printf("%03d: ", currentRuntimeSec);
+
+			System.out.printf("UpdRate: %8d, CPU: %6.2f%%, Mem: %6.2fMB, Alloc/Msg: %6.0fB\n",
+					(updateCount * 1000000000L)/statsInterval,
+					processCpuLoad,
+					memoryUsage,
+					allocationPerMsg);
+
+			if (refreshCount > 0)
+				System.out.printf("  - Sent %d images (total: %d)\n", refreshCount, _providerThread.refreshMsgCount().getTotal());
+
+			if (_intervalSubmitTimeStats.count() > 0)
+			{
+				_intervalSubmitTimeStats.print("  SubmitTime(usec)", "Msgs", false);
+				_intervalSubmitTimeHistogram.print("  SubmitTime(usec)", "Msgs", false);
+			}
+
+			if (submitErrorCount > 0)
+				System.out.printf("  - EMA reported %d submit errors.\n", submitErrorCount);
+		}
+
+		/* Submit times and percentiles in the stats file and on screen cover only this interval. */
+		_intervalSubmitTimeStats.clear();
+		_intervalSubmitTimeHistogram.clear();
+
+		/* Get image publish time. */
+		if (!_imageTimeRecorded && _providerThread.imagePublishEndTime() > 0)
+		{
+			_imageTimeRecorded = true;
+
+			if (displayStats)
+			{
+				long imagePublishTime = _providerThread.imagePublishEndTime() - _providerThread.imagePublishStartTime();
+
+				System.out.printf("  - Image publish time for %d images: %.3fs (%.0f images/s)\n",
+						_niProvPerfConfig.itemPublishCount(),
+						(double)imagePublishTime/1000000000.0,
+						(double)(_niProvPerfConfig.itemPublishCount())/
+						((double)imagePublishTime /1000000000.0));
+			}
+		}
+	}
+
+	/* Samples the bytes the provider thread has allocated, returning the bytes
+	 * allocated per message since the last sample, or 0 if not known. */
+	private double collectAllocationStats(long msgCount)
+	{
+		long threadId = _providerThread.threadId();
+		long allocatedBytes = (threadId != 0) ? ResourceUsageStats.threadAllocatedBytes(threadId) : -1;
+		double allocationPerMsg = 0;
+
+		if (allocatedBytes < 0)
+			return allocationPerMsg;
+
+		if (_allocatedBytes >= 0 && msgCount > 0)
+		{
+			allocationPerMsg = (double)(allocatedBytes - _allocatedBytes)/(double)msgCount;
+			_allocationStats.update(allocationPerMsg);
+		}
+
+		_allocatedBytes = allocatedBytes;
+
+		return allocationPerMsg;
+	}
+
+	/* Collect submit time statistics. */
+	private void collectSubmitTimeStats()
+	{
+		TimeRecordQueue submitTimeRecords = _providerThread.submitTimeRecords();
+
+		while (!submitTimeRecords.records().isEmpty())
+		{
+			TimeRecord record = submitTimeRecords.records().poll();
+			double submitTime = (double)(record.endTime() - record.startTime())/(double)record.ticks();
+
+			_intervalSubmitTimeStats.update(submitTime);
+			_submitTimeStats.update(submitTime);
+			_intervalSubmitTimeHistogram.update(submitTime);
+			_submitTimeHistogram.update(submitTime);
+
+			submitTimeRecords.pool().add(record);
+		}
+	}
+
+	/* Stop the provider thread. */
+	private void stopProviderThread()
+	{
+		_providerThread.shutdown(true);
+
+		// wait for provider thread cleanup
+		while (!_providerThread.shutdownAck())
+		{
+			try
+			{
+				Thread.sleep(1000);
+			}
+			catch (InterruptedException e)
+			{
+				System.err.printf("Thread.sleep(1000) failed\n");
+				System.exit(-1);
+			}
+		}
+
+		System.out.println("\nShutting down.\n\n");
+	}
+
+	/* Prints the current time, in Coordinated Universal Time. */
+	private void printCurrentTimeUTC(PrintWriter fileWriter)
+	{
+		Calendar rightNow = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+		fileWriter.printf("%d-%02d-%02d %02d:%02d:%02d",
+				rightNow.get(Calendar.YEAR), rightNow.get(Calendar.MONTH), rightNow.get(Calendar.DAY_OF_MONTH),
+				rightNow.get(Calendar.HOUR_OF_DAY), rightNow.get(Calendar.MINUTE), rightNow.get(Calendar.SECOND));
+	}
+
+	public static void main(String[] args)
+	{
+		emajNIProvPerf niprovperf = new emajNIProvPerf();
+		niprovperf.initialize(args);
+		niprovperf.run();
+		System.exit(0);
+	}
+}
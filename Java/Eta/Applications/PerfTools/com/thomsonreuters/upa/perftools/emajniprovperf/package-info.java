@@ -0,0 +1,4 @@
+/**
+ * The emajNIProvPerf application package.
+ */
+package com.thomsonreuters.upa.perftools.emajniprovperf;
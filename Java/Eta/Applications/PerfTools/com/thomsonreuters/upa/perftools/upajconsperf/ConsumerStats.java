@@ -1,6 +1,7 @@
 package com.thomsonreuters.upa.perftools.upajconsperf;
 
 import com.thomsonreuters.upa.perftools.common.CountStat;
+import com.thomsonreuters.upa.perftools.common.LatencyHistogram;
 import com.thomsonreuters.upa.perftools.common.ValueStatistics;
 
 /** Maintains counts and other values for measuring statistics on a consumer thread. */
@@ -31,6 +32,13 @@ public class ConsumerStats
 	private ValueStatistics _overallLatencyStats;		/* Overall latency statistics. */
 	private ValueStatistics _postLatencyStats;			/* Posting latency statistics. */
 	private ValueStatistics _genMsgLatencyStats;		/* Generic msg latency statistics. */
+	private LatencyHistogram _intervalLatencyHistogram;			/* Latency percentiles (recorded by stats thread). */
+	private LatencyHistogram _intervalPostLatencyHistogram;		/* Post latency percentiles (recorded by stats thread). */
+	private LatencyHistogram _intervalGenMsgLatencyHistogram;	/* Generic msg latency percentiles (recorded by stats thread). */
+	private LatencyHistogram _steadyStateLatencyHistogram;		/* Steady-state latency percentiles. */
+	private LatencyHistogram _overallLatencyHistogram;			/* Overall latency percentiles. */
+	private LatencyHistogram _postLatencyHistogram;				/* Posting latency percentiles. */
+	private LatencyHistogram _genMsgLatencyHistogram;			/* Generic msg latency percentiles. */
 	private boolean			_imageTimeRecorded;			/* Stats thread sets this once it has recorded/printed
 	 													 * this consumer's image retrieval time. */
 	
@@ -55,6 +63,13 @@ public class ConsumerStats
 		_overallLatencyStats = new ValueStatistics();
 		_postLatencyStats = new ValueStatistics();
 		_genMsgLatencyStats = new ValueStatistics();
+		_intervalLatencyHistogram = new LatencyHistogram();
+		_intervalPostLatencyHistogram = new LatencyHistogram();
+		_intervalGenMsgLatencyHistogram = new LatencyHistogram();
+		_steadyStateLatencyHistogram = new LatencyHistogram();
+		_overallLatencyHistogram = new LatencyHistogram();
+		_postLatencyHistogram = new LatencyHistogram();
+		_genMsgLatencyHistogram = new LatencyHistogram();
 	}
 	
 	/** Time at which first item request was made. */
@@ -332,6 +347,48 @@ public class ConsumerStats
 	{
 		_genMsgLatencyStats = genMsgLatencyStats;
 	}
+
+	/** Latency percentiles (recorded by stats thread). */
+	public LatencyHistogram intervalLatencyHistogram()
+	{
+		return _intervalLatencyHistogram;
+	}
+
+	/** Post latency percentiles (recorded by stats thread). */
+	public LatencyHistogram intervalPostLatencyHistogram()
+	{
+		return _intervalPostLatencyHistogram;
+	}
+
+	/** Generic msg latency percentiles (recorded by stats thread). */
+	public LatencyHistogram intervalGenMsgLatencyHistogram()
+	{
+		return _intervalGenMsgLatencyHistogram;
+	}
+
+	/** Steady-state latency percentiles. */
+	public LatencyHistogram steadyStateLatencyHistogram()
+	{
+		return _steadyStateLatencyHistogram;
+	}
+
+	/** Overall latency percentiles. */
+	public LatencyHistogram overallLatencyHistogram()
+	{
+		return _overallLatencyHistogram;
+	}
+
+	/** Posting latency percentiles. */
+	public LatencyHistogram postLatencyHistogram()
+	{
+		return _postLatencyHistogram;
+	}
+
+	/** Generic msg latency percentiles. */
+	public LatencyHistogram genMsgLatencyHistogram()
+	{
+		return _genMsgLatencyHistogram;
+	}
 	
 	/** Stats thread sets this once it has recorded/printed
 	  * this consumer's image retrieval time. */
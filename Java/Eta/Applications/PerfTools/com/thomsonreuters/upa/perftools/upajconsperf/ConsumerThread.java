@@ -199,7 +199,7 @@ public class ConsumerThread implements Runnable, ResponseCallback
 			System.out.printf("Error: Failed to open stats file '%s'.\n", _consThreadInfo.statsFile().getName());
 			System.exit(-1);
 		}
-		_consThreadInfo.statsFileWriter().println("UTC, Latency updates, Latency avg (usec), Latency std dev (usec), Latency max (usec), Latency min (usec), Images, Update rate, Posting Latency updates, Posting Latency avg (usec), Posting Latency std dev (usec), Posting Latency max (usec), Posting Latency min (usec), GenMsgs sent, GenMsg Latencies sent, GenMsgs received, GenMsg Latencies received, GenMsg Latency avg (usec), GenMsg Latency std dev (usec), GenMsg Latency max (usec), GenMsg Latency min (usec), CPU usage (%), Memory(MB)");
+		_consThreadInfo.statsFileWriter().println("UTC, Latency updates, Latency avg (usec), Latency std dev (usec), Latency max (usec), Latency min (usec), Images, Update rate, Posting Latency updates, Posting Latency avg (usec), Posting Latency std dev (usec), Posting Latency max (usec), Posting Latency min (usec), GenMsgs sent, GenMsg Latencies sent, GenMsgs received, GenMsg Latencies received, GenMsg Latency avg (usec), GenMsg Latency std dev (usec), GenMsg Latency max (usec), GenMsg Latency min (usec), CPU usage (%), Memory(MB), Latency p50 (usec), Latency p99 (usec), Latency p99.9 (usec), Latency p99.99 (usec), Posting Latency p50 (usec), Posting Latency p99 (usec), Posting Latency p99.9 (usec), Posting Latency p99.99 (usec), GenMsg Latency p50 (usec), GenMsg Latency p99 (usec), GenMsg Latency p99.9 (usec), GenMsg Latency p99.99 (usec)");
 		
 		// Create latency random array for post messages. Latency random array is used
 		// to randomly insert latency RIC fields into post messages while sending bursts. 
@@ -9,6 +9,7 @@ import java.util.TimeZone;
 
 import com.thomsonreuters.upa.codec.CodecFactory;
 import com.thomsonreuters.upa.codec.PostUserInfo;
+import com.thomsonreuters.upa.perftools.common.LatencyHistogram;
 import com.thomsonreuters.upa.perftools.common.PerfToolsReturnCodes;
 import com.thomsonreuters.upa.perftools.common.ResourceUsageStats;
 import com.thomsonreuters.upa.perftools.common.ShutdownCallback;
@@ -395,6 +396,7 @@ public class upajConsPerf implements ShutdownCallback
 				fileWriter.printf("  Latency std dev (usec): %.1f\n", Math.sqrt(_totalStats.steadyStateLatencyStats().variance()));
 				fileWriter.printf("  Latency max (usec): %.1f\n", _totalStats.steadyStateLatencyStats().maxValue());
 				fileWriter.printf("  Latency min (usec): %.1f\n", _totalStats.steadyStateLatencyStats().minValue());
+				printLatencyPercentiles(fileWriter, "Latency", _totalStats.steadyStateLatencyHistogram());
 			}
 			else
 				fileWriter.printf("  No latency information was received during steady-state time.\n");
@@ -407,6 +409,7 @@ public class upajConsPerf implements ShutdownCallback
 					fileWriter.printf("  Posting latency std dev (usec): %.1f\n", Math.sqrt(_totalStats.postLatencyStats().variance()));
 					fileWriter.printf("  Posting latency max (usec): %.1f\n", _totalStats.postLatencyStats().maxValue());
 					fileWriter.printf("  Posting latency min (usec): %.1f\n", _totalStats.postLatencyStats().minValue());
+					printLatencyPercentiles(fileWriter, "Posting latency", _totalStats.postLatencyHistogram());
 				}
 				else
 					fileWriter.printf("  No posting latency information was received during steady-state time.\n");
@@ -435,6 +438,7 @@ public class upajConsPerf implements ShutdownCallback
 			fileWriter.printf("  Latency std dev (usec): %.1f\n", Math.sqrt(_totalStats.overallLatencyStats().variance()));
 			fileWriter.printf("  Latency max (usec): %.1f\n", _totalStats.overallLatencyStats().maxValue());
 			fileWriter.printf("  Latency min (usec): %.1f\n", _totalStats.overallLatencyStats().minValue());
+			printLatencyPercentiles(fileWriter, "Latency", _totalStats.overallLatencyHistogram());
 		}
 		else
 			fileWriter.printf("  No latency information was received.\n");
@@ -445,6 +449,7 @@ public class upajConsPerf implements ShutdownCallback
 			fileWriter.printf("  GenMsg latency std dev (usec): %.1f\n", Math.sqrt(_totalStats.genMsgLatencyStats().variance()));
 			fileWriter.printf("  GenMsg latency max (usec): %.1f\n", _totalStats.genMsgLatencyStats().maxValue());
 			fileWriter.printf("  GenMsg latency min (usec): %.1f\n", _totalStats.genMsgLatencyStats().minValue());
+			printLatencyPercentiles(fileWriter, "GenMsg latency", _totalStats.genMsgLatencyHistogram());
 		}
 		else
 			fileWriter.printf("  No GenMsg latency information was received.\n");
@@ -583,6 +588,7 @@ public class upajConsPerf implements ShutdownCallback
 						fileWriter.printf("  Latency std dev (usec): %.1f\n", Math.sqrt(_consumerThreadsInfo[i].stats().steadyStateLatencyStats().variance()));
 						fileWriter.printf("  Latency max (usec): %.1f\n", _consumerThreadsInfo[i].stats().steadyStateLatencyStats().maxValue());
 						fileWriter.printf("  Latency min (usec): %.1f\n", _consumerThreadsInfo[i].stats().steadyStateLatencyStats().minValue());
+						printLatencyPercentiles(fileWriter, "Latency", _consumerThreadsInfo[i].stats().steadyStateLatencyHistogram());
 					}
 					else
 						fileWriter.printf("  No latency information was received during steady-state time.\n");
@@ -595,6 +601,7 @@ public class upajConsPerf implements ShutdownCallback
 							fileWriter.printf("  Posting latency std dev (usec): %.1f\n", Math.sqrt(_consumerThreadsInfo[i].stats().postLatencyStats().variance()));
 							fileWriter.printf("  Posting latency max (usec): %.1f\n", _consumerThreadsInfo[i].stats().postLatencyStats().maxValue());
 							fileWriter.printf("  Posting latency min (usec): %.1f\n", _consumerThreadsInfo[i].stats().postLatencyStats().minValue());
+							printLatencyPercentiles(fileWriter, "Posting latency", _consumerThreadsInfo[i].stats().postLatencyHistogram());
 						}
 						else
 							fileWriter.printf("  No posting latency information was received during steady-state time.\n");
@@ -622,6 +629,7 @@ public class upajConsPerf implements ShutdownCallback
 					fileWriter.printf("  Latency std dev (usec): %.1f\n", Math.sqrt(_consumerThreadsInfo[i].stats().overallLatencyStats().variance()));
 					fileWriter.printf("  Latency max (usec): %.1f\n", _consumerThreadsInfo[i].stats().overallLatencyStats().maxValue());
 					fileWriter.printf("  Latency min (usec): %.1f\n", _consumerThreadsInfo[i].stats().overallLatencyStats().minValue());
+					printLatencyPercentiles(fileWriter, "Latency", _consumerThreadsInfo[i].stats().overallLatencyHistogram());
 				}
 				else
 					fileWriter.printf("  No latency information was received.\n");
@@ -634,6 +642,7 @@ public class upajConsPerf implements ShutdownCallback
 						fileWriter.printf("  GenMsg latency std dev (usec): %.1f\n", Math.sqrt(_consumerThreadsInfo[i].stats().genMsgLatencyStats().variance()));
 						fileWriter.printf("  GenMsg latency max (usec): %.1f\n", _consumerThreadsInfo[i].stats().genMsgLatencyStats().maxValue());
 						fileWriter.printf("  GenMsg latency min (usec): %.1f\n", _consumerThreadsInfo[i].stats().genMsgLatencyStats().minValue());
+						printLatencyPercentiles(fileWriter, "GenMsg latency", _consumerThreadsInfo[i].stats().genMsgLatencyHistogram());
 					}
 					else
 						fileWriter.printf("  No GenMsg latency information was received.\n");
@@ -703,6 +712,15 @@ public class upajConsPerf implements ShutdownCallback
 		}
 	}
 
+	/* Print latency percentiles to the summary file. */
+	private void printLatencyPercentiles(PrintWriter fileWriter, String latencyName, LatencyHistogram latencyHistogram)
+	{
+		fileWriter.printf("  %s p50 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(50.0));
+		fileWriter.printf("  %s p99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.0));
+		fileWriter.printf("  %s p99.9 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.9));
+		fileWriter.printf("  %s p99.99 (usec): %.1f\n", latencyName, latencyHistogram.valueAtPercentile(99.99));
+	}
+
 	/* Collect statistics. */
 	private void collectStats(boolean writeStats, boolean displayStats, int currentRuntimeSec) 
 	{
@@ -780,7 +798,7 @@ public class upajConsPerf implements ShutdownCallback
 				/* Log statistics to file. */
 				printCurrentTimeUTC(_consumerThreadsInfo[i].statsFileWriter());
 				_consumerThreadsInfo[i].statsFileWriter().printf(
-						", %d, %.1f, %.1f, %.1f, %.1f, %d, %d, %d, %.1f, %.1f, %.1f, %.1f, %d, %d, %d, %d, %.1f, %.1f, %.1f, %.1f, %.2f, %.2f\n",
+						", %d, %.1f, %.1f, %.1f, %.1f, %d, %d, %d, %.1f, %.1f, %.1f, %.1f, %d, %d, %d, %d, %.1f, %.1f, %.1f, %.1f, %.2f, %.2f, %.1f, %.1f, %.1f, %.1f, %.1f, %.1f, %.1f, %.1f, %.1f, %.1f, %.1f, %.1f\n",
 						_consumerThreadsInfo[i].stats().intervalLatencyStats().count(),
 						_consumerThreadsInfo[i].stats().intervalLatencyStats().average(),
 						Math.sqrt(_consumerThreadsInfo[i].stats().intervalLatencyStats().variance()),
@@ -802,7 +820,19 @@ public class upajConsPerf implements ShutdownCallback
 						((_consumerThreadsInfo[i].stats().intervalGenMsgLatencyStats().count() > 0) ? _consumerThreadsInfo[i].stats().intervalGenMsgLatencyStats().maxValue() : 0.0),
 								((_consumerThreadsInfo[i].stats().intervalGenMsgLatencyStats().count() > 0) ? _consumerThreadsInfo[i].stats().intervalGenMsgLatencyStats().minValue() : 0.0),
 						processCpuLoad,
-						memoryUsage);
+						memoryUsage,
+						_consumerThreadsInfo[i].stats().intervalLatencyHistogram().valueAtPercentile(50.0),
+						_consumerThreadsInfo[i].stats().intervalLatencyHistogram().valueAtPercentile(99.0),
+						_consumerThreadsInfo[i].stats().intervalLatencyHistogram().valueAtPercentile(99.9),
+						_consumerThreadsInfo[i].stats().intervalLatencyHistogram().valueAtPercentile(99.99),
+						_consumerThreadsInfo[i].stats().intervalPostLatencyHistogram().valueAtPercentile(50.0),
+						_consumerThreadsInfo[i].stats().intervalPostLatencyHistogram().valueAtPercentile(99.0),
+						_consumerThreadsInfo[i].stats().intervalPostLatencyHistogram().valueAtPercentile(99.9),
+						_consumerThreadsInfo[i].stats().intervalPostLatencyHistogram().valueAtPercentile(99.99),
+						_consumerThreadsInfo[i].stats().intervalGenMsgLatencyHistogram().valueAtPercentile(50.0),
+						_consumerThreadsInfo[i].stats().intervalGenMsgLatencyHistogram().valueAtPercentile(99.0),
+						_consumerThreadsInfo[i].stats().intervalGenMsgLatencyHistogram().valueAtPercentile(99.9),
+						_consumerThreadsInfo[i].stats().intervalGenMsgLatencyHistogram().valueAtPercentile(99.99));
 				_consumerThreadsInfo[i].statsFileWriter().flush();
 			}
 
@@ -823,6 +853,7 @@ public class upajConsPerf implements ShutdownCallback
 				if (_consumerThreadsInfo[i].stats().intervalLatencyStats().count() > 0)
 				{
 					_consumerThreadsInfo[i].stats().intervalLatencyStats().print("  Latency(usec)", "Msgs", false);
+					_consumerThreadsInfo[i].stats().intervalLatencyHistogram().print("  Latency(usec)", "Msgs", false);
 					_consumerThreadsInfo[i].stats().intervalLatencyStats().clear();
 				}
 
@@ -833,6 +864,7 @@ public class upajConsPerf implements ShutdownCallback
 				if (_consumerThreadsInfo[i].stats().intervalPostLatencyStats().count() > 0)
 				{
 					_consumerThreadsInfo[i].stats().intervalPostLatencyStats().print("  PostLat(usec)", "Msgs", false);
+					_consumerThreadsInfo[i].stats().intervalPostLatencyHistogram().print("  PostLat(usec)", "Msgs", false);
 					_consumerThreadsInfo[i].stats().intervalPostLatencyStats().clear();
 				}
 
@@ -845,6 +877,7 @@ public class upajConsPerf implements ShutdownCallback
 				if (_consumerThreadsInfo[i].stats().intervalGenMsgLatencyStats().count() > 0)
 				{
 					_consumerThreadsInfo[i].stats().intervalGenMsgLatencyStats().print("  GenMsgLat(usec)", "Msgs", false);
+					_consumerThreadsInfo[i].stats().intervalGenMsgLatencyHistogram().print("  GenMsgLat(usec)", "Msgs", false);
 					_consumerThreadsInfo[i].stats().intervalGenMsgLatencyStats().clear();
 				}
 				
@@ -852,6 +885,11 @@ public class upajConsPerf implements ShutdownCallback
 					System.out.printf("  - Received %d status messages.\n", statusCount);
 			}
 
+			/* Percentiles in the stats file and on screen cover only this interval. */
+			_consumerThreadsInfo[i].stats().intervalLatencyHistogram().clear();
+			_consumerThreadsInfo[i].stats().intervalPostLatencyHistogram().clear();
+			_consumerThreadsInfo[i].stats().intervalGenMsgLatencyHistogram().clear();
+
 			/* Get Image Retrieval time for this client. */
 			if (getClientImageRetrievalTime(_consumerThreadsInfo[i], displayStats) == false)
 			{
@@ -906,9 +944,12 @@ public class upajConsPerf implements ShutdownCallback
 
 			consumerThread.stats().intervalLatencyStats().update(latency);
 			consumerThread.stats().overallLatencyStats().update(latency);
+			consumerThread.stats().intervalLatencyHistogram().update(latency);
+			consumerThread.stats().overallLatencyHistogram().update(latency);
 			if (latencyIsSteadyStateForClient)
 			{
 				consumerThread.stats().steadyStateLatencyStats().update(latency);
+				consumerThread.stats().steadyStateLatencyHistogram().update(latency);
 			}
 			else
 			{
@@ -925,12 +966,14 @@ public class upajConsPerf implements ShutdownCallback
 				if (latencyIsSteadyStateOverall)
 				{
 					_totalStats.steadyStateLatencyStats().update(latency);
+					_totalStats.steadyStateLatencyHistogram().update(latency);
 				}
 				else
 				{
 					_totalStats.startupLatencyStats().update(latency);
 				}
 				_totalStats.overallLatencyStats().update(latency);
+				_totalStats.overallLatencyHistogram().update(latency);
 			}
 
 			if (consumerThread.latencyLogFile() != null)
@@ -951,9 +994,14 @@ public class upajConsPerf implements ShutdownCallback
 			
 			consumerThread.stats().intervalPostLatencyStats().update(latency);
 			consumerThread.stats().postLatencyStats().update(latency);
+			consumerThread.stats().intervalPostLatencyHistogram().update(latency);
+			consumerThread.stats().postLatencyHistogram().update(latency);
 			
 			if (_consPerfConfig.threadCount() > 1)
+			{
 				_totalStats.postLatencyStats().update(latency);
+				_totalStats.postLatencyHistogram().update(latency);
+			}
 
 			if (consumerThread.latencyLogFile() != null)
 				consumerThread.latencyLogFileWriter().printf("Pst, %d, %d, %d\n", record.startTime(), record.endTime(), (record.endTime() - record.startTime()));
@@ -973,9 +1021,14 @@ public class upajConsPerf implements ShutdownCallback
 			
 			consumerThread.stats().intervalGenMsgLatencyStats().update(latency);
 			consumerThread.stats().genMsgLatencyStats().update(latency);
+			consumerThread.stats().intervalGenMsgLatencyHistogram().update(latency);
+			consumerThread.stats().genMsgLatencyHistogram().update(latency);
 			
 			if (_consPerfConfig.threadCount() > 1)
+			{
 				_totalStats.genMsgLatencyStats().update(latency);
+				_totalStats.genMsgLatencyHistogram().update(latency);
+			}
 
 			if (consumerThread.latencyLogFile() != null)
 				consumerThread.latencyLogFileWriter().printf("Gen, %d, %d, %d\n", record.startTime(), record.endTime(), (record.endTime() - record.startTime()));
@@ -0,0 +1,4 @@
+/**
+ * The upajItemHashPerf application package.
+ */
+package com.thomsonreuters.upa.perftools.upajitemhashperf;
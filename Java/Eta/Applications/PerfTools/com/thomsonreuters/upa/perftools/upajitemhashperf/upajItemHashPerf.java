@@ -0,0 +1,186 @@
+package com.thomsonreuters.upa.perftools.upajitemhashperf;
+
+import java.util.Arrays;
+
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+import com.thomsonreuters.upa.rdm.DomainTypes;
+import com.thomsonreuters.upa.valueadd.reactor.WlItemAggregationKeyBenchmark;
+
+/**
+ * The upajItemHashPerf application. Measures how evenly the hash codes of the
+ * keys on which the watchlist aggregates item requests are distributed.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * For each of several sets of synthetic item names (equities with exchange
+ * suffixes, options and sequentially numbered items), the application
+ * computes the hash codes of the aggregation keys of <i>-itemCount</i> items
+ * and reports:
+ * <ul>
+ * <li>the number of full collisions, where two keys have the same hash code,
+ *     and the number expected for random 32-bit hash codes
+ * <li>the longest chain and chi-squared statistic per degree of freedom when
+ *     the keys are placed in a hash table of <i>-tableSize</i> buckets, using
+ *     the bucket index that java.util.HashMap derives from the hash code. A
+ *     value near 1 means the keys are spread as evenly as random ones.
+ * </ul>
+ * <p>
+ * The hash codes are computed through a {@link WlItemAggregationKeyBenchmark}.
+ * That class is built from the <i>ValueAddPerf</i> directory into
+ * <i>bin/valueadd</i>, together with the ValueAdd classes, which are used in
+ * place of upaValueAdd.jar.
+ * <p>
+ * <H2>Running the application:</H2>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../Libs/upa.jar;bin/valueadd;bin
+ * com.thomsonreuters.upa.perftools.upajitemhashperf.upajItemHashPerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class upajItemHashPerf
+{
+    /* Exchange suffixes of equity names. */
+    private static final String[] EXCHANGE_SUFFIXES = { ".N", ".O", ".L", ".PA", ".DE", ".T", ".HK", ".TO", ".AX", ".SI" };
+
+    private final WlItemAggregationKeyBenchmark _benchmark = new WlItemAggregationKeyBenchmark();
+
+    private int _itemCount;
+    private int _tableSize;
+    private int _serviceId;
+
+    static
+    {
+        CommandLine.programName("upajItemHashPerf");
+        CommandLine.addOption("itemCount", 1000000, "Number of items in each set of names");
+        CommandLine.addOption("tableSize", 0, "Number of buckets in the hash table, rounded up to a power of two (default: item count)");
+        CommandLine.addOption("serviceId", 1, "Service id of the items");
+    }
+
+    private void init(String[] args)
+    {
+        try
+        {
+            CommandLine.parseArgs(args);
+        }
+        catch (IllegalArgumentException ile)
+        {
+            System.err.println("Error loading command line arguments:\t");
+            System.err.println(ile.getMessage());
+            System.err.println();
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+
+        _itemCount = CommandLine.intValue("itemCount");
+        _serviceId = CommandLine.intValue("serviceId");
+        int tableSize = CommandLine.intValue("tableSize");
+
+        if (_itemCount < 1 || tableSize < 0 || tableSize > (1 << 30))
+        {
+            System.err.println("Config Error: itemCount must be positive, and tableSize at most 2^30.");
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+
+        if (tableSize == 0)
+            tableSize = Math.min(_itemCount, 1 << 30);
+        _tableSize = Integer.highestOneBit(tableSize);
+        if (_tableSize < tableSize)
+            _tableSize <<= 1;
+    }
+
+    private void run()
+    {
+        System.out.printf("%-12s %10s %12s %10s %10s %10s\n", "Names", "Items", "Collisions", "Expected", "Max chain", "Chi2/df");
+
+        measure("equity");
+        measure("option");
+        measure("sequential");
+    }
+
+    private void measure(String nameSet)
+    {
+        int[] hashCodes = new int[_itemCount];
+        for (int i = 0; i < _itemCount; ++i)
+            hashCodes[i] = _benchmark.hashCode(itemName(nameSet, i), _serviceId, DomainTypes.MARKET_PRICE);
+
+        /* Keys whose hash codes are equal. */
+        int[] sortedHashCodes = Arrays.copyOf(hashCodes, _itemCount);
+        Arrays.sort(sortedHashCodes);
+        int collisions = 0;
+        for (int i = 1; i < _itemCount; ++i)
+        {
+            if (sortedHashCodes[i] == sortedHashCodes[i - 1])
+                ++collisions;
+        }
+        double expectedCollisions = (double)_itemCount * (_itemCount - 1) / 2 / 4294967296.0;
+
+        /* Chains in a table indexed as java.util.HashMap does. */
+        int[] chains = new int[_tableSize];
+        int maxChain = 0;
+        for (int i = 0; i < _itemCount; ++i)
+        {
+            int hash = hashCodes[i];
+            int chain = ++chains[(hash ^ (hash >>> 16)) & (_tableSize - 1)];
+            if (chain > maxChain)
+                maxChain = chain;
+        }
+
+        double expectedChain = (double)_itemCount / _tableSize;
+        double chi2 = 0;
+        for (int i = 0; i < _tableSize; ++i)
+        {
+            double difference = chains[i] - expectedChain;
+            chi2 += difference * difference / expectedChain;
+        }
+
+        System.out.printf("%-12s %10d %12d %10.1f %10d %10.2f\n", nameSet, _itemCount, collisions, expectedCollisions,
+                maxChain, chi2 / Math.max(_tableSize - 1, 1));
+    }
+
+    /* Returns the name of an item of a set. The names of a set are all different. */
+    private static String itemName(String nameSet, int index)
+    {
+        if (nameSet.equals("equity"))
+        {
+            return letters(index / EXCHANGE_SUFFIXES.length) + EXCHANGE_SUFFIXES[index % EXCHANGE_SUFFIXES.length];
+        }
+        else if (nameSet.equals("option"))
+        {
+            /* Root, strike and expiry month code, as in IBM150C8.U. */
+            int strike = 50 + (index % 40) * 5;
+            int month = (index / 40) % 12;
+            return letters(index / 480) + strike + (char)('A' + month) + (index / 40 / 12 % 10) + ".U";
+        }
+        else
+        {
+            return String.format("ITEM%07d", index);
+        }
+    }
+
+    /* Returns a distinct string of capital letters for each value. */
+    private static String letters(int value)
+    {
+        StringBuilder letters = new StringBuilder();
+        do
+        {
+            letters.append((char)('A' + value % 26));
+            value = value / 26 - 1;
+        } while (value >= 0);
+        return letters.reverse().toString();
+    }
+
+    public static void main(String[] args)
+    {
+        upajItemHashPerf itemHashPerf = new upajItemHashPerf();
+        itemHashPerf.init(args);
+        itemHashPerf.run();
+        System.exit(0);
+    }
+}
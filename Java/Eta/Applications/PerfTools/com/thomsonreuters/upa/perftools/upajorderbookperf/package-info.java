@@ -0,0 +1,4 @@
+/**
+ * The upajOrderBookPerf application package.
+ */
+package com.thomsonreuters.upa.perftools.upajorderbookperf;
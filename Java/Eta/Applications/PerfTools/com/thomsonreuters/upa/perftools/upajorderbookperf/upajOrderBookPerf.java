@@ -0,0 +1,437 @@
+package com.thomsonreuters.upa.perftools.upajorderbookperf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.Codec;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.codec.DataTypes;
+import com.thomsonreuters.upa.codec.DecodeIterator;
+import com.thomsonreuters.upa.codec.EncodeIterator;
+import com.thomsonreuters.upa.codec.Enum;
+import com.thomsonreuters.upa.codec.FieldEntry;
+import com.thomsonreuters.upa.codec.FieldList;
+import com.thomsonreuters.upa.codec.Map;
+import com.thomsonreuters.upa.codec.MapEntry;
+import com.thomsonreuters.upa.codec.MapEntryActions;
+import com.thomsonreuters.upa.codec.Real;
+import com.thomsonreuters.upa.codec.RealHints;
+import com.thomsonreuters.upa.codec.UInt;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+import com.thomsonreuters.upa.perftools.common.LatencyHistogram;
+import com.thomsonreuters.upa.rdm.DomainTypes;
+import com.thomsonreuters.upa.valueadd.cache.CacheError;
+import com.thomsonreuters.upa.valueadd.cache.CacheFactory;
+import com.thomsonreuters.upa.valueadd.cache.OrderBook;
+import com.thomsonreuters.upa.valueadd.cache.OrderBookConfigOptions;
+import com.thomsonreuters.upa.valueadd.cache.OrderBookSides;
+
+/**
+ * The upajOrderBookPerf application. Measures how fast the value add
+ * {@link OrderBook} applies MarketByOrder or MarketByPrice traffic.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * The application replays a sequence of encoded Map payloads into an order
+ * book, timing each apply, and reports the update rate and the percentiles of
+ * the apply latency. The first payloads of the sequence are the refresh image
+ * of the book; the rest are updates.
+ * <p>
+ * The payloads are either generated (a book of <i>-orders</i> resting orders
+ * over <i>-levels</i> price levels per side, followed by <i>-updates</i>
+ * random ADD, UPDATE and DELETE actions), or read from a file written with
+ * <i>-outputFile</i>. A recording file is a sequence of payloads, each
+ * preceded by its length as a 4-byte integer, so traffic captured from a
+ * live MarketByOrder or MarketByPrice stream in the same format can be
+ * replayed with <i>-inputFile</i>.
+ * <p>
+ * <H2>Running the application:</H2>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../Libs/upa.jar;../ValueAdd/Libs/upaValueAdd.jar;../ValueAdd/Libs/upaValueAddCache.jar;bin
+ * com.thomsonreuters.upa.perftools.upajorderbookperf.upajOrderBookPerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class upajOrderBookPerf
+{
+    private static final int REFRESH_ENTRIES_PER_PART = 500;
+    private static final int MAX_PAYLOAD_SIZE = 1024 * 1024;
+    private static final long BASE_PRICE = 1000000; /* 100.0000, at EXPONENT_4 */
+
+    private int _domainType;
+    private int _iterations;
+    private final List<ByteBuffer> _payloads = new ArrayList<ByteBuffer>();
+
+    private final EncodeIterator _eIter = CodecFactory.createEncodeIterator();
+    private final Map _map = CodecFactory.createMap();
+    private final MapEntry _mapEntry = CodecFactory.createMapEntry();
+    private final FieldList _fieldList = CodecFactory.createFieldList();
+    private final FieldEntry _fieldEntry = CodecFactory.createFieldEntry();
+    private final Real _real = CodecFactory.createReal();
+    private final Enum _enum = CodecFactory.createEnum();
+    private final UInt _uint = CodecFactory.createUInt();
+    private final Buffer _key = CodecFactory.createBuffer();
+
+    static
+    {
+        CommandLine.programName("upajOrderBookPerf");
+        CommandLine.addOption("domain", "mbo", "Domain of the traffic(\"mbo\", \"mbp\")");
+        CommandLine.addOption("inputFile", "", "Name of a recording file to replay, instead of generating traffic");
+        CommandLine.addOption("outputFile", "", "Name of a file to record the generated traffic to");
+        CommandLine.addOption("orders", 10000, "Number of orders (price points for mbp) in the generated refresh");
+        CommandLine.addOption("levels", 100, "Number of price levels per side in the generated traffic");
+        CommandLine.addOption("updates", 1000000, "Number of generated update actions");
+        CommandLine.addOption("iterations", 5, "Number of times the traffic is replayed");
+        CommandLine.addOption("seed", 1, "Seed of the random traffic generator");
+    }
+
+    /* A generated order: its key, side and price, or the price point of a MarketByPrice entry. */
+    private static class GeneratedOrder
+    {
+        String id;
+        int side;
+        long price;
+    }
+
+    private void init(String[] args)
+    {
+        try
+        {
+            CommandLine.parseArgs(args);
+        }
+        catch (IllegalArgumentException ile)
+        {
+            System.err.println("Error loading command line arguments:\t");
+            System.err.println(ile.getMessage());
+            System.err.println();
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+
+        String domain = CommandLine.value("domain");
+        if (domain.equals("mbo"))
+            _domainType = DomainTypes.MARKET_BY_ORDER;
+        else if (domain.equals("mbp"))
+            _domainType = DomainTypes.MARKET_BY_PRICE;
+        else
+        {
+            System.err.println("Error: unknown domain \"" + domain + "\"");
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+        _iterations = CommandLine.intValue("iterations");
+
+        try
+        {
+            String inputFile = CommandLine.value("inputFile");
+            if (inputFile.length() > 0)
+                readRecording(inputFile);
+            else
+            {
+                generate(CommandLine.intValue("orders"), CommandLine.intValue("levels"), CommandLine.intValue("updates"), CommandLine.intValue("seed"));
+                String outputFile = CommandLine.value("outputFile");
+                if (outputFile.length() > 0)
+                    writeRecording(outputFile);
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+    }
+
+    private void run()
+    {
+        CacheError error = CacheFactory.createCacheError();
+        OrderBookConfigOptions configOptions = CacheFactory.createOrderBookConfig();
+        configOptions.domainType(_domainType);
+        OrderBook book = CacheFactory.createOrderBook(configOptions, error);
+        if (book == null)
+        {
+            System.err.println("Error creating order book: " + error.text());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+
+        DecodeIterator dIter = CodecFactory.createDecodeIterator();
+        Buffer payload = CodecFactory.createBuffer();
+        LatencyHistogram applyLatency = new LatencyHistogram();
+        int majorVersion = Codec.majorVersion();
+        int minorVersion = Codec.minorVersion();
+
+        System.out.println("Replaying " + _payloads.size() + " payloads " + _iterations + " times\n");
+
+        for (int iteration = 1; iteration <= _iterations; iteration++)
+        {
+            book.clear();
+            applyLatency.clear();
+            long startTime = System.nanoTime();
+
+            for (int i = 0; i < _payloads.size(); i++)
+            {
+                ByteBuffer data = _payloads.get(i);
+                payload.data(data, 0, data.limit());
+                dIter.clear();
+                dIter.setBufferAndRWFVersion(payload, majorVersion, minorVersion);
+
+                long applyStart = System.nanoTime();
+                int ret = book.apply(dIter, error);
+                applyLatency.update((System.nanoTime() - applyStart) / 1000.0);
+
+                if (ret < CodecReturnCodes.SUCCESS)
+                {
+                    System.err.println("Error applying payload " + i + ": " + error.text());
+                    System.exit(CodecReturnCodes.FAILURE);
+                }
+            }
+
+            double seconds = (System.nanoTime() - startTime) / 1000000000.0;
+            System.out.printf("Iteration %d: %.0f payloads/sec, %d bid levels, %d ask levels, best bid %s, best ask %s\n",
+                    iteration, _payloads.size() / seconds,
+                    book.levelCount(OrderBookSides.BID), book.levelCount(OrderBookSides.ASK),
+                    priceString(book.price(OrderBookSides.BID, 0)), priceString(book.price(OrderBookSides.ASK, 0)));
+            applyLatency.print("  Apply latency (usec)", "payloads", true);
+        }
+
+        book.destroy();
+    }
+
+    private static String priceString(long scaledPrice)
+    {
+        return String.format("%.4f", (double)scaledPrice / OrderBook.SCALE);
+    }
+
+    /* Generates a refresh image of a book, in parts, followed by single-entry updates. */
+    private void generate(int orders, int levels, int updates, long seed)
+    {
+        Random random = new Random(seed);
+        boolean marketByPrice = _domainType == DomainTypes.MARKET_BY_PRICE;
+        if (marketByPrice)
+            orders = Math.min(orders, levels * 2);
+
+        List<GeneratedOrder> book = new ArrayList<GeneratedOrder>(orders);
+        int nextId = 0;
+        for (int i = 0; i < orders; i++)
+            book.add(marketByPrice ? pricePoint(i % 2 == 0 ? OrderBookSides.BID : OrderBookSides.ASK, i / 2)
+                                   : order(nextId++, random, levels));
+
+        for (int start = 0; start < book.size(); start += REFRESH_ENTRIES_PER_PART)
+        {
+            ByteBuffer data = beginPayload();
+            for (int i = start; i < Math.min(start + REFRESH_ENTRIES_PER_PART, book.size()); i++)
+                encodeEntry(MapEntryActions.ADD, book.get(i), random);
+            endPayload(data);
+        }
+
+        for (int i = 0; i < updates; i++)
+        {
+            int index = random.nextInt(book.size());
+            GeneratedOrder entry = book.get(index);
+            ByteBuffer data = beginPayload();
+
+            int choice = random.nextInt(4);
+            if (choice < 2 || marketByPrice)
+                encodeEntry(MapEntryActions.UPDATE, entry, random);
+            else if (choice == 2)
+            {
+                encodeEntry(MapEntryActions.DELETE, entry, random);
+                book.set(index, entry = order(nextId++, random, levels));
+                encodeEntry(MapEntryActions.ADD, entry, random);
+            }
+            else
+            {
+                /* move the order to another price */
+                entry.price = levelPrice(entry.side, random.nextInt(levels));
+                encodeEntry(MapEntryActions.ADD, entry, random);
+            }
+
+            endPayload(data);
+        }
+    }
+
+    private static GeneratedOrder order(int id, Random random, int levels)
+    {
+        GeneratedOrder order = new GeneratedOrder();
+        order.id = Integer.toString(id);
+        order.side = random.nextBoolean() ? OrderBookSides.BID : OrderBookSides.ASK;
+        order.price = levelPrice(order.side, random.nextInt(levels));
+        return order;
+    }
+
+    private static GeneratedOrder pricePoint(int side, int level)
+    {
+        GeneratedOrder pricePoint = new GeneratedOrder();
+        pricePoint.side = side;
+        pricePoint.price = levelPrice(side, level);
+        pricePoint.id = (side == OrderBookSides.BID ? "B" : "A") + pricePoint.price;
+        return pricePoint;
+    }
+
+    /* Prices are one tick of 0.0100 apart, bids below and asks above BASE_PRICE. */
+    private static long levelPrice(int side, int level)
+    {
+        return side == OrderBookSides.BID ? BASE_PRICE - 100 * (level + 1) : BASE_PRICE + 100 * (level + 1);
+    }
+
+    private ByteBuffer beginPayload()
+    {
+        ByteBuffer data = ByteBuffer.allocate(MAX_PAYLOAD_SIZE);
+        Buffer buffer = CodecFactory.createBuffer();
+        buffer.data(data);
+        _eIter.clear();
+        _eIter.setBufferAndRWFVersion(buffer, Codec.majorVersion(), Codec.minorVersion());
+
+        _map.clear();
+        _map.keyPrimitiveType(DataTypes.BUFFER);
+        _map.containerType(DataTypes.FIELD_LIST);
+        checkEncode(_map.encodeInit(_eIter, 0, 0), "Map.encodeInit");
+        return data;
+    }
+
+    private void endPayload(ByteBuffer data)
+    {
+        checkEncode(_map.encodeComplete(_eIter, true), "Map.encodeComplete");
+
+        ByteBuffer payload = ByteBuffer.allocate(data.position());
+        data.flip();
+        payload.put(data);
+        payload.flip();
+        _payloads.add(payload);
+    }
+
+    private void encodeEntry(int action, GeneratedOrder entry, Random random)
+    {
+        _key.data(entry.id);
+        _mapEntry.clear();
+        _mapEntry.action(action);
+        if (action == MapEntryActions.DELETE)
+        {
+            checkEncode(_mapEntry.encode(_eIter, _key), "MapEntry.encode");
+            return;
+        }
+
+        checkEncode(_mapEntry.encodeInit(_eIter, _key, 0), "MapEntry.encodeInit");
+        _fieldList.clear();
+        _fieldList.applyHasStandardData();
+        checkEncode(_fieldList.encodeInit(_eIter, null, 0), "FieldList.encodeInit");
+
+        boolean marketByPrice = _domainType == DomainTypes.MARKET_BY_PRICE;
+        if (action == MapEntryActions.ADD)
+        {
+            _real.value(entry.price, RealHints.EXPONENT_4);
+            encodeField(3427, DataTypes.REAL);
+            _enum.value(entry.side);
+            encodeField(3428, DataTypes.ENUM);
+        }
+        _real.value(random.nextInt(100000) + 1, RealHints.EXPONENT0);
+        encodeField(marketByPrice ? 4356 : 3429, DataTypes.REAL);
+        if (marketByPrice)
+        {
+            _uint.value(random.nextInt(50) + 1);
+            encodeField(3430, DataTypes.UINT);
+        }
+
+        checkEncode(_fieldList.encodeComplete(_eIter, true), "FieldList.encodeComplete");
+        checkEncode(_mapEntry.encodeComplete(_eIter, true), "MapEntry.encodeComplete");
+    }
+
+    private void encodeField(int fieldId, int dataType)
+    {
+        _fieldEntry.clear();
+        _fieldEntry.fieldId(fieldId);
+        _fieldEntry.dataType(dataType);
+        switch (dataType)
+        {
+            case DataTypes.REAL:
+                checkEncode(_fieldEntry.encode(_eIter, _real), "FieldEntry.encode");
+                break;
+            case DataTypes.ENUM:
+                checkEncode(_fieldEntry.encode(_eIter, _enum), "FieldEntry.encode");
+                break;
+            default:
+                checkEncode(_fieldEntry.encode(_eIter, _uint), "FieldEntry.encode");
+                break;
+        }
+    }
+
+    private static void checkEncode(int ret, String what)
+    {
+        if (ret < CodecReturnCodes.SUCCESS)
+        {
+            System.err.println("Error generating traffic: " + what + " failed: " + CodecReturnCodes.toString(ret));
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+    }
+
+    private void readRecording(String fileName) throws IOException
+    {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+        try
+        {
+            while (true)
+            {
+                int length;
+                try
+                {
+                    length = input.readInt();
+                }
+                catch (EOFException e)
+                {
+                    break;
+                }
+                if (length < 0 || length > MAX_PAYLOAD_SIZE)
+                    throw new IOException("invalid payload length " + length + " in " + fileName);
+
+                byte[] bytes = new byte[length];
+                input.readFully(bytes);
+                _payloads.add(ByteBuffer.wrap(bytes));
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    private void writeRecording(String fileName) throws IOException
+    {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+        try
+        {
+            for (ByteBuffer payload : _payloads)
+            {
+                output.writeInt(payload.limit());
+                output.write(payload.array(), payload.arrayOffset(), payload.limit());
+            }
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        upajOrderBookPerf orderBookPerf = new upajOrderBookPerf();
+        orderBookPerf.init(args);
+        orderBookPerf.run();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The upajQueuePerf application package.
+ */
+package com.thomsonreuters.upa.perftools.upajqueueperf;
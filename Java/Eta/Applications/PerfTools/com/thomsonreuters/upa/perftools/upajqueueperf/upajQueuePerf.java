@@ -0,0 +1,207 @@
+package com.thomsonreuters.upa.perftools.upajqueueperf;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+import com.thomsonreuters.upa.valueadd.common.VaConcurrentQueue;
+import com.thomsonreuters.upa.valueadd.common.VaNode;
+import com.thomsonreuters.upa.valueadd.common.VaRingBufferQueue;
+
+/**
+ * The upajQueuePerf application. Compares the throughput of the queues that
+ * carry events between the Reactor and its Worker: the lock-based
+ * {@link VaConcurrentQueue} and the lock-free {@link VaRingBufferQueue}.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * For each queue, <i>-producers</i> threads each add <i>-msgCount</i> nodes
+ * while one consumer thread polls them, as the Reactor and Worker threads do.
+ * Each measurement is run <i>-iterations</i> times after <i>-warmup</i>
+ * unreported runs, and the application reports the number of nodes passed
+ * per second and the average time per node for each run.
+ * <p>
+ * <H2>Running the application:</H2>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../Libs/upa.jar;../ValueAdd/Libs/upaValueAdd.jar;bin
+ * com.thomsonreuters.upa.perftools.upajqueueperf.upajQueuePerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class upajQueuePerf
+{
+    private int _producers;
+    private int _msgCount;
+    private int _capacity;
+    private int _iterations;
+    private int _warmup;
+
+    static
+    {
+        CommandLine.programName("upajQueuePerf");
+        CommandLine.addOption("producers", 1, "Number of threads adding to the queue");
+        CommandLine.addOption("msgCount", 1000000, "Number of nodes each producer adds per run");
+        CommandLine.addOption("capacity", VaRingBufferQueue.DEFAULT_CAPACITY, "Capacity of the ring buffer queue");
+        CommandLine.addOption("iterations", 5, "Number of reported runs for each queue");
+        CommandLine.addOption("warmup", 2, "Number of unreported runs for each queue");
+    }
+
+    /* The queue operations measured, so that both queues are driven by the same code. */
+    private interface QueueUnderTest
+    {
+        void add(VaNode node);
+
+        VaNode poll();
+    }
+
+    private static class ConcurrentQueueUnderTest implements QueueUnderTest
+    {
+        private final VaConcurrentQueue _queue = new VaConcurrentQueue();
+
+        public void add(VaNode node)
+        {
+            _queue.add(node);
+        }
+
+        public VaNode poll()
+        {
+            return _queue.poll();
+        }
+    }
+
+    private static class RingBufferQueueUnderTest implements QueueUnderTest
+    {
+        private final VaRingBufferQueue _queue;
+
+        RingBufferQueueUnderTest(int capacity)
+        {
+            _queue = new VaRingBufferQueue(capacity);
+        }
+
+        public void add(VaNode node)
+        {
+            _queue.add(node);
+        }
+
+        public VaNode poll()
+        {
+            return _queue.poll();
+        }
+    }
+
+    private void init(String[] args)
+    {
+        try
+        {
+            CommandLine.parseArgs(args);
+        }
+        catch (IllegalArgumentException ile)
+        {
+            System.err.println("Error loading command line arguments:\t");
+            System.err.println(ile.getMessage());
+            System.err.println();
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+
+        _producers = CommandLine.intValue("producers");
+        _msgCount = CommandLine.intValue("msgCount");
+        _capacity = CommandLine.intValue("capacity");
+        _iterations = CommandLine.intValue("iterations");
+        _warmup = CommandLine.intValue("warmup");
+
+        if (_producers < 1 || _msgCount < 1 || _capacity < 1)
+        {
+            System.err.println("Config Error: producers, msgCount and capacity must be positive.");
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+    }
+
+    private void run() throws InterruptedException
+    {
+        System.out.printf("%-18s %10s %5s %16s %12s\n", "Queue", "Producers", "Run", "Nodes/sec", "nsec/node");
+
+        measure("VaConcurrentQueue", false);
+        measure("VaRingBufferQueue", true);
+    }
+
+    private void measure(String name, boolean ringBuffer) throws InterruptedException
+    {
+        /* Each producer has its own nodes, created once, so that no node is in the queue twice. */
+        VaNode[][] nodes = new VaNode[_producers][_msgCount];
+        for (int i = 0; i < _producers; ++i)
+        {
+            for (int j = 0; j < _msgCount; ++j)
+                nodes[i][j] = new VaNode();
+        }
+
+        for (int run = 0; run < _warmup + _iterations; ++run)
+        {
+            QueueUnderTest queue = (ringBuffer ? new RingBufferQueueUnderTest(_capacity) : new ConcurrentQueueUnderTest());
+            long nsec = runOnce(queue, nodes);
+            if (run < _warmup)
+                continue;
+
+            long total = (long)_producers * _msgCount;
+            System.out.printf("%-18s %10d %5d %16.0f %12.1f\n", name, _producers, run - _warmup + 1,
+                    total * 1000000000.0 / nsec, (double)nsec / total);
+        }
+    }
+
+    /* Passes every node from the producers to the consumer, the calling thread, and returns
+     * the time taken in nanoseconds. */
+    private long runOnce(final QueueUnderTest queue, final VaNode[][] nodes) throws InterruptedException
+    {
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] producers = new Thread[_producers];
+        for (int i = 0; i < _producers; ++i)
+        {
+            final VaNode[] producerNodes = nodes[i];
+            producers[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                    for (int j = 0; j < producerNodes.length; ++j)
+                        queue.add(producerNodes[j]);
+                }
+            });
+            producers[i].start();
+        }
+
+        long total = (long)_producers * _msgCount;
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (long received = 0; received < total; )
+        {
+            if (queue.poll() != null)
+                ++received;
+        }
+        long nsec = System.nanoTime() - startTime;
+
+        for (int i = 0; i < _producers; ++i)
+            producers[i].join();
+        return nsec;
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        upajQueuePerf queuePerf = new upajQueuePerf();
+        queuePerf.init(args);
+        queuePerf.run();
+        System.exit(0);
+    }
+}
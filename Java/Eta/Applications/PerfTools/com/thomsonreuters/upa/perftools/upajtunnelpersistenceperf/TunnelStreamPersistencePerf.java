@@ -0,0 +1,140 @@
+package com.thomsonreuters.upa.perftools.upajtunnelpersistenceperf;
+
+import java.io.File;
+
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.transport.TransportFactory;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorReturnCodes;
+import com.thomsonreuters.upa.valueadd.reactor.TunnelStreamPersistenceBenchmark;
+
+/**
+ * The TunnelStreamPersistencePerf application. Measures the rate at which
+ * queue messages pass through the local persistence file of a tunnel stream
+ * substream, with and without group commit.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * For each count given with <i>-msgsPerDispatch</i>, the application passes
+ * <i>-msgCount</i> messages through a persistence file as a tunnel stream
+ * does when they are submitted, transmitted and acknowledged, in dispatch
+ * passes of that many messages. Without group commit, the file is forced to
+ * disk on each of these updates. With group commit, it is forced once per
+ * dispatch pass. The rate of messages is reported for each case.
+ * <p>
+ * Each count is measured for the version 2 file format and for the
+ * log-structured format.
+ * <p>
+ * The files are opened through a {@link TunnelStreamPersistenceBenchmark},
+ * without a connection to a provider. That class is built from the
+ * <i>ValueAddPerf</i> directory into <i>bin/valueadd</i>, together with the
+ * ValueAdd classes, which are used in place of upaValueAdd.jar.
+ * <p>
+ * <H2>Running the application:</H2>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../Libs/upa.jar;bin/valueadd;bin
+ * com.thomsonreuters.upa.perftools.upajtunnelpersistenceperf.TunnelStreamPersistencePerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class TunnelStreamPersistencePerf
+{
+    private final Error _error = TransportFactory.createError();
+
+    private String _directory;
+    private int _msgCount;
+    private int[] _msgsPerDispatch;
+    private int _msgLength;
+
+    static
+    {
+        CommandLine.programName("TunnelStreamPersistencePerf");
+        CommandLine.addOption("directory", ".", "Directory in which persistence files are created");
+        CommandLine.addOption("msgCount", 10000, "Number of messages passed through each file");
+        CommandLine.addOption("msgsPerDispatch", "1,10,100", "Comma-separated numbers of messages per dispatch pass to measure");
+        CommandLine.addOption("msgLength", 200, "Length of each message");
+    }
+
+    private void init(String[] args)
+    {
+        try
+        {
+            CommandLine.parseArgs(args);
+
+            String[] msgsPerDispatch = CommandLine.value("msgsPerDispatch").split(",");
+            _msgsPerDispatch = new int[msgsPerDispatch.length];
+            for (int i = 0; i < msgsPerDispatch.length; ++i)
+                _msgsPerDispatch[i] = Integer.parseInt(msgsPerDispatch[i].trim());
+        }
+        catch (IllegalArgumentException ile)
+        {
+            System.err.println("Error loading command line arguments:\t");
+            System.err.println(ile.getMessage());
+            System.err.println();
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+
+        _directory = CommandLine.value("directory");
+        _msgCount = CommandLine.intValue("msgCount");
+        _msgLength = CommandLine.intValue("msgLength");
+    }
+
+    private void run()
+    {
+        System.out.printf("%-8s %-12s %14s %12s %14s\n", "Format", "Group commit", "Msgs/dispatch", "Msgs/sec", "usec/msg");
+
+        for (int i = 0; i < _msgsPerDispatch.length; ++i)
+        {
+            measure("V2", false, false, _msgsPerDispatch[i]);
+            measure("V2", false, true, _msgsPerDispatch[i]);
+            measure("V3", true, false, _msgsPerDispatch[i]);
+            measure("V3", true, true, _msgsPerDispatch[i]);
+        }
+    }
+
+    /* Passes messages through a new persistence file and prints the rate achieved. */
+    private void measure(String format, boolean logStructured, boolean groupCommit, int msgsPerDispatch)
+    {
+        String queueName = "TunnelStreamPersistencePerf" + format;
+        TunnelStreamPersistenceBenchmark benchmark = new TunnelStreamPersistenceBenchmark(_directory, _msgLength, logStructured);
+        benchmark.groupCommit(groupCommit);
+
+        if (benchmark.fill(queueName, 0, true, _error) != ReactorReturnCodes.SUCCESS
+                || benchmark.open(queueName, _error) != ReactorReturnCodes.SUCCESS)
+        {
+            System.err.println(format + ": failed to create persistence file: " + _error.text());
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        int ret = benchmark.exchange(_msgCount, msgsPerDispatch, _error);
+        long elapsedNsec = System.nanoTime() - startTime;
+
+        benchmark.close(true, _error);
+        new File(_directory, queueName).delete();
+
+        if (ret != ReactorReturnCodes.SUCCESS)
+        {
+            System.err.println(format + ": failed to pass messages through persistence file: " + _error.text());
+            return;
+        }
+
+        System.out.printf("%-8s %-12s %14d %12.0f %14.2f\n", format, groupCommit ? "on" : "off", msgsPerDispatch,
+                _msgCount * 1000000000.0 / elapsedNsec, elapsedNsec / 1000.0 / _msgCount);
+    }
+
+    public static void main(String[] args)
+    {
+        TunnelStreamPersistencePerf persistencePerf = new TunnelStreamPersistencePerf();
+        persistencePerf.init(args);
+        persistencePerf.run();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The TunnelStreamPersistencePerf application package.
+ */
+package com.thomsonreuters.upa.perftools.upajtunnelpersistenceperf;
@@ -0,0 +1,163 @@
+package com.thomsonreuters.upa.perftools.upajtunnelrecoveryperf;
+
+import java.io.File;
+
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.perftools.common.CommandLine;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.transport.TransportFactory;
+import com.thomsonreuters.upa.valueadd.reactor.ReactorReturnCodes;
+import com.thomsonreuters.upa.valueadd.reactor.TunnelStreamPersistenceBenchmark;
+
+/**
+ * The TunnelStreamRecoveryPerf application. Measures how long a queue
+ * substream of a tunnel stream takes to recover its local persistence file
+ * when reopened, against the number of messages outstanding in the file.
+ * <p>
+ * <H2>Summary</H2>
+ * <p>
+ * For each message count given with <i>-msgCounts</i>, the application
+ * saves that many messages to a new persistence file and marks them as
+ * transmitted, as if they were sent but not yet acknowledged. It then
+ * reopens the file <i>-iterations</i> times, reporting the average time
+ * taken to open the file and to queue its messages for retransmission.
+ * <p>
+ * Each count is measured for the version 2 file format, where the messages
+ * fit in it, and for the log-structured format, both when the file was
+ * closed cleanly (and so is reopened from its index) and when it was not
+ * (and so is reopened by scanning its records).
+ * <p>
+ * The files are opened through a {@link TunnelStreamPersistenceBenchmark},
+ * without a connection to a provider. That class is built from the
+ * <i>ValueAddPerf</i> directory into <i>bin/valueadd</i>, together with the
+ * ValueAdd classes, which are used in place of upaValueAdd.jar.
+ * <p>
+ * <H2>Running the application:</H2>
+ * From the <i>PerfTools</i> directory run <i>ant</i> or <i>buildPerfTools.bat/ksh</i> script to
+ * build performance examples.
+ * <p>
+ * Run example with the following command:
+ * <p>
+ * java -cp ../Libs/upa.jar;bin/valueadd;bin
+ * com.thomsonreuters.upa.perftools.upajtunnelrecoveryperf.TunnelStreamRecoveryPerf
+ * <p>
+ * <i>-help</i> displays command line options, with a brief description of each option
+ * <p>
+ */
+public class TunnelStreamRecoveryPerf
+{
+    /* Number of messages a version 2 file holds. */
+    private static final int V2_MAX_MSGS = 1024;
+
+    private final Error _error = TransportFactory.createError();
+
+    private String _directory;
+    private int[] _msgCounts;
+    private int _msgLength;
+    private int _iterations;
+
+    static
+    {
+        CommandLine.programName("TunnelStreamRecoveryPerf");
+        CommandLine.addOption("directory", ".", "Directory in which persistence files are created");
+        CommandLine.addOption("msgCounts", "100,1000,10000,100000", "Comma-separated numbers of outstanding messages to measure");
+        CommandLine.addOption("msgLength", 200, "Length of each message");
+        CommandLine.addOption("iterations", 10, "Number of times each file is reopened");
+    }
+
+    private void init(String[] args)
+    {
+        try
+        {
+            CommandLine.parseArgs(args);
+
+            String[] msgCounts = CommandLine.value("msgCounts").split(",");
+            _msgCounts = new int[msgCounts.length];
+            for (int i = 0; i < msgCounts.length; ++i)
+                _msgCounts[i] = Integer.parseInt(msgCounts[i].trim());
+        }
+        catch (IllegalArgumentException ile)
+        {
+            System.err.println("Error loading command line arguments:\t");
+            System.err.println(ile.getMessage());
+            System.err.println();
+            System.err.println(CommandLine.optionHelpString());
+            System.exit(CodecReturnCodes.FAILURE);
+        }
+
+        _directory = CommandLine.value("directory");
+        _msgLength = CommandLine.intValue("msgLength");
+        _iterations = CommandLine.intValue("iterations");
+    }
+
+    private void run()
+    {
+        System.out.printf("%-8s %-10s %10s %14s %18s\n", "Format", "Recovery", "Messages", "Open (usec)", "Retransmit (usec)");
+
+        for (int i = 0; i < _msgCounts.length; ++i)
+        {
+            if (_msgCounts[i] <= V2_MAX_MSGS)
+                measure("V2", false, false, _msgCounts[i]);
+            measure("V3", true, true, _msgCounts[i]);
+            measure("V3", true, false, _msgCounts[i]);
+        }
+    }
+
+    /* Fills a new persistence file with the given number of transmitted messages, then
+     * reopens it repeatedly and prints the average time taken. */
+    private void measure(String format, boolean logStructured, boolean cleanClose, int msgCount)
+    {
+        String queueName = "TunnelStreamRecoveryPerf" + format + (cleanClose ? "Index" : "Scan");
+        TunnelStreamPersistenceBenchmark benchmark = new TunnelStreamPersistenceBenchmark(_directory, _msgLength, logStructured);
+
+        if (benchmark.fill(queueName, msgCount, cleanClose, _error) != ReactorReturnCodes.SUCCESS)
+        {
+            System.err.println(format + ": failed to fill persistence file: " + _error.text());
+            return;
+        }
+
+        long openNsec = 0;
+        long retransmitNsec = 0;
+        for (int iteration = 0; iteration < _iterations; ++iteration)
+        {
+            long startTime = System.nanoTime();
+            if (benchmark.open(queueName, _error) != ReactorReturnCodes.SUCCESS)
+            {
+                System.err.println(format + ": failed to open persistence file: " + _error.text());
+                return;
+            }
+            openNsec += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            if (benchmark.retransmit(_error) != ReactorReturnCodes.SUCCESS)
+            {
+                System.err.println(format + ": failed to retransmit messages: " + _error.text());
+                benchmark.close(true, _error);
+                return;
+            }
+            retransmitNsec += System.nanoTime() - startTime;
+
+            int retransmitCount = benchmark.releaseRetransmitted(_error);
+            benchmark.close(cleanClose, _error);
+
+            if (retransmitCount != msgCount)
+            {
+                System.err.println(format + ": recovered " + retransmitCount + " of " + msgCount + " messages");
+                return;
+            }
+        }
+
+        new File(_directory, queueName).delete();
+
+        System.out.printf("%-8s %-10s %10d %14.1f %18.1f\n", format, cleanClose ? "index" : "scan", msgCount,
+                openNsec / 1000.0 / _iterations, retransmitNsec / 1000.0 / _iterations);
+    }
+
+    public static void main(String[] args)
+    {
+        TunnelStreamRecoveryPerf recoveryPerf = new TunnelStreamRecoveryPerf();
+        recoveryPerf.init(args);
+        recoveryPerf.run();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The TunnelStreamRecoveryPerf application package.
+ */
+package com.thomsonreuters.upa.perftools.upajtunnelrecoveryperf;
@@ -0,0 +1,42 @@
+@ echo off
+
+rem ##################################################
+rem # if required, please modify this
+rem ##################################################
+
+rem java bin location
+set JAVA_BIN="%JAVA_HOME%\bin\java"
+
+rem command line options
+rem ..........................
+rem - uncomment and add to APP_ARGS to specify the command line options
+rem set APP_ARGS=-runTime 60 -latencyUpdateRate 1000 -tickRate 1000 -updateRate 100000
+
+rem JVM parameters
+set JVM_OPTIONS=-server -XX:+ForceTimeHighResolution -Xms2048m -Xmx2048m
+
+rem ##################################################
+
+rem display
+echo .................................................
+echo . EMAJ OMM NIProvider performance application 
+echo .................................................
+echo.
+
+rem application class
+set APPNAME=com.thomsonreuters.upa.perftools.emajniprovperf.emajNIProvPerf
+
+rem classpath
+set APP_CLASSPATH=../../Libs/upa.jar;../../Libs/upaValueAdd.jar;../../../Ema/Libs/ema.jar;../../../Ema/Libs/apache/org.apache.commons.collections.jar;../../../Ema/Libs/apache/commons-configuration-1.10.jar;../../../Ema/Libs/apache/commons-lang-2.6.jar;../../../Ema/Libs/apache/commons-logging-1.2.jar;../../../Ema/Libs/SLF4J/slf4j-1.7.12/slf4j-api-1.7.12.jar;../../../Ema/Libs/SLF4J/slf4j-1.7.12/slf4j-jdk14-1.7.12.jar;./xpp3-1.1.3_8.jar;./xpp3_min-1.1.3_8.jar;bin
+
+rem command
+set RUN_CMD=%JAVA_BIN%  %JVM_OPTIONS% -cp %APP_CLASSPATH% %APPNAME% %APP_ARGS%
+echo.
+echo %RUN_CMD%
+echo.
+
+
+rem run command
+%RUN_CMD%
+
+
@@ -86,6 +86,44 @@ public class CacheFactory
 		return new PayloadCacheConfigOptionsImpl();
 	}
 	
+	/**
+	 * Creates an instance of an order book.
+	 *
+	 * This is a thread safe method.
+	 * @param configOptions The options for configuring this order book
+	 * @param error Error information populated if this function fails
+	 * @return The order book instance
+	 * @see OrderBook
+	 * @see OrderBookConfigOptions
+	 * @see CacheError
+	 */
+	public static OrderBook createOrderBook( OrderBookConfigOptions configOptions, CacheError error )
+	{
+		if ( error == null )
+			throw new UnsupportedOperationException("CacheFactory.createOrderBook: error cannot be null, OrderBook not created.");
+		else if ( configOptions == null )
+		{
+			error.errorId(CodecReturnCodes.FAILURE);
+			error.text("CacheFactory.createOrderBook error: received invalid order book config options");
+			return null;
+		}
+
+		return OrderBookImpl.create(configOptions, error);
+	}
+
+	/**
+	 * Creates an instance of order book configuration options, set to the
+	 * defaults of the MarketByOrder domain.
+	 *
+	 * This is a thread safe method.
+	 * @return The order book configuration option instance
+	 * @see OrderBookConfigOptions
+	 */
+	public static OrderBookConfigOptions createOrderBookConfig()
+	{
+		return new OrderBookConfigOptionsImpl();
+	}
+
 	/**
 	 * Creates an instance of a cache error.
 	 *
@@ -0,0 +1,127 @@
+package com.thomsonreuters.upa.valueadd.cache;
+
+import com.thomsonreuters.upa.codec.DecodeIterator;
+import com.thomsonreuters.upa.codec.Msg;
+
+/**
+ * {@link OrderBook} keeps the current state of one MarketByOrder or
+ * MarketByPrice item. It applies the ADD, UPDATE and DELETE actions of the Map
+ * entries in the item's refresh and update messages, and keeps the price levels
+ * of each side sorted best price first.
+ *
+ * <p>
+ * Orders (or, for MarketByPrice, the price points of the map) and price levels
+ * are kept in tables outside the Java heap, indexed by the encoded map entry
+ * key, so a full-depth book adds no objects for the garbage collector to trace
+ * and applying messages does not allocate once the tables have grown to the
+ * size of the book.
+ *
+ * <p>
+ * Prices and sizes are fixed-point values: the value of a field multiplied by
+ * {@link #SCALE}. For MarketByPrice, the size of a price point is taken from
+ * its accumulated size field and its number of orders from its NO_ORD field.
+ *
+ * <p>
+ * An order book is not thread safe.
+ *
+ * @see CacheFactory#createOrderBook(OrderBookConfigOptions, CacheError)
+ * @see OrderBookSides
+ */
+public interface OrderBook
+{
+	/**
+	 * The factor prices and sizes are multiplied by. Values with more than 8
+	 * decimal places are truncated.
+	 */
+	public static final long SCALE = 100000000L;
+
+	/**
+	 * Applies a refresh or update message of the item. A refresh with the
+	 * clear cache flag clears the book first. Messages without a Map payload
+	 * are ignored.
+	 *
+	 * @param msg the decoded message
+	 * @param majorVersion the RWF major version of the message
+	 * @param minorVersion the RWF minor version of the message
+	 * @param error Error information populated if the payload cannot be decoded
+	 * @return {@link com.thomsonreuters.upa.codec.CodecReturnCodes#SUCCESS}, or a
+	 *         failure code
+	 */
+	public int apply(Msg msg, int majorVersion, int minorVersion, CacheError error);
+
+	/**
+	 * Applies the Map payload an iterator is positioned on.
+	 *
+	 * @param dIter the iterator, positioned on an encoded Map of field lists
+	 * @param error Error information populated if the payload cannot be decoded
+	 * @return {@link com.thomsonreuters.upa.codec.CodecReturnCodes#SUCCESS}, or a
+	 *         failure code
+	 */
+	public int apply(DecodeIterator dIter, CacheError error);
+
+	/**
+	 * The number of orders (MarketByOrder) or price points (MarketByPrice) in
+	 * the book.
+	 *
+	 * @return the number of map entries held
+	 */
+	public int entryCount();
+
+	/**
+	 * The number of price levels on a side of the book.
+	 *
+	 * @param side {@link OrderBookSides#BID} or {@link OrderBookSides#ASK}
+	 * @return the number of price levels
+	 */
+	public int levelCount(int side);
+
+	/**
+	 * The price of a level, multiplied by {@link #SCALE}. Level 0 is the best
+	 * price of the side: the highest bid or the lowest ask.
+	 *
+	 * @param side {@link OrderBookSides#BID} or {@link OrderBookSides#ASK}
+	 * @param level the level, from 0 to {@link #levelCount(int)} - 1
+	 * @return the price, or 0 if the side has no such level
+	 */
+	public long price(int side, int level);
+
+	/**
+	 * The total size of the orders at a level, multiplied by {@link #SCALE}.
+	 *
+	 * @param side {@link OrderBookSides#BID} or {@link OrderBookSides#ASK}
+	 * @param level the level, from 0 to {@link #levelCount(int)} - 1
+	 * @return the size, or 0 if the side has no such level
+	 */
+	public long size(int side, int level);
+
+	/**
+	 * The number of orders at a level.
+	 *
+	 * @param side {@link OrderBookSides#BID} or {@link OrderBookSides#ASK}
+	 * @param level the level, from 0 to {@link #levelCount(int)} - 1
+	 * @return the number of orders, or 0 if the side has no such level
+	 */
+	public long orderCount(int side, int level);
+
+	/**
+	 * Copies the best levels of a side into arrays, best price first.
+	 *
+	 * @param side {@link OrderBookSides#BID} or {@link OrderBookSides#ASK}
+	 * @param prices receives the prices of the levels, multiplied by {@link #SCALE}
+	 * @param sizes receives the sizes of the levels, multiplied by {@link #SCALE}
+	 * @param orderCounts receives the number of orders of the levels
+	 * @param maxLevels the most levels to copy; the arrays must hold at least this many
+	 * @return the number of levels copied
+	 */
+	public int depth(int side, long[] prices, long[] sizes, long[] orderCounts, int maxLevels);
+
+	/**
+	 * Removes all orders and price levels from the book.
+	 */
+	public void clear();
+
+	/**
+	 * Releases the tables of the book. The book must not be used afterwards.
+	 */
+	public void destroy();
+}
@@ -0,0 +1,128 @@
+package com.thomsonreuters.upa.valueadd.cache;
+
+/**
+ * Configuration options used when creating an {@link OrderBook} instance.
+ *
+ * <p>
+ * The defaults are those of the RDM MarketByOrder domain: ORDER_PRC (3427),
+ * ORDER_SIDE (3428) and ORDER_SIZE (3429). For the MarketByPrice domain, the
+ * size field defaults to ACC_SIZE (4356) and the number of orders is read from
+ * NO_ORD (3430).
+ *
+ * @see CacheFactory
+ */
+public interface OrderBookConfigOptions
+{
+	/**
+	 * The domain of the item, {@link com.thomsonreuters.upa.rdm.DomainTypes#MARKET_BY_ORDER}
+	 * or {@link com.thomsonreuters.upa.rdm.DomainTypes#MARKET_BY_PRICE}.
+	 *
+	 * @return the domain type
+	 */
+	public int domainType();
+
+	/**
+	 * The domain of the item, {@link com.thomsonreuters.upa.rdm.DomainTypes#MARKET_BY_ORDER}
+	 * or {@link com.thomsonreuters.upa.rdm.DomainTypes#MARKET_BY_PRICE}.
+	 *
+	 * @param domainType the domain type to set
+	 */
+	public void domainType(int domainType);
+
+	/**
+	 * The field id of the price of an order or price point.
+	 *
+	 * @return the field id
+	 */
+	public int priceFieldId();
+
+	/**
+	 * The field id of the price of an order or price point.
+	 *
+	 * @param fieldId the field id to set
+	 */
+	public void priceFieldId(int fieldId);
+
+	/**
+	 * The field id of the side of an order or price point.
+	 *
+	 * @return the field id
+	 */
+	public int sideFieldId();
+
+	/**
+	 * The field id of the side of an order or price point.
+	 *
+	 * @param fieldId the field id to set
+	 */
+	public void sideFieldId(int fieldId);
+
+	/**
+	 * The field id of the size of an order or price point. Zero selects the
+	 * default of the domain.
+	 *
+	 * @return the field id
+	 */
+	public int sizeFieldId();
+
+	/**
+	 * The field id of the size of an order or price point. Zero selects the
+	 * default of the domain.
+	 *
+	 * @param fieldId the field id to set
+	 */
+	public void sizeFieldId(int fieldId);
+
+	/**
+	 * The field id of the number of orders of a price point. Only used for
+	 * the MarketByPrice domain.
+	 *
+	 * @return the field id
+	 */
+	public int orderCountFieldId();
+
+	/**
+	 * The field id of the number of orders of a price point. Only used for
+	 * the MarketByPrice domain.
+	 *
+	 * @param fieldId the field id to set
+	 */
+	public void orderCountFieldId(int fieldId);
+
+	/**
+	 * The longest encoded map entry key the book can hold. Entries with longer
+	 * keys are rejected.
+	 *
+	 * @return the maximum key length, in bytes
+	 */
+	public int maxKeyLength();
+
+	/**
+	 * The longest encoded map entry key the book can hold. Entries with longer
+	 * keys are rejected.
+	 *
+	 * @param maxKeyLength the maximum key length to set, in bytes
+	 */
+	public void maxKeyLength(int maxKeyLength);
+
+	/**
+	 * The number of entries the book's tables are first sized for. The tables
+	 * grow as needed.
+	 *
+	 * @return the initial number of entries
+	 */
+	public int initialEntries();
+
+	/**
+	 * The number of entries the book's tables are first sized for. The tables
+	 * grow as needed.
+	 *
+	 * @param initialEntries the initial number of entries to set
+	 */
+	public void initialEntries(int initialEntries);
+
+	/**
+	 * Clears the options to their defaults.
+	 */
+	public void clear();
+}
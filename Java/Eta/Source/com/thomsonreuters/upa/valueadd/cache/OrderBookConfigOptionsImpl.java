@@ -0,0 +1,136 @@
+package com.thomsonreuters.upa.valueadd.cache;
+
+import com.thomsonreuters.upa.rdm.DomainTypes;
+
+/*
+ * Order book configuration class
+ */
+class OrderBookConfigOptionsImpl implements OrderBookConfigOptions
+{
+	static final int ORDER_PRC_FID = 3427;
+	static final int ORDER_SIDE_FID = 3428;
+	static final int ORDER_SIZE_FID = 3429;
+	static final int NO_ORD_FID = 3430;
+	static final int ACC_SIZE_FID = 4356;
+
+	static final int DEFAULT_MAX_KEY_LENGTH = 32;
+	static final int DEFAULT_INITIAL_ENTRIES = 1024;
+
+	private int _domainType;
+	private int _priceFieldId;
+	private int _sideFieldId;
+	private int _sizeFieldId;
+	private int _orderCountFieldId;
+	private int _maxKeyLength;
+	private int _initialEntries;
+
+	OrderBookConfigOptionsImpl()
+	{
+		clear();
+	}
+
+	@Override
+	public int domainType()
+	{
+		return _domainType;
+	}
+
+	@Override
+	public void domainType(int domainType)
+	{
+		_domainType = domainType;
+	}
+
+	@Override
+	public int priceFieldId()
+	{
+		return _priceFieldId;
+	}
+
+	@Override
+	public void priceFieldId(int fieldId)
+	{
+		_priceFieldId = fieldId;
+	}
+
+	@Override
+	public int sideFieldId()
+	{
+		return _sideFieldId;
+	}
+
+	@Override
+	public void sideFieldId(int fieldId)
+	{
+		_sideFieldId = fieldId;
+	}
+
+	@Override
+	public int sizeFieldId()
+	{
+		return _sizeFieldId;
+	}
+
+	@Override
+	public void sizeFieldId(int fieldId)
+	{
+		_sizeFieldId = fieldId;
+	}
+
+	@Override
+	public int orderCountFieldId()
+	{
+		return _orderCountFieldId;
+	}
+
+	@Override
+	public void orderCountFieldId(int fieldId)
+	{
+		_orderCountFieldId = fieldId;
+	}
+
+	@Override
+	public int maxKeyLength()
+	{
+		return _maxKeyLength;
+	}
+
+	@Override
+	public void maxKeyLength(int maxKeyLength)
+	{
+		_maxKeyLength = maxKeyLength;
+	}
+
+	@Override
+	public int initialEntries()
+	{
+		return _initialEntries;
+	}
+
+	@Override
+	public void initialEntries(int initialEntries)
+	{
+		_initialEntries = initialEntries;
+	}
+
+	/* The size field id to use: the configured one, or the default of the domain. */
+	int effectiveSizeFieldId()
+	{
+		if (_sizeFieldId != 0)
+			return _sizeFieldId;
+
+		return _domainType == DomainTypes.MARKET_BY_PRICE ? ACC_SIZE_FID : ORDER_SIZE_FID;
+	}
+
+	@Override
+	public void clear()
+	{
+		_domainType = DomainTypes.MARKET_BY_ORDER;
+		_priceFieldId = ORDER_PRC_FID;
+		_sideFieldId = ORDER_SIDE_FID;
+		_sizeFieldId = 0;
+		_orderCountFieldId = NO_ORD_FID;
+		_maxKeyLength = DEFAULT_MAX_KEY_LENGTH;
+		_initialEntries = DEFAULT_INITIAL_ENTRIES;
+	}
+}
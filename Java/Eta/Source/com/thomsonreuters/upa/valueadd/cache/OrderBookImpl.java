@@ -0,0 +1,417 @@
+package com.thomsonreuters.upa.valueadd.cache;
+
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.codec.DataTypes;
+import com.thomsonreuters.upa.codec.DecodeIterator;
+import com.thomsonreuters.upa.codec.Enum;
+import com.thomsonreuters.upa.codec.FieldEntry;
+import com.thomsonreuters.upa.codec.FieldList;
+import com.thomsonreuters.upa.codec.LocalFieldSetDefDb;
+import com.thomsonreuters.upa.codec.Map;
+import com.thomsonreuters.upa.codec.MapEntry;
+import com.thomsonreuters.upa.codec.MapEntryActions;
+import com.thomsonreuters.upa.codec.Msg;
+import com.thomsonreuters.upa.codec.MsgClasses;
+import com.thomsonreuters.upa.codec.Real;
+import com.thomsonreuters.upa.codec.RealHints;
+import com.thomsonreuters.upa.codec.RefreshMsg;
+import com.thomsonreuters.upa.codec.UInt;
+import com.thomsonreuters.upa.rdm.DomainTypes;
+
+/*
+ * Order book applying MarketByOrder and MarketByPrice map entries to off-heap
+ * entry and price level tables.
+ *
+ * Each entry of the map contributes its size and order count to the level of
+ * its price on its side once it has both a price and a side. Applying a map
+ * entry withdraws the entry's contribution, decodes the changed fields over
+ * the stored ones, and contributes the result again.
+ */
+class OrderBookImpl implements OrderBook
+{
+	static final int INITIAL_LEVELS = 64;
+
+	/* Entry flags */
+	static final int HAS_PRICE = 0x1;
+	static final int CONTRIBUTING = 0x2;
+
+	static final long[] POWERS_OF_10 = new long[16];
+
+	static
+	{
+		POWERS_OF_10[0] = 1;
+		for (int i = 1; i < POWERS_OF_10.length; i++)
+			POWERS_OF_10[i] = POWERS_OF_10[i - 1] * 10;
+	}
+
+	private final boolean _marketByPrice;
+	private final int _priceFieldId;
+	private final int _sideFieldId;
+	private final int _sizeFieldId;
+	private final int _orderCountFieldId;
+
+	private final OrderTable _entries;
+	private final PriceLevelTable _bids;
+	private final PriceLevelTable _asks;
+
+	private final DecodeIterator _dIter = CodecFactory.createDecodeIterator();
+	private final Map _map = CodecFactory.createMap();
+	private final MapEntry _mapEntry = CodecFactory.createMapEntry();
+	private final FieldList _fieldList = CodecFactory.createFieldList();
+	private final FieldEntry _fieldEntry = CodecFactory.createFieldEntry();
+	private final LocalFieldSetDefDb _setDefDb = CodecFactory.createLocalFieldSetDefDb();
+	private final Real _real = CodecFactory.createReal();
+	private final Enum _enum = CodecFactory.createEnum();
+	private final UInt _uint = CodecFactory.createUInt();
+
+	/* value of the last Real converted by toScaled() */
+	private long _scaled;
+
+	private OrderBookImpl(OrderBookConfigOptionsImpl configOptions)
+	{
+		_marketByPrice = configOptions.domainType() == DomainTypes.MARKET_BY_PRICE;
+		_priceFieldId = configOptions.priceFieldId();
+		_sideFieldId = configOptions.sideFieldId();
+		_sizeFieldId = configOptions.effectiveSizeFieldId();
+		_orderCountFieldId = configOptions.orderCountFieldId();
+
+		_entries = new OrderTable(configOptions.initialEntries(), configOptions.maxKeyLength());
+		_bids = new PriceLevelTable(true, INITIAL_LEVELS);
+		_asks = new PriceLevelTable(false, INITIAL_LEVELS);
+	}
+
+	static OrderBook create(OrderBookConfigOptions configOptions, CacheError error)
+	{
+		if (configOptions.domainType() != DomainTypes.MARKET_BY_ORDER && configOptions.domainType() != DomainTypes.MARKET_BY_PRICE)
+		{
+			error.errorId(CodecReturnCodes.INVALID_ARGUMENT);
+			error.text("CacheFactory.createOrderBook error: domain type " + configOptions.domainType() + " is not MARKET_BY_ORDER or MARKET_BY_PRICE");
+			return null;
+		}
+
+		if (configOptions.maxKeyLength() <= 0 || configOptions.initialEntries() <= 0)
+		{
+			error.errorId(CodecReturnCodes.INVALID_ARGUMENT);
+			error.text("CacheFactory.createOrderBook error: maxKeyLength and initialEntries must be greater than zero");
+			return null;
+		}
+
+		OrderBookConfigOptionsImpl options = new OrderBookConfigOptionsImpl();
+		options.domainType(configOptions.domainType());
+		options.priceFieldId(configOptions.priceFieldId());
+		options.sideFieldId(configOptions.sideFieldId());
+		options.sizeFieldId(configOptions.sizeFieldId());
+		options.orderCountFieldId(configOptions.orderCountFieldId());
+		options.maxKeyLength(configOptions.maxKeyLength());
+		options.initialEntries(configOptions.initialEntries());
+
+		return new OrderBookImpl(options);
+	}
+
+	@Override
+	public int apply(Msg msg, int majorVersion, int minorVersion, CacheError error)
+	{
+		if (msg.msgClass() == MsgClasses.REFRESH && ((RefreshMsg)msg).checkClearCache())
+			clear();
+
+		if (msg.containerType() != DataTypes.MAP)
+			return CodecReturnCodes.SUCCESS;
+
+		_dIter.clear();
+		int ret = _dIter.setBufferAndRWFVersion(msg.encodedDataBody(), majorVersion, minorVersion);
+		if (ret != CodecReturnCodes.SUCCESS)
+		{
+			error.errorId(ret);
+			error.text("OrderBook.apply: failed to set decode iterator buffer: " + CodecReturnCodes.toString(ret));
+			return ret;
+		}
+
+		return apply(_dIter, error);
+	}
+
+	@Override
+	public int apply(DecodeIterator dIter, CacheError error)
+	{
+		int ret = _map.decode(dIter);
+		if (ret == CodecReturnCodes.NO_DATA)
+			return CodecReturnCodes.SUCCESS;
+		else if (ret != CodecReturnCodes.SUCCESS)
+			return decodeFailure(ret, "map", error);
+
+		if (_map.containerType() != DataTypes.FIELD_LIST)
+		{
+			error.errorId(CodecReturnCodes.INVALID_DATA);
+			error.text("OrderBook.apply: map entries contain " + DataTypes.toString(_map.containerType()) + ", not FIELD_LIST");
+			return CodecReturnCodes.INVALID_DATA;
+		}
+
+		if (_map.checkHasSetDefs())
+		{
+			_setDefDb.clear();
+			if ((ret = _setDefDb.decode(dIter)) != CodecReturnCodes.SUCCESS)
+				return decodeFailure(ret, "set definitions", error);
+		}
+
+		/* summary data, if any, is skipped by the first map entry decode */
+		while ((ret = _mapEntry.decode(dIter, null)) != CodecReturnCodes.END_OF_CONTAINER)
+		{
+			if (ret != CodecReturnCodes.SUCCESS)
+				return decodeFailure(ret, "map entry", error);
+
+			Buffer key = _mapEntry.encodedKey();
+			long hash = OrderTable.hash(key);
+			int record = _entries.find(key, hash);
+
+			switch (_mapEntry.action())
+			{
+				case MapEntryActions.DELETE:
+					if (record >= 0)
+					{
+						withdraw(record);
+						_entries.remove(record);
+					}
+					continue;
+				case MapEntryActions.ADD:
+					if (record >= 0)
+					{
+						withdraw(record);
+						_entries.remove(record);
+					}
+					if (key.length() > _entries.maxKeyLength())
+					{
+						error.errorId(CodecReturnCodes.BUFFER_TOO_SMALL);
+						error.text("OrderBook.apply: map entry key of " + key.length() + " bytes is longer than maxKeyLength " + _entries.maxKeyLength());
+						return CodecReturnCodes.BUFFER_TOO_SMALL;
+					}
+					record = _entries.insert(key, hash);
+					break;
+				case MapEntryActions.UPDATE:
+					/* an update of an entry that was never added is ignored */
+					if (record < 0)
+						continue;
+					withdraw(record);
+					break;
+				default:
+					continue;
+			}
+
+			ret = decodeFields(dIter, record);
+			contribute(record);
+			if (ret < CodecReturnCodes.SUCCESS)
+				return decodeFailure(ret, "field list", error);
+		}
+
+		return CodecReturnCodes.SUCCESS;
+	}
+
+	@Override
+	public int entryCount()
+	{
+		return _entries.count();
+	}
+
+	@Override
+	public int levelCount(int side)
+	{
+		PriceLevelTable levels = levels(side);
+		return levels == null ? 0 : levels.count();
+	}
+
+	@Override
+	public long price(int side, int level)
+	{
+		PriceLevelTable levels = levels(side);
+		return levels == null || level < 0 || level >= levels.count() ? 0 : levels.price(level);
+	}
+
+	@Override
+	public long size(int side, int level)
+	{
+		PriceLevelTable levels = levels(side);
+		return levels == null || level < 0 || level >= levels.count() ? 0 : levels.size(level);
+	}
+
+	@Override
+	public long orderCount(int side, int level)
+	{
+		PriceLevelTable levels = levels(side);
+		return levels == null || level < 0 || level >= levels.count() ? 0 : levels.orderCount(level);
+	}
+
+	@Override
+	public int depth(int side, long[] prices, long[] sizes, long[] orderCounts, int maxLevels)
+	{
+		PriceLevelTable levels = levels(side);
+		if (levels == null)
+			return 0;
+
+		int count = Math.min(levels.count(), maxLevels);
+		for (int i = 0; i < count; i++)
+		{
+			prices[i] = levels.price(i);
+			sizes[i] = levels.size(i);
+			orderCounts[i] = levels.orderCount(i);
+		}
+		return count;
+	}
+
+	@Override
+	public void clear()
+	{
+		_entries.clear();
+		_bids.clear();
+		_asks.clear();
+	}
+
+	@Override
+	public void destroy()
+	{
+		_entries.destroy();
+		_bids.destroy();
+		_asks.destroy();
+	}
+
+	private PriceLevelTable levels(int side)
+	{
+		switch (side)
+		{
+			case OrderBookSides.BID:
+				return _bids;
+			case OrderBookSides.ASK:
+				return _asks;
+			default:
+				return null;
+		}
+	}
+
+	/* Decodes the fields of a map entry over the stored ones. */
+	private int decodeFields(DecodeIterator dIter, int record)
+	{
+		int ret = _fieldList.decode(dIter, _setDefDb);
+		if (ret == CodecReturnCodes.NO_DATA)
+			return CodecReturnCodes.SUCCESS;
+		else if (ret != CodecReturnCodes.SUCCESS)
+			return ret;
+
+		while ((ret = _fieldEntry.decode(dIter)) != CodecReturnCodes.END_OF_CONTAINER)
+		{
+			if (ret < CodecReturnCodes.SUCCESS)
+				return ret;
+
+			int fieldId = _fieldEntry.fieldId();
+			if (fieldId == _priceFieldId)
+			{
+				ret = _real.decode(dIter);
+				if (ret == CodecReturnCodes.SUCCESS && toScaled(_real))
+				{
+					_entries.price(record, _scaled);
+					_entries.flags(record, _entries.flags(record) | HAS_PRICE);
+				}
+				else if (ret == CodecReturnCodes.BLANK_DATA)
+					_entries.flags(record, _entries.flags(record) & ~HAS_PRICE);
+			}
+			else if (fieldId == _sizeFieldId)
+			{
+				ret = _real.decode(dIter);
+				if (ret == CodecReturnCodes.SUCCESS && toScaled(_real))
+					_entries.size(record, _scaled);
+				else if (ret == CodecReturnCodes.BLANK_DATA)
+					_entries.size(record, 0);
+			}
+			else if (fieldId == _sideFieldId)
+			{
+				ret = _enum.decode(dIter);
+				if (ret == CodecReturnCodes.SUCCESS)
+				{
+					int side = _enum.toInt();
+					_entries.side(record, side == OrderBookSides.BID || side == OrderBookSides.ASK ? side : 0);
+				}
+				else if (ret == CodecReturnCodes.BLANK_DATA)
+					_entries.side(record, 0);
+			}
+			else if (_marketByPrice && fieldId == _orderCountFieldId)
+			{
+				ret = _uint.decode(dIter);
+				if (ret == CodecReturnCodes.SUCCESS)
+					_entries.orderCount(record, _uint.toLong());
+				else if (ret == CodecReturnCodes.BLANK_DATA)
+					_entries.orderCount(record, 0);
+			}
+			else
+				continue;
+
+			if (ret < CodecReturnCodes.SUCCESS)
+				return ret;
+		}
+
+		return CodecReturnCodes.SUCCESS;
+	}
+
+	/* Adds an entry's size and order count to the level of its price, if it has a price and side. */
+	private void contribute(int record)
+	{
+		int flags = _entries.flags(record);
+		PriceLevelTable levels = levels(_entries.side(record));
+		if ((flags & HAS_PRICE) == 0 || levels == null)
+			return;
+
+		levels.add(_entries.price(record), _entries.size(record), _marketByPrice ? _entries.orderCount(record) : 1);
+		_entries.flags(record, flags | CONTRIBUTING);
+	}
+
+	/* Withdraws what contribute() added for an entry, before its fields change or it is removed. */
+	private void withdraw(int record)
+	{
+		int flags = _entries.flags(record);
+		if ((flags & CONTRIBUTING) == 0)
+			return;
+
+		levels(_entries.side(record)).remove(_entries.price(record), _entries.size(record), _marketByPrice ? _entries.orderCount(record) : 1);
+		_entries.flags(record, flags & ~CONTRIBUTING);
+	}
+
+	private int decodeFailure(int ret, String what, CacheError error)
+	{
+		error.errorId(ret);
+		error.text("OrderBook.apply: failed to decode " + what + ": " + CodecReturnCodes.toString(ret));
+		return ret;
+	}
+
+	/* Converts a Real to a value multiplied by SCALE in _scaled. Returns false for
+	 * infinity, not-a-number and values out of range. */
+	private boolean toScaled(Real real)
+	{
+		int hint = real.hint();
+		long value = real.toLong();
+
+		if (hint >= RealHints.EXPONENT_14 && hint <= RealHints.EXPONENT7)
+		{
+			/* SCALE is 10^8 */
+			int shift = hint - RealHints.EXPONENT0 + 8;
+			if (shift < 0)
+			{
+				_scaled = value / POWERS_OF_10[-shift];
+				return true;
+			}
+
+			long factor = POWERS_OF_10[shift];
+			if (value > Long.MAX_VALUE / factor || value < Long.MIN_VALUE / factor)
+				return false;
+			_scaled = value * factor;
+			return true;
+		}
+		else if (hint >= RealHints.FRACTION_1 && hint <= RealHints.FRACTION_256)
+		{
+			/* SCALE is divisible by every fraction denominator, up to 2^8 */
+			long factor = OrderBook.SCALE >> (hint - RealHints.FRACTION_1);
+			if (value > Long.MAX_VALUE / factor || value < Long.MIN_VALUE / factor)
+				return false;
+			_scaled = value * factor;
+			return true;
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,20 @@
+package com.thomsonreuters.upa.valueadd.cache;
+
+/**
+ * The sides of an {@link OrderBook}. The values are those of the ORDER_SIDE
+ * enumeration in the RDM field dictionary.
+ */
+public class OrderBookSides
+{
+	// OrderBookSides class cannot be instantiated
+	private OrderBookSides()
+	{
+		throw new AssertionError();
+	}
+
+	/** The bid side of the book. */
+	public static final int BID = 1;
+
+	/** The ask side of the book. */
+	public static final int ASK = 2;
+}
@@ -0,0 +1,290 @@
+package com.thomsonreuters.upa.valueadd.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import com.thomsonreuters.upa.codec.Buffer;
+
+/*
+ * The entries of an order book, keyed by encoded map entry key and held outside
+ * the Java heap.
+ *
+ * Entries are fixed-size records in a direct buffer, addressed by record number.
+ * An open-addressing index of record numbers (plus one, zero being an empty slot)
+ * in a second direct buffer locates a record by the FNV-1a hash of its key, with
+ * linear probing and backward-shift deletion so that no tombstones build up.
+ * Removed records are kept on a free list threaded through their first field.
+ * Both buffers double when the table is full; record numbers do not change.
+ */
+class OrderTable
+{
+	/* Record layout */
+	static final int PRICE_OFFSET = 0;
+	static final int SIZE_OFFSET = 8;
+	static final int COUNT_OFFSET = 16;
+	static final int HASH_OFFSET = 24;
+	static final int SIDE_OFFSET = 32;
+	static final int FLAGS_OFFSET = 36;
+	static final int KEY_LENGTH_OFFSET = 40;
+	static final int KEY_OFFSET = 44;
+
+	/* Key length of a record on the free list; its first field is the next free record. */
+	static final int FREE = -1;
+
+	static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	static final long FNV_PRIME = 0x100000001b3L;
+
+	private final int _maxKeyLength;
+	private final int _recordSize;
+
+	private ByteBuffer _records;
+	private IntBuffer _index;
+	private int _capacity;
+	private int _indexMask;
+	private int _count;
+	private int _highWater;
+	private int _freeHead = -1;
+
+	OrderTable(int initialCapacity, int maxKeyLength)
+	{
+		_maxKeyLength = maxKeyLength;
+		_recordSize = (KEY_OFFSET + maxKeyLength + 7) & ~7;
+		_capacity = Math.max(initialCapacity, 16);
+		_records = ByteBuffer.allocateDirect(_capacity * _recordSize).order(ByteOrder.nativeOrder());
+		allocateIndex();
+	}
+
+	/* FNV-1a hash of the contents of a buffer. */
+	static long hash(Buffer key)
+	{
+		ByteBuffer data = key.data();
+		int position = key.position();
+		int end = position + key.length();
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = position; i < end; i++)
+		{
+			hash ^= (data.get(i) & 0xff);
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	int maxKeyLength()
+	{
+		return _maxKeyLength;
+	}
+
+	int count()
+	{
+		return _count;
+	}
+
+	int capacity()
+	{
+		return _capacity;
+	}
+
+	/* Returns the record holding a key, or -1. */
+	int find(Buffer key, long hash)
+	{
+		int slot = (int)hash & _indexMask;
+		int value;
+		while ((value = _index.get(slot)) != 0)
+		{
+			int record = value - 1;
+			if (_records.getLong(record * _recordSize + HASH_OFFSET) == hash && keyEquals(record, key))
+				return record;
+			slot = (slot + 1) & _indexMask;
+		}
+		return -1;
+	}
+
+	/* Adds a record for a key that is not in the table, with its fields zeroed.
+	 * The key must be no longer than the maximum key length. */
+	int insert(Buffer key, long hash)
+	{
+		if (_count == _capacity)
+			grow();
+
+		int record;
+		if (_freeHead >= 0)
+		{
+			record = _freeHead;
+			_freeHead = _records.getInt(record * _recordSize + PRICE_OFFSET);
+		}
+		else
+			record = _highWater++;
+
+		int base = record * _recordSize;
+		_records.putLong(base + PRICE_OFFSET, 0);
+		_records.putLong(base + SIZE_OFFSET, 0);
+		_records.putLong(base + COUNT_OFFSET, 0);
+		_records.putLong(base + HASH_OFFSET, hash);
+		_records.putInt(base + SIDE_OFFSET, 0);
+		_records.putInt(base + FLAGS_OFFSET, 0);
+
+		ByteBuffer data = key.data();
+		int position = key.position();
+		int length = key.length();
+		_records.putInt(base + KEY_LENGTH_OFFSET, length);
+		for (int i = 0; i < length; i++)
+			_records.put(base + KEY_OFFSET + i, data.get(position + i));
+
+		indexRecord(record, hash);
+		_count++;
+		return record;
+	}
+
+	/* Removes a record from the table and its index. */
+	void remove(int record)
+	{
+		int mask = _indexMask;
+		int slot = (int)hash(record) & mask;
+		while (_index.get(slot) != record + 1)
+			slot = (slot + 1) & mask;
+
+		/* shift back the entries of the probe run that follow the removed one, if their
+		 * home slot is not between the hole and their current slot */
+		int next = (slot + 1) & mask;
+		int value;
+		while ((value = _index.get(next)) != 0)
+		{
+			int home = (int)hash(value - 1) & mask;
+			if (((next - home) & mask) >= ((next - slot) & mask))
+			{
+				_index.put(slot, value);
+				slot = next;
+			}
+			next = (next + 1) & mask;
+		}
+		_index.put(slot, 0);
+
+		int base = record * _recordSize;
+		_records.putInt(base + KEY_LENGTH_OFFSET, FREE);
+		_records.putInt(base + PRICE_OFFSET, _freeHead);
+		_freeHead = record;
+		_count--;
+	}
+
+	void clear()
+	{
+		for (int i = 0; i <= _indexMask; i++)
+			_index.put(i, 0);
+		_count = 0;
+		_highWater = 0;
+		_freeHead = -1;
+	}
+
+	void destroy()
+	{
+		_records = null;
+		_index = null;
+		_count = 0;
+	}
+
+	long price(int record)
+	{
+		return _records.getLong(record * _recordSize + PRICE_OFFSET);
+	}
+
+	void price(int record, long price)
+	{
+		_records.putLong(record * _recordSize + PRICE_OFFSET, price);
+	}
+
+	long size(int record)
+	{
+		return _records.getLong(record * _recordSize + SIZE_OFFSET);
+	}
+
+	void size(int record, long size)
+	{
+		_records.putLong(record * _recordSize + SIZE_OFFSET, size);
+	}
+
+	long orderCount(int record)
+	{
+		return _records.getLong(record * _recordSize + COUNT_OFFSET);
+	}
+
+	void orderCount(int record, long orderCount)
+	{
+		_records.putLong(record * _recordSize + COUNT_OFFSET, orderCount);
+	}
+
+	int side(int record)
+	{
+		return _records.getInt(record * _recordSize + SIDE_OFFSET);
+	}
+
+	void side(int record, int side)
+	{
+		_records.putInt(record * _recordSize + SIDE_OFFSET, side);
+	}
+
+	int flags(int record)
+	{
+		return _records.getInt(record * _recordSize + FLAGS_OFFSET);
+	}
+
+	void flags(int record, int flags)
+	{
+		_records.putInt(record * _recordSize + FLAGS_OFFSET, flags);
+	}
+
+	long hash(int record)
+	{
+		return _records.getLong(record * _recordSize + HASH_OFFSET);
+	}
+
+	private boolean keyEquals(int record, Buffer key)
+	{
+		int base = record * _recordSize;
+		int length = key.length();
+		if (_records.getInt(base + KEY_LENGTH_OFFSET) != length)
+			return false;
+
+		ByteBuffer data = key.data();
+		int position = key.position();
+		for (int i = 0; i < length; i++)
+		{
+			if (_records.get(base + KEY_OFFSET + i) != data.get(position + i))
+				return false;
+		}
+		return true;
+	}
+
+	private void indexRecord(int record, long hash)
+	{
+		int slot = (int)hash & _indexMask;
+		while (_index.get(slot) != 0)
+			slot = (slot + 1) & _indexMask;
+		_index.put(slot, record + 1);
+	}
+
+	/* The index has at least twice as many slots as the table has records. */
+	private void allocateIndex()
+	{
+		int slots = Integer.highestOneBit(_capacity * 2 - 1) << 1;
+		_index = ByteBuffer.allocateDirect(slots * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+		_indexMask = slots - 1;
+	}
+
+	private void grow()
+	{
+		ByteBuffer previous = _records;
+		_capacity *= 2;
+		_records = ByteBuffer.allocateDirect(_capacity * _recordSize).order(ByteOrder.nativeOrder());
+		previous.clear();
+		_records.put(previous);
+		_records.clear();
+
+		allocateIndex();
+		for (int record = 0; record < _highWater; record++)
+		{
+			if (_records.getInt(record * _recordSize + KEY_LENGTH_OFFSET) != FREE)
+				indexRecord(record, hash(record));
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.thomsonreuters.upa.valueadd.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * The price levels of one side of an order book, held outside the Java heap.
+ *
+ * Levels are fixed-size records in a direct buffer, kept sorted best price first:
+ * descending for bids and ascending for asks. A level is found by binary search,
+ * and the levels after it are shifted when one is added or removed; books change
+ * mostly near the top, so few levels move. Each level records how many book
+ * entries contribute to it, and is removed when the last one is withdrawn.
+ */
+class PriceLevelTable
+{
+	/* Level layout */
+	static final int PRICE_OFFSET = 0;
+	static final int SIZE_OFFSET = 8;
+	static final int ORDER_COUNT_OFFSET = 16;
+	static final int ENTRY_COUNT_OFFSET = 24;
+	static final int LEVEL_SIZE = 32;
+
+	private final boolean _descending;
+
+	private ByteBuffer _levels;
+	private int _capacity;
+	private int _count;
+
+	PriceLevelTable(boolean descending, int initialCapacity)
+	{
+		_descending = descending;
+		_capacity = Math.max(initialCapacity, 16);
+		_levels = ByteBuffer.allocateDirect(_capacity * LEVEL_SIZE).order(ByteOrder.nativeOrder());
+	}
+
+	int count()
+	{
+		return _count;
+	}
+
+	long price(int level)
+	{
+		return _levels.getLong(level * LEVEL_SIZE + PRICE_OFFSET);
+	}
+
+	long size(int level)
+	{
+		return _levels.getLong(level * LEVEL_SIZE + SIZE_OFFSET);
+	}
+
+	long orderCount(int level)
+	{
+		return _levels.getLong(level * LEVEL_SIZE + ORDER_COUNT_OFFSET);
+	}
+
+	long entryCount(int level)
+	{
+		return _levels.getLong(level * LEVEL_SIZE + ENTRY_COUNT_OFFSET);
+	}
+
+	/* Returns the level of a price, or -(insertion point + 1) if there is none. */
+	int find(long price)
+	{
+		int low = 0;
+		int high = _count - 1;
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			long midPrice = price(mid);
+			if (midPrice == price)
+				return mid;
+
+			if (_descending ? midPrice > price : midPrice < price)
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+		return -(low + 1);
+	}
+
+	/* Adds the contribution of a book entry to the level of its price. */
+	void add(long price, long size, long orderCount)
+	{
+		int level = find(price);
+		int base;
+		if (level < 0)
+		{
+			level = -(level + 1);
+			if (_count == _capacity)
+				grow();
+
+			for (int i = _count; i > level; i--)
+				copyLevel(i - 1, i);
+			_count++;
+
+			base = level * LEVEL_SIZE;
+			_levels.putLong(base + PRICE_OFFSET, price);
+			_levels.putLong(base + SIZE_OFFSET, size);
+			_levels.putLong(base + ORDER_COUNT_OFFSET, orderCount);
+			_levels.putLong(base + ENTRY_COUNT_OFFSET, 1);
+			return;
+		}
+
+		base = level * LEVEL_SIZE;
+		_levels.putLong(base + SIZE_OFFSET, _levels.getLong(base + SIZE_OFFSET) + size);
+		_levels.putLong(base + ORDER_COUNT_OFFSET, _levels.getLong(base + ORDER_COUNT_OFFSET) + orderCount);
+		_levels.putLong(base + ENTRY_COUNT_OFFSET, _levels.getLong(base + ENTRY_COUNT_OFFSET) + 1);
+	}
+
+	/* Withdraws the contribution of a book entry from the level of its price. */
+	void remove(long price, long size, long orderCount)
+	{
+		int level = find(price);
+		if (level < 0)
+			return;
+
+		int base = level * LEVEL_SIZE;
+		long entryCount = _levels.getLong(base + ENTRY_COUNT_OFFSET) - 1;
+		if (entryCount > 0)
+		{
+			_levels.putLong(base + SIZE_OFFSET, _levels.getLong(base + SIZE_OFFSET) - size);
+			_levels.putLong(base + ORDER_COUNT_OFFSET, _levels.getLong(base + ORDER_COUNT_OFFSET) - orderCount);
+			_levels.putLong(base + ENTRY_COUNT_OFFSET, entryCount);
+			return;
+		}
+
+		_count--;
+		for (int i = level; i < _count; i++)
+			copyLevel(i + 1, i);
+	}
+
+	void clear()
+	{
+		_count = 0;
+	}
+
+	void destroy()
+	{
+		_levels = null;
+		_count = 0;
+	}
+
+	private void copyLevel(int from, int to)
+	{
+		int src = from * LEVEL_SIZE;
+		int dst = to * LEVEL_SIZE;
+		_levels.putLong(dst + PRICE_OFFSET, _levels.getLong(src + PRICE_OFFSET));
+		_levels.putLong(dst + SIZE_OFFSET, _levels.getLong(src + SIZE_OFFSET));
+		_levels.putLong(dst + ORDER_COUNT_OFFSET, _levels.getLong(src + ORDER_COUNT_OFFSET));
+		_levels.putLong(dst + ENTRY_COUNT_OFFSET, _levels.getLong(src + ENTRY_COUNT_OFFSET));
+	}
+
+	private void grow()
+	{
+		ByteBuffer previous = _levels;
+		_capacity *= 2;
+		_levels = ByteBuffer.allocateDirect(_capacity * LEVEL_SIZE).order(ByteOrder.nativeOrder());
+		previous.clear();
+		_levels.put(previous);
+		_levels.clear();
+	}
+}
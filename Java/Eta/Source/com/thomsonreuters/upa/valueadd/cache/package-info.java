@@ -9,5 +9,10 @@
  * application of all refresh and update messages applied to the cache entry 
  * container. Values are stored in and retrieved from the cache as
  * encoded OMM containers.
+ * <p>
+ * The Value Add Order Book component keeps the current state of a
+ * MarketByOrder or MarketByPrice item as price levels sorted per side,
+ * applying the map entry actions of the item's refresh and update messages.
+ * Its order and price level tables are held outside the Java heap.
  */
 package com.thomsonreuters.upa.valueadd.cache;
\ No newline at end of file
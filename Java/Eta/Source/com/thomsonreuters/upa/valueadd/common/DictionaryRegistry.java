@@ -0,0 +1,180 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import com.thomsonreuters.upa.codec.DataDictionary;
+
+/**
+ * A JVM-wide registry of loaded dictionaries, so that consumers and channels
+ * using the same dictionary share one {@link DataDictionary} instead of each
+ * holding a copy.
+ *
+ * <p>
+ * Dictionaries are registered by name and version once fully loaded. The
+ * name identifies where the dictionary came from (for example the files it
+ * was loaded from, or the dictionary names it was downloaded with), and the
+ * version is typically built from the field dictionary Version and the
+ * enumerated types RT_Version. Each {@link #acquire(String, String)} or
+ * {@link #register(String, String, DataDictionary)} takes a reference to the
+ * dictionary, which must be given back with {@link #release(DataDictionary)};
+ * a dictionary is removed from the registry when its last reference is
+ * released.
+ *
+ * <p>
+ * A registered dictionary is shared and must be treated as immutable: it must
+ * not be cleared, loaded or decoded into by any of its users. Concurrent reads
+ * of a registered dictionary are safe.
+ *
+ * <p>
+ * All methods of this class are thread safe.
+ */
+public class DictionaryRegistry
+{
+    /* A registered dictionary and its reference count. */
+    private static class Entry
+    {
+        final String _key;
+        final DataDictionary _dictionary;
+        int _refCount;
+
+        Entry(String key, DataDictionary dictionary)
+        {
+            _key = key;
+            _dictionary = dictionary;
+        }
+    }
+
+    private static final Object _lock = new Object();
+    private static final HashMap<String, Entry> _entriesByKey = new HashMap<String, Entry>();
+    private static final IdentityHashMap<DataDictionary, Entry> _entriesByDictionary = new IdentityHashMap<DataDictionary, Entry>();
+
+    private DictionaryRegistry()
+    {
+        throw new AssertionError();
+    }
+
+    /**
+     * Returns the dictionary registered with a name and version, taking a
+     * reference to it.
+     *
+     * @param name the name of the dictionary
+     * @param version the version of the dictionary
+     *
+     * @return the registered dictionary, or null if no dictionary is
+     *         registered with this name and version
+     */
+    public static DataDictionary acquire(String name, String version)
+    {
+        synchronized (_lock)
+        {
+            Entry entry = _entriesByKey.get(key(name, version));
+            if (entry == null)
+                return null;
+
+            entry._refCount++;
+            return entry._dictionary;
+        }
+    }
+
+    /**
+     * Registers a fully loaded dictionary with a name and version, taking a
+     * reference to it. If a dictionary is already registered with this name
+     * and version, that dictionary is returned instead and the one passed in
+     * is not registered; the caller should then discard its own copy and use
+     * the returned one.
+     *
+     * <p>
+     * Once registered, the dictionary must not be modified.
+     *
+     * @param name the name of the dictionary
+     * @param version the version of the dictionary
+     * @param dictionary the loaded dictionary
+     *
+     * @return the registered dictionary for this name and version
+     */
+    public static DataDictionary register(String name, String version, DataDictionary dictionary)
+    {
+        synchronized (_lock)
+        {
+            String key = key(name, version);
+            Entry entry = _entriesByKey.get(key);
+            if (entry == null)
+            {
+                entry = new Entry(key, dictionary);
+                _entriesByKey.put(key, entry);
+                _entriesByDictionary.put(dictionary, entry);
+            }
+
+            entry._refCount++;
+            return entry._dictionary;
+        }
+    }
+
+    /**
+     * Releases a reference to a registered dictionary, taken by
+     * {@link #acquire(String, String)} or
+     * {@link #register(String, String, DataDictionary)}. The dictionary is
+     * removed from the registry when its last reference is released.
+     *
+     * @param dictionary the registered dictionary
+     *
+     * @return true if the dictionary was registered, false otherwise
+     */
+    public static boolean release(DataDictionary dictionary)
+    {
+        synchronized (_lock)
+        {
+            Entry entry = _entriesByDictionary.get(dictionary);
+            if (entry == null)
+                return false;
+
+            if (--entry._refCount == 0)
+            {
+                _entriesByKey.remove(entry._key);
+                _entriesByDictionary.remove(dictionary);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns whether a dictionary is registered, and so is shared and must
+     * not be modified.
+     *
+     * @param dictionary the dictionary
+     *
+     * @return true if the dictionary is registered, false otherwise
+     */
+    public static boolean isRegistered(DataDictionary dictionary)
+    {
+        synchronized (_lock)
+        {
+            return _entriesByDictionary.containsKey(dictionary);
+        }
+    }
+
+    /**
+     * Returns the number of references held to the dictionary registered with
+     * a name and version.
+     *
+     * @param name the name of the dictionary
+     * @param version the version of the dictionary
+     *
+     * @return the number of references, or 0 if no dictionary is registered
+     *         with this name and version
+     */
+    public static int referenceCount(String name, String version)
+    {
+        synchronized (_lock)
+        {
+            Entry entry = _entriesByKey.get(key(name, version));
+            return entry == null ? 0 : entry._refCount;
+        }
+    }
+
+    private static String key(String name, String version)
+    {
+        return name + '\u0000' + version;
+    }
+}
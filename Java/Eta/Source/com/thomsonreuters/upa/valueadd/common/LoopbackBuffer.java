@@ -0,0 +1,78 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import java.nio.ByteBuffer;
+
+import com.thomsonreuters.upa.transport.TransportBuffer;
+import com.thomsonreuters.upa.transport.TransportReturnCodes;
+
+/* A buffer of a LoopbackChannel. Buffers are owned by the channel that writes them:
+ * they are taken from its free buffer queue by getBuffer(), passed to the peer's
+ * input queue by write() and returned to the owner's free buffer queue once the
+ * peer has read them. */
+class LoopbackBuffer extends VaNode implements TransportBuffer
+{
+    LoopbackChannel _owner;
+    ByteBuffer _data;
+    boolean _ping;
+
+    LoopbackBuffer(LoopbackChannel owner, int capacity)
+    {
+        _owner = owner;
+        _data = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /* Prepares the buffer for the writer to encode up to size bytes into it. */
+    void reserve(int size)
+    {
+        if (_data.capacity() < size)
+            _data = ByteBuffer.allocateDirect(size);
+
+        _data.clear();
+        _data.limit(size);
+        _ping = false;
+    }
+
+    /* Prepares the buffer for the reader, with the bytes encoded by the writer. */
+    void flip()
+    {
+        _data.limit(_data.position());
+        _data.position(0);
+    }
+
+    @Override
+    public ByteBuffer data()
+    {
+        return _data;
+    }
+
+    @Override
+    public int length()
+    {
+        return _data.limit() - _data.position();
+    }
+
+    @Override
+    public int copy(ByteBuffer destBuffer)
+    {
+        int length = length();
+        if (destBuffer.remaining() < length)
+            return TransportReturnCodes.FAILURE;
+
+        int position = _data.position();
+        destBuffer.put(_data);
+        _data.position(position);
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return _data.limit();
+    }
+
+    @Override
+    public int dataStartPosition()
+    {
+        return 0;
+    }
+}
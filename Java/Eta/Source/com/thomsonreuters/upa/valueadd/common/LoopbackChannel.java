@@ -0,0 +1,426 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.thomsonreuters.upa.transport.Channel;
+import com.thomsonreuters.upa.transport.ChannelInfo;
+import com.thomsonreuters.upa.transport.ChannelState;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.transport.InProgInfo;
+import com.thomsonreuters.upa.transport.ReadArgs;
+import com.thomsonreuters.upa.transport.TransportBuffer;
+import com.thomsonreuters.upa.transport.TransportReturnCodes;
+import com.thomsonreuters.upa.transport.WriteArgs;
+
+/* One end of an in-process loopback connection. Written buffers are passed to the
+ * peer's input queue without being copied, and handed back to the writer's free
+ * buffer queue once the peer has read them. Both queues are lock-free ring buffers.
+ *
+ * The selectable channel of each end is the source of a Pipe. As with
+ * SelectableBiDirectionalQueue, the writer only writes a byte to the Pipe when the
+ * reader has drained its input queue and may be waiting in its selector. */
+class LoopbackChannel implements Channel
+{
+    LoopbackChannel _peer;
+    volatile int _state = ChannelState.INACTIVE;
+
+    VaRingBufferQueue _inputQueue;   // buffers written by the peer
+    VaRingBufferQueue _freeBuffers;  // buffers of this end, read by the peer and released
+    AtomicInteger _bufferCount = new AtomicInteger();
+    AtomicInteger _buffersInUse = new AtomicInteger();
+    int _maxOutputBuffers;
+    int _maxFragmentSize;
+
+    Pipe _pipe;
+    AtomicBoolean _notified = new AtomicBoolean();
+    ByteBuffer _drainBuffer = ByteBuffer.allocate(64);
+
+    LoopbackBuffer _readBuffer;      // last buffer returned by read(), released on the next read
+    int _readRetVal;
+    ReentrantLock _readLock;
+
+    int _majorVersion;
+    int _minorVersion;
+    int _protocolType;
+    int _pingTimeout;
+    Object _userSpecObject;
+
+    LoopbackChannel(int maxFragmentSize, int maxOutputBuffers, int numInputBuffers, boolean readLocking) throws IOException
+    {
+        _maxFragmentSize = maxFragmentSize;
+        _maxOutputBuffers = maxOutputBuffers;
+        _inputQueue = new VaRingBufferQueue(numInputBuffers);
+        _freeBuffers = new VaRingBufferQueue(maxOutputBuffers);
+        if (readLocking)
+            _readLock = new ReentrantLock();
+
+        _pipe = Pipe.open();
+        _pipe.source().configureBlocking(false);
+        _pipe.sink().configureBlocking(false);
+    }
+
+    /* Wakes up the reader of this end if it may be waiting in its selector. */
+    void notifyReader()
+    {
+        if (!_notified.compareAndSet(false, true))
+            return;
+
+        try
+        {
+            synchronized (_pipe)
+            {
+                _pipe.sink().write(ByteBuffer.wrap(LoopbackServer.NOTIFY_BYTE));
+            }
+        }
+        catch (IOException e)
+        {
+            // the pipe is closed along with this end
+        }
+    }
+
+    /* Reads pending notification bytes so the selector stops triggering. Returns
+     * whether the input queue is still empty afterwards. Once the notified flag is
+     * cleared, any buffer added by the peer is followed by a new notification. */
+    boolean drainNotifications()
+    {
+        _notified.set(false);
+        try
+        {
+            while (_pipe.source().read(_drainBuffer) > 0)
+                _drainBuffer.clear();
+        }
+        catch (IOException e)
+        {
+            // the pipe is closed along with this end
+        }
+        _drainBuffer.clear();
+
+        return _inputQueue.size() == 0;
+    }
+
+    /* Returns a buffer read by this end to the free buffer queue of its writer. */
+    void releaseReadBuffer()
+    {
+        if (_readBuffer != null)
+        {
+            _readBuffer._owner.release(_readBuffer);
+            _readBuffer = null;
+        }
+    }
+
+    void release(LoopbackBuffer buffer)
+    {
+        _buffersInUse.decrementAndGet();
+        _freeBuffers.add(buffer);
+    }
+
+    LoopbackBuffer takeBuffer(int size, Error error)
+    {
+        LoopbackBuffer buffer = (LoopbackBuffer)_freeBuffers.poll();
+        if (buffer == null)
+        {
+            if (_bufferCount.incrementAndGet() > _maxOutputBuffers)
+            {
+                _bufferCount.decrementAndGet();
+                populateError(error, TransportReturnCodes.NO_BUFFERS, "all output buffers of the loopback channel are in use");
+                return null;
+            }
+            buffer = new LoopbackBuffer(this, Math.max(size, _maxFragmentSize));
+        }
+
+        _buffersInUse.incrementAndGet();
+        buffer.reserve(size);
+        return buffer;
+    }
+
+    /* Returns the result of the last read, which ReadArgs cannot be given
+     * outside of the transport. */
+    int readRetVal()
+    {
+        return _readRetVal;
+    }
+
+    int populateError(Error error, int errorId, String text)
+    {
+        if (error != null)
+        {
+            error.channel(this);
+            error.errorId(errorId);
+            error.sysError(0);
+            error.text("LoopbackChannel: " + text);
+        }
+        return errorId;
+    }
+
+    @Override
+    public int info(ChannelInfo info, Error error)
+    {
+        // ChannelInfo can only be populated by the transport
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int ioctl(int code, Object value, Error error)
+    {
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int ioctl(int code, int value, Error error)
+    {
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int bufferUsage(Error error)
+    {
+        return _buffersInUse.get();
+    }
+
+    @Override
+    public int init(InProgInfo inProg, Error error)
+    {
+        if (_state == ChannelState.CLOSED)
+            return populateError(error, TransportReturnCodes.FAILURE, "channel is closed");
+
+        _state = ChannelState.ACTIVE;
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int close(Error error)
+    {
+        if (_state == ChannelState.CLOSED)
+            return TransportReturnCodes.SUCCESS;
+        _state = ChannelState.CLOSED;
+
+        // wake up the peer so it reads the end of the connection
+        _peer.notifyReader();
+
+        try
+        {
+            synchronized (_pipe)
+            {
+                _pipe.source().close();
+                _pipe.sink().close();
+            }
+        }
+        catch (IOException e)
+        {
+        }
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public TransportBuffer read(ReadArgs readArgs, Error error)
+    {
+        if (_readLock != null)
+            _readLock.lock();
+        try
+        {
+            releaseReadBuffer();
+
+            if (_state != ChannelState.ACTIVE)
+            {
+                _readRetVal = populateError(error, TransportReturnCodes.FAILURE, "channel is not active");
+                return null;
+            }
+
+            LoopbackBuffer buffer;
+            while (true)
+            {
+                buffer = (LoopbackBuffer)_inputQueue.poll();
+                if (buffer == null && !drainNotifications())
+                    buffer = (LoopbackBuffer)_inputQueue.poll();
+
+                if (buffer == null)
+                {
+                    if (_peer._state == ChannelState.CLOSED)
+                    {
+                        _state = ChannelState.CLOSED;
+                        _readRetVal = populateError(error, TransportReturnCodes.FAILURE, "peer closed the connection");
+                    }
+                    else
+                        _readRetVal = TransportReturnCodes.READ_WOULD_BLOCK;
+                    return null;
+                }
+
+                // a ping that is followed by more buffers needs no separate report
+                if (!buffer._ping || _inputQueue.size() == 0)
+                    break;
+                buffer._owner.release(buffer);
+            }
+
+            // report whether more buffers can be read; if none, make sure the
+            // next buffer added by the peer triggers the selector again
+            int pending = _inputQueue.size();
+            if (pending == 0 && !drainNotifications())
+                pending = _inputQueue.size();
+
+            if (buffer._ping)
+            {
+                buffer._owner.release(buffer);
+                _readRetVal = pending > 0 ? pending : TransportReturnCodes.READ_PING;
+                return null;
+            }
+
+            _readRetVal = pending;
+            _readBuffer = buffer;
+            return buffer;
+        }
+        finally
+        {
+            if (_readLock != null)
+                _readLock.unlock();
+        }
+    }
+
+    @Override
+    public TransportBuffer getBuffer(int size, boolean packedBuffer, Error error)
+    {
+        if (_state != ChannelState.ACTIVE)
+        {
+            populateError(error, TransportReturnCodes.FAILURE, "channel is not active");
+            return null;
+        }
+
+        return takeBuffer(size, error);
+    }
+
+    @Override
+    public int releaseBuffer(TransportBuffer buffer, Error error)
+    {
+        release((LoopbackBuffer)buffer);
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int packBuffer(TransportBuffer buffer, Error error)
+    {
+        return populateError(error, TransportReturnCodes.FAILURE, "packing is not supported");
+    }
+
+    @Override
+    public int write(TransportBuffer buffer, WriteArgs writeArgs, Error error)
+    {
+        LoopbackBuffer loopbackBuffer = (LoopbackBuffer)buffer;
+
+        // as with other channels, the caller still owns the buffer after a failed write
+        if (_state != ChannelState.ACTIVE || _peer._state == ChannelState.CLOSED)
+            return populateError(error, TransportReturnCodes.FAILURE, "channel is not active");
+
+        loopbackBuffer.flip();
+        _peer._inputQueue.add(loopbackBuffer);
+        _peer.notifyReader();
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int flush(Error error)
+    {
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int ping(Error error)
+    {
+        if (_state != ChannelState.ACTIVE || _peer._state == ChannelState.CLOSED)
+            return populateError(error, TransportReturnCodes.FAILURE, "channel is not active");
+
+        LoopbackBuffer buffer = takeBuffer(0, error);
+        if (buffer == null)
+            return TransportReturnCodes.WRITE_CALL_AGAIN;
+
+        buffer._ping = true;
+        _peer._inputQueue.add(buffer);
+        _peer.notifyReader();
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return _majorVersion;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return _minorVersion;
+    }
+
+    @Override
+    public int protocolType()
+    {
+        return _protocolType;
+    }
+
+    @Override
+    public int state()
+    {
+        return _state;
+    }
+
+    @Override
+    @Deprecated
+    public SocketChannel scktChannel()
+    {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public SocketChannel oldScktChannel()
+    {
+        return null;
+    }
+
+    @Override
+    public SelectableChannel selectableChannel()
+    {
+        return _pipe.source();
+    }
+
+    @Override
+    public SelectableChannel oldSelectableChannel()
+    {
+        return null;
+    }
+
+    @Override
+    public int pingTimeout()
+    {
+        return _pingTimeout;
+    }
+
+    @Override
+    public Object userSpecObject()
+    {
+        return _userSpecObject;
+    }
+
+    @Override
+    public boolean blocking()
+    {
+        return false;
+    }
+
+    @Override
+    public int reconnectClient(Error error)
+    {
+        return populateError(error, TransportReturnCodes.FAILURE, "reconnectClient is not supported");
+    }
+
+    @Override
+    public int connectionType()
+    {
+        return LoopbackTransport.CONNECTION_TYPE;
+    }
+}
@@ -0,0 +1,225 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.thomsonreuters.upa.transport.AcceptOptions;
+import com.thomsonreuters.upa.transport.BindOptions;
+import com.thomsonreuters.upa.transport.Channel;
+import com.thomsonreuters.upa.transport.ChannelState;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.transport.ServerInfo;
+import com.thomsonreuters.upa.transport.TransportReturnCodes;
+
+/* Server of in-process loopback connections, bound to a service name. Connecting
+ * to the service name queues the server end of a new connection, which is returned
+ * by accept(). The selectable channel of the server triggers when a connection is
+ * waiting to be accepted. */
+class LoopbackServer implements com.thomsonreuters.upa.transport.Server
+{
+    static final byte[] NOTIFY_BYTE = new byte[] { 0 };
+
+    String _serviceName;
+    volatile int _state = ChannelState.INACTIVE;
+    ConcurrentLinkedQueue<LoopbackChannel> _pendingChannels = new ConcurrentLinkedQueue<LoopbackChannel>();
+
+    Pipe _pipe;
+    AtomicBoolean _notified = new AtomicBoolean();
+    ByteBuffer _drainBuffer = ByteBuffer.allocate(64);
+
+    int _maxFragmentSize;
+    int _maxOutputBuffers;
+    int _numInputBuffers;
+    int _pingTimeout;
+    int _majorVersion;
+    int _minorVersion;
+    int _protocolType;
+    Object _userSpecObject;
+
+    LoopbackServer(BindOptions opts) throws IOException
+    {
+        _serviceName = opts.serviceName();
+        _maxFragmentSize = opts.maxFragmentSize() > 0 ? opts.maxFragmentSize() : LoopbackTransport.DEFAULT_MAX_FRAGMENT_SIZE;
+        _maxOutputBuffers = Math.max(opts.maxOutputBuffers(), opts.guaranteedOutputBuffers());
+        if (_maxOutputBuffers <= 0)
+            _maxOutputBuffers = LoopbackTransport.DEFAULT_NUM_BUFFERS;
+        _numInputBuffers = opts.numInputBuffers() > 0 ? opts.numInputBuffers() : LoopbackTransport.DEFAULT_NUM_BUFFERS;
+        _pingTimeout = opts.pingTimeout();
+        _majorVersion = opts.majorVersion();
+        _minorVersion = opts.minorVersion();
+        _protocolType = opts.protocolType();
+        _userSpecObject = opts.userSpecObject();
+
+        _pipe = Pipe.open();
+        _pipe.source().configureBlocking(false);
+        _pipe.sink().configureBlocking(false);
+        _state = ChannelState.ACTIVE;
+    }
+
+    /* Queues the server end of a new connection and wakes up the accepting thread. */
+    void addPendingChannel(LoopbackChannel channel)
+    {
+        _pendingChannels.add(channel);
+
+        if (_notified.compareAndSet(false, true))
+        {
+            try
+            {
+                synchronized (_pipe)
+                {
+                    _pipe.sink().write(ByteBuffer.wrap(NOTIFY_BYTE));
+                }
+            }
+            catch (IOException e)
+            {
+                // the pipe is closed along with the server
+            }
+        }
+    }
+
+    @Override
+    public int info(ServerInfo info, Error error)
+    {
+        // ServerInfo can only be populated by the transport
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int ioctl(int code, Object value, Error error)
+    {
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int ioctl(int code, int value, Error error)
+    {
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public int bufferUsage(Error error)
+    {
+        return 0;
+    }
+
+    @Override
+    public int close(Error error)
+    {
+        if (_state == ChannelState.CLOSED)
+            return TransportReturnCodes.SUCCESS;
+        _state = ChannelState.CLOSED;
+
+        LoopbackTransport.unbind(this);
+
+        // connections that were not accepted yet are closed
+        LoopbackChannel channel;
+        while ((channel = _pendingChannels.poll()) != null)
+            channel.close(error);
+
+        try
+        {
+            synchronized (_pipe)
+            {
+                _pipe.source().close();
+                _pipe.sink().close();
+            }
+        }
+        catch (IOException e)
+        {
+        }
+        return TransportReturnCodes.SUCCESS;
+    }
+
+    @Override
+    public Channel accept(AcceptOptions opts, Error error)
+    {
+        LoopbackChannel channel = _pendingChannels.poll();
+        if (channel == null)
+        {
+            _notified.set(false);
+            try
+            {
+                while (_pipe.source().read(_drainBuffer) > 0)
+                    _drainBuffer.clear();
+            }
+            catch (IOException e)
+            {
+            }
+            _drainBuffer.clear();
+            channel = _pendingChannels.poll();
+        }
+
+        if (channel == null)
+        {
+            if (error != null)
+            {
+                error.channel(null);
+                error.errorId(TransportReturnCodes.FAILURE);
+                error.sysError(0);
+                error.text("LoopbackServer: no connection is waiting to be accepted");
+            }
+            return null;
+        }
+
+        channel._userSpecObject = opts != null && opts.userSpecObject() != null ? opts.userSpecObject() : _userSpecObject;
+
+        // keep the selector triggering while connections are still waiting
+        if (!_pendingChannels.isEmpty() && _notified.compareAndSet(false, true))
+        {
+            try
+            {
+                synchronized (_pipe)
+                {
+                    _pipe.sink().write(ByteBuffer.wrap(NOTIFY_BYTE));
+                }
+            }
+            catch (IOException e)
+            {
+            }
+        }
+        return channel;
+    }
+
+    @Override
+    @Deprecated
+    public ServerSocketChannel srvrScktChannel()
+    {
+        return null;
+    }
+
+    @Override
+    public SelectableChannel selectableChannel()
+    {
+        return _pipe.source();
+    }
+
+    @Override
+    public int portNumber()
+    {
+        try
+        {
+            return Integer.parseInt(_serviceName);
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    @Override
+    public Object userSpecObject()
+    {
+        return _userSpecObject;
+    }
+
+    @Override
+    public int state()
+    {
+        return _state;
+    }
+}
@@ -0,0 +1,194 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.thomsonreuters.upa.transport.BindOptions;
+import com.thomsonreuters.upa.transport.Channel;
+import com.thomsonreuters.upa.transport.ChannelState;
+import com.thomsonreuters.upa.transport.ConnectOptions;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.transport.ReadArgs;
+import com.thomsonreuters.upa.transport.Server;
+import com.thomsonreuters.upa.transport.TransportReturnCodes;
+
+/**
+ * In-process loopback transport. Provides {@link Channel}s and {@link Server}s
+ * that connect a client and a server in the same JVM without any networking,
+ * so the Reactor, watchlist and applications built on them can be run end to
+ * end and benchmarked in a single process.
+ *
+ * <p>
+ * Each end of a connection passes written {@link com.thomsonreuters.upa.transport.TransportBuffer}s
+ * to the other end through a lock-free ring buffer, without copying them. The
+ * {@link Channel#selectableChannel()} of each end and the
+ * {@link Server#selectableChannel()} of a server can be registered with a
+ * Selector for read notification like those of any other channel, so Reactor
+ * dispatch works unchanged.
+ *
+ * <p>
+ * A server is created with {@link #bind(BindOptions, Error)} and is identified
+ * by the service name of its BindOptions. Clients connect to it with
+ * {@link #connect(ConnectOptions, Error)}, using the same service name in the
+ * {@link ConnectOptions#unifiedNetworkInfo()}; the address is ignored. The
+ * Reactor connects this way when the connection type of the ConnectOptions is
+ * {@link #CONNECTION_TYPE}.
+ *
+ * <p>
+ * Loopback channels are always non-blocking and initialize immediately. They do
+ * not support buffer packing, compression or fragmentation (buffers of any size
+ * can be written), and do not populate ChannelInfo or ServerInfo.
+ */
+public class LoopbackTransport
+{
+    /**
+     * The connection type identifying loopback connections. It is outside of
+     * the range of {@link com.thomsonreuters.upa.transport.ConnectionTypes}.
+     */
+    public static final int CONNECTION_TYPE = 64;
+
+    static final int DEFAULT_MAX_FRAGMENT_SIZE = 6144;
+    static final int DEFAULT_NUM_BUFFERS = 1024;
+
+    static ConcurrentHashMap<String, LoopbackServer> _servers = new ConcurrentHashMap<String, LoopbackServer>();
+
+    // LoopbackTransport class cannot be instantiated
+    private LoopbackTransport()
+    {
+        throw new AssertionError();
+    }
+
+    /**
+     * Creates a loopback server bound to the service name of the options.
+     *
+     * @param opts options used when binding. The service name, maximum
+     *            fragment size, output and input buffer counts, ping timeout,
+     *            versions, protocol type and user specified object are used.
+     * @param error populated in the event of an error
+     *
+     * @return the server, or null if the service name is already bound or the
+     *         server could not be created
+     */
+    public static Server bind(BindOptions opts, Error error)
+    {
+        if (opts.serviceName() == null)
+        {
+            populateError(error, "serviceName must be set");
+            return null;
+        }
+
+        LoopbackServer server;
+        try
+        {
+            server = new LoopbackServer(opts);
+        }
+        catch (IOException e)
+        {
+            populateError(error, "failed to open pipe, exception=" + e.getLocalizedMessage());
+            return null;
+        }
+
+        if (_servers.putIfAbsent(server._serviceName, server) != null)
+        {
+            server.close(error);
+            populateError(error, "serviceName " + opts.serviceName() + " is already bound");
+            return null;
+        }
+
+        return server;
+    }
+
+    /**
+     * Connects to the loopback server bound to the service name of the options.
+     * The server end of the connection is returned by the server's
+     * {@link Server#accept(com.thomsonreuters.upa.transport.AcceptOptions, Error)}.
+     *
+     * @param opts options used when connecting. The service name, output and
+     *            input buffer counts, read locking, versions, protocol type,
+     *            ping timeout and user specified object are used.
+     * @param error populated in the event of an error
+     *
+     * @return the client end of the connection, or null if no server is bound
+     *         to the service name
+     */
+    public static Channel connect(ConnectOptions opts, Error error)
+    {
+        String serviceName = opts.unifiedNetworkInfo().serviceName();
+        LoopbackServer server = serviceName != null ? _servers.get(serviceName) : null;
+        if (server == null || server._state != ChannelState.ACTIVE)
+        {
+            populateError(error, "no loopback server is bound to serviceName " + serviceName);
+            return null;
+        }
+
+        int clientBuffers = opts.guaranteedOutputBuffers() > 0 ? opts.guaranteedOutputBuffers() : DEFAULT_NUM_BUFFERS;
+        int clientInputBuffers = opts.numInputBuffers() > 0 ? opts.numInputBuffers() : DEFAULT_NUM_BUFFERS;
+
+        LoopbackChannel clientChannel, serverChannel;
+        try
+        {
+            clientChannel = new LoopbackChannel(server._maxFragmentSize, clientBuffers, clientInputBuffers, opts.channelReadLocking());
+            serverChannel = new LoopbackChannel(server._maxFragmentSize, server._maxOutputBuffers, server._numInputBuffers, true);
+        }
+        catch (IOException e)
+        {
+            populateError(error, "failed to open pipe, exception=" + e.getLocalizedMessage());
+            return null;
+        }
+
+        clientChannel._peer = serverChannel;
+        serverChannel._peer = clientChannel;
+
+        // the server uses the versions and protocol requested by the client
+        clientChannel._majorVersion = serverChannel._majorVersion = opts.majorVersion();
+        clientChannel._minorVersion = serverChannel._minorVersion = opts.minorVersion();
+        clientChannel._protocolType = serverChannel._protocolType = opts.protocolType();
+
+        int pingTimeout = opts.pingTimeout();
+        if (server._pingTimeout > 0 && (pingTimeout <= 0 || server._pingTimeout < pingTimeout))
+            pingTimeout = server._pingTimeout;
+        clientChannel._pingTimeout = serverChannel._pingTimeout = pingTimeout;
+
+        clientChannel._userSpecObject = opts.userSpecObject();
+        clientChannel._state = ChannelState.INITIALIZING;
+        serverChannel._state = ChannelState.INITIALIZING;
+
+        server.addPendingChannel(serverChannel);
+        return clientChannel;
+    }
+
+    /**
+     * Returns the result of the last read from a channel. For loopback channels
+     * this is the result kept by the channel, since the ReadArgs can only be
+     * populated by the transport; for other channels it is
+     * {@link ReadArgs#readRetVal()}.
+     *
+     * @param channel the channel that was read
+     * @param readArgs the ReadArgs passed to the read
+     *
+     * @return the result of the read
+     */
+    public static int readRetVal(Channel channel, ReadArgs readArgs)
+    {
+        if (channel instanceof LoopbackChannel)
+            return ((LoopbackChannel)channel).readRetVal();
+
+        return readArgs.readRetVal();
+    }
+
+    static void unbind(LoopbackServer server)
+    {
+        _servers.remove(server._serviceName, server);
+    }
+
+    static void populateError(Error error, String text)
+    {
+        if (error != null)
+        {
+            error.channel(null);
+            error.errorId(TransportReturnCodes.FAILURE);
+            error.sysError(0);
+            error.text("LoopbackTransport: " + text);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.Pipe;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -13,6 +14,11 @@ import java.util.concurrent.locks.ReentrantLock;
  * and Worker threads. To be useful this queue needs a local and remote end. Initially
  * this class operates on the local end of the queues. To operate on the remote end
  * of the queues, call {@link #remote()}.
+ * 
+ * Events are passed through lock-free {@link VaRingBufferQueue}s. A byte is only
+ * written to the Pipe when the reading end has drained its queue and may be
+ * waiting in its selector, so writing an event to a busy reader costs no
+ * locking and no system call.
  */
 public class SelectableBiDirectionalQueue
 {
@@ -20,8 +26,8 @@ public class SelectableBiDirectionalQueue
     SelectableBiDirectionalQueue _remote;
     
     // Queues are used to pass events.
-    VaQueue _writeQueue;
-    VaQueue _readQueue;
+    VaRingBufferQueue _writeQueue;
+    VaRingBufferQueue _readQueue;
 
     // Pipes are used to trigger selectors to notify when to read.
     Pipe _writePipe;
@@ -29,14 +35,14 @@ public class SelectableBiDirectionalQueue
     ByteBuffer _writeBuffer;
     ByteBuffer _readBuffer;
 
-    // Locks are used for concurrency.
+    // Locks serialize access to the Pipes and their buffers.
     Lock _writeLock;
     Lock _readLock;
 
     // inner class to share a boolean between threads
     class NotifiedState
     {
-        boolean _notified = false;
+        volatile boolean _notified = false;
 
         public void set()
         {
@@ -54,8 +60,9 @@ public class SelectableBiDirectionalQueue
         }
     }
 
-    NotifiedState _writeNotifier;
-    NotifiedState _readNotifier;
+    // set while a byte is pending on the Pipe for the reading end
+    AtomicBoolean _writeNotifier;
+    AtomicBoolean _readNotifier;
     NotifiedState _shutdown;
 
     /**
@@ -88,15 +95,15 @@ public class SelectableBiDirectionalQueue
         _readBuffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
 
         /* create queues used to pass VaNodes. */
-        _writeQueue = new VaQueue();
-        _readQueue = new VaQueue();
+        _writeQueue = new VaRingBufferQueue();
+        _readQueue = new VaRingBufferQueue();
 
         /* create locks */
         _writeLock = new ReentrantLock();
         _readLock = new ReentrantLock();
 
-        _writeNotifier = new NotifiedState();
-        _readNotifier = new NotifiedState();
+        _writeNotifier = new AtomicBoolean(false);
+        _readNotifier = new AtomicBoolean(false);
         _shutdown = new NotifiedState();
     }
 
@@ -172,26 +179,23 @@ public class SelectableBiDirectionalQueue
      * Once the selector fires for the key (registered on {@link #readChannel()}
      * ), read should be called until it returns null or
      * {@link #readQueueSize()} is zero. This will reset the internal notifier
-     * and allow the selector to fire again later.
+     * and allow the selector to fire again later. Only one thread may read
+     * from each end of the queue.
      * 
-     * @return ReactorEvent
+     * @return ReactorEvent, or null if no event is available yet
      */
     public VaNode read()
     {
         if (_shutdown.isSet())
             return null;
 
-        VaNode node = null;
+        VaNode node = _readQueue.poll();
 
-        _readLock.lock();
-        try
+        if (_readQueue.size() == 0)
         {
-            node = _readQueue.poll();
-            if (node == null)
-                System.out
-                        .println("SelectableBiDirectionalQueue.read: node was unexpectedly null?");
-
-            if (_readQueue.size() == 0)
+            Lock readLock = _readLock;
+            readLock.lock();
+            try
             {
                 // _readQueue is empty, clear the readNotifier.
                 _readBuffer.clear();
@@ -209,27 +213,41 @@ public class SelectableBiDirectionalQueue
                 {
                     System.out.println("SelectableBiDirectionalQueue.read: return returned -1");
                     shutdown();
+                    return node;
+                }
+                _readNotifier.set(false);
+
+                /*
+                 * The far end may have added an event after the queue was seen
+                 * empty but before the notifier was cleared, in which case it
+                 * did not write a byte. Notify ourselves so the event is not
+                 * left in the queue.
+                 */
+                if (_readQueue.size() > 0 && _readNotifier.compareAndSet(false, true))
+                {
+                    if (!notify(_readPipe, _readBuffer))
+                        shutdown();
                 }
-                _readNotifier.clear();
             }
-        }
-        catch (IOException e)
-        {
-            System.out.println("SelectableBiDirectionalQueue.read: failed, execption="
-                    + e.getLocalizedMessage());
-            e.printStackTrace();
-            shutdown();
-        }
-        finally
-        {
-            _readLock.unlock();
+            catch (IOException e)
+            {
+                System.out.println("SelectableBiDirectionalQueue.read: failed, execption="
+                        + e.getLocalizedMessage());
+                e.printStackTrace();
+                shutdown();
+            }
+            finally
+            {
+                readLock.unlock();
+            }
         }
 
         return node;
     }
 
     /**
-     * Writes a ReactorEvent to the remote end of the queue.
+     * Writes a ReactorEvent to the remote end of the queue. Any number of
+     * threads may write to each end of the queue.
      * 
      * @param node ReactorEvent to write to remote end of queue
      * 
@@ -240,37 +258,45 @@ public class SelectableBiDirectionalQueue
         if (_shutdown.isSet())
             return false;
 
-        _writeLock.lock();
-        try
+        _writeQueue.add(node);
+        if (_writeNotifier.get() == false && _writeNotifier.compareAndSet(false, true))
         {
-            _writeQueue.add(node);
-            if (_writeNotifier.isSet() == false)
+            // the writeNotifier was not set, need to send a byte so the
+            // selector of the reading end fires.
+            Lock writeLock = _writeLock;
+            writeLock.lock();
+            try
             {
-                // the writeNotifier was not set, need to send a byte and set
-                // the notifier.
-                _writeNotifier.set();
-                _writeBuffer.clear();
-                _writeBuffer.put((byte)0);
-                _writeBuffer.flip();
-                int cnt = _writePipe.sink().write(_writeBuffer);
-                if (cnt != 1)
-                {
-                    System.out
-                            .println("SelectableBiDirectionalQueue.write: expected to write 1 byte but wrote "
-                                    + cnt);
+                if (!notify(_writePipe, _writeBuffer))
                     shutdown();
-                }
+            }
+            catch (IOException e)
+            {
+                System.out.println("SelectableBiDirectionalQueue.write: failed, execption="
+                        + e.getLocalizedMessage() + " stacktrace=" + e.getStackTrace().toString());
+                shutdown();
+            }
+            finally
+            {
+                writeLock.unlock();
             }
         }
-        catch (IOException e)
-        {
-            System.out.println("SelectableBiDirectionalQueue.write: failed, execption="
-                    + e.getLocalizedMessage() + " stacktrace=" + e.getStackTrace().toString());
-            shutdown();
-        }
-        finally
+        return true;
+    }
+
+    /* Writes a single byte to the pipe. Must be called with the pipe's lock held. */
+    private boolean notify(Pipe pipe, ByteBuffer buffer) throws IOException
+    {
+        buffer.clear();
+        buffer.put((byte)0);
+        buffer.flip();
+        int cnt = pipe.sink().write(buffer);
+        if (cnt != 1)
         {
-            _writeLock.unlock();
+            System.out
+                    .println("SelectableBiDirectionalQueue.write: expected to write 1 byte but wrote "
+                            + cnt);
+            return false;
         }
         return true;
     }
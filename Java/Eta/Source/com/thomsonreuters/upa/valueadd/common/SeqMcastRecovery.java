@@ -0,0 +1,600 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.CodecFactory;
+
+/**
+ * Sequence gap detection and recovery for items consumed from sequenced
+ * multicast channels, such as those of an Elektron Direct Feed.
+ *
+ * <p>
+ * Each message of a channel carries the channel's sequence number. Messages
+ * passed to {@link #realtime(int, long, int, Buffer)} are delivered to the
+ * {@link SeqMcastRecoveryListener} in sequence number order. As soon as a
+ * channel receives a message past a sequence number it has not received, the
+ * listener is told the missing range through
+ * {@link SeqMcastRecoveryListener#onGapDetected(int, long, long)}, and the
+ * channel's later messages are buffered. Messages recovered from a gap fill
+ * server are passed to {@link #gapFill(int, long, int, Buffer)}; each one that
+ * closes the gap releases the buffered messages behind it, in order, in the
+ * same call.
+ *
+ * <p>
+ * A channel buffers at most the number of sequence numbers given by its
+ * maximum window. A realtime message further ahead than that, or further
+ * behind the next sequence number to deliver, is taken as a restart of the
+ * channel's sequence: the buffered messages are discarded and the listener is
+ * told through {@link SeqMcastRecoveryListener#onChannelReset(int, long)}.
+ *
+ * <p>
+ * An item's messages are also buffered until its image from a snapshot server
+ * is complete. {@link #snapshotComplete(int, long)} replays them, skipping
+ * those the snapshot already contains.
+ *
+ * <p>
+ * Channels and items are addressed by the handles returned from
+ * {@link #addChannel()} and {@link #addItem()}; their sequence state is kept in
+ * arrays indexed by handle. Sequence numbers are unsigned 32-bit values that
+ * wrap from 0xFFFFFFFF to 1.
+ *
+ * <p>
+ * This class is not thread safe.
+ */
+public class SeqMcastRecovery
+{
+    /** The channel has not received a message yet. */
+    public static final int CHANNEL_NOT_STARTED = 0;
+    /** Every message of the channel up to the highest received has been delivered. */
+    public static final int CHANNEL_IN_SEQUENCE = 1;
+    /** The channel has a gap, and is buffering the messages received after it. */
+    public static final int CHANNEL_RECOVERING = 2;
+
+    /** The item's messages are buffered until its snapshot is complete. */
+    public static final int ITEM_AWAITING_SNAPSHOT = 0;
+    /** The item's messages are delivered as their channel is in sequence. */
+    public static final int ITEM_SYNCHRONIZED = 1;
+
+    static final long MAX_SEQ_NUM = 0xFFFFFFFFL;
+    static final int INITIAL_HANDLES = 16;
+    static final int INITIAL_WINDOW = 64;
+    static final int MAX_WINDOW_LIMIT = 1 << 30;
+
+    /** The default maximum number of sequence numbers a channel buffers behind a gap. */
+    public static final int DEFAULT_MAX_WINDOW = 65536;
+    static final int MIN_MSG_CAPACITY = 256;
+
+    /* A buffered message, in the window of its channel or the queue of its item. */
+    static class PendingMsg
+    {
+        long seqNum;
+        int item;
+        ByteBuffer data;
+        int length;
+        PendingMsg next;
+    }
+
+    private final SeqMcastRecoveryListener _listener;
+    private final Buffer _msgBuffer = CodecFactory.createBuffer();
+    private final int _maxWindow;
+
+    /* Channels. Buffered messages of a channel are in a ring indexed by sequence number,
+     * covering the sequence numbers from the next one to deliver. */
+    private int _channelCount;
+    private int[] _channelState = new int[INITIAL_HANDLES];
+    private long[] _nextSeqNum = new long[INITIAL_HANDLES];
+    private long[] _highestSeqNum = new long[INITIAL_HANDLES];
+    private int[] _bufferedCount = new int[INITIAL_HANDLES];
+    private PendingMsg[][] _window = new PendingMsg[INITIAL_HANDLES][];
+
+    /* Items */
+    private int _itemCount;
+    private int[] _itemState = new int[INITIAL_HANDLES];
+    private int[] _itemChannel = new int[INITIAL_HANDLES];
+    private long[] _snapshotSeqNum = new long[INITIAL_HANDLES];
+    private PendingMsg[] _queueHead = new PendingMsg[INITIAL_HANDLES];
+    private PendingMsg[] _queueTail = new PendingMsg[INITIAL_HANDLES];
+
+    private PendingMsg _freeMsgs;
+
+    /**
+     * Creates a recovery engine.
+     *
+     * @param listener receives the messages and gap notifications
+     */
+    public SeqMcastRecovery(SeqMcastRecoveryListener listener)
+    {
+        this(listener, DEFAULT_MAX_WINDOW);
+    }
+
+    /**
+     * Creates a recovery engine with a maximum window for each channel.
+     *
+     * @param listener receives the messages and gap notifications
+     * @param maxWindow the maximum number of sequence numbers a channel
+     *            buffers behind a gap; rounded up to a power of two, and
+     *            limited to 2^30
+     */
+    public SeqMcastRecovery(SeqMcastRecoveryListener listener, int maxWindow)
+    {
+        if (maxWindow < 1)
+            throw new IllegalArgumentException("maxWindow must be positive");
+
+        _listener = listener;
+
+        int window = INITIAL_WINDOW;
+        while (window < maxWindow && window < MAX_WINDOW_LIMIT)
+            window <<= 1;
+        _maxWindow = window;
+    }
+
+    /**
+     * Adds a channel.
+     *
+     * @return the handle of the channel
+     */
+    public int addChannel()
+    {
+        if (_channelCount == _channelState.length)
+        {
+            int capacity = _channelCount * 2;
+            _channelState = Arrays.copyOf(_channelState, capacity);
+            _nextSeqNum = Arrays.copyOf(_nextSeqNum, capacity);
+            _highestSeqNum = Arrays.copyOf(_highestSeqNum, capacity);
+            _bufferedCount = Arrays.copyOf(_bufferedCount, capacity);
+            _window = Arrays.copyOf(_window, capacity);
+        }
+
+        int channel = _channelCount++;
+        _channelState[channel] = CHANNEL_NOT_STARTED;
+        _nextSeqNum[channel] = 0;
+        _highestSeqNum[channel] = 0;
+        _bufferedCount[channel] = 0;
+        _window[channel] = null;
+        return channel;
+    }
+
+    /**
+     * Adds an item, awaiting its snapshot.
+     *
+     * @return the handle of the item
+     */
+    public int addItem()
+    {
+        if (_itemCount == _itemState.length)
+        {
+            int capacity = _itemCount * 2;
+            _itemState = Arrays.copyOf(_itemState, capacity);
+            _itemChannel = Arrays.copyOf(_itemChannel, capacity);
+            _snapshotSeqNum = Arrays.copyOf(_snapshotSeqNum, capacity);
+            _queueHead = Arrays.copyOf(_queueHead, capacity);
+            _queueTail = Arrays.copyOf(_queueTail, capacity);
+        }
+
+        int item = _itemCount++;
+        _itemState[item] = ITEM_AWAITING_SNAPSHOT;
+        _itemChannel[item] = -1;
+        _snapshotSeqNum[item] = 0;
+        _queueHead[item] = null;
+        _queueTail[item] = null;
+        return item;
+    }
+
+    /**
+     * Passes a message received from a realtime channel. Every message of the
+     * channel must be passed, including those of items that are not of
+     * interest, so that gaps can be detected.
+     *
+     * @param channel the channel handle
+     * @param seqNum the channel sequence number of the message
+     * @param item the handle of the message's item, or -1 if the message is
+     *            not of interest
+     * @param msg the encoded message; it is copied if it has to be buffered
+     */
+    public void realtime(int channel, long seqNum, int item, Buffer msg)
+    {
+        if (item >= 0)
+            _itemChannel[item] = channel;
+
+        if (_channelState[channel] == CHANNEL_NOT_STARTED)
+        {
+            _channelState[channel] = CHANNEL_IN_SEQUENCE;
+            _nextSeqNum[channel] = seqNum;
+            _highestSeqNum[channel] = seqNum;
+        }
+
+        receive(channel, seqNum, item, msg, true);
+    }
+
+    /**
+     * Passes a message recovered from a gap fill server for a channel.
+     * Messages the channel has already delivered or skipped, or that are
+     * beyond its maximum window, are ignored.
+     *
+     * @param channel the handle of the channel the message was missing from
+     * @param seqNum the channel sequence number of the message
+     * @param item the handle of the message's item, or -1 if the message is
+     *            not of interest
+     * @param msg the encoded message; it is copied if it has to be buffered
+     */
+    public void gapFill(int channel, long seqNum, int item, Buffer msg)
+    {
+        if (_channelState[channel] == CHANNEL_NOT_STARTED)
+            return;
+
+        receive(channel, seqNum, item, msg, false);
+    }
+
+    /**
+     * Marks the image of an item from a snapshot server as complete, and
+     * replays the item's buffered messages that are newer than the snapshot.
+     *
+     * @param item the item handle
+     * @param seqNum the channel sequence number the snapshot is current to
+     */
+    public void snapshotComplete(int item, long seqNum)
+    {
+        _snapshotSeqNum[item] = seqNum;
+        _itemState[item] = ITEM_SYNCHRONIZED;
+
+        PendingMsg pending = _queueHead[item];
+        _queueHead[item] = null;
+        _queueTail[item] = null;
+        while (pending != null)
+        {
+            PendingMsg next = pending.next;
+            if (compare(pending.seqNum, seqNum) > 0)
+                deliver(pending);
+            release(pending);
+            pending = next;
+        }
+    }
+
+    /**
+     * Returns an item to awaiting its snapshot, for example after a gap of its
+     * channel was skipped, discarding its buffered messages.
+     *
+     * @param item the item handle
+     */
+    public void resetItem(int item)
+    {
+        _itemState[item] = ITEM_AWAITING_SNAPSHOT;
+
+        PendingMsg pending = _queueHead[item];
+        _queueHead[item] = null;
+        _queueTail[item] = null;
+        while (pending != null)
+        {
+            PendingMsg next = pending.next;
+            release(pending);
+            pending = next;
+        }
+    }
+
+    /**
+     * Gives up recovering the current gap of a channel, for example when the
+     * gap fill server has not filled it in time. The channel continues from
+     * its next buffered message; the messages of the gap are lost, so the
+     * items of the channel should be reset and their snapshots requested again.
+     *
+     * @param channel the channel handle
+     *
+     * @return the number of sequence numbers skipped
+     */
+    public int skipGap(int channel)
+    {
+        if (_bufferedCount[channel] == 0)
+            return 0;
+
+        PendingMsg[] window = _window[channel];
+        int mask = window.length - 1;
+        int skipped = 0;
+        long seqNum = _nextSeqNum[channel];
+        while (window[(int)seqNum & mask] == null)
+        {
+            seqNum = seqNumAfter(seqNum);
+            skipped++;
+        }
+
+        _nextSeqNum[channel] = seqNum;
+        deliverBuffered(channel);
+        return skipped;
+    }
+
+    /**
+     * Returns the state of a channel.
+     *
+     * @param channel the channel handle
+     *
+     * @return {@link #CHANNEL_NOT_STARTED}, {@link #CHANNEL_IN_SEQUENCE} or
+     *         {@link #CHANNEL_RECOVERING}
+     */
+    public int channelState(int channel)
+    {
+        return _channelState[channel];
+    }
+
+    /**
+     * Returns the next sequence number a channel will deliver.
+     *
+     * @param channel the channel handle
+     *
+     * @return the sequence number
+     */
+    public long nextSeqNum(int channel)
+    {
+        return _nextSeqNum[channel];
+    }
+
+    /**
+     * Returns the maximum number of sequence numbers a channel buffers behind
+     * a gap.
+     *
+     * @return the maximum window
+     */
+    public int maxWindow()
+    {
+        return _maxWindow;
+    }
+
+    /**
+     * Returns the number of messages a channel has buffered behind a gap.
+     *
+     * @param channel the channel handle
+     *
+     * @return the number of buffered messages
+     */
+    public int bufferedCount(int channel)
+    {
+        return _bufferedCount[channel];
+    }
+
+    /**
+     * Returns the state of an item.
+     *
+     * @param item the item handle
+     *
+     * @return {@link #ITEM_AWAITING_SNAPSHOT} or {@link #ITEM_SYNCHRONIZED}
+     */
+    public int itemState(int item)
+    {
+        return _itemState[item];
+    }
+
+    /**
+     * Returns the channel an item's realtime messages were last received on.
+     *
+     * @param item the item handle
+     *
+     * @return the channel handle, or -1 if no message of the item has been
+     *         received
+     */
+    public int itemChannel(int item)
+    {
+        return _itemChannel[item];
+    }
+
+    /**
+     * Removes all channels and items, discarding their buffered messages.
+     */
+    public void clear()
+    {
+        for (int channel = 0; channel < _channelCount; channel++)
+            _window[channel] = null;
+        for (int item = 0; item < _itemCount; item++)
+        {
+            _queueHead[item] = null;
+            _queueTail[item] = null;
+        }
+        _channelCount = 0;
+        _itemCount = 0;
+    }
+
+    /* The next sequence number after this one, wrapping from 0xFFFFFFFF to 1. */
+    static long seqNumAfter(long seqNum)
+    {
+        return seqNum >= MAX_SEQ_NUM ? 1 : seqNum + 1;
+    }
+
+    static long seqNumBefore(long seqNum)
+    {
+        return seqNum <= 1 ? MAX_SEQ_NUM : seqNum - 1;
+    }
+
+    /* Compares sequence numbers across the wrap: negative if seqNum1 is before seqNum2. */
+    static int compare(long seqNum1, long seqNum2)
+    {
+        return (int)(seqNum1 - seqNum2);
+    }
+
+    private void receive(int channel, long seqNum, int item, Buffer msg, boolean realtime)
+    {
+        int ahead = compare(seqNum, _nextSeqNum[channel]);
+        if (ahead < 0 || ahead >= _maxWindow)
+        {
+            /* Behind: delivered or skipped already, unless too far back to be anything but a
+             * restart of the sequence. Ahead: more than can be buffered. Only the realtime
+             * channel can tell that its sequence restarted. */
+            if (!realtime || (ahead < 0 && ahead >= -_maxWindow))
+                return;
+
+            resetChannel(channel, seqNum);
+            ahead = 0;
+        }
+
+        if (compare(seqNum, _highestSeqNum[channel]) > 0)
+        {
+            long firstMissing = seqNumAfter(_highestSeqNum[channel]);
+            _highestSeqNum[channel] = seqNum;
+            if (seqNum != firstMissing)
+            {
+                _channelState[channel] = CHANNEL_RECOVERING;
+                _listener.onGapDetected(channel, firstMissing, seqNumBefore(seqNum));
+            }
+        }
+
+        if (ahead == 0)
+        {
+            _nextSeqNum[channel] = seqNumAfter(seqNum);
+            dispatch(item, seqNum, msg);
+            deliverBuffered(channel);
+            return;
+        }
+
+        PendingMsg[] window = windowFor(channel, ahead + 1);
+        int slot = (int)seqNum & (window.length - 1);
+        if (window[slot] != null)
+            return; /* duplicate */
+
+        window[slot] = copy(seqNum, item, msg);
+        _bufferedCount[channel]++;
+        _channelState[channel] = CHANNEL_RECOVERING;
+    }
+
+    /* Restarts a channel at a sequence number outside its window, discarding the messages
+     * it buffered. Those, and the ones it never received, are lost. */
+    private void resetChannel(int channel, long seqNum)
+    {
+        PendingMsg[] window = _window[channel];
+        if (window != null && _bufferedCount[channel] > 0)
+        {
+            for (int i = 0; i < window.length; i++)
+            {
+                if (window[i] != null)
+                {
+                    release(window[i]);
+                    window[i] = null;
+                }
+            }
+        }
+
+        _bufferedCount[channel] = 0;
+        _nextSeqNum[channel] = seqNum;
+        _highestSeqNum[channel] = seqNum;
+        _channelState[channel] = CHANNEL_IN_SEQUENCE;
+        _listener.onChannelReset(channel, seqNum);
+    }
+
+    /* Delivers the buffered messages of a channel that follow on from the last one delivered. */
+    private void deliverBuffered(int channel)
+    {
+        PendingMsg[] window = _window[channel];
+        while (_bufferedCount[channel] > 0)
+        {
+            long seqNum = _nextSeqNum[channel];
+            int slot = (int)seqNum & (window.length - 1);
+            PendingMsg pending = window[slot];
+            if (pending == null)
+                return;
+
+            window[slot] = null;
+            _bufferedCount[channel]--;
+            _nextSeqNum[channel] = seqNumAfter(seqNum);
+
+            if (pending.item >= 0 && _itemState[pending.item] == ITEM_AWAITING_SNAPSHOT)
+                enqueue(pending);
+            else
+            {
+                if (pending.item >= 0 && compare(pending.seqNum, _snapshotSeqNum[pending.item]) > 0)
+                    deliver(pending);
+                release(pending);
+            }
+        }
+
+        if (_channelState[channel] == CHANNEL_RECOVERING)
+            _channelState[channel] = CHANNEL_IN_SEQUENCE;
+    }
+
+    /* Passes on a message that is in sequence for its channel. */
+    private void dispatch(int item, long seqNum, Buffer msg)
+    {
+        if (item < 0)
+            return;
+
+        if (_itemState[item] == ITEM_AWAITING_SNAPSHOT)
+            enqueue(copy(seqNum, item, msg));
+        else if (compare(seqNum, _snapshotSeqNum[item]) > 0)
+            _listener.onMessage(item, seqNum, msg);
+    }
+
+    private void deliver(PendingMsg pending)
+    {
+        _msgBuffer.data(pending.data, 0, pending.length);
+        _listener.onMessage(pending.item, pending.seqNum, _msgBuffer);
+    }
+
+    private void enqueue(PendingMsg pending)
+    {
+        int item = pending.item;
+        pending.next = null;
+        if (_queueTail[item] == null)
+            _queueHead[item] = pending;
+        else
+            _queueTail[item].next = pending;
+        _queueTail[item] = pending;
+    }
+
+    /* Returns the window of a channel, grown to cover at least this many sequence numbers,
+     * which is at most the maximum window. */
+    private PendingMsg[] windowFor(int channel, int span)
+    {
+        PendingMsg[] window = _window[channel];
+        if (window != null && window.length >= span)
+            return window;
+
+        int length = (window != null ? window.length : INITIAL_WINDOW);
+        while (length < span)
+            length <<= 1;
+        PendingMsg[] grown = new PendingMsg[length];
+        if (window != null)
+        {
+            for (PendingMsg pending : window)
+            {
+                if (pending != null)
+                    grown[(int)pending.seqNum & (length - 1)] = pending;
+            }
+        }
+        _window[channel] = grown;
+        return grown;
+    }
+
+    private PendingMsg copy(long seqNum, int item, Buffer msg)
+    {
+        PendingMsg pending = _freeMsgs;
+        if (pending != null)
+            _freeMsgs = pending.next;
+        else
+            pending = new PendingMsg();
+
+        pending.seqNum = seqNum;
+        pending.item = item;
+        pending.next = null;
+        pending.length = 0;
+        if (item < 0)
+            return pending; /* only its sequence number is needed */
+
+        int length = msg.length();
+        if (pending.data == null || pending.data.capacity() < length)
+            pending.data = ByteBuffer.allocate(Math.max(length, MIN_MSG_CAPACITY));
+
+        ByteBuffer source = msg.data();
+        int position = msg.position();
+        if (source.hasArray())
+            System.arraycopy(source.array(), source.arrayOffset() + position, pending.data.array(), 0, length);
+        else
+        {
+            for (int i = 0; i < length; i++)
+                pending.data.put(i, source.get(position + i));
+        }
+        pending.length = length;
+        return pending;
+    }
+
+    private void release(PendingMsg pending)
+    {
+        pending.next = _freeMsgs;
+        _freeMsgs = pending;
+    }
+}
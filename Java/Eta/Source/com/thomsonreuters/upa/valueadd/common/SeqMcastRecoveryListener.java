@@ -0,0 +1,51 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import com.thomsonreuters.upa.codec.Buffer;
+
+/**
+ * Receives the messages and gap notifications of a {@link SeqMcastRecovery}.
+ *
+ * <p>
+ * Methods are called from within the {@link SeqMcastRecovery} method that
+ * caused them, and must not call back into it.
+ */
+public interface SeqMcastRecoveryListener
+{
+    /**
+     * Called with a message of an item, in sequence number order, once the
+     * item is synchronized with its snapshot and every earlier message of the
+     * item's channel has been received.
+     *
+     * @param item the item handle, from {@link SeqMcastRecovery#addItem()}
+     * @param seqNum the channel sequence number of the message
+     * @param msg the encoded message; only valid until this method returns
+     */
+    public void onMessage(int item, long seqNum, Buffer msg);
+
+    /**
+     * Called as soon as a channel receives a message past a range of sequence
+     * numbers it has not received. The range should be requested from a gap
+     * fill server, and the messages received passed to
+     * {@link SeqMcastRecovery#gapFill(int, long, int, Buffer)}. Messages of
+     * the channel received after the gap are buffered until it is filled or
+     * skipped.
+     *
+     * @param channel the channel handle, from {@link SeqMcastRecovery#addChannel()}
+     * @param startSeqNum the first missing sequence number
+     * @param endSeqNum the last missing sequence number
+     */
+    public void onGapDetected(int channel, long startSeqNum, long endSeqNum);
+
+    /**
+     * Called when a realtime message of a channel is too far ahead of, or
+     * behind, the messages the channel expected to be a gap that can be
+     * recovered, as when its sequence restarts. The channel continues from
+     * the message's sequence number, and the messages it had buffered or not
+     * yet received are lost, so the items of the channel should be reset and
+     * their snapshots requested again.
+     *
+     * @param channel the channel handle, from {@link SeqMcastRecovery#addChannel()}
+     * @param seqNum the sequence number the channel continues from
+     */
+    public void onChannelReset(int channel, long seqNum);
+}
@@ -0,0 +1,300 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+/**
+ * A hash map from primitive int keys to objects, using open addressing with
+ * linear probing. Keys are never boxed and entries are stored in two parallel
+ * arrays, so lookups do not allocate and the map keeps no per-entry node
+ * objects. Null values are not supported. This map is not thread safe.
+ *
+ * Entries may be visited without allocation by iterating over the slots from
+ * 0 to {@link #capacity()} - 1 and skipping those for which
+ * {@link #valueAt(int)} returns null. Removing entries while iterating this
+ * way may cause entries to be skipped; use {@link #keys()} to obtain a
+ * snapshot of the keys instead.
+ *
+ * @param <V> the type of the mapped values
+ */
+public class VaIntHashMap<V>
+{
+    static final int DEFAULT_CAPACITY = 16;
+    static final int MAX_CAPACITY = 1 << 30;
+
+    int[] _keys;
+    Object[] _values;
+    int _mask;
+    int _size;
+    int _resizeThreshold;
+
+    /**
+     * Creates a map with the default initial capacity.
+     */
+    public VaIntHashMap()
+    {
+        this(DEFAULT_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a map that holds the specified number of entries without resizing.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public VaIntHashMap(int expectedSize)
+    {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize cannot be negative");
+
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < MAX_CAPACITY && capacity / 2 < expectedSize)
+            capacity <<= 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value mapped to the specified key.
+     *
+     * @param key the key
+     * @return the value, or null if the key is not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key)
+    {
+        int index = hash(key) & _mask;
+        Object value;
+        while ((value = _values[index]) != null)
+        {
+            if (_keys[index] == key)
+                return (V)value;
+            index = (index + 1) & _mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the specified key is mapped.
+     *
+     * @param key the key
+     * @return true if the key is mapped, false otherwise
+     */
+    public boolean containsKey(int key)
+    {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value.
+     *
+     * @param key the key
+     * @param value the value, which cannot be null
+     * @return the value previously mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value)
+    {
+        if (value == null)
+            throw new NullPointerException("value cannot be null");
+
+        int index = hash(key) & _mask;
+        Object oldValue;
+        while ((oldValue = _values[index]) != null)
+        {
+            if (_keys[index] == key)
+            {
+                _values[index] = value;
+                return (V)oldValue;
+            }
+            index = (index + 1) & _mask;
+        }
+
+        _keys[index] = key;
+        _values[index] = value;
+        if (++_size > _resizeThreshold)
+            resize(_values.length << 1);
+        return null;
+    }
+
+    /**
+     * Copies all entries of the specified map into this map.
+     *
+     * @param map the map whose entries are copied
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(VaIntHashMap<? extends V> map)
+    {
+        for (int i = 0; i < map._values.length; i++)
+        {
+            Object value = map._values[i];
+            if (value != null)
+                put(map._keys[i], (V)value);
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key.
+     *
+     * @param key the key
+     * @return the value that was mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key)
+    {
+        int index = hash(key) & _mask;
+        Object value;
+        while ((value = _values[index]) != null)
+        {
+            if (_keys[index] == key)
+            {
+                _values[index] = null;
+                --_size;
+                compactChain(index);
+                return (V)value;
+            }
+            index = (index + 1) & _mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Returns whether the map has no entries.
+     *
+     * @return true if the map has no entries, false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    /**
+     * Removes all entries. The capacity of the map is kept.
+     */
+    public void clear()
+    {
+        if (_size == 0)
+            return;
+
+        for (int i = 0; i < _values.length; i++)
+            _values[i] = null;
+        _size = 0;
+    }
+
+    /**
+     * Returns the number of slots that can be visited with
+     * {@link #keyAt(int)} and {@link #valueAt(int)}.
+     *
+     * @return the number of slots
+     */
+    public int capacity()
+    {
+        return _values.length;
+    }
+
+    /**
+     * Returns the key stored in the specified slot. Only meaningful if
+     * {@link #valueAt(int)} returns a non-null value for the slot.
+     *
+     * @param index the slot, from 0 to {@link #capacity()} - 1
+     * @return the key stored in the slot
+     */
+    public int keyAt(int index)
+    {
+        return _keys[index];
+    }
+
+    /**
+     * Returns the value stored in the specified slot.
+     *
+     * @param index the slot, from 0 to {@link #capacity()} - 1
+     * @return the value stored in the slot, or null if the slot is empty
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index)
+    {
+        return (V)_values[index];
+    }
+
+    /**
+     * Returns a new array with a snapshot of all keys.
+     *
+     * @return the keys of the map
+     */
+    public int[] keys()
+    {
+        int[] keys = new int[_size];
+        int count = 0;
+        for (int i = 0; i < _values.length; i++)
+        {
+            if (_values[i] != null)
+                keys[count++] = _keys[i];
+        }
+        return keys;
+    }
+
+    /* Spreads the bits of the key so sequential stream ids do not cluster. */
+    static int hash(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* Moves entries following a removed slot back so no probe chain is broken. */
+    void compactChain(int removedIndex)
+    {
+        int index = (removedIndex + 1) & _mask;
+        Object value;
+        while ((value = _values[index]) != null)
+        {
+            int home = hash(_keys[index]) & _mask;
+
+            // move the entry if its home slot is not within (removedIndex, index]
+            if ((index > removedIndex && (home <= removedIndex || home > index))
+                    || (index < removedIndex && (home <= removedIndex && home > index)))
+            {
+                _keys[removedIndex] = _keys[index];
+                _values[removedIndex] = value;
+                _values[index] = null;
+                removedIndex = index;
+            }
+            index = (index + 1) & _mask;
+        }
+    }
+
+    void allocate(int capacity)
+    {
+        _keys = new int[capacity];
+        _values = new Object[capacity];
+        _mask = capacity - 1;
+        _resizeThreshold = capacity == MAX_CAPACITY ? Integer.MAX_VALUE : capacity / 2;
+    }
+
+    void resize(int capacity)
+    {
+        if (capacity > MAX_CAPACITY)
+            return;
+
+        int[] oldKeys = _keys;
+        Object[] oldValues = _values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++)
+        {
+            Object value = oldValues[i];
+            if (value != null)
+            {
+                int index = hash(oldKeys[i]) & _mask;
+                while (_values[index] != null)
+                    index = (index + 1) & _mask;
+                _keys[index] = oldKeys[i];
+                _values[index] = value;
+            }
+        }
+    }
+}
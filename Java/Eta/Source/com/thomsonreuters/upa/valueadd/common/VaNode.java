@@ -1,7 +1,7 @@
 package com.thomsonreuters.upa.valueadd.common;
 
 /**
- * Represents a Node in a Queue. Used with VaConcurrentQueue or VaQueue.
+ * Represents a Node in a Queue. Used with VaRingBufferQueue, VaConcurrentQueue or VaQueue.
  */
 public class VaNode
 {
@@ -6,6 +6,10 @@ package com.thomsonreuters.upa.valueadd.common;
 public class VaPool
 {
     private VaQueue _queue;
+    private VaRingBufferQueue _concurrentQueue;   // used instead of _queue when the pool is thread safe
+
+    /* Nodes beyond this many are kept in the locked overflow list of the VaRingBufferQueue. */
+    static final int CONCURRENT_POOL_CAPACITY = 1024;
 
     /**
      * Creates a pool. This pool is not thread safe.
@@ -18,13 +22,13 @@ public class VaPool
     /**
      * Creates a pool. useConcurrent can be used to make this pool thread safe.
      * 
-     * @param useConcurrent if true, the pool is backed by a
-     *            {@link VaConcurrentQueue}.
+     * @param useConcurrent if true, the pool is backed by a lock-free
+     *            {@link VaRingBufferQueue}.
      */
     public VaPool(boolean useConcurrent)
     {
         if (useConcurrent)
-            _queue = new VaConcurrentQueue();
+            _concurrentQueue = new VaRingBufferQueue(CONCURRENT_POOL_CAPACITY);
         else
             _queue = new VaQueue();
     }
@@ -43,7 +47,10 @@ public class VaPool
             node.pool(this);
 
         node.inPool(true);
-        _queue.add(node);
+        if (_concurrentQueue != null)
+            _concurrentQueue.add(node);
+        else
+            _queue.add(node);
     }
 
     /**
@@ -64,7 +71,7 @@ public class VaPool
      */
     public VaNode poll()
     {
-        VaNode node = _queue.poll();
+        VaNode node = (_concurrentQueue != null ? _concurrentQueue.poll() : _queue.poll());
 
         if (node != null)
             node.inPool(false);
@@ -78,6 +85,6 @@ public class VaPool
      */
     public int size()
     {
-        return _queue.size();
+        return (_concurrentQueue != null ? _concurrentQueue.size() : _queue.size());
     }
 }
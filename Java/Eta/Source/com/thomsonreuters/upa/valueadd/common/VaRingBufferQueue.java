@@ -0,0 +1,253 @@
+package com.thomsonreuters.upa.valueadd.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A lock-free, thread-safe version of the Value Add FIFO queue, backed by a
+ * preallocated ring buffer. Any number of threads may add and poll
+ * concurrently; adding or polling a node costs one compare-and-set.
+ *
+ * If the ring buffer fills up, nodes are added to an overflow list protected
+ * by a lock until the queue is drained, so {@link #add(VaNode)} never blocks
+ * waiting for space. Nodes added by the same thread are always polled in the
+ * order they were added.
+ *
+ * Arbitrary removal is not supported, so unlike {@link VaConcurrentQueue}
+ * this queue is not a {@link VaQueue}.
+ */
+public class VaRingBufferQueue
+{
+    /** The default number of nodes the ring buffer holds before overflowing. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    final AtomicReferenceArray<VaNode> _buffer;
+    final AtomicLongArray _sequences;
+    final int _mask;
+    final AtomicLong _tailSequence = new AtomicLong();
+    final AtomicLong _headSequence = new AtomicLong();
+
+    volatile boolean _overflowed = false;
+    final Lock _overflowLock = new ReentrantLock();
+    final VaQueue _overflow = new VaQueue();   // guarded by _overflowLock
+
+    /**
+     * Creates a queue with a ring buffer of {@link #DEFAULT_CAPACITY} nodes.
+     */
+    public VaRingBufferQueue()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a queue with a ring buffer of the specified capacity.
+     *
+     * @param capacity the number of nodes the ring buffer holds, rounded up
+     *            to the next power of two
+     */
+    public VaRingBufferQueue(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+
+        _buffer = new AtomicReferenceArray<VaNode>(size);
+        _sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            _sequences.set(i, i);
+        _mask = size - 1;
+    }
+
+    /**
+     * Returns the capacity of the ring buffer.
+     *
+     * @return the capacity of the ring buffer
+     */
+    public int capacity()
+    {
+        return _mask + 1;
+    }
+
+    /**
+     * Adds to the tail of the queue.
+     * 
+     * @param node the node to add
+     */
+    public void add(VaNode node)
+    {
+        if (node == null)
+            return;
+
+        if (!_overflowed && offer(node))
+            return;
+
+        _overflowLock.lock();
+        try
+        {
+            // check again, the queue may have been drained in the meantime
+            if (!_overflowed && offer(node))
+                return;
+
+            _overflow.add(node);
+            _overflowed = true;
+        }
+        finally
+        {
+            _overflowLock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the head of the queue.
+     * 
+     * @return the head of the queue
+     */
+    public VaNode poll()
+    {
+        VaNode node = pollBuffer();
+        if (node != null || !_overflowed)
+            return node;
+
+        _overflowLock.lock();
+        try
+        {
+            // nodes in the ring buffer were added before the overflow started
+            node = pollBuffer();
+            if (node == null)
+            {
+                node = _overflow.poll();
+                if (_overflow.size() == 0)
+                    _overflowed = false;
+            }
+            return node;
+        }
+        finally
+        {
+            _overflowLock.unlock();
+        }
+    }
+
+    /**
+     * Returns but does not remove the head of the queue. The result is only
+     * reliable when called from the single thread that polls this queue.
+     *
+     * @return the head of the queue
+     */
+    public VaNode peek()
+    {
+        long head = _headSequence.get();
+        int index = (int)head & _mask;
+        if (_sequences.get(index) == head + 1)
+            return _buffer.get(index);
+
+        if (!_overflowed)
+            return null;
+
+        _overflowLock.lock();
+        try
+        {
+            return _overflow.peek();
+        }
+        finally
+        {
+            _overflowLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the size of the queue. Nodes that are still being added by
+     * another thread are included, so a poll may briefly return null while
+     * the size is positive.
+     *
+     * @return the size of the queue
+     */
+    public int size()
+    {
+        long head = _headSequence.get();
+        long tail = _tailSequence.get();
+        int size = (int)(tail - head);
+        if (size < 0)
+            size = 0;
+
+        if (_overflowed)
+        {
+            _overflowLock.lock();
+            try
+            {
+                size += _overflow.size();
+            }
+            finally
+            {
+                _overflowLock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /* Adds a node to the ring buffer. Returns false if the ring buffer is full. */
+    boolean offer(VaNode node)
+    {
+        long tail = _tailSequence.get();
+        int index;
+        for (;;)
+        {
+            index = (int)tail & _mask;
+            long diff = _sequences.get(index) - tail;
+            if (diff == 0)
+            {
+                if (_tailSequence.compareAndSet(tail, tail + 1))
+                    break;
+                tail = _tailSequence.get();
+            }
+            else if (diff < 0)
+            {
+                return false;
+            }
+            else
+            {
+                tail = _tailSequence.get();
+            }
+        }
+
+        _buffer.lazySet(index, node);
+        _sequences.set(index, tail + 1);
+        return true;
+    }
+
+    /* Removes and returns the head of the ring buffer, or null if it is empty. */
+    VaNode pollBuffer()
+    {
+        long head = _headSequence.get();
+        int index;
+        for (;;)
+        {
+            index = (int)head & _mask;
+            long diff = _sequences.get(index) - (head + 1);
+            if (diff == 0)
+            {
+                if (_headSequence.compareAndSet(head, head + 1))
+                    break;
+                head = _headSequence.get();
+            }
+            else if (diff < 0)
+            {
+                return null;
+            }
+            else
+            {
+                head = _headSequence.get();
+            }
+        }
+
+        VaNode node = _buffer.get(index);
+        _buffer.lazySet(index, null);
+        _sequences.set(index, head + _mask + 1);
+        return node;
+    }
+}
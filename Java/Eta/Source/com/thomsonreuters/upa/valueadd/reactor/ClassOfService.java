@@ -32,6 +32,15 @@ import com.thomsonreuters.upa.transport.TransportFactory;
 public class ClassOfService
 {
     private final int DEFAULT_BIDIRECTIONAL_FLOW_CONTROL_VALUE = CosCommon.DEFAULT_MAX_MSG_SIZE * 2;
+
+    /* Common property element indicating that batched messages are accepted. */
+    static final Buffer MSG_BATCHING = CodecFactory.createBuffer();
+
+    static
+    {
+        MSG_BATCHING.data(":MsgBatching");
+    }
+
     private CosCommon _commonProperties = new CosCommon();
     private CosAuthentication _authentication = new CosAuthentication();
     private CosFlowControl _flowControl = new CosFlowControl();
@@ -178,6 +187,9 @@ public class ClassOfService
         _dIter.clear();
         _dIter.setBufferAndRWFVersion(encodedBuffer, reactorChannel.majorVersion(), reactorChannel.minorVersion());
         
+        /* Batching is only used if the remote end also accepts it. */
+        _commonProperties.msgBatching(false);
+        
         if ((ret = _filterList.decode(_dIter)) >= CodecReturnCodes.SUCCESS)
         {
             while ((ret = _filterEntry.decode(_dIter)) != CodecReturnCodes.END_OF_CONTAINER)
@@ -219,6 +231,11 @@ public class ClassOfService
                                             _tempUInt.decode(_dIter);
                                             _commonProperties.streamVersion((int)_tempUInt.toLong());
                                         } 
+                                        else if (_elemEntry.name().equals(MSG_BATCHING))
+                                        {
+                                            _tempUInt.decode(_dIter);
+                                            _commonProperties.msgBatching(_tempUInt.toLong() != 0);
+                                        } 
                                         break;
                                     case ClassesOfService.FilterIds.AUTHENTICATION:
                                         _tempUInt.decode(_dIter);
@@ -296,6 +313,8 @@ public class ClassOfService
         _dIter.clear();
         _dIter.setBufferAndRWFVersion(encodedBuffer, reactorChannel.majorVersion(), reactorChannel.minorVersion());
         
+        _commonProperties.msgBatching(false);
+        
         if ((ret = _filterList.decode(_dIter)) >= CodecReturnCodes.SUCCESS)
         {
             while ((filterEntryRet = _filterEntry.decode(_dIter)) != CodecReturnCodes.END_OF_CONTAINER)
@@ -337,6 +356,11 @@ public class ClassOfService
                                             _tempUInt.decode(_dIter);
                                             _commonProperties.streamVersion((int)_tempUInt.toLong());
                                         } 
+                                        else if (_elemEntry.name().equals(MSG_BATCHING))
+                                        {
+                                            _tempUInt.decode(_dIter);
+                                            _commonProperties.msgBatching(_tempUInt.toLong() != 0);
+                                        } 
                                         break;
                                     case ClassesOfService.FilterIds.AUTHENTICATION:
                                         _tempUInt.decode(_dIter);
@@ -582,6 +606,19 @@ public class ClassOfService
             return ret;
         }
 
+        // encode message batching only if enabled
+        if (_commonProperties.msgBatching())
+        {
+            _elemEntry.clear();
+            _elemEntry.name(MSG_BATCHING);
+            _elemEntry.dataType(DataTypes.UINT);
+            _tempUInt.value(1);
+            if ((ret = _elemEntry.encode(eIter, _tempUInt)) < CodecReturnCodes.SUCCESS)
+            {
+                return ret;
+            }
+        }
+
         if ((ret = _elemList.encodeComplete(eIter, true)) < CodecReturnCodes.SUCCESS)
         {
             return ret;
@@ -875,6 +912,8 @@ public class ClassOfService
         destCos.common().protocolMajorVersion(common().protocolMajorVersion());
         destCos.common().protocolMinorVersion(common().protocolMinorVersion());
         destCos.common().streamVersion(common().streamVersion());
+        destCos.common().msgBatching(common().msgBatching());
+        destCos.common().msgBatchLingerTime(common().msgBatchLingerTime());
         
         /* Authentication */
         destCos.authentication().type(authentication().type());
@@ -883,6 +922,10 @@ public class ClassOfService
         destCos.flowControl().type(flowControl().type());
         destCos.flowControl().recvWindowSize(flowControl().recvWindowSize());
         destCos.flowControl().sendWindowSize(flowControl().sendWindowSize());
+        destCos.flowControl().ackDelayInterval(flowControl().ackDelayInterval());
+        destCos.flowControl().ackDelayMaxMsgs(flowControl().ackDelayMaxMsgs());
+        destCos.flowControl().recvWindowAutoTune(flowControl().recvWindowAutoTune());
+        destCos.flowControl().recvWindowMaxSize(flowControl().recvWindowMaxSize());
         
         /* Data Integrity */
         destCos.dataIntegrity().type(dataIntegrity().type());
@@ -891,6 +934,10 @@ public class ClassOfService
         destCos.guarantee().type(guarantee().type());
         destCos.guarantee().persistenceFilePath(guarantee().persistenceFilePath());
         destCos.guarantee().persistLocally(guarantee().persistLocally());
+        destCos.guarantee().persistenceGroupCommit(guarantee().persistenceGroupCommit());
+        destCos.guarantee().persistenceGroupCommitMaxMsgs(guarantee().persistenceGroupCommitMaxMsgs());
+        destCos.guarantee().persistenceGroupCommitInterval(guarantee().persistenceGroupCommitInterval());
+        destCos.guarantee().persistenceLogStructured(guarantee().persistenceLogStructured());
 
         return ReactorReturnCodes.SUCCESS;
     }
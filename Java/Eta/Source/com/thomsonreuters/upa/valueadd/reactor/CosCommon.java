@@ -21,6 +21,8 @@ public class CosCommon
     int _protocolMajorVersion = Codec.majorVersion();
     int _protocolMinorVersion = Codec.minorVersion();
     int _streamVersion = CURRENT_STREAM_VERSION;
+    boolean _msgBatching = false;
+    int _msgBatchLingerTime = 0;
     
     /**
      * Returns the maximum message size. Set by providers to convey the
@@ -89,6 +91,53 @@ public class CosCommon
         _protocolMinorVersion = protocolMinorVersion;
     }
 
+    /**
+     * Returns whether small messages are batched.
+     */
+    public boolean msgBatching()
+    {
+        return _msgBatching;
+    }
+
+    /**
+     * Enable or disable batching of small messages. Default: Disabled.
+     * <p>
+     * When enabled, messages submitted to the tunnel stream that are neither queue
+     * messages nor larger than a quarter of the maximum message size are packed together,
+     * up to the maximum message size, and sent as one tunnel stream message.
+     * The receiving tunnel stream unpacks them, and they are received as
+     * separate messages. This reduces the per-message overhead for small messages at
+     * high message rates.
+     * <p>
+     * Batching is negotiated with the remote end, and is used only when both ends enable
+     * it. A provider may check whether a consumer requested it from the class of
+     * service of the {@link TunnelStreamRequestEvent}.
+     */
+    public void msgBatching(boolean msgBatching)
+    {
+        _msgBatching = msgBatching;
+    }
+
+    /**
+     * Returns the time in microseconds that a batch of messages waits for more messages
+     * before it is sent.
+     */
+    public int msgBatchLingerTime()
+    {
+        return _msgBatchLingerTime;
+    }
+
+    /**
+     * Sets the time in microseconds that a batch of messages waits for more messages
+     * before it is sent, when message batching is enabled. When 0, a batch is sent
+     * the next time the tunnel stream is dispatched, so it holds only the messages
+     * submitted since then. Default: 0. This setting is not sent to the remote end.
+     */
+    public void msgBatchLingerTime(int msgBatchLingerTime)
+    {
+        _msgBatchLingerTime = msgBatchLingerTime;
+    }
+
     int streamVersion()
     {
         return _streamVersion;
@@ -109,5 +158,7 @@ public class CosCommon
         _protocolMajorVersion = Codec.majorVersion();
         _protocolMinorVersion = Codec.minorVersion();
         _streamVersion = CURRENT_STREAM_VERSION;
+        _msgBatching = false;
+        _msgBatchLingerTime = 0;
     }
 }
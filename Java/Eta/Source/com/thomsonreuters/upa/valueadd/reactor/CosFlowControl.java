@@ -13,6 +13,10 @@ public class CosFlowControl
     int _type = ClassesOfService.FlowControlTypes.NONE;
     int _recvWindowSize = -1;
     int _sendWindowSize;
+    int _ackDelayInterval = 0;
+    int _ackDelayMaxMsgs = 0;
+    boolean _recvWindowAutoTune = false;
+    int _recvWindowMaxSize = 0;
     
     /**
      * Returns the type of the flow control class of service.
@@ -76,6 +80,99 @@ public class CosFlowControl
         _sendWindowSize = sendWindowSize;
     }
 
+    /**
+     * Returns the maximum time in microseconds that acknowledgement of received
+     * messages may be delayed.
+     */
+    public int ackDelayInterval()
+    {
+        return _ackDelayInterval;
+    }
+
+    /**
+     * Sets the maximum time in microseconds that acknowledgement of received messages
+     * may be delayed. 0 disables delayed acknowledgement. Default: 0.
+     * Use only when flow control type is set to BIDIRECTIONAL.
+     * <p>
+     * By default, received messages are acknowledged each time the tunnel stream is
+     * dispatched. When delayed acknowledgement is enabled, one acknowledgement covers
+     * all messages received until this interval has passed since the first of them,
+     * the number set by {@link #ackDelayMaxMsgs(int)} is reached, or half of the
+     * receive window is unacknowledged. Requests for retransmission of the same messages
+     * are also sent at most once per interval. This reduces the number of messages sent
+     * back to the remote end at high message rates. This setting is not sent to the
+     * remote end.
+     */
+    public void ackDelayInterval(int ackDelayInterval)
+    {
+        _ackDelayInterval = ackDelayInterval;
+    }
+
+    /**
+     * Returns the maximum number of received messages covered by one acknowledgement,
+     * when delayed acknowledgement is enabled.
+     */
+    public int ackDelayMaxMsgs()
+    {
+        return _ackDelayMaxMsgs;
+    }
+
+    /**
+     * Sets the maximum number of received messages covered by one acknowledgement,
+     * when delayed acknowledgement is enabled with {@link #ackDelayInterval(int)}.
+     * 0 indicates no limit. Default: 0.
+     */
+    public void ackDelayMaxMsgs(int ackDelayMaxMsgs)
+    {
+        _ackDelayMaxMsgs = ackDelayMaxMsgs;
+    }
+
+    /**
+     * Returns whether the receive window is tuned automatically.
+     */
+    public boolean recvWindowAutoTune()
+    {
+        return _recvWindowAutoTune;
+    }
+
+    /**
+     * Enable or disable automatic tuning of the receive window. Default: Disabled.
+     * Use only when flow control type is set to BIDIRECTIONAL.
+     * <p>
+     * When enabled, the receive window advertised to the remote end starts at the
+     * receive window size, and is adjusted once per measured round trip to about twice
+     * the amount of data the application received in it, up to the size set by
+     * {@link #recvWindowMaxSize(int)}. The window grows while the remote end sends as
+     * much as the window allows, and shrinks back toward the receive window size when the
+     * application reads less, such as when it is slow to dispatch. This allows higher
+     * throughput over links with high latency without setting a large window for every
+     * stream. The round trip time is measured from acknowledgement of the messages this
+     * end sends, or, if it sends none, from the time taken to receive a full window.
+     * This setting is not sent to the remote end.
+     */
+    public void recvWindowAutoTune(boolean recvWindowAutoTune)
+    {
+        _recvWindowAutoTune = recvWindowAutoTune;
+    }
+
+    /**
+     * Returns the largest receive window advertised when the receive window is tuned
+     * automatically.
+     */
+    public int recvWindowMaxSize()
+    {
+        return _recvWindowMaxSize;
+    }
+
+    /**
+     * Sets the largest receive window advertised when the receive window is tuned
+     * automatically. 0 indicates 16 times the receive window size. Default: 0.
+     */
+    public void recvWindowMaxSize(int recvWindowMaxSize)
+    {
+        _recvWindowMaxSize = recvWindowMaxSize;
+    }
+
     /**
      * Clears the CosFlowControl for re-use.
      */
@@ -84,5 +181,9 @@ public class CosFlowControl
         _type = ClassesOfService.FlowControlTypes.NONE;
         _recvWindowSize = -1;
         _sendWindowSize = -1;
+        _ackDelayInterval = 0;
+        _ackDelayMaxMsgs = 0;
+        _recvWindowAutoTune = false;
+        _recvWindowMaxSize = 0;
     }
 }
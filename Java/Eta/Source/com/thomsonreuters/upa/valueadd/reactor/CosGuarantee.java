@@ -13,6 +13,10 @@ public class CosGuarantee
     int _type = ClassesOfService.GuaranteeTypes.NONE;
     String _persistenceFilePath = null;
     boolean _persistLocally = true;
+    boolean _persistenceGroupCommit = false;
+    int _persistenceGroupCommitMaxMsgs = 0;
+    int _persistenceGroupCommitInterval = 0;
+    boolean _persistenceLogStructured = false;
     
     /**
      * Returns the type of the guarantee class of service.
@@ -72,6 +76,98 @@ public class CosGuarantee
         _persistLocally = persistLocally;
     }
 
+    /**
+     * Returns whether updates to the local persistence file are committed to disk in groups.
+     * Use only when guarantee type is set to PERSISTENT_QUEUE.
+     */
+    public boolean persistenceGroupCommit()
+    {
+        return _persistenceGroupCommit;
+    }
+
+    /**
+     * Enable or disable group commit of the local persistence file. Default: Disabled.
+     * Use only when guarantee class of service is set to PERSISTENT_QUEUE.
+     * <p>
+     * When disabled, the modified regions of the persistence file are forced to disk
+     * each time a message is saved, transmitted or acknowledged. When enabled, they are
+     * forced once per dispatch of the tunnel stream, or sooner if the limits set by
+     * {@link #persistenceGroupCommitMaxMsgs(int)} or {@link #persistenceGroupCommitInterval(int)}
+     * are reached. This reduces the number of disk flushes at high message rates.
+     * <p>
+     * With group commit, updates that have not been committed may be lost if the process
+     * or host fails. After recovery, messages saved in that window may not be retransmitted,
+     * and messages transmitted or acknowledged in that window may be retransmitted.
+     */
+    public void persistenceGroupCommit(boolean persistenceGroupCommit)
+    {
+        _persistenceGroupCommit = persistenceGroupCommit;
+    }
+
+    /**
+     * Returns the maximum number of updates to the local persistence file before
+     * they are committed, when group commit is enabled.
+     */
+    public int persistenceGroupCommitMaxMsgs()
+    {
+        return _persistenceGroupCommitMaxMsgs;
+    }
+
+    /**
+     * Sets the maximum number of updates to the local persistence file before they
+     * are committed, when group commit is enabled. 0 indicates no limit. Default: 0.
+     */
+    public void persistenceGroupCommitMaxMsgs(int persistenceGroupCommitMaxMsgs)
+    {
+        _persistenceGroupCommitMaxMsgs = persistenceGroupCommitMaxMsgs;
+    }
+
+    /**
+     * Returns the maximum time in microseconds that an update to the local persistence
+     * file may remain uncommitted, when group commit is enabled.
+     */
+    public int persistenceGroupCommitInterval()
+    {
+        return _persistenceGroupCommitInterval;
+    }
+
+    /**
+     * Sets the maximum time in microseconds that an update to the local persistence file
+     * may remain uncommitted, when group commit is enabled. The time is checked as updates
+     * are made. 0 indicates no limit. Default: 0.
+     */
+    public void persistenceGroupCommitInterval(int persistenceGroupCommitInterval)
+    {
+        _persistenceGroupCommitInterval = persistenceGroupCommitInterval;
+    }
+
+    /**
+     * Returns whether new local persistence files use the log-structured format.
+     * Use only when guarantee type is set to PERSISTENT_QUEUE.
+     */
+    public boolean persistenceLogStructured()
+    {
+        return _persistenceLogStructured;
+    }
+
+    /**
+     * Enable or disable the log-structured format for new local persistence files. Default: Disabled.
+     * Use only when guarantee class of service is set to PERSISTENT_QUEUE.
+     * <p>
+     * By default, a persistence file reserves space for 1024 messages of the maximum
+     * message size. In the log-structured format, messages are stored at their actual
+     * length, and the file grows as needed and reuses the space of acknowledged messages.
+     * This allows far more unacknowledged messages in less disk space when messages are
+     * small.
+     * <p>
+     * This setting applies when a persistence file is created. An existing file keeps
+     * the format it was created with.
+     */
+    public void persistenceLogStructured(boolean persistenceLogStructured)
+    {
+        _persistenceLogStructured = persistenceLogStructured;
+    }
+
     /**
      * Clears the CosGuarantee for re-use.
      */
@@ -80,5 +176,9 @@ public class CosGuarantee
         _type = ClassesOfService.GuaranteeTypes.NONE;
         _persistenceFilePath = null;
         _persistLocally = true;
+        _persistenceGroupCommit = false;
+        _persistenceGroupCommitMaxMsgs = 0;
+        _persistenceGroupCommitInterval = 0;
+        _persistenceLogStructured = false;
     }
 }
@@ -1,5 +1,6 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
+import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.util.HashMap;
@@ -12,6 +13,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.thomsonreuters.upa.codec.Buffer;
 import com.thomsonreuters.upa.codec.CloseMsg;
 import com.thomsonreuters.upa.codec.CodecFactory;
 import com.thomsonreuters.upa.codec.CodecReturnCodes;
@@ -40,6 +42,7 @@ import com.thomsonreuters.upa.transport.TransportBuffer;
 import com.thomsonreuters.upa.transport.TransportFactory;
 import com.thomsonreuters.upa.transport.TransportReturnCodes;
 import com.thomsonreuters.upa.transport.WriteArgs;
+import com.thomsonreuters.upa.valueadd.common.LoopbackTransport;
 import com.thomsonreuters.upa.valueadd.common.SelectableBiDirectionalQueue;
 import com.thomsonreuters.upa.valueadd.common.VaIteratableQueue;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.MsgBase;
@@ -93,6 +96,9 @@ public class Reactor
     boolean _reactorActive = false;
     final static int SHUTDOWN_TIMEOUT_IN_SECONDS = 5;
 
+    // position of the stream id in an encoded message, after the header length, msg class and domain type
+    final static int MSG_STREAM_ID_POSITION = 4;
+
     ReactorOptions _reactorOptions = ReactorFactory.createReactorOptions();
     ReactorChannel _reactorChannel = null;
     ReactorChannelInfo _reactorChannelInfo = ReactorFactory.createReactorChannelInfo();
@@ -132,8 +138,9 @@ public class Reactor
     private TunnelStreamRejectOptions _tunnelStreamRejectOptions = ReactorFactory.createTunnelStreamRejectOptions();
     
     private boolean _finalStatusEvent;
-    
-    WlInteger _tempWlInteger = ReactorFactory.createWlInteger();
+
+    // dispatching thread, if this Reactor belongs to a ReactorGroup
+    ReactorGroupThread _reactorGroupThread = null;
     
     /**
      * The specified ReactorOptions are copied so that it can be re-used by the
@@ -598,9 +605,14 @@ public class Reactor
                 }
             }
 
-            // call Transport.connect to create a new Channel
-            Channel channel = Transport.connect(connectOptions,
-                                                errorInfo.error());
+            // call Transport.connect to create a new Channel, or connect in-process
+            // for the loopback connection type
+            Channel channel;
+            if (connectOptions.connectionType() == LoopbackTransport.CONNECTION_TYPE)
+                channel = LoopbackTransport.connect(connectOptions, errorInfo.error());
+            else
+                channel = Transport.connect(connectOptions,
+                                            errorInfo.error());
             reactorChannel.selectableChannelFromChannel(channel);
             
             if (channel == null)
@@ -646,6 +658,138 @@ public class Reactor
         return ReactorReturnCodes.SUCCESS;
     }
 
+    /**
+     * Writes one encoded message to several channels. For each target, the
+     * encoded bytes are copied into a buffer of the target's channel and the
+     * stream id in the message header is replaced by the target's stream id,
+     * so the message is encoded once however many channels it is sent to.
+     * 
+     * <p>
+     * The result for each target is set in the targets, see
+     * {@link ReactorFanOutTargets#result(int)}. A target that fails does not
+     * prevent the message from being written to the others. Channels with a
+     * watchlist enabled cannot be targets.
+     * 
+     * <p>
+     * A target whose channel cannot take the whole message at this time gets
+     * {@link ReactorReturnCodes#WRITE_CALL_AGAIN}. As for
+     * {@link ReactorChannel#submit(TransportBuffer, ReactorSubmitOptions, ReactorErrorInfo)},
+     * the buffer of that target, available from
+     * {@link ReactorFanOutTargets#pendingBuffer(int)}, must be submitted again
+     * on its channel later on; the submit does not wait for it.
+     * 
+     * @param msgBuffer the encoded message, from its position for its length
+     * @param targets the channels and stream ids to write the message to
+     * @param submitOptions options for how to send the message
+     * @param errorInfo error structure to be populated in the event of failure;
+     *            holds the error of the last target that failed
+     * 
+     * @return the number of targets the message was written to, or
+     *         {@link ReactorReturnCodes#FAILURE} if the submit failed for all
+     *         targets, none of them pending (refer to errorInfo for additional
+     *         information)
+     */
+    public int submit(Buffer msgBuffer, ReactorFanOutTargets targets, ReactorSubmitOptions submitOptions, ReactorErrorInfo errorInfo)
+    {
+        if (errorInfo == null)
+            return ReactorReturnCodes.FAILURE;
+        else if (targets == null || submitOptions == null)
+            return populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
+                                     "Reactor.submit",
+                                     "targets and submitOptions cannot be null.");
+        else if (msgBuffer == null || msgBuffer.data() == null || msgBuffer.length() < MSG_STREAM_ID_POSITION + 4)
+            return populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
+                                     "Reactor.submit",
+                                     "msgBuffer does not hold an encoded message.");
+        else if (isShutdown())
+            return populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
+                                     "Reactor.submit",
+                                     "Reactor is shutdown, submit aborted.");
+
+        ByteBuffer src = msgBuffer.data();
+        int srcPosition = msgBuffer.position();
+        int length = msgBuffer.length();
+        int savedPosition = src.position();
+        int savedLimit = src.limit();
+        int written = 0;
+        int pending = 0;
+        int ret;
+
+        _reactorLock.lock();
+
+        try
+        {
+            for (int i = 0; i < targets._count; i++)
+            {
+                ReactorChannel reactorChannel = targets._channels[i];
+
+                if (reactorChannel.watchlist() != null)
+                {
+                    targets.result(i, populateErrorInfo(errorInfo, ReactorReturnCodes.INVALID_USAGE,
+                                                        "Reactor.submit",
+                                                        "Cannot submit buffer when watchlist is enabled."));
+                    continue;
+                }
+                else if (reactorChannel.state() == ReactorChannel.State.CLOSED || reactorChannel.channel() == null)
+                {
+                    targets.result(i, populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
+                                                        "Reactor.submit", "ReactorChannel is closed."));
+                    continue;
+                }
+
+                TransportBuffer buffer = reactorChannel.channel().getBuffer(length, false, errorInfo.error());
+                if (buffer == null)
+                {
+                    targets.result(i, populateErrorInfo(errorInfo, ReactorReturnCodes.NO_BUFFERS,
+                                                        "Reactor.submit", "channel out of buffers chnl="
+                                                        + reactorChannel.channel().selectableChannel()
+                                                        + " errorText=" + errorInfo.error().text()));
+                    continue;
+                }
+
+                // copy the encoded message and replace its stream id
+                ByteBuffer dest = buffer.data();
+                int destPosition = dest.position();
+                src.limit(srcPosition + length);
+                src.position(srcPosition);
+                dest.put(src);
+                dest.putInt(destPosition + MSG_STREAM_ID_POSITION, targets._streamIds[i]);
+
+                // a FLUSH is already queued for the channel; leave the rest of
+                // the buffer to the application rather than wait for it here
+                ret = submitChannel(reactorChannel, buffer, submitOptions, errorInfo);
+                if (ret == ReactorReturnCodes.WRITE_CALL_AGAIN)
+                {
+                    targets.result(i, ret);
+                    targets.pendingBuffer(i, buffer);
+                    pending++;
+                    continue;
+                }
+                else if (ret < ReactorReturnCodes.SUCCESS)
+                {
+                    if (reactorChannel.channel() != null)
+                        reactorChannel.channel().releaseBuffer(buffer, errorInfo.error());
+                    targets.result(i, ret);
+                    continue;
+                }
+
+                targets.result(i, ReactorReturnCodes.SUCCESS);
+                written++;
+            }
+        }
+        finally
+        {
+            src.limit(savedLimit);
+            src.position(savedPosition);
+            _reactorLock.unlock();
+        }
+
+        if (written == 0 && pending == 0 && targets._count > 0)
+            return ReactorReturnCodes.FAILURE;
+
+        return written;
+    }
+
     boolean sendWorkerEvent(WorkerEventTypes eventType, ReactorChannel reactorChannel)
     {
     	boolean retVal = true;
@@ -716,6 +860,9 @@ public class Reactor
         reactorChannelEvent.eventType(eventType);
         populateErrorInfo(reactorChannelEvent.errorInfo(), errorInfo.code(), errorInfo.location(), errorInfo.error().text());
 
+        if (_reactorGroupThread != null)
+            _reactorGroupThread._reactorGroup.channelEvent(_reactorGroupThread, reactorChannelEvent);
+
         int retval = reactorChannel.role().channelEventCallback().reactorChannelEventCallback(reactorChannelEvent);
         reactorChannelEvent.returnToPool();
 
@@ -812,8 +959,7 @@ public class Reactor
     {
         TunnelStream tunnelStream;
 
-        _tempWlInteger.value(msg.streamId());
-        if ((tunnelStream = reactorChannel.streamIdtoTunnelStreamTable().get(_tempWlInteger)) != null)
+        if ((tunnelStream = reactorChannel.streamIdtoTunnelStreamTable().get(msg.streamId())) != null)
             return handleTunnelStreamMsg(reactorChannel, tunnelStream, transportBuffer, msg, errorInfo);
 
         int retval = sendDefaultMsgCallback(reactorChannel, transportBuffer, msg, streamInfo);
@@ -850,8 +996,7 @@ public class Reactor
     {
         TunnelStream tunnelStream;
 
-        _tempWlInteger.value(msg.streamId());
-        if ((tunnelStream = reactorChannel.streamIdtoTunnelStreamTable().get(_tempWlInteger)) != null)
+        if ((tunnelStream = reactorChannel.streamIdtoTunnelStreamTable().get(msg.streamId())) != null)
             return handleTunnelStreamMsg(reactorChannel, tunnelStream, transportBuffer, msg, errorInfo);
 
         int retval = sendDefaultMsgCallback(reactorChannel, transportBuffer, msg, null);
@@ -892,16 +1037,14 @@ public class Reactor
         
         TunnelStreamStatusEvent tunnelStreamEvent = ReactorFactory.createTunnelStreamStatusEvent();
 
-        _tempWlInteger.value(tunnelStream.streamId());
 		if (state != null && state.streamState() != StreamStates.OPEN &&
-		    reactorChannel.streamIdtoTunnelStreamTable().containsKey(_tempWlInteger))
+		    reactorChannel.streamIdtoTunnelStreamTable().containsKey(tunnelStream.streamId()))
 		{
             /* Check for any untransmitted QueueData messages with immediate timeouts. */
             tunnelStream.expireImmediateMessages(errorInfo.error());
 
             // remove from table
-            TunnelStream tempTunnelStream = reactorChannel.streamIdtoTunnelStreamTable().remove(_tempWlInteger);
-            tempTunnelStream.tableKey().returnToPool();
+            reactorChannel.streamIdtoTunnelStreamTable().remove(tunnelStream.streamId());
             // close TunnelStreamHandler for this streamId
             if (state.streamState() != StreamStates.CLOSED && state.streamState() != StreamStates.CLOSED_RECOVER)
             	tunnelStream.close(_finalStatusEvent, errorInfo.error());
@@ -1743,6 +1886,7 @@ public class Reactor
     private int performChannelRead(ReactorChannel reactorChannel, ReadArgs readArgs, ReactorErrorInfo errorInfo)
     {
         TransportBuffer msgBuf = reactorChannel.channel().read(readArgs, errorInfo.error());
+        int readRetVal = LoopbackTransport.readRetVal(reactorChannel.channel(), readArgs);
         if (msgBuf != null)
         {
             if (_reactorOptions.xmlTracing() == true)
@@ -1776,9 +1920,8 @@ public class Reactor
             
             // determine if for watchlist and process by watchlist
             WlStream wlStream = null;
-            _tempWlInteger.value(_msg.streamId());
             if (reactorChannel.watchlist() != null &&
-                (wlStream = reactorChannel.watchlist().streamIdtoWlStreamTable().get(_tempWlInteger)) != null)
+                (wlStream = reactorChannel.watchlist().streamIdtoWlStreamTable().get(_msg.streamId())) != null)
             {
                 if ((retval = reactorChannel.watchlist().readMsg(wlStream, _dIter, _msg, errorInfo)) < ReactorReturnCodes.SUCCESS)
                 {
@@ -1825,7 +1968,7 @@ public class Reactor
         }
         else
         {
-            if (readArgs.readRetVal() == TransportReturnCodes.FAILURE)
+            if (readRetVal == TransportReturnCodes.FAILURE)
             {
                 if (reactorChannel.server() == null && !reactorChannel.recoveryAttemptLimitReached()) // client channel
                 {
@@ -1852,7 +1995,7 @@ public class Reactor
                 }
 
             }
-            else if (readArgs.readRetVal() == TransportReturnCodes.READ_FD_CHANGE)
+            else if (readRetVal == TransportReturnCodes.READ_FD_CHANGE)
             {
             	// reset selectable channel on ReactorChannel to new one
             	reactorChannel.selectableChannelFromChannel(reactorChannel.channel());
@@ -1879,16 +2022,16 @@ public class Reactor
                                                       ReactorChannelEventTypes.FD_CHANGE,
                                                       reactorChannel, errorInfo);
             }
-            else if (readArgs.readRetVal() == TransportReturnCodes.READ_PING)
+            else if (readRetVal == TransportReturnCodes.READ_PING)
             {
                 // update ping handler
             	reactorChannel.pingHandler().receivedMsg();
             }
         }
         
-        if (readArgs.readRetVal() > 0)
+        if (readRetVal > 0)
         {
-        	return readArgs.readRetVal();
+        	return readRetVal;
         }
 
         return ReactorReturnCodes.SUCCESS;
@@ -1905,8 +2048,7 @@ public class Reactor
         if (((ProviderRole)reactorChannel.role()).tunnelStreamListenerCallback() != null)
         {
             // reject if TunnelStream already exists
-        	_tempWlInteger.value(msg.streamId());
-            if (!reactorChannel.streamIdtoTunnelStreamTable().containsKey(_tempWlInteger))
+            if (!reactorChannel.streamIdtoTunnelStreamTable().containsKey(msg.streamId()))
             {
                 if (msg.containerType() == DataTypes.FILTER_LIST &&
                     msg.msgKey().checkHasFilter())
@@ -3594,8 +3736,7 @@ public class Reactor
                 {
                     WlRequest wlRequest;
 
-                    _tempWlInteger.value(refreshMsg.streamId());
-                    if ((wlRequest = reactorChannel.watchlist().streamIdtoWlRequestTable().get(_tempWlInteger)) 
+                    if ((wlRequest = reactorChannel.watchlist().streamIdtoWlRequestTable().get(refreshMsg.streamId())) 
                             == null)
                     {
                         return populateErrorInfo(errorInfo, retval,
@@ -1,7 +1,6 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
 import java.nio.channels.SelectableChannel;
-import java.util.HashMap;
 
 import com.thomsonreuters.upa.codec.Codec;
 import com.thomsonreuters.upa.codec.CodecFactory;
@@ -19,6 +18,8 @@ import com.thomsonreuters.upa.transport.IoctlCodes;
 import com.thomsonreuters.upa.transport.Server;
 import com.thomsonreuters.upa.transport.Transport;
 import com.thomsonreuters.upa.transport.TransportBuffer;
+import com.thomsonreuters.upa.valueadd.common.LoopbackTransport;
+import com.thomsonreuters.upa.valueadd.common.VaIntHashMap;
 import com.thomsonreuters.upa.valueadd.common.VaNode;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.MsgBase;
 
@@ -58,7 +59,7 @@ public class ReactorChannel extends VaNode
 
     // tunnel stream support
     private TunnelStreamManager _tunnelStreamManager = new TunnelStreamManager();
-    private HashMap<WlInteger,TunnelStream> _streamIdtoTunnelStreamTable = new HashMap<WlInteger,TunnelStream>();
+    private VaIntHashMap<TunnelStream> _streamIdtoTunnelStreamTable = new VaIntHashMap<TunnelStream>();
     private Msg _tunnelStreamRespMsg = CodecFactory.createMsg();
     private ReactorSubmitOptions _reactorSubmitOptions = ReactorFactory.createReactorSubmitOptions();
     private ReactorChannelInfo _reactorChannelInfo = ReactorFactory.createReactorChannelInfo();
@@ -760,9 +761,7 @@ public class ReactorChannel extends VaNode
             }
             
             
-            WlInteger wlInteger = ReactorFactory.createWlInteger();
-            wlInteger.value(options.streamId());
-            if (_streamIdtoTunnelStreamTable.containsKey(wlInteger))
+            if (_streamIdtoTunnelStreamTable.containsKey(options.streamId()))
             {
                 return _reactor.populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
                                                   "ReactorChannel.openTunnelStream",
@@ -778,9 +777,7 @@ public class ReactorChannel extends VaNode
             
             // open tunnel stream
             TunnelStream tunnelStream = _tunnelStreamManager.createTunnelStream(options);
-            wlInteger.value(tunnelStream.streamId());
-            tunnelStream.tableKey(wlInteger);
-            _streamIdtoTunnelStreamTable.put(wlInteger, tunnelStream);
+            _streamIdtoTunnelStreamTable.put(tunnelStream.streamId(), tunnelStream);
             if (tunnelStream.openStream(errorInfo.error()) < ReactorReturnCodes.SUCCESS)
             {
                 return _reactor.populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
@@ -941,10 +938,7 @@ public class ReactorChannel extends VaNode
             // open tunnel stream
             TunnelStream tunnelStream = _tunnelStreamManager.createTunnelStream(event, options);
             tunnelStream.channelStreamId(tunnelStream.streamId());
-            WlInteger wlInteger = ReactorFactory.createWlInteger();
-            wlInteger.value(tunnelStream.streamId());
-            tunnelStream.tableKey(wlInteger);
-            _streamIdtoTunnelStreamTable.put(wlInteger, tunnelStream);
+            _streamIdtoTunnelStreamTable.put(tunnelStream.streamId(), tunnelStream);
             if (tunnelStream.openStream(errorInfo.error()) < ReactorReturnCodes.SUCCESS)
             {
                 return _reactor.populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
@@ -1067,7 +1061,7 @@ public class ReactorChannel extends VaNode
         return ReactorReturnCodes.SUCCESS;
     }
 
-    HashMap<WlInteger,TunnelStream> streamIdtoTunnelStreamTable()
+    VaIntHashMap<TunnelStream> streamIdtoTunnelStreamTable()
     {
         return _streamIdtoTunnelStreamTable;
     }
@@ -1143,7 +1137,11 @@ public class ReactorChannel extends VaNode
         reactorConnectInfo.connectOptions().channelWriteLocking(true);
 
         // connect
-        Channel channel = Transport.connect(reactorConnectInfo.connectOptions(), error);
+        Channel channel;
+        if (reactorConnectInfo.connectOptions().connectionType() == LoopbackTransport.CONNECTION_TYPE)
+            channel = LoopbackTransport.connect(reactorConnectInfo.connectOptions(), error);
+        else
+            channel = Transport.connect(reactorConnectInfo.connectOptions(), error);
 
         if (channel != null)
             initializationTimeout(reactorConnectInfo.initTimeout());
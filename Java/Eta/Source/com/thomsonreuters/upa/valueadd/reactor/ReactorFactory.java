@@ -60,6 +60,35 @@ public class ReactorFactory
             return null;
     }
 
+    /**
+     * Create a {@link ReactorGroup}, which creates the number of {@link Reactor}s
+     * specified in the {@link ReactorGroupOptions} and starts a thread to
+     * dispatch each of them. Use
+     * {@link ReactorGroup#connect(ReactorConnectOptions, ReactorRole, ReactorErrorInfo)}
+     * or {@link ReactorGroup#accept(com.thomsonreuters.upa.transport.Server, ReactorAcceptOptions,
+     * ReactorRole, ReactorErrorInfo)} to create new {@link ReactorChannel}s in the group.
+     * 
+     * @param options
+     * @param errorInfo
+     * 
+     * @return a ReactorGroup object or null. If null, check errorInfo for additional
+     *         information regarding the failure
+     */
+    public static ReactorGroup createReactorGroup(ReactorGroupOptions options, ReactorErrorInfo errorInfo)
+    {
+        if (errorInfo == null)
+        {
+            System.out.println("ReactorFactory.createReactorGroup: ReactorErrorInfo cannot be null, reactor group not created.");
+            return null;
+        }
+
+        ReactorGroup reactorGroup = new ReactorGroup(options, errorInfo);
+        if (!reactorGroup.isShutdown())
+            return reactorGroup;
+        else
+            return null;
+    }
+
     /**
      * Create {@link ReactorErrorInfo}.
      * 
@@ -84,6 +113,18 @@ public class ReactorFactory
         return new ReactorOptions();
     }
 
+    /**
+     * Create {@link ReactorGroupOptions}.
+     * 
+     * @return {@link ReactorGroupOptions} object
+     * 
+     * @see ReactorGroupOptions
+     */
+    public static ReactorGroupOptions createReactorGroupOptions()
+    {
+        return new ReactorGroupOptions();
+    }
+
     /**
      * Create {@link ReactorConnectOptions}.
      * 
@@ -132,6 +173,18 @@ public class ReactorFactory
         return new ReactorSubmitOptions();
     }
 
+    /**
+     * Create {@link ReactorFanOutTargets}.
+     * 
+     * @return {@link ReactorFanOutTargets} object
+     * 
+     * @see ReactorFanOutTargets
+     */
+    public static ReactorFanOutTargets createReactorFanOutTargets()
+    {
+        return new ReactorFanOutTargets();
+    }
+
     /**
      * Create {@link TunnelStreamOpenOptions}.
      * 
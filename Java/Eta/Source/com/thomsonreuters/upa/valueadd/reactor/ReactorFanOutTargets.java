@@ -0,0 +1,143 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import java.util.Arrays;
+
+import com.thomsonreuters.upa.transport.TransportBuffer;
+
+/**
+ * The channels and stream ids an encoded message is written to by
+ * {@link Reactor#submit(com.thomsonreuters.upa.codec.Buffer, ReactorFanOutTargets, ReactorSubmitOptions, ReactorErrorInfo)}.
+ * After the submit, the result for each target is available from
+ * {@link #result(int)}.
+ *
+ * <p>
+ * A ReactorFanOutTargets can be cleared and re-used for each submit.
+ *
+ * @see Reactor
+ */
+public class ReactorFanOutTargets
+{
+    static final int DEFAULT_CAPACITY = 16;
+
+    ReactorChannel[] _channels = new ReactorChannel[DEFAULT_CAPACITY];
+    int[] _streamIds = new int[DEFAULT_CAPACITY];
+    int[] _results = new int[DEFAULT_CAPACITY];
+    TransportBuffer[] _pendingBuffers = new TransportBuffer[DEFAULT_CAPACITY];
+    int _count;
+
+    ReactorFanOutTargets()
+    {
+    }
+
+    /**
+     * Adds a target. The same channel may be added more than once with
+     * different stream ids.
+     *
+     * @param reactorChannel the channel to write the message to
+     * @param streamId the stream id the message is written with
+     */
+    public void add(ReactorChannel reactorChannel, int streamId)
+    {
+        if (_count == _channels.length)
+        {
+            _channels = Arrays.copyOf(_channels, _count * 2);
+            _streamIds = Arrays.copyOf(_streamIds, _count * 2);
+            _results = Arrays.copyOf(_results, _count * 2);
+            _pendingBuffers = Arrays.copyOf(_pendingBuffers, _count * 2);
+        }
+
+        _channels[_count] = reactorChannel;
+        _streamIds[_count] = streamId;
+        _results[_count] = ReactorReturnCodes.SUCCESS;
+        _count++;
+    }
+
+    /**
+     * Returns the number of targets.
+     *
+     * @return the number of targets
+     */
+    public int count()
+    {
+        return _count;
+    }
+
+    /**
+     * Returns the channel of a target.
+     *
+     * @param index the index of the target, in the order targets were added
+     *
+     * @return the channel of the target
+     */
+    public ReactorChannel reactorChannel(int index)
+    {
+        return _channels[index];
+    }
+
+    /**
+     * Returns the stream id of a target.
+     *
+     * @param index the index of the target, in the order targets were added
+     *
+     * @return the stream id of the target
+     */
+    public int streamId(int index)
+    {
+        return _streamIds[index];
+    }
+
+    /**
+     * Returns the result of the last submit for a target:
+     * {@link ReactorReturnCodes#SUCCESS} if the message was written, or
+     * {@link ReactorReturnCodes#NO_BUFFERS} if the channel had no buffer for
+     * the message, or {@link ReactorReturnCodes#WRITE_CALL_AGAIN} if the
+     * message is not completely written yet (see {@link #pendingBuffer(int)}),
+     * or another failure code if the channel could not be written.
+     *
+     * @param index the index of the target, in the order targets were added
+     *
+     * @return the {@link ReactorReturnCodes} of the target
+     */
+    public int result(int index)
+    {
+        return _results[index];
+    }
+
+    void result(int index, int result)
+    {
+        _results[index] = result;
+        _pendingBuffers[index] = null;
+    }
+
+    /**
+     * Returns the buffer of a target whose result is
+     * {@link ReactorReturnCodes#WRITE_CALL_AGAIN}. The buffer still belongs to
+     * the application, which must submit it again on the target's channel
+     * with
+     * {@link ReactorChannel#submit(TransportBuffer, ReactorSubmitOptions, ReactorErrorInfo)}
+     * until it is written, or release it.
+     *
+     * @param index the index of the target, in the order targets were added
+     *
+     * @return the buffer left to write, or null if the target has none
+     */
+    public TransportBuffer pendingBuffer(int index)
+    {
+        return _pendingBuffers[index];
+    }
+
+    void pendingBuffer(int index, TransportBuffer buffer)
+    {
+        _pendingBuffers[index] = buffer;
+    }
+
+    /**
+     * Clears the targets for re-use.
+     */
+    public void clear()
+    {
+        Arrays.fill(_channels, 0, _count, null);
+        Arrays.fill(_pendingBuffers, 0, _count, null);
+        _count = 0;
+    }
+}
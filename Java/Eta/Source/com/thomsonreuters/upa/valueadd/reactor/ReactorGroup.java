@@ -0,0 +1,339 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thomsonreuters.upa.transport.ConnectOptions;
+import com.thomsonreuters.upa.transport.Server;
+
+/**
+ * A group of {@link Reactor}s, each dispatched by its own thread with its own
+ * Selector and worker event queue, among which {@link ReactorChannel}s are
+ * sharded. This allows channel reads, decoding and callbacks to run on as many
+ * cores as there are Reactors in the group.
+ *
+ * <p>
+ * Each channel belongs to exactly one Reactor of the group for its whole
+ * lifetime, including reconnections, and all of its callbacks are called on
+ * that Reactor's thread. The Reactor of a connection is chosen from an affinity
+ * key, by default the address and service name of the first connection in its
+ * {@link ReactorConnectOptions}, so the same connection is always assigned to
+ * the same thread.
+ *
+ * <p>
+ * The group registers its channels with its Selectors and dispatches them, so
+ * the application must not register or dispatch them itself. The channel events
+ * of all channels in the group can be received from a single callback, set with
+ * {@link ReactorGroupOptions#channelEventCallback(ReactorChannelEventCallback)}.
+ *
+ * <p>
+ * Create a ReactorGroup with
+ * {@link ReactorFactory#createReactorGroup(ReactorGroupOptions, ReactorErrorInfo)}.
+ */
+public class ReactorGroup
+{
+    ReactorGroupOptions _options = new ReactorGroupOptions();
+    ReactorGroupThread[] _threads;
+    AtomicInteger _nextAcceptIndex = new AtomicInteger();
+    volatile boolean _active;
+
+    ReactorGroup(ReactorGroupOptions options, ReactorErrorInfo errorInfo)
+    {
+        if (errorInfo == null)
+        {
+            throw new UnsupportedOperationException("ReactorErrorInfo cannot be null");
+        }
+        else if (options == null)
+        {
+            populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE, "ReactorGroup.constructor",
+                              "options was null and cannot continue.");
+            return;
+        }
+
+        _options.copy(options);
+        _threads = new ReactorGroupThread[_options.reactorCount()];
+
+        for (int i = 0; i < _threads.length; i++)
+        {
+            Reactor reactor = ReactorFactory.createReactor(_options.reactorOptions(), errorInfo);
+            if (reactor == null)
+            {
+                shutdownReactors(errorInfo);
+                return;
+            }
+
+            try
+            {
+                _threads[i] = new ReactorGroupThread(this, reactor, i, _options);
+                reactor._reactorGroupThread = _threads[i];
+            }
+            catch (IOException e)
+            {
+                reactor.shutdown(errorInfo);
+                shutdownReactors(errorInfo);
+                populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE, "ReactorGroup.constructor",
+                                  "failed to open selector, exception=" + e.getLocalizedMessage());
+                return;
+            }
+        }
+
+        for (int i = 0; i < _threads.length; i++)
+            _threads[i].start();
+
+        errorInfo.clear();
+        _active = true;
+    }
+
+    /**
+     * Returns the number of Reactors in the group.
+     *
+     * @return the number of Reactors
+     */
+    public int reactorCount()
+    {
+        return _threads.length;
+    }
+
+    /**
+     * Returns the Reactor at the specified index of the group.
+     *
+     * @param index the index, from 0 to {@link #reactorCount()} - 1
+     *
+     * @return the Reactor
+     */
+    public Reactor reactor(int index)
+    {
+        return _threads[index]._reactor;
+    }
+
+    /**
+     * Returns the index of the Reactor that channels with the specified
+     * affinity key are assigned to. The same key is always assigned to the
+     * same index, for a given number of Reactors.
+     *
+     * @param affinityKey the affinity key
+     *
+     * @return the index of the Reactor
+     */
+    public int reactorIndex(String affinityKey)
+    {
+        int h = affinityKey.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h & 0x7fffffff) % _threads.length;
+    }
+
+    /**
+     * Returns the index of the Reactor that the specified channel belongs to.
+     *
+     * @param reactorChannel the channel
+     *
+     * @return the index of the Reactor, or -1 if the channel does not belong to this group
+     */
+    public int reactorIndex(ReactorChannel reactorChannel)
+    {
+        Reactor reactor = reactorChannel.reactor();
+        if (reactor == null || reactor._reactorGroupThread == null
+                || reactor._reactorGroupThread._reactorGroup != this)
+            return -1;
+
+        return reactor._reactorGroupThread._index;
+    }
+
+    /**
+     * Adds a client-side channel to the group. The channel is assigned to a
+     * Reactor based on the address and service name of the first connection
+     * in the connect options.
+     *
+     * @param reactorConnectOptions options for the connection
+     * @param role role of the channel
+     * @param errorInfo error structure to be populated in the event of an error
+     *
+     * @return {@link ReactorReturnCodes} indicating success or failure
+     *
+     * @see Reactor#connect(ReactorConnectOptions, ReactorRole, ReactorErrorInfo)
+     */
+    public int connect(ReactorConnectOptions reactorConnectOptions, ReactorRole role, ReactorErrorInfo errorInfo)
+    {
+        if (errorInfo == null)
+        {
+            System.out.println("ReactorGroup.connect(): ReactorErrorInfo cannot be null, aborting.");
+            return ReactorReturnCodes.FAILURE;
+        }
+        else if (reactorConnectOptions == null || reactorConnectOptions.connectionList().size() == 0)
+        {
+            return populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE, "ReactorGroup.connect",
+                                     "reactorConnectOptions must have at least one connection, aborting.");
+        }
+
+        return connect(reactorConnectOptions, role, affinityKey(reactorConnectOptions), errorInfo);
+    }
+
+    /**
+     * Adds a client-side channel to the group, assigning it to a Reactor based
+     * on the specified affinity key.
+     *
+     * @param reactorConnectOptions options for the connection
+     * @param role role of the channel
+     * @param affinityKey key identifying the connection
+     * @param errorInfo error structure to be populated in the event of an error
+     *
+     * @return {@link ReactorReturnCodes} indicating success or failure
+     *
+     * @see Reactor#connect(ReactorConnectOptions, ReactorRole, ReactorErrorInfo)
+     */
+    public int connect(ReactorConnectOptions reactorConnectOptions, ReactorRole role, String affinityKey, ReactorErrorInfo errorInfo)
+    {
+        if (errorInfo == null)
+        {
+            System.out.println("ReactorGroup.connect(): ReactorErrorInfo cannot be null, aborting.");
+            return ReactorReturnCodes.FAILURE;
+        }
+        else if (!_active)
+        {
+            return populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
+                                     "ReactorGroup.connect", "ReactorGroup is not active, aborting.");
+        }
+        else if (affinityKey == null)
+        {
+            return populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
+                                     "ReactorGroup.connect", "affinityKey cannot be null, aborting.");
+        }
+
+        return reactor(reactorIndex(affinityKey)).connect(reactorConnectOptions, role, errorInfo);
+    }
+
+    /**
+     * Accepts a server-side channel into the group. Accepted channels are
+     * assigned to the Reactors of the group in turn.
+     *
+     * @param server server that is accepting the channel
+     * @param reactorAcceptOptions options for accepting the connection
+     * @param role role of the channel
+     * @param errorInfo error structure to be populated in the event of an error
+     *
+     * @return {@link ReactorReturnCodes} indicating success or failure
+     *
+     * @see Reactor#accept(Server, ReactorAcceptOptions, ReactorRole, ReactorErrorInfo)
+     */
+    public int accept(Server server, ReactorAcceptOptions reactorAcceptOptions, ReactorRole role, ReactorErrorInfo errorInfo)
+    {
+        if (errorInfo == null)
+        {
+            System.out.println("ReactorGroup.accept(): ReactorErrorInfo cannot be null, aborting.");
+            return ReactorReturnCodes.FAILURE;
+        }
+        else if (!_active)
+        {
+            return populateErrorInfo(errorInfo, ReactorReturnCodes.FAILURE,
+                                     "ReactorGroup.accept", "ReactorGroup is not active, aborting.");
+        }
+
+        int index = (_nextAcceptIndex.getAndIncrement() & 0x7fffffff) % _threads.length;
+        return reactor(index).accept(server, reactorAcceptOptions, role, errorInfo);
+    }
+
+    /**
+     * Returns whether or not the ReactorGroup is shutdown.
+     *
+     * @return true if the ReactorGroup is shutdown, or false if it isn't
+     */
+    public boolean isShutdown()
+    {
+        return !_active;
+    }
+
+    /**
+     * Stops the dispatching threads and shuts down every Reactor of the group,
+     * which sends ReactorChannelEvents to all active channels indicating that
+     * they are down. Once this call is made, no further calls should be made
+     * with the group.
+     *
+     * @param errorInfo Error structure to be populated in the event of an error
+     *
+     * @return {@link ReactorReturnCodes} indicating success or failure
+     */
+    public int shutdown(ReactorErrorInfo errorInfo)
+    {
+        if (errorInfo == null)
+        {
+            System.out.println("ReactorGroup.shutdown(): ReactorErrorInfo cannot be null, aborting.");
+            return ReactorReturnCodes.FAILURE;
+        }
+
+        if (!_active)
+            return ReactorReturnCodes.SUCCESS;
+        _active = false;
+
+        for (int i = 0; i < _threads.length; i++)
+            _threads[i].stop();
+
+        return shutdownReactors(errorInfo);
+    }
+
+    /* Handles a channel event of a Reactor in the group, before it is passed to the
+     * role's callback. Keeps the Reactor's Selector up to date and forwards the event
+     * to the group's channel event callback. */
+    void channelEvent(ReactorGroupThread thread, ReactorChannelEvent event)
+    {
+        ReactorChannel reactorChannel = event.reactorChannel();
+
+        switch (event.eventType())
+        {
+            case ReactorChannelEventTypes.CHANNEL_OPENED:
+            case ReactorChannelEventTypes.CHANNEL_UP:
+                thread.registerChannel(reactorChannel);
+                break;
+            case ReactorChannelEventTypes.FD_CHANGE:
+                thread.unregisterChannel(reactorChannel.oldSelectableChannel());
+                thread.registerChannel(reactorChannel);
+                break;
+            case ReactorChannelEventTypes.CHANNEL_DOWN:
+            case ReactorChannelEventTypes.CHANNEL_DOWN_RECONNECTING:
+                thread.unregisterChannel(reactorChannel.selectableChannel());
+                break;
+            default:
+                break;
+        }
+
+        if (_options.channelEventCallback() != null)
+            _options.channelEventCallback().reactorChannelEventCallback(event);
+    }
+
+    /* Returns the default affinity key of a connection: the address and service
+     * name of its first connection. */
+    String affinityKey(ReactorConnectOptions reactorConnectOptions)
+    {
+        ConnectOptions connectOptions = reactorConnectOptions.connectionList().get(0).connectOptions();
+        return connectOptions.unifiedNetworkInfo().address() + ":" + connectOptions.unifiedNetworkInfo().serviceName();
+    }
+
+    /* Shuts down the Reactors created so far and closes their Selectors. */
+    int shutdownReactors(ReactorErrorInfo errorInfo)
+    {
+        int retval = ReactorReturnCodes.SUCCESS;
+
+        for (int i = 0; i < _threads.length; i++)
+        {
+            if (_threads[i] == null)
+                continue;
+
+            int ret = _threads[i]._reactor.shutdown(errorInfo);
+            if (ret < ReactorReturnCodes.SUCCESS)
+                retval = ret;
+            _threads[i].close();
+        }
+
+        return retval;
+    }
+
+    /* Clears then populates the specified errorInfo object. */
+    int populateErrorInfo(ReactorErrorInfo errorInfo, int reactorReturnCode, String location, String text)
+    {
+        errorInfo.clear();
+        errorInfo.code(reactorReturnCode).location(location);
+        errorInfo.error().errorId(reactorReturnCode);
+        if (text != null)
+            errorInfo.error().text(text);
+        return reactorReturnCode;
+    }
+}
@@ -0,0 +1,162 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+/**
+ * ReactorGroupOptions to be used in the {@link ReactorFactory#createReactorGroup(ReactorGroupOptions,
+ * ReactorErrorInfo)} call.
+ */
+public class ReactorGroupOptions
+{
+    ReactorOptions _reactorOptions = new ReactorOptions();
+    int _reactorCount = Runtime.getRuntime().availableProcessors();
+    ReactorChannelEventCallback _channelEventCallback = null;
+    int _selectTimeout = 100;
+    int _maxMessages = 100;
+
+    ReactorGroupOptions()
+    {
+        // empty constructor
+    }
+
+    /**
+     * Returns the options used to create each {@link Reactor} of the group.
+     *
+     * @return the ReactorOptions
+     */
+    public ReactorOptions reactorOptions()
+    {
+        return _reactorOptions;
+    }
+
+    /**
+     * Sets the number of Reactors, and therefore dispatching threads, in the group.
+     * Default is the number of available processors.
+     *
+     * @param reactorCount the number of Reactors
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS} if the reactorCount is
+     *         positive, otherwise {@link ReactorReturnCodes#PARAMETER_OUT_OF_RANGE}.
+     */
+    public int reactorCount(int reactorCount)
+    {
+        if (reactorCount <= 0)
+            return ReactorReturnCodes.PARAMETER_OUT_OF_RANGE;
+
+        _reactorCount = reactorCount;
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /**
+     * Returns the number of Reactors in the group.
+     *
+     * @return the number of Reactors
+     */
+    public int reactorCount()
+    {
+        return _reactorCount;
+    }
+
+    /**
+     * Specifies a callback that receives the channel events of every channel in
+     * the group, in addition to the channel event callback of the channel's role.
+     * It is called before the role's callback and its return value is ignored.
+     * Since each Reactor of the group dispatches on its own thread, this callback
+     * may be called concurrently and must be thread safe.
+     *
+     * @param channelEventCallback the callback, or null for none
+     */
+    public void channelEventCallback(ReactorChannelEventCallback channelEventCallback)
+    {
+        _channelEventCallback = channelEventCallback;
+    }
+
+    /**
+     * Returns the callback that receives the channel events of every channel in the group.
+     *
+     * @return the channel event callback
+     */
+    public ReactorChannelEventCallback channelEventCallback()
+    {
+        return _channelEventCallback;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, a dispatching thread waits for
+     * channel activity before checking whether the group is shutting down.
+     * Default is 100.
+     *
+     * @param selectTimeout the select timeout in milliseconds
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS} if the selectTimeout is
+     *         positive, otherwise {@link ReactorReturnCodes#PARAMETER_OUT_OF_RANGE}.
+     */
+    public int selectTimeout(int selectTimeout)
+    {
+        if (selectTimeout <= 0)
+            return ReactorReturnCodes.PARAMETER_OUT_OF_RANGE;
+
+        _selectTimeout = selectTimeout;
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /**
+     * Returns the select timeout in milliseconds.
+     *
+     * @return the select timeout
+     */
+    public int selectTimeout()
+    {
+        return _selectTimeout;
+    }
+
+    /**
+     * Sets the maximum number of messages a dispatching thread processes from
+     * a channel before moving on to the next channel with activity. Default is 100.
+     *
+     * @param maxMessages the maximum number of messages
+     *
+     * @return {@link ReactorReturnCodes#SUCCESS} if the maxMessages is
+     *         positive, otherwise {@link ReactorReturnCodes#PARAMETER_OUT_OF_RANGE}.
+     */
+    public int maxMessages(int maxMessages)
+    {
+        if (maxMessages <= 0)
+            return ReactorReturnCodes.PARAMETER_OUT_OF_RANGE;
+
+        _maxMessages = maxMessages;
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /**
+     * Returns the maximum number of messages processed from a channel at a time.
+     *
+     * @return the maximum number of messages
+     */
+    public int maxMessages()
+    {
+        return _maxMessages;
+    }
+
+    /**
+     * Clears this object for reuse.
+     */
+    public void clear()
+    {
+        _reactorOptions.clear();
+        _reactorCount = Runtime.getRuntime().availableProcessors();
+        _channelEventCallback = null;
+        _selectTimeout = 100;
+        _maxMessages = 100;
+    }
+
+    /*
+     * Performs a deep copy from a specified ReactorGroupOptions into this ReactorGroupOptions.
+     */
+    void copy(ReactorGroupOptions options)
+    {
+        _reactorOptions.copy(options._reactorOptions);
+        _reactorCount = options._reactorCount;
+        _channelEventCallback = options._channelEventCallback;
+        _selectTimeout = options._selectTimeout;
+        _maxMessages = options._maxMessages;
+    }
+}
@@ -0,0 +1,244 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/* Dispatching thread of a ReactorGroup. Owns one Reactor and the Selector on which
+ * the Reactor's own channel and all of its ReactorChannels are registered. */
+class ReactorGroupThread implements Runnable
+{
+    ReactorGroup _reactorGroup;
+    Reactor _reactor;
+    int _index;
+    volatile Selector _selector;
+    Thread _thread;
+    volatile boolean _running;
+    int _selectTimeout;
+    ReactorDispatchOptions _dispatchOptions = ReactorFactory.createReactorDispatchOptions();
+    ReactorErrorInfo _errorInfo = ReactorFactory.createReactorErrorInfo();
+
+    /* ReactorChannels to register with the Selector, queued by other threads since
+     * registering blocks while this thread is in select(). */
+    ConcurrentLinkedQueue<ReactorChannel> _pendingRegistrations = new ConcurrentLinkedQueue<ReactorChannel>();
+
+    ReactorGroupThread(ReactorGroup reactorGroup, Reactor reactor, int index, ReactorGroupOptions options) throws IOException
+    {
+        _reactorGroup = reactorGroup;
+        _reactor = reactor;
+        _index = index;
+        _selectTimeout = options.selectTimeout();
+        _dispatchOptions.maxMessages(options.maxMessages());
+        _selector = Selector.open();
+        _reactor.reactorChannel().selectableChannel().register(_selector, SelectionKey.OP_READ, _reactor.reactorChannel());
+        _thread = new Thread(this, "ReactorGroup-" + index);
+    }
+
+    void start()
+    {
+        _running = true;
+        _thread.start();
+    }
+
+    /* Stops the thread and waits for it to exit. */
+    void stop()
+    {
+        _running = false;
+        _selector.wakeup();
+
+        if (Thread.currentThread() == _thread)
+            return;
+
+        try
+        {
+            _thread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void close()
+    {
+        try
+        {
+            _selector.close();
+        }
+        catch (IOException e)
+        {
+        }
+    }
+
+    /* Registers the channel's current selectable channel with the Selector. */
+    void registerChannel(ReactorChannel reactorChannel)
+    {
+        if (Thread.currentThread() == _thread)
+            register(reactorChannel);
+        else
+        {
+            _pendingRegistrations.add(reactorChannel);
+            _selector.wakeup();
+        }
+    }
+
+    /* Cancels the registration of a selectable channel with the Selector. */
+    void unregisterChannel(SelectableChannel selectableChannel)
+    {
+        if (selectableChannel == null)
+            return;
+
+        SelectionKey key = selectableChannel.keyFor(_selector);
+        if (key != null)
+            key.cancel();
+    }
+
+    private void register(ReactorChannel reactorChannel)
+    {
+        SelectableChannel selectableChannel = reactorChannel.selectableChannel();
+        if (selectableChannel == null || reactorChannel.state() == ReactorChannel.State.CLOSED)
+            return;
+
+        try
+        {
+            selectableChannel.register(_selector, SelectionKey.OP_READ, reactorChannel);
+        }
+        catch (ClosedChannelException e)
+        {
+            // channel was closed before it could be registered; its down event follows
+        }
+        catch (CancelledKeyException e)
+        {
+            // previous key is still being deregistered; retry on the next pass
+            _pendingRegistrations.add(reactorChannel);
+        }
+    }
+
+    /* Replaces a Selector that failed with a new one, registering the Reactor's own
+     * channel and every ReactorChannel of the old Selector with it. */
+    private boolean reopenSelector()
+    {
+        Selector oldSelector = _selector;
+        Selector newSelector;
+
+        try
+        {
+            newSelector = Selector.open();
+            _reactor.reactorChannel().selectableChannel().register(newSelector, SelectionKey.OP_READ, _reactor.reactorChannel());
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+
+        try
+        {
+            for (SelectionKey key : oldSelector.keys())
+            {
+                if (key.isValid() && key.attachment() != _reactor.reactorChannel())
+                    _pendingRegistrations.add((ReactorChannel)key.attachment());
+            }
+        }
+        catch (ClosedSelectorException e)
+        {
+            // nothing can be recovered from a closed Selector
+            try
+            {
+                newSelector.close();
+            }
+            catch (IOException e1)
+            {
+            }
+            return false;
+        }
+
+        _selector = newSelector;
+
+        try
+        {
+            oldSelector.close();
+        }
+        catch (IOException e)
+        {
+        }
+
+        return true;
+    }
+
+    @Override
+    public void run()
+    {
+        ReactorChannel reactorChannel;
+        boolean selectFailed = false;
+
+        while (_running)
+        {
+            // a channel may be queued again by register(), so only take what is there now
+            for (int count = _pendingRegistrations.size(); count > 0; --count)
+            {
+                if ((reactorChannel = _pendingRegistrations.poll()) == null)
+                    break;
+                register(reactorChannel);
+            }
+
+            Set<SelectionKey> keySet = null;
+            try
+            {
+                if (_selector.select(_selectTimeout) > 0)
+                    keySet = _selector.selectedKeys();
+                selectFailed = false;
+            }
+            catch (IOException e)
+            {
+                if (!_running)
+                    break;
+
+                // rebuild the Selector once; if select() fails again straight away, the
+                // group can no longer service its channels, so shut the Reactor down,
+                // which reports the failure to the application in CHANNEL_DOWN events
+                if (selectFailed || !reopenSelector())
+                {
+                    _reactor.populateErrorInfo(_errorInfo, ReactorReturnCodes.FAILURE, "ReactorGroupThread.run",
+                                               "select() failed, exception=" + e.getLocalizedMessage());
+                    _running = false;
+                    _reactor.shutdown(_errorInfo);
+                    break;
+                }
+                selectFailed = true;
+                continue;
+            }
+
+            if (!_running || keySet == null)
+                continue;
+
+            Iterator<SelectionKey> iter = keySet.iterator();
+            while (iter.hasNext())
+            {
+                SelectionKey key = iter.next();
+                iter.remove();
+                try
+                {
+                    if (key.isReadable())
+                    {
+                        reactorChannel = (ReactorChannel)key.attachment();
+
+                        // dispatch until no more messages; channel failures are reported
+                        // through channel events, so there is nothing more to do here
+                        while (_running && !_reactor.isShutdown()
+                                && reactorChannel.dispatch(_dispatchOptions, _errorInfo) > 0);
+                    }
+                }
+                catch (CancelledKeyException e)
+                {
+                } // key can be canceled when the channel goes down
+            }
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.thomsonreuters.upa.valueadd.reactor;
 
 import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.TimeZone;
 
 import com.thomsonreuters.upa.codec.Buffer;
@@ -32,6 +32,7 @@ import com.thomsonreuters.upa.transport.TransportFactory;
 import com.thomsonreuters.upa.transport.TransportReturnCodes;
 import com.thomsonreuters.upa.transport.WriteArgs;
 import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList;
+import com.thomsonreuters.upa.valueadd.common.VaIntHashMap;
 import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList.Link;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.MsgBase;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.login.LoginMsg;
@@ -82,14 +83,15 @@ public class TunnelStream
     int _guaranteedOutputBuffers;
 	Object _userSpecObject;
 	boolean _isProvider;
-    WlInteger _tempWlInteger = ReactorFactory.createWlInteger();
-    WlInteger _tableKey;
     ReactorSubmitOptions _reactorSubmitOptions = ReactorFactory.createReactorSubmitOptions();
 
     static final int DEFAULT_RECV_WINDOW = CosCommon.DEFAULT_MAX_MSG_SIZE * 2;
 
     static final int CONTAINER_TYPE_POSITION = 9; 
 
+    /* Each message in a batch is preceded by its container type (one byte) and length (two bytes). */
+    static final int BATCH_ENTRY_HEADER_LEN = 3;
+
     /* Reusable memory for stream-level retransmission. */
     SlicedBufferPool                        _bufferPool;
 
@@ -139,6 +141,11 @@ public class TunnelStream
 	AckRangeList	_sendNakRangeList;
 	AckRangeList	_recvNakRangeList;
 	AckRangeList	_recvAckRangeList;
+
+    /* Batch of small messages being filled, not yet queued for transmission, and when it was started. */
+    TunnelStreamBuffer _batchBuffer;
+    long _batchStartNsec;
+    Buffer _batchEntryBuffer; /* Used for reading each message of a received batch. */
 	
 	/* Counts the number of queued/unacked outbound application buffers
 	 * (the outbound lists contain both application-encoded buffers and
@@ -190,10 +197,43 @@ public class TunnelStream
 	int _recvLastSeqNum;
 	int _recvLastSeqNumAckSent;
 	boolean _firstIsSendWindowOpenCall;
+
+    /* Delayed acknowledgement: messages and bytes received since the last ack, and the
+     * time the first of them was received. */
+    int _recvMsgsSinceAck;
+    int _recvBytesSinceAck;
+    long _firstUnackedRecvTimeNsec;
+
+    /* Start and end of the last retransmission range requested, and when. */
+    int _lastNakStartSeqNum;
+    int _lastNakEndSeqNum;
+    long _lastNakTimeNsec;
+
+    /* Receive window advertised when auto-tuned, or 0 to advertise the negotiated one. */
+    int _tunedRecvWindowSize;
+
+    /* Bytes received since the current receive window measurement started, and when. */
+    long _recvMeasureBytes;
+    long _recvMeasureStartNsec;
+
+    /* Receive window in force when the measurement started, and the round trip estimate used
+     * when ours is not yet known (the shortest time taken to receive a full window). */
+    int _recvMeasureWindowSize;
+    long _recvRttEstimateNsec;
+
+    /* Smoothed round trip time of our messages, and the message currently timed. */
+    long _smoothedRttNsec;
+    boolean _rttSamplePending;
+    int _rttSampleSeqNum;
+    long _rttSampleTimeNsec;
 	
 	boolean _providerLoginRefreshSent;
 		
-	HashMap<Integer,TunnelSubstream> _streamIdtoQueueSubstreamTable;
+	VaIntHashMap<TunnelSubstream> _streamIdtoQueueSubstreamTable;
+
+	/* Persistence files modified since they were last committed. Includes the files of substreams
+	 * that are closing, which are no longer in _streamIdtoQueueSubstreamTable. */
+	ArrayList<TunnelStreamPersistenceFile> _uncommittedPersistenceFiles;
 	
 	TransportBuffer _writeCallAgainBuffer;
 	
@@ -247,6 +287,9 @@ public class TunnelStream
         _serviceId = event.serviceId();
         _guaranteedOutputBuffers = options.guaranteedOutputBuffers();
         options.classOfService().copy(_classOfService);
+        /* Only batch messages if the consumer accepts them. */
+        if (!event.classOfService().common().msgBatching())
+            _classOfService.common().msgBatching(false);
         _defaultMsgCallback = options.defaultMsgCallback();
         _statusEventCallback = options.statusEventCallback();
         _name = event.name();
@@ -289,6 +332,7 @@ public class TunnelStream
 		 	        
 		_tunnelStreamHdr = (GenericMsg)CodecFactory.createMsg();
 		_tmpBuffer = CodecFactory.createBuffer();
+		_batchEntryBuffer = CodecFactory.createBuffer();
 		_sendNakRangeList = new AckRangeList();
 		_recvAckRangeList = new AckRangeList();
 		_recvNakRangeList = new AckRangeList();
@@ -313,7 +357,8 @@ public class TunnelStream
 		_traceDateFormat = new SimpleDateFormat("dd MMM yyyy HH:mm:ss.SSS");
 		_traceDateFormat.setTimeZone(_traceTimeZone);
 		
-		_streamIdtoQueueSubstreamTable = new HashMap<Integer,TunnelSubstream>();
+		_streamIdtoQueueSubstreamTable = new VaIntHashMap<TunnelSubstream>();
+		_uncommittedPersistenceFiles = new ArrayList<TunnelStreamPersistenceFile>();
 		
 		_receivedFinAck = false;
 		_receivedFinalFin = false;	
@@ -828,8 +873,7 @@ public class TunnelStream
         close(finalStatusEvent, errorInfo.error());
 
         // find and remove TunnelStream from table for this streamId
-        _tempWlInteger.value(_streamId);
-        if (_reactorChannel.streamIdtoTunnelStreamTable().containsKey(_tempWlInteger))
+        if (_reactorChannel.streamIdtoTunnelStreamTable().containsKey(_streamId))
         { 
             if (_reactorChannel.tunnelStreamManager().needsDispatchNow())
             {
@@ -1239,22 +1283,42 @@ public class TunnelStream
             while ((tunnelStreamBuffer = _outboundMsgAckList.pop(TunnelStreamBuffer.RETRANS_LINK)) != null)
                 releaseBuffer(tunnelStreamBuffer, error);
 
+            if (_batchBuffer != null)
+            {
+                releaseBuffer(_batchBuffer, error);
+                _batchBuffer = null;
+            }
+
 
             _outboundTimeoutList.clear();
             _outboundImmediateList.clear();
+            commitPersistence();
     		_tunnelStreamState = TunnelStreamState.NOT_OPEN;
     		_sendLastSeqNum = 0;
     		_recvLastSeqNum = 0;
     		_recvLastSeqNumAckSent = 0;
     		_sendLastSeqNumNaked = 0;
     		_sendNakRangeList.count(0);
+    		_recvMsgsSinceAck = 0;
+    		_recvBytesSinceAck = 0;
+    		_lastNakStartSeqNum = 0;
+    		_lastNakEndSeqNum = 0;
+    		_tunedRecvWindowSize = 0;
+    		_recvMeasureBytes = 0;
+    		_recvMeasureStartNsec = 0;
+    		_recvMeasureWindowSize = 0;
+    		_recvRttEstimateNsec = 0;
+    		_smoothedRttNsec = 0;
+    		_rttSamplePending = false;
     		
     		_firstIsSendWindowOpenCall = false;
     
 
-    	    for (TunnelSubstream substreamSession : _streamIdtoQueueSubstreamTable.values())
+    	    for (int i = 0; i < _streamIdtoQueueSubstreamTable.capacity(); i++)
     	    {
-    	        ret = substreamSession.close(error);
+    	        TunnelSubstream substreamSession = _streamIdtoQueueSubstreamTable.valueAt(i);
+    	        if (substreamSession != null)
+    	            ret = substreamSession.close(error);
     	    }
             _streamIdtoQueueSubstreamTable.clear();
         }
@@ -1282,6 +1346,9 @@ public class TunnelStream
 
 		_finalStatusEvent = finalStatusEvent; 
 
+        /* Send any messages waiting in a batch before closing. */
+        flushBatch();
+
         _reactorChannel.tunnelStreamManager().removeTunnelStreamFromTimeoutList(this);
 
 		_reactorChannel.tunnelStreamManager().addTunnelStreamToDispatchList(this);
@@ -1330,17 +1397,44 @@ public class TunnelStream
 	}
 
 	
+    /* Releases the messages of a substream that were recovered from its persistence file
+     * and queued for retransmission, but not loaded yet. Called when the file is closed,
+     * after which they can no longer be loaded. They remain in the file, and are recovered
+     * again if the queue stream is reopened. */
+    void releaseUnloadedBuffers(TunnelSubstream substream, Error error)
+    {
+        TunnelStreamBuffer tunnelBuffer;
+
+        for (tunnelBuffer = _outboundTransmitList.start(TunnelStreamBuffer.RETRANS_LINK);
+                tunnelBuffer != null;
+                tunnelBuffer = _outboundTransmitList.forth(TunnelStreamBuffer.RETRANS_LINK))
+        {
+            if (tunnelBuffer.data() == null && tunnelBuffer.tunnelSubstream() == substream)
+            {
+                _outboundTransmitList.remove(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                releaseBuffer(tunnelBuffer, error);
+            }
+        }
+    }
+
 	int releaseBuffer(TunnelStreamBuffer buffer, Error error)
 	{
         buffer.persistenceBuffer(null, null);
 		
-        _bufferPool.releaseBufferSlice(buffer);
+        /* Buffers recovered from a persistence file may not have been loaded yet. */
+        if (buffer.data() != null)
+            _bufferPool.releaseBufferSlice(buffer);
         _tunnelStreamBufferPool.push(buffer, TunnelStreamBuffer.RETRANS_LINK);
         
 		return ReactorReturnCodes.SUCCESS;
 	}
 	
     TunnelStreamBuffer getBuffer(int length, boolean isForUser, boolean addTunnelStreamHeader, Error error)
+    {
+        return getBuffer(length, isForUser, addTunnelStreamHeader, TunnelStreamMsg.DataFlags.NONE, error);
+    }
+
+    TunnelStreamBuffer getBuffer(int length, boolean isForUser, boolean addTunnelStreamHeader, int dataFlags, Error error)
     {
         TunnelStreamBuffer tunnelBuffer = null;
         int ret;
@@ -1376,7 +1470,8 @@ public class TunnelStream
             /* Use channel-facing stream ID (so message can go directly to the channel even if watchlist is enabled. */
             _tunnelStreamHdr.streamId(_channelStreamId);
             _tunnelStreamHdr.domainType(domainType());
-            _tunnelStreamHdr.containerType(DataTypes.MSG);
+            /* A batch's container type is that of its content (messages of any container type). */
+            _tunnelStreamHdr.containerType((dataFlags & TunnelStreamMsg.DataFlags.BATCH) != 0 ? DataTypes.OPAQUE : DataTypes.MSG);
             _tunnelStreamHdr.applyHasExtendedHdr();
             _tunnelStreamHdr.applyMessageComplete();
             _tunnelStreamHdr.applyHasSeqNum();
@@ -1399,7 +1494,7 @@ public class TunnelStream
                 return null;
             }
             
-            if (_tmpBuffer.length() < 1)
+            if (_tmpBuffer.length() < ((dataFlags != TunnelStreamMsg.DataFlags.NONE) ? 2 : 1))
             {
                 releaseBuffer(tunnelBuffer, error);
                 error.errorId(ReactorReturnCodes.FAILURE);
@@ -1408,6 +1503,8 @@ public class TunnelStream
             }
             
             _tmpBuffer.data().put((byte)OpCodes.DATA);
+            if (dataFlags != TunnelStreamMsg.DataFlags.NONE)
+                _tmpBuffer.data().put((byte)dataFlags);
     
             if ((ret = _encIter.encodeNonRWFComplete(_tmpBuffer, true)) != CodecReturnCodes.SUCCESS)
             {
@@ -1478,6 +1575,8 @@ public class TunnelStream
             
             if (substreamSession != null) // queue message
             {
+                /* Queue messages are not batched; keep them in order with any batched messages. */
+                flushBatch();
                     
                 // now set required info on BufferImpl
                 switch (_decSubMsg.msgClass())
@@ -1598,6 +1697,8 @@ public class TunnelStream
                         error.text("");
                         error.errorId(ReactorReturnCodes.SUCCESS);
     
+                        flushBatch();
+
                         // open substream
                         return openSubstream(_queueRequest, error);
                     }
@@ -1632,16 +1733,25 @@ public class TunnelStream
                         }
                     }
                     
-                    // replace container type if not a message
-                    if (containerType != DataTypes.MSG)
+                    if (isBatchable(tunnelBuffer))
                     {
-                        tunnelBuffer.setAsFullReadBuffer();
-                        tunnelBuffer.data().put(tunnelBuffer.data().position() + CONTAINER_TYPE_POSITION,
-                                              (byte)(containerType - DataTypes.CONTAINER_TYPE_MIN));
+                        if ((ret = addToBatch(tunnelBuffer, containerType, error)) != ReactorReturnCodes.SUCCESS)
+                            return ret;
                     }
+                    else
+                    {
+                        // replace container type if not a message
+                        if (containerType != DataTypes.MSG)
+                        {
+                            tunnelBuffer.setAsFullReadBuffer();
+                            tunnelBuffer.data().put(tunnelBuffer.data().position() + CONTAINER_TYPE_POSITION,
+                                                  (byte)(containerType - DataTypes.CONTAINER_TYPE_MIN));
+                        }
 
-                    tunnelBuffer.setToFullWritebuffer();
-                    _outboundTransmitList.push(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                        flushBatch();
+                        tunnelBuffer.setToFullWritebuffer();
+                        _outboundTransmitList.push(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                    }
                     
                     error.text("");
                     error.errorId(ReactorReturnCodes.SUCCESS);
@@ -1690,6 +1800,83 @@ public class TunnelStream
         return _decSubMsg.decode(_decSubIter);
     }
 
+    /* Determine if a submitted message is small enough to be batched. */
+    boolean isBatchable(TunnelStreamBuffer tunnelBuffer)
+    {
+        return _classOfService.common().msgBatching()
+                && tunnelBuffer.innerWriteBufferLength() <= Math.min(_classOfService.common().maxMsgSize() / 4, 0xffff);
+    }
+
+    /* Copies a submitted message into the current batch, starting a new batch if it is full or
+     * there is none, and releases the submitted buffer. */
+    int addToBatch(TunnelStreamBuffer tunnelBuffer, int containerType, Error error)
+    {
+        int length = tunnelBuffer.innerWriteBufferLength();
+
+        if (_batchBuffer != null && _batchBuffer.data().remaining() < BATCH_ENTRY_HEADER_LEN + length)
+            flushBatch();
+
+        if (_batchBuffer == null)
+        {
+            if ((_batchBuffer = getBuffer(_classOfService.common().maxMsgSize(), false, true, TunnelStreamMsg.DataFlags.BATCH, error)) == null)
+                return error.errorId();
+
+            _batchStartNsec = System.nanoTime();
+            if (_classOfService.common().msgBatchLingerTime() > 0)
+                updateTimeout(_batchStartNsec);
+        }
+
+        ByteBuffer batchData = _batchBuffer.data();
+        batchData.put((byte)(containerType - DataTypes.CONTAINER_TYPE_MIN));
+        batchData.putShort((short)length);
+        tunnelBuffer.setAsInnerReadBuffer();
+        batchData.put(tunnelBuffer.data());
+        _batchBuffer.setCurrentPositionAsEndOfEncoding();
+
+        releaseBuffer(tunnelBuffer, error);
+
+        /* Nothing more will fit. */
+        if (batchData.remaining() <= BATCH_ENTRY_HEADER_LEN)
+            flushBatch();
+
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /* Queues the current batch, if any, for transmission. */
+    void flushBatch()
+    {
+        if (_batchBuffer == null)
+            return;
+
+        _batchBuffer.setToFullWritebuffer();
+        _outboundTransmitList.push(_batchBuffer, TunnelStreamBuffer.RETRANS_LINK);
+        _batchBuffer = null;
+    }
+
+    /* Time at which the current batch is due to be sent, or 0 if it is sent on the next dispatch. */
+    long batchTimeoutNsec()
+    {
+        if (_batchBuffer == null || _classOfService.common().msgBatchLingerTime() <= 0)
+            return 0;
+
+        return _batchStartNsec + _classOfService.common().msgBatchLingerTime() * 1000L;
+    }
+
+    /* Records that a persistence file was modified, so that it is committed by the next call to commitPersistence(). */
+    void persistenceFileModified(TunnelStreamPersistenceFile persistFile)
+    {
+        _uncommittedPersistenceFiles.add(persistFile);
+    }
+
+    /* Commits any pending updates to the persistence files of the queue substreams,
+     * including those of substreams that are closing. */
+    void commitPersistence()
+    {
+        for (int i = 0; i < _uncommittedPersistenceFiles.size(); i++)
+            _uncommittedPersistenceFiles.get(i).commit();
+        _uncommittedPersistenceFiles.clear();
+    }
+
 	int dispatch(Error error)
 	{
 		int ret = ReactorReturnCodes.SUCCESS;
@@ -1804,12 +1991,16 @@ public class TunnelStream
     
     			case STREAM_OPEN:
     			{
+                    long currentTimeNsec = System.nanoTime();
+                    boolean isNakDue = isNakDue(currentTimeNsec);
+
                     /* Check if we can send stream acknowledgements. */
-                    if ( _recvLastSeqNum != _recvLastSeqNumAckSent
+                    if ( (_recvLastSeqNum != _recvLastSeqNumAckSent && isAckDue(currentTimeNsec))
                             || 
                             /* Or do we need retransmissions? */
-                            _sendNakRangeList.count() > 0)
+                            isNakDue)
                     {
+                        AckRangeList nakRangeList = isNakDue ? _sendNakRangeList : null;
                         /* Acknowledge some received data or request retransmission. */
     
                         TunnelStreamMsg.TunnelStreamAck ackHeader = (TunnelStreamMsg.TunnelStreamAck)_tunnelStreamMsg;
@@ -1819,9 +2010,9 @@ public class TunnelStream
                         _tunnelStreamMsg.streamId(_channelStreamId);
                         _tunnelStreamMsg.domainType(_domainType);;
                         ackHeader.seqNum(_recvLastSeqNum);
-                        ackHeader.recvWindow(_classOfService.flowControl().recvWindowSize());
+                        ackHeader.recvWindow(recvWindowSize());
     
-                        TransportBuffer tBuffer = getChannelBuffer(ackHeader.ackBufferSize(_sendNakRangeList), false, error);
+                        TransportBuffer tBuffer = getChannelBuffer(ackHeader.ackBufferSize(nakRangeList), false, error);
     
                         if (tBuffer == null)
                             return error.errorId();
@@ -1831,7 +2022,7 @@ public class TunnelStream
                         _encIter.clear();
                         _encIter.setBufferAndRWFVersion(tBuffer, _classOfService.common().protocolMajorVersion(), _classOfService.common().protocolMinorVersion());
     
-                        if ((ret = ackHeader.encodeAck(_encIter, null, _sendNakRangeList, 0)) != CodecReturnCodes.SUCCESS)
+                        if ((ret = ackHeader.encodeAck(_encIter, null, nakRangeList, 0)) != CodecReturnCodes.SUCCESS)
                         {
                             error.errorId(ret);
                             error.text("Failed to encode TunnelStream ACK message.");
@@ -1845,7 +2036,7 @@ public class TunnelStream
                                     + _recvLastSeqNum + " acked in, "
                                     + _sendLastSeqNum + " out, "
                                     + _sendLastSeqNumAcked +  " acked out, "
-                                    + _classOfService.flowControl().recvWindowSize() + " recvWindow -->");
+                                    + recvWindowSize() + " recvWindow -->");
     
                         if ((_traceFlags & TunnelStreamTraceFlags.MSGS) > 0)
                             traceBufferToXml(tBuffer);
@@ -1855,14 +2046,28 @@ public class TunnelStream
                             return ret;
     
                         _recvLastSeqNumAckSent = _recvLastSeqNum;
+                        _recvMsgsSinceAck = 0;
+                        _recvBytesSinceAck = 0;
     
                         if (ret > TransportReturnCodes.SUCCESS)
                             _reactorChannel.tunnelStreamManager().setNeedsFlush();
     
                         /* Reset nak ranges, if nak ranges were sent. */
-                        _sendNakRangeList.count(0);
+                        if (isNakDue)
+                        {
+                            /* Holdoff restarts only when the whole gap was requested. */
+                            if (_sendNakRangeList.rangeArray()[0] == _recvLastSeqNum + 1)
+                                _lastNakTimeNsec = currentTimeNsec;
+                            _lastNakStartSeqNum = _recvLastSeqNum + 1;
+                            _lastNakEndSeqNum = _sendNakRangeList.rangeArray()[1];
+                            _sendNakRangeList.count(0);
+                        }
                     }
                     
+                    /* Send the current batch if it is not waiting for more messages. */
+                    if (_batchBuffer != null && (batchTimeoutNsec() == 0 || batchTimeoutNsec() - currentTimeNsec <= 0))
+                        flushBatch();
+
                     if ((ret = handleTransmit(error)) != ReactorReturnCodes.SUCCESS)
                     {
                     	return ret;
@@ -1875,7 +2080,7 @@ public class TunnelStream
                     else
                         _reactorChannel.tunnelStreamManager().removeTunnelStreamFromDispatchList(this);
 
-                    updateTimeout(System.nanoTime());
+                    updateTimeout(currentTimeNsec);
     
                     return ReactorReturnCodes.SUCCESS;
     			}    
@@ -1908,9 +2113,11 @@ public class TunnelStream
     					}
     				}
     				
-                    for (Integer substreamId : _streamIdtoQueueSubstreamTable.keySet())
+                    for (int i = 0; i < _streamIdtoQueueSubstreamTable.capacity(); i++)
                     {
-                        if ((ret = closeSubstream(substreamId.intValue(), error)) != ReactorReturnCodes.SUCCESS)
+                        if (_streamIdtoQueueSubstreamTable.valueAt(i) == null)
+                            continue;
+                        if ((ret = closeSubstream(_streamIdtoQueueSubstreamTable.keyAt(i), error)) != ReactorReturnCodes.SUCCESS)
                             return ret;
                     }
                     _streamIdtoQueueSubstreamTable.clear();
@@ -1948,7 +2155,7 @@ public class TunnelStream
                     	ackHeader.seqNum(_sendLastSeqNum);                    	
                     	_hasFinSent = true;
                     }
-                    ackHeader.recvWindow(_classOfService.flowControl().recvWindowSize());
+                    ackHeader.recvWindow(recvWindowSize());
 
                     TransportBuffer tBuffer = getChannelBuffer(ackHeader.ackBufferSize(_sendNakRangeList), false, error);
 
@@ -1992,7 +2199,7 @@ public class TunnelStream
                     _tunnelStreamMsg.streamId(_channelStreamId);
                     _tunnelStreamMsg.domainType(_domainType);
                     ackHeader.seqNum(_recvLastSeqNum);
-                    ackHeader.recvWindow(_classOfService.flowControl().recvWindowSize());
+                    ackHeader.recvWindow(recvWindowSize());
 
                     tBuffer = getChannelBuffer(ackHeader.ackBufferSize(_sendNakRangeList), false, error);
 
@@ -2033,7 +2240,7 @@ public class TunnelStream
                     	ackHeader.seqNum(_sendLastSeqNum);
                     	_hasFinSent = true;
                     }
-                    ackHeader.recvWindow(_classOfService.flowControl().recvWindowSize());
+                    ackHeader.recvWindow(recvWindowSize());
 
                     tBuffer = getChannelBuffer(ackHeader.ackBufferSize(_sendNakRangeList), false, error);
 
@@ -2093,7 +2300,7 @@ public class TunnelStream
                     	ackHeader.seqNum(_sendLastSeqNum);
                     }
                     
-                    ackHeader.recvWindow(_classOfService.flowControl().recvWindowSize());
+                    ackHeader.recvWindow(recvWindowSize());
 
                     tBuffer = getChannelBuffer(ackHeader.ackBufferSize(_sendNakRangeList), false, error);
 
@@ -2143,7 +2350,7 @@ public class TunnelStream
                     _tunnelStreamMsg.streamId(_channelStreamId);
                     _tunnelStreamMsg.domainType(_domainType);
                     ackHeader.seqNum(_receivedFinalFinSeqNum);
-                    ackHeader.recvWindow(_classOfService.flowControl().recvWindowSize());
+                    ackHeader.recvWindow(recvWindowSize());
                     
                     tBuffer = getChannelBuffer(ackHeader.ackBufferSize(_sendNakRangeList), false, error);
 
@@ -2256,6 +2463,39 @@ public class TunnelStream
             if (_writeCallAgainBuffer != null)
                 break;
 
+            if (tunnelBuffer.data() == null)
+            {
+                if (!tunnelBuffer.tunnelSubstream().hasPersistenceFile())
+                {
+                    /* The substream closed its persistence file before this message could be loaded.
+                     * It remains in the file, and is recovered again if the queue stream is reopened. */
+                    _outboundTransmitList.remove(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                    releaseBuffer(tunnelBuffer, error);
+                    continue;
+                }
+
+                /* Message recovered from the persistence file and queued without its data.
+                 * Load it now that it is next to be sent. */
+                TunnelStreamBuffer loadedBuffer;
+                if ((loadedBuffer = tunnelBuffer.tunnelSubstream().loadRetransmitBuffer(tunnelBuffer, error)) == null)
+                {
+                    if (error.errorId() == ReactorReturnCodes.NO_BUFFERS)
+                    {
+                        /* Try again when buffers are released. */
+                        error.errorId(ReactorReturnCodes.SUCCESS);
+                        error.text("");
+                        break;
+                    }
+                    return error.errorId();
+                }
+
+                _outboundTransmitList.insertBefore(tunnelBuffer, loadedBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                _outboundTransmitList.remove(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                tunnelBuffer.clear(0);
+                _tunnelStreamBufferPool.push(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                continue;
+            }
+
             if (!isSendWindowOpen(tunnelBuffer))
                 break;
 
@@ -2336,6 +2576,14 @@ public class TunnelStream
 
             _sendBytes += tunnelBuffer.innerWriteBufferLength();
 
+            /* Time one message at a time, other than retransmissions, to measure the round trip. */
+            if (!_rttSamplePending && !tunnelBuffer.isRetransmit() && _classOfService.flowControl().recvWindowAutoTune())
+            {
+                _rttSamplePending = true;
+                _rttSampleSeqNum = tunnelBuffer.seqNum();
+                _rttSampleTimeNsec = System.nanoTime();
+            }
+
             _outboundTransmitList.remove(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
             _outboundMsgAckList.push(tunnelBuffer, TunnelStreamBuffer.RETRANS_LINK);
                                                 
@@ -2652,7 +2900,6 @@ public class TunnelStream
     				{
                         case TunnelStreamMsg.OpCodes.DATA:
                         case TunnelStreamMsg.OpCodes.RETRANS:
-                            TunnelSubstream substreamSession = null;
                             TunnelStreamMsg.TunnelStreamData dataHeader = (TunnelStreamMsg.TunnelStreamData)_tunnelStreamMsg; 
                             int seqCompare;
     
@@ -2665,6 +2912,7 @@ public class TunnelStream
                                 /* This is the next message in sequence. Process it. */
                                 _recvLastSeqNum = dataHeader.seqNum();
                                 _reactorChannel.tunnelStreamManager().addTunnelStreamToDispatchList(this);
+                                recvMsgCounted(deliveredMsg.encodedDataBody().length());
                             }
                             else if (seqCompare <= 0)
                             {
@@ -2694,99 +2942,10 @@ public class TunnelStream
                                 return ReactorReturnCodes.SUCCESS;
                             }
     
-                            _decSubMsg.clear();
-                            if (deliveredMsg.containerType() == DataTypes.MSG)
-                            {
-                                _decIter.clear();
-                                _decIter.setBufferAndRWFVersion(deliveredMsg.encodedDataBody(), _classOfService.common().protocolMajorVersion(), _classOfService.common().protocolMinorVersion());
-                                if ((ret = _decSubMsg.decode(_decIter)) < CodecReturnCodes.SUCCESS)
-                                {
-                                    error.errorId(ret);
-                                    error.text("Failed to decode stream header (" + ret + ")");
-                                    return ReactorReturnCodes.FAILURE;
-                                }
-                                substreamSession = _streamIdtoQueueSubstreamTable.get(_decSubMsg.streamId());
-                            }
-    
-                            if (substreamSession != null) // queue message
-                            {
-                                return substreamSession.readMsg(deliveredMsg, error);
-                            }
-                            else
-                            {
-                                if (!isProvider()) // consumer tunnel stream
-                                {
-                                    // if authentication enabled, check for login refresh
-                                    if (_classOfService.authentication().type() == ClassesOfService.AuthenticationTypes.OMM_LOGIN &&
-                                        _decSubMsg.domainType() == DomainTypes.LOGIN)
-                                    {
-                                        if (_decSubMsg.msgClass() == MsgClasses.REFRESH) // login refresh
-                                        {
-                                            // send TunnelStream status event via Reactor
-                                            _loginMsg.clear();
-                                            _loginMsg.rdmMsgType(LoginMsgType.REFRESH);
-                                            _loginMsg.decode(_decIter, _decSubMsg);
-                                            _reactorChannel.tunnelStreamManager().sendTunnelStreamStatus(this, ((RefreshMsg)_decSubMsg).state(), _decSubMsg, _loginMsg);
-                                            
-                                            return ReactorReturnCodes.SUCCESS;
-                                        }
-                                        else if (_decSubMsg.msgClass() == MsgClasses.STATUS)
-                                        {
-                                            com.thomsonreuters.upa.codec.State state = null;
-                                            if (((StatusMsg)_decSubMsg).checkHasState())
-                                            {
-                                                state = ((StatusMsg)_decSubMsg).state();
-                                            }
-                                            
-                                            // send TunnelStream status event via Reactor
-                                            _loginMsg.clear();
-                                            _loginMsg.rdmMsgType(LoginMsgType.STATUS);
-                                            _loginMsg.decode(_decIter, _decSubMsg);
-                                            _reactorChannel.tunnelStreamManager().sendTunnelStreamStatus(this, state, _decSubMsg, _loginMsg);
-                                            
-                                            // if Login stream is closed, send close message for TunnelStream
-                                            if (state != null &&
-                                                (state.streamState() == StreamStates.CLOSED ||
-                                                state.streamState() == StreamStates.CLOSED_RECOVER))
-                                            {
-                                                sendCloseMsg(error);
-                                            }
-                                        }
-                                    }
-                                    else // not a login
-                                    {
-                                        TunnelStreamBuffer buffer = getBuffer(deliveredMsg.encodedDataBody().length(), false, false, error);
-                                        if (buffer != null)
-                                        {
-                                            deliveredMsg.encodedDataBody().copy(buffer.data());
-                                            msgReceived(buffer, (deliveredMsg.containerType() == DataTypes.MSG) ? _decSubMsg : null, deliveredMsg.containerType());
-                                            releaseBuffer((TunnelStreamBuffer)buffer, error);
-                
-                                            return ReactorReturnCodes.SUCCESS;
-                                        }
-                                        else
-                                        {
-                                            return error.errorId();
-                                        }
-                                    }
-                                }
-                                else // provider tunnel stream
-                                {
-                                    TunnelStreamBuffer buffer = getBuffer(deliveredMsg.encodedDataBody().length(), false, false, error);
-                                    if (buffer != null)
-                                    {
-                                        deliveredMsg.encodedDataBody().copy(buffer.data());
-                                        msgReceived(buffer,  (deliveredMsg.containerType() == DataTypes.MSG) ? _decSubMsg : null, deliveredMsg.containerType());
-                                        releaseBuffer((TunnelStreamBuffer)buffer, error);
-            
-                                        return ReactorReturnCodes.SUCCESS;
-                                    }
-                                    else
-                                    {
-                                        return error.errorId();
-                                    }
-                                }
-                            }
+                            if ((dataHeader.dataFlags() & TunnelStreamMsg.DataFlags.BATCH) != 0)
+                                return readBatchMsg(deliveredMsg.encodedDataBody(), error);
+
+                            return readDataMsg(deliveredMsg, deliveredMsg.encodedDataBody(), deliveredMsg.containerType(), error);
     
     					case TunnelStreamMsg.OpCodes.ACK:
     						if ((ret = processAck((TunnelStreamMsg.TunnelStreamAck)_tunnelStreamMsg, _recvAckRangeList, _recvNakRangeList, error)) != ReactorReturnCodes.SUCCESS)
@@ -2845,6 +3004,149 @@ public class TunnelStream
         }
 	}
 	
+    /* Reads the content of an in-sequence data message (or one message of a batch, in which
+     * case deliveredMsg is null). */
+    int readDataMsg(Msg deliveredMsg, Buffer encodedDataBody, int containerType, Error error)
+    {
+        int ret;
+        TunnelSubstream substreamSession = null;
+
+        _decSubMsg.clear();
+        if (containerType == DataTypes.MSG)
+        {
+            _decIter.clear();
+            _decIter.setBufferAndRWFVersion(encodedDataBody, _classOfService.common().protocolMajorVersion(), _classOfService.common().protocolMinorVersion());
+            if ((ret = _decSubMsg.decode(_decIter)) < CodecReturnCodes.SUCCESS)
+            {
+                error.errorId(ret);
+                error.text("Failed to decode stream header (" + ret + ")");
+                return ReactorReturnCodes.FAILURE;
+            }
+            substreamSession = _streamIdtoQueueSubstreamTable.get(_decSubMsg.streamId());
+        }
+    
+        if (substreamSession != null) // queue message
+        {
+            if (deliveredMsg == null)
+            {
+                error.errorId(ReactorReturnCodes.FAILURE);
+                error.text("Received batched message for queue stream " + _decSubMsg.streamId());
+                return ReactorReturnCodes.FAILURE;
+            }
+            return substreamSession.readMsg(deliveredMsg, error);
+        }
+        else
+        {
+            if (!isProvider()) // consumer tunnel stream
+            {
+                // if authentication enabled, check for login refresh
+                if (_classOfService.authentication().type() == ClassesOfService.AuthenticationTypes.OMM_LOGIN &&
+                    _decSubMsg.domainType() == DomainTypes.LOGIN)
+                {
+                    if (_decSubMsg.msgClass() == MsgClasses.REFRESH) // login refresh
+                    {
+                        // send TunnelStream status event via Reactor
+                        _loginMsg.clear();
+                        _loginMsg.rdmMsgType(LoginMsgType.REFRESH);
+                        _loginMsg.decode(_decIter, _decSubMsg);
+                        _reactorChannel.tunnelStreamManager().sendTunnelStreamStatus(this, ((RefreshMsg)_decSubMsg).state(), _decSubMsg, _loginMsg);
+                        
+                        return ReactorReturnCodes.SUCCESS;
+                    }
+                    else if (_decSubMsg.msgClass() == MsgClasses.STATUS)
+                    {
+                        com.thomsonreuters.upa.codec.State state = null;
+                        if (((StatusMsg)_decSubMsg).checkHasState())
+                        {
+                            state = ((StatusMsg)_decSubMsg).state();
+                        }
+                        
+                        // send TunnelStream status event via Reactor
+                        _loginMsg.clear();
+                        _loginMsg.rdmMsgType(LoginMsgType.STATUS);
+                        _loginMsg.decode(_decIter, _decSubMsg);
+                        _reactorChannel.tunnelStreamManager().sendTunnelStreamStatus(this, state, _decSubMsg, _loginMsg);
+                        
+                        // if Login stream is closed, send close message for TunnelStream
+                        if (state != null &&
+                            (state.streamState() == StreamStates.CLOSED ||
+                            state.streamState() == StreamStates.CLOSED_RECOVER))
+                        {
+                            sendCloseMsg(error);
+                        }
+                    }
+                }
+                else // not a login
+                {
+                    TunnelStreamBuffer buffer = getBuffer(encodedDataBody.length(), false, false, error);
+                    if (buffer != null)
+                    {
+                        encodedDataBody.copy(buffer.data());
+                        msgReceived(buffer, (containerType == DataTypes.MSG) ? _decSubMsg : null, containerType);
+                        releaseBuffer((TunnelStreamBuffer)buffer, error);
+                
+                        return ReactorReturnCodes.SUCCESS;
+                    }
+                    else
+                    {
+                        return error.errorId();
+                    }
+                }
+            }
+            else // provider tunnel stream
+            {
+                TunnelStreamBuffer buffer = getBuffer(encodedDataBody.length(), false, false, error);
+                if (buffer != null)
+                {
+                    encodedDataBody.copy(buffer.data());
+                    msgReceived(buffer,  (containerType == DataTypes.MSG) ? _decSubMsg : null, containerType);
+                    releaseBuffer((TunnelStreamBuffer)buffer, error);
+            
+                    return ReactorReturnCodes.SUCCESS;
+                }
+                else
+                {
+                    return error.errorId();
+                }
+            }
+        }
+
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /* Reads each message of a batch, as if each was received in its own data message. */
+    int readBatchMsg(Buffer encodedDataBody, Error error)
+    {
+        ByteBuffer data = encodedDataBody.data();
+        int position = encodedDataBody.position();
+        int endPosition = position + encodedDataBody.length();
+        int ret;
+
+        while (position < endPosition)
+        {
+            int containerType, length;
+
+            if (endPosition - position < BATCH_ENTRY_HEADER_LEN
+                    || endPosition - position - BATCH_ENTRY_HEADER_LEN < (length = data.getShort(position + 1) & 0xffff))
+            {
+                error.errorId(ReactorReturnCodes.FAILURE);
+                error.text("Failed to decode batched message");
+                return ReactorReturnCodes.FAILURE;
+            }
+
+            containerType = (data.get(position) & 0xff) + DataTypes.CONTAINER_TYPE_MIN;
+            position += BATCH_ENTRY_HEADER_LEN;
+
+            _batchEntryBuffer.data(data, position, length);
+            if ((ret = readDataMsg(null, _batchEntryBuffer, containerType, error)) != ReactorReturnCodes.SUCCESS)
+                return ret;
+
+            position += length;
+        }
+
+        return ReactorReturnCodes.SUCCESS;
+    }
+
 	int processAck(TunnelStreamMsg.TunnelStreamAck ackHeader, AckRangeList ackRangeList, AckRangeList nakRangeList, Error error)
 	{
 	    int ret;
@@ -2876,9 +3178,11 @@ public class TunnelStream
 						if (_receivedFinAck && _receivedFinalFin)
 						{
 
-					        for (Integer substreamId : _streamIdtoQueueSubstreamTable.keySet())
+					        for (int i = 0; i < _streamIdtoQueueSubstreamTable.capacity(); i++)
 					        {
-					            if ((ret = closeSubstream(substreamId.intValue(), error)) != ReactorReturnCodes.SUCCESS)
+					            if (_streamIdtoQueueSubstreamTable.valueAt(i) == null)
+					                continue;
+					            if ((ret = closeSubstream(_streamIdtoQueueSubstreamTable.keyAt(i), error)) != ReactorReturnCodes.SUCCESS)
 					                return ret;
 					        }
 					        _streamIdtoQueueSubstreamTable.clear();
@@ -2916,6 +3220,13 @@ public class TunnelStream
 				if (TunnelStreamUtil.seqNumCompare(ackHeader.seqNum(), _sendLastSeqNumAcked) > 0)
 				{
 					_sendLastSeqNumAcked = ackHeader.seqNum();
+
+					if (_rttSamplePending && TunnelStreamUtil.seqNumCompare(_sendLastSeqNumAcked, _rttSampleSeqNum) >= 0)
+					{
+					    long rttNsec = System.nanoTime() - _rttSampleTimeNsec;
+					    _smoothedRttNsec = (_smoothedRttNsec == 0) ? rttNsec : _smoothedRttNsec + (rttNsec - _smoothedRttNsec) / 8;
+					    _rttSamplePending = false;
+					}
  
 					if (_sendLastSeqNumAcked == _sendFinSeqNum) // our application sent FIN and we received ACK for that FIN
 					{							
@@ -2926,9 +3237,11 @@ public class TunnelStream
 					{    					    					
 						_tunnelStreamState = TunnelStreamState.SEND_FINAL_FIN_ACK_AND_CLOSING;
 
-				        for (Integer substreamId : _streamIdtoQueueSubstreamTable.keySet())
+				        for (int i = 0; i < _streamIdtoQueueSubstreamTable.capacity(); i++)
 				        {
-				            if ((ret = closeSubstream(substreamId.intValue(), error)) != ReactorReturnCodes.SUCCESS)
+				            if (_streamIdtoQueueSubstreamTable.valueAt(i) == null)
+				                continue;
+				            if ((ret = closeSubstream(_streamIdtoQueueSubstreamTable.keyAt(i), error)) != ReactorReturnCodes.SUCCESS)
 				                return ret;
 				        }
 				        _streamIdtoQueueSubstreamTable.clear();
@@ -2993,6 +3306,8 @@ public class TunnelStream
 								{
                                     _sendBytes -= buffer.innerWriteBufferLength();
                                     buffer.isRetransmit(true);
+                                    /* Round trip can't be measured across a retransmission. */
+                                    _rttSamplePending = false;
                                     _outboundMsgAckList.remove(buffer, TunnelStreamBuffer.RETRANS_LINK);
                                     _outboundTransmitList.push(buffer, TunnelStreamBuffer.RETRANS_LINK);
 								}
@@ -3064,6 +3379,165 @@ public class TunnelStream
 		return retVal;
 	}
 
+    /* Receive window to advertise to the remote end. */
+    int recvWindowSize()
+    {
+        return (_tunedRecvWindowSize > 0) ? _tunedRecvWindowSize : _classOfService.flowControl().recvWindowSize();
+    }
+
+    /* Determine if received messages should be acknowledged now, or if the acknowledgement
+     * can be delayed so that it covers more messages. */
+    boolean isAckDue(long currentTimeNsec)
+    {
+        CosFlowControl flowControl = _classOfService.flowControl();
+
+        if (flowControl.ackDelayInterval() <= 0)
+            return true;
+
+        if (currentTimeNsec - _firstUnackedRecvTimeNsec >= flowControl.ackDelayInterval() * 1000L)
+            return true;
+
+        if (flowControl.ackDelayMaxMsgs() > 0 && _recvMsgsSinceAck >= flowControl.ackDelayMaxMsgs())
+            return true;
+
+        /* Don't let the remote end's send window close while waiting. */
+        return recvWindowSize() > 0 && _recvBytesSinceAck >= recvWindowSize() / 2;
+    }
+
+    /* Time to wait before requesting the same retransmission again. */
+    long nakHoldoffNsec()
+    {
+        return Math.max(_classOfService.flowControl().ackDelayInterval() * 1000L, _smoothedRttNsec);
+    }
+
+    /* Determine if a retransmission request should be sent now. When acknowledgements are
+     * delayed, a gap already requested is not requested again until the holdoff passes;
+     * only messages missing beyond it are. */
+    boolean isNakDue(long currentTimeNsec)
+    {
+        if (_sendNakRangeList.count() == 0)
+            return false;
+
+        int[] nakRanges = _sendNakRangeList.rangeArray();
+
+        /* Drop the request if the gap has since been filled. */
+        if (TunnelStreamUtil.seqNumCompare(nakRanges[1], _recvLastSeqNum) <= 0)
+        {
+            _sendNakRangeList.count(0);
+            return false;
+        }
+        nakRanges[0] = _recvLastSeqNum + 1;
+
+        if (_classOfService.flowControl().ackDelayInterval() <= 0
+                || _lastNakStartSeqNum != nakRanges[0]
+                || currentTimeNsec - _lastNakTimeNsec >= nakHoldoffNsec())
+            return true;
+
+        if (TunnelStreamUtil.seqNumCompare(nakRanges[1], _lastNakEndSeqNum) <= 0)
+            return false;
+
+        nakRanges[0] = _lastNakEndSeqNum + 1;
+        return true;
+    }
+
+    /* Time at which a delayed acknowledgement or retransmission request is due, or 0 if none is waiting. */
+    long pendingAckTimeoutNsec()
+    {
+        long ackDelayNsec = _classOfService.flowControl().ackDelayInterval() * 1000L;
+
+        if (ackDelayNsec <= 0 || _tunnelStreamState != TunnelStreamState.STREAM_OPEN)
+            return 0;
+
+        if (_recvLastSeqNum != _recvLastSeqNumAckSent)
+            return _firstUnackedRecvTimeNsec + ackDelayNsec;
+
+        if (_sendNakRangeList.count() > 0)
+            return _lastNakTimeNsec + nakHoldoffNsec();
+
+        return 0;
+    }
+
+    /* Earliest time at which a delayed acknowledgement, retransmission request or batch is due,
+     * or 0 if none is waiting. */
+    long delayedSendTimeoutNsec()
+    {
+        long ackTimeoutNsec = pendingAckTimeoutNsec();
+        long batchTimeoutNsec = (_tunnelStreamState == TunnelStreamState.STREAM_OPEN) ? batchTimeoutNsec() : 0;
+
+        if (ackTimeoutNsec == 0)
+            return batchTimeoutNsec;
+        else if (batchTimeoutNsec == 0 || ackTimeoutNsec - batchTimeoutNsec < 0)
+            return ackTimeoutNsec;
+        else
+            return batchTimeoutNsec;
+    }
+
+    /* Account for a received message, for delayed acknowledgements and receive window tuning. */
+    void recvMsgCounted(int length)
+    {
+        long currentTimeNsec = System.nanoTime();
+
+        if (_recvMsgsSinceAck == 0)
+            _firstUnackedRecvTimeNsec = currentTimeNsec;
+        ++_recvMsgsSinceAck;
+        _recvBytesSinceAck += length;
+
+        CosFlowControl flowControl = _classOfService.flowControl();
+        if (flowControl.recvWindowAutoTune() && flowControl.type() == ClassesOfService.FlowControlTypes.BIDIRECTIONAL
+                && flowControl.recvWindowSize() > 0)
+            tuneRecvWindow(length, currentTimeNsec);
+    }
+
+    /* Resize the advertised receive window to about twice the bytes received per round trip,
+     * so that the remote end is not limited by the window while the application keeps up. */
+    void tuneRecvWindow(int length, long currentTimeNsec)
+    {
+        CosFlowControl flowControl = _classOfService.flowControl();
+
+        if (_recvMeasureStartNsec == 0)
+        {
+            _recvMeasureStartNsec = currentTimeNsec;
+            _recvMeasureWindowSize = recvWindowSize();
+            _recvMeasureBytes = 0;
+        }
+
+        _recvMeasureBytes += length;
+
+        long elapsedNsec = currentTimeNsec - _recvMeasureStartNsec;
+        boolean windowReceived = _recvMeasureBytes >= _recvMeasureWindowSize;
+
+        /* Receiving a full window takes at least one round trip. */
+        if (windowReceived && elapsedNsec > 0 && (_recvRttEstimateNsec == 0 || elapsedNsec < _recvRttEstimateNsec))
+            _recvRttEstimateNsec = elapsedNsec;
+
+        long rttNsec = (_smoothedRttNsec > 0) ? _smoothedRttNsec : _recvRttEstimateNsec;
+
+        if (!windowReceived && (rttNsec == 0 || elapsedNsec < rttNsec))
+            return;
+
+        long bytesPerRtt = _recvMeasureBytes;
+        if (rttNsec > 0 && elapsedNsec > rttNsec)
+            bytesPerRtt = (long)((double)_recvMeasureBytes * rttNsec / elapsedNsec);
+
+        int configuredSize = flowControl.recvWindowSize();
+        long maxSize = Math.max((flowControl.recvWindowMaxSize() > 0) ? flowControl.recvWindowMaxSize() : Math.min(Integer.MAX_VALUE, 16L * configuredSize),
+                configuredSize);
+        int windowSize = recvWindowSize();
+
+        if (2 * bytesPerRtt > windowSize)
+            windowSize = (int)Math.min(maxSize, Math.min(2 * bytesPerRtt, 2L * windowSize));
+        else if (4 * bytesPerRtt < windowSize)
+            windowSize = Math.max(configuredSize, windowSize / 2);
+
+        if (windowSize != recvWindowSize() && (_traceFlags & TunnelStreamTraceFlags.ACTIONS) > 0)
+            System.out.println("<!-- TunnelTrace: Receive window resized from " + recvWindowSize() + " to " + windowSize + " -->");
+
+        _tunedRecvWindowSize = windowSize;
+        _recvMeasureStartNsec = currentTimeNsec;
+        _recvMeasureWindowSize = windowSize;
+        _recvMeasureBytes = 0;
+    }
+
     TransportBuffer getChannelBuffer(int length, boolean packedBuffer, Error error)
     {
         assert(_reactorChannel.tunnelStreamManager().reactorChannel().channel() != null);
@@ -3168,7 +3642,7 @@ public class TunnelStream
               _outboundTransmitList.count(),
               _outboundMsgAckList.count(),
               _classOfService.flowControl().sendWindowSize() - _sendBytes,
-              _classOfService.flowControl().recvWindowSize() - _recvBytes);
+              recvWindowSize() - _recvBytes);
         }
         catch (Exception e)
         {
@@ -3197,6 +3671,10 @@ public class TunnelStream
                 break;
                 
             default:
+                long delayedSendNsec = delayedSendTimeoutNsec();
+                if (delayedSendNsec != 0 && delayedSendNsec - currentTimeNsec <= 0)
+                    _reactorChannel.tunnelStreamManager().addTunnelStreamToDispatchList(this);
+
                 try
                 {
                     expireTimeoutMessages(currentTimeNsec, error);
@@ -3290,10 +3768,16 @@ public class TunnelStream
     void updateTimeout(long currentTimeNsec)
     {
         TunnelStreamBuffer tunnelBuffer = _outboundTimeoutList.peek();
+        long delayedSendNsec = delayedSendTimeoutNsec();
 
-        if (tunnelBuffer != null)
+        if (tunnelBuffer != null || delayedSendNsec != 0)
         {
-            _nextTimeoutNsec = tunnelBuffer.timeoutNsec();
+            if (tunnelBuffer == null)
+                _nextTimeoutNsec = delayedSendNsec;
+            else if (delayedSendNsec == 0 || tunnelBuffer.timeoutNsec() - delayedSendNsec < 0)
+                _nextTimeoutNsec = tunnelBuffer.timeoutNsec();
+            else
+                _nextTimeoutNsec = delayedSendNsec;
             tunnelStreamManager().addTunnelStreamToTimeoutList(this, _nextTimeoutNsec);
         }
         else
@@ -3369,14 +3853,4 @@ public class TunnelStream
         if (errorInfo.error().text() != null)
             error.text(errorInfo.error().text());
     }
-    
-    void tableKey(WlInteger tableKey)
-    {
-        _tableKey = tableKey;
-    }
-    
-    WlInteger tableKey()
-    {
-        return _tableKey;
-    }
 }
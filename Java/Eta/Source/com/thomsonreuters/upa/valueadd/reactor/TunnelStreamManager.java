@@ -57,6 +57,7 @@ class TunnelStreamManager
 				tunnelStream = _tunnelStreamDispatchList.forth(TunnelStream.DISPATCH_LINK))
 		{
 			ret = tunnelStream.dispatch(error);
+			tunnelStream.commitPersistence();
 			if (ret != ReactorReturnCodes.SUCCESS)
 			{
                 if (ret == ReactorReturnCodes.FAILURE)
@@ -20,6 +20,13 @@ abstract class TunnelStreamMsg
 		static final int RETRANS = 3;
 		static final int REQUEST = 4;
 	} 
+
+	/* Flags following the op code of data messages. */
+	class DataFlags
+	{
+		static final int NONE = 0x00;
+		static final int BATCH = 0x01; /* Payload is a batch of messages. */
+	}
 	
 	abstract int opCode();
 	abstract void opCode(int opCode);
@@ -70,6 +77,8 @@ abstract class TunnelStreamMsg
 		
 	    public int seqNum();
 	    public void seqNum(int seqNum);
+
+	    public int dataFlags();
 	}
 
 	interface TunnelStreamAck
@@ -27,6 +27,7 @@ class TunnelStreamMsgImpl extends TunnelStreamMsg
 
     int _seqNum, _seqNum2;
     int _actionOpCode;
+    int _dataFlags;
     
     Buffer _tmpBuffer; /* Used for encoding protocol, such as in the extended header. */
 
@@ -164,6 +165,7 @@ class TunnelStreamMsgImpl extends TunnelStreamMsg
         clearBase();
         _opCode = OpCodes.DATA;
         _seqNum = 0;
+        _dataFlags = DataFlags.NONE;
     }
 
     public void clearRetrans()
@@ -171,6 +173,7 @@ class TunnelStreamMsgImpl extends TunnelStreamMsg
         clearBase();
         _opCode = OpCodes.RETRANS;
         _seqNum = 0;
+        _dataFlags = DataFlags.NONE;
     }
 
     public int dataMsgBufferSize()
@@ -378,6 +381,9 @@ class TunnelStreamMsgImpl extends TunnelStreamMsg
 
                     _seqNum = (int)genericMsg.seqNum();
 
+                    /* Flags are only present when set. */
+                    _dataFlags = byteBuffer.hasRemaining() ? (int)byteBuffer.get() & 0xff : DataFlags.NONE;
+
                     break;
 
                 case OpCodes.ACK:
@@ -432,10 +438,10 @@ class TunnelStreamMsgImpl extends TunnelStreamMsg
         switch(_opCode)
         {
             case OpCodes.DATA:
-                return "<TunnelData streamId=\"" + _streamId + "\" seqNum=\"" + _seqNum + "\" >\n";
+                return "<TunnelData streamId=\"" + _streamId + "\" seqNum=\"" + _seqNum + "\"" + xmlDumpDataFlags() + " >\n";
 
             case OpCodes.RETRANS:
-                return "<TunnelRetrans streamId=\"" + _streamId + "\" seqNum=\"" + _seqNum + "\" >\n";
+                return "<TunnelRetrans streamId=\"" + _streamId + "\" seqNum=\"" + _seqNum + "\"" + xmlDumpDataFlags() + " >\n";
                 
             case OpCodes.ACK:
             {
@@ -476,6 +482,16 @@ class TunnelStreamMsgImpl extends TunnelStreamMsg
     {
     	return _actionOpCode;
     }
+
+    public int dataFlags()
+    {
+        return _dataFlags;
+    }
+
+    private String xmlDumpDataFlags()
+    {
+        return ((_dataFlags & DataFlags.BATCH) != 0) ? " batch=\"true\"" : "";
+    }
     
     String xmlDumpEnd()
     {
@@ -26,6 +26,8 @@ abstract class TunnelStreamPersistenceFile
 		static final int V1 = 1;
 		static final int V2 = 33554432; /* Version 2 (read as big-endian) */
 		static final int V2L = 2; /* Version 2 (read as little-endian) */
+		static final int V3 = 50331648; /* Version 3 (read as big-endian) */
+		static final int V3L = 3; /* Version 3 (read as little-endian) */
 	}
     static int _defaultPersistenceVerion = FileVersion.V2;
 
@@ -55,6 +57,18 @@ abstract class TunnelStreamPersistenceFile
     /* ByteBuffer for temporary encoding/decoding */
     ByteBuffer _tmpByteBuf;
 
+    /* Whether the file was modified since the last commit. */
+    boolean _modified;
+
+    /* Group commit settings, taken from the guarantee class of service. */
+    boolean _groupCommit;
+    int _groupCommitMaxMsgs;
+    long _groupCommitIntervalNsec;
+
+    /* Number of updates made since the last commit, and the time of the first one. */
+    int _uncommittedUpdateCount;
+    long _firstUncommittedUpdateTimeNsec;
+
 	/* Save a message to the file, if space is available. */
 	abstract int saveMsg(TunnelStreamBuffer buffer, Error error);
 
@@ -90,6 +104,11 @@ abstract class TunnelStreamPersistenceFile
         _fileLock = fileLock;
 		_persistentBufferPool = new VaDoubleLinkList<TunnelStreamPersistenceBuffer>();
 		_localQueueAckList = new VaDoubleLinkList<TunnelStreamBuffer>();
+
+        CosGuarantee guarantee = tunnelSubstream._tunnelStream._classOfService.guarantee();
+        _groupCommit = guarantee.persistenceGroupCommit();
+        _groupCommitMaxMsgs = guarantee.persistenceGroupCommitMaxMsgs();
+        _groupCommitIntervalNsec = guarantee.persistenceGroupCommitInterval() * 1000L;
     }
 
     /* Close the persistence file and clear this object. */
@@ -97,6 +116,7 @@ abstract class TunnelStreamPersistenceFile
     {
         if (_fileByteBuf != null)
         {
+            commit();
             try
             {
                 _fileLock.release();
@@ -128,6 +148,61 @@ abstract class TunnelStreamPersistenceFile
         _fileChannel = null;
         _fileChannel = null;
         _fileLock = null;
+        _modified = false;
+        _uncommittedUpdateCount = 0;
+    }
+
+    /* Records that a region of the file was modified, so that it is forced to disk on the next commit.
+     * The region is forced through the mapping of the whole file, of which only the modified
+     * pages are written, so no more than the fact of the modification needs to be kept. */
+    protected void markDirty(int position, int length)
+    {
+        if (_modified)
+            return;
+
+        _modified = true;
+        _tunnelSubstream._tunnelStream.persistenceFileModified(this);
+    }
+
+    /* Called when an update to the file is complete. Without group commit, the modified
+     * pages are forced to disk immediately. With group commit, they are forced when the
+     * tunnel stream manager finishes its dispatch pass, or sooner if the configured number
+     * of updates or interval since the first uncommitted update is reached. */
+    protected void updateComplete()
+    {
+        if (!_groupCommit)
+        {
+            commit();
+            return;
+        }
+
+        if (_uncommittedUpdateCount++ == 0)
+        {
+            if (_groupCommitIntervalNsec > 0)
+                _firstUncommittedUpdateTimeNsec = System.nanoTime();
+
+            /* Make sure the tunnel stream is dispatched, so that this update is committed
+             * even if it was made outside of a dispatch pass. */
+            TunnelStream tunnelStream = _tunnelSubstream._tunnelStream;
+            if (tunnelStream._reactorChannel != null && tunnelStream._reactorChannel.tunnelStreamManager() != null)
+                tunnelStream._reactorChannel.tunnelStreamManager().addTunnelStreamToDispatchList(tunnelStream);
+        }
+
+        if ((_groupCommitMaxMsgs > 0 && _uncommittedUpdateCount >= _groupCommitMaxMsgs)
+                || (_groupCommitIntervalNsec > 0 && System.nanoTime() - _firstUncommittedUpdateTimeNsec >= _groupCommitIntervalNsec))
+            commit();
+    }
+
+    /* Forces the pages of the file modified since the last commit to disk. */
+    void commit()
+    {
+        _uncommittedUpdateCount = 0;
+
+        if (!_modified)
+            return;
+
+        _modified = false;
+        _fileByteBuf.force();
     }
 
 	/* Moves a buffer between a persistence file's buffer lists, in-memory and in-file. */
@@ -151,6 +226,7 @@ abstract class TunnelStreamPersistenceFile
                 _fileByteBuf.putInt(prev.filePosition() + nextMsgPosOffset, next.filePosition());
             else
                 _fileByteBuf.putInt(prev.filePosition() + nextMsgPosOffset, 0);
+            markDirty(prev.filePosition() + nextMsgPosOffset, 4);
         }
         else
         {
@@ -159,6 +235,7 @@ abstract class TunnelStreamPersistenceFile
                 _fileByteBuf.putInt(oldListHeadPosition, next.filePosition());
             else
                 _fileByteBuf.putInt(oldListHeadPosition, 0);
+            markDirty(oldListHeadPosition, 4);
         }
 
 
@@ -173,16 +250,19 @@ abstract class TunnelStreamPersistenceFile
             _fileByteBuf.putInt(persistBuffer.filePosition() + nextMsgPosOffset, next.filePosition());
         else
             _fileByteBuf.putInt(persistBuffer.filePosition() + nextMsgPosOffset, 0);
+        markDirty(persistBuffer.filePosition() + nextMsgPosOffset, 4);
 
         if (prev != null)
         {
             /* Update next pointer */
             _fileByteBuf.putInt(prev.filePosition() + nextMsgPosOffset, persistBuffer.filePosition());
+            markDirty(prev.filePosition() + nextMsgPosOffset, 4);
         }
         else
         {
             /* This element is the head */
             _fileByteBuf.putInt(newListHeadPosition, persistBuffer.filePosition());
+            markDirty(newListHeadPosition, 4);
         }
 
 	}
@@ -203,45 +283,65 @@ abstract class TunnelStreamPersistenceFile
     }
 
     /* Retransmits, locally acknowledges, or locally expires a buffer
-     * loaded from the persistence file. */
+     * loaded from the persistence file.
+     * 
+     * The message data is not loaded here for messages that are acknowledged or too
+     * large (sendLocalQueueAcks() loads them one at a time), or for messages that were
+     * transmitted before, which are queued for retransmission without data and loaded
+     * by loadRetransmitBuffer() when they are next to be sent. Recovery then only needs
+     * buffers for the messages the send window allows out, rather than for every
+     * message in the file. Messages that were never transmitted are loaded now, since
+     * they may time out before they are sent. */
     protected int retransmitBuffer(TunnelStreamPersistenceBuffer persistBuffer, int seqNum, long currentTime, Msg tmpMsg, EncodeIterator tmpEncodeIter, DecodeIterator tmpDecodeIter, Error error)
     {
         int ret;
         TunnelStreamBuffer tunnelStreamBuffer;
+        boolean isTooLarge = persistBuffer.length() - persistBuffer.tunnelStreamHeaderLen() > _tunnelSubstream._tunnelStream._classOfService.common().maxMsgSize();
+        boolean isAcknowledged = seqNum != 0 && TunnelStreamUtil.seqNumCompare(persistBuffer.seqNum(), seqNum) <= 0;
 
-        /* If message is too large to persist, don't try to get a buffer for it.
-         * We won't be sending it (it will be locally acknowledged or expired). */
-        if (persistBuffer.length() - persistBuffer.tunnelStreamHeaderLen() > _tunnelSubstream._tunnelStream._classOfService.common().maxMsgSize()) 
+        if (isTooLarge || isAcknowledged || (seqNum != 0 && persistBuffer.isTransmitted()))
         {
             if ((tunnelStreamBuffer = _tunnelSubstream._tunnelStream._tunnelStreamBufferPool.pop(TunnelStreamBuffer.RETRANS_LINK)) == null)
                 tunnelStreamBuffer = new TunnelStreamBuffer();
 
             tunnelStreamBuffer.clear(persistBuffer.length());
             tunnelStreamBuffer.persistenceBuffer(_tunnelSubstream, persistBuffer);
-        }
-        else
-        {
-            tunnelStreamBuffer = _tunnelSubstream._tunnelStream.getBuffer(persistBuffer.length() - persistBuffer.tunnelStreamHeaderLen(), false, true, error);
 
-            if (tunnelStreamBuffer == null)
+            if (isAcknowledged)
             {
-                error.text("Failed to get TunnelStream buffer while retransmitting QueueData message: " + error.text());
-                return ReactorReturnCodes.FAILURE;
+                /* Message was already received. Generate QueueAck for it and release the buffer. */
+                tunnelStreamBuffer.isForLocalAck(true);
+                _localQueueAckList.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
+                return ReactorReturnCodes.SUCCESS;
             }
 
-            /* Copy the message from the file to the TunnelStream buffer. */
-            copyToTunnelStreamBuffer(persistBuffer, tunnelStreamBuffer);
-        }
-
-        if (seqNum == 0)
-        {
-            if (tunnelStreamBuffer.data() == null)
+            if (isTooLarge)
             {
                 /* Expire large messages. */
                 _localQueueAckList.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
                 return ReactorReturnCodes.SUCCESS;
             }
 
+            tunnelStreamBuffer.timeoutNsec(persistBufferTimeoutNsec(persistBuffer));
+            tunnelStreamBuffer.timeoutIsCode(tunnelStreamBuffer.timeoutNsec() <= 0);
+            tunnelStreamBuffer.isQueueData(true);
+            _tunnelSubstream._tunnelStream._outboundTransmitList.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
+            return ReactorReturnCodes.SUCCESS;
+        }
+
+        tunnelStreamBuffer = _tunnelSubstream._tunnelStream.getBuffer(persistBuffer.length() - persistBuffer.tunnelStreamHeaderLen(), false, true, error);
+
+        if (tunnelStreamBuffer == null)
+        {
+            error.text("Failed to get TunnelStream buffer while retransmitting QueueData message: " + error.text());
+            return ReactorReturnCodes.FAILURE;
+        }
+
+        /* Copy the message from the file to the TunnelStream buffer. */
+        copyToTunnelStreamBuffer(persistBuffer, tunnelStreamBuffer);
+
+        if (seqNum == 0)
+        {
             /* If the Provider sent 0 as last received sequence number,
              * it may be because it lost its persistence and/or doesn't recognize us.
              * Resend all buffers, marking them as possible duplicates. */
@@ -249,21 +349,60 @@ abstract class TunnelStreamPersistenceFile
             TunnelStreamUtil.replaceQueueDataFlags(tunnelStreamBuffer.data(), QueueDataFlags.POSSIBLE_DUPLICATE);
             tunnelStreamBuffer.setAsFullReadBuffer();
         }
-        else if (TunnelStreamUtil.seqNumCompare(persistBuffer.seqNum(), seqNum) <= 0)
+
+        if ((ret = replaceStreamId(tunnelStreamBuffer, tmpEncodeIter, tmpDecodeIter, error)) != ReactorReturnCodes.SUCCESS)
+            return ret;
+
+        tunnelStreamBuffer.timeoutNsec(persistBufferTimeoutNsec(persistBuffer));
+        if (tunnelStreamBuffer.timeoutNsec() > 0)
         {
-            /* Message was already received. Generate QueueAck for it and release the buffer. */
-            tunnelStreamBuffer.isForLocalAck(true);
-            _localQueueAckList.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
-            return ReactorReturnCodes.SUCCESS;
+            tunnelStreamBuffer.timeoutIsCode(false);
+            if (!persistBuffer.isTransmitted())
+                _tunnelSubstream._tunnelStream.insertTimeoutBuffer(tunnelStreamBuffer, currentTime);
         }
-        else if (tunnelStreamBuffer.data() == null)
+        else
         {
-            /* Expire large messages. */
-            _localQueueAckList.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
-            return ReactorReturnCodes.SUCCESS;
+            tunnelStreamBuffer.timeoutIsCode(true);
+        }
+
+        tunnelStreamBuffer.isQueueData(true);
+
+        _tunnelSubstream._tunnelStream._outboundTransmitList.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
+
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    /* Loads a message queued for retransmission without its data by retransmitBuffer(),
+     * now that it is next to be sent. Returns the buffer to send in its place, or null
+     * if none could be loaded; the error is NO_BUFFERS if one may be available later. */
+    TunnelStreamBuffer loadRetransmitBuffer(TunnelStreamBuffer queuedBuffer, EncodeIterator tmpEncodeIter, DecodeIterator tmpDecodeIter, Error error)
+    {
+        TunnelStreamPersistenceBuffer persistBuffer = queuedBuffer.persistenceBuffer();
+        TunnelStreamBuffer tunnelStreamBuffer;
+
+        if ((tunnelStreamBuffer = _tunnelSubstream._tunnelStream.getBuffer(persistBuffer.length() - persistBuffer.tunnelStreamHeaderLen(), false, true, error)) == null)
+            return null;
+
+        copyToTunnelStreamBuffer(persistBuffer, tunnelStreamBuffer);
+
+        if (replaceStreamId(tunnelStreamBuffer, tmpEncodeIter, tmpDecodeIter, error) != ReactorReturnCodes.SUCCESS)
+        {
+            _tunnelSubstream._tunnelStream.releaseBuffer(tunnelStreamBuffer, error);
+            return null;
         }
 
-        // replace queue data stream id if changed
+        tunnelStreamBuffer.timeoutNsec(queuedBuffer.timeoutNsec());
+        tunnelStreamBuffer.timeoutIsCode(queuedBuffer.timeoutIsCode());
+        tunnelStreamBuffer.isQueueData(true);
+        return tunnelStreamBuffer;
+    }
+
+    /* Replaces the stream id of a QueueData message loaded from the file, if the
+     * substream's stream id has changed since it was saved. */
+    private int replaceStreamId(TunnelStreamBuffer tunnelStreamBuffer, EncodeIterator tmpEncodeIter, DecodeIterator tmpDecodeIter, Error error)
+    {
+        int ret;
+
         tunnelStreamBuffer.setAsInnerReadBuffer();
         tmpDecodeIter.clear();
         tmpDecodeIter.setBufferAndRWFVersion(tunnelStreamBuffer, _tunnelSubstream._tunnelStream.classOfService().common().protocolMajorVersion(), _tunnelSubstream._tunnelStream.classOfService().common().protocolMinorVersion());  
@@ -279,25 +418,8 @@ abstract class TunnelStreamPersistenceFile
             }
         }
 
-        tunnelStreamBuffer.timeoutNsec(persistBufferTimeoutNsec(persistBuffer));
-        if (tunnelStreamBuffer.timeoutNsec() > 0)
-        {
-            tunnelStreamBuffer.timeoutIsCode(false);
-            if (!persistBuffer.isTransmitted())
-                _tunnelSubstream._tunnelStream.insertTimeoutBuffer(tunnelStreamBuffer, currentTime);
-        }
-        else
-        {
-            tunnelStreamBuffer.timeoutIsCode(true);
-        }
-
-        tunnelStreamBuffer.isQueueData(true);
-
-        _tunnelSubstream._tunnelStream._outboundTransmitList.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
-
         return ReactorReturnCodes.SUCCESS;
-    }            
-
+    }
 
     /* Used when QueueRefresh is received. Generates QueueAcks for any messages that
      * the QueueRefresh acknowledged. */
@@ -308,51 +430,35 @@ abstract class TunnelStreamPersistenceFile
         while ((tunnelStreamBuffer = _localQueueAckList.pop(TunnelStreamBuffer.RETRANS_LINK)) != null) 
         {
             TunnelStreamPersistenceBuffer persistBuffer = tunnelStreamBuffer.persistenceBuffer();
-            if (tunnelStreamBuffer.data() == null)
-            {
-                /* No data -- buffer is in the list because was larger than the max message size,
-                 * so load data into temporary memory. */
-                if (_tmpByteBuf == null || _tmpByteBuf.capacity() < persistBuffer.length())
-                    _tmpByteBuf = ByteBuffer.allocateDirect(persistBuffer.length());
-
-                _tmpByteBuf.position(0);
-                _tmpByteBuf.limit(persistBuffer.length());
-                tunnelStreamBuffer.data(_tmpByteBuf);
-                copyToTunnelStreamBuffer(persistBuffer, tunnelStreamBuffer);
-                
-            }
+
+            /* Load data into temporary memory, one message at a time. */
+            if (_tmpByteBuf == null || _tmpByteBuf.capacity() < persistBuffer.length())
+                _tmpByteBuf = ByteBuffer.allocateDirect(persistBuffer.length());
+
+            _tmpByteBuf.position(0);
+            _tmpByteBuf.limit(persistBuffer.length());
+            tunnelStreamBuffer.data(_tmpByteBuf);
+            copyToTunnelStreamBuffer(persistBuffer, tunnelStreamBuffer);
 
             // replace queue data stream id if changed
-            tunnelStreamBuffer.setAsInnerReadBuffer();
-            tmpDecodeIter.clear();
-            tmpDecodeIter.setBufferAndRWFVersion(tunnelStreamBuffer, _tunnelSubstream._tunnelStream.classOfService().common().protocolMajorVersion(), _tunnelSubstream._tunnelStream.classOfService().common().protocolMinorVersion());  
-            if (tmpDecodeIter.extractStreamId() != _tunnelSubstream._streamId)
-            {
-                tmpEncodeIter.clear();
-                tmpEncodeIter.setBufferAndRWFVersion(tunnelStreamBuffer, _tunnelSubstream._tunnelStream.classOfService().common().protocolMajorVersion(), _tunnelSubstream._tunnelStream.classOfService().common().protocolMinorVersion());
-                if ((ret = tmpEncodeIter.replaceStreamId(_tunnelSubstream._streamId)) != CodecReturnCodes.SUCCESS)
-                {
-                    error.errorId(ret);
-                    error.text("Failed to update stream id from " + tmpDecodeIter.extractStreamId() + " to " + _tunnelSubstream._streamId + " on QueueData message.");
-                    return ReactorReturnCodes.FAILURE;
-                }
-            }
+            if ((ret = replaceStreamId(tunnelStreamBuffer, tmpEncodeIter, tmpDecodeIter, error)) != ReactorReturnCodes.SUCCESS)
+                return ret;
 
             if (tunnelStreamBuffer.isForLocalAck())
             {
                 /* Buffer is in this list to be acknowledged. */
                 _tunnelSubstream.sendQueueAckToListener(tunnelStreamBuffer);
-                releasePersistenceBuffer(persistBuffer);
-                _tunnelSubstream._tunnelStream.releaseBuffer(tunnelStreamBuffer, error);
             }
             else
             {
                 _tunnelSubstream._tunnelStream.queueMsgExpired(tunnelStreamBuffer, null,  QueueDataUndeliverableCode.MAX_MSG_SIZE);
-                releasePersistenceBuffer(persistBuffer);
-                tunnelStreamBuffer.clear(0);
-                _tunnelSubstream._tunnelStream._tunnelStreamBufferPool.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
             }
 
+            /* Buffer holds temporary memory rather than a slice, so return it to the pool directly. */
+            releasePersistenceBuffer(persistBuffer);
+            tunnelStreamBuffer.clear(0);
+            _tunnelSubstream._tunnelStream._tunnelStreamBufferPool.push(tunnelStreamBuffer, TunnelStreamBuffer.RETRANS_LINK);
+
             if (_tunnelSubstream._state != TunnelSubstreamState.OPEN)
                 return ReactorReturnCodes.SUCCESS;
         }
@@ -176,6 +176,9 @@ class TunnelStreamPersistenceFileV1 extends TunnelStreamPersistenceFile
             _fileByteBuf.putInt(Header.WAIT_TRANSMIT_HEAD_POS, 0);
             _fileByteBuf.putInt(Header.WAITACK_LIST_HEAD_POS, 0);
 
+            /* The whole file was initialized. */
+            markDirty(0, _fileByteBuf.capacity());
+
         }
         error.errorId(ReactorReturnCodes.SUCCESS);
     }
@@ -184,12 +187,14 @@ class TunnelStreamPersistenceFileV1 extends TunnelStreamPersistenceFile
 	void lastOutSeqNum(int lastOutSeqNum)
 	{
         _fileByteBuf.putInt(Header.LAST_OUT_SEQ_NUM_POS, lastOutSeqNum);
+        markDirty(Header.LAST_OUT_SEQ_NUM_POS, 4);
 	}
 
     @Override
 	void lastInSeqNum(int lastInSeqNum)
 	{
         _fileByteBuf.putInt(Header.LAST_IN_SEQ_NUM_POS, lastInSeqNum);
+        markDirty(Header.LAST_IN_SEQ_NUM_POS, 4);
 	}
 
     @Override
@@ -227,6 +232,7 @@ class TunnelStreamPersistenceFileV1 extends TunnelStreamPersistenceFile
 
         _fileByteBuf.position(entryPosition + MsgHeader.MSG_BUFFER_POS);
         buffer.copyFullBuffer(_fileByteBuf);
+        markDirty(entryPosition, _fileByteBuf.position() - entryPosition);
 
         persistenceBufferListMove(_persistentBufferPool, Header.POOL_HEAD_POS,
                 _waitingTransmitList, Header.WAIT_TRANSMIT_HEAD_POS,
@@ -314,6 +320,7 @@ class TunnelStreamPersistenceFileV1 extends TunnelStreamPersistenceFile
         seqNum = _tunnelSubstream._lastOutSeqNum + 1;
 
         _fileByteBuf.putInt(persistenceBuffer.filePosition() + MsgHeader.MSG_SEQNUM_POS, seqNum);
+        markDirty(persistenceBuffer.filePosition() + MsgHeader.MSG_SEQNUM_POS, 4);
 
         persistenceBuffer.isTransmitted(true);
         persistenceBuffer.seqNum(seqNum);
@@ -354,7 +361,8 @@ class TunnelStreamPersistenceFileV1 extends TunnelStreamPersistenceFile
                 MsgHeader.NEXT_MSG_POS, persistBuffer);
 
         _fileByteBuf.putInt(Header.CURRENT_MSG_COUNT_POS, _waitingTransmitList.count() + _waitingQueueAckList.count());
-		_fileByteBuf.force();
+        markDirty(Header.CURRENT_MSG_COUNT_POS, 4);
+        updateComplete();
 	}
 
     @Override
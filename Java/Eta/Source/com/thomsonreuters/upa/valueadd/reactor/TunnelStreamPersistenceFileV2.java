@@ -190,6 +190,9 @@ class TunnelStreamPersistenceFileV2 extends TunnelStreamPersistenceFile
 
             _fileByteBuf.putInt(Header.POOL_HEAD_POS, _persistentBufferPool.peek().filePosition());
             _fileByteBuf.putInt(Header.SAVED_HEAD_POS, 0);
+
+            /* The whole file was initialized. */
+            markDirty(0, _fileByteBuf.capacity());
         }
         error.errorId(ReactorReturnCodes.SUCCESS);
     }
@@ -198,12 +201,14 @@ class TunnelStreamPersistenceFileV2 extends TunnelStreamPersistenceFile
 	void lastOutSeqNum(int lastOutSeqNum)
 	{
         _fileByteBuf.putInt(Header.LAST_OUT_SEQ_NUM_POS, lastOutSeqNum);
+        markDirty(Header.LAST_OUT_SEQ_NUM_POS, 4);
 	}
 
     @Override
 	void lastInSeqNum(int lastInSeqNum)
 	{
         _fileByteBuf.putInt(Header.LAST_IN_SEQ_NUM_POS, lastInSeqNum);
+        markDirty(Header.LAST_IN_SEQ_NUM_POS, 4);
 	}
 
     @Override
@@ -240,6 +245,7 @@ class TunnelStreamPersistenceFileV2 extends TunnelStreamPersistenceFile
         _fileByteBuf.position(entryPosition + MsgHeader.LENGTH);
         
         buffer.copy(_fileByteBuf);
+        markDirty(entryPosition, MsgHeader.LENGTH + buffer.length());
 
         persistenceBufferListMove(_persistentBufferPool, Header.POOL_HEAD_POS,
                 _savedMsgList, Header.SAVED_HEAD_POS,
@@ -281,11 +287,12 @@ class TunnelStreamPersistenceFileV2 extends TunnelStreamPersistenceFile
         seqNum = _tunnelSubstream._lastOutSeqNum + 1;
 
         _fileByteBuf.putInt(persistenceBuffer.filePosition() + MsgHeader.FLAGS_POS, MsgHeaderFlags.TRANSMITTED);
+        markDirty(persistenceBuffer.filePosition() + MsgHeader.FLAGS_POS, 4);
         
         persistenceBuffer.isTransmitted(true);
         persistenceBuffer.seqNum(seqNum);
         lastOutSeqNum(seqNum);
-        _fileByteBuf.force();
+        updateComplete();
     }
 
     @Override
@@ -314,7 +321,8 @@ class TunnelStreamPersistenceFileV2 extends TunnelStreamPersistenceFile
                 MsgHeader.NEXT_MSG_POS, persistBuffer);
 
         _fileByteBuf.putInt(Header.CURRENT_MSG_COUNT_POS, _savedMsgList.count());
-		_fileByteBuf.force();
+        markDirty(Header.CURRENT_MSG_COUNT_POS, 4);
+        updateComplete();
     }
 
     @Override
@@ -0,0 +1,911 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.thomsonreuters.upa.codec.DecodeIterator;
+import com.thomsonreuters.upa.codec.EncodeIterator;
+import com.thomsonreuters.upa.codec.Msg;
+import com.thomsonreuters.upa.transport.Error;
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList;
+
+/* Class for handling a persistence file with version 3.
+ *
+ * Unlike version 2, which preallocates a fixed number of slots of the maximum message
+ * size, this version appends variable-length records to fixed-size segments of the file.
+ * Records are written to one active segment at a time. A released record is only flagged,
+ * and a segment is reused once all of its records are released. The file starts small and
+ * grows by doubling its segment count when no segment is free. When it cannot grow, the
+ * live records of the segment with the least live data are copied to a reserved free
+ * segment, freeing the one they came from.
+ *
+ * Each record carries an ordinal that increases with each message saved, so the order of
+ * the messages is recovered by sorting the live records on load, wherever compaction has
+ * moved them. A record is copied before its original is released; if both copies are
+ * found on load, one is discarded.
+ *
+ * When the file is closed, an index of the unreleased records is written after the last
+ * segment, so that reopening it reads only the index rather than every record. The index
+ * is marked invalid as soon as the file is reopened; a file that was not closed cleanly
+ * is scanned instead, in parallel across its segments when it is large. */
+class TunnelStreamPersistenceFileV3 extends TunnelStreamPersistenceFile
+{
+    /* Segment size used unless the maximum message size requires a larger one. */
+    private static final int DEFAULT_SEGMENT_SIZE = 256 * 1024;
+
+    /* Number of segments in a new file. */
+    private static final int INITIAL_SEGMENT_COUNT = 4;
+
+    /* Maximum size to which the file may grow. */
+    private static final long MAX_FILE_SIZE = 1024L * 1024 * 1024;
+
+    /* Records are aligned to this size within a segment. */
+    private static final int RECORD_ALIGNMENT = 8;
+
+    /* Number of segments from which a file without a valid index is scanned in parallel. */
+    private static final int PARALLEL_SCAN_MIN_SEGMENTS = 8;
+
+    /* Threads on which large files are scanned, shared by all files. */
+    private static ExecutorService _scanExecutor;
+
+    private int _maxMsgLength;
+    private int _segmentSize;
+    private int _segmentCount;
+    private int _maxSegmentCount;
+
+    /* Number and total length of the unreleased records in each segment. */
+    private int[] _segmentLiveCount;
+    private int[] _segmentLiveBytes;
+
+    /* Segments with no unreleased records, other than the active segment. One is
+     * kept in reserve as the destination of compaction. */
+    private int[] _freeSegments;
+    private int _freeSegmentCount;
+
+    /* Segment to which records are appended, and the offset of the next record in it. */
+    private int _activeSegment = -1;
+    private int _activeOffset;
+
+    /* Ordinal of the next record saved. */
+    private long _nextOrdinal;
+
+	/* (SUBSTREAM_LINK) Persistent buffers that have been saved, in the order they were saved. */
+	private VaDoubleLinkList<TunnelStreamPersistenceBuffer> _savedMsgList;
+
+    /* Static class to describe the file header. */
+    private class Header
+    {
+        private static final int LENGTH = 64;
+
+        private static final int FILE_VERSION_POS = 0;
+        private static final int SEGMENT_SIZE_POS = FILE_VERSION_POS + 4;
+        private static final int SEGMENT_COUNT_POS = SEGMENT_SIZE_POS + 4;
+        private static final int MAX_MSG_LENGTH_POS = SEGMENT_COUNT_POS + 4;
+        private static final int LAST_OUT_SEQ_NUM_POS = MAX_MSG_LENGTH_POS + 4;
+        private static final int LAST_IN_SEQ_NUM_POS = LAST_OUT_SEQ_NUM_POS + 4;
+        private static final int FLAGS_POS = LAST_IN_SEQ_NUM_POS + 4;
+        private static final int INDEX_POS_POS = FLAGS_POS + 4;
+        private static final int INDEX_COUNT_POS = INDEX_POS_POS + 4;
+        private static final int NEXT_ORDINAL_POS = INDEX_COUNT_POS + 4;
+    }
+
+    private class HeaderFlags
+    {
+        /* The index was written when the file was closed, and records have not been updated since. */
+        private static final int INDEX_VALID = 0x1;
+    }
+
+    /* Static class to describe each entry of the index. */
+    private class IndexEntry
+    {
+        private static final int LENGTH = 16;
+
+        private static final int POSITION_POS = 0;
+        private static final int MSG_LENGTH_POS = POSITION_POS + 4;
+        private static final int SEQ_NUM_POS = MSG_LENGTH_POS + 4;
+        private static final int FLAGS_POS = SEQ_NUM_POS + 4;
+    }
+
+    /* Static class to describe the header of each record. A record length of 0 marks the
+     * end of the records in a segment. */
+    private class RecordHeader
+    {
+        private static final int LENGTH = 0
+            + 4 /* record length, including header and padding */
+            + 4 /* flags */
+            + 4 /* msg length */
+            + 4 /* seqNum, once transmitted */
+            + 8 /* ordinal */
+            + 8 /* time of arrival */
+            + 8 /* time to live */
+            ;
+
+        private static final int RECORD_LENGTH_POS = 0;
+        private static final int FLAGS_POS = RECORD_LENGTH_POS + 4;
+        private static final int MSG_LENGTH_POS = FLAGS_POS + 4;
+        private static final int SEQ_NUM_POS = MSG_LENGTH_POS + 4;
+        private static final int ORDINAL_POS = SEQ_NUM_POS + 4;
+        private static final int TIME_QUEUED_POS = ORDINAL_POS + 8;
+        private static final int TIME_TO_LIVE_POS = TIME_QUEUED_POS + 8;
+    }
+
+    private class RecordHeaderFlags
+    {
+        private static final int NONE = 0x0;
+        private static final int TRANSMITTED = 0x1;
+        private static final int RELEASED = 0x2;
+    }
+
+    TunnelStreamPersistenceFileV3(TunnelSubstream tunnelSubstream, RandomAccessFile file, FileChannel fileChannel, FileLock fileLock,
+            Msg tmpMsg, EncodeIterator tmpEncodeIter, DecodeIterator tmpDecodeIter, boolean reset, Error error)
+    {
+        super(tunnelSubstream, file, fileChannel, fileLock);
+
+		_savedMsgList = new VaDoubleLinkList<TunnelStreamPersistenceBuffer>();
+
+        if (reset)
+        {
+            _maxMsgLength = _tunnelSubstream._tunnelStream.classOfService().common().maxMsgSize();
+
+            /* Make sure several records of the maximum size fit in a segment. */
+            _segmentSize = DEFAULT_SEGMENT_SIZE;
+            while (_segmentSize < 4 * recordLength(_maxMsgLength + SlicedBufferPool.TUNNEL_STREAM_HDR_SIZE))
+                _segmentSize *= 2;
+            _segmentCount = INITIAL_SEGMENT_COUNT;
+        }
+
+        try
+        {
+            long fileSize;
+            if (reset) fileSize = Header.LENGTH + (long)_segmentCount * _segmentSize;
+            else fileSize = fileChannel.size();
+
+            _fileByteBuf = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            _fileByteBuf.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        catch(IOException e)
+        {
+            error.errorId(ReactorReturnCodes.FAILURE);
+            error.text("Failed to map persistence file to ByteBuffer");
+            return;
+        }
+
+        if (!reset)
+        {
+            _segmentSize = _fileByteBuf.getInt(Header.SEGMENT_SIZE_POS);
+            _segmentCount = _fileByteBuf.getInt(Header.SEGMENT_COUNT_POS);
+            _maxMsgLength = _fileByteBuf.getInt(Header.MAX_MSG_LENGTH_POS);
+
+            if (_segmentSize <= RecordHeader.LENGTH || _segmentCount <= 0
+                    || Header.LENGTH + (long)_segmentCount * _segmentSize > _fileByteBuf.capacity())
+            {
+                error.errorId(ReactorReturnCodes.FAILURE);
+                error.text("Persistence file header is invalid.");
+                return;
+            }
+
+            _tunnelSubstream._lastOutSeqNum = _fileByteBuf.getInt(Header.LAST_OUT_SEQ_NUM_POS);
+            _tunnelSubstream._lastInSeqNum = _fileByteBuf.getInt(Header.LAST_IN_SEQ_NUM_POS);
+        }
+        else
+        {
+            _tunnelSubstream._lastOutSeqNum = 0;
+            _tunnelSubstream._lastInSeqNum = 0;
+
+            _fileByteBuf.putInt(Header.FILE_VERSION_POS, FileVersion.V3L);
+            _fileByteBuf.putInt(Header.SEGMENT_SIZE_POS, _segmentSize);
+            _fileByteBuf.putInt(Header.SEGMENT_COUNT_POS, _segmentCount);
+            _fileByteBuf.putInt(Header.MAX_MSG_LENGTH_POS, _maxMsgLength);
+            _fileByteBuf.putInt(Header.LAST_OUT_SEQ_NUM_POS, 0);
+            _fileByteBuf.putInt(Header.LAST_IN_SEQ_NUM_POS, 0);
+            _fileByteBuf.putInt(Header.FLAGS_POS, 0);
+            markDirty(0, Header.LENGTH);
+        }
+
+        _maxSegmentCount = (int)Math.max(_segmentCount, (MAX_FILE_SIZE - Header.LENGTH) / _segmentSize);
+        _segmentLiveCount = new int[_segmentCount];
+        _segmentLiveBytes = new int[_segmentCount];
+
+        if (!reset)
+            loadRecords();
+        else
+        {
+            _nextOrdinal = 1;
+            _freeSegments = new int[_segmentCount];
+            for (int segment = _segmentCount - 1; segment >= 0; --segment)
+            {
+                clearSegment(segment);
+                _freeSegments[_freeSegmentCount++] = segment;
+            }
+        }
+
+        error.errorId(ReactorReturnCodes.SUCCESS);
+    }
+
+    /* Loads the unreleased records of an existing file, from its index if it was closed
+     * cleanly, and otherwise by scanning its segments. */
+    private void loadRecords()
+    {
+        if (!loadIndex())
+            scanRecords();
+
+        _freeSegments = new int[_segmentCount];
+        for (int segment = _segmentCount - 1; segment >= 0; --segment)
+            if (_segmentLiveCount[segment] == 0)
+                _freeSegments[_freeSegmentCount++] = segment;
+    }
+
+    /* Loads the records listed in the index written when the file was last closed.
+     * Returns false if there is no valid index. */
+    private boolean loadIndex()
+    {
+        int flags = _fileByteBuf.getInt(Header.FLAGS_POS);
+        if ((flags & HeaderFlags.INDEX_VALID) == 0)
+            return false;
+
+        /* The index is only valid until records are next updated, so clear the flag
+         * before anything else is written. If the file is not closed cleanly again,
+         * it will be scanned when next opened. */
+        _fileByteBuf.putInt(Header.FLAGS_POS, flags & ~HeaderFlags.INDEX_VALID);
+        markDirty(Header.FLAGS_POS, 4);
+        commit();
+
+        int indexPosition = _fileByteBuf.getInt(Header.INDEX_POS_POS);
+        int indexCount = _fileByteBuf.getInt(Header.INDEX_COUNT_POS);
+        if (indexPosition != segmentPosition(_segmentCount) || indexCount < 0
+                || indexPosition + (long)indexCount * IndexEntry.LENGTH > _fileByteBuf.capacity())
+            return false;
+
+        for (int entryPosition = indexPosition; entryPosition < indexPosition + indexCount * IndexEntry.LENGTH; entryPosition += IndexEntry.LENGTH)
+        {
+            int position = _fileByteBuf.getInt(entryPosition + IndexEntry.POSITION_POS);
+            int msgLength = _fileByteBuf.getInt(entryPosition + IndexEntry.MSG_LENGTH_POS);
+            int segment = (position - Header.LENGTH) / _segmentSize;
+
+            if (position < Header.LENGTH || segment >= _segmentCount || msgLength < 0
+                    || position - segmentPosition(segment) + recordLength(msgLength) > _segmentSize)
+            {
+                /* Index is damaged; scan instead. */
+                while (_savedMsgList.pop(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK) != null);
+                Arrays.fill(_segmentLiveCount, 0);
+                Arrays.fill(_segmentLiveBytes, 0);
+                return false;
+            }
+
+            TunnelStreamPersistenceBuffer persistBuffer = new TunnelStreamPersistenceBuffer();
+            persistBuffer.filePosition(position);
+            persistBuffer.length(msgLength);
+            persistBuffer.tunnelStreamHeaderLen(0); /* This format does not include a tunnel stream header. */
+            persistBuffer.isTransmitted((_fileByteBuf.getInt(entryPosition + IndexEntry.FLAGS_POS) & RecordHeaderFlags.TRANSMITTED) != 0);
+            if (persistBuffer.isTransmitted())
+                persistBuffer.seqNum(_fileByteBuf.getInt(entryPosition + IndexEntry.SEQ_NUM_POS));
+            _savedMsgList.push(persistBuffer, TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+
+            ++_segmentLiveCount[segment];
+            _segmentLiveBytes[segment] += recordLength(msgLength);
+        }
+
+        _nextOrdinal = _fileByteBuf.getLong(Header.NEXT_ORDINAL_POS);
+        return true;
+    }
+
+    /* Writes the index of the unreleased records, in the order they were saved, after the
+     * last segment of the file. */
+    private void writeIndex()
+    {
+        int indexPosition = segmentPosition(_segmentCount);
+        int indexCount = _savedMsgList.count();
+
+        if (_fileByteBuf.capacity() < indexPosition + (long)indexCount * IndexEntry.LENGTH)
+        {
+            try
+            {
+                _fileByteBuf = _fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexPosition + (long)indexCount * IndexEntry.LENGTH);
+                _fileByteBuf.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            catch (IOException e)
+            {
+                /* No index; the file will be scanned when next opened. */
+                return;
+            }
+        }
+
+        int entryPosition = indexPosition;
+        for (TunnelStreamPersistenceBuffer persistBuffer = _savedMsgList.start(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+                persistBuffer != null;
+                persistBuffer = _savedMsgList.forth(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK))
+        {
+            _fileByteBuf.putInt(entryPosition + IndexEntry.POSITION_POS, persistBuffer.filePosition());
+            _fileByteBuf.putInt(entryPosition + IndexEntry.MSG_LENGTH_POS, persistBuffer.length());
+            _fileByteBuf.putInt(entryPosition + IndexEntry.SEQ_NUM_POS, persistBuffer.isTransmitted() ? persistBuffer.seqNum() : 0);
+            _fileByteBuf.putInt(entryPosition + IndexEntry.FLAGS_POS, persistBuffer.isTransmitted() ? RecordHeaderFlags.TRANSMITTED : RecordHeaderFlags.NONE);
+            entryPosition += IndexEntry.LENGTH;
+        }
+
+        if (indexCount > 0)
+            markDirty(indexPosition, indexCount * IndexEntry.LENGTH);
+
+        _fileByteBuf.putInt(Header.INDEX_POS_POS, indexPosition);
+        _fileByteBuf.putInt(Header.INDEX_COUNT_POS, indexCount);
+        _fileByteBuf.putLong(Header.NEXT_ORDINAL_POS, _nextOrdinal);
+        markDirty(Header.INDEX_POS_POS, Header.NEXT_ORDINAL_POS + 8 - Header.INDEX_POS_POS);
+
+        /* Only mark the index valid once it is on disk. */
+        commit();
+        _fileByteBuf.putInt(Header.FLAGS_POS, _fileByteBuf.getInt(Header.FLAGS_POS) | HeaderFlags.INDEX_VALID);
+        markDirty(Header.FLAGS_POS, 4);
+    }
+
+    /* Scans the segments of an existing file for unreleased records, and loads them in
+     * the order they were saved. Large files are scanned in parallel. */
+    private void scanRecords()
+    {
+        int taskCount = 1;
+        if (_segmentCount >= PARALLEL_SCAN_MIN_SEGMENTS)
+            taskCount = Math.min(Runtime.getRuntime().availableProcessors(), _segmentCount / (PARALLEL_SCAN_MIN_SEGMENTS / 2));
+
+        SegmentScan[] scans = new SegmentScan[Math.max(taskCount, 1)];
+        for (int i = 0; i < scans.length; ++i)
+            scans[i] = new SegmentScan(_segmentCount * i / scans.length, _segmentCount * (i + 1) / scans.length);
+
+        if (scans.length == 1)
+            scans[0].call();
+        else
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(scans.length);
+            for (int i = 1; i < scans.length; ++i)
+                futures.add(scanExecutor().submit(scans[i]));
+            scans[0].call();
+
+            for (int i = 0; i < futures.size(); ++i)
+            {
+                boolean interrupted = false;
+                while (true)
+                {
+                    try
+                    {
+                        futures.get(i).get();
+                        break;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                    catch (ExecutionException e)
+                    {
+                        /* Scan only reads the mapped file; run it again here. */
+                        scans[i + 1].clear();
+                        scans[i + 1].call();
+                        break;
+                    }
+                }
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+            }
+        }
+
+        /* Gather the records and sort them by ordinal. Where the ordinals span less than 2^31,
+         * the ordinal and position of each record are sorted together as one long. */
+        int recordCount = 0;
+        long minOrdinal = Long.MAX_VALUE;
+        long maxOrdinal = Long.MIN_VALUE;
+        for (int i = 0; i < scans.length; ++i)
+        {
+            recordCount += scans[i]._count;
+            minOrdinal = Math.min(minOrdinal, scans[i]._minOrdinal);
+            maxOrdinal = Math.max(maxOrdinal, scans[i]._maxOrdinal);
+        }
+
+        final int[] positions = new int[recordCount];
+        final long[] ordinals = new long[recordCount];
+        int recordIndex = 0;
+        for (int i = 0; i < scans.length; ++i)
+        {
+            System.arraycopy(scans[i]._positions, 0, positions, recordIndex, scans[i]._count);
+            System.arraycopy(scans[i]._ordinals, 0, ordinals, recordIndex, scans[i]._count);
+            recordIndex += scans[i]._count;
+        }
+
+        if (recordCount > 0 && maxOrdinal - minOrdinal < Integer.MAX_VALUE)
+        {
+            long[] keys = new long[recordCount];
+            for (int i = 0; i < recordCount; ++i)
+                keys[i] = ((ordinals[i] - minOrdinal) << 32) | positions[i];
+            Arrays.sort(keys);
+            for (int i = 0; i < recordCount; ++i)
+            {
+                ordinals[i] = minOrdinal + (keys[i] >>> 32);
+                positions[i] = (int)keys[i];
+            }
+        }
+        else if (recordCount > 0)
+        {
+            Integer[] order = new Integer[recordCount];
+            for (int i = 0; i < recordCount; ++i)
+                order[i] = i;
+            Arrays.sort(order, new Comparator<Integer>()
+            {
+                public int compare(Integer first, Integer second)
+                {
+                    long firstOrdinal = ordinals[first];
+                    long secondOrdinal = ordinals[second];
+                    return firstOrdinal < secondOrdinal ? -1 : (firstOrdinal == secondOrdinal ? 0 : 1);
+                }
+            });
+            int[] sortedPositions = new int[recordCount];
+            long[] sortedOrdinals = new long[recordCount];
+            for (int i = 0; i < recordCount; ++i)
+            {
+                sortedPositions[i] = positions[order[i]];
+                sortedOrdinals[i] = ordinals[order[i]];
+            }
+            System.arraycopy(sortedPositions, 0, positions, 0, recordCount);
+            System.arraycopy(sortedOrdinals, 0, ordinals, 0, recordCount);
+        }
+
+        _nextOrdinal = 1;
+        for (int i = 0; i < recordCount; ++i)
+        {
+            int position = positions[i];
+
+            if (ordinals[i] < _nextOrdinal)
+            {
+                /* Second copy of a record that was being moved by compaction. */
+                releaseRecord(position);
+                continue;
+            }
+            _nextOrdinal = ordinals[i] + 1;
+
+            int flags = _fileByteBuf.getInt(position + RecordHeader.FLAGS_POS);
+            TunnelStreamPersistenceBuffer persistBuffer = new TunnelStreamPersistenceBuffer();
+            persistBuffer.filePosition(position);
+            persistBuffer.length(_fileByteBuf.getInt(position + RecordHeader.MSG_LENGTH_POS));
+            persistBuffer.tunnelStreamHeaderLen(0); /* This format does not include a tunnel stream header. */
+            persistBuffer.isTransmitted((flags & RecordHeaderFlags.TRANSMITTED) != 0);
+            if (persistBuffer.isTransmitted())
+                persistBuffer.seqNum(_fileByteBuf.getInt(position + RecordHeader.SEQ_NUM_POS));
+            _savedMsgList.push(persistBuffer, TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+        }
+    }
+
+    /* Scans a range of segments for unreleased records, collecting their positions and
+     * ordinals and counting the live records of each segment. Each scan reads the file
+     * through its own view of the mapping, and updates only the counts of its own
+     * segments, so scans of different ranges may run concurrently. */
+    private class SegmentScan implements Callable<Void>
+    {
+        private final int _firstSegment;
+        private final int _endSegment;
+        private final ByteBuffer _buf;
+
+        int[] _positions = new int[64];
+        long[] _ordinals = new long[64];
+        int _count;
+        long _minOrdinal = Long.MAX_VALUE;
+        long _maxOrdinal = Long.MIN_VALUE;
+
+        SegmentScan(int firstSegment, int endSegment)
+        {
+            _firstSegment = firstSegment;
+            _endSegment = endSegment;
+            _buf = _fileByteBuf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void clear()
+        {
+            _count = 0;
+            _minOrdinal = Long.MAX_VALUE;
+            _maxOrdinal = Long.MIN_VALUE;
+            for (int segment = _firstSegment; segment < _endSegment; ++segment)
+            {
+                _segmentLiveCount[segment] = 0;
+                _segmentLiveBytes[segment] = 0;
+            }
+        }
+
+        public Void call()
+        {
+            for (int segment = _firstSegment; segment < _endSegment; ++segment)
+            {
+                int segmentStart = segmentPosition(segment);
+                int offset = 0;
+
+                while (offset + RecordHeader.LENGTH <= _segmentSize)
+                {
+                    int position = segmentStart + offset;
+                    int recordLength = _buf.getInt(position + RecordHeader.RECORD_LENGTH_POS);
+                    if (recordLength < RecordHeader.LENGTH || offset + recordLength > _segmentSize)
+                        break;
+
+                    if ((_buf.getInt(position + RecordHeader.FLAGS_POS) & RecordHeaderFlags.RELEASED) == 0)
+                    {
+                        if (_count == _positions.length)
+                        {
+                            _positions = Arrays.copyOf(_positions, _count * 2);
+                            _ordinals = Arrays.copyOf(_ordinals, _count * 2);
+                        }
+
+                        long ordinal = _buf.getLong(position + RecordHeader.ORDINAL_POS);
+                        _positions[_count] = position;
+                        _ordinals[_count] = ordinal;
+                        ++_count;
+                        _minOrdinal = Math.min(_minOrdinal, ordinal);
+                        _maxOrdinal = Math.max(_maxOrdinal, ordinal);
+
+                        ++_segmentLiveCount[segment];
+                        _segmentLiveBytes[segment] += recordLength;
+                    }
+
+                    offset += recordLength;
+                }
+            }
+            return null;
+        }
+    }
+
+    /* Returns the executor on which large files are scanned, creating it on first use. */
+    private static synchronized ExecutorService scanExecutor()
+    {
+        if (_scanExecutor == null)
+        {
+            _scanExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "TunnelStreamPersistenceScan");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return _scanExecutor;
+    }
+
+    @Override
+    int close(Error error)
+    {
+        /* Write an index, so that the file need not be scanned when next opened. */
+        if (_fileByteBuf != null && _segmentLiveCount != null)
+            writeIndex();
+
+        return super.close(error);
+    }
+
+	@Override
+	void lastOutSeqNum(int lastOutSeqNum)
+	{
+        _fileByteBuf.putInt(Header.LAST_OUT_SEQ_NUM_POS, lastOutSeqNum);
+        markDirty(Header.LAST_OUT_SEQ_NUM_POS, 4);
+	}
+
+    @Override
+	void lastInSeqNum(int lastInSeqNum)
+	{
+        _fileByteBuf.putInt(Header.LAST_IN_SEQ_NUM_POS, lastInSeqNum);
+        markDirty(Header.LAST_IN_SEQ_NUM_POS, 4);
+	}
+
+    @Override
+	int saveMsg(TunnelStreamBuffer buffer, Error error)
+    {
+        int entryPosition;
+        int recordLength;
+        TunnelStreamPersistenceBuffer persistenceBuffer;
+
+        assert (buffer.length() <= _tunnelSubstream._tunnelStream._classOfService.common().maxMsgSize());
+
+        buffer.setToInnerWriteBuffer();
+        recordLength = recordLength(buffer.length());
+
+        /* Stop if no space is available. */
+        if ((entryPosition = allocateRecord(recordLength)) < 0)
+        {
+            error.errorId(ReactorReturnCodes.PERSISTENCE_FULL);
+            error.text("Local persistence file is full. Space may become available later as delivered messages are acknowledged.");
+            return ReactorReturnCodes.PERSISTENCE_FULL;
+        }
+
+        /* Store message in file. The record length is written last, so that the record
+         * is not seen until it is complete. */
+        _fileByteBuf.putInt(entryPosition + RecordHeader.FLAGS_POS, RecordHeaderFlags.NONE);
+        _fileByteBuf.putInt(entryPosition + RecordHeader.MSG_LENGTH_POS, buffer.length());
+        _fileByteBuf.putInt(entryPosition + RecordHeader.SEQ_NUM_POS, 0);
+        _fileByteBuf.putLong(entryPosition + RecordHeader.ORDINAL_POS, _nextOrdinal++);
+        if (!buffer.timeoutIsCode())
+        {
+            assert(buffer.timeoutNsec() - buffer.timeQueuedNsec() > 0);
+            _fileByteBuf.putLong(entryPosition + RecordHeader.TIME_TO_LIVE_POS, (buffer.timeoutNsec() - buffer.timeQueuedNsec()) / TunnelStreamUtil.NANO_PER_MILLI);
+            _fileByteBuf.putLong(entryPosition + RecordHeader.TIME_QUEUED_POS, buffer.timeQueuedNsec());
+        }
+        else
+            _fileByteBuf.putLong(entryPosition + RecordHeader.TIME_TO_LIVE_POS, buffer.timeoutNsec());
+
+        _fileByteBuf.position(entryPosition + RecordHeader.LENGTH);
+        buffer.copy(_fileByteBuf);
+
+        writeRecordLength(entryPosition, recordLength);
+
+        if ((persistenceBuffer = _persistentBufferPool.pop(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK)) == null)
+            persistenceBuffer = new TunnelStreamPersistenceBuffer();
+        persistenceBuffer.filePosition(entryPosition);
+        persistenceBuffer.length(buffer.length());
+        _savedMsgList.push(persistenceBuffer, TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+
+        buffer.persistenceBuffer(_tunnelSubstream, persistenceBuffer);
+
+        updateComplete();
+        return ReactorReturnCodes.SUCCESS;
+    }
+
+    @Override
+    void releasePersistenceBuffers(int seqNum)
+    {
+        TunnelStreamPersistenceBuffer persistBuffer;
+
+        while ((persistBuffer = _savedMsgList.peek()) != null
+                && persistBuffer.isTransmitted()
+                && TunnelStreamUtil.seqNumCompare(persistBuffer.seqNum(), seqNum) <= 0)
+            releasePersistenceBuffer(persistBuffer);
+    }
+
+    @Override
+	void releasePersistenceBuffer(TunnelStreamPersistenceBuffer persistBuffer)
+	{
+        releaseRecord(persistBuffer.filePosition());
+
+        _savedMsgList.remove(persistBuffer, TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+        persistBuffer.reset();
+        _persistentBufferPool.push(persistBuffer, TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+
+        updateComplete();
+	}
+
+    @Override
+    void setBufferAsTransmitted(TunnelStreamPersistenceBuffer persistenceBuffer)
+    {
+        if (persistenceBuffer.isTransmitted())
+            return;
+
+        int seqNum;
+        /* Assign a sequence number to the buffer and mark it as
+         * transmitted. */
+        seqNum = _tunnelSubstream._lastOutSeqNum + 1;
+
+        _fileByteBuf.putInt(persistenceBuffer.filePosition() + RecordHeader.SEQ_NUM_POS, seqNum);
+        _fileByteBuf.putInt(persistenceBuffer.filePosition() + RecordHeader.FLAGS_POS, RecordHeaderFlags.TRANSMITTED);
+        markDirty(persistenceBuffer.filePosition() + RecordHeader.FLAGS_POS, RecordHeader.SEQ_NUM_POS + 4 - RecordHeader.FLAGS_POS);
+
+        persistenceBuffer.isTransmitted(true);
+        persistenceBuffer.seqNum(seqNum);
+        lastOutSeqNum(seqNum);
+        updateComplete();
+    }
+
+    @Override
+	int retransmitBuffers(int seqNum, Msg tmpMsg, EncodeIterator tmpEncodeIter, DecodeIterator tmpDecodeIter, Error error)
+	{
+		TunnelStreamPersistenceBuffer persistBuffer;
+		int ret;
+		long currentTime = System.nanoTime();
+
+        for(persistBuffer = _savedMsgList.start(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+                persistBuffer != null;
+                persistBuffer = _savedMsgList.forth(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK))
+            if ((ret = retransmitBuffer(persistBuffer, seqNum, currentTime, tmpMsg, tmpEncodeIter, tmpDecodeIter, error)) != ReactorReturnCodes.SUCCESS)
+                return ret;
+
+        return ReactorReturnCodes.SUCCESS;
+	}
+
+    /* Returns the file position for a record of the given length, or -1 if the file
+     * is full. Moves to another segment if the active one has no room. */
+    private int allocateRecord(int recordLength)
+    {
+        if (_activeSegment < 0 || _activeOffset + recordLength > _segmentSize)
+        {
+            /* Keep one free segment in reserve for compaction. */
+            if (_freeSegmentCount <= 1 && !growFile() && !compact(recordLength))
+                return -1;
+
+            if (_activeSegment < 0 || _activeOffset + recordLength > _segmentSize)
+                activateSegment(_freeSegments[--_freeSegmentCount]);
+        }
+
+        int position = segmentPosition(_activeSegment) + _activeOffset;
+        _activeOffset += recordLength;
+        ++_segmentLiveCount[_activeSegment];
+        _segmentLiveBytes[_activeSegment] += recordLength;
+
+        /* Mark the end of the records in the segment. */
+        if (_activeOffset + 4 <= _segmentSize)
+        {
+            _fileByteBuf.putInt(position + recordLength, 0);
+            markDirty(position + recordLength, 4);
+        }
+
+        return position;
+    }
+
+    /* Makes a free segment the one to which records are appended. */
+    private void activateSegment(int segment)
+    {
+        if (_activeSegment >= 0 && _segmentLiveCount[_activeSegment] == 0)
+            _freeSegments[_freeSegmentCount++] = _activeSegment;
+
+        _activeSegment = segment;
+        _activeOffset = 0;
+        clearSegment(segment);
+    }
+
+    /* Marks a segment as containing no records, in case the file holds older data there. */
+    private void clearSegment(int segment)
+    {
+        _fileByteBuf.putInt(segmentPosition(segment) + RecordHeader.RECORD_LENGTH_POS, 0);
+        markDirty(segmentPosition(segment), 4);
+    }
+
+    /* Doubles the number of segments in the file, up to the maximum file size. */
+    private boolean growFile()
+    {
+        if (_segmentCount == _maxSegmentCount)
+            return false;
+
+        int newSegmentCount = Math.min(_segmentCount * 2, _maxSegmentCount);
+
+        try
+        {
+            _fileByteBuf = _fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, Header.LENGTH + (long)newSegmentCount * _segmentSize);
+            _fileByteBuf.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        catch (IOException e)
+        {
+            /* Could not extend the file; continue with the current segments. */
+            return false;
+        }
+
+        int[] freeSegments = new int[newSegmentCount];
+        System.arraycopy(_freeSegments, 0, freeSegments, 0, _freeSegmentCount);
+        _freeSegments = freeSegments;
+        for (int segment = newSegmentCount - 1; segment >= _segmentCount; --segment)
+        {
+            clearSegment(segment);
+            _freeSegments[_freeSegmentCount++] = segment;
+        }
+
+        int[] liveCount = new int[newSegmentCount];
+        System.arraycopy(_segmentLiveCount, 0, liveCount, 0, _segmentCount);
+        _segmentLiveCount = liveCount;
+
+        int[] liveBytes = new int[newSegmentCount];
+        System.arraycopy(_segmentLiveBytes, 0, liveBytes, 0, _segmentCount);
+        _segmentLiveBytes = liveBytes;
+
+        _segmentCount = newSegmentCount;
+        _fileByteBuf.putInt(Header.SEGMENT_COUNT_POS, _segmentCount);
+        markDirty(Header.SEGMENT_COUNT_POS, 4);
+        return true;
+    }
+
+    /* Copies the live records of the segment with the least live data into the reserved
+     * free segment, which becomes the active segment, and frees the segment they came from.
+     * Returns false if there is no reserved segment, or the records would not leave room
+     * for a record of the given length. */
+    private boolean compact(int recordLength)
+    {
+        if (_freeSegmentCount == 0)
+            return false;
+
+        int victim = -1;
+        for (int segment = 0; segment < _segmentCount; ++segment)
+        {
+            if (segment == _activeSegment || _segmentLiveCount[segment] == 0)
+                continue;
+            if (victim < 0 || _segmentLiveBytes[segment] < _segmentLiveBytes[victim])
+                victim = segment;
+        }
+
+        if (victim < 0 || _segmentLiveBytes[victim] + recordLength > _segmentSize)
+            return false;
+
+        activateSegment(_freeSegments[--_freeSegmentCount]);
+
+        int victimStart = segmentPosition(victim);
+        ByteBuffer src = _fileByteBuf.duplicate();
+        ByteBuffer dst = _fileByteBuf.duplicate();
+
+        for (TunnelStreamPersistenceBuffer persistBuffer = _savedMsgList.start(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK);
+                persistBuffer != null;
+                persistBuffer = _savedMsgList.forth(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK))
+        {
+            int oldPosition = persistBuffer.filePosition();
+            if (oldPosition < victimStart || oldPosition >= victimStart + _segmentSize)
+                continue;
+
+            int length = _fileByteBuf.getInt(oldPosition + RecordHeader.RECORD_LENGTH_POS);
+            int newPosition = allocateRecord(length);
+
+            /* Copy all but the record length, which is written last. */
+            src.limit(oldPosition + length);
+            src.position(oldPosition + 4);
+            dst.position(newPosition + 4);
+            dst.put(src);
+            writeRecordLength(newPosition, length);
+
+            releaseRecord(oldPosition);
+            persistBuffer.filePosition(newPosition);
+        }
+
+        return true;
+    }
+
+    /* Flags a record as released, and frees its segment if no live records remain in it. */
+    private void releaseRecord(int position)
+    {
+        int segment = (position - Header.LENGTH) / _segmentSize;
+
+        int flags = _fileByteBuf.getInt(position + RecordHeader.FLAGS_POS);
+        _fileByteBuf.putInt(position + RecordHeader.FLAGS_POS, flags | RecordHeaderFlags.RELEASED);
+        markDirty(position + RecordHeader.FLAGS_POS, 4);
+
+        --_segmentLiveCount[segment];
+        _segmentLiveBytes[segment] -= _fileByteBuf.getInt(position + RecordHeader.RECORD_LENGTH_POS);
+        /* While loading, free segments are found once all records are scanned. */
+        if (_segmentLiveCount[segment] == 0 && segment != _activeSegment && _freeSegments != null)
+            _freeSegments[_freeSegmentCount++] = segment;
+    }
+
+    private void writeRecordLength(int position, int recordLength)
+    {
+        _fileByteBuf.putInt(position + RecordHeader.RECORD_LENGTH_POS, recordLength);
+        markDirty(position, recordLength);
+    }
+
+    private int segmentPosition(int segment)
+    {
+        return Header.LENGTH + segment * _segmentSize;
+    }
+
+    private static int recordLength(int msgLength)
+    {
+        return (RecordHeader.LENGTH + msgLength + RECORD_ALIGNMENT - 1) & ~(RECORD_ALIGNMENT - 1);
+    }
+
+    @Override
+    void clear(Error tmpError)
+    {
+        super.clear(tmpError);
+        while (_savedMsgList.pop(TunnelStreamPersistenceBuffer.SUBSTREAM_LINK) != null);
+        _segmentLiveCount = null;
+        _segmentLiveBytes = null;
+        _freeSegments = null;
+        _freeSegmentCount = 0;
+        _activeSegment = -1;
+        _segmentCount = 0;
+    }
+
+    @Override
+    int persistBufferMsgOffset()
+    {
+        return RecordHeader.LENGTH;
+    }
+
+    @Override
+    long persistBufferTimeoutNsec(TunnelStreamPersistenceBuffer persistBuffer)
+    {
+        return _fileByteBuf.getLong(persistBuffer.filePosition() + RecordHeader.TIME_TO_LIVE_POS) * TunnelStreamUtil.NANO_PER_MILLI;
+    }
+}
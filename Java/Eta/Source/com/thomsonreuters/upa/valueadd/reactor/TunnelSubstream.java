@@ -192,11 +192,24 @@ class TunnelSubstream
             }
             fileVersion = _byteBuffer.getInt(0);		    
 		}
+		else if (_tunnelStream._classOfService.guarantee().persistenceLogStructured())
+		    fileVersion = FileVersion.V3;
 		else
 		    fileVersion = TunnelStreamPersistenceFile.defaultPersistenceVersion();
 
         switch(fileVersion)
         {
+            case FileVersion.V3:
+            {
+                _persistFile = new TunnelStreamPersistenceFileV3(this, file, fileChannel, fileLock, _msg, _encIter, _dIter, reset, error);
+                if (error.errorId() != ReactorReturnCodes.SUCCESS)
+                {
+                    _persistFile = null;
+                    return;
+                }
+                break;
+            }
+
             case FileVersion.V2:
             {
                 _persistFile = new TunnelStreamPersistenceFileV2(this, file, fileChannel, fileLock, _msg, _encIter, _dIter, reset, error);
@@ -259,6 +272,7 @@ class TunnelSubstream
         _state = TunnelSubstreamState.NOT_OPEN;
         if (_persistFile != null)
         {
+            _tunnelStream.releaseUnloadedBuffers(this, error);
             if (_persistFile.close(error) != ReactorReturnCodes.SUCCESS)
                 return error.errorId();
             _persistFile = null;
@@ -774,6 +788,18 @@ class TunnelSubstream
        return ReactorReturnCodes.SUCCESS;
    }
 
+   /* Returns whether the persistence file is open. */
+   boolean hasPersistenceFile()
+   {
+       return _persistFile != null;
+   }
+
+   /* Loads the data of a message recovered from the persistence file when it is next to be sent. */
+   TunnelStreamBuffer loadRetransmitBuffer(TunnelStreamBuffer queuedBuffer, Error error)
+   {
+       return _persistFile.loadRetransmitBuffer(queuedBuffer, _encIter, _dIter, error);
+   }
+
    void releasePersistenceBuffer(TunnelStreamPersistenceBuffer persistBuffer)
    {
        if (_persistFile != null)
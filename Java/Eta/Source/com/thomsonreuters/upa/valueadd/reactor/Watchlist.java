@@ -1,7 +1,6 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.LinkedList;
 
 import com.thomsonreuters.upa.codec.Buffer;
@@ -15,6 +14,7 @@ import com.thomsonreuters.upa.codec.Msg;
 import com.thomsonreuters.upa.codec.MsgClasses;
 import com.thomsonreuters.upa.codec.RequestMsg;
 import com.thomsonreuters.upa.rdm.DomainTypes;
+import com.thomsonreuters.upa.valueadd.common.VaIntHashMap;
 import com.thomsonreuters.upa.valueadd.common.VaNode;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.MsgBase;
 import com.thomsonreuters.upa.valueadd.reactor.WlRequest.State;
@@ -31,8 +31,8 @@ class Watchlist extends VaNode
     WlItemHandler _itemHandler;
     int _nextStreamId; // used to give a unique stream id for all watchlist streams
     int _nextProviderStreamId; // used to give a unique provider stream id for all application streams used in symbollist stream
-    HashMap<WlInteger,WlRequest> _streamIdtoWlRequestTable;
-    HashMap<WlInteger,WlStream> _streamIdtoWlStreamTable;
+    VaIntHashMap<WlRequest> _streamIdtoWlRequestTable;
+    VaIntHashMap<WlStream> _streamIdtoWlStreamTable;
     EncodeIterator _eIter = CodecFactory.createEncodeIterator();
     DecodeIterator _dIter = CodecFactory.createDecodeIterator();
     // list to track stream timeouts
@@ -45,8 +45,6 @@ class Watchlist extends VaNode
     Buffer _tempBuffer2 = CodecFactory.createBuffer();
     ByteBuffer _tempByteBuffer2;
     Msg _tempMsg = CodecFactory.createMsg();
-    
-    WlInteger _tempWlInteger = ReactorFactory.createWlInteger();
 
     Watchlist(ReactorChannel reactorChannel, ConsumerRole consumerRole)
     {
@@ -56,13 +54,13 @@ class Watchlist extends VaNode
         _watchlistOptions = _role.watchlistOptions();
         if (_watchlistOptions.itemCountHint() > 0)
         {
-            _streamIdtoWlRequestTable = new HashMap<WlInteger,WlRequest>(_watchlistOptions.itemCountHint() + 10, 1);
-            _streamIdtoWlStreamTable = new HashMap<WlInteger,WlStream>(_watchlistOptions.itemCountHint() + 10, 1);
+            _streamIdtoWlRequestTable = new VaIntHashMap<WlRequest>(_watchlistOptions.itemCountHint() + 10);
+            _streamIdtoWlStreamTable = new VaIntHashMap<WlStream>(_watchlistOptions.itemCountHint() + 10);
         }
         else
         {
-            _streamIdtoWlRequestTable = new HashMap<WlInteger,WlRequest>();
-            _streamIdtoWlStreamTable = new HashMap<WlInteger,WlStream>();
+            _streamIdtoWlRequestTable = new VaIntHashMap<WlRequest>();
+            _streamIdtoWlStreamTable = new VaIntHashMap<WlStream>();
         }
         _loginHandler = new WlLoginHandler(this);
         _directoryHandler = new WlDirectoryHandler(this);
@@ -73,12 +71,12 @@ class Watchlist extends VaNode
         _tempBuffer2.data(_tempByteBuffer2);
     }
     
-    HashMap<WlInteger,WlStream> streamIdtoWlStreamTable()
+    VaIntHashMap<WlStream> streamIdtoWlStreamTable()
     {
         return _streamIdtoWlStreamTable;
     }
     
-    HashMap<WlInteger,WlRequest> streamIdtoWlRequestTable()
+    VaIntHashMap<WlRequest> streamIdtoWlRequestTable()
     {
         return _streamIdtoWlRequestTable;
     }
@@ -86,8 +84,7 @@ class Watchlist extends VaNode
     /* Submit a Codec message to the watchlist. */
     int submitMsg(Msg msg, ReactorSubmitOptions submitOptions, ReactorErrorInfo errorInfo)
     {
-        _tempWlInteger.value(msg.streamId());
-        WlRequest wlRequest = _streamIdtoWlRequestTable.get(_tempWlInteger);
+        WlRequest wlRequest = _streamIdtoWlRequestTable.get(msg.streamId());
         boolean isReissue = false;
 
         if (msg.msgClass() == MsgClasses.REQUEST)
@@ -158,10 +155,7 @@ class Watchlist extends VaNode
                     // add to watchlist request table if new request
                     if (!isReissue)
                     {
-                        WlInteger wlInteger = ReactorFactory.createWlInteger();
-                        wlInteger.value(msg.streamId());
-                        wlRequest.tableKey(wlInteger);
-                        _streamIdtoWlRequestTable.put(wlInteger, wlRequest);
+                        _streamIdtoWlRequestTable.put(msg.streamId(), wlRequest);
                     }
                 }
             }
@@ -365,11 +359,9 @@ class Watchlist extends VaNode
         
         // keep attempting to get next stream id if already found in table
         int nextStreamId = ++_nextStreamId;
-        _tempWlInteger.value(nextStreamId);
-        while (_streamIdtoWlStreamTable.containsKey(_tempWlInteger))
+        while (_streamIdtoWlStreamTable.containsKey(nextStreamId))
         {
             nextStreamId = ++_nextStreamId;
-            _tempWlInteger.value(nextStreamId);
         }
 
         return nextStreamId;
@@ -385,11 +377,9 @@ class Watchlist extends VaNode
         
         // keep attempting to get next stream id if already found in table
         int nextProviderStreamId = ++_nextProviderStreamId;
-        _tempWlInteger.value(-nextProviderStreamId);
-        while (_streamIdtoWlRequestTable.containsKey(_tempWlInteger))
+        while (_streamIdtoWlRequestTable.containsKey(-nextProviderStreamId))
         {
             nextProviderStreamId = ++_nextProviderStreamId;
-            _tempWlInteger.value(-nextProviderStreamId);
         }
         // negative
         return -nextProviderStreamId;
@@ -515,12 +505,7 @@ class Watchlist extends VaNode
     
     void closeWlRequest(WlRequest wlRequest)
     {
-        _tempWlInteger.value(wlRequest.requestMsg().streamId());
-        _streamIdtoWlRequestTable.remove(_tempWlInteger);
-        if (wlRequest.tableKey() != null)
-        {
-            wlRequest.tableKey().returnToPool();
-        }
+        _streamIdtoWlRequestTable.remove(wlRequest.requestMsg().streamId());
         wlRequest.state(State.RETURN_TO_POOL);
         wlRequest.returnToPool();
     }
@@ -546,7 +531,6 @@ class Watchlist extends VaNode
         _eIter.clear();
         _dIter.clear();
         _tempMsg.clear();
-        _tempWlInteger.clear();
         _streamTimeoutInfoList.clear();
         _streamIdtoWlRequestTable.clear();
         _streamIdtoWlStreamTable.clear();
@@ -20,6 +20,7 @@ import com.thomsonreuters.upa.codec.StreamStates;
 import com.thomsonreuters.upa.codec.UpdateMsg;
 import com.thomsonreuters.upa.rdm.Directory;
 import com.thomsonreuters.upa.rdm.DomainTypes;
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.MsgBase;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.DirectoryMsg;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.directory.DirectoryMsgFactory;
@@ -65,8 +66,6 @@ public class WlDirectoryHandler implements WlHandler
     // flag for dispatching requests
     boolean _requestDispatchFlag;
     
-    WlInteger _tempWlInteger = ReactorFactory.createWlInteger();
-    
     WlDirectoryHandler(Watchlist watchlist)
     {
         _watchlist = watchlist;
@@ -123,7 +122,7 @@ public class WlDirectoryHandler implements WlHandler
         // If not reissue, add watchlist Request to stream userRequestList
         if (!isReissue)
         {
-        	_stream.userRequestList().add(wlRequest);
+        	_stream.addUserRequest(wlRequest);
         }
         
         // Queue request message for assembly and dispatch only if the requestMsg wants a refresh and we have a refresh message
@@ -152,7 +151,7 @@ public class WlDirectoryHandler implements WlHandler
         {
             case MsgClasses.CLOSE:
                 // remove watchlist request form userRequestList
-                _stream.userRequestList().remove(wlRequest);
+                _stream.removeUserRequest(wlRequest);
                 
                 // close watchlist request
                 _watchlist.closeWlRequest(wlRequest);
@@ -418,8 +417,6 @@ public class WlDirectoryHandler implements WlHandler
     
     void handleClose(WlStream wlStream, ReactorErrorInfo errorInfo)
     {
-    	LinkedList<WlRequest> requestList = wlStream.userRequestList();
-     	   
     	WlRequest usrRequest = null;
     	Service service = null;
 
@@ -428,7 +425,7 @@ public class WlDirectoryHandler implements WlHandler
     	_directoryUpdate.clear();
     	_directoryUpdate.rdmMsgType(DirectoryMsgType.UPDATE);
     	
-    	for (usrRequest = requestList.poll(); usrRequest!= null; usrRequest = requestList.poll())
+    	for (usrRequest = wlStream.pollUserRequest(); usrRequest!= null; usrRequest = wlStream.pollUserRequest())
     	{    	 
     		_directoryUpdate.streamId(usrRequest.requestMsg().streamId());
     		
@@ -471,7 +468,7 @@ public class WlDirectoryHandler implements WlHandler
     
     void handleChannelDown(WlStream wlStream, ReactorErrorInfo errorInfo)
     {
-    	LinkedList<WlRequest> requestList = wlStream.userRequestList();
+    	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
      	   
     	WlRequest usrRequest = null;
     	Service service = null;
@@ -483,14 +480,14 @@ public class WlDirectoryHandler implements WlHandler
             _stream.state().streamState(StreamStates.CLOSED_RECOVER);
             _stream.state().dataState(DataStates.SUSPECT);                
             // remove this stream from watchlist table
-            _watchlist.streamIdtoWlStreamTable().remove(_stream.tableKey());
+            _watchlist.streamIdtoWlStreamTable().remove(_directoryStreamId);
 
             _directoryUpdate.clear();
             _directoryUpdate.rdmMsgType(DirectoryMsgType.UPDATE);
 
-            for (int j = 0; j < requestList.size(); j++)
+            for (usrRequest = requestList.start(WlRequest.USER_REQUEST_LINK); usrRequest != null;
+                    usrRequest = requestList.forth(WlRequest.USER_REQUEST_LINK))
             {    	 
-                usrRequest = requestList.get(j);
                 usrRequest.state(WlRequest.State.REFRESH_PENDING);
                 _directoryUpdate.streamId(usrRequest.requestMsg().streamId());
 
@@ -592,9 +589,9 @@ public class WlDirectoryHandler implements WlHandler
         if (ret == ReactorCallbackReturnCodes.SUCCESS)
         {
         	// fanout refresh message to user requests associated with the stream
-            for (int i = 0; i < wlStream.userRequestList().size(); i++)
+            for (WlRequest wlRequest = wlStream.userRequestList().start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                    wlRequest = wlStream.userRequestList().forth(WlRequest.USER_REQUEST_LINK))
             {
-                WlRequest wlRequest = wlStream.userRequestList().get(i);
 
                 // only fanout to those whose state is REFRESH_PENDING or unsolicited
                 if (!((RefreshMsg)msg).checkSolicited() ||
@@ -714,9 +711,9 @@ public class WlDirectoryHandler implements WlHandler
         if (ret == ReactorCallbackReturnCodes.SUCCESS)
         {
         	// fanout refresh message to user requests associated with the stream
-            for (int i = 0; i < wlStream.userRequestList().size(); i++)
+            for (WlRequest wlRequest = wlStream.userRequestList().start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                    wlRequest = wlStream.userRequestList().forth(WlRequest.USER_REQUEST_LINK))
             {
-                WlRequest wlRequest = wlStream.userRequestList().get(i);
 
                 // only fanout to those whose state is REFRESH_PENDING or unsolicited
                 if (!((RefreshMsg)msg).checkSolicited() ||
@@ -844,9 +841,9 @@ public class WlDirectoryHandler implements WlHandler
         }
         
         // fanout refresh message to user requests associated with the stream
-        for (int i = 0; i < wlStream.userRequestList().size(); i++)
+        for (WlRequest wlRequest = wlStream.userRequestList().start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                wlRequest = wlStream.userRequestList().forth(WlRequest.USER_REQUEST_LINK))
         {
-            WlRequest wlRequest = wlStream.userRequestList().get(i);
             
             // only fanout to those whose state is OPEN or REFRESH_PENDING
             if (wlRequest.state() == WlRequest.State.OPEN ||
@@ -907,9 +904,9 @@ public class WlDirectoryHandler implements WlHandler
     	int ret = ReactorCallbackReturnCodes.SUCCESS;
     	
     	// fanout generic message to user requests associated with the stream
-        for (int i = 0; i < wlStream.userRequestList().size(); i++)
+        for (WlRequest wlRequest = wlStream.userRequestList().start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                wlRequest = wlStream.userRequestList().forth(WlRequest.USER_REQUEST_LINK))
         {
-            WlRequest wlRequest = wlStream.userRequestList().get(i);
             
             // only fanout to those whose state is OPEN or REFRESH_PENDING or REFRESH_COMPLETE_PENDING
             if (wlRequest.state() == WlRequest.State.OPEN ||
@@ -963,9 +960,9 @@ public class WlDirectoryHandler implements WlHandler
 	        }
 	        
             // fanout refresh message to user requests associated with the stream
-            for (int i = 0; i < _stream.userRequestList().size(); i++)
+            for (WlRequest wlRequest = _stream.userRequestList().start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                    wlRequest = _stream.userRequestList().forth(WlRequest.USER_REQUEST_LINK))
             {
-                WlRequest wlRequest = _stream.userRequestList().get(i);
 	                
 	            // only fanout to those whose state is OPEN or REFRESH_PENDING
                 if (wlRequest.state() == WlRequest.State.REFRESH_PENDING)
@@ -1022,16 +1019,13 @@ public class WlDirectoryHandler implements WlHandler
         _stream.watchlist(_watchlist);
         _stream.domainType(DomainTypes.SOURCE);
 
-        _stream.tableKey(ReactorFactory.createWlInteger());
         _directoryRequest.streamId(_directoryStreamId);
-        _stream.tableKey().value(_directoryRequest.streamId());
-        _watchlist.streamIdtoWlStreamTable().put(_stream.tableKey(), _stream);
+        _watchlist.streamIdtoWlStreamTable().put(_directoryRequest.streamId(), _stream);
         
         if (_watchlist.role()._directoryRequest != null && !_roleDirectoryRequestAdded)
         {
-            WlInteger wlInteger = ReactorFactory.createWlInteger();
-            wlInteger.value(_watchlist.role().rdmDirectoryRequest().streamId());
-        	if (!_watchlist.streamIdtoWlRequestTable().containsKey(wlInteger))
+            int requestStreamId = _watchlist.role().rdmDirectoryRequest().streamId();
+        	if (!_watchlist.streamIdtoWlRequestTable().containsKey(requestStreamId))
         	{
             	// User has enabled initDefaultRDMDirectoryRequest
                 WlRequest wlRequest = ReactorFactory.createWlRequest();
@@ -1040,17 +1034,12 @@ public class WlDirectoryHandler implements WlHandler
                 wlRequest.requestMsg().clear();
                 _tempMsg.copy(wlRequest.requestMsg(), CopyMsgFlags.ALL_FLAGS);
                 wlRequest.handler(this);
-                wlRequest.tableKey(wlInteger);
-                _watchlist.streamIdtoWlRequestTable().put(wlInteger, wlRequest);
+                _watchlist.streamIdtoWlRequestTable().put(requestStreamId, wlRequest);
                 // Go immediately into Refresh Complete Pending state because we do not use Pending Request
                 wlRequest.state(WlRequest.State.REFRESH_PENDING);
-            	_stream.userRequestList().add(wlRequest);	
+            	_stream.addUserRequest(wlRequest);	
             	_roleDirectoryRequestAdded = true;
         	}
-        	else
-        	{
-        	    wlInteger.returnToPool();
-        	}
         }
         
         // send directory request for all services and filters
@@ -1138,9 +1127,9 @@ public class WlDirectoryHandler implements WlHandler
         }
 
      // fanout status message to user requests associated with the stream
-        for (int i = 0; i < _stream.userRequestList().size(); i++)
+        for (WlRequest wlRequest = _stream.userRequestList().start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                wlRequest = _stream.userRequestList().forth(WlRequest.USER_REQUEST_LINK))
         {
-            WlRequest wlRequest = _stream.userRequestList().get(i);
             
             // only fanout to those whose state is OPEN or REFRESH_PENDING
             if (wlRequest.state() == WlRequest.State.OPEN ||
@@ -1173,8 +1162,7 @@ public class WlDirectoryHandler implements WlHandler
     	
         int ret = ReactorReturnCodes.SUCCESS;
     	
-        _tempWlInteger.value(msg.streamId());
-    	WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable().get(_tempWlInteger);
+    	WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable().get(msg.streamId());
 
         ret = _watchlist.reactor().sendAndHandleDirectoryMsgCallback(location,
                                                                  _watchlist.reactorChannel(),
@@ -1285,8 +1273,6 @@ public class WlDirectoryHandler implements WlHandler
         _stream.state().streamState(StreamStates.CLOSED);
         _stream.state().dataState(DataStates.SUSPECT);                
         // remove this stream from watchlist table
-        _watchlist.streamIdtoWlStreamTable().remove(_stream.tableKey());
-        _stream.tableKey().returnToPool();
-        _stream.tableKey(null);
+        _watchlist.streamIdtoWlStreamTable().remove(_directoryStreamId);
     }
 }
@@ -1,11 +1,19 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.thomsonreuters.upa.codec.Buffer;
 import com.thomsonreuters.upa.codec.CodecFactory;
 import com.thomsonreuters.upa.codec.MsgKey;
 import com.thomsonreuters.upa.codec.Qos;
 import com.thomsonreuters.upa.valueadd.common.VaNode;
 
-/* Key used for aggregating item requests by MsgKey, domain type and Qos. */
+/* Key used for aggregating item requests by MsgKey, domain type and Qos.
+ * 
+ * The hash code is computed once from the key's contents and kept until the key is
+ * changed by one of its setters, copy() or clear(). The MsgKey and Qos returned by
+ * msgKey() and qos() must not be modified directly. */
 public class WlItemAggregationKey extends VaNode
 {
     MsgKey _msgKey = CodecFactory.createMsgKey();
@@ -13,10 +21,11 @@ public class WlItemAggregationKey extends VaNode
     int _domainType;
     Qos _qos = CodecFactory.createQos();
     Qos _qosReference;
-    final int SEED = 23;
-    final int PRIME = 31;
+    int _hashCode;
+    boolean _hashCodeValid;
+    static final long SEED = 0x9E3779B97F4A7C15L;
     
-    /* Returns the MsgKey of the item aggregation key. Use to get or set MsgKey. */
+    /* Returns the MsgKey of the item aggregation key. */
     MsgKey msgKey()
     {
         if (_msgKeyReference != null)
@@ -33,6 +42,14 @@ public class WlItemAggregationKey extends VaNode
     void msgKey(MsgKey msgKey)
     {
         _msgKeyReference = msgKey;
+        _hashCodeValid = false;
+    }
+
+    /* Sets the service id of the MsgKey of the item aggregation key. */
+    void serviceId(int serviceId)
+    {
+        msgKey().serviceId(serviceId);
+        _hashCodeValid = false;
     }
     
     /* Returns the domain type of the item aggregation key. */
@@ -45,9 +62,10 @@ public class WlItemAggregationKey extends VaNode
     void domainType(int domainType)
     {
         _domainType = domainType;
+        _hashCodeValid = false;
     }
 
-    /* Returns the Qos of the item aggregation key. Use to get or set Qos. */
+    /* Returns the Qos of the item aggregation key. */
     Qos qos()
     {
         if (_qosReference != null)
@@ -64,6 +82,7 @@ public class WlItemAggregationKey extends VaNode
     void qos(Qos qos)
     {
         _qosReference = qos;
+        _hashCodeValid = false;
     }
 
     /* Performs a deep copy of this Object to destItemAggregationKey. */
@@ -86,6 +105,7 @@ public class WlItemAggregationKey extends VaNode
         {
             _qos.copy(destItemAggregationKey.qos());
         }
+        destItemAggregationKey._hashCodeValid = false;
     }
 
     @Override
@@ -107,61 +127,99 @@ public class WlItemAggregationKey extends VaNode
             return false;
         }        
         
-        MsgKey msgKey = null;
-        if (_msgKeyReference != null)
-        {
-            msgKey = _msgKeyReference;
-        }
-        else
+        // cheapest comparisons first; keys with different hash codes cannot be equal
+        if (_hashCodeValid && thatKey._hashCodeValid && _hashCode != thatKey._hashCode)
         {
-            msgKey = _msgKey;
+            return false;
         }
         
-        Qos qos = null;
-        if (_qosReference != null)
+        if (_domainType != thatKey._domainType)
         {
-            qos = _qosReference;
+            return false;
         }
-        else
+        
+        Qos qos = (_qosReference != null ? _qosReference : _qos);
+        Qos thatQos = (thatKey._qosReference != null ? thatKey._qosReference : thatKey._qos);
+        if (!qos.equals(thatQos))
         {
-            qos = _qos;
+            return false;
         }
         
-        return msgKey.equals(thatKey.msgKey()) &&
-               _domainType == thatKey.domainType() &&
-               qos.equals(thatKey.qos());
+        MsgKey msgKey = (_msgKeyReference != null ? _msgKeyReference : _msgKey);
+        MsgKey thatMsgKey = (thatKey._msgKeyReference != null ? thatKey._msgKeyReference : thatKey._msgKey);
+        return msgKey.equals(thatMsgKey);
     }
     
     @Override
     public int hashCode()
     {
-        int result = SEED;
-        
-        MsgKey msgKey = null;
-        if (_msgKeyReference != null)
-        {
-            msgKey = _msgKeyReference;
-        }
-        else
-        {
-            msgKey = _msgKey;
+        if (!_hashCodeValid)
+        {
+            MsgKey msgKey = (_msgKeyReference != null ? _msgKeyReference : _msgKey);
+            Qos qos = (_qosReference != null ? _qosReference : _qos);
+            
+            long hash = SEED;
+            if (msgKey.checkHasName())
+            {
+                Buffer name = msgKey.name();
+                if (name.data() != null)
+                {
+                    hash = hashBytes(hash, name.data(), name.position(), name.length());
+                }
+            }
+            if (msgKey.checkHasServiceId())
+            {
+                hash = mix(hash ^ msgKey.serviceId());
+            }
+            hash = mix(hash ^ (((long)_domainType << 32) | ((long)qos.timeliness() << 16) | qos.rate()));
+            
+            _hashCode = (int)(hash ^ (hash >>> 32));
+            _hashCodeValid = true;
         }
         
-        Qos qos = null;
-        if (_qosReference != null)
+        return _hashCode;
+    }
+    
+    /* Mixes length bytes of data, starting at position, into a hash value. The bytes
+     * are read eight at a time in big endian order, so the result does not depend on
+     * the byte order of the ByteBuffer. */
+    static long hashBytes(long hash, ByteBuffer data, int position, int length)
+    {
+        boolean swap = (data.order() != ByteOrder.BIG_ENDIAN);
+        int end = position + length;
+        int i = position;
+        
+        for (; i + 8 <= end; i += 8)
         {
-            qos = _qosReference;
+            long word = data.getLong(i);
+            if (swap)
+            {
+                word = Long.reverseBytes(word);
+            }
+            hash = mix(hash ^ word);
         }
-        else
+        
+        long tail = 0;
+        for (; i < end; i++)
         {
-            qos = _qos;
+            tail = (tail << 8) | (data.get(i) & 0xFF);
         }
         
-        result = PRIME * result * msgKey.hashCode();
-        result = PRIME * result * _domainType;
-        result = PRIME * result * qos.hashCode();
-        
-        return result;
+        // the length is mixed in with the tail, so names differing only by
+        // trailing zero bytes hash differently
+        return mix(hash ^ tail ^ ((long)length << 56));
+    }
+    
+    /* 64-bit finalizer of MurmurHash3. Every bit of the input affects every bit
+     * of the result. */
+    static long mix(long hash)
+    {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
     }
     
     /* Clears the object for reuse. */
@@ -172,5 +230,6 @@ public class WlItemAggregationKey extends VaNode
         _domainType = 0;
         _qos.clear();
         _qosReference = null;
+        _hashCodeValid = false;
     }
 }
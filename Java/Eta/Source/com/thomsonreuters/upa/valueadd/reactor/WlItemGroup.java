@@ -1,9 +1,9 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 
 import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.valueadd.common.VaIntHashMap;
 import com.thomsonreuters.upa.valueadd.common.VaNode;
 
 /* Watchlist Item Group ID of a group of streams. */
@@ -14,12 +14,12 @@ public class WlItemGroup extends VaNode
 	LinkedList<WlStream> _openStreamList;
 	
     /* Table of watchlist streams, by watchlist stream id. Improves lookup when adding WlStreams to existing group. */
-    HashMap<WlInteger,WlStream> _streamIdToItemGroupTable;
+    VaIntHashMap<WlStream> _streamIdToItemGroupTable;
 	
 	WlItemGroup()
 	{
 		_openStreamList = new LinkedList<WlStream>();
-		_streamIdToItemGroupTable = new HashMap<WlInteger, WlStream>();
+		_streamIdToItemGroupTable = new VaIntHashMap<WlStream>();
 	}
 	
 	void wlService(WlService service)
@@ -47,7 +47,7 @@ public class WlItemGroup extends VaNode
 		return _openStreamList;
 	}
 
-	HashMap<WlInteger,WlStream> streamIdToItemGroupTable()
+	VaIntHashMap<WlStream> streamIdToItemGroupTable()
     {
         return _streamIdToItemGroupTable;
     }
@@ -1,7 +1,9 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -19,6 +21,10 @@ import com.thomsonreuters.upa.codec.DataTypes;
 import com.thomsonreuters.upa.codec.DecodeIterator;
 import com.thomsonreuters.upa.codec.ElementEntry;
 import com.thomsonreuters.upa.codec.ElementList;
+import com.thomsonreuters.upa.codec.EncodeIterator;
+import com.thomsonreuters.upa.codec.FieldEntry;
+import com.thomsonreuters.upa.codec.FieldList;
+import com.thomsonreuters.upa.codec.Int;
 import com.thomsonreuters.upa.codec.GenericMsg;
 import com.thomsonreuters.upa.codec.GenericMsgFlags;
 import com.thomsonreuters.upa.codec.MapEntry;
@@ -45,6 +51,7 @@ import com.thomsonreuters.upa.rdm.ElementNames;
 import com.thomsonreuters.upa.rdm.InstrumentNameTypes;
 import com.thomsonreuters.upa.rdm.SymbolList;
 import com.thomsonreuters.upa.rdm.ViewTypes;
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.MsgBase;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.dictionary.DictionaryMsg;
 import com.thomsonreuters.upa.valueadd.domainrep.rdm.dictionary.DictionaryMsgFactory;
@@ -66,16 +73,17 @@ public class WlItemHandler implements WlHandler
     
     // used for requests that are submitted when directory stream is not up
     // two tables are required - one is indexed by service id and one is indexed by service name
-    HashMap<Integer,LinkedList<WlRequest>> _pendingRequestByIdTable = new HashMap<Integer,LinkedList<WlRequest>>();
-    HashMap<String,LinkedList<WlRequest>> _pendingRequestByNameTable = new HashMap<String,LinkedList<WlRequest>>();
+    // (lists are linked with WlRequest.PENDING_REQUEST_LINK)
+    HashMap<Integer,VaDoubleLinkList<WlRequest>> _pendingRequestByIdTable = new HashMap<Integer,VaDoubleLinkList<WlRequest>>();
+    HashMap<String,VaDoubleLinkList<WlRequest>> _pendingRequestByNameTable = new HashMap<String,VaDoubleLinkList<WlRequest>>();
     // pool of pending request lists (to avoid GC)
-    LinkedList<LinkedList<WlRequest>> _pendingRequestListPool = new LinkedList<LinkedList<WlRequest>>();
+    ArrayDeque<VaDoubleLinkList<WlRequest>> _pendingRequestListPool = new ArrayDeque<VaDoubleLinkList<WlRequest>>();
     
     ReactorErrorInfo _errorInfo = ReactorFactory.createReactorErrorInfo();
     ReactorSubmitOptions _submitOptions = ReactorFactory.createReactorSubmitOptions();
     
-    // list of streams
-    LinkedList<WlStream> _streamList = new LinkedList<WlStream>();
+    // list of streams (linked with WlStream.STREAM_LIST_LINK)
+    VaDoubleLinkList<WlStream> _streamList = new VaDoubleLinkList<WlStream>();
     
     // table that maps item aggregation key to streams
     HashMap<WlItemAggregationKey,WlStream> _itemAggregationKeytoWlStreamTable;
@@ -91,16 +99,17 @@ public class WlItemHandler implements WlHandler
 	CloseMsg _closeMsg = (CloseMsg)CodecFactory.createMsg();
 
     // pool of StatusMsgs
-    LinkedList<StatusMsg> _statusMsgPool = new LinkedList<StatusMsg>();
+    ArrayDeque<StatusMsg> _statusMsgPool = new ArrayDeque<StatusMsg>();
     
     // List of StatusMsgs to send when dispatch is called
-    LinkedList<StatusMsg> _statusMsgDispatchList = new LinkedList<StatusMsg>();
+    ArrayDeque<StatusMsg> _statusMsgDispatchList = new ArrayDeque<StatusMsg>();
     
-    // List of streams with pending messages to send
-    LinkedList<WlStream> _pendingSendMsgList = new LinkedList<WlStream>();
+    // List of streams with pending messages to send (linked with WlStream.PENDING_SEND_LINK)
+    VaDoubleLinkList<WlStream> _pendingSendMsgList = new VaDoubleLinkList<WlStream>();
     
     // List of user requests to re-submit upon dispatch that had request timeout
-    LinkedList<WlRequest> _requestTimeoutList = new LinkedList<WlRequest>();
+    // (linked with WlRequest.PENDING_REQUEST_LINK)
+    VaDoubleLinkList<WlRequest> _requestTimeoutList = new VaDoubleLinkList<WlRequest>();
     
     // RDM dictionary message for callback
     DictionaryMsg _rdmDictionaryMsg = DictionaryMsgFactory.createMsg();
@@ -126,17 +135,44 @@ public class WlItemHandler implements WlHandler
 	DecodeIterator _dIter = CodecFactory.createDecodeIterator();
 	DecodeIterator _dIterBatch = CodecFactory.createDecodeIterator();
 
-	WlInteger _tempWlInteger = ReactorFactory.createWlInteger();
 
 	UInt _viewType = CodecFactory.createUInt();
 	Buffer _viewDataElement = CodecFactory.createBuffer();
 	boolean _viewDataFound;
-	UInt _fieldId = CodecFactory.createUInt();
+	Int _fieldId = CodecFactory.createInt();
 	int VIEW_ACTION_SET = 1;		
    	Array _viewArray = CodecFactory.createArray();
 	ArrayEntry _viewArrayEntry = CodecFactory.createArrayEntry();
 	Buffer _elementName = CodecFactory.createBuffer();
 	Buffer _viewElemList = CodecFactory.createBuffer();
+	
+	// aggregation of the views of requests sharing a stream
+	WlView _tempView = new WlView();
+	EncodeIterator _viewEIter = CodecFactory.createEncodeIterator();
+	ElementList _viewEncElementList = CodecFactory.createElementList();
+	ElementEntry _viewEncElementEntry = CodecFactory.createElementEntry();
+	Array _viewEncArray = CodecFactory.createArray();
+	ArrayEntry _viewEncArrayEntry = CodecFactory.createArrayEntry();
+	UInt _viewEncUInt = CodecFactory.createUInt();
+	Int _viewEncInt = CodecFactory.createInt();
+	static final int VIEW_BUFFER_SIZE = 256;
+	
+	// filtering of fanned out payloads by the view of each user request
+	DecodeIterator _filterDIter = CodecFactory.createDecodeIterator();
+	EncodeIterator _filterEIter = CodecFactory.createEncodeIterator();
+	FieldList _filterFieldList = CodecFactory.createFieldList();
+	FieldList _filterEncFieldList = CodecFactory.createFieldList();
+	FieldEntry _filterFieldEntry = CodecFactory.createFieldEntry();
+	ElementList _filterElementList = CodecFactory.createElementList();
+	ElementList _filterEncElementList = CodecFactory.createElementList();
+	ElementEntry _filterElementEntry = CodecFactory.createElementEntry();
+	Buffer _filterBuffer = CodecFactory.createBuffer();
+	Buffer _unfilteredDataBody = CodecFactory.createBuffer();
+	
+	// results of filterPayload()
+	static final int FILTER_UNCHANGED = 0;
+	static final int FILTER_APPLIED = 1;
+	static final int FILTER_NO_MATCH = 2;
 
     WlStream _currentFanoutStream;
 		
@@ -215,6 +251,8 @@ public class WlItemHandler implements WlHandler
 			if ( (ret = extractViewFromMsg(wlRequest, requestMsg, errorInfo)) < ReactorReturnCodes.SUCCESS)
             return ret;
 		}
+		else
+			wlRequest.hasView(false);
         _tempMatchedQos.clear();
         
         // retrieve service for service id/name
@@ -263,6 +301,17 @@ public class WlItemHandler implements WlHandler
                         // set view flags off       
                         if (_tempItemAggregationRequest.checkHasView())
                         	_tempItemAggregationRequest.flags(requestMsg.flags() & ~ RequestMsgFlags.HAS_VIEW);
+                        
+                        // the stream requests the view of its first request; it is widened
+                        // to the union of the views as more requests are aggregated. If the
+                        // provider does not support views, all fields are requested and each
+                        // request's view is applied when messages are received
+                        if (wlRequest.hasView() && _watchlist.loginHandler().supportViewRequests())
+                        {
+                            wlRequest.view().copy(wlStream.aggregateView());
+                            // request all fields if the view cannot be encoded
+                            wlStream.hasAggregateView(encodeStreamView(wlStream, _tempItemAggregationRequest) >= CodecReturnCodes.SUCCESS);
+                        }
                     }
                     else
                     {
@@ -343,13 +392,10 @@ public class WlItemHandler implements WlHandler
                         }
     
                         // add to list of streams
-                        _streamList.add(wlStream);
+                        addToStreamList(wlStream);
                         
                         // add stream to watchlist table
-                        WlInteger wlInteger = ReactorFactory.createWlInteger();
-                        wlInteger.value(wlStream.streamId());
-                        wlStream.tableKey(wlInteger);
-                        _watchlist.streamIdtoWlStreamTable().put(wlInteger, wlStream);
+                        _watchlist.streamIdtoWlStreamTable().put(wlStream.streamId(), wlStream);
 
                         // add to _itemAggregationKeytoWlStreamTable if not private stream
                         if (!requestMsg.checkPrivateStream())
@@ -375,7 +421,7 @@ public class WlItemHandler implements WlHandler
                         wlRequest.state(WlRequest.State.REFRESH_PENDING);
                         
                         // add to fanout list                        
-                        wlStream.userRequestList().add(wlRequest);
+                        wlStream.addUserRequest(wlRequest);
                    
                         if ( wlRequest.requestMsg().checkPause() && wlRequest.requestMsg().checkStreaming())
                         	wlStream.numPausedRequestsCount(1);
@@ -389,7 +435,7 @@ public class WlItemHandler implements WlHandler
                         // if not sendNow, add stream to pending send message list
                         if (!sendNow)
                         {
-                            _pendingSendMsgList.add(wlStream);
+                            addToPendingSendMsgList(wlStream);
                         }
                     }
                     else
@@ -416,7 +462,7 @@ public class WlItemHandler implements WlHandler
                         !wlStream.multiPartRefreshPending())
                     {
                         // add request to stream
-                        wlStream.userRequestList().add(wlRequest);
+                        wlStream.addUserRequest(wlRequest);
 
                         if ( wlRequest.requestMsg().checkPause() && wlRequest.requestMsg().checkStreaming())
                         	wlStream.numPausedRequestsCount(wlStream.numPausedRequestsCount() +1);
@@ -430,6 +476,9 @@ public class WlItemHandler implements WlHandler
                         // retrieve request from stream
                         RequestMsg streamRequestMsg = wlStream.requestMsg();
                         
+                        // widen the view of the stream if the request needs more fields
+                        boolean viewChanged = updateAggregateView(wlStream, streamRequestMsg);
+                        
                         // increment number of snapshots pending
                         if (!requestMsg.checkStreaming())
                         {
@@ -463,8 +512,9 @@ public class WlItemHandler implements WlHandler
                         if (requestMsg.checkStreaming() && !streamRequestMsg.checkStreaming())
                         	streamRequestMsg.applyStreaming();
                         
-                        // send message to stream if streaming or it is a snapshot with no request pending
-                        if (sendNow && (requestMsg.checkStreaming() || (!requestMsg.checkStreaming() && !wlStream.requestPending())))
+                        // send message to stream if streaming, it is a snapshot with no request pending
+                        // or the view of the stream changed
+                        if (sendNow && (requestMsg.checkStreaming() || (!requestMsg.checkStreaming() && !wlStream.requestPending()) || viewChanged))
                         {
                             // increment number of outstanding requests if not dictionary domain and a request isn't currently pending
                             if (requestMsg.domainType() != DomainTypes.DICTIONARY && !wlStream.requestPending() && !requestMsg.checkNoRefresh())
@@ -475,9 +525,9 @@ public class WlItemHandler implements WlHandler
                         }                        
                         else // if not sendNow, add stream to pending send message list if not already there
                         {
-                            if (!_pendingSendMsgList.contains(wlStream))
+                            if (!wlStream._inPendingSendList)
                             {
-                                _pendingSendMsgList.add(wlStream);
+                                addToPendingSendMsgList(wlStream);
                                 
                                 // increment number of outstanding requests if not dictionary domain and a request isn't currently pending
                                 if (requestMsg.domainType() != DomainTypes.DICTIONARY && !wlStream.requestPending() && !requestMsg.checkNoRefresh())
@@ -487,7 +537,7 @@ public class WlItemHandler implements WlHandler
                             }
                             else // stream is pending, if this request has no pause flag set while the pending stream has it set, remove pause flag from pending stream
                             {
-                            	RequestMsg pendingRequestMsg = _pendingSendMsgList.get(_pendingSendMsgList.indexOf(wlStream)).requestMsg();
+                            	RequestMsg pendingRequestMsg = wlStream.requestMsg();
                             	if (pendingRequestMsg.checkPause() && !requestMsg.checkPause())
                             	{
                             		pendingRequestMsg.flags(pendingRequestMsg.flags() & ~RequestMsgFlags.PAUSE);
@@ -613,9 +663,7 @@ public class WlItemHandler implements WlHandler
                     "Unexpected container type or decoding error.");
     	}
     	
-    	WlInteger wlInteger = ReactorFactory.createWlInteger();
-        wlInteger.value(requestMsg.streamId());
-    	_watchlist.streamIdtoWlRequestTable().put(wlInteger, wlRequest);
+    	_watchlist.streamIdtoWlRequestTable().put(requestMsg.streamId(), wlRequest);
 	
 
     	
@@ -625,8 +673,7 @@ public class WlItemHandler implements WlHandler
 			/* Start at stream ID after batch request. */
 			currentStreamId++;
 			
-			_tempWlInteger.value(currentStreamId);
-			if (_watchlist.streamIdtoWlRequestTable().get(_tempWlInteger) != null)
+			if (_watchlist.streamIdtoWlRequestTable().get(currentStreamId) != null)
 			{
 	            return _watchlist.reactor().populateErrorInfo(errorInfo,
 	            		ReactorReturnCodes.FAILURE,
@@ -651,8 +698,7 @@ public class WlItemHandler implements WlHandler
 			{
 				if ((retDecodeVal = tempRequestMsg.msgKey().name().decode(_dIterBatch)) == CodecReturnCodes.SUCCESS)
 				{
-					_tempWlInteger.value(possibleStreamId);
-					if (_watchlist.streamIdtoWlRequestTable().get(_tempWlInteger) != null)
+					if (_watchlist.streamIdtoWlRequestTable().get(possibleStreamId) != null)
 					{
 						while (!wlRequestList.isEmpty())
 						{
@@ -708,9 +754,7 @@ public class WlItemHandler implements WlHandler
 			{
 	            
             	// Add watchlist request to request table
-                wlInteger = ReactorFactory.createWlInteger();
-                wlInteger.value(currentStreamId);
-                _watchlist.streamIdtoWlRequestTable().put(wlInteger, wlRequestList.get(currentStreamId));
+                _watchlist.streamIdtoWlRequestTable().put(currentStreamId, wlRequestList.get(currentStreamId));
                 
             	ret = handleRequest(wlRequestList.get(currentStreamId), requestMsgList.get(currentStreamId), submitOptions, true, errorInfo);
             	if (ret <= ReactorReturnCodes.FAILURE)
@@ -793,6 +837,16 @@ public class WlItemHandler implements WlHandler
 			extractSymbolListFromMsg(wlRequest, requestMsg, errorInfo);
         	wlRequest._reissue_hasChange = true;
 		}
+		
+		// a reissue replaces the view of the request; the view of an aggregated stream
+		// is updated below
+		if (requestMsg.checkHasView())
+		{
+			if ((ret = extractViewFromMsg(wlRequest, requestMsg, errorInfo)) < ReactorReturnCodes.SUCCESS)
+				return ret;
+		}
+		else
+			wlRequest.hasView(false);
             /* handle reissue only if streaming flag has not changed
          * (it's an error if the streaming flag is changed) */
         if (requestMsg.checkStreaming() == wlRequest.requestMsg().checkStreaming())
@@ -852,6 +906,12 @@ public class WlItemHandler implements WlHandler
                 }
             }
             
+            // update the view of an aggregated stream if the union of the views changed
+            if (!streamRequestMsg.checkPrivateStream() && updateAggregateView(wlRequest.stream(), streamRequestMsg))
+            {
+                wlRequest._reissue_hasChange = true;
+            }
+            
             // if dictionary domain, update MsgKey filter if changed
             if (requestMsg.domainType() == DomainTypes.DICTIONARY)
             {
@@ -997,7 +1057,7 @@ public class WlItemHandler implements WlHandler
         {
             // set service id in item aggregation key if requested by service name
             int serviceId = _watchlist.directoryHandler().serviceId(submitOptions.serviceName());
-            _tempItemAggregationKey.msgKey().serviceId(serviceId);
+            _tempItemAggregationKey.serviceId(serviceId);
         }
         _tempItemAggregationKey.domainType(requestMsg.domainType());
         _tempItemAggregationKey.qos(matchedQos);
@@ -1018,7 +1078,7 @@ public class WlItemHandler implements WlHandler
         wlRequest.stream(null);
         
     	// retrieve pending request list for this service id/name if one exists
-    	LinkedList<WlRequest> pendingRequestList = null;
+    	VaDoubleLinkList<WlRequest> pendingRequestList = null;
     	if (submitOptions.serviceName() != null)
     	{
     		pendingRequestList = _pendingRequestByNameTable.get(submitOptions.serviceName());
@@ -1032,7 +1092,7 @@ public class WlItemHandler implements WlHandler
     	if (pendingRequestList != null)
     	{
     		// pending request list exists, just add to existing list
-    		pendingRequestList.add(wlRequest);
+    		wlRequest.linkPendingRequest(pendingRequestList);
     	}
     	else // pending request list doesn't exist
     	{
@@ -1040,11 +1100,11 @@ public class WlItemHandler implements WlHandler
     		pendingRequestList = _pendingRequestListPool.poll();
     		if (pendingRequestList == null)
     		{
-    			pendingRequestList = new LinkedList<WlRequest>();
+    			pendingRequestList = new VaDoubleLinkList<WlRequest>();
     		}
                 
     		// add pending request to list
-    		pendingRequestList.add(wlRequest);
+    		wlRequest.linkPendingRequest(pendingRequestList);
                 
     		// add pending request list to table
     		if (submitOptions.serviceName() != null)
@@ -1059,6 +1119,86 @@ public class WlItemHandler implements WlHandler
     	}
     }
 
+    /* Removes a pending request list from a pending request table.
+     * Returns false if the list is not in the table. */
+    <K> boolean removePendingRequestList(HashMap<K,VaDoubleLinkList<WlRequest>> pendingRequestTable, VaDoubleLinkList<WlRequest> pendingRequestList)
+    {
+        for (Iterator<VaDoubleLinkList<WlRequest>> iter = pendingRequestTable.values().iterator(); iter.hasNext(); )
+        {
+            if (iter.next() == pendingRequestList)
+            {
+                iter.remove();
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /* Adds a stream to the list of streams if it is not already there. */
+    void addToStreamList(WlStream wlStream)
+    {
+        if (!wlStream._inStreamList)
+        {
+            _streamList.push(wlStream, WlStream.STREAM_LIST_LINK);
+            wlStream._inStreamList = true;
+        }
+    }
+    
+    /* Removes a stream from the list of streams if it is there. */
+    void removeFromStreamList(WlStream wlStream)
+    {
+        if (wlStream._inStreamList)
+        {
+            _streamList.remove(wlStream, WlStream.STREAM_LIST_LINK);
+            wlStream._inStreamList = false;
+        }
+    }
+    
+    /* Removes and returns the first stream in the list of streams. */
+    WlStream pollStreamList()
+    {
+        WlStream wlStream = _streamList.pop(WlStream.STREAM_LIST_LINK);
+        if (wlStream != null)
+        {
+            wlStream._inStreamList = false;
+        }
+        return wlStream;
+    }
+    
+    /* Adds a stream to the pending stream send list if it is not already there. */
+    void addToPendingSendMsgList(WlStream wlStream)
+    {
+        if (!wlStream._inPendingSendList)
+        {
+            _pendingSendMsgList.push(wlStream, WlStream.PENDING_SEND_LINK);
+            wlStream._inPendingSendList = true;
+        }
+    }
+    
+    /* Removes and returns the first stream in the pending stream send list. */
+    WlStream pollPendingSendMsgList()
+    {
+        WlStream wlStream = _pendingSendMsgList.pop(WlStream.PENDING_SEND_LINK);
+        if (wlStream != null)
+        {
+            wlStream._inPendingSendList = false;
+        }
+        return wlStream;
+    }
+    
+    /* Removes a stream that is being closed from the list of streams and
+     * the pending stream send list. */
+    void unlinkStream(WlStream wlStream)
+    {
+        removeFromStreamList(wlStream);
+        if (wlStream._inPendingSendList)
+        {
+            _pendingSendMsgList.remove(wlStream, WlStream.PENDING_SEND_LINK);
+            wlStream._inPendingSendList = false;
+        }
+    }
+
     /* Creates a new stream. */
     WlStream createNewStream(RequestMsg requestMsg)
     {
@@ -1275,60 +1415,53 @@ public class WlItemHandler implements WlHandler
     {
         int ret = ReactorReturnCodes.SUCCESS;
         
-        for (int i = 0; i < wlStream.userRequestList().size(); i++)
+        if (wlStream.removeUserRequest(wlRequest))
         {
-            WlRequest wlRequestInList = wlRequest.stream().userRequestList().get(i);
-        
-            if (wlRequestInList.requestMsg().streamId() != wlRequest.requestMsg().streamId())
-                continue;
-            else
+            if ( wlRequest.requestMsg().checkPause())
             {
-                wlRequest.stream().userRequestList().remove(i);
-       			if ( wlRequest.requestMsg().checkPause())
-    			{
-    				wlRequest.stream().numPausedRequestsCount(wlRequest.stream().numPausedRequestsCount() - 1);
-    			}
-                
-                if (wlRequest.stream().userRequestList().size() == 0 )
-                {                                                  
-                    if (wlRequest.stream().itemAggregationKey() != null)
-                    {
-                        _itemAggregationKeytoWlStreamTable.remove(wlRequest.stream().itemAggregationKey());
-                        wlRequest.stream().itemAggregationKey().returnToPool();
-                    }
-
-                    msg.streamId(wlRequest.stream().streamId());
+                wlStream.numPausedRequestsCount(wlStream.numPausedRequestsCount() - 1);
+            }
             
-                    if ((ret = wlRequest.stream().sendMsg(msg, submitOptions, errorInfo)) < ReactorReturnCodes.SUCCESS)
-                    {
-                        return ret;
-                    }
+            if (wlStream.userRequestList().count() == 0 )
+            {                                                  
+                if (wlStream.itemAggregationKey() != null)
+                {
+                    _itemAggregationKeytoWlStreamTable.remove(wlStream.itemAggregationKey());
+                    wlStream.itemAggregationKey().returnToPool();
+                }
 
-                    // If inside dispatch and fanning out to this stream, 
-                    // indicate that it should be closed.
-                    // Otherwise, safe to just close it.
-                    if (wlStream == _currentFanoutStream)
-                        _currentFanoutStream = null;
-                    else
-                        wlRequest.stream().close();                            
+                msg.streamId(wlStream.streamId());
+        
+                if ((ret = wlStream.sendMsg(msg, submitOptions, errorInfo)) < ReactorReturnCodes.SUCCESS)
+                {
+                    return ret;
                 }
+
+                // If inside dispatch and fanning out to this stream, 
+                // indicate that it should be closed.
+                // Otherwise, safe to just close it.
+                if (wlStream == _currentFanoutStream)
+                    _currentFanoutStream = null;
                 else
-                {
-                    // update priority
-                    // reduce stream priority count by that in user request being closed
-                    int streamPriorityCount =  wlRequest.stream().requestMsg().checkHasPriority() ? 
-                            wlRequest.stream().requestMsg().priority().count() : 1;
-                    int userRequestPriorityCount = wlRequest.requestMsg().checkHasPriority() ? 
-                            wlRequest.requestMsg().priority().count() : 1;
-                    wlRequest.stream().requestMsg().priority().count(streamPriorityCount - userRequestPriorityCount);                            
-                    // resend 
-                    wlRequest.stream().sendMsg(wlRequest.stream().requestMsg(), submitOptions, errorInfo);
-                }                       
-                
-                // close watchlist request
-                _watchlist.closeWlRequest(wlRequest);
-                break;
+                    wlStream.close();                            
             }
+            else
+            {
+                // update priority
+                // reduce stream priority count by that in user request being closed
+                int streamPriorityCount =  wlStream.requestMsg().checkHasPriority() ? 
+                        wlStream.requestMsg().priority().count() : 1;
+                int userRequestPriorityCount = wlRequest.requestMsg().checkHasPriority() ? 
+                        wlRequest.requestMsg().priority().count() : 1;
+                wlStream.requestMsg().priority().count(streamPriorityCount - userRequestPriorityCount);                            
+                // narrow the view of the stream to that of the remaining requests
+                updateAggregateView(wlStream, wlStream.requestMsg());
+                // resend 
+                wlStream.sendMsg(wlStream.requestMsg(), submitOptions, errorInfo);
+            }                       
+            
+            // close watchlist request
+            _watchlist.closeWlRequest(wlRequest);
         }
         
         return ret;
@@ -1351,62 +1484,27 @@ public class WlItemHandler implements WlHandler
         }
         
         // remove from _statusMsgDispatchList list
-        for (int i = 0; i < _statusMsgDispatchList.size(); i++)
+        for (Iterator<StatusMsg> iter = _statusMsgDispatchList.iterator(); iter.hasNext(); )
         {
-            StatusMsg statusMsg = _statusMsgDispatchList.get(i);
+            StatusMsg statusMsg = iter.next();
         
             if (statusMsg.streamId() == wlRequest.requestMsg().streamId())
             {
-                _statusMsgDispatchList.remove(i);
+                iter.remove();
                 _statusMsgPool.add(statusMsg);
                 break;
             }
         }        
 
-        // remove from _pendingRequestByIdTable
-        for (int intKey : _pendingRequestByIdTable.keySet())
+        // remove from pending request list or request timeout list
+        VaDoubleLinkList<WlRequest> pendingRequestList = wlRequest._pendingRequestList;
+        if (wlRequest.unlinkPendingRequest() && pendingRequestList.count() == 0)
         {
-            LinkedList<WlRequest> wlRequestList = _pendingRequestByIdTable.remove(intKey);
-            
-            for (int i = 0; i < wlRequestList.size(); i++)
+            // remove empty pending request list from _pendingRequestByIdTable or _pendingRequestByNameTable
+            if (removePendingRequestList(_pendingRequestByIdTable, pendingRequestList) ||
+                removePendingRequestList(_pendingRequestByNameTable, pendingRequestList))
             {
-                WlRequest wlRequestInList = wlRequestList.get(i);
-                
-                if (wlRequestInList.requestMsg().streamId() == wlRequest.requestMsg().streamId())
-                {
-                    wlRequestList.remove(i);
-                    _pendingRequestByIdTable.put(intKey, wlRequestList);
-                    break;
-                }
-                else
-                {
-                    _pendingRequestListPool.add(wlRequestList);
-                }
-            }
-        }
-        
-        // remove from _pendingRequestByNameTable
-        for (String stringKey : _pendingRequestByNameTable.keySet())
-        {
-            LinkedList<WlRequest> wlRequestList = _pendingRequestByNameTable.remove(stringKey);
-            
-            for (int i = 0; i < wlRequestList.size(); i++)
-            {
-                WlRequest wlRequestInList = wlRequestList.get(i);
-                
-                if (wlRequestInList.requestMsg().streamId() == wlRequest.requestMsg().streamId())
-                {
-                    wlRequestList.remove(i);
-                    if (wlRequestList.size() > 0)
-                    {
-                        _pendingRequestByNameTable.put(stringKey, wlRequestList);
-                    }
-                    break;
-                }
-                else
-                {
-                    _pendingRequestListPool.add(wlRequestList);                    
-                }
+                _pendingRequestListPool.add(pendingRequestList);
             }
         }
         
@@ -1645,14 +1743,15 @@ public class WlItemHandler implements WlHandler
         if ((wlStream.state().streamState() == StreamStates.OPEN && wlStream.state().dataState() == DataStates.OK) ||
         	wlStream.state().streamState() == StreamStates.NON_STREAMING)
         {
-        	int listSize = wlStream.userRequestList().size();
+        	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
+        	int listSize = requestList.count();
         	int numRequestsProcessed = 0;
             // fanout refresh message to user requests associated with the stream
-            for (int i = 0; i < wlStream.userRequestList().size(); i++)
+            for (WlRequest wlRequest = requestList.start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                    wlRequest = requestList.forth(WlRequest.USER_REQUEST_LINK))
             {            	
             	if (numRequestsProcessed >= listSize) break;
             	numRequestsProcessed++;
-            	WlRequest wlRequest = wlStream.userRequestList().get(i);
                 
                 // only fanout if refresh is desired and refresh is unsolicited or to those whose state is awaiting refresh
                 if (!wlRequest.requestMsg().checkNoRefresh() &&
@@ -1678,21 +1777,15 @@ public class WlItemHandler implements WlHandler
                         	wlItemGroup.wlService(wlStream.wlService());
                             wlStream.wlService().itemGroupTablePut(groupId, wlItemGroup);
                         	wlItemGroup.openStreamList().add(wlStream);
-                        	WlInteger wlInteger = ReactorFactory.createWlInteger();
-                            wlInteger.value(wlStream.streamId());
-                            wlStream.groupTableKey(wlInteger);
-                        	wlItemGroup.streamIdToItemGroupTable().put(wlInteger, wlStream);
+                        	wlItemGroup.streamIdToItemGroupTable().put(wlStream.streamId(), wlStream);
                         }
                         else
                         {
                         	// Add group Id to current itemGroup in the WlService's itemGroupTable
-                            _tempWlInteger.value(wlStream.streamId());
-                            if (!wlItemGroup.streamIdToItemGroupTable().containsKey(_tempWlInteger))
+                            if (!wlItemGroup.streamIdToItemGroupTable().containsKey(wlStream.streamId()))
                             {
                         		wlItemGroup.openStreamList().add(wlStream);
-                        		WlInteger wlInteger = ReactorFactory.createWlInteger();
-                                wlInteger.value(wlStream.streamId());
-                        		wlItemGroup.streamIdToItemGroupTable().put(wlInteger, wlStream);
+                        		wlItemGroup.streamIdToItemGroupTable().put(wlStream.streamId(), wlStream);
                             }
                         }
 
@@ -1763,12 +1856,12 @@ public class WlItemHandler implements WlHandler
                         if (!(msg.domainType() == DomainTypes.SYMBOL_LIST 
                                 && (wlRequest.symbolListFlags() & SymbolList.SymbolListDataStreamRequestFlags.SYMBOL_LIST_DATA_SNAPSHOTS)  > 0 ))
                         {
-                            wlStream.userRequestList().remove(i--);
-                            _watchlist.closeWlRequest(wlRequest);
+                            if (wlStream.removeUserRequest(wlRequest))
+                                _watchlist.closeWlRequest(wlRequest);
                         }
                                                 
                         // if no more requests in stream, close stream
-                        if (wlStream.userRequestList().size() == 0 &&   
+                        if (wlStream.userRequestList().count() == 0 &&   
                             wlStream.waitingRequestList().size() == 0 &&
                             wlStream.wlService().waitingRequestList().size() == 0)
                         {
@@ -1821,9 +1914,10 @@ public class WlItemHandler implements WlHandler
         }
         
         // fanout update message to user requests associated with the stream
-        for (int i = 0; i < wlStream.userRequestList().size(); i++)
+        VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
+        for (WlRequest wlRequest = requestList.start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                wlRequest = requestList.forth(WlRequest.USER_REQUEST_LINK))
         {
-            WlRequest wlRequest = wlStream.userRequestList().get(i);
             
             // only fanout to those whose state is OPEN or REFRESH_COMPLETE_PENDING
             if (wlRequest.state() == WlRequest.State.OPEN ||
@@ -1866,9 +1960,10 @@ public class WlItemHandler implements WlHandler
         int ret = ReactorReturnCodes.SUCCESS;
         
         // fanout generic message to user requests associated with the stream
-        for (int i = 0; i < wlStream.userRequestList().size(); i++)
+        VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
+        for (WlRequest wlRequest = requestList.start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+                wlRequest = requestList.forth(WlRequest.USER_REQUEST_LINK))
         {
-            WlRequest wlRequest = wlStream.userRequestList().get(i);
             
             // only fanout to those whose state is OPEN, REFRESH_COMPLETE_PENDING or REFRESH_PENDING
             if (wlRequest.state() == WlRequest.State.OPEN ||
@@ -1911,9 +2006,9 @@ public class WlItemHandler implements WlHandler
         int ret = ReactorReturnCodes.SUCCESS;
         
         // dispatch streams
-        for (int i = 0; i < _streamList.size(); i++)
+        for (WlStream wlStream = _streamList.start(WlStream.STREAM_LIST_LINK); wlStream != null;
+                wlStream = _streamList.forth(WlStream.STREAM_LIST_LINK))
         {
-            WlStream wlStream = _streamList.get(i);
             if ((ret = wlStream.dispatch(errorInfo)) < ReactorReturnCodes.SUCCESS)
             {
                 return ret;
@@ -1948,7 +2043,7 @@ public class WlItemHandler implements WlHandler
         
         // re-submit user requests that had request timeout
         WlRequest wlRequest = null;
-        while ((wlRequest = _requestTimeoutList.poll()) != null)
+        while ((wlRequest = WlRequest.pollPendingRequest(_requestTimeoutList)) != null)
         {
             _submitOptions.serviceName(wlRequest.streamInfo().serviceName());
             _submitOptions.requestMsgOptions().userSpecObj(wlRequest.streamInfo().userSpecObject());
@@ -1960,7 +2055,7 @@ public class WlItemHandler implements WlHandler
         
         // call sendMsg on all streams in pending stream send list
         WlStream wlStream = null;
-        while((wlStream = _pendingSendMsgList.poll()) != null)
+        while((wlStream = pollPendingSendMsgList()) != null)
         {
             if ((ret = wlStream.sendMsg(wlStream.requestMsg(), _submitOptions, _errorInfo)) < ReactorReturnCodes.SUCCESS)
             {
@@ -2021,30 +2116,30 @@ public class WlItemHandler implements WlHandler
     /* Handles pause all event. */
     int pauseAll()
     {
-   	   for (WlStream wlStream : _streamList)
+   	   for (WlStream wlStream = _streamList.peek(); wlStream != null; wlStream = WlStream.STREAM_LIST_LINK.getNext(wlStream))
    	   {    	 
-   	       	LinkedList<WlRequest> requestList = wlStream.userRequestList();
+   	       	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
    	   	   
-   	    	for (WlRequest usrRequest : requestList)
+   	    	for (WlRequest usrRequest = requestList.peek(); usrRequest != null; usrRequest = WlRequest.USER_REQUEST_LINK.getNext(usrRequest))
    	    	{        
    	    		usrRequest.requestMsg().applyPause();
    	    	}
-   	    	wlStream.numPausedRequestsCount(requestList.size());
+   	    	wlStream.numPausedRequestsCount(requestList.count());
    	   }
     	     	   	   
-   	   for (Map.Entry<String, LinkedList<WlRequest>> entry : _pendingRequestByNameTable.entrySet())
+   	   for (Map.Entry<String, VaDoubleLinkList<WlRequest>> entry : _pendingRequestByNameTable.entrySet())
    	   {
-   		   LinkedList<WlRequest> pendingRequestList  = (LinkedList<WlRequest>)entry.getValue();
-   	   	   for (WlRequest usrRequest : pendingRequestList)
+   		   VaDoubleLinkList<WlRequest> pendingRequestList = entry.getValue();
+   	   	   for (WlRequest usrRequest = pendingRequestList.peek(); usrRequest != null; usrRequest = WlRequest.PENDING_REQUEST_LINK.getNext(usrRequest))
        	   { 
    	   		   usrRequest.requestMsg().applyPause();
        	   }
    	   }
    
-   	   for (Map.Entry<Integer, LinkedList<WlRequest>> entry : _pendingRequestByIdTable.entrySet())
+   	   for (Map.Entry<Integer, VaDoubleLinkList<WlRequest>> entry : _pendingRequestByIdTable.entrySet())
    	   {
-  		   LinkedList<WlRequest> pendingRequestList  = (LinkedList<WlRequest>)entry.getValue();
-   	   	   for (WlRequest usrRequest : pendingRequestList)
+  		   VaDoubleLinkList<WlRequest> pendingRequestList = entry.getValue();
+   	   	   for (WlRequest usrRequest = pendingRequestList.peek(); usrRequest != null; usrRequest = WlRequest.PENDING_REQUEST_LINK.getNext(usrRequest))
        	   { 
    	   		   usrRequest.requestMsg().applyPause();
        	   } 
@@ -2055,13 +2150,13 @@ public class WlItemHandler implements WlHandler
     /* Handles resume all event. */
     int resumeAll()
     {
-    	for (WlStream wlStream : _streamList)
+    	for (WlStream wlStream = _streamList.peek(); wlStream != null; wlStream = WlStream.STREAM_LIST_LINK.getNext(wlStream))
     	{    	 
-    		LinkedList<WlRequest> requestList = wlStream.userRequestList();
+    		VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
     		
     		if (wlStream.numPausedRequestsCount() > 0) 
     		{
-    			for (WlRequest usrRequest : requestList)
+    			for (WlRequest usrRequest = requestList.peek(); usrRequest != null; usrRequest = WlRequest.USER_REQUEST_LINK.getNext(usrRequest))
     			{        
     				usrRequest.requestMsg().flags(usrRequest.requestMsg().flags() & ~RequestMsgFlags.PAUSE);
        	      	}
@@ -2069,19 +2164,19 @@ public class WlItemHandler implements WlHandler
        	 	}
     	}
         	     	   	   
-    	for (Map.Entry<String, LinkedList<WlRequest>> entry : _pendingRequestByNameTable.entrySet())
+    	for (Map.Entry<String, VaDoubleLinkList<WlRequest>> entry : _pendingRequestByNameTable.entrySet())
     	{
-    		LinkedList<WlRequest> pendingRequestList  = (LinkedList<WlRequest>)entry.getValue();
-    		for (WlRequest usrRequest : pendingRequestList)
+    		VaDoubleLinkList<WlRequest> pendingRequestList = entry.getValue();
+    		for (WlRequest usrRequest = pendingRequestList.peek(); usrRequest != null; usrRequest = WlRequest.PENDING_REQUEST_LINK.getNext(usrRequest))
     		{ 
     			usrRequest.requestMsg().flags(usrRequest.requestMsg().flags() & ~RequestMsgFlags.PAUSE);
            	}
     	}
        
-    	for (Map.Entry<Integer, LinkedList<WlRequest>> entry : _pendingRequestByIdTable.entrySet())
+    	for (Map.Entry<Integer, VaDoubleLinkList<WlRequest>> entry : _pendingRequestByIdTable.entrySet())
     	{
-    		LinkedList<WlRequest> pendingRequestList  = (LinkedList<WlRequest>)entry.getValue();
-    		for (WlRequest usrRequest : pendingRequestList)
+    		VaDoubleLinkList<WlRequest> pendingRequestList = entry.getValue();
+    		for (WlRequest usrRequest = pendingRequestList.peek(); usrRequest != null; usrRequest = WlRequest.PENDING_REQUEST_LINK.getNext(usrRequest))
     		{ 
     			usrRequest.requestMsg().flags(usrRequest.requestMsg().flags() & ~RequestMsgFlags.PAUSE);
     		}	 
@@ -2092,7 +2187,7 @@ public class WlItemHandler implements WlHandler
     /* Handles channel up event. */
     void channelUp(ReactorErrorInfo errorInfo)
     {
-   	   for (WlStream wlStream = _streamList.poll(); wlStream != null; wlStream = _streamList.poll())
+   	   for (WlStream wlStream = pollStreamList(); wlStream != null; wlStream = pollStreamList())
    	   {    	   
    		   wlStream.channelUp();
    	   }
@@ -2116,7 +2211,7 @@ public class WlItemHandler implements WlHandler
     int serviceAdded(WlService wlService)
     {
         int ret = ReactorReturnCodes.SUCCESS;
-        LinkedList<WlRequest> pendingRequestList = null;
+        VaDoubleLinkList<WlRequest> pendingRequestList = null;
         
         // handle any pending requests
         // retrieve matching requests based on service id or service name
@@ -2130,7 +2225,7 @@ public class WlItemHandler implements WlHandler
         if (pendingRequestList != null)
         {
             WlRequest wlRequest = null;
-            while((wlRequest = pendingRequestList.poll()) != null)
+            while((wlRequest = WlRequest.pollPendingRequest(pendingRequestList)) != null)
             {
                 _submitOptions.serviceName(wlRequest.streamInfo().serviceName());
                 _submitOptions.requestMsgOptions().userSpecObj(wlRequest.streamInfo().userSpecObject());
@@ -2144,7 +2239,7 @@ public class WlItemHandler implements WlHandler
         
         // call sendMsg on all streams in pending stream send list
         WlStream wlStream = null;
-        while((wlStream = _pendingSendMsgList.poll()) != null)
+        while((wlStream = pollPendingSendMsgList()) != null)
         {
             if ((ret = wlStream.sendMsg(wlStream.requestMsg(), _submitOptions, _errorInfo)) < ReactorReturnCodes.SUCCESS)
             {
@@ -2178,7 +2273,7 @@ public class WlItemHandler implements WlHandler
     		boolean userRequestExists = false;
 			for (int streamCount = 0; streamCount < wlService.streamList().size(); streamCount++)
 			{
-				if (wlService.streamList().get(streamCount).userRequestList().size() != 0)
+				if (wlService.streamList().get(streamCount).userRequestList().count() != 0)
 				{
 					userRequestExists = true;
 					break;
@@ -2362,8 +2457,7 @@ public class WlItemHandler implements WlHandler
         int ret = ReactorReturnCodes.SUCCESS;
         int msgFlagsToReset = 0;
         
-        _tempWlInteger.value(msg.streamId());
-        WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable().get(_tempWlInteger);
+        WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable().get(msg.streamId());
 
         /* Check if we need to add a MsgKey to the message. */
         if (wlRequest != null && (
@@ -2432,6 +2526,23 @@ public class WlItemHandler implements WlHandler
             wlRequest.initialResponseReceived(true);
         }
         
+        // give the user only the fields of its view if the stream requests more
+        int filterResult = FILTER_UNCHANGED;
+        if (wlRequest != null && wlRequest.hasView() && wlRequest.stream() != null && !wlRequest.requestMsg().checkPrivateStream() &&
+            (msg.msgClass() == MsgClasses.REFRESH || msg.msgClass() == MsgClasses.UPDATE) &&
+            (!wlRequest.stream().hasAggregateView() || wlRequest.stream().aggregateView().count() != wlRequest.view().count()))
+        {
+            filterResult = filterPayload(wlRequest.view(), msg);
+        }
+        
+        // an update carrying none of the fields in the user's view is not passed on
+        if (filterResult == FILTER_NO_MATCH && msg.msgClass() == MsgClasses.UPDATE)
+        {
+            msg.encodedDataBody(_unfilteredDataBody);
+            msg.flags(msg.flags() & ~msgFlagsToReset);
+            return ret;
+        }
+        
         if (msg.domainType() != DomainTypes.DICTIONARY)
         {
             ret = _watchlist.reactor().sendAndHandleDefaultMsgCallback(location,
@@ -2469,6 +2580,12 @@ public class WlItemHandler implements WlHandler
         /* If the watchlist added the MsgKey, remove it in case subsqeuent requests on this 
            stream did not ask for MsgKeys in responses. */
         msg.flags(msg.flags() & ~msgFlagsToReset);
+        
+        // restore the full payload for the next user request
+        if (filterResult != FILTER_UNCHANGED)
+        {
+            msg.encodedDataBody(_unfilteredDataBody);
+        }
 
         // close out user request here if necessary
         if (wlRequest != null && (wlRequest.requestMsg().checkPrivateStream() || !_watchlist.loginHandler().supportSingleOpen() || (wlRequest.requestMsg().checkHasBatch())))
@@ -2485,7 +2602,7 @@ public class WlItemHandler implements WlHandler
     
     void handleCloseRecover(Msg msg)
     {
-  	   for (WlStream wlStream = _streamList.poll(); wlStream != null; wlStream = _streamList.poll())
+  	   for (WlStream wlStream = pollStreamList(); wlStream != null; wlStream = pollStreamList())
   	   {    	   
   		   wlStream.channelDown();
   		   wlStream.wlService().streamList().remove(wlStream);
@@ -2495,7 +2612,7 @@ public class WlItemHandler implements WlHandler
   	       
     void handleCloseRecover(WlStream wlStream, Msg msg)
     {       	
-    	LinkedList<WlRequest> requestList = wlStream.userRequestList();		
+    	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();		
   	   	LinkedList<WlRequest> waitingList = wlStream.wlService().waitingRequestList();
   	   	
   	   	for ( WlRequest usrRequest = waitingList.poll(); usrRequest != null; usrRequest = waitingList.poll()) 
@@ -2527,7 +2644,7 @@ public class WlItemHandler implements WlHandler
   	   	} 	  
     	
     	WlRequest usrRequest = null;
-    	for (usrRequest = requestList.poll(); usrRequest != null; usrRequest = requestList.poll())
+    	for (usrRequest = wlStream.pollUserRequest(); usrRequest != null; usrRequest = wlStream.pollUserRequest())
     	{
     		_userStreamIdListToRecover.add(usrRequest.requestMsg().streamId());
          	
@@ -2599,28 +2716,28 @@ public class WlItemHandler implements WlHandler
    	   for (WlStream wlStream = wlService.streamList().poll(); wlStream != null; wlStream = wlService.streamList().poll())
   	   {
   		   wlStream.channelDown();
- 		   LinkedList<WlRequest> requestList = wlStream.userRequestList();
+ 		   VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
  	   
- 		   if (requestList.size() == 0 ) continue;
+ 		   if (requestList.count() == 0 ) continue;
  		   else 
  			   handleCloseRecover(wlStream, msg);
  			
  		  removeItemGroupTableStream(wlStream);
- 		   _streamList.remove(wlStream); 		   
+ 		   removeFromStreamList(wlStream); 		   
   	   } 	
     }    
                             
     void handleClose(Msg msg)
     {    	
- 	   for (WlStream wlStream = _streamList.poll();  wlStream != null; wlStream = _streamList.poll())
+ 	   for (WlStream wlStream = pollStreamList();  wlStream != null; wlStream = pollStreamList())
  	   {    	 
  		   handleClose(wlStream, msg);
  	   }
   	   
- 	   for (Map.Entry<String, LinkedList<WlRequest>> entry : _pendingRequestByNameTable.entrySet())
+ 	   for (Map.Entry<String, VaDoubleLinkList<WlRequest>> entry : _pendingRequestByNameTable.entrySet())
  	   {
- 		   LinkedList<WlRequest> pendingRequestList  = (LinkedList<WlRequest>)entry.getValue();
- 	   	   for (WlRequest usrRequest = pendingRequestList.poll(); usrRequest!= null; usrRequest = pendingRequestList.poll())
+ 		   VaDoubleLinkList<WlRequest> pendingRequestList = entry.getValue();
+ 	   	   for (WlRequest usrRequest = WlRequest.pollPendingRequest(pendingRequestList); usrRequest!= null; usrRequest = WlRequest.pollPendingRequest(pendingRequestList))
      	   { 
                // close watchlist request
                _watchlist.closeWlRequest(usrRequest);
@@ -2628,21 +2745,23 @@ public class WlItemHandler implements WlHandler
     	   _pendingRequestListPool.add(pendingRequestList); 
  	   }
  
- 	   for (Map.Entry<Integer, LinkedList<WlRequest>> entry : _pendingRequestByIdTable.entrySet())
+ 	   for (Map.Entry<Integer, VaDoubleLinkList<WlRequest>> entry : _pendingRequestByIdTable.entrySet())
  	   {
- 		   LinkedList<WlRequest> pendingRequestList  = (LinkedList<WlRequest>)entry.getValue();
- 	   	   for (WlRequest usrRequest = pendingRequestList.poll(); usrRequest!= null; usrRequest = pendingRequestList.poll())
+ 		   VaDoubleLinkList<WlRequest> pendingRequestList = entry.getValue();
+ 	   	   for (WlRequest usrRequest = WlRequest.pollPendingRequest(pendingRequestList); usrRequest!= null; usrRequest = WlRequest.pollPendingRequest(pendingRequestList))
      	   { 
                // close watchlist request
                _watchlist.closeWlRequest(usrRequest);
      	   }
     	   _pendingRequestListPool.add(pendingRequestList); 
  	   } 	   
+ 	   _pendingRequestByNameTable.clear();
+ 	   _pendingRequestByIdTable.clear();
     }
     
     void handleClose(WlStream wlStream, Msg msg)
     {
-    	LinkedList<WlRequest> requestList = wlStream.userRequestList();
+    	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
      	   
     	WlRequest usrRequest = null;
     	
@@ -2652,11 +2771,11 @@ public class WlItemHandler implements WlHandler
             wlStream.itemAggregationKey().returnToPool();
         }
 
-    	_streamList.remove(wlStream);
+    	removeFromStreamList(wlStream);
     	removeItemGroupTableStream(wlStream);
     	wlStream.close();
     	    	    	
-    	for (usrRequest = requestList.poll(); usrRequest!= null; usrRequest = requestList.poll())
+    	for (usrRequest = wlStream.pollUserRequest(); usrRequest!= null; usrRequest = wlStream.pollUserRequest())
     	{    	 
     		msg.streamId(usrRequest.requestMsg().streamId());
     		msg.domainType(usrRequest.requestMsg().domainType());
@@ -2683,7 +2802,7 @@ public class WlItemHandler implements WlHandler
     
     void handleCloseRecoverStatusMsg(Msg msg)
     {
-  	   for (WlStream wlStream = _streamList.poll(); wlStream != null; wlStream = _streamList.poll())
+  	   for (WlStream wlStream = pollStreamList(); wlStream != null; wlStream = pollStreamList())
   	   {    	   
   		   wlStream.channelDown();
            handleCloseRecoverStatusMsg(wlStream, msg);
@@ -2692,7 +2811,7 @@ public class WlItemHandler implements WlHandler
     
     void handleCloseRecoverStatusMsg(WlStream wlStream, Msg msg)
     {
-    	LinkedList<WlRequest> requestList = wlStream.userRequestList();
+    	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
      	   
     	WlRequest usrRequest = null;
     	
@@ -2703,7 +2822,7 @@ public class WlItemHandler implements WlHandler
         }
         
     	removeItemGroupTableStream(wlStream);
-    	_streamList.remove(wlStream);
+    	removeFromStreamList(wlStream);
     	wlStream.close();
     	
   	   	LinkedList<WlRequest> waitingList = wlStream.wlService().waitingRequestList();
@@ -2720,7 +2839,7 @@ public class WlItemHandler implements WlHandler
   		   }
   	   	} 	  
     	    	    	    	
-    	for (usrRequest = requestList.poll(); usrRequest!= null; usrRequest = requestList.poll())
+    	for (usrRequest = wlStream.pollUserRequest(); usrRequest!= null; usrRequest = wlStream.pollUserRequest())
     	{    
     		msg.streamId(usrRequest.requestMsg().streamId());
     		msg.domainType(usrRequest._requestMsg.domainType());
@@ -2752,9 +2871,10 @@ public class WlItemHandler implements WlHandler
     	
     	if (singleOpen || allowSuspect)
     	{
-        	LinkedList<WlRequest> requestList = wlStream.userRequestList();
+        	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
       	   
-        	for (WlRequest usrRequest : requestList)
+        	for (WlRequest usrRequest = requestList.start(WlRequest.USER_REQUEST_LINK); usrRequest != null;
+        	        usrRequest = requestList.forth(WlRequest.USER_REQUEST_LINK))
         	{        		
         	    usrRequest.state(WlRequest.State.REFRESH_PENDING);
                 msg.streamId(usrRequest.requestMsg().streamId());
@@ -2774,13 +2894,14 @@ public class WlItemHandler implements WlHandler
         
     void handleSuspect(WlStream wlStream, Msg msg) 
     {
-		LinkedList<WlRequest> requestList = wlStream.userRequestList();
+		VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
 	   
 		int dataState = wlStream.state().dataState();
 	
 		if (dataState != DataStates.SUSPECT)
 		{
-			for (WlRequest usrRequest : requestList)
+			for (WlRequest usrRequest = requestList.start(WlRequest.USER_REQUEST_LINK); usrRequest != null;
+			        usrRequest = requestList.forth(WlRequest.USER_REQUEST_LINK))
 			{
 				msg.streamId(usrRequest.requestMsg().streamId());
 				
@@ -2795,7 +2916,7 @@ public class WlItemHandler implements WlHandler
 			_closeMsg.clear();
 			_closeMsg.msgClass(MsgClasses.CLOSE);
 			_closeMsg.streamId(wlStream.streamId());
-			_closeMsg.domainType(requestList.get(0).requestMsg().domainType());
+			_closeMsg.domainType(requestList.peek().requestMsg().domainType());
 			_closeMsg.containerType(DataTypes.NO_DATA); 
 			ReactorSubmitOptions submitOptions = ReactorFactory.createReactorSubmitOptions();
 			ReactorErrorInfo errorInfo = ReactorFactory.createReactorErrorInfo();
@@ -2804,7 +2925,7 @@ public class WlItemHandler implements WlHandler
 				System.out.println(" WlItemHandler sendCloseMsg for upstream failed for stream " + wlStream.streamId() );
 			}
 			
-			for (WlRequest usrRequest = requestList.poll(); usrRequest != null; usrRequest = requestList.poll())
+			for (WlRequest usrRequest = wlStream.pollUserRequest(); usrRequest != null; usrRequest = wlStream.pollUserRequest())
 			{
 	    		msg.streamId(usrRequest.requestMsg().streamId());
 	    		((StatusMsg)msg).domainType(usrRequest._requestMsg.domainType());
@@ -2817,14 +2938,14 @@ public class WlItemHandler implements WlHandler
                 _watchlist.closeWlRequest(usrRequest);
 			}			
 			removeItemGroupTableStream(wlStream);
-			_streamList.remove(wlStream);
+			removeFromStreamList(wlStream);
 			wlStream.close(); 
 		}
 	}
     
     void handleRedirected(WlStream wlStream, Msg msg)
     {
-    	LinkedList<WlRequest> requestList = wlStream.userRequestList();
+    	VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
   	   
     	WlRequest usrRequest = null;
     	
@@ -2834,12 +2955,12 @@ public class WlItemHandler implements WlHandler
             wlStream.itemAggregationKey().returnToPool();
         }
 
-    	_streamList.remove(wlStream);
+    	removeFromStreamList(wlStream);
     	wlStream.wlService().streamList().remove(wlStream);
     	removeItemGroupTableStream(wlStream);
     	wlStream.close();
     	    	    	
-    	for (usrRequest = requestList.poll(); usrRequest!= null; usrRequest = requestList.poll())
+    	for (usrRequest = wlStream.pollUserRequest(); usrRequest!= null; usrRequest = wlStream.pollUserRequest())
     	{    	 
     		msg.streamId(usrRequest.requestMsg().streamId());
     		msg.domainType(usrRequest._requestMsg.domainType());
@@ -2864,16 +2985,16 @@ public class WlItemHandler implements WlHandler
         wlStream.close();
 
         // fanout status to user and add requests to request timeout list
-        LinkedList<WlRequest> requestList = wlStream.userRequestList();
+        VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
         WlRequest usrRequest = null;
-        for (usrRequest = requestList.poll(); usrRequest != null; usrRequest = requestList.poll())
+        for (usrRequest = wlStream.pollUserRequest(); usrRequest != null; usrRequest = wlStream.pollUserRequest())
         {
             usrRequest.state(State.PENDING_REQUEST);
             
             // add to request timeout list only if single open supported
             if (_watchlist.loginHandler().supportSingleOpen())
             {
-                _requestTimeoutList.add(usrRequest);
+                usrRequest.linkPendingRequest(_requestTimeoutList);
             }
             
             sendStatus(usrRequest.requestMsg().streamId(), usrRequest.requestMsg().domainType(), "Request timeout", usrRequest.requestMsg().checkPrivateStream());
@@ -2892,9 +3013,7 @@ public class WlItemHandler implements WlHandler
     	if (wlItemGroup != null)
     	{
     		wlItemGroup.openStreamList().remove(wlStream);
-    		_tempWlInteger.value(wlStream.streamId());
-    		wlItemGroup.streamIdToItemGroupTable().remove(_tempWlInteger);
-    		wlStream.groupTableKey().returnToPool();
+    		wlItemGroup.streamIdToItemGroupTable().remove(wlStream.streamId());
     		// If no streams left in group's stream list, remove item group from table
     		if (wlItemGroup.openStreamList().isEmpty())
     			wlStream.wlService().itemGroupTableRemove(wlStream.groupId());
@@ -2909,11 +3028,22 @@ public class WlItemHandler implements WlHandler
         _tempItemAggregationRequest.clear();
         _itemAggregationKeytoWlStreamTable.clear();
 		_providerRequestTable.clear();
-		_streamList.clear();
+		while (pollStreamList() != null);
+		for (VaDoubleLinkList<WlRequest> pendingRequestList : _pendingRequestByIdTable.values())
+		{
+		    while (WlRequest.pollPendingRequest(pendingRequestList) != null);
+		    _pendingRequestListPool.add(pendingRequestList);
+		}
 		_pendingRequestByIdTable.clear();
+		for (VaDoubleLinkList<WlRequest> pendingRequestList : _pendingRequestByNameTable.values())
+		{
+		    while (WlRequest.pollPendingRequest(pendingRequestList) != null);
+		    _pendingRequestListPool.add(pendingRequestList);
+		}
 		_pendingRequestByNameTable.clear();
         _statusMsgDispatchList.clear();
-        _pendingSendMsgList.clear();
+        while (pollPendingSendMsgList() != null);
+        while (WlRequest.pollPendingRequest(_requestTimeoutList) != null);
         _userStreamIdListToRecover.clear();
         _currentFanoutStream = null;
     }
@@ -3017,9 +3147,10 @@ public class WlItemHandler implements WlHandler
 
 	private int handleSymbolList(WlStream wlStream, Msg msg, DecodeIterator dIter, ReactorErrorInfo errorInfo) 
 	{
-		for (int i = 0; i < wlStream.userRequestList().size(); i++)
+		VaDoubleLinkList<WlRequest> requestList = wlStream.userRequestList();
+		for (WlRequest wlRequest = requestList.start(WlRequest.USER_REQUEST_LINK); wlRequest != null;
+				wlRequest = requestList.forth(WlRequest.USER_REQUEST_LINK))
 		{
-			WlRequest wlRequest = wlStream.userRequestList().get(i);
 			if (!wlRequest.hasBehaviour() || wlRequest.symbolListFlags() == 0 )
 				continue;
 			int ret = ReactorReturnCodes.SUCCESS;
@@ -3117,11 +3248,8 @@ public class WlItemHandler implements WlHandler
 						{
 							newWlRequest.requestMsg().clear();
 							_requestMsg.copy(newWlRequest.requestMsg(), CopyMsgFlags.ALL_FLAGS);
-							WlInteger wlInteger = ReactorFactory.createWlInteger();
-					        wlInteger.value(providerProvideStreamId);
 					        newWlRequest.handler(this);
-					        newWlRequest.tableKey(wlInteger);
-							_watchlist.streamIdtoWlRequestTable().put(wlInteger, newWlRequest);
+							_watchlist.streamIdtoWlRequestTable().put(providerProvideStreamId, newWlRequest);
 							if (_requestMsg.checkStreaming())
 								_providerRequestTable.put(_symbolListRequestKey, newWlRequest.requestMsg());
 						} 
@@ -3145,6 +3273,8 @@ public class WlItemHandler implements WlHandler
 		_elementEntry.clear();
 		_viewType.clear();
 		_viewDataElement.clear();
+		_viewDataFound = false;
+		wlRequest.hasView(false);
 		_viewElemList = requestMsg.encodedDataBody();
 		_dIter.clear();
 		_dIter.setBufferAndRWFVersion(requestMsg.encodedDataBody(), _watchlist.reactorChannel().majorVersion(), 
@@ -3211,6 +3341,9 @@ public class WlItemHandler implements WlHandler
 			else
 			{
 			    wlRequest.viewAction(VIEW_ACTION_SET);
+			    WlView view = wlRequest.view();
+			    view.clear();
+			    view.viewType(viewType);
 				_dIter.clear();
 				_dIter.setBufferAndRWFVersion(_viewDataElement, _watchlist.reactorChannel().majorVersion(), 
 						_watchlist.reactorChannel().minorVersion());
@@ -3242,14 +3375,14 @@ public class WlItemHandler implements WlHandler
 								{								
 									if ((ret = _fieldId.decode(_dIter)) == CodecReturnCodes.SUCCESS)
 									{
-										if (_fieldId.toBigInteger().intValue() < -32768 || _fieldId.toBigInteger().intValue() > 32767)
+										if (_fieldId.toLong() < -32768 || _fieldId.toLong() > 32767)
 										{
 											_watchlist.reactor().populateErrorInfo(errorInfo,
 													ReactorReturnCodes.FAILURE, "ItemHandler.extractViewFromMsg",
 													"Field id in view request is outside the valid ID range <" + _fieldId + ">");
 												return CodecReturnCodes.FAILURE;												
 										}									
-										//_viewElemCount++;
+										view.addFieldId((int)_fieldId.toLong());
 									}
 									else
 									{
@@ -3260,6 +3393,7 @@ public class WlItemHandler implements WlHandler
 									}
 								}								
 							}// while
+							view.sortFieldIds();
 						}
 						else
 						{
@@ -3297,7 +3431,7 @@ public class WlItemHandler implements WlHandler
 								{						           
 									if (_elementName.decode(_dIter) == CodecReturnCodes.SUCCESS)
 									{
-										//_viewElemCount++;
+										view.addElementName(_elementName);
 									}
 									else
 									{
@@ -3329,7 +3463,181 @@ public class WlItemHandler implements WlHandler
 					":Invalid :ViewType or :ViewType not found  <" + viewType + ">");
 			return CodecReturnCodes.FAILURE;
 		}
+		wlRequest.hasView(true);
 		return CodecReturnCodes.SUCCESS;
 	}	
+	
+	/* Recomputes the union of the views of the user requests aggregated on a stream. The
+	 * stream requests all fields if any of its requests has no view, if they use different
+	 * view types, or if the provider does not support views. If the union changed, the view
+	 * in the stream's request message is updated. Returns whether it changed. */
+	boolean updateAggregateView(WlStream wlStream, RequestMsg streamRequestMsg)
+	{
+		boolean hasView = wlStream.userRequestList().count() > 0 && _watchlist.loginHandler().supportViewRequests();
+		boolean first = true;
+		
+		_tempView.clear();
+		for (WlRequest wlRequest = wlStream.userRequestList().peek(); wlRequest != null && hasView;
+				wlRequest = WlRequest.USER_REQUEST_LINK.getNext(wlRequest))
+		{
+			if (!wlRequest.hasView())
+				hasView = false;
+			else if (first)
+			{
+				wlRequest.view().copy(_tempView);
+				first = false;
+			}
+			else if (wlRequest.view().viewType() != _tempView.viewType())
+				hasView = false;
+			else
+				_tempView.merge(wlRequest.view());
+		}
+		
+		if (hasView == wlStream.hasAggregateView() && (!hasView || _tempView.equals(wlStream.aggregateView())))
+			return false;
+		
+		wlStream.hasAggregateView(hasView);
+		if (hasView)
+		{
+			_tempView.copy(wlStream.aggregateView());
+			if (encodeStreamView(wlStream, streamRequestMsg) >= CodecReturnCodes.SUCCESS)
+				return true;
+			
+			// request all fields if the view cannot be encoded
+			wlStream.hasAggregateView(false);
+		}
+		
+		streamRequestMsg.flags(streamRequestMsg.flags() & ~RequestMsgFlags.HAS_VIEW);
+		streamRequestMsg.containerType(DataTypes.NO_DATA);
+		streamRequestMsg.encodedDataBody().clear();
+		return true;
+	}
+	
+	/* Encodes the aggregate view of a stream into its view buffer and sets it as
+	 * the payload of a request message. */
+	int encodeStreamView(WlStream wlStream, RequestMsg requestMsg)
+	{
+		int ret;
+		int size = VIEW_BUFFER_SIZE;
+		Buffer viewBuffer;
+		
+		do
+		{
+			viewBuffer = wlStream.viewBuffer(size);
+			viewBuffer.data().clear();
+			_viewEIter.clear();
+			_viewEIter.setBufferAndRWFVersion(viewBuffer, _watchlist.reactorChannel().majorVersion(),
+					_watchlist.reactorChannel().minorVersion());
+			ret = wlStream.aggregateView().encode(_viewEIter, _viewEncElementList, _viewEncElementEntry,
+					_viewEncArray, _viewEncArrayEntry, _viewEncUInt, _viewEncInt);
+			size *= 2;
+		} while (ret == CodecReturnCodes.BUFFER_TOO_SMALL);
+		
+		if (ret < CodecReturnCodes.SUCCESS)
+			return ret;
+		
+		requestMsg.applyHasView();
+		requestMsg.containerType(DataTypes.ELEMENT_LIST);
+		requestMsg.encodedDataBody(viewBuffer);
+		return CodecReturnCodes.SUCCESS;
+	}
+	
+	/* Replaces the FieldList or ElementList payload of a message with one holding only
+	 * the entries in a view, saving the original payload in _unfilteredDataBody. Payloads
+	 * of other types, or using set definitions, are left as they are. Returns FILTER_UNCHANGED
+	 * if the payload was left as it is, FILTER_NO_MATCH if it was replaced by an empty one
+	 * because no entry is in the view, and FILTER_APPLIED otherwise. */
+	int filterPayload(WlView view, Msg msg)
+	{
+		int containerType = msg.containerType();
+		if (!(containerType == DataTypes.FIELD_LIST && view.viewType() == ViewTypes.FIELD_ID_LIST) &&
+			!(containerType == DataTypes.ELEMENT_LIST && view.viewType() == ViewTypes.ELEMENT_NAME_LIST))
+			return FILTER_UNCHANGED;
+		
+		Buffer dataBody = msg.encodedDataBody();
+		if (dataBody.length() == 0)
+			return FILTER_UNCHANGED;
+		
+		// the filtered payload is never larger than the original one
+		int size = dataBody.length() + 16;
+		if (_filterBuffer.data() == null || _filterBuffer.data().capacity() < size)
+			_filterBuffer.data(ByteBuffer.allocate(size));
+		_filterBuffer.data().clear();
+		
+		_filterDIter.clear();
+		_filterDIter.setBufferAndRWFVersion(dataBody, _watchlist.reactorChannel().majorVersion(),
+				_watchlist.reactorChannel().minorVersion());
+		_filterEIter.clear();
+		_filterEIter.setBufferAndRWFVersion(_filterBuffer, _watchlist.reactorChannel().majorVersion(),
+				_watchlist.reactorChannel().minorVersion());
+		
+		int ret;
+		int matchCount = 0;
+		if (containerType == DataTypes.FIELD_LIST)
+		{
+			_filterFieldList.clear();
+			if (_filterFieldList.decode(_filterDIter, null) < CodecReturnCodes.SUCCESS || _filterFieldList.checkHasSetData())
+				return FILTER_UNCHANGED;
+			
+			_filterEncFieldList.clear();
+			_filterEncFieldList.applyHasStandardData();
+			if (_filterFieldList.checkHasInfo())
+			{
+				_filterEncFieldList.applyHasInfo();
+				_filterEncFieldList.dictionaryId(_filterFieldList.dictionaryId());
+				_filterEncFieldList.fieldListNum(_filterFieldList.fieldListNum());
+			}
+			if (_filterEncFieldList.encodeInit(_filterEIter, null, 0) < CodecReturnCodes.SUCCESS)
+				return FILTER_UNCHANGED;
+			
+			while ((ret = _filterFieldEntry.decode(_filterDIter)) != CodecReturnCodes.END_OF_CONTAINER)
+			{
+				if (ret < CodecReturnCodes.SUCCESS)
+					return FILTER_UNCHANGED;
+				if (!view.containsFieldId(_filterFieldEntry.fieldId()))
+					continue;
+				if (_filterFieldEntry.encode(_filterEIter) < CodecReturnCodes.SUCCESS)
+					return FILTER_UNCHANGED;
+				matchCount++;
+			}
+			
+			if (_filterEncFieldList.encodeComplete(_filterEIter, true) < CodecReturnCodes.SUCCESS)
+				return FILTER_UNCHANGED;
+		}
+		else
+		{
+			_filterElementList.clear();
+			if (_filterElementList.decode(_filterDIter, null) < CodecReturnCodes.SUCCESS || _filterElementList.checkHasSetData())
+				return FILTER_UNCHANGED;
+			
+			_filterEncElementList.clear();
+			_filterEncElementList.applyHasStandardData();
+			if (_filterElementList.checkHasInfo())
+			{
+				_filterEncElementList.applyHasInfo();
+				_filterEncElementList.elementListNum(_filterElementList.elementListNum());
+			}
+			if (_filterEncElementList.encodeInit(_filterEIter, null, 0) < CodecReturnCodes.SUCCESS)
+				return FILTER_UNCHANGED;
+			
+			while ((ret = _filterElementEntry.decode(_filterDIter)) != CodecReturnCodes.END_OF_CONTAINER)
+			{
+				if (ret < CodecReturnCodes.SUCCESS)
+					return FILTER_UNCHANGED;
+				if (!view.containsElementName(_filterElementEntry.name()))
+					continue;
+				if (_filterElementEntry.encode(_filterEIter) < CodecReturnCodes.SUCCESS)
+					return FILTER_UNCHANGED;
+				matchCount++;
+			}
+			
+			if (_filterEncElementList.encodeComplete(_filterEIter, true) < CodecReturnCodes.SUCCESS)
+				return FILTER_UNCHANGED;
+		}
+		
+		_unfilteredDataBody.data(dataBody.data(), dataBody.position(), dataBody.length());
+		msg.encodedDataBody(_filterBuffer);
+		return (matchCount > 0 ? FILTER_APPLIED : FILTER_NO_MATCH);
+	}
 } 
 
@@ -48,8 +48,6 @@ class WlLoginHandler implements WlHandler
 	boolean _awaitingResumeAll;
 	boolean _userloginStreamOpen;
 
-	WlInteger _tempWlInteger = ReactorFactory.createWlInteger();
-
 	WlLoginHandler(Watchlist watchlist)
 	{
 		_watchlist = watchlist;
@@ -92,12 +90,9 @@ class WlLoginHandler implements WlHandler
 							"Cannot have more than one login stream with watchlist enabled.");
 		}
 
-		WlInteger wlInteger = ReactorFactory.createWlInteger();
-		wlInteger.value(requestMsg.streamId());
-
 		if (_stream == null) 
 		{
-			if (!_watchlist.streamIdtoWlStreamTable().containsKey(wlInteger)) 
+			if (!_watchlist.streamIdtoWlStreamTable().containsKey(requestMsg.streamId())) 
 			{
 				// create stream
 				_stream = ReactorFactory.createWlStream();
@@ -176,12 +171,7 @@ class WlLoginHandler implements WlHandler
 			wlRequest.streamInfo().serviceName(submitOptions.serviceName());
 
 			// add stream to watchlist table
-			_stream.tableKey(wlInteger);
-			_watchlist.streamIdtoWlStreamTable().put(wlInteger, _stream);
-		} 
-		else
-		{
-			wlInteger.returnToPool();
+			_watchlist.streamIdtoWlStreamTable().put(requestMsg.streamId(), _stream);
 		}
 		wlRequest.streamInfo().userSpecObject(
 				submitOptions.requestMsgOptions().userSpecObj());
@@ -661,9 +651,8 @@ class WlLoginHandler implements WlHandler
 						|| wlStream.state().streamState() == StreamStates.REDIRECTED) 
 				{
 					// close watchlist request
-					_tempWlInteger.value(msg.streamId());
 					WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable()
-							.get(_tempWlInteger);
+							.get(msg.streamId());
 					_watchlist.closeWlRequest(wlRequest);
 
 					// close stream if state is closed
@@ -797,7 +786,7 @@ class WlLoginHandler implements WlHandler
 	/* Reads a generic message. */
 	int readGenericMsg(WlStream wlStream, DecodeIterator dIter, Msg msg, ReactorErrorInfo errorInfo) 
 	{
-		WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable().get(_tempWlInteger);
+		WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable().get(msg.streamId());
 
 		// call back user
 		return _watchlist.reactor().sendAndHandleDefaultMsgCallback(
@@ -831,9 +820,8 @@ class WlLoginHandler implements WlHandler
 	{
 		int ret = ReactorReturnCodes.SUCCESS;
 
-		_tempWlInteger.value(msg.streamId());
 		WlRequest wlRequest = _watchlist.streamIdtoWlRequestTable().get(
-				_tempWlInteger);
+				msg.streamId());
 
 		ret = _watchlist.reactor().sendAndHandleLoginMsgCallback(location,
 				_watchlist.reactorChannel(), null, msg, (LoginMsg) rdmMsg,
@@ -1077,20 +1065,14 @@ class WlLoginHandler implements WlHandler
 					wlRequest.requestMsg().clear();
 					_tempMsg.copy(wlRequest.requestMsg(), CopyMsgFlags.ALL_FLAGS);
 					wlRequest.handler(this);
-					WlInteger wlInteger = ReactorFactory.createWlInteger();
-					wlInteger.value(_loginRequest.streamId());
-					wlRequest.tableKey(wlInteger);
-					_watchlist.streamIdtoWlRequestTable().put(wlInteger, wlRequest);
+					_watchlist.streamIdtoWlRequestTable().put(_loginRequest.streamId(), wlRequest);
 				}
 
 				if (newStream) 
 				{
 					// add stream to watchlist table
-					WlInteger wlInteger = ReactorFactory.createWlInteger();
-					wlInteger.value(_loginRequest.streamId());
-					_stream.tableKey(wlInteger);
 					_watchlist.streamIdtoWlStreamTable()
-							.put(wlInteger, _stream);
+							.put(_loginRequest.streamId(), _stream);
 				}
 			} 
 			else // sendMsg failed
@@ -4,6 +4,8 @@ import com.thomsonreuters.upa.codec.CodecFactory;
 import com.thomsonreuters.upa.codec.MsgClasses;
 import com.thomsonreuters.upa.codec.Qos;
 import com.thomsonreuters.upa.codec.RequestMsg;
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList;
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList.Link;
 import com.thomsonreuters.upa.valueadd.common.VaNode;
 
 /* Watchlist user request that contains user request information. */
@@ -23,11 +25,35 @@ public class WlRequest extends VaNode
     long _serviceId;
     int _viewType;
     int _viewAction;
+    WlView _view;       // fields requested by the view of the request, if _hasView is set
+    boolean _hasView;
     boolean _reissue_hasChange = false;
        
     Qos _matchedQos = CodecFactory.createQos();
     
-    WlInteger _tableKey;
+    /* Link for the user request list of a stream (used for fanout). */
+    private WlRequest _userRequestNext, _userRequestPrev;
+    static class UserRequestLink implements Link<WlRequest>
+    {
+        public WlRequest getPrev(WlRequest thisPrev) { return thisPrev._userRequestPrev; }
+        public void setPrev(WlRequest thisPrev, WlRequest thatPrev) { thisPrev._userRequestPrev = thatPrev; }
+        public WlRequest getNext(WlRequest thisNext) { return thisNext._userRequestNext; }
+        public void setNext(WlRequest thisNext, WlRequest thatNext) { thisNext._userRequestNext = thatNext; }
+    }
+    static final UserRequestLink USER_REQUEST_LINK = new UserRequestLink();
+    VaDoubleLinkList<WlRequest> _userRequestList; // (USER_REQUEST_LINK) list this request is in, if any
+
+    /* Link for the item handler's pending request and request timeout lists. */
+    private WlRequest _pendingRequestNext, _pendingRequestPrev;
+    static class PendingRequestLink implements Link<WlRequest>
+    {
+        public WlRequest getPrev(WlRequest thisPrev) { return thisPrev._pendingRequestPrev; }
+        public void setPrev(WlRequest thisPrev, WlRequest thatPrev) { thisPrev._pendingRequestPrev = thatPrev; }
+        public WlRequest getNext(WlRequest thisNext) { return thisNext._pendingRequestNext; }
+        public void setNext(WlRequest thisNext, WlRequest thatNext) { thisNext._pendingRequestNext = thatNext; }
+    }
+    static final PendingRequestLink PENDING_REQUEST_LINK = new PendingRequestLink();
+    VaDoubleLinkList<WlRequest> _pendingRequestList; // (PENDING_REQUEST_LINK) list this request is in, if any
     
     WlRequest()
     {
@@ -246,16 +272,101 @@ public class WlRequest extends VaNode
 		this._viewAction = viewAction;
 	}
 
-	void tableKey(WlInteger tableKey)
+	/* Returns the view of the request, creating it if needed. Only valid if hasView() is true. */
+	WlView view()
+	{
+		if (_view == null)
+			_view = new WlView();
+		return _view;
+	}
+
+	/* Returns whether the request has a view. */
+	boolean hasView()
+	{
+		return _hasView;
+	}
+
+	/* Sets whether the request has a view. */
+	void hasView(boolean hasView)
+	{
+		_hasView = hasView;
+	}
+
+    /* Adds this request to the end of a list linked with USER_REQUEST_LINK,
+     * removing it from any other such list first. */
+    void linkUserRequest(VaDoubleLinkList<WlRequest> list)
     {
-        _tableKey = tableKey;
+        if (_userRequestList == list)
+            return;
+        
+        unlinkUserRequest();
+        list.push(this, USER_REQUEST_LINK);
+        _userRequestList = list;
     }
     
-    WlInteger tableKey()
+    /* Removes this request from the list it is linked into with USER_REQUEST_LINK.
+     * Returns false if the request was not in such a list. */
+    boolean unlinkUserRequest()
     {
-        return _tableKey;
+        if (_userRequestList == null)
+            return false;
+        
+        _userRequestList.remove(this, USER_REQUEST_LINK);
+        _userRequestList = null;
+        return true;
     }
-
+    
+    /* Adds this request to the end of a list linked with PENDING_REQUEST_LINK,
+     * removing it from any other such list first. */
+    void linkPendingRequest(VaDoubleLinkList<WlRequest> list)
+    {
+        if (_pendingRequestList == list)
+            return;
+        
+        unlinkPendingRequest();
+        list.push(this, PENDING_REQUEST_LINK);
+        _pendingRequestList = list;
+    }
+    
+    /* Removes this request from the list it is linked into with PENDING_REQUEST_LINK.
+     * Returns false if the request was not in such a list. */
+    boolean unlinkPendingRequest()
+    {
+        if (_pendingRequestList == null)
+            return false;
+        
+        _pendingRequestList.remove(this, PENDING_REQUEST_LINK);
+        _pendingRequestList = null;
+        return true;
+    }
+    
+    /* Removes and returns the first request of a list linked with USER_REQUEST_LINK. */
+    static WlRequest pollUserRequest(VaDoubleLinkList<WlRequest> list)
+    {
+        WlRequest wlRequest = list.peek();
+        if (wlRequest != null)
+            wlRequest.unlinkUserRequest();
+        return wlRequest;
+    }
+    
+    /* Removes and returns the first request of a list linked with PENDING_REQUEST_LINK. */
+    static WlRequest pollPendingRequest(VaDoubleLinkList<WlRequest> list)
+    {
+        WlRequest wlRequest = list.peek();
+        if (wlRequest != null)
+            wlRequest.unlinkPendingRequest();
+        return wlRequest;
+    }
+    
+    /* Returns the request to its pool, first removing it from any list it is linked into. */
+    @Override
+    public void returnToPool()
+    {
+        unlinkUserRequest();
+        unlinkPendingRequest();
+        super.returnToPool();
+    }
+    
 	/* Clears the object for re-use. */
     void clear()
     {
@@ -275,6 +386,6 @@ public class WlRequest extends VaNode
         _hasServiceId = false;
         _initialResponseReceived = false;
         _symbolListFlags = 0;
-        _tableKey = null;
+        _hasView = false;
     }
 }
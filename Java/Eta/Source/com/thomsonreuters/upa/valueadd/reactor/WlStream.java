@@ -1,5 +1,7 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -25,6 +27,8 @@ import com.thomsonreuters.upa.rdm.DomainTypes;
 import com.thomsonreuters.upa.transport.IoctlCodes;
 import com.thomsonreuters.upa.transport.TransportBuffer;
 import com.thomsonreuters.upa.transport.TransportReturnCodes;
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList;
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList.Link;
 import com.thomsonreuters.upa.valueadd.common.VaNode;
 
 /* Watchlist stream that handles basic stream management. */
@@ -61,13 +65,13 @@ class WlStream extends VaNode
      * directory stream up but there was a pending multi-part refresh or snapshot in progress */
     LinkedList<WlRequest> _waitingRequestList = new LinkedList<WlRequest>();
     
-    // list of user requests associated with this stream (used for fanout)
-    LinkedList<WlRequest> _userRequestList = new LinkedList<WlRequest>();
+    // list of user requests associated with this stream (used for fanout, linked with WlRequest.USER_REQUEST_LINK)
+    VaDoubleLinkList<WlRequest> _userRequestList = new VaDoubleLinkList<WlRequest>();
 
     // unsent message queue
-    LinkedList<Msg> _unsentMsgQueue = new LinkedList<Msg>();
+    ArrayDeque<Msg> _unsentMsgQueue = new ArrayDeque<Msg>();
     // pool of messages
-    LinkedList<Msg> _msgPool = new LinkedList<Msg>();
+    ArrayDeque<Msg> _msgPool = new ArrayDeque<Msg>();
     
     State _state = CodecFactory.createState();
     EncodeIterator _eIter = CodecFactory.createEncodeIterator();
@@ -89,11 +93,40 @@ class WlStream extends VaNode
     
     ReactorChannelInfo _reactorChnlInfo = ReactorFactory.createReactorChannelInfo();
     
-    WlInteger _tableKey, _groupTableKey;
     
     int _requestsPausedCount;
     boolean _paused;
     
+    // union of the views of the user requests aggregated on this stream, sent in the
+    // stream's request message if _hasAggregateView is set
+    WlView _aggregateView = new WlView();
+    boolean _hasAggregateView;
+    Buffer _viewBuffer; // encoded aggregate view, referenced by the request message
+    
+    /* Link for the item handler's list of streams. */
+    private WlStream _streamListNext, _streamListPrev;
+    static class StreamListLink implements Link<WlStream>
+    {
+        public WlStream getPrev(WlStream thisPrev) { return thisPrev._streamListPrev; }
+        public void setPrev(WlStream thisPrev, WlStream thatPrev) { thisPrev._streamListPrev = thatPrev; }
+        public WlStream getNext(WlStream thisNext) { return thisNext._streamListNext; }
+        public void setNext(WlStream thisNext, WlStream thatNext) { thisNext._streamListNext = thatNext; }
+    }
+    static final StreamListLink STREAM_LIST_LINK = new StreamListLink();
+    boolean _inStreamList;
+
+    /* Link for the item handler's list of streams with pending messages to send. */
+    private WlStream _pendingSendNext, _pendingSendPrev;
+    static class PendingSendLink implements Link<WlStream>
+    {
+        public WlStream getPrev(WlStream thisPrev) { return thisPrev._pendingSendPrev; }
+        public void setPrev(WlStream thisPrev, WlStream thatPrev) { thisPrev._pendingSendPrev = thatPrev; }
+        public WlStream getNext(WlStream thisNext) { return thisNext._pendingSendNext; }
+        public void setNext(WlStream thisNext, WlStream thatNext) { thisNext._pendingSendNext = thatNext; }
+    }
+    static final PendingSendLink PENDING_SEND_LINK = new PendingSendLink();
+    boolean _inPendingSendList;
+    
     WlStream()
     {
         _ackMsg = (AckMsg)CodecFactory.createMsg();
@@ -229,12 +262,65 @@ class WlStream extends VaNode
         return _waitingRequestList;
     }
     
-    /* Returns list of user requests associated with this stream (used for fanout). */
-    LinkedList<WlRequest> userRequestList()
+    /* Returns list of user requests associated with this stream (used for fanout).
+     * The list is linked with WlRequest.USER_REQUEST_LINK. */
+    VaDoubleLinkList<WlRequest> userRequestList()
     {
         return _userRequestList;
     }
     
+    /* Adds a user request to the end of this stream's user request list. */
+    void addUserRequest(WlRequest wlRequest)
+    {
+        wlRequest.linkUserRequest(_userRequestList);
+    }
+    
+    /* Removes a user request from this stream's user request list.
+     * Returns false if the request was not in the list. */
+    boolean removeUserRequest(WlRequest wlRequest)
+    {
+        if (wlRequest._userRequestList != _userRequestList)
+            return false;
+        
+        return wlRequest.unlinkUserRequest();
+    }
+    
+    /* Removes and returns the first user request of this stream, or null if there are none. */
+    WlRequest pollUserRequest()
+    {
+        return WlRequest.pollUserRequest(_userRequestList);
+    }
+    
+    /* Returns the union of the views of the user requests aggregated on this stream.
+     * Only valid if hasAggregateView() is true. */
+    WlView aggregateView()
+    {
+        return _aggregateView;
+    }
+    
+    /* Returns whether the stream requests a view. */
+    boolean hasAggregateView()
+    {
+        return _hasAggregateView;
+    }
+    
+    /* Sets whether the stream requests a view. */
+    void hasAggregateView(boolean hasAggregateView)
+    {
+        _hasAggregateView = hasAggregateView;
+    }
+    
+    /* Returns the buffer the aggregate view is encoded into, growing it to at least
+     * the given capacity. */
+    Buffer viewBuffer(int capacity)
+    {
+        if (_viewBuffer == null)
+            _viewBuffer = CodecFactory.createBuffer();
+        if (_viewBuffer.data() == null || _viewBuffer.data().capacity() < capacity)
+            _viewBuffer.data(ByteBuffer.allocate(capacity));
+        return _viewBuffer;
+    }
+    
     /* Returns item aggregation key associated with this stream. */
     WlItemAggregationKey itemAggregationKey()
     {
@@ -409,9 +495,9 @@ class WlStream extends VaNode
                 }
                     
                 if (msg.domainType() != DomainTypes.LOGIN  && 
-                		msg.msgClass() == MsgClasses.REQUEST && _userRequestList.size()  > 0)
+                		msg.msgClass() == MsgClasses.REQUEST && _userRequestList.count()  > 0)
                 {
-                	if (_requestsPausedCount == _userRequestList.size() 
+                	if (_requestsPausedCount == _userRequestList.count() 
                 			&& _watchlist._loginHandler._loginRefresh.checkHasFeatures() 
                 			&& _watchlist._loginHandler._loginRefresh.features().checkHasSupportOptimizedPauseResume() 
                 			&& _watchlist._loginHandler._loginRefresh.features().supportOptimizedPauseResume() == 1)
@@ -821,8 +907,9 @@ class WlStream extends VaNode
         _state.streamState(StreamStates.CLOSED);
         _state.dataState(DataStates.SUSPECT);                
         // remove this stream from watchlist table
-        _watchlist.streamIdtoWlStreamTable().remove(_tableKey);
-        _tableKey.returnToPool();
+        _watchlist.streamIdtoWlStreamTable().remove(_streamId);
+        // remove this stream from the item handler's stream lists
+        _watchlist.itemHandler().unlinkStream(this);
         _requestsPausedCount = 0;
         _paused = false;
         
@@ -862,26 +949,6 @@ class WlStream extends VaNode
         return ret;
     }
     
-    void tableKey(WlInteger tableKey)
-    {
-        _tableKey = tableKey;
-    }
-    
-    WlInteger tableKey()
-    {
-        return _tableKey;
-    }
-    
-    void groupTableKey(WlInteger groupTableKey)
-    {
-        _groupTableKey = groupTableKey;
-    }
-    
-    WlInteger groupTableKey()
-    {
-        return _groupTableKey;
-    }
-    
     boolean requestPending()
     {
         return _requestPending;
@@ -914,6 +981,8 @@ class WlStream extends VaNode
         _reactorChnlInfo.clear();
         _requestsPausedCount = 0;
         _paused = false;
+        _hasAggregateView = false;
+        _aggregateView.clear();
         // return any unsent messages back into message pool
         Msg msg = null;
         while ((msg = _unsentMsgQueue.poll()) != null)
@@ -932,8 +1001,6 @@ class WlStream extends VaNode
         _reactorChannelInfo.clear();
         _submitOptions.clear();
         _groupId = null;
-        _tableKey = null;
-        _groupTableKey = null;
         _wlService = null;
         // return any WlPostTimeoutInfo back to pool
         WlPostTimeoutInfo postTimeoutInfo = null;
@@ -961,7 +1028,7 @@ class WlStream extends VaNode
         }
         // return any user requests back to pool
         wlRequest = null;
-        while ((wlRequest = _userRequestList.poll()) != null)
+        while ((wlRequest = pollUserRequest()) != null)
         {
             _watchlist.closeWlRequest(wlRequest);
         }
@@ -0,0 +1,244 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.thomsonreuters.upa.codec.Array;
+import com.thomsonreuters.upa.codec.ArrayEntry;
+import com.thomsonreuters.upa.codec.Buffer;
+import com.thomsonreuters.upa.codec.CodecFactory;
+import com.thomsonreuters.upa.codec.CodecReturnCodes;
+import com.thomsonreuters.upa.codec.DataTypes;
+import com.thomsonreuters.upa.codec.ElementEntry;
+import com.thomsonreuters.upa.codec.ElementList;
+import com.thomsonreuters.upa.codec.EncodeIterator;
+import com.thomsonreuters.upa.codec.Int;
+import com.thomsonreuters.upa.codec.UInt;
+import com.thomsonreuters.upa.rdm.ElementNames;
+import com.thomsonreuters.upa.rdm.ViewTypes;
+
+/* The fields requested by a view: a set of field ids for a ViewTypes.FIELD_ID_LIST view,
+ * or a set of element names for a ViewTypes.ELEMENT_NAME_LIST view. Used both for the
+ * view of a user request and for the union of the views of the requests aggregated
+ * on a stream. */
+class WlView
+{
+    int _viewType;
+
+    // field ids, kept sorted and without duplicates once sortFieldIds() is called
+    int[] _fieldIds = new int[16];
+    int _fieldIdCount;
+
+    // element names, without duplicates; buffers past _elementNameCount are kept for re-use
+    ArrayList<Buffer> _elementNames = new ArrayList<Buffer>();
+    int _elementNameCount;
+
+    /* Returns the view type, FIELD_ID_LIST or ELEMENT_NAME_LIST. */
+    int viewType()
+    {
+        return _viewType;
+    }
+
+    /* Sets the view type. */
+    void viewType(int viewType)
+    {
+        _viewType = viewType;
+    }
+
+    /* Returns the number of field ids or element names in the view. */
+    int count()
+    {
+        return (_viewType == ViewTypes.FIELD_ID_LIST ? _fieldIdCount : _elementNameCount);
+    }
+
+    /* Adds a field id. sortFieldIds() must be called once all ids are added. */
+    void addFieldId(int fieldId)
+    {
+        if (_fieldIdCount == _fieldIds.length)
+            _fieldIds = Arrays.copyOf(_fieldIds, _fieldIds.length * 2);
+        _fieldIds[_fieldIdCount++] = fieldId;
+    }
+
+    /* Sorts the field ids and removes duplicates, so they can be searched. */
+    void sortFieldIds()
+    {
+        if (_fieldIdCount < 2)
+            return;
+
+        Arrays.sort(_fieldIds, 0, _fieldIdCount);
+        int count = 1;
+        for (int i = 1; i < _fieldIdCount; i++)
+        {
+            if (_fieldIds[i] != _fieldIds[count - 1])
+                _fieldIds[count++] = _fieldIds[i];
+        }
+        _fieldIdCount = count;
+    }
+
+    /* Returns whether the view contains a field id. */
+    boolean containsFieldId(int fieldId)
+    {
+        return Arrays.binarySearch(_fieldIds, 0, _fieldIdCount, fieldId) >= 0;
+    }
+
+    /* Adds a copy of an element name, unless the view already contains it. The copy
+     * re-uses a buffer left by an earlier clear() when there is one. */
+    void addElementName(Buffer elementName)
+    {
+        if (containsElementName(elementName))
+            return;
+
+        Buffer name;
+        if (_elementNameCount < _elementNames.size())
+        {
+            name = _elementNames.get(_elementNameCount);
+        }
+        else
+        {
+            name = CodecFactory.createBuffer();
+            _elementNames.add(name);
+        }
+
+        ByteBuffer data = name.data();
+        if (data == null || data.capacity() < elementName.length())
+            data = ByteBuffer.allocate(elementName.length());
+        name.data(data, 0, elementName.length());
+        elementName.copy(name);
+        _elementNameCount++;
+    }
+
+    /* Returns whether the view contains an element name. */
+    boolean containsElementName(Buffer elementName)
+    {
+        for (int i = 0; i < _elementNameCount; i++)
+        {
+            if (_elementNames.get(i).equals(elementName))
+                return true;
+        }
+        return false;
+    }
+
+    /* Adds the field ids or element names of another view of the same type to this one. */
+    void merge(WlView view)
+    {
+        if (_viewType == ViewTypes.FIELD_ID_LIST)
+        {
+            for (int i = 0; i < view._fieldIdCount; i++)
+                addFieldId(view._fieldIds[i]);
+            sortFieldIds();
+        }
+        else
+        {
+            for (int i = 0; i < view._elementNameCount; i++)
+                addElementName(view._elementNames.get(i));
+        }
+    }
+
+    /* Returns whether another view has the same type and contents as this one. */
+    boolean equals(WlView view)
+    {
+        if (view._viewType != _viewType || view.count() != count())
+            return false;
+
+        if (_viewType == ViewTypes.FIELD_ID_LIST)
+        {
+            for (int i = 0; i < _fieldIdCount; i++)
+            {
+                if (view._fieldIds[i] != _fieldIds[i])
+                    return false;
+            }
+        }
+        else
+        {
+            for (int i = 0; i < _elementNameCount; i++)
+            {
+                if (!view.containsElementName(_elementNames.get(i)))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /* Copies this view into another one. */
+    void copy(WlView destView)
+    {
+        destView.clear();
+        destView._viewType = _viewType;
+        destView.merge(this);
+    }
+
+    /* Encodes the view as the ElementList payload of a request, with the :ViewType and
+     * :ViewData elements. */
+    int encode(EncodeIterator eIter, ElementList elementList, ElementEntry elementEntry,
+            Array array, ArrayEntry arrayEntry, UInt tempUInt, Int tempInt)
+    {
+        int ret;
+
+        elementList.clear();
+        elementList.applyHasStandardData();
+        if ((ret = elementList.encodeInit(eIter, null, 0)) < CodecReturnCodes.SUCCESS)
+            return ret;
+
+        elementEntry.clear();
+        elementEntry.name(ElementNames.VIEW_TYPE);
+        elementEntry.dataType(DataTypes.UINT);
+        tempUInt.value(_viewType);
+        if ((ret = elementEntry.encode(eIter, tempUInt)) < CodecReturnCodes.SUCCESS)
+            return ret;
+
+        elementEntry.clear();
+        elementEntry.name(ElementNames.VIEW_DATA);
+        elementEntry.dataType(DataTypes.ARRAY);
+        if ((ret = elementEntry.encodeInit(eIter, 0)) < CodecReturnCodes.SUCCESS)
+            return ret;
+
+        array.clear();
+        if (_viewType == ViewTypes.FIELD_ID_LIST)
+        {
+            array.primitiveType(DataTypes.INT);
+            array.itemLength(2);
+        }
+        else
+        {
+            array.primitiveType(DataTypes.ASCII_STRING);
+            array.itemLength(0);
+        }
+        if ((ret = array.encodeInit(eIter)) < CodecReturnCodes.SUCCESS)
+            return ret;
+
+        if (_viewType == ViewTypes.FIELD_ID_LIST)
+        {
+            for (int i = 0; i < _fieldIdCount; i++)
+            {
+                arrayEntry.clear();
+                tempInt.value(_fieldIds[i]);
+                if ((ret = arrayEntry.encode(eIter, tempInt)) < CodecReturnCodes.SUCCESS)
+                    return ret;
+            }
+        }
+        else
+        {
+            for (int i = 0; i < _elementNameCount; i++)
+            {
+                arrayEntry.clear();
+                if ((ret = arrayEntry.encode(eIter, _elementNames.get(i))) < CodecReturnCodes.SUCCESS)
+                    return ret;
+            }
+        }
+
+        if ((ret = array.encodeComplete(eIter, true)) < CodecReturnCodes.SUCCESS)
+            return ret;
+        if ((ret = elementEntry.encodeComplete(eIter, true)) < CodecReturnCodes.SUCCESS)
+            return ret;
+        return elementList.encodeComplete(eIter, true);
+    }
+
+    /* Clears the view for re-use. */
+    void clear()
+    {
+        _viewType = 0;
+        _fieldIdCount = 0;
+        _elementNameCount = 0;
+    }
+}
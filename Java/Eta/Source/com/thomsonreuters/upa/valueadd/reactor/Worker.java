@@ -17,6 +17,7 @@ import com.thomsonreuters.upa.transport.TransportFactory;
 import com.thomsonreuters.upa.transport.TransportReturnCodes;
 import com.thomsonreuters.upa.valueadd.common.SelectableBiDirectionalQueue;
 import com.thomsonreuters.upa.valueadd.common.VaIteratableQueue;
+import com.thomsonreuters.upa.valueadd.common.VaQueue;
 import com.thomsonreuters.upa.valueadd.reactor.ReactorChannel.State;
 
 /* Internal Worker thread class. */
@@ -38,7 +39,8 @@ class Worker implements Runnable
 
     volatile boolean _running = true;
 
-    VaIteratableQueue _timerEventQueue = new VaIteratableQueue();
+    WorkerTimerWheel _timerWheel = new WorkerTimerWheel();
+    VaQueue _expiredTimerQueue = new VaQueue();
 
     Worker(ReactorChannel reactorChannel, SelectableBiDirectionalQueue queue)
     {
@@ -65,7 +67,13 @@ class Worker implements Runnable
         {
             try
             {
-                int selectorCount = _selector.select(SELECT_TIME);
+                // wake up no later than the next timer deadline
+                int selectorCount;
+                long selectTime = _timerWheel.nextTimeoutMs(System.nanoTime(), SELECT_TIME);
+                if (selectTime > 0)
+                    selectorCount = _selector.select(selectTime);
+                else
+                    selectorCount = _selector.selectNow();
                 if (selectorCount > 0 || !_selector.selectedKeys().isEmpty())
                 {
                     Iterator<SelectionKey> iter = _selector.selectedKeys().iterator();
@@ -111,12 +119,11 @@ class Worker implements Runnable
                     _running = false;
                 }
                 
-                // check guaranteed messaging timers
-                _timerEventQueue.rewind();
-                while (_timerEventQueue.hasNext())
+                // check guaranteed messaging and watchlist timers
+                if (_timerWheel.count() > 0 && _timerWheel.expire(System.nanoTime(), _expiredTimerQueue) > 0)
                 {
-                    WorkerEvent event = (WorkerEvent)_timerEventQueue.next();
-                    if (System.nanoTime() >= event.timeout())
+                    WorkerEvent event;
+                    while ((event = (WorkerEvent)_expiredTimerQueue.poll()) != null)
                     {
                         WorkerEventTypes eventType = WorkerEventTypes.TUNNEL_STREAM_DISPATCH_TIMEOUT;
                         if (event.eventType() == WorkerEventTypes.START_WATCHLIST_TIMER)
@@ -125,8 +132,7 @@ class Worker implements Runnable
                         }
                         sendWorkerEvent(event.reactorChannel(), eventType, event.tunnelStream(),
                                         ReactorReturnCodes.SUCCESS, null, null);
-                        _timerEventQueue.remove(event);
-						event.returnToPool();
+                        event.returnToPool();
                     }
                 }
 
@@ -225,6 +231,9 @@ class Worker implements Runnable
     private void processWorkerEvent()
     {
         WorkerEvent event = (WorkerEvent)_queue.read();
+        if (event == null)
+            return;
+
         WorkerEventTypes eventType = event.eventType();
         ReactorChannel reactorChannel = event.reactorChannel();
 
@@ -258,7 +267,7 @@ class Worker implements Runnable
                 break;
             case START_DISPATCH_TIMER:
             case START_WATCHLIST_TIMER:
-                _timerEventQueue.add(event);
+                _timerWheel.schedule(event);
                 return;
             default:
                 System.out.println("Worker.processWorkerEvent(): received unexpected eventType=" + eventType);
@@ -648,6 +657,8 @@ class Worker implements Runnable
     {
         _running = false;
 
+        _timerWheel.clear();
+
         if (_selector != null)
         {
             Set<SelectionKey> keys = _selector.keys();
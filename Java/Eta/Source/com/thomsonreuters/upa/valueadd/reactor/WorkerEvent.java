@@ -1,11 +1,25 @@
 package com.thomsonreuters.upa.valueadd.reactor;
 
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList.Link;
+
 /* Internal event class used by the Reactor and Worker. */
 class WorkerEvent extends ReactorEvent
 {
 	WorkerEventTypes _eventType;
 	long _timeout;
 	TunnelStream _tunnelStream;
+	int _timerSlot = -1;
+
+	/* Link for the Worker's timer wheel slots. */
+	private WorkerEvent _timerNext, _timerPrev;
+	static class TimerLink implements Link<WorkerEvent>
+	{
+		public WorkerEvent getPrev(WorkerEvent thisPrev) { return thisPrev._timerPrev; }
+		public void setPrev(WorkerEvent thisPrev, WorkerEvent thatPrev) { thisPrev._timerPrev = thatPrev; }
+		public WorkerEvent getNext(WorkerEvent thisNext) { return thisNext._timerNext; }
+		public void setNext(WorkerEvent thisNext, WorkerEvent thatNext) { thisNext._timerNext = thatNext; }
+	}
+	static final TimerLink TIMER_LINK = new TimerLink();
 
 	WorkerEventTypes eventType()
     {
@@ -27,6 +41,17 @@ class WorkerEvent extends ReactorEvent
         _timeout = timeout;
     }    
 
+    /* Slot of the timer wheel this event is scheduled in, or -1 if not scheduled. */
+    int timerSlot()
+    {
+        return _timerSlot;
+    }
+
+    void timerSlot(int timerSlot)
+    {
+        _timerSlot = timerSlot;
+    }
+
     TunnelStream tunnelStream()
     {
         return _tunnelStream;
@@ -43,6 +68,7 @@ class WorkerEvent extends ReactorEvent
         _eventType = WorkerEventTypes.INIT;
         _timeout = 0;
         _tunnelStream = null;
+        _timerSlot = -1;
     }
     
     /**
@@ -0,0 +1,163 @@
+package com.thomsonreuters.upa.valueadd.reactor;
+
+import com.thomsonreuters.upa.valueadd.common.VaDoubleLinkList;
+import com.thomsonreuters.upa.valueadd.common.VaQueue;
+
+/* Internal hashed timer wheel used by the Worker for timer events
+ * (START_DISPATCH_TIMER and START_WATCHLIST_TIMER).
+ *
+ * Each event is hashed into the slot of the tick in which it expires and linked
+ * into that slot with WorkerEvent.TIMER_LINK, so scheduling and cancellation are O(1).
+ * Expiring only visits the slots of the ticks that have elapsed since the last call.
+ * Events whose timeout lies more than one revolution away share a slot with earlier
+ * events and are left in place until their own round comes up. */
+class WorkerTimerWheel
+{
+    static final int DEFAULT_WHEEL_SIZE = 512; /* must be a power of two */
+    static final long DEFAULT_TICK_NANOS = 1000000L; /* 1 millisecond */
+
+    VaDoubleLinkList<WorkerEvent>[] _slots;
+    int _mask;
+    long _tickNanos;
+    long _startTime;
+    long _currentTick; /* next tick that has not been processed yet */
+    int _count;
+
+    WorkerTimerWheel()
+    {
+        this(DEFAULT_WHEEL_SIZE, DEFAULT_TICK_NANOS, System.nanoTime());
+    }
+
+    @SuppressWarnings("unchecked")
+    WorkerTimerWheel(int wheelSize, long tickNanos, long startTime)
+    {
+        if (wheelSize <= 0 || (wheelSize & (wheelSize - 1)) != 0)
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        if (tickNanos <= 0)
+            throw new IllegalArgumentException("tickNanos must be positive");
+
+        _slots = (VaDoubleLinkList<WorkerEvent>[])new VaDoubleLinkList<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++)
+            _slots[i] = new VaDoubleLinkList<WorkerEvent>();
+        _mask = wheelSize - 1;
+        _tickNanos = tickNanos;
+        _startTime = startTime;
+        _currentTick = 0;
+        _count = 0;
+    }
+
+    /* Returns the number of scheduled events. */
+    int count()
+    {
+        return _count;
+    }
+
+    /* Schedules the event to expire at event.timeout() (System.nanoTime() based). */
+    void schedule(WorkerEvent event)
+    {
+        if (event.timerSlot() != -1)
+            cancel(event);
+
+        // round up, so an event is only visited once its tick has fully elapsed
+        long tick = (event.timeout() - _startTime + _tickNanos - 1) / _tickNanos;
+        if (tick < _currentTick)
+            tick = _currentTick;
+
+        int slot = (int)(tick & _mask);
+        event.timerSlot(slot);
+        _slots[slot].push(event, WorkerEvent.TIMER_LINK);
+        ++_count;
+    }
+
+    /* Removes a scheduled event from the wheel. Returns false if the event was not scheduled. */
+    boolean cancel(WorkerEvent event)
+    {
+        int slot = event.timerSlot();
+        if (slot == -1)
+            return false;
+
+        _slots[slot].remove(event, WorkerEvent.TIMER_LINK);
+        event.timerSlot(-1);
+        --_count;
+        return true;
+    }
+
+    /* Moves every event whose timeout is at or before currentTime to the expired queue,
+     * in tick order. Returns the number of expired events. */
+    int expire(long currentTime, VaQueue expired)
+    {
+        long nowTick = (currentTime - _startTime) / _tickNanos;
+        if (nowTick < _currentTick)
+            return 0;
+
+        int expiredCount = 0;
+        if (_count > 0)
+        {
+            // after a long stall every slot has elapsed; visit each one once
+            long lastTick = nowTick;
+            if (lastTick - _currentTick > _mask)
+                lastTick = _currentTick + _mask;
+
+            for (long tick = _currentTick; tick <= lastTick && _count > 0; tick++)
+            {
+                VaDoubleLinkList<WorkerEvent> slot = _slots[(int)(tick & _mask)];
+                if (slot.count() == 0)
+                    continue;
+
+                WorkerEvent event;
+                for (event = slot.start(WorkerEvent.TIMER_LINK); event != null; event = slot.forth(WorkerEvent.TIMER_LINK))
+                {
+                    if (currentTime >= event.timeout())
+                    {
+                        slot.remove(event, WorkerEvent.TIMER_LINK);
+                        event.timerSlot(-1);
+                        --_count;
+                        expired.add(event);
+                        ++expiredCount;
+                    }
+                }
+            }
+        }
+
+        _currentTick = nowTick + 1;
+        return expiredCount;
+    }
+
+    /* Returns the number of milliseconds until the earliest non-empty slot is due,
+     * capped at maxWaitMs. Returns maxWaitMs if no events are scheduled. */
+    long nextTimeoutMs(long currentTime, long maxWaitMs)
+    {
+        if (_count == 0)
+            return maxWaitMs;
+
+        long tick = _currentTick;
+        long lastTick = _currentTick + _mask;
+        for (; tick <= lastTick; tick++)
+        {
+            if (_slots[(int)(tick & _mask)].count() > 0)
+                break;
+        }
+
+        long waitNanos = _startTime + tick * _tickNanos - currentTime;
+        if (waitNanos <= 0)
+            return 0;
+
+        long waitMs = (waitNanos + 999999L) / 1000000L;
+        return waitMs < maxWaitMs ? waitMs : maxWaitMs;
+    }
+
+    /* Removes all events from the wheel, returning them to their pool. */
+    void clear()
+    {
+        for (int i = 0; i < _slots.length; i++)
+        {
+            WorkerEvent event;
+            while ((event = _slots[i].pop(WorkerEvent.TIMER_LINK)) != null)
+            {
+                event.timerSlot(-1);
+                event.returnToPool();
+            }
+        }
+        _count = 0;
+    }
+}